@@ -0,0 +1,19 @@
+create table BALANCES_ROLLUPS
+(
+    CHANNEL_ID            BIGINT not null,
+    BUCKET_SECONDS        BIGINT not null,
+    BUCKET_START          BIGINT not null,
+    ENTRIES               BIGINT not null,
+    MIN_LOCAL_BALANCE     BIGINT not null,
+    MAX_LOCAL_BALANCE     BIGINT not null,
+    LOCAL_BALANCE_SECONDS BIGINT not null,
+    COVERED_SECONDS       BIGINT not null,
+    primary key (CHANNEL_ID, BUCKET_SECONDS, BUCKET_START)
+);
+
+create table BALANCES_ROLLUPS_PROGRESS
+(
+    CHANNEL_ID BIGINT not null
+        primary key,
+    TIMESTAMP  BIGINT not null
+);
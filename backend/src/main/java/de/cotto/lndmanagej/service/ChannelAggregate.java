@@ -0,0 +1,10 @@
+package de.cotto.lndmanagej.service;
+
+import de.cotto.lndmanagej.model.FeeReport;
+import de.cotto.lndmanagej.model.FlowReport;
+import de.cotto.lndmanagej.model.RebalanceReport;
+
+public record ChannelAggregate(FlowReport flowReport, FeeReport feeReport, RebalanceReport rebalanceReport) {
+    public static final ChannelAggregate EMPTY =
+            new ChannelAggregate(FlowReport.EMPTY, FeeReport.EMPTY, RebalanceReport.EMPTY);
+}
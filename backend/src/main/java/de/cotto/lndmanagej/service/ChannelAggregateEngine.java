@@ -0,0 +1,122 @@
+package de.cotto.lndmanagej.service;
+
+import com.codahale.metrics.annotation.Timed;
+import de.cotto.lndmanagej.forwardinghistory.ForwardingSums;
+import de.cotto.lndmanagej.model.ChannelId;
+import de.cotto.lndmanagej.model.ChannelIdAndMaxAge;
+import de.cotto.lndmanagej.model.Coins;
+import de.cotto.lndmanagej.model.FeeReport;
+import de.cotto.lndmanagej.model.FlowReport;
+import de.cotto.lndmanagej.model.RebalanceReport;
+import de.cotto.lndmanagej.model.SelfPayment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.function.Predicate;
+
+/**
+ * Computes the {@link FlowReport}, {@link FeeReport} and {@link RebalanceReport} of a channel together, reading each
+ * data source (outgoing and incoming forwards, self-payments from and to the channel, settled invoices) only once.
+ * The resulting immutable {@link ChannelAggregate} is cached, so that the reports for a channel are consistent and
+ * requesting all of them does not cause additional queries. For a channel that was closed long ago, a single aggregate
+ * covering its whole history is kept (see {@link ClosedChannelAwareCache}).
+ */
+@Component
+public class ChannelAggregateEngine {
+    private static final Duration EXPIRY = Duration.ofMinutes(10);
+    private static final Duration REFRESH = Duration.ofMinutes(5);
+
+    private final ForwardingEventsService forwardingEventsService;
+    private final SelfPaymentsService selfPaymentsService;
+    private final SettledInvoicesService settledInvoicesService;
+    private final ClosedChannelAwareCache<ChannelAggregate> cache;
+
+    public ChannelAggregateEngine(
+            ForwardingEventsService forwardingEventsService,
+            SelfPaymentsService selfPaymentsService,
+            SettledInvoicesService settledInvoicesService,
+            ChannelService channelService,
+            OwnNodeService ownNodeService,
+            HistoryService historyService
+    ) {
+        this.forwardingEventsService = forwardingEventsService;
+        this.selfPaymentsService = selfPaymentsService;
+        this.settledInvoicesService = settledInvoicesService;
+        cache = ClosedChannelAwareCache.builder(channelService, ownNodeService, historyService)
+                .withExpiry(EXPIRY)
+                .withRefresh(REFRESH)
+                .build(ChannelAggregate.EMPTY, this::getAggregateWithoutCache);
+    }
+
+    @Timed
+    public ChannelAggregate getAggregate(ChannelId channelId, Duration maxAge) {
+        return cache.get(new ChannelIdAndMaxAge(channelId, maxAge));
+    }
+
+    private ChannelAggregate getAggregateWithoutCache(ChannelIdAndMaxAge channelIdAndMaxAge) {
+        ChannelId channelId = channelIdAndMaxAge.channelId();
+        Duration maxAge = channelIdAndMaxAge.maxAge();
+        ForwardingSums outgoing = forwardingEventsService.getSumsWithOutgoingChannel(channelId, maxAge);
+        ForwardingSums incoming = forwardingEventsService.getSumsWithIncomingChannel(channelId, maxAge);
+        SelfPaymentSums fromChannel = SelfPaymentSums.create(
+                selfPaymentsService.getSelfPaymentsFromChannel(channelId, maxAge),
+                selfPayment -> RebalanceService.isRebalanceFromChannel(selfPayment, channelId)
+        );
+        SelfPaymentSums toChannel = SelfPaymentSums.create(
+                selfPaymentsService.getSelfPaymentsToChannel(channelId, maxAge),
+                RebalanceService::isRebalanceToChannel
+        );
+        Coins receivedViaPayments =
+                settledInvoicesService.getAmountReceivedViaChannelWithoutSelfPayments(channelId, maxAge);
+
+        FlowReport flowReport = new FlowReport(
+                outgoing.amount(),
+                incoming.amount(),
+                incoming.fees(),
+                fromChannel.rebalanceAmount(),
+                fromChannel.rebalanceFees(),
+                toChannel.rebalanceAmount(),
+                fromChannel.supportAmount(),
+                fromChannel.supportFees(),
+                toChannel.supportAmount(),
+                receivedViaPayments
+        );
+        FeeReport feeReport = new FeeReport(outgoing.fees(), incoming.fees());
+        RebalanceReport rebalanceReport = new RebalanceReport(
+                fromChannel.rebalanceFees(),
+                fromChannel.rebalanceAmount(),
+                toChannel.rebalanceFees(),
+                toChannel.rebalanceAmount(),
+                fromChannel.supportAmount(),
+                toChannel.supportAmount()
+        );
+        return new ChannelAggregate(flowReport, feeReport, rebalanceReport);
+    }
+
+    private record SelfPaymentSums(Coins amount, Coins fees, Coins rebalanceAmount, Coins rebalanceFees) {
+        static SelfPaymentSums create(Collection<SelfPayment> selfPayments, Predicate<SelfPayment> isRebalance) {
+            Coins amount = Coins.NONE;
+            Coins fees = Coins.NONE;
+            Coins rebalanceAmount = Coins.NONE;
+            Coins rebalanceFees = Coins.NONE;
+            for (SelfPayment selfPayment : selfPayments) {
+                amount = amount.add(selfPayment.amountPaid());
+                fees = fees.add(selfPayment.fees());
+                if (isRebalance.test(selfPayment)) {
+                    rebalanceAmount = rebalanceAmount.add(selfPayment.amountPaid());
+                    rebalanceFees = rebalanceFees.add(selfPayment.fees());
+                }
+            }
+            return new SelfPaymentSums(amount, fees, rebalanceAmount, rebalanceFees);
+        }
+
+        Coins supportAmount() {
+            return amount.subtract(rebalanceAmount);
+        }
+
+        Coins supportFees() {
+            return fees.subtract(rebalanceFees);
+        }
+    }
+}
@@ -8,31 +8,61 @@ import de.cotto.lndmanagej.model.ChannelId;
 import de.cotto.lndmanagej.model.ChannelIdAndMaxAge;
 import de.cotto.lndmanagej.model.ClosedChannel;
 
+import javax.annotation.Nullable;
 import java.time.Duration;
+import java.util.function.BiFunction;
 
+/**
+ * Caches values for open channels (and channels that were closed recently) with the configured expiry and refresh.
+ * <p>
+ * Values for channels that were closed at least {@value #BLOCKS_UNTIL_IMMUTABLE} blocks ago do not change anymore.
+ * For such a channel a single value covering its whole history is computed, which does not expire and is only evicted
+ * if the cache is full (the configured maximum size, or {@value #CLOSED_MAXIMUM_SIZE} channels), or if memory is
+ * needed (with soft values). This value is returned for all max ages covering the lifetime of the channel. For shorter
+ * max ages the value is derived from it using the function to restrict a value to a max age, if given. Otherwise,
+ * and until all history loaders caught up with lnd (the data may still be incomplete), the values are cached like
+ * those for open channels.
+ */
 public class ClosedChannelAwareCache<O> {
+    static final int BLOCKS_UNTIL_IMMUTABLE = 6 * 24;
+    private static final Duration FULL_HISTORY = Duration.ofDays(365 * 1_000);
+    // blocks are expected every 10 minutes, assume they are found at half of that rate to be on the safe side
+    private static final Duration MAXIMUM_DURATION_PER_BLOCK = Duration.ofMinutes(20);
+    static final int CLOSED_MAXIMUM_SIZE = 10_000;
+
     private final O defaultValue;
     private final ChannelService channelService;
     private final LoadingCache<ChannelIdAndMaxAge, O> cacheOpen;
-    private final LoadingCache<ChannelIdAndMaxAge, O> cacheClosed;
+    private final LoadingCache<ChannelId, O> cacheClosed;
     private final OwnNodeService ownNodeService;
+    private final HistoryService historyService;
+    @Nullable
+    private final BiFunction<O, Duration, O> restrictToMaxAge;
 
     public ClosedChannelAwareCache(
             O defaultValue,
             ChannelService channelService,
             OwnNodeService ownNodeService,
+            HistoryService historyService,
             LoadingCache<ChannelIdAndMaxAge, O> cacheOpen,
-            LoadingCache<ChannelIdAndMaxAge, O> cacheClosed
+            LoadingCache<ChannelId, O> cacheClosed,
+            @Nullable BiFunction<O, Duration, O> restrictToMaxAge
     ) {
         this.channelService = channelService;
         this.cacheOpen = cacheOpen;
         this.cacheClosed = cacheClosed;
         this.defaultValue = defaultValue;
         this.ownNodeService = ownNodeService;
+        this.historyService = historyService;
+        this.restrictToMaxAge = restrictToMaxAge;
     }
 
-    public static Builder builder(ChannelService channelService, OwnNodeService ownNodeService) {
-        return new Builder(channelService, ownNodeService);
+    public static Builder builder(
+            ChannelService channelService,
+            OwnNodeService ownNodeService,
+            HistoryService historyService
+    ) {
+        return new Builder(channelService, ownNodeService, historyService);
     }
 
     public O get(ChannelId channelId, Duration maxAge) {
@@ -45,29 +75,44 @@ public class ClosedChannelAwareCache<O> {
         if (closedChannel == null) {
             return cacheOpen.get(channelIdAndMaxAge);
         }
+        int blockHeight = ownNodeService.getBlockHeight();
+        int blocksSinceClose = blockHeight - closedChannel.getCloseHeight();
         Duration maxAge = channelIdAndMaxAge.maxAge();
-        if (isClosedLongerThan(closedChannel, maxAge)) {
+        if (isClosedLongerThan(blocksSinceClose, maxAge)) {
             return defaultValue;
         }
-        return cacheClosed.get(channelIdAndMaxAge);
+        if (blocksSinceClose < BLOCKS_UNTIL_IMMUTABLE || !historyService.isCaughtUp()) {
+            return cacheOpen.get(channelIdAndMaxAge);
+        }
+        int blocksSinceOpen = blockHeight - channelId.getBlockHeight();
+        if (coversLifetime(blocksSinceOpen, maxAge)) {
+            return cacheClosed.get(channelId);
+        }
+        if (restrictToMaxAge == null) {
+            return cacheOpen.get(channelIdAndMaxAge);
+        }
+        return restrictToMaxAge.apply(cacheClosed.get(channelId), maxAge);
+    }
+
+    private boolean coversLifetime(int blocksSinceOpen, Duration maxAge) {
+        return maxAge.compareTo(MAXIMUM_DURATION_PER_BLOCK.multipliedBy(blocksSinceOpen)) >= 0;
     }
 
-    private boolean isClosedLongerThan(ClosedChannel closedChannel, Duration maxAge) {
-        int blocksSinceClose = ownNodeService.getBlockHeight() - closedChannel.getCloseHeight();
+    private boolean isClosedLongerThan(int blocksSinceClose, Duration maxAge) {
         int daysClosedWithSafetyMargin = (int) (0.5 * blocksSinceClose * 10.0 / (60 * 24));
         return maxAge.minus(Duration.ofDays(daysClosedWithSafetyMargin)).isNegative();
     }
 
     public static class Builder extends CacheBuilderBase<Builder> {
-        private static final Duration REFRESH_CLOSED = Duration.ofHours(12);
-        private static final Duration EXPIRY_CLOSED = Duration.ofHours(24);
         private final ChannelService channelService;
         private final OwnNodeService ownNodeService;
+        private final HistoryService historyService;
 
-        public Builder(ChannelService channelService, OwnNodeService ownNodeService) {
+        public Builder(ChannelService channelService, OwnNodeService ownNodeService, HistoryService historyService) {
             super();
             this.channelService = channelService;
             this.ownNodeService = ownNodeService;
+            this.historyService = historyService;
         }
 
         @Override
@@ -76,21 +121,52 @@ public class ClosedChannelAwareCache<O> {
         }
 
         public <O> ClosedChannelAwareCache<O> build(O defaultValue, CacheLoader<ChannelIdAndMaxAge, O> function) {
-            CacheBuilder builder = new CacheBuilder()
+            return build(defaultValue, function, null);
+        }
+
+        /**
+         * Builds a cache that applies the given function to restrict the value for the whole history of a channel that
+         * was closed long ago to the requested max age.
+         */
+        public <O> ClosedChannelAwareCache<O> build(
+                O defaultValue,
+                CacheLoader<ChannelIdAndMaxAge, O> function,
+                @Nullable BiFunction<O, Duration, O> restrictToMaxAge
+        ) {
+            CacheLoader<ChannelId, O> fullHistoryFunction =
+                    channelId -> function.load(new ChannelIdAndMaxAge(channelId, FULL_HISTORY));
+            return build(defaultValue, function, fullHistoryFunction, restrictToMaxAge);
+        }
+
+        /**
+         * Same as {@link #build(Object, CacheLoader, BiFunction)}, but uses the given function to compute the value
+         * for the whole history of a channel that was closed long ago.
+         */
+        public <O> ClosedChannelAwareCache<O> build(
+                O defaultValue,
+                CacheLoader<ChannelIdAndMaxAge, O> function,
+                CacheLoader<ChannelId, O> fullHistoryFunction,
+                @Nullable BiFunction<O, Duration, O> restrictToMaxAge
+        ) {
+            LoadingCache<ChannelIdAndMaxAge, O> cacheOpen = new CacheBuilder()
                     .withRefresh(refresh)
                     .withExpiry(expiry)
                     .withSoftValues(softValues)
-                    .withMaximumSize(maximumSize);
-            LoadingCache<ChannelIdAndMaxAge, O> cacheOpen = builder.build(function);
-            LoadingCache<ChannelIdAndMaxAge, O> cacheClosed = builder
-                    .withRefresh(REFRESH_CLOSED)
-                    .withExpiry(EXPIRY_CLOSED).build(function);
+                    .withMaximumSize(maximumSize)
+                    .build(function);
+            LoadingCache<ChannelId, O> cacheClosed = new CacheBuilder()
+                    .withExpiry(null)
+                    .withSoftValues(softValues)
+                    .withMaximumSize(maximumSize == null ? CLOSED_MAXIMUM_SIZE : maximumSize)
+                    .build(fullHistoryFunction);
             return new ClosedChannelAwareCache<>(
                     defaultValue,
                     channelService,
                     ownNodeService,
+                    historyService,
                     cacheOpen,
-                    cacheClosed
+                    cacheClosed,
+                    restrictToMaxAge
             );
         }
     }
@@ -3,27 +3,21 @@ package de.cotto.lndmanagej.service;
 import com.codahale.metrics.annotation.Timed;
 import de.cotto.lndmanagej.model.Channel;
 import de.cotto.lndmanagej.model.ChannelId;
-import de.cotto.lndmanagej.model.Coins;
 import de.cotto.lndmanagej.model.FeeReport;
-import de.cotto.lndmanagej.model.ForwardingEvent;
 import de.cotto.lndmanagej.model.Pubkey;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
-import java.util.List;
 
 @Component
 public class FeeService {
     private static final Duration DEFAULT_MAX_AGE = Duration.ofDays(365 * 1_000);
-    private final ForwardingEventsService forwardingEventsService;
     private final ChannelService channelService;
+    private final ChannelAggregateEngine channelAggregateEngine;
 
-    public FeeService(
-            ForwardingEventsService forwardingEventsService,
-            ChannelService channelService
-    ) {
-        this.forwardingEventsService = forwardingEventsService;
+    public FeeService(ChannelService channelService, ChannelAggregateEngine channelAggregateEngine) {
         this.channelService = channelService;
+        this.channelAggregateEngine = channelAggregateEngine;
     }
 
     public FeeReport getFeeReportForPeer(Pubkey pubkey) {
@@ -44,15 +38,7 @@ public class FeeService {
 
     @Timed
     public FeeReport getFeeReportForChannel(ChannelId channelId, Duration maxAge) {
-        return new FeeReport(
-                getSumOfFees(forwardingEventsService.getEventsWithOutgoingChannel(channelId, maxAge)),
-                getSumOfFees(forwardingEventsService.getEventsWithIncomingChannel(channelId, maxAge))
-        );
+        return channelAggregateEngine.getAggregate(channelId, maxAge).feeReport();
     }
 
-    private Coins getSumOfFees(List<ForwardingEvent> events) {
-        return events.parallelStream()
-                .map(ForwardingEvent::fees)
-                .reduce(Coins.NONE, Coins::add);
-    }
 }
@@ -3,42 +3,41 @@ package de.cotto.lndmanagej.service;
 import com.codahale.metrics.annotation.Timed;
 import de.cotto.lndmanagej.model.Channel;
 import de.cotto.lndmanagej.model.ChannelId;
-import de.cotto.lndmanagej.model.ChannelIdAndMaxAge;
 import de.cotto.lndmanagej.model.Coins;
+import de.cotto.lndmanagej.model.DailyFlowHistogram;
 import de.cotto.lndmanagej.model.FlowReport;
 import de.cotto.lndmanagej.model.ForwardingEvent;
 import de.cotto.lndmanagej.model.Pubkey;
+import de.cotto.lndmanagej.model.SelfPayment;
+import de.cotto.lndmanagej.model.SettledInvoice;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
-import java.util.List;
+import java.time.Instant;
+import java.time.ZoneOffset;
 
 @Component
 public class FlowService {
     private static final Duration DEFAULT_MAX_AGE = Duration.ofDays(365 * 1_000);
-    private static final Duration EXPIRY = Duration.ofMinutes(10);
-    private static final Duration REFRESH = Duration.ofMinutes(5);
+    private static final long MILLISECONDS_PER_DAY = Duration.ofDays(1).toMillis();
     private final ForwardingEventsService forwardingEventsService;
     private final ChannelService channelService;
-    private final RebalanceService rebalanceService;
     private final SettledInvoicesService settledInvoicesService;
-    private final ClosedChannelAwareCache<FlowReport> cache;
+    private final SelfPaymentsService selfPaymentsService;
+    private final ChannelAggregateEngine channelAggregateEngine;
 
     public FlowService(
             ForwardingEventsService forwardingEventsService,
             ChannelService channelService,
-            RebalanceService rebalanceService,
             SettledInvoicesService settledInvoicesService,
-            OwnNodeService ownNodeService
+            SelfPaymentsService selfPaymentsService,
+            ChannelAggregateEngine channelAggregateEngine
     ) {
         this.forwardingEventsService = forwardingEventsService;
         this.channelService = channelService;
-        this.rebalanceService = rebalanceService;
         this.settledInvoicesService = settledInvoicesService;
-        cache = ClosedChannelAwareCache.builder(channelService, ownNodeService)
-                .withExpiry(EXPIRY)
-                .withRefresh(REFRESH)
-                .build(FlowReport.EMPTY, this::getFlowReportForChannelWithoutCache);
+        this.selfPaymentsService = selfPaymentsService;
+        this.channelAggregateEngine = channelAggregateEngine;
     }
 
     public FlowReport getFlowReportForPeer(Pubkey pubkey) {
@@ -53,55 +52,58 @@ public class FlowService {
                 .reduce(FlowReport.EMPTY, FlowReport::add);
     }
 
+    /**
+     * Computes the total flow (as in {@link FlowReport#totalSent()} plus {@link FlowReport#totalReceived()}) for each
+     * of the last days, with a single pass over the forwarding events, self-payments and settled invoices of all
+     * channels with the peer.
+     */
+    @Timed
+    public DailyFlowHistogram getDailyFlowHistogramForPeer(Pubkey pubkey, int days) {
+        Duration maxAge = Duration.ofDays(days);
+        Instant now = Instant.now();
+        long[] milliSatoshisPerDay = new long[days];
+        for (Channel channel : channelService.getAllChannelsWith(pubkey)) {
+            ChannelId channelId = channel.getId();
+            for (ForwardingEvent event : forwardingEventsService.getEventsWithOutgoingChannel(channelId, maxAge)) {
+                addToHistogram(milliSatoshisPerDay, now, toInstant(event), event.amountOut());
+            }
+            for (ForwardingEvent event : forwardingEventsService.getEventsWithIncomingChannel(channelId, maxAge)) {
+                addToHistogram(milliSatoshisPerDay, now, toInstant(event), event.amountIn());
+            }
+            for (SelfPayment selfPayment : selfPaymentsService.getSelfPaymentsFromChannel(channelId, maxAge)) {
+                Coins amount = selfPayment.amountPaid().add(selfPayment.fees());
+                addToHistogram(milliSatoshisPerDay, now, selfPayment.settleDate().toInstant(), amount);
+            }
+            for (SelfPayment selfPayment : selfPaymentsService.getSelfPaymentsToChannel(channelId, maxAge)) {
+                Coins amount = selfPayment.amountPaid();
+                addToHistogram(milliSatoshisPerDay, now, selfPayment.settleDate().toInstant(), amount);
+            }
+            for (SettledInvoice settledInvoice :
+                    settledInvoicesService.getInvoicesReceivedViaChannelWithoutSelfPayments(channelId, maxAge)) {
+                Coins amount = settledInvoice.receivedVia().getOrDefault(channelId, Coins.NONE);
+                addToHistogram(milliSatoshisPerDay, now, settledInvoice.settleDate().toInstant(), amount);
+            }
+        }
+        return new DailyFlowHistogram(milliSatoshisPerDay);
+    }
+
     public FlowReport getFlowReportForChannel(ChannelId channelId) {
         return getFlowReportForChannel(channelId, DEFAULT_MAX_AGE);
     }
 
     @Timed
     public FlowReport getFlowReportForChannel(ChannelId channelId, Duration maxAge) {
-        return cache.get(new ChannelIdAndMaxAge(channelId, maxAge));
-    }
-
-    private FlowReport getFlowReportForChannelWithoutCache(ChannelIdAndMaxAge channelIdAndMaxAge) {
-        ChannelId channelId = channelIdAndMaxAge.channelId();
-        Duration maxAge = channelIdAndMaxAge.maxAge();
-        Coins forwardedSent =
-                getSumOfAmounts(forwardingEventsService.getEventsWithOutgoingChannel(channelId, maxAge));
-        List<ForwardingEvent> incomingEvents = forwardingEventsService.getEventsWithIncomingChannel(channelId, maxAge);
-        Coins forwardedReceived = getSumOfAmounts(incomingEvents);
-        Coins forwardingFeesReceived = getSumOfFees(incomingEvents);
-        Coins rebalanceSent = rebalanceService.getAmountFromChannel(channelId, maxAge);
-        Coins rebalanceReceived = rebalanceService.getAmountToChannel(channelId, maxAge);
-        Coins rebalanceSupportSent = rebalanceService.getSupportAsSourceAmountFromChannel(channelId, maxAge);
-        Coins rebalanceSupportReceived = rebalanceService.getSupportAsTargetAmountToChannel(channelId, maxAge);
-        Coins rebalanceFeesSent = rebalanceService.getSourceCostsForChannel(channelId, maxAge);
-        Coins rebalanceSupportFeesSent = rebalanceService.getSupportAsSourceCostsFromChannel(channelId, maxAge);
-        Coins receivedViaPayments =
-                settledInvoicesService.getAmountReceivedViaChannelWithoutSelfPayments(channelId, maxAge);
-
-        return new FlowReport(
-                forwardedSent,
-                forwardedReceived,
-                forwardingFeesReceived,
-                rebalanceSent,
-                rebalanceFeesSent,
-                rebalanceReceived,
-                rebalanceSupportSent,
-                rebalanceSupportFeesSent,
-                rebalanceSupportReceived,
-                receivedViaPayments
-        );
+        return channelAggregateEngine.getAggregate(channelId, maxAge).flowReport();
     }
 
-    private Coins getSumOfAmounts(List<ForwardingEvent> events) {
-        return events.stream()
-                .map(ForwardingEvent::amountOut)
-                .reduce(Coins.NONE, Coins::add);
+    private static Instant toInstant(ForwardingEvent forwardingEvent) {
+        return forwardingEvent.timestamp().toInstant(ZoneOffset.UTC);
     }
 
-    private Coins getSumOfFees(List<ForwardingEvent> events) {
-        return events.stream()
-                .map(ForwardingEvent::fees)
-                .reduce(Coins.NONE, Coins::add);
+    private static void addToHistogram(long[] milliSatoshisPerDay, Instant now, Instant timestamp, Coins amount) {
+        long day = Math.max(0, (now.toEpochMilli() - timestamp.toEpochMilli()) / MILLISECONDS_PER_DAY);
+        if (day < milliSatoshisPerDay.length) {
+            milliSatoshisPerDay[(int) day] += amount.milliSatoshis();
+        }
     }
 }
@@ -2,33 +2,54 @@ package de.cotto.lndmanagej.service;
 
 import com.codahale.metrics.annotation.Timed;
 import de.cotto.lndmanagej.forwardinghistory.ForwardingEventsDao;
+import de.cotto.lndmanagej.forwardinghistory.ForwardingEventsIndex;
+import de.cotto.lndmanagej.forwardinghistory.ForwardingSums;
 import de.cotto.lndmanagej.model.ChannelId;
 import de.cotto.lndmanagej.model.ChannelIdAndMaxAge;
+import de.cotto.lndmanagej.model.Coins;
 import de.cotto.lndmanagej.model.ForwardingEvent;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.List;
 
 @Component
 public class ForwardingEventsService {
+    private static final Duration FULL_HISTORY = Duration.ofDays(365 * 1_000);
+
     private final ForwardingEventsDao forwardingEventsDao;
+    private final ForwardingEventsIndex forwardingEventsIndex;
     private final ClosedChannelAwareCache<List<ForwardingEvent>> cacheIncoming;
     private final ClosedChannelAwareCache<List<ForwardingEvent>> cacheOutgoing;
 
     public ForwardingEventsService(
             ForwardingEventsDao forwardingEventsDao,
+            ForwardingEventsIndex forwardingEventsIndex,
             ChannelService channelService,
-            OwnNodeService ownNodeService
+            OwnNodeService ownNodeService,
+            HistoryService historyService
     ) {
         this.forwardingEventsDao = forwardingEventsDao;
+        this.forwardingEventsIndex = forwardingEventsIndex;
         ClosedChannelAwareCache.Builder builder =
-                ClosedChannelAwareCache.builder(channelService, ownNodeService)
+                ClosedChannelAwareCache.builder(channelService, ownNodeService, historyService)
                 .withSoftValues(true)
                 .withRefresh(Duration.ofSeconds(5))
                 .withExpiry(Duration.ofSeconds(10));
-        cacheIncoming = builder.build(List.of(), this::getEventsWithIncomingChannelWithoutCache);
-        cacheOutgoing = builder.build(List.of(), this::getEventsWithOutgoingChannelWithoutCache);
+        cacheIncoming = builder.build(
+                List.of(),
+                this::getEventsWithIncomingChannelWithoutCache,
+                this::getAllEventsWithIncomingChannel,
+                this::forwardedWithin
+        );
+        cacheOutgoing = builder.build(
+                List.of(),
+                this::getEventsWithOutgoingChannelWithoutCache,
+                this::getAllEventsWithOutgoingChannel,
+                this::forwardedWithin
+        );
     }
 
     @Timed
@@ -41,6 +62,41 @@ public class ForwardingEventsService {
         return cacheOutgoing.get(new ChannelIdAndMaxAge(channelId, maxAge));
     }
 
+    @Timed
+    public ForwardingSums getSumsWithIncomingChannel(ChannelId channelId, Duration maxAge) {
+        return forwardingEventsIndex.getSumsWithIncomingChannel(channelId, maxAge)
+                .orElseGet(() -> getSums(getEventsWithIncomingChannel(channelId, maxAge)));
+    }
+
+    @Timed
+    public ForwardingSums getSumsWithOutgoingChannel(ChannelId channelId, Duration maxAge) {
+        return forwardingEventsIndex.getSumsWithOutgoingChannel(channelId, maxAge)
+                .orElseGet(() -> getSums(getEventsWithOutgoingChannel(channelId, maxAge)));
+    }
+
+    private ForwardingSums getSums(List<ForwardingEvent> events) {
+        Coins amount = events.stream().map(ForwardingEvent::amountOut).reduce(Coins.NONE, Coins::add);
+        Coins fees = events.stream().map(ForwardingEvent::fees).reduce(Coins.NONE, Coins::add);
+        return new ForwardingSums(amount, fees);
+    }
+
+    private List<ForwardingEvent> forwardedWithin(List<ForwardingEvent> events, Duration maxAge) {
+        LocalDateTime minimumTimestamp = LocalDateTime.now(ZoneOffset.UTC).minus(maxAge);
+        return events.stream()
+                .filter(event -> event.timestamp().isAfter(minimumTimestamp))
+                .toList();
+    }
+
+    private List<ForwardingEvent> getAllEventsWithIncomingChannel(ChannelId channelId) {
+        return forwardingEventsIndex.getEventsWithIncomingChannel(channelId)
+                .orElseGet(() -> forwardingEventsDao.getEventsWithIncomingChannel(channelId, FULL_HISTORY));
+    }
+
+    private List<ForwardingEvent> getAllEventsWithOutgoingChannel(ChannelId channelId) {
+        return forwardingEventsIndex.getEventsWithOutgoingChannel(channelId)
+                .orElseGet(() -> forwardingEventsDao.getEventsWithOutgoingChannel(channelId, FULL_HISTORY));
+    }
+
     private List<ForwardingEvent> getEventsWithIncomingChannelWithoutCache(ChannelIdAndMaxAge channelIdAndMaxAge) {
         return forwardingEventsDao.getEventsWithIncomingChannel(
                 channelIdAndMaxAge.channelId(),
@@ -0,0 +1,19 @@
+package de.cotto.lndmanagej.service;
+
+import de.cotto.lndmanagej.model.HistoryLoader;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+public class HistoryService {
+    private final List<HistoryLoader> historyLoaders;
+
+    public HistoryService(List<HistoryLoader> historyLoaders) {
+        this.historyLoaders = historyLoaders;
+    }
+
+    public boolean isCaughtUp() {
+        return historyLoaders.stream().allMatch(HistoryLoader::isCaughtUp);
+    }
+}
@@ -2,7 +2,6 @@ package de.cotto.lndmanagej.service;
 
 import com.codahale.metrics.annotation.Timed;
 import com.github.benmanes.caffeine.cache.LoadingCache;
-import com.google.common.annotations.VisibleForTesting;
 import de.cotto.lndmanagej.caching.CacheBuilder;
 import de.cotto.lndmanagej.configuration.ConfigurationService;
 import de.cotto.lndmanagej.model.Coins;
@@ -15,12 +14,11 @@ import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
 import java.time.temporal.TemporalAmount;
-import java.util.LinkedHashMap;
-import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.function.BiFunction;
 
@@ -31,9 +29,10 @@ import static de.cotto.lndmanagej.model.LiquidityBounds.NO_INFORMATION;
 @Component
 public class LiquidityBoundsService {
     private static final int ONE_HOUR_IN_MILLISECONDS = 60 * 60 * 1_000;
+    private static final long ONE_SAT_IN_MILLISATOSHIS = 1_000;
     private static final Duration DEFAULT_MAX_AGE = Duration.of(10, ChronoUnit.MINUTES);
     private final MissionControlService missionControlService;
-    private final Map<TwoPubkeys, LiquidityBoundsWithTimestamp> entries;
+    private final LiquidityBoundsStore entries;
     private final ConfigurationService configurationService;
     private final LoadingCache<Object, Duration> maxAgeCache = new CacheBuilder()
             .withRefresh(Duration.ofSeconds(5))
@@ -47,33 +46,54 @@ public class LiquidityBoundsService {
     ) {
         this.missionControlService = missionControlService;
         this.configurationService = configurationService;
-        entries = new LinkedHashMap<>();
+        entries = new LiquidityBoundsStore();
     }
 
     @Timed
     public Optional<Coins> getAssumedLiquidityUpperBound(Edge edge) {
-        Pubkey source = edge.startNode();
-        Pubkey target = edge.endNode();
-        Coins fromMissionControl = getFromMissionControl(source, target).orElse(null);
-        Coins fromPayments = getInfo(new TwoPubkeys(source, target)).getUpperBound().orElse(null);
-        if (fromMissionControl == null && fromPayments == null) {
+        long upperBound = getAssumedLiquidityUpperBoundMilliSat(
+                edge.startNode(),
+                edge.endNode(),
+                edge.policy().maxHtlc().milliSatoshis()
+        );
+        if (upperBound == Long.MAX_VALUE) {
             return Optional.empty();
         }
-        Coins maxHtlc = edge.policy().maxHtlc();
-        if (fromMissionControl == null) {
-            return Optional.of(Objects.requireNonNull(fromPayments).minimum(maxHtlc));
-        }
-        Coins oneSatBelowFailure = fromMissionControl.subtract(Coins.ofSatoshis(1)).minimum(maxHtlc);
-        if (fromPayments == null) {
-            return Optional.of(oneSatBelowFailure);
-        }
-        return Optional.of(oneSatBelowFailure.minimum(fromPayments));
+        return Optional.of(Coins.ofMilliSatoshis(upperBound));
     }
 
     @Timed
     public Coins getAssumedLiquidityLowerBound(Edge edge) {
-        LiquidityBounds info = getInfo(new TwoPubkeys(edge.startNode(), edge.endNode()));
-        return info.getLowerBound().minimum(edge.policy().maxHtlc());
+        long lowerBound = getAssumedLiquidityLowerBoundMilliSat(
+                edge.startNode(),
+                edge.endNode(),
+                edge.policy().maxHtlc().milliSatoshis()
+        );
+        return Coins.ofMilliSatoshis(lowerBound);
+    }
+
+    /**
+     * Same as {@link #getAssumedLiquidityUpperBound(Edge)}, but without creating any objects for the result.
+     * Returns {@link Long#MAX_VALUE} if no upper bound is known.
+     */
+    public long getAssumedLiquidityUpperBoundMilliSat(Pubkey source, Pubkey target, long maxHtlcMilliSat) {
+        long fromPayments = getInfo(source, target).getUpperBoundMilliSat();
+        Coins fromMissionControl = getFromMissionControl(source, target).orElse(null);
+        if (fromMissionControl == null) {
+            if (fromPayments == Long.MAX_VALUE) {
+                return Long.MAX_VALUE;
+            }
+            return Math.min(fromPayments, maxHtlcMilliSat);
+        }
+        long oneSatBelowFailure = fromMissionControl.milliSatoshis() - ONE_SAT_IN_MILLISATOSHIS;
+        return Math.min(Math.min(oneSatBelowFailure, maxHtlcMilliSat), fromPayments);
+    }
+
+    /**
+     * Same as {@link #getAssumedLiquidityLowerBound(Edge)}, but without creating any objects for the result.
+     */
+    public long getAssumedLiquidityLowerBoundMilliSat(Pubkey source, Pubkey target, long maxHtlcMilliSat) {
+        return Math.min(getInfo(source, target).getLowerBoundMilliSat(), maxHtlcMilliSat);
     }
 
     public void markAsMoved(Pubkey source, Pubkey target, Coins amount) {
@@ -96,7 +116,7 @@ public class LiquidityBoundsService {
     public void cleanup() {
         logger.debug("Number of entries before cleanup: {}", entries.size());
         TemporalAmount maxAge = getMaxAge();
-        entries.values().removeIf(liquidityBoundsWithTimestamp -> liquidityBoundsWithTimestamp.isTooOld(maxAge));
+        entries.removeIf(liquidityBoundsWithTimestamp -> liquidityBoundsWithTimestamp.isTooOld(maxAge));
         logger.debug("Number of entries after cleanup: {}", entries.size());
     }
 
@@ -106,31 +126,40 @@ public class LiquidityBoundsService {
             Coins amount,
             BiFunction<LiquidityBounds, Coins, Optional<LiquidityBounds>> function
     ) {
-        TwoPubkeys twoPubkeys = new TwoPubkeys(source, target);
-        synchronized (this.entries) {
-            Optional<LiquidityBounds> updated = function.apply(getInfo(twoPubkeys), amount);
-            updated.ifPresent(liquidityBounds -> setInfo(twoPubkeys, liquidityBounds));
-        }
+        entries.update(source, target, current -> {
+            Optional<LiquidityBounds> updated = function.apply(getInfo(current), amount);
+            if (updated.isEmpty()) {
+                return current;
+            }
+            return toEntry(updated.get());
+        });
     }
 
-    private LiquidityBounds getInfo(TwoPubkeys twoPubkeys) {
-        LiquidityBoundsWithTimestamp liquidityBoundsWithTimestamp = entries.get(twoPubkeys);
+    private LiquidityBounds getInfo(Pubkey source, Pubkey target) {
+        LiquidityBoundsWithTimestamp liquidityBoundsWithTimestamp = entries.get(source, target);
         if (liquidityBoundsWithTimestamp == null) {
             return NO_INFORMATION;
         }
         if (liquidityBoundsWithTimestamp.isTooOld(getMaxAge())) {
-            entries.remove(twoPubkeys);
+            entries.remove(source, target, liquidityBoundsWithTimestamp);
             return NO_INFORMATION;
         }
         return liquidityBoundsWithTimestamp.liquidityBounds();
     }
 
-    private void setInfo(TwoPubkeys twoPubkeys, LiquidityBounds liquidityBounds) {
+    private LiquidityBounds getInfo(@Nullable LiquidityBoundsWithTimestamp liquidityBoundsWithTimestamp) {
+        if (liquidityBoundsWithTimestamp == null || liquidityBoundsWithTimestamp.isTooOld(getMaxAge())) {
+            return NO_INFORMATION;
+        }
+        return liquidityBoundsWithTimestamp.liquidityBounds();
+    }
+
+    @CheckForNull
+    private static LiquidityBoundsWithTimestamp toEntry(LiquidityBounds liquidityBounds) {
         if (NO_INFORMATION.equals(liquidityBounds)) {
-            entries.remove(twoPubkeys);
-        } else {
-            entries.put(twoPubkeys, new LiquidityBoundsWithTimestamp(liquidityBounds));
+            return null;
         }
+        return new LiquidityBoundsWithTimestamp(liquidityBounds);
     }
 
     private Optional<Coins> getFromMissionControl(Pubkey source, Pubkey target) {
@@ -141,10 +170,6 @@ public class LiquidityBoundsService {
         return Optional.empty();
     }
 
-    @VisibleForTesting
-    record TwoPubkeys(Pubkey source, Pubkey target) {
-    }
-
     private Duration getMaxAge() {
         return maxAgeCache.get("");
     }
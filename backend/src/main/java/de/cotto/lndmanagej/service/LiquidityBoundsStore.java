@@ -0,0 +1,286 @@
+package de.cotto.lndmanagej.service;
+
+import de.cotto.lndmanagej.model.LiquidityBounds;
+import de.cotto.lndmanagej.model.LiquidityBoundsWithTimestamp;
+import de.cotto.lndmanagej.model.Pubkey;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Concurrent map from (source, target) node pairs to liquidity bounds.
+ * <p>
+ * Nodes are interned to int IDs, so that a pair is represented by a single long key. The keys are stored in a
+ * {@code long[]} using open addressing (linear probing), each key refers to an {@link Entry} holding the current
+ * (immutable) bounds. Lookups never lock. Updates of existing entries use compare-and-set on the entry. Only adding a
+ * new pair and rebuilding the table (to grow it, or to drop removed entries) is done while holding a lock. Entries
+ * dropped from the table are marked as {@link #REMOVED}, so that concurrent updates of such an entry are retried
+ * against the new table instead of being lost.
+ */
+final class LiquidityBoundsStore {
+    private static final int INITIAL_CAPACITY = 1_024;
+    private static final int MAXIMUM_LOAD_PERCENT = 50;
+    private static final long EMPTY = 0;
+    private static final VarHandle KEYS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final LiquidityBoundsWithTimestamp REMOVED =
+            new LiquidityBoundsWithTimestamp(LiquidityBounds.NO_INFORMATION, Instant.MIN);
+
+    private final Map<Pubkey, Integer> nodeIds = new ConcurrentHashMap<>();
+    private volatile Table table = new Table(INITIAL_CAPACITY);
+
+    LiquidityBoundsStore() {
+        // default constructor
+    }
+
+    @CheckForNull
+    LiquidityBoundsWithTimestamp get(Pubkey source, Pubkey target) {
+        long key = getKey(source, target);
+        if (key == EMPTY) {
+            return null;
+        }
+        Entry entry = table.find(key);
+        if (entry == null) {
+            return null;
+        }
+        LiquidityBoundsWithTimestamp value = entry.get();
+        return value == REMOVED ? null : value;
+    }
+
+    /**
+     * Atomically replaces the value for the given pair with the result of the given function. The function may be
+     * called several times if there are concurrent updates, it gets {@code null} if there is no value. Returning
+     * {@code null} removes the value.
+     */
+    void update(
+            Pubkey source,
+            Pubkey target,
+            UnaryOperator<LiquidityBoundsWithTimestamp> function
+    ) {
+        long key = getOrCreateKey(source, target);
+        while (true) {
+            Entry entry = getOrCreateEntry(key);
+            LiquidityBoundsWithTimestamp current = entry.get();
+            if (current == REMOVED) {
+                // the table is being rebuilt, retry with the new table
+                Thread.onSpinWait();
+                continue;
+            }
+            LiquidityBoundsWithTimestamp updated = function.apply(current);
+            if (updated == current || entry.compareAndSet(current, updated)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes the value for the given pair, but only if it still is the expected value.
+     */
+    void remove(Pubkey source, Pubkey target, LiquidityBoundsWithTimestamp expected) {
+        long key = getKey(source, target);
+        Entry entry = key == EMPTY ? null : table.find(key);
+        if (entry != null) {
+            entry.compareAndSet(expected, null);
+        }
+    }
+
+    void removeIf(Predicate<LiquidityBoundsWithTimestamp> predicate) {
+        synchronized (this) {
+            table = rebuild(table.capacity(), predicate);
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (Entry entry : table.entries) {
+            if (entry != null && entry.get() != null) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    private Entry getOrCreateEntry(long key) {
+        Entry entry = table.find(key);
+        if (entry != null) {
+            return entry;
+        }
+        synchronized (this) {
+            Table currentTable = table;
+            entry = currentTable.find(key);
+            if (entry != null) {
+                return entry;
+            }
+            if (isOverloaded(currentTable.size + 1, currentTable.capacity())) {
+                currentTable = rebuild(2 * currentTable.capacity(), value -> false);
+                table = currentTable;
+            }
+            entry = new Entry();
+            currentTable.insert(key, entry);
+            return entry;
+        }
+    }
+
+    /**
+     * Copies all entries with a value not matching the given predicate to a new table, all other entries are marked
+     * as removed. Must be called while holding the lock.
+     */
+    private Table rebuild(int minimumCapacity, Predicate<LiquidityBoundsWithTimestamp> predicate) {
+        Table oldTable = table;
+        int numberOfKeptEntries = 0;
+        Entry[] keptEntries = new Entry[oldTable.size];
+        long[] keptKeys = new long[oldTable.size];
+        for (int slot = 0; slot < oldTable.capacity(); slot++) {
+            Entry entry = oldTable.entries[slot];
+            if (entry != null && !entry.markAsRemovedIf(predicate)) {
+                keptEntries[numberOfKeptEntries] = entry;
+                keptKeys[numberOfKeptEntries] = oldTable.keys[slot];
+                numberOfKeptEntries++;
+            }
+        }
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < minimumCapacity || isOverloaded(numberOfKeptEntries, capacity)) {
+            capacity *= 2;
+        }
+        Table newTable = new Table(capacity);
+        for (int i = 0; i < numberOfKeptEntries; i++) {
+            newTable.insert(keptKeys[i], keptEntries[i]);
+        }
+        return newTable;
+    }
+
+    private long getKey(Pubkey source, Pubkey target) {
+        Integer sourceId = nodeIds.get(source);
+        Integer targetId = nodeIds.get(target);
+        if (sourceId == null || targetId == null) {
+            return EMPTY;
+        }
+        return toKey(sourceId, targetId);
+    }
+
+    private long getOrCreateKey(Pubkey source, Pubkey target) {
+        return toKey(getOrCreateId(source), getOrCreateId(target));
+    }
+
+    private int getOrCreateId(Pubkey pubkey) {
+        Integer id = nodeIds.get(pubkey);
+        if (id != null) {
+            return id;
+        }
+        synchronized (nodeIds) {
+            id = nodeIds.get(pubkey);
+            if (id == null) {
+                // IDs start at 1, so that no key is EMPTY
+                id = nodeIds.size() + 1;
+                nodeIds.put(pubkey, id);
+            }
+            return id;
+        }
+    }
+
+    private static boolean isOverloaded(int size, int capacity) {
+        return (long) size * 100 > (long) capacity * MAXIMUM_LOAD_PERCENT;
+    }
+
+    private static long toKey(int sourceId, int targetId) {
+        return ((long) sourceId << Integer.SIZE) | targetId;
+    }
+
+    private static final class Table {
+        private final long[] keys;
+        private final Entry[] entries;
+        private final int mask;
+        private int size;
+
+        Table(int capacity) {
+            keys = new long[capacity];
+            entries = new Entry[capacity];
+            mask = capacity - 1;
+        }
+
+        int capacity() {
+            return keys.length;
+        }
+
+        @CheckForNull
+        Entry find(long key) {
+            for (int slot = getSlot(key); ; slot = (slot + 1) & mask) {
+                long keyInSlot = (long) KEYS.getAcquire(keys, slot);
+                if (keyInSlot == key) {
+                    return entries[slot];
+                }
+                if (keyInSlot == EMPTY) {
+                    return null;
+                }
+            }
+        }
+
+        /**
+         * Must be called while holding the lock, the key must not be contained. The entry is written before the key,
+         * so that readers finding the key also see the entry.
+         */
+        void insert(long key, Entry entry) {
+            int slot = getSlot(key);
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            entries[slot] = entry;
+            KEYS.setRelease(keys, slot, key);
+            size++;
+        }
+
+        private int getSlot(long key) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash >>> Integer.SIZE) & mask;
+        }
+    }
+
+    private static final class Entry {
+        private static final VarHandle VALUE;
+
+        static {
+            try {
+                VALUE = MethodHandles.lookup().findVarHandle(Entry.class, "value", LiquidityBoundsWithTimestamp.class);
+            } catch (ReflectiveOperationException exception) {
+                throw new ExceptionInInitializerError(exception);
+            }
+        }
+
+        @Nullable
+        private volatile LiquidityBoundsWithTimestamp value;
+
+        Entry() {
+            // default constructor
+        }
+
+        @CheckForNull
+        LiquidityBoundsWithTimestamp get() {
+            return value;
+        }
+
+        boolean compareAndSet(
+                @Nullable LiquidityBoundsWithTimestamp expected,
+                @Nullable LiquidityBoundsWithTimestamp updated
+        ) {
+            return VALUE.compareAndSet(this, expected, updated);
+        }
+
+        boolean markAsRemovedIf(Predicate<LiquidityBoundsWithTimestamp> predicate) {
+            while (true) {
+                LiquidityBoundsWithTimestamp current = value;
+                if (current != null && !predicate.test(current)) {
+                    return false;
+                }
+                if (compareAndSet(current, REMOVED)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
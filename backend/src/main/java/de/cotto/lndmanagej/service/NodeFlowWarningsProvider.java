@@ -1,15 +1,13 @@
 package de.cotto.lndmanagej.service;
 
 import de.cotto.lndmanagej.configuration.ConfigurationService;
-import de.cotto.lndmanagej.model.Coins;
-import de.cotto.lndmanagej.model.FlowReport;
+import de.cotto.lndmanagej.model.DailyFlowHistogram;
 import de.cotto.lndmanagej.model.Pubkey;
 import de.cotto.lndmanagej.model.warnings.NodeNoFlowWarning;
 import de.cotto.lndmanagej.model.warnings.NodeWarning;
 import de.cotto.lndmanagej.service.warnings.NodeWarningsProvider;
 import org.springframework.stereotype.Component;
 
-import java.time.Duration;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.stream.Stream;
@@ -63,11 +61,12 @@ public class NodeFlowWarningsProvider implements NodeWarningsProvider {
 
     private int getDaysWithoutFlow(Pubkey pubkey) {
         int daysToConsider = getDaysToConsider(pubkey);
-        int daysToCheck = getMinimumDaysForWarning();
-        while (noFlow(pubkey, daysToCheck) && daysToCheck <= daysToConsider) {
-            daysToCheck++;
+        int minimumDaysForWarning = getMinimumDaysForWarning();
+        if (daysToConsider < minimumDaysForWarning) {
+            return minimumDaysForWarning - 1;
         }
-        return daysToCheck - 1;
+        DailyFlowHistogram histogram = flowService.getDailyFlowHistogramForPeer(pubkey, daysToConsider);
+        return Math.max(minimumDaysForWarning - 1, histogram.getDaysWithoutFlow());
     }
 
     private int getDaysToConsider(Pubkey pubkey) {
@@ -83,13 +82,6 @@ public class NodeFlowWarningsProvider implements NodeWarningsProvider {
         return Math.min(getMaxDaysToConsider(), channelAgeInDays);
     }
 
-    private boolean noFlow(Pubkey pubkey, int days) {
-        Duration maxAge = Duration.ofDays(days);
-        FlowReport flowReport = flowService.getFlowReportForPeer(pubkey, maxAge);
-        Coins absoluteFlow = flowReport.totalSent().add(flowReport.totalReceived());
-        return absoluteFlow.isNonPositive();
-    }
-
     private int getMinimumDaysForWarning() {
         return configurationService.getIntegerValue(NODE_FLOW_MINIMUM_DAYS_FOR_WARNING)
                 .orElse(DEFAULT_MINIMUM_DAYS_FOR_WARNING);
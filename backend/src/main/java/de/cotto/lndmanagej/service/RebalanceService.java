@@ -21,10 +21,16 @@ public class RebalanceService {
     private static final Duration DEFAULT_MAX_AGE = Duration.ofDays(365 * 1_000);
     private final SelfPaymentsService selfPaymentsService;
     private final ChannelService channelService;
+    private final ChannelAggregateEngine channelAggregateEngine;
 
-    public RebalanceService(SelfPaymentsService selfPaymentsService, ChannelService channelService) {
+    public RebalanceService(
+            SelfPaymentsService selfPaymentsService,
+            ChannelService channelService,
+            ChannelAggregateEngine channelAggregateEngine
+    ) {
         this.selfPaymentsService = selfPaymentsService;
         this.channelService = channelService;
+        this.channelAggregateEngine = channelAggregateEngine;
     }
 
     public RebalanceReport getReportForChannel(ChannelId channelId) {
@@ -33,14 +39,7 @@ public class RebalanceService {
 
     @Timed
     public RebalanceReport getReportForChannel(ChannelId channelId, Duration maxAge) {
-        return new RebalanceReport(
-                getSourceCostsForChannel(channelId, maxAge),
-                getAmountFromChannel(channelId, maxAge),
-                getTargetCostsForChannel(channelId, maxAge),
-                getAmountToChannel(channelId, maxAge),
-                getSupportAsSourceAmountFromChannel(channelId, maxAge),
-                getSupportAsTargetAmountToChannel(channelId, maxAge)
-        );
+        return channelAggregateEngine.getAggregate(channelId, maxAge).rebalanceReport();
     }
 
     public RebalanceReport getReportForPeer(Pubkey pubkey) {
@@ -65,7 +64,7 @@ public class RebalanceService {
 
     @Timed
     public Coins getSourceCostsForChannel(ChannelId channelId, Duration maxAge) {
-        return getSumOfFees(getRebalancesFromChannel(channelId, maxAge));
+        return getReportForChannel(channelId, maxAge).sourceCost();
     }
 
     public Coins getSourceCostsForPeer(Pubkey pubkey) {
@@ -83,7 +82,7 @@ public class RebalanceService {
 
     @Timed
     public Coins getTargetCostsForChannel(ChannelId channelId, Duration maxAge) {
-        return getSumOfFees(getRebalancesToChannel(channelId, maxAge));
+        return getReportForChannel(channelId, maxAge).targetCost();
     }
 
     public Coins getTargetCostsForPeer(Pubkey pubkey) {
@@ -101,7 +100,7 @@ public class RebalanceService {
 
     @Timed
     public Coins getAmountFromChannel(ChannelId channelId, Duration maxAge) {
-        return getSumOfAmountPaid(getRebalancesFromChannel(channelId, maxAge));
+        return getReportForChannel(channelId, maxAge).sourceAmount();
     }
 
     public Coins getAmountFromPeer(Pubkey pubkey) {
@@ -119,7 +118,7 @@ public class RebalanceService {
 
     @Timed
     public Coins getAmountToChannel(ChannelId channelId, Duration maxAge) {
-        return getSumOfAmountPaid(getRebalancesToChannel(channelId, maxAge));
+        return getReportForChannel(channelId, maxAge).targetAmount();
     }
 
     public Coins getAmountToPeer(Pubkey pubkey) {
@@ -137,16 +136,7 @@ public class RebalanceService {
 
     @Timed
     public Coins getSupportAsSourceAmountFromChannel(ChannelId channelId, Duration maxAge) {
-        Coins amountSourceTotal = getSumOfAmountPaid(selfPaymentsService.getSelfPaymentsFromChannel(channelId, maxAge));
-        Coins amountRebalanceSource = getAmountFromChannel(channelId, maxAge);
-        return amountSourceTotal.subtract(amountRebalanceSource);
-    }
-
-    @Timed
-    public Coins getSupportAsSourceCostsFromChannel(ChannelId channelId, Duration maxAge) {
-        Coins costsSourceTotal = getSumOfFees(selfPaymentsService.getSelfPaymentsFromChannel(channelId, maxAge));
-        Coins costsRebalanceSource = getSourceCostsForChannel(channelId, maxAge);
-        return costsSourceTotal.subtract(costsRebalanceSource);
+        return getReportForChannel(channelId, maxAge).supportAsSourceAmount();
     }
 
     public Coins getSupportAsTargetAmountToChannel(ChannelId channelId) {
@@ -155,9 +145,7 @@ public class RebalanceService {
 
     @Timed
     public Coins getSupportAsTargetAmountToChannel(ChannelId channelId, Duration maxAge) {
-        Coins amountTargetTotal = getSumOfAmountPaid(selfPaymentsService.getSelfPaymentsToChannel(channelId, maxAge));
-        Coins amountRebalanceTarget = getAmountToChannel(channelId, maxAge);
-        return amountTargetTotal.subtract(amountRebalanceTarget);
+        return getReportForChannel(channelId, maxAge).supportAsTargetAmount();
     }
 
     public Coins getSupportAsSourceAmountFromPeer(Pubkey pubkey) {
@@ -186,13 +174,13 @@ public class RebalanceService {
 
     private Set<SelfPayment> getRebalancesFromChannel(ChannelId channelId, Duration maxAge) {
         return selfPaymentsService.getSelfPaymentsFromChannel(channelId, maxAge).stream()
-                .filter(selfPayment -> memoMentionsChannel(selfPayment, channelId))
+                .filter(selfPayment -> isRebalanceFromChannel(selfPayment, channelId))
                 .collect(toSet());
     }
 
     private Set<SelfPayment> getRebalancesToChannel(ChannelId channelId, Duration maxAge) {
         return selfPaymentsService.getSelfPaymentsToChannel(channelId, maxAge).stream()
-                .filter(this::memoDoesNotMentionFirstHopChannel)
+                .filter(RebalanceService::isRebalanceToChannel)
                 .collect(toSet());
     }
 
@@ -224,16 +212,26 @@ public class RebalanceService {
                 .reduce(Coins.NONE, Coins::add);
     }
 
-    private boolean memoMentionsChannel(SelfPayment selfPayment, ChannelId expectedChannel) {
-        String memo = selfPayment.memo();
-        return memo.contains(String.valueOf(expectedChannel.getShortChannelId()))
-                || memo.contains(expectedChannel.getCompactForm())
-                || memo.contains(expectedChannel.getCompactFormLnd());
+    /**
+     * A self-payment is a rebalance from the given channel if its memo mentions the channel.
+     */
+    static boolean isRebalanceFromChannel(SelfPayment selfPayment, ChannelId channelId) {
+        return memoMentionsChannel(selfPayment, channelId);
     }
 
-    private boolean memoDoesNotMentionFirstHopChannel(SelfPayment selfPayment) {
+    /**
+     * A self-payment is a rebalance to its target channel unless its memo mentions one of the first hop channels.
+     */
+    static boolean isRebalanceToChannel(SelfPayment selfPayment) {
         return selfPayment.routes().stream()
                 .map(SelfPaymentRoute::channelIdOut)
                 .noneMatch(firstChannel -> memoMentionsChannel(selfPayment, firstChannel));
     }
+
+    private static boolean memoMentionsChannel(SelfPayment selfPayment, ChannelId expectedChannel) {
+        String memo = selfPayment.memo();
+        return memo.contains(String.valueOf(expectedChannel.getShortChannelId()))
+                || memo.contains(expectedChannel.getCompactForm())
+                || memo.contains(expectedChannel.getCompactFormLnd());
+    }
 }
@@ -9,6 +9,8 @@ import de.cotto.lndmanagej.selfpayments.SelfPaymentsDao;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
 import java.util.Comparator;
 import java.util.List;
 import java.util.function.Function;
@@ -24,15 +26,21 @@ public class SelfPaymentsService {
     private final ClosedChannelAwareCache<List<SelfPayment>> cacheFrom;
     private final ClosedChannelAwareCache<List<SelfPayment>> cacheTo;
 
-    public SelfPaymentsService(SelfPaymentsDao dao, ChannelService channelService, OwnNodeService ownNodeService) {
+    public SelfPaymentsService(
+            SelfPaymentsDao dao,
+            ChannelService channelService,
+            OwnNodeService ownNodeService,
+            HistoryService historyService
+    ) {
         this.dao = dao;
         this.channelService = channelService;
-        ClosedChannelAwareCache.Builder builder = ClosedChannelAwareCache.builder(channelService, ownNodeService)
+        ClosedChannelAwareCache.Builder builder =
+                ClosedChannelAwareCache.builder(channelService, ownNodeService, historyService)
                 .withSoftValues(true)
                 .withExpiry(EXPIRY)
                 .withRefresh(REFRESH);
-        cacheFrom = builder.build(List.of(), this::getSelfPaymentsFromChannelWithoutCache);
-        cacheTo = builder.build(List.of(), this::getSelfPaymentsToChannelWithoutCache);
+        cacheFrom = builder.build(List.of(), this::getSelfPaymentsFromChannelWithoutCache, this::settledWithin);
+        cacheTo = builder.build(List.of(), this::getSelfPaymentsToChannelWithoutCache, this::settledWithin);
     }
 
     public List<SelfPayment> getSelfPaymentsFromChannel(ChannelId channelId) {
@@ -87,6 +95,13 @@ public class SelfPaymentsService {
                 .toList();
     }
 
+    private List<SelfPayment> settledWithin(List<SelfPayment> selfPayments, Duration maxAge) {
+        ZonedDateTime minimumSettleDate = ZonedDateTime.now(ZoneOffset.UTC).minus(maxAge);
+        return selfPayments.stream()
+                .filter(selfPayment -> !selfPayment.settleDate().isBefore(minimumSettleDate))
+                .toList();
+    }
+
     private boolean noLowerChannelIdAsFirstHop(ChannelId channelId, SelfPayment selfPayment) {
         return selfPayment.routes().stream().allMatch(route -> channelId.compareTo(route.channelIdOut()) <= 0);
     }
@@ -7,6 +7,7 @@ import de.cotto.lndmanagej.model.SettledInvoice;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
+import java.util.List;
 
 @Component
 public class SettledInvoicesService {
@@ -22,4 +23,11 @@ public class SettledInvoicesService {
                 .map(receivedVia -> receivedVia.getOrDefault(channelId, Coins.NONE))
                 .reduce(Coins.NONE, Coins::add);
     }
+
+    public List<SettledInvoice> getInvoicesReceivedViaChannelWithoutSelfPayments(
+            ChannelId channelId,
+            Duration maxAge
+    ) {
+        return dao.getInvoicesWithoutSelfPaymentsPaidVia(channelId, maxAge);
+    }
 }
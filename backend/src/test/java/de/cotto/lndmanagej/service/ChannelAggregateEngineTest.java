@@ -0,0 +1,167 @@
+package de.cotto.lndmanagej.service;
+
+import de.cotto.lndmanagej.forwardinghistory.ForwardingSums;
+import de.cotto.lndmanagej.model.ChannelId;
+import de.cotto.lndmanagej.model.Coins;
+import de.cotto.lndmanagej.model.FeeReport;
+import de.cotto.lndmanagej.model.FlowReport;
+import de.cotto.lndmanagej.model.RebalanceReport;
+import de.cotto.lndmanagej.model.SelfPayment;
+import de.cotto.lndmanagej.model.SelfPaymentRoute;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID;
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID_2;
+import static de.cotto.lndmanagej.model.CoopClosedChannelFixtures.CLOSED_CHANNEL;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ChannelAggregateEngineTest {
+    private static final Duration MAX_AGE = Duration.ofDays(14);
+
+    @InjectMocks
+    private ChannelAggregateEngine channelAggregateEngine;
+
+    @Mock
+    private ForwardingEventsService forwardingEventsService;
+
+    @Mock
+    private SelfPaymentsService selfPaymentsService;
+
+    @Mock
+    private SettledInvoicesService settledInvoicesService;
+
+    @Mock
+    private ChannelService channelService;
+
+    @Mock
+    private OwnNodeService ownNodeService;
+
+    @Mock
+    private HistoryService historyService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(forwardingEventsService.getSumsWithIncomingChannel(any(), any()))
+                .thenReturn(ForwardingSums.NONE);
+        lenient().when(forwardingEventsService.getSumsWithOutgoingChannel(any(), any()))
+                .thenReturn(ForwardingSums.NONE);
+        lenient().when(settledInvoicesService.getAmountReceivedViaChannelWithoutSelfPayments(any(), any()))
+                .thenReturn(Coins.NONE);
+    }
+
+    @Test
+    void empty() {
+        assertThat(channelAggregateEngine.getAggregate(CHANNEL_ID, MAX_AGE)).isEqualTo(ChannelAggregate.EMPTY);
+    }
+
+    @Test
+    void feeReport() {
+        mockForwards();
+        assertThat(channelAggregateEngine.getAggregate(CHANNEL_ID, MAX_AGE).feeReport())
+                .isEqualTo(new FeeReport(Coins.ofMilliSatoshis(101), Coins.ofMilliSatoshis(5_001)));
+    }
+
+    @Test
+    void flowReport() {
+        mockForwards();
+        mockSelfPayments();
+        when(settledInvoicesService.getAmountReceivedViaChannelWithoutSelfPayments(CHANNEL_ID, MAX_AGE))
+                .thenReturn(Coins.ofMilliSatoshis(1_500_000));
+        FlowReport expected = new FlowReport(
+                Coins.ofSatoshis(1_050),
+                Coins.ofSatoshis(9_001),
+                Coins.ofMilliSatoshis(5_001),
+                Coins.ofSatoshis(100),
+                Coins.ofMilliSatoshis(10),
+                Coins.ofSatoshis(300),
+                Coins.ofSatoshis(200),
+                Coins.ofMilliSatoshis(20),
+                Coins.ofSatoshis(400),
+                Coins.ofMilliSatoshis(1_500_000)
+        );
+        assertThat(channelAggregateEngine.getAggregate(CHANNEL_ID, MAX_AGE).flowReport()).isEqualTo(expected);
+    }
+
+    @Test
+    void rebalanceReport() {
+        mockSelfPayments();
+        RebalanceReport expected = new RebalanceReport(
+                Coins.ofMilliSatoshis(10),
+                Coins.ofSatoshis(100),
+                Coins.ofMilliSatoshis(30),
+                Coins.ofSatoshis(300),
+                Coins.ofSatoshis(200),
+                Coins.ofSatoshis(400)
+        );
+        assertThat(channelAggregateEngine.getAggregate(CHANNEL_ID, MAX_AGE).rebalanceReport()).isEqualTo(expected);
+    }
+
+    @Test
+    void reads_each_data_source_once() {
+        channelAggregateEngine.getAggregate(CHANNEL_ID, MAX_AGE);
+        channelAggregateEngine.getAggregate(CHANNEL_ID, MAX_AGE);
+        verify(forwardingEventsService, times(1)).getSumsWithOutgoingChannel(CHANNEL_ID, MAX_AGE);
+        verify(forwardingEventsService, times(1)).getSumsWithIncomingChannel(CHANNEL_ID, MAX_AGE);
+        verify(selfPaymentsService, times(1)).getSelfPaymentsFromChannel(CHANNEL_ID, MAX_AGE);
+        verify(selfPaymentsService, times(1)).getSelfPaymentsToChannel(CHANNEL_ID, MAX_AGE);
+        verify(settledInvoicesService, times(1)).getAmountReceivedViaChannelWithoutSelfPayments(CHANNEL_ID, MAX_AGE);
+    }
+
+    @Test
+    void closed_channel_computes_aggregate_for_whole_history_once() {
+        ChannelId channelId = ChannelId.fromCompactForm("590000x1x1");
+        when(channelService.getClosedChannel(channelId)).thenReturn(Optional.of(CLOSED_CHANNEL));
+        when(ownNodeService.getBlockHeight()).thenReturn(1_000 + CLOSED_CHANNEL.getCloseHeight());
+        when(historyService.isCaughtUp()).thenReturn(true);
+        channelAggregateEngine.getAggregate(channelId, Duration.ofDays(365 * 100));
+        channelAggregateEngine.getAggregate(channelId, Duration.ofDays(365 * 200));
+        verify(forwardingEventsService, times(1)).getSumsWithOutgoingChannel(eq(channelId), any());
+    }
+
+    private void mockForwards() {
+        when(forwardingEventsService.getSumsWithOutgoingChannel(CHANNEL_ID, MAX_AGE))
+                .thenReturn(new ForwardingSums(Coins.ofSatoshis(1_050), Coins.ofMilliSatoshis(101)));
+        when(forwardingEventsService.getSumsWithIncomingChannel(CHANNEL_ID, MAX_AGE))
+                .thenReturn(new ForwardingSums(Coins.ofSatoshis(9_001), Coins.ofMilliSatoshis(5_001)));
+    }
+
+    private void mockSelfPayments() {
+        when(selfPaymentsService.getSelfPaymentsFromChannel(CHANNEL_ID, MAX_AGE)).thenReturn(List.of(
+                selfPayment("rebalance from " + CHANNEL_ID, 100, 10, CHANNEL_ID, CHANNEL_ID_2),
+                selfPayment("something else", 200, 20, CHANNEL_ID, CHANNEL_ID_2)
+        ));
+        when(selfPaymentsService.getSelfPaymentsToChannel(CHANNEL_ID, MAX_AGE)).thenReturn(List.of(
+                selfPayment("rebalance to " + CHANNEL_ID, 300, 30, CHANNEL_ID_2, CHANNEL_ID),
+                selfPayment("rebalance from " + CHANNEL_ID_2, 400, 40, CHANNEL_ID_2, CHANNEL_ID)
+        ));
+    }
+
+    private SelfPayment selfPayment(String memo, long satoshis, long feeMilliSatoshis, ChannelId from, ChannelId to) {
+        Coins amount = Coins.ofSatoshis(satoshis);
+        return new SelfPayment(
+                memo,
+                ZonedDateTime.now(ZoneOffset.UTC),
+                amount,
+                Coins.ofMilliSatoshis(feeMilliSatoshis),
+                List.of(new SelfPaymentRoute(from, amount, to))
+        );
+    }
+}
@@ -1,5 +1,6 @@
 package de.cotto.lndmanagej.service;
 
+import de.cotto.lndmanagej.model.ChannelId;
 import de.cotto.lndmanagej.model.ChannelIdAndMaxAge;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -7,6 +8,8 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID;
@@ -19,23 +22,28 @@ import static org.mockito.Mockito.when;
 class ClosedChannelAwareCacheTest {
     private static final ChannelIdAndMaxAge KEY_SHORT = new ChannelIdAndMaxAge(CHANNEL_ID, Duration.ofSeconds(1));
     private static final ChannelIdAndMaxAge KEY_LONG = new ChannelIdAndMaxAge(CHANNEL_ID, Duration.ofDays(1));
+    private static final ChannelId OLD_CHANNEL_ID = ChannelId.fromCompactForm("590000x1x1");
+    private static final int BLOCK_HEIGHT = 500 + CLOSED_CHANNEL.getCloseHeight();
+
     @Mock
     private ChannelService channelService;
 
     @Mock
     private OwnNodeService ownNodeService;
 
+    @Mock
+    private HistoryService historyService;
+
     @Test
     void withoutExpiry() {
-        ClosedChannelAwareCache<Long> cache = ClosedChannelAwareCache
-                .builder(channelService, ownNodeService)
+        ClosedChannelAwareCache<Long> cache = builder()
                 .build(0L, this::getNanoTime);
         assertIsCached(cache, KEY_SHORT);
     }
 
     @Test
     void expiryOneMillisecond() throws InterruptedException {
-        ClosedChannelAwareCache<Long> cache = ClosedChannelAwareCache.builder(channelService, ownNodeService)
+        ClosedChannelAwareCache<Long> cache = builder()
                 .withExpiry(Duration.ofMillis(1))
                 .build(0L, this::getNanoTime);
         Long first = cache.get(KEY_SHORT);
@@ -46,7 +54,7 @@ class ClosedChannelAwareCacheTest {
 
     @Test
     void for_open_channel() {
-        ClosedChannelAwareCache<Long> cache = ClosedChannelAwareCache.builder(channelService, ownNodeService)
+        ClosedChannelAwareCache<Long> cache = builder()
                 .build(0L, this::getNanoTime);
         when(channelService.getClosedChannel(KEY_LONG.channelId())).thenReturn(Optional.empty());
         assertIsCached(cache, KEY_LONG);
@@ -54,7 +62,7 @@ class ClosedChannelAwareCacheTest {
 
     @Test
     void for_recently_closed_channel() {
-        ClosedChannelAwareCache<Long> cache = ClosedChannelAwareCache.builder(channelService, ownNodeService)
+        ClosedChannelAwareCache<Long> cache = builder()
                 .build(0L, this::getNanoTime);
         when(channelService.getClosedChannel(KEY_LONG.channelId())).thenReturn(Optional.of(CLOSED_CHANNEL));
         when(ownNodeService.getBlockHeight()).thenReturn(500 + CLOSED_CHANNEL.getCloseHeight());
@@ -63,7 +71,7 @@ class ClosedChannelAwareCacheTest {
 
     @Test
     void for_recently_closed_channel_and_very_short_max_age() {
-        ClosedChannelAwareCache<Long> cache = ClosedChannelAwareCache.builder(channelService, ownNodeService)
+        ClosedChannelAwareCache<Long> cache = builder()
                 .build(0L, this::getNanoTime);
         when(channelService.getClosedChannel(KEY_SHORT.channelId())).thenReturn(Optional.of(CLOSED_CHANNEL));
         when(ownNodeService.getBlockHeight()).thenReturn(400 + CLOSED_CHANNEL.getCloseHeight());
@@ -74,7 +82,7 @@ class ClosedChannelAwareCacheTest {
 
     @Test
     void for_closed_channel_closed_long_ago() {
-        ClosedChannelAwareCache<Long> cache = ClosedChannelAwareCache.builder(channelService, ownNodeService)
+        ClosedChannelAwareCache<Long> cache = builder()
                 .build(0L, this::getNanoTime);
         when(channelService.getClosedChannel(KEY_LONG.channelId())).thenReturn(Optional.of(CLOSED_CHANNEL_2));
         when(ownNodeService.getBlockHeight()).thenReturn(1_000 + CLOSED_CHANNEL_2.getCloseHeight());
@@ -83,6 +91,139 @@ class ClosedChannelAwareCacheTest {
         assertThat(first).isEqualTo(second).isZero();
     }
 
+    @Test
+    void for_closed_channel_values_do_not_expire() throws InterruptedException {
+        ClosedChannelAwareCache<Long> cache = builder()
+                .withExpiry(Duration.ofMillis(1))
+                .build(0L, this::getNanoTime);
+        when(channelService.getClosedChannel(KEY_LONG.channelId())).thenReturn(Optional.of(CLOSED_CHANNEL));
+        when(ownNodeService.getBlockHeight()).thenReturn(500 + CLOSED_CHANNEL.getCloseHeight());
+        when(historyService.isCaughtUp()).thenReturn(true);
+        Long first = cache.get(KEY_LONG);
+        Thread.sleep(1);
+        Long second = cache.get(KEY_LONG);
+        assertThat(first).isEqualTo(second).isNotZero();
+    }
+
+    @Test
+    void for_closed_channel_values_expire_while_history_is_loading() throws InterruptedException {
+        ClosedChannelAwareCache<Long> cache = builder()
+                .withExpiry(Duration.ofMillis(1))
+                .build(0L, this::getNanoTime);
+        when(channelService.getClosedChannel(KEY_LONG.channelId())).thenReturn(Optional.of(CLOSED_CHANNEL));
+        when(ownNodeService.getBlockHeight()).thenReturn(500 + CLOSED_CHANNEL.getCloseHeight());
+        when(historyService.isCaughtUp()).thenReturn(false);
+        Long first = cache.get(KEY_LONG);
+        Thread.sleep(1);
+        Long second = cache.get(KEY_LONG);
+        assertThat(first).isNotEqualTo(second);
+    }
+
+    @Test
+    void for_channel_closed_just_now_values_expire() throws InterruptedException {
+        ClosedChannelAwareCache<Long> cache = builder()
+                .withExpiry(Duration.ofMillis(1))
+                .build(0L, this::getNanoTime);
+        when(channelService.getClosedChannel(KEY_LONG.channelId())).thenReturn(Optional.of(CLOSED_CHANNEL));
+        int blockHeight = ClosedChannelAwareCache.BLOCKS_UNTIL_IMMUTABLE - 1 + CLOSED_CHANNEL.getCloseHeight();
+        when(ownNodeService.getBlockHeight()).thenReturn(blockHeight);
+        Long first = cache.get(KEY_LONG);
+        Thread.sleep(1);
+        Long second = cache.get(KEY_LONG);
+        assertThat(first).isNotEqualTo(second);
+    }
+
+    @Test
+    void for_closed_channel_with_max_age_restriction_loads_full_history_once() {
+        List<Duration> loadedMaxAges = new ArrayList<>();
+        ClosedChannelAwareCache<Duration> cache = builder()
+                .build(
+                        Duration.ZERO,
+                        key -> {
+                            loadedMaxAges.add(key.maxAge());
+                            return key.maxAge();
+                        },
+                        (fullHistory, maxAge) -> fullHistory.minus(maxAge)
+                );
+        mockChannelClosedLongAgo();
+
+        Duration first = cache.get(OLD_CHANNEL_ID, Duration.ofDays(10));
+        Duration second = cache.get(OLD_CHANNEL_ID, Duration.ofDays(5));
+
+        assertThat(loadedMaxAges).hasSize(1);
+        assertThat(loadedMaxAges.get(0).minus(first)).isEqualTo(Duration.ofDays(10));
+        assertThat(loadedMaxAges.get(0).minus(second)).isEqualTo(Duration.ofDays(5));
+    }
+
+    @Test
+    void for_closed_channel_max_age_covering_lifetime_returns_full_history() {
+        ClosedChannelAwareCache<Duration> cache = builder()
+                .build(Duration.ZERO, ChannelIdAndMaxAge::maxAge, (fullHistory, maxAge) -> Duration.ZERO);
+        mockChannelClosedLongAgo();
+        Duration lifetime = Duration.ofMinutes(20L * (BLOCK_HEIGHT - OLD_CHANNEL_ID.getBlockHeight()));
+
+        assertThat(cache.get(OLD_CHANNEL_ID, lifetime)).isEqualTo(Duration.ofDays(365 * 1_000));
+    }
+
+    @Test
+    void for_closed_channel_with_full_history_function() {
+        ClosedChannelAwareCache<Duration> cache = builder()
+                .build(
+                        Duration.ZERO,
+                        ChannelIdAndMaxAge::maxAge,
+                        channelId -> Duration.ofDays(1),
+                        (fullHistory, maxAge) -> Duration.ZERO
+                );
+        mockChannelClosedLongAgo();
+        assertThat(cache.get(OLD_CHANNEL_ID, Duration.ofDays(365 * 1_000))).isEqualTo(Duration.ofDays(1));
+    }
+
+    @Test
+    void for_closed_channel_loads_value_for_whole_lifetime_once_per_channel() {
+        List<Duration> loadedMaxAges = new ArrayList<>();
+        ClosedChannelAwareCache<Duration> cache = builder()
+                .build(Duration.ZERO, key -> {
+                    loadedMaxAges.add(key.maxAge());
+                    return key.maxAge();
+                });
+        mockChannelClosedLongAgo();
+
+        cache.get(OLD_CHANNEL_ID, Duration.ofDays(365 * 100));
+        cache.get(OLD_CHANNEL_ID, Duration.ofDays(365 * 200));
+
+        assertThat(loadedMaxAges).hasSize(1);
+    }
+
+    @Test
+    void for_closed_channel_without_max_age_restriction_values_for_shorter_max_age_expire()
+            throws InterruptedException {
+        ClosedChannelAwareCache<Long> cache = builder()
+                .withExpiry(Duration.ofMillis(1))
+                .build(0L, this::getNanoTime);
+        mockChannelClosedLongAgo();
+        Long first = cache.get(OLD_CHANNEL_ID, Duration.ofDays(10));
+        Thread.sleep(1);
+        Long second = cache.get(OLD_CHANNEL_ID, Duration.ofDays(10));
+        assertThat(first).isNotEqualTo(second);
+    }
+
+    @Test
+    void for_open_channel_with_max_age_restriction_loads_requested_max_age() {
+        ClosedChannelAwareCache<Duration> cache = builder()
+                .build(Duration.ZERO, ChannelIdAndMaxAge::maxAge, (fullHistory, maxAge) -> Duration.ZERO);
+        assertThat(cache.get(KEY_LONG)).isEqualTo(KEY_LONG.maxAge());
+    }
+
+    private void mockChannelClosedLongAgo() {
+        when(channelService.getClosedChannel(OLD_CHANNEL_ID)).thenReturn(Optional.of(CLOSED_CHANNEL));
+        when(ownNodeService.getBlockHeight()).thenReturn(BLOCK_HEIGHT);
+        when(historyService.isCaughtUp()).thenReturn(true);
+    }
+
+    private ClosedChannelAwareCache.Builder builder() {
+        return ClosedChannelAwareCache.builder(channelService, ownNodeService, historyService);
+    }
+
     private void assertIsCached(ClosedChannelAwareCache<Long> cache, ChannelIdAndMaxAge key) {
         Long first = cache.get(key);
         Long second = cache.get(key);
@@ -1,6 +1,10 @@
 package de.cotto.lndmanagej.service;
 
 import de.cotto.lndmanagej.forwardinghistory.ForwardingEventsDao;
+import de.cotto.lndmanagej.forwardinghistory.ForwardingEventsIndex;
+import de.cotto.lndmanagej.forwardinghistory.ForwardingSums;
+import de.cotto.lndmanagej.model.ChannelId;
+import de.cotto.lndmanagej.model.Coins;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -15,6 +19,8 @@ import java.util.Optional;
 import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID;
 import static de.cotto.lndmanagej.model.CoopClosedChannelFixtures.CLOSED_CHANNEL;
 import static de.cotto.lndmanagej.model.ForwardingEventFixtures.FORWARDING_EVENT;
+import static de.cotto.lndmanagej.model.ForwardingEventFixtures.FORWARDING_EVENT_2;
+import static de.cotto.lndmanagej.model.ForwardingEventFixtures.FORWARDING_EVENT_OLD;
 import static de.cotto.lndmanagej.transactions.model.TransactionFixtures.BLOCK_HEIGHT;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
@@ -22,11 +28,13 @@ import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class ForwardingEventsServiceTest {
     private static final Duration DURATION = Duration.ofDays(365 * 1_000);
+    private static final ChannelId OLD_CHANNEL_ID = ChannelId.fromCompactForm("500000x1x1");
 
     @InjectMocks
     private ForwardingEventsService forwardingEventsService;
@@ -34,12 +42,18 @@ class ForwardingEventsServiceTest {
     @Mock
     private ForwardingEventsDao dao;
 
+    @Mock
+    private ForwardingEventsIndex forwardingEventsIndex;
+
     @Mock
     private ChannelService channelService;
 
     @Mock
     private OwnNodeService ownNodeService;
 
+    @Mock
+    private HistoryService historyService;
+
     @BeforeEach
     void setUp() {
         lenient().when(ownNodeService.getBlockHeight()).thenReturn(BLOCK_HEIGHT);
@@ -95,6 +109,52 @@ class ForwardingEventsServiceTest {
         verify(dao).getEventsWithIncomingChannel(any(), any());
     }
 
+    @Test
+    void getEventsWithOutgoingChannel_closed_restricts_full_history_from_index_to_max_age() {
+        when(channelService.getClosedChannel(OLD_CHANNEL_ID)).thenReturn(Optional.of(CLOSED_CHANNEL));
+        when(historyService.isCaughtUp()).thenReturn(true);
+        when(forwardingEventsIndex.getEventsWithOutgoingChannel(OLD_CHANNEL_ID))
+                .thenReturn(Optional.of(List.of(FORWARDING_EVENT_OLD, FORWARDING_EVENT)));
+        assertThat(forwardingEventsService.getEventsWithOutgoingChannel(OLD_CHANNEL_ID, getDurationShortlyAfterClose()))
+                .isEmpty();
+        assertThat(forwardingEventsService.getEventsWithOutgoingChannel(OLD_CHANNEL_ID, DURATION))
+                .containsExactly(FORWARDING_EVENT_OLD, FORWARDING_EVENT);
+        verify(forwardingEventsIndex, times(1)).getEventsWithOutgoingChannel(any());
+        verifyNoInteractions(dao);
+    }
+
+    @Test
+    void getEventsWithIncomingChannel_closed_restricts_full_history_from_index_to_max_age() {
+        when(channelService.getClosedChannel(OLD_CHANNEL_ID)).thenReturn(Optional.of(CLOSED_CHANNEL));
+        when(historyService.isCaughtUp()).thenReturn(true);
+        when(forwardingEventsIndex.getEventsWithIncomingChannel(OLD_CHANNEL_ID))
+                .thenReturn(Optional.of(List.of(FORWARDING_EVENT_OLD, FORWARDING_EVENT)));
+        assertThat(forwardingEventsService.getEventsWithIncomingChannel(OLD_CHANNEL_ID, getDurationShortlyAfterClose()))
+                .isEmpty();
+        assertThat(forwardingEventsService.getEventsWithIncomingChannel(OLD_CHANNEL_ID, DURATION))
+                .containsExactly(FORWARDING_EVENT_OLD, FORWARDING_EVENT);
+        verify(forwardingEventsIndex, times(1)).getEventsWithIncomingChannel(any());
+        verifyNoInteractions(dao);
+    }
+
+    @Test
+    void getEventsWithOutgoingChannel_closed_full_history_index_not_initialized() {
+        when(channelService.getClosedChannel(OLD_CHANNEL_ID)).thenReturn(Optional.of(CLOSED_CHANNEL));
+        when(historyService.isCaughtUp()).thenReturn(true);
+        when(dao.getEventsWithOutgoingChannel(OLD_CHANNEL_ID, DURATION)).thenReturn(List.of(FORWARDING_EVENT));
+        assertThat(forwardingEventsService.getEventsWithOutgoingChannel(OLD_CHANNEL_ID, DURATION))
+                .containsExactly(FORWARDING_EVENT);
+    }
+
+    @Test
+    void getEventsWithIncomingChannel_closed_full_history_index_not_initialized() {
+        when(channelService.getClosedChannel(OLD_CHANNEL_ID)).thenReturn(Optional.of(CLOSED_CHANNEL));
+        when(historyService.isCaughtUp()).thenReturn(true);
+        when(dao.getEventsWithIncomingChannel(OLD_CHANNEL_ID, DURATION)).thenReturn(List.of(FORWARDING_EVENT));
+        assertThat(forwardingEventsService.getEventsWithIncomingChannel(OLD_CHANNEL_ID, DURATION))
+                .containsExactly(FORWARDING_EVENT);
+    }
+
     @Test
     void getEventsWithOutgoingChannel_closed_with_max_age_long_after_channel_close_height() {
         Duration duration = getDurationLongAfterClose();
@@ -143,6 +203,38 @@ class ForwardingEventsServiceTest {
         verify(dao, times(1)).getEventsWithIncomingChannel(CHANNEL_ID, maxAge);
     }
 
+    @Test
+    void getSumsWithIncomingChannel_from_index() {
+        ForwardingSums sums = new ForwardingSums(Coins.ofSatoshis(1), Coins.ofMilliSatoshis(2));
+        when(forwardingEventsIndex.getSumsWithIncomingChannel(CHANNEL_ID, DURATION)).thenReturn(Optional.of(sums));
+        assertThat(forwardingEventsService.getSumsWithIncomingChannel(CHANNEL_ID, DURATION)).isEqualTo(sums);
+        verify(dao, never()).getEventsWithIncomingChannel(any(), any());
+    }
+
+    @Test
+    void getSumsWithOutgoingChannel_from_index() {
+        ForwardingSums sums = new ForwardingSums(Coins.ofSatoshis(1), Coins.ofMilliSatoshis(2));
+        when(forwardingEventsIndex.getSumsWithOutgoingChannel(CHANNEL_ID, DURATION)).thenReturn(Optional.of(sums));
+        assertThat(forwardingEventsService.getSumsWithOutgoingChannel(CHANNEL_ID, DURATION)).isEqualTo(sums);
+        verify(dao, never()).getEventsWithOutgoingChannel(any(), any());
+    }
+
+    @Test
+    void getSumsWithIncomingChannel_index_not_initialized() {
+        when(dao.getEventsWithIncomingChannel(CHANNEL_ID, DURATION))
+                .thenReturn(List.of(FORWARDING_EVENT, FORWARDING_EVENT_2));
+        assertThat(forwardingEventsService.getSumsWithIncomingChannel(CHANNEL_ID, DURATION)).isEqualTo(
+                new ForwardingSums(Coins.ofMilliSatoshis(900 + 2_000), Coins.ofMilliSatoshis(100 + 1))
+        );
+    }
+
+    @Test
+    void getSumsWithOutgoingChannel_index_not_initialized() {
+        when(dao.getEventsWithOutgoingChannel(CHANNEL_ID, DURATION)).thenReturn(List.of(FORWARDING_EVENT));
+        assertThat(forwardingEventsService.getSumsWithOutgoingChannel(CHANNEL_ID, DURATION))
+                .isEqualTo(new ForwardingSums(Coins.ofMilliSatoshis(900), Coins.ofMilliSatoshis(100)));
+    }
+
     private Duration getDurationLongAfterClose() {
         int blocks = BLOCK_HEIGHT - CLOSED_CHANNEL.getCloseHeight();
         double daysWithTenMinutesPerBlock = blocks * 10.0 / 60 / 24;
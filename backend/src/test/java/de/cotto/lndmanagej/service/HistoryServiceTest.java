@@ -0,0 +1,48 @@
+package de.cotto.lndmanagej.service;
+
+import de.cotto.lndmanagej.model.HistoryLoader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class HistoryServiceTest {
+    private HistoryService historyService;
+
+    @Mock
+    private HistoryLoader historyLoader;
+
+    @Mock
+    private HistoryLoader historyLoader2;
+
+    @BeforeEach
+    void setUp() {
+        historyService = new HistoryService(List.of(historyLoader, historyLoader2));
+    }
+
+    @Test
+    void isCaughtUp() {
+        when(historyLoader.isCaughtUp()).thenReturn(true);
+        when(historyLoader2.isCaughtUp()).thenReturn(true);
+        assertThat(historyService.isCaughtUp()).isTrue();
+    }
+
+    @Test
+    void isCaughtUp_one_loader_still_loading() {
+        when(historyLoader.isCaughtUp()).thenReturn(true);
+        when(historyLoader2.isCaughtUp()).thenReturn(false);
+        assertThat(historyService.isCaughtUp()).isFalse();
+    }
+
+    @Test
+    void isCaughtUp_without_loaders() {
+        assertThat(new HistoryService(List.of()).isCaughtUp()).isTrue();
+    }
+}
@@ -2,7 +2,6 @@ package de.cotto.lndmanagej.service;
 
 import de.cotto.lndmanagej.configuration.ConfigurationService;
 import de.cotto.lndmanagej.model.Coins;
-import de.cotto.lndmanagej.service.LiquidityBoundsService.TwoPubkeys;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -23,6 +22,8 @@ import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class LiquidityBoundsServiceTest {
+    private static final long MAX_HTLC = 500_000;
+
     @InjectMocks
     private LiquidityBoundsService liquidityBoundsService;
 
@@ -58,6 +59,42 @@ class LiquidityBoundsServiceTest {
                 .isEqualTo(Coins.NONE);
     }
 
+    @Test
+    void getAssumedLiquidityUpperBoundMilliSat_unknown() {
+        assertThat(liquidityBoundsService.getAssumedLiquidityUpperBoundMilliSat(PUBKEY, PUBKEY_2, MAX_HTLC))
+                .isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void getAssumedLiquidityUpperBoundMilliSat_from_mission_control() {
+        when(configurationService.getBooleanValue(USE_MISSION_CONTROL)).thenReturn(Optional.of(true));
+        when(missionControlService.getMinimumOfRecentFailures(PUBKEY, PUBKEY_2))
+                .thenReturn(Optional.of(Coins.ofSatoshis(123)));
+        assertThat(liquidityBoundsService.getAssumedLiquidityUpperBoundMilliSat(PUBKEY, PUBKEY_2, MAX_HTLC))
+                .isEqualTo(122_000);
+    }
+
+    @Test
+    void getAssumedLiquidityUpperBoundMilliSat_limited_by_max_htlc() {
+        liquidityBoundsService.markAsUnavailable(PUBKEY, PUBKEY_2, Coins.ofMilliSatoshis(MAX_HTLC + 10_000));
+        assertThat(liquidityBoundsService.getAssumedLiquidityUpperBoundMilliSat(PUBKEY, PUBKEY_2, MAX_HTLC))
+                .isEqualTo(MAX_HTLC);
+    }
+
+    @Test
+    void getAssumedLiquidityLowerBoundMilliSat() {
+        liquidityBoundsService.markAsAvailable(PUBKEY, PUBKEY_2, Coins.ofSatoshis(9));
+        assertThat(liquidityBoundsService.getAssumedLiquidityLowerBoundMilliSat(PUBKEY, PUBKEY_2, MAX_HTLC))
+                .isEqualTo(9_000);
+    }
+
+    @Test
+    void getAssumedLiquidityLowerBoundMilliSat_limited_by_max_htlc() {
+        liquidityBoundsService.markAsAvailable(PUBKEY, PUBKEY_2, Coins.ofMilliSatoshis(MAX_HTLC + 10_000));
+        assertThat(liquidityBoundsService.getAssumedLiquidityLowerBoundMilliSat(PUBKEY, PUBKEY_2, MAX_HTLC))
+                .isEqualTo(MAX_HTLC);
+    }
+
     @Test
     void markAsAvailable() {
         liquidityBoundsService.markAsAvailable(PUBKEY, PUBKEY_2, Coins.ofSatoshis(9_000));
@@ -223,11 +260,4 @@ class LiquidityBoundsServiceTest {
         liquidityBoundsService.cleanup();
         verify(configurationService).getIntegerValue(LIQUIDITY_INFORMATION_MAX_AGE);
     }
-
-    @Test
-    void twoPubkeys() {
-        TwoPubkeys twoPubkeys = new TwoPubkeys(PUBKEY, PUBKEY_2);
-        assertThat(twoPubkeys.source()).isEqualTo(PUBKEY);
-        assertThat(twoPubkeys.target()).isEqualTo(PUBKEY_2);
-    }
 }
@@ -0,0 +1,178 @@
+package de.cotto.lndmanagej.service;
+
+import de.cotto.lndmanagej.model.Coins;
+import de.cotto.lndmanagej.model.LiquidityBounds;
+import de.cotto.lndmanagej.model.LiquidityBoundsWithTimestamp;
+import de.cotto.lndmanagej.model.Pubkey;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY;
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_2;
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_3;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LiquidityBoundsStoreTest {
+    private static final LiquidityBoundsWithTimestamp VALUE = withLowerBound(100);
+    private static final LiquidityBoundsWithTimestamp VALUE_2 = withLowerBound(200);
+
+    private final LiquidityBoundsStore store = new LiquidityBoundsStore();
+
+    @Test
+    void get_unknown() {
+        assertThat(store.get(PUBKEY, PUBKEY_2)).isNull();
+    }
+
+    @Test
+    void update_adds_value() {
+        store.update(PUBKEY, PUBKEY_2, current -> VALUE);
+        assertThat(store.get(PUBKEY, PUBKEY_2)).isEqualTo(VALUE);
+    }
+
+    @Test
+    void update_is_directional() {
+        store.update(PUBKEY, PUBKEY_2, current -> VALUE);
+        assertThat(store.get(PUBKEY_2, PUBKEY)).isNull();
+    }
+
+    @Test
+    void update_unknown_pair_for_known_nodes() {
+        store.update(PUBKEY, PUBKEY_2, current -> VALUE);
+        store.update(PUBKEY_2, PUBKEY_3, current -> VALUE_2);
+        assertThat(store.get(PUBKEY, PUBKEY_3)).isNull();
+        assertThat(store.get(PUBKEY_2, PUBKEY_3)).isEqualTo(VALUE_2);
+    }
+
+    @Test
+    void update_provides_current_value() {
+        store.update(PUBKEY, PUBKEY_2, current -> VALUE);
+        List<LiquidityBoundsWithTimestamp> seen = new ArrayList<>();
+        store.update(PUBKEY, PUBKEY_2, current -> {
+            seen.add(current);
+            return VALUE_2;
+        });
+        assertThat(seen).containsExactly(VALUE);
+        assertThat(store.get(PUBKEY, PUBKEY_2)).isEqualTo(VALUE_2);
+    }
+
+    @Test
+    void update_to_null_removes_value() {
+        store.update(PUBKEY, PUBKEY_2, current -> VALUE);
+        store.update(PUBKEY, PUBKEY_2, current -> null);
+        assertThat(store.get(PUBKEY, PUBKEY_2)).isNull();
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    void remove() {
+        store.update(PUBKEY, PUBKEY_2, current -> VALUE);
+        store.remove(PUBKEY, PUBKEY_2, VALUE);
+        assertThat(store.get(PUBKEY, PUBKEY_2)).isNull();
+    }
+
+    @Test
+    void remove_only_removes_expected_value() {
+        store.update(PUBKEY, PUBKEY_2, current -> VALUE_2);
+        store.remove(PUBKEY, PUBKEY_2, VALUE);
+        assertThat(store.get(PUBKEY, PUBKEY_2)).isEqualTo(VALUE_2);
+    }
+
+    @Test
+    void remove_unknown() {
+        store.remove(PUBKEY, PUBKEY_2, VALUE);
+        assertThat(store.get(PUBKEY, PUBKEY_2)).isNull();
+    }
+
+    @Test
+    void removeIf() {
+        store.update(PUBKEY, PUBKEY_2, current -> VALUE);
+        store.update(PUBKEY, PUBKEY_3, current -> VALUE_2);
+        store.removeIf(VALUE::equals);
+        assertThat(store.get(PUBKEY, PUBKEY_2)).isNull();
+        assertThat(store.get(PUBKEY, PUBKEY_3)).isEqualTo(VALUE_2);
+        assertThat(store.size()).isEqualTo(1);
+    }
+
+    @Test
+    void update_after_removeIf() {
+        store.update(PUBKEY, PUBKEY_2, current -> VALUE);
+        store.removeIf(VALUE::equals);
+        store.update(PUBKEY, PUBKEY_2, current -> VALUE_2);
+        assertThat(store.get(PUBKEY, PUBKEY_2)).isEqualTo(VALUE_2);
+    }
+
+    @Test
+    void size() {
+        store.update(PUBKEY, PUBKEY_2, current -> VALUE);
+        store.update(PUBKEY_2, PUBKEY, current -> VALUE);
+        assertThat(store.size()).isEqualTo(2);
+    }
+
+    @Test
+    void grows() {
+        int numberOfNodes = 100;
+        for (int source = 0; source < numberOfNodes; source++) {
+            for (int target = 0; target < numberOfNodes; target++) {
+                LiquidityBoundsWithTimestamp value = withLowerBound(source * numberOfNodes + target + 1);
+                store.update(pubkey(source), pubkey(target), current -> value);
+            }
+        }
+        assertThat(store.size()).isEqualTo(numberOfNodes * numberOfNodes);
+        assertThat(getLowerBound(pubkey(12), pubkey(34))).isEqualTo(12 * numberOfNodes + 34 + 1);
+    }
+
+    @Test
+    void concurrent_updates_are_not_lost() throws Exception {
+        int numberOfThreads = 8;
+        int updatesPerThread = 1_000;
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < numberOfThreads; thread++) {
+                Pubkey target = pubkey(thread % 2);
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < updatesPerThread; i++) {
+                        store.update(PUBKEY, target, LiquidityBoundsStoreTest::increment);
+                        if (i % 100 == 0) {
+                            store.removeIf(value -> false);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        long expected = (long) numberOfThreads / 2 * updatesPerThread;
+        assertThat(getLowerBound(PUBKEY, pubkey(0))).isEqualTo(expected);
+        assertThat(getLowerBound(PUBKEY, pubkey(1))).isEqualTo(expected);
+    }
+
+    private long getLowerBound(Pubkey source, Pubkey target) {
+        LiquidityBoundsWithTimestamp value = Objects.requireNonNull(store.get(source, target));
+        return value.liquidityBounds().getLowerBound().satoshis();
+    }
+
+    private static LiquidityBoundsWithTimestamp increment(LiquidityBoundsWithTimestamp current) {
+        long lowerBound = current == null ? 0 : current.liquidityBounds().getLowerBound().satoshis();
+        return withLowerBound(lowerBound + 1);
+    }
+
+    private static LiquidityBoundsWithTimestamp withLowerBound(long satoshis) {
+        LiquidityBounds liquidityBounds = new LiquidityBounds(Coins.ofSatoshis(satoshis), null, Coins.NONE);
+        return new LiquidityBoundsWithTimestamp(liquidityBounds, Instant.EPOCH);
+    }
+
+    private static Pubkey pubkey(int index) {
+        return Pubkey.create("02" + "%064x".formatted(index + 1));
+    }
+}
@@ -1,7 +1,7 @@
 package de.cotto.lndmanagej.service;
 
 import de.cotto.lndmanagej.configuration.ConfigurationService;
-import de.cotto.lndmanagej.model.FlowReport;
+import de.cotto.lndmanagej.model.DailyFlowHistogram;
 import de.cotto.lndmanagej.model.warnings.NodeNoFlowWarning;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
@@ -11,14 +11,12 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.time.Duration;
 import java.util.Optional;
 import java.util.Set;
 
 import static de.cotto.lndmanagej.configuration.WarningsConfigurationSettings.NODE_FLOW_MAXIMUM_DAYS_TO_CONSIDER;
 import static de.cotto.lndmanagej.configuration.WarningsConfigurationSettings.NODE_FLOW_MINIMUM_DAYS_FOR_WARNING;
 import static de.cotto.lndmanagej.configuration.WarningsConfigurationSettings.NODE_FLOW_WARNING_IGNORE_NODE;
-import static de.cotto.lndmanagej.model.FlowReportFixtures.FLOW_REPORT;
 import static de.cotto.lndmanagej.model.LocalOpenChannelFixtures.LOCAL_OPEN_CHANNEL;
 import static de.cotto.lndmanagej.model.LocalOpenChannelFixtures.LOCAL_OPEN_CHANNEL_2;
 import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY;
@@ -27,8 +25,11 @@ import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_3;
 import static de.cotto.lndmanagej.transactions.model.TransactionFixtures.BLOCK_HEIGHT;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -52,7 +53,8 @@ class NodeFlowWarningsProviderTest {
 
     @BeforeEach
     void setUp() {
-        lenient().when(flowService.getFlowReportForPeer(eq(PUBKEY), any())).thenReturn(FlowReport.EMPTY);
+        lenient().when(flowService.getDailyFlowHistogramForPeer(eq(PUBKEY), anyInt()))
+                .thenAnswer(invocation -> new DailyFlowHistogram(new long[invocation.<Integer>getArgument(1)]));
         lenient().when(ownNodeService.getBlockHeight()).thenReturn(800_000);
         lenient().when(configurationService.getIntegerValue(any())).thenReturn(Optional.empty());
     }
@@ -85,19 +87,41 @@ class NodeFlowWarningsProviderTest {
     @Test
     void getNodeWarnings_no_flow_then_some_flow() {
         mockOpenChannelWithAgeInBlocks(100 * EXPECTED_BLOCKS_PER_DAY);
-        when(flowService.getFlowReportForPeer(PUBKEY, Duration.ofDays(30))).thenReturn(FlowReport.EMPTY);
-        when(flowService.getFlowReportForPeer(PUBKEY, Duration.ofDays(31))).thenReturn(FlowReport.EMPTY);
-        when(flowService.getFlowReportForPeer(PUBKEY, Duration.ofDays(32))).thenReturn(FLOW_REPORT);
+        long[] milliSatoshisPerDay = new long[90];
+        milliSatoshisPerDay[31] = 1;
+        milliSatoshisPerDay[50] = 2;
+        when(flowService.getDailyFlowHistogramForPeer(PUBKEY, 90))
+                .thenReturn(new DailyFlowHistogram(milliSatoshisPerDay));
         assertThat(warningsProvider.getNodeWarnings(PUBKEY)).containsExactly(new NodeNoFlowWarning(31));
     }
 
     @Test
     void getNodeWarnings_ok() {
         mockOpenChannelWithAgeInBlocks(100 * EXPECTED_BLOCKS_PER_DAY);
-        when(flowService.getFlowReportForPeer(any(), any())).thenReturn(FLOW_REPORT);
+        long[] milliSatoshisPerDay = new long[90];
+        milliSatoshisPerDay[0] = 1;
+        when(flowService.getDailyFlowHistogramForPeer(PUBKEY, 90))
+                .thenReturn(new DailyFlowHistogram(milliSatoshisPerDay));
         assertThat(warningsProvider.getNodeWarnings(PUBKEY)).isEmpty();
     }
 
+    @Test
+    void getNodeWarnings_flow_just_before_minimum_days_for_warning() {
+        mockOpenChannelWithAgeInBlocks(100 * EXPECTED_BLOCKS_PER_DAY);
+        long[] milliSatoshisPerDay = new long[90];
+        milliSatoshisPerDay[29] = 1;
+        when(flowService.getDailyFlowHistogramForPeer(PUBKEY, 90))
+                .thenReturn(new DailyFlowHistogram(milliSatoshisPerDay));
+        assertThat(warningsProvider.getNodeWarnings(PUBKEY)).isEmpty();
+    }
+
+    @Test
+    void getNodeWarnings_does_not_compute_histogram_for_young_channel() {
+        mockOpenChannelWithAgeInBlocks(10 * EXPECTED_BLOCKS_PER_DAY);
+        assertThat(warningsProvider.getNodeWarnings(PUBKEY)).isEmpty();
+        verify(flowService, never()).getDailyFlowHistogramForPeer(any(), anyInt());
+    }
+
     @Test
     void uses_minimum_days_for_warning_from_configuration() {
         when(configurationService.getIntegerValue(NODE_FLOW_MINIMUM_DAYS_FOR_WARNING)).thenReturn(Optional.of(2));
@@ -2,6 +2,8 @@ package de.cotto.lndmanagej.service;
 
 import de.cotto.lndmanagej.model.ChannelId;
 import de.cotto.lndmanagej.model.Coins;
+import de.cotto.lndmanagej.model.FeeReport;
+import de.cotto.lndmanagej.model.FlowReport;
 import de.cotto.lndmanagej.model.Payment;
 import de.cotto.lndmanagej.model.PaymentHop;
 import de.cotto.lndmanagej.model.PaymentRoute;
@@ -9,6 +11,7 @@ import de.cotto.lndmanagej.model.RebalanceReport;
 import de.cotto.lndmanagej.model.SelfPayment;
 import de.cotto.lndmanagej.model.SettledInvoice;
 import org.assertj.core.api.SoftAssertions;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -16,8 +19,6 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.Duration;
-import java.time.LocalDateTime;
-import java.time.ZoneOffset;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -44,6 +45,8 @@ import static de.cotto.lndmanagej.model.SettledInvoiceFixtures.HASH;
 import static de.cotto.lndmanagej.model.SettledInvoiceFixtures.SETTLE_DATE;
 import static de.cotto.lndmanagej.model.SettledInvoiceFixtures.SETTLE_INDEX;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -51,6 +54,14 @@ class RebalanceServiceTest {
     private static final Duration DEFAULT_MAX_AGE = Duration.ofDays(365 * 1_000);
     private static final Coins FEE_FOR_TWO_REBALANCES = Coins.ofMilliSatoshis(20);
     private static final Coins AMOUNT_FOR_TWO_REBALANCES = Coins.ofMilliSatoshis(246);
+    private static final RebalanceReport REPORT = new RebalanceReport(
+            Coins.ofSatoshis(1),
+            Coins.ofSatoshis(2),
+            Coins.ofSatoshis(3),
+            Coins.ofSatoshis(4),
+            Coins.ofSatoshis(5),
+            Coins.ofSatoshis(6)
+    );
 
     @InjectMocks
     private RebalanceService rebalanceService;
@@ -61,90 +72,43 @@ class RebalanceServiceTest {
     @Mock
     private ChannelService channelService;
 
-    @Test
-    void getReportForChannel_empty() {
-        assertThat(rebalanceService.getReportForChannel(CHANNEL_ID)).isEqualTo(RebalanceReport.EMPTY);
-    }
+    @Mock
+    private ChannelAggregateEngine channelAggregateEngine;
 
-    @Test
-    void getReportForChannel_source() {
-        RebalanceReport expected = new RebalanceReport(
-                FEE_FOR_TWO_REBALANCES,
-                AMOUNT_FOR_TWO_REBALANCES,
-                Coins.NONE,
-                Coins.NONE,
-                Coins.NONE,
-                Coins.NONE
-        );
-        mockSelfPaymentsFromChannel("source: " + CHANNEL_ID.getShortChannelId());
-        assertThat(rebalanceService.getReportForChannel(CHANNEL_ID)).isEqualTo(expected);
+    @BeforeEach
+    void setUp() {
+        lenient().when(channelAggregateEngine.getAggregate(any(), any())).thenReturn(ChannelAggregate.EMPTY);
     }
 
     @Test
-    void getReportForChannel_target() {
-        RebalanceReport expected = new RebalanceReport(
-                Coins.NONE,
-                Coins.NONE,
+    void getReportForChannel() {
+        RebalanceReport report = new RebalanceReport(
                 FEE_FOR_TWO_REBALANCES,
                 AMOUNT_FOR_TWO_REBALANCES,
                 Coins.NONE,
-                Coins.NONE
-        );
-        mockSelfPaymentsToChannel("sending to " + CHANNEL_ID_2.getShortChannelId());
-        assertThat(rebalanceService.getReportForChannel(CHANNEL_ID_2)).isEqualTo(expected);
-    }
-
-    @Test
-    void getReportForChannel_supportAsSource() {
-        RebalanceReport expected = new RebalanceReport(
-                PAYMENT_FEES,
-                AMOUNT_PAID,
                 Coins.NONE,
                 Coins.NONE,
-                AMOUNT_FOR_TWO_REBALANCES,
                 Coins.NONE
         );
-        when(selfPaymentsService.getSelfPaymentsFromChannel(CHANNEL_ID, DEFAULT_MAX_AGE)).thenReturn(List.of(
-                getSelfPayment("dest: " + CHANNEL_ID_2, 0),
-                getSelfPayment("into " + CHANNEL_ID_2, 1),
-                getSelfPayment(CHANNEL_ID.toString(), 1)
-        ));
-        assertThat(rebalanceService.getReportForChannel(CHANNEL_ID)).isEqualTo(expected);
+        when(channelAggregateEngine.getAggregate(CHANNEL_ID, DEFAULT_MAX_AGE))
+                .thenReturn(new ChannelAggregate(FlowReport.EMPTY, FeeReport.EMPTY, report));
+        assertThat(rebalanceService.getReportForChannel(CHANNEL_ID)).isEqualTo(report);
     }
 
     @Test
-    void getReportForChannel_supportAsTarget() {
-        RebalanceReport expected = new RebalanceReport(
+    void getReportForChannel_with_max_age() {
+        Duration maxAge = Duration.ofDays(2);
+        RebalanceReport report = new RebalanceReport(
                 Coins.NONE,
                 Coins.NONE,
                 PAYMENT_FEES,
                 AMOUNT_PAID,
                 Coins.NONE,
-                AMOUNT_FOR_TWO_REBALANCES
-        );
-        when(selfPaymentsService.getSelfPaymentsToChannel(CHANNEL_ID_2, DEFAULT_MAX_AGE)).thenReturn(List.of(
-                getSelfPayment("filling up " + CHANNEL_ID_2, 0),
-                getSelfPayment("f: " + CHANNEL_ID, 1),
-                getSelfPayment(CHANNEL_ID + " is source", 1)
-        ));
-        assertThat(rebalanceService.getReportForChannel(CHANNEL_ID_2)).isEqualTo(expected);
-    }
-
-    @Test
-    void getReportForChannel_with_max_age() {
-        Duration maxAge = Duration.between(PAYMENT_CREATION, LocalDateTime.now(ZoneOffset.UTC));
-        RebalanceReport expected = new RebalanceReport(
-                Coins.NONE,
-                Coins.NONE,
-                Coins.NONE,
-                Coins.NONE,
-                Coins.NONE,
-                AMOUNT_PAID
+                Coins.NONE
         );
-        when(selfPaymentsService.getSelfPaymentsToChannel(CHANNEL_ID_2, maxAge)).thenReturn(List.of(
-                getSelfPayment(String.valueOf(CHANNEL_ID), 0)
-        ));
-        assertThat(rebalanceService.getReportForChannel(CHANNEL_ID_2, maxAge)).isEqualTo(expected);
+        when(channelAggregateEngine.getAggregate(CHANNEL_ID_2, maxAge))
+                .thenReturn(new ChannelAggregate(FlowReport.EMPTY, FeeReport.EMPTY, report));
+        assertThat(rebalanceService.getReportForChannel(CHANNEL_ID_2, maxAge)).isEqualTo(report);
     }
 
     @Test
@@ -178,14 +142,14 @@ class RebalanceServiceTest {
     @Test
     void getReportForPeer_supportAsSource() {
         RebalanceReport expected = new RebalanceReport(
-                FEE_FOR_TWO_REBALANCES,
-                AMOUNT_FOR_TWO_REBALANCES,
                 Coins.NONE,
                 Coins.NONE,
-                Coins.ofMilliSatoshis(123),
+                Coins.NONE,
+                Coins.NONE,
+                AMOUNT_PAID,
                 Coins.NONE
         );
-        mockSupportAsSourceForPeer();
+        mockSupportAsSourceForPeer(DEFAULT_MAX_AGE);
         assertThat(rebalanceService.getReportForPeer(PUBKEY)).isEqualTo(expected);
     }
 
@@ -194,12 +158,12 @@ class RebalanceServiceTest {
         RebalanceReport expected = new RebalanceReport(
                 Coins.NONE,
                 Coins.NONE,
-                Coins.ofMilliSatoshis(20),
-                Coins.ofMilliSatoshis(246),
                 Coins.NONE,
-                Coins.ofMilliSatoshis(123)
+                Coins.NONE,
+                Coins.NONE,
+                AMOUNT_PAID
         );
-        mockSupportAsTargetForPeer();
+        mockSupportAsTargetForPeer(DEFAULT_MAX_AGE);
         assertThat(rebalanceService.getReportForPeer(PUBKEY)).isEqualTo(expected);
     }
 
@@ -223,35 +187,89 @@ class RebalanceServiceTest {
 
     @Test
     void getSourceCostsForChannel() {
-        mockSelfPaymentsFromChannel(CHANNEL_ID.toString());
-        assertThat(rebalanceService.getSourceCostsForChannel(CHANNEL_ID)).isEqualTo(FEE_FOR_TWO_REBALANCES);
+        mockAggregate(CHANNEL_ID, DEFAULT_MAX_AGE);
+        assertThat(rebalanceService.getSourceCostsForChannel(CHANNEL_ID)).isEqualTo(REPORT.sourceCost());
     }
 
     @Test
     void getSourceCostsForChannel_with_max_age() {
         Duration maxAge = Duration.ofDays(3);
-        String memo = CHANNEL_ID.toString();
-        when(selfPaymentsService.getSelfPaymentsFromChannel(CHANNEL_ID, maxAge)).thenReturn(List.of(
-                getSelfPayment(memo, 0)
-        ));
-        assertThat(rebalanceService.getSourceCostsForChannel(CHANNEL_ID, maxAge)).isEqualTo(PAYMENT_FEES);
+        mockAggregate(CHANNEL_ID, maxAge);
+        assertThat(rebalanceService.getSourceCostsForChannel(CHANNEL_ID, maxAge)).isEqualTo(REPORT.sourceCost());
     }
 
     @Test
     void getTargetCostsForChannel() {
-        mockSelfPaymentsToChannel("sending into " + CHANNEL_ID_2.getShortChannelId());
-        assertThat(rebalanceService.getTargetCostsForChannel(CHANNEL_ID_2)).isEqualTo(FEE_FOR_TWO_REBALANCES);
+        mockAggregate(CHANNEL_ID_2, DEFAULT_MAX_AGE);
+        assertThat(rebalanceService.getTargetCostsForChannel(CHANNEL_ID_2)).isEqualTo(REPORT.targetCost());
     }
 
     @Test
     void getTargetCostsForChannel_with_max_age() {
         Duration maxAge = Duration.ofDays(4);
-        String memo = "sending into " + CHANNEL_ID_2.getShortChannelId();
-        when(selfPaymentsService.getSelfPaymentsToChannel(CHANNEL_ID_2, maxAge)).thenReturn(List.of(
-                getSelfPayment(memo, 0),
-                getSelfPayment(memo, 1)
-        ));
-        assertThat(rebalanceService.getTargetCostsForChannel(CHANNEL_ID_2, maxAge)).isEqualTo(FEE_FOR_TWO_REBALANCES);
+        mockAggregate(CHANNEL_ID_2, maxAge);
+        assertThat(rebalanceService.getTargetCostsForChannel(CHANNEL_ID_2, maxAge)).isEqualTo(REPORT.targetCost());
+    }
+
+    @Test
+    void getTargetCostsForChannel_empty_aggregate() {
+        assertThat(rebalanceService.getTargetCostsForChannel(CHANNEL_ID_2)).isEqualTo(Coins.NONE);
+    }
+
+    @Test
+    void getAmountFromChannel() {
+        mockAggregate(CHANNEL_ID, DEFAULT_MAX_AGE);
+        assertThat(rebalanceService.getAmountFromChannel(CHANNEL_ID)).isEqualTo(REPORT.sourceAmount());
+    }
+
+    @Test
+    void getAmountFromChannel_with_max_age() {
+        Duration maxAge = Duration.ofDays(9);
+        mockAggregate(CHANNEL_ID, maxAge);
+        assertThat(rebalanceService.getAmountFromChannel(CHANNEL_ID, maxAge)).isEqualTo(REPORT.sourceAmount());
+    }
+
+    @Test
+    void getAmountToChannel() {
+        mockAggregate(CHANNEL_ID_2, DEFAULT_MAX_AGE);
+        assertThat(rebalanceService.getAmountToChannel(CHANNEL_ID_2)).isEqualTo(REPORT.targetAmount());
+    }
+
+    @Test
+    void getAmountToChannel_with_max_age() {
+        Duration maxAge = Duration.ofDays(10);
+        mockAggregate(CHANNEL_ID_2, maxAge);
+        assertThat(rebalanceService.getAmountToChannel(CHANNEL_ID_2, maxAge)).isEqualTo(REPORT.targetAmount());
+    }
+
+    @Test
+    void getSupportAsSourceAmountFromChannel() {
+        mockAggregate(CHANNEL_ID, DEFAULT_MAX_AGE);
+        assertThat(rebalanceService.getSupportAsSourceAmountFromChannel(CHANNEL_ID))
+                .isEqualTo(REPORT.supportAsSourceAmount());
+    }
+
+    @Test
+    void getSupportAsSourceAmountFromChannel_with_max_age() {
+        Duration maxAge = Duration.ofDays(11);
+        mockAggregate(CHANNEL_ID, maxAge);
+        assertThat(rebalanceService.getSupportAsSourceAmountFromChannel(CHANNEL_ID, maxAge))
+                .isEqualTo(REPORT.supportAsSourceAmount());
+    }
+
+    @Test
+    void getSupportAsTargetAmountToChannel() {
+        mockAggregate(CHANNEL_ID_2, DEFAULT_MAX_AGE);
+        assertThat(rebalanceService.getSupportAsTargetAmountToChannel(CHANNEL_ID_2))
+                .isEqualTo(REPORT.supportAsTargetAmount());
+    }
+
+    @Test
+    void getSupportAsTargetAmountToChannel_with_max_age() {
+        Duration maxAge = Duration.ofDays(13);
+        mockAggregate(CHANNEL_ID_2, maxAge);
+        assertThat(rebalanceService.getSupportAsTargetAmountToChannel(CHANNEL_ID_2, maxAge))
+                .isEqualTo(REPORT.supportAsTargetAmount());
     }
 
     @Test
@@ -315,232 +333,121 @@ class RebalanceServiceTest {
     }
 
     @Test
-    void getAmountFromChannel() {
-        mockSelfPaymentsFromChannel("taking out of " + CHANNEL_ID.getShortChannelId());
-        assertThat(rebalanceService.getAmountFromChannel(CHANNEL_ID)).isEqualTo(AMOUNT_FOR_TWO_REBALANCES);
+    void getSupportAsSourceAmountFromPeer() {
+        mockSupportAsSourceForPeer(DEFAULT_MAX_AGE);
+        assertThat(rebalanceService.getSupportAsSourceAmountFromPeer(PUBKEY)).isEqualTo(AMOUNT_PAID);
     }
 
     @Test
-    void getAmountFromChannel_with_max_age() {
-        Duration maxAge = Duration.ofDays(9);
-        when(selfPaymentsService.getSelfPaymentsFromChannel(CHANNEL_ID, maxAge)).thenReturn(List.of(
-                getSelfPayment("<" + CHANNEL_ID.getShortChannelId(), 0)
-        ));
-        assertThat(rebalanceService.getAmountFromChannel(CHANNEL_ID, maxAge)).isEqualTo(AMOUNT_PAID);
+    void getSupportAsSourceAmountFromPeer_with_max_age() {
+        Duration maxAge = Duration.ofDays(12);
+        mockSupportAsSourceForPeer(maxAge);
+        assertThat(rebalanceService.getSupportAsSourceAmountFromPeer(PUBKEY, maxAge)).isEqualTo(AMOUNT_PAID);
     }
 
     @Test
-    void getAmountToChannel() {
-        mockSelfPaymentsToChannel("into " + CHANNEL_ID_2.getShortChannelId());
-        assertThat(rebalanceService.getAmountToChannel(CHANNEL_ID_2)).isEqualTo(AMOUNT_FOR_TWO_REBALANCES);
+    void getSupportAsTargetAmountToPeer() {
+        mockSupportAsTargetForPeer(DEFAULT_MAX_AGE);
+        assertThat(rebalanceService.getSupportAsTargetAmountToPeer(PUBKEY)).isEqualTo(AMOUNT_PAID);
     }
 
     @Test
-    void getAmountToChannel_with_max_age() {
-        Duration maxAge = Duration.ofDays(10);
-        when(selfPaymentsService.getSelfPaymentsToChannel(CHANNEL_ID_2, maxAge)).thenReturn(List.of(
-                getSelfPayment("memo", 0)
-        ));
-        assertThat(rebalanceService.getAmountToChannel(CHANNEL_ID_2, maxAge)).isEqualTo(AMOUNT_PAID);
+    void getSupportAsTargetAmountToPeer_with_max_age() {
+        Duration maxAge = Duration.ofDays(14);
+        mockSupportAsTargetForPeer(maxAge);
+        assertThat(rebalanceService.getSupportAsTargetAmountToPeer(PUBKEY, maxAge)).isEqualTo(AMOUNT_PAID);
     }
 
     @Test
-    void getSourceCostsForChannel_short_channel_id_as_infix_in_memo() {
-        mockSelfPaymentsFromChannel("111" + CHANNEL_ID.getShortChannelId() + "222");
-        assertThat(rebalanceService.getSourceCostsForChannel(CHANNEL_ID)).isEqualTo(FEE_FOR_TWO_REBALANCES);
+    void isRebalanceFromChannel_short_channel_id_as_infix_in_memo() {
+        SelfPayment selfPayment = getSelfPayment("111" + CHANNEL_ID.getShortChannelId() + "222", 0);
+        assertThat(RebalanceService.isRebalanceFromChannel(selfPayment, CHANNEL_ID)).isTrue();
     }
 
     @Test
-    void getSourceCostsForChannel_compact_channel_id_in_memo() {
-        mockSelfPaymentsFromChannel("rebalance from " + CHANNEL_ID.getCompactForm());
-        assertThat(rebalanceService.getSourceCostsForChannel(CHANNEL_ID)).isEqualTo(FEE_FOR_TWO_REBALANCES);
+    void isRebalanceFromChannel_compact_channel_id_in_memo() {
+        SelfPayment selfPayment = getSelfPayment("rebalance from " + CHANNEL_ID.getCompactForm(), 0);
+        assertThat(RebalanceService.isRebalanceFromChannel(selfPayment, CHANNEL_ID)).isTrue();
     }
 
     @Test
-    void getSourceCostsForChannel_compact_lnd_channel_id_in_memo() {
-        mockSelfPaymentsFromChannel("rebalance from " + CHANNEL_ID.getCompactFormLnd());
-        assertThat(rebalanceService.getSourceCostsForChannel(CHANNEL_ID)).isEqualTo(FEE_FOR_TWO_REBALANCES);
+    void isRebalanceFromChannel_compact_lnd_channel_id_in_memo() {
+        SelfPayment selfPayment = getSelfPayment("rebalance from " + CHANNEL_ID.getCompactFormLnd(), 0);
+        assertThat(RebalanceService.isRebalanceFromChannel(selfPayment, CHANNEL_ID)).isTrue();
     }
 
     @Test
-    void two_different_source_channels_memo_mentions_one_of_the_first_hops() {
-        String memo = "y" + CHANNEL_ID.getShortChannelId();
-        Payment payment = mockMppWithTwoRoutes();
-        when(selfPaymentsService.getSelfPaymentsFromChannel(CHANNEL_ID, DEFAULT_MAX_AGE)).thenReturn(List.of(
-                new SelfPayment(payment, getSettledInvoice(memo, 0))
-        ));
-        SoftAssertions softly = new SoftAssertions();
-        softly.assertThat(rebalanceService.getSourceCostsForChannel(CHANNEL_ID)).isEqualTo(Coins.ofMilliSatoshis(10));
-        softly.assertThat(rebalanceService.getSourceCostsForChannel(CHANNEL_ID_2)).isEqualTo(Coins.NONE);
-        softly.assertAll();
+    void isRebalanceFromChannel_id_not_in_memo() {
+        SelfPayment selfPayment = getSelfPayment("something", 0);
+        assertThat(RebalanceService.isRebalanceFromChannel(selfPayment, CHANNEL_ID)).isFalse();
     }
 
     @Test
-    void two_different_source_channels_memo_mentions_one_of_the_last_hops() {
-        String memo = "x" + CHANNEL_ID_4.getShortChannelId();
-        Payment payment = mockMppWithTwoRoutes();
-        when(selfPaymentsService.getSelfPaymentsToChannel(CHANNEL_ID_3, DEFAULT_MAX_AGE)).thenReturn(List.of());
-        when(selfPaymentsService.getSelfPaymentsToChannel(CHANNEL_ID_4, DEFAULT_MAX_AGE)).thenReturn(List.of(
-                new SelfPayment(payment, getSettledInvoice(memo, 0))
-        ));
+    void isRebalanceFromChannel_two_different_source_channels_memo_mentions_one_of_the_first_hops() {
+        String memo = "y" + CHANNEL_ID.getShortChannelId();
+        SelfPayment selfPayment = new SelfPayment(mockMppWithTwoRoutes(), getSettledInvoice(memo, 0));
         SoftAssertions softly = new SoftAssertions();
-        softly.assertThat(rebalanceService.getTargetCostsForChannel(CHANNEL_ID_3)).isEqualTo(Coins.NONE);
-        softly.assertThat(rebalanceService.getTargetCostsForChannel(CHANNEL_ID_4)).isEqualTo(Coins.ofMilliSatoshis(10));
+        softly.assertThat(RebalanceService.isRebalanceFromChannel(selfPayment, CHANNEL_ID)).isTrue();
+        softly.assertThat(RebalanceService.isRebalanceFromChannel(selfPayment, CHANNEL_ID_2)).isFalse();
         softly.assertAll();
     }
 
     @Test
-    void getSourceCostsForChannel_id_not_in_memo() {
-        mockSelfPaymentsFromChannel("something");
-        assertThat(rebalanceService.getSourceCostsForChannel(CHANNEL_ID)).isEqualTo(Coins.NONE);
-    }
-
-    @Test
-    void getTargetCostsForChannel_no_self_payments() {
-        assertThat(rebalanceService.getTargetCostsForChannel(CHANNEL_ID_2)).isEqualTo(Coins.NONE);
-    }
-
-    @Test
-    void getTargetCostsForChannel_short_channel_id_in_memo() {
-        mockSelfPaymentsToChannel("foo bar " + CHANNEL_ID_2.getShortChannelId() + "!");
-        assertThat(rebalanceService.getTargetCostsForChannel(CHANNEL_ID_2)).isEqualTo(FEE_FOR_TWO_REBALANCES);
-    }
-
-    @Test
-    void getTargetCostsForChannel_compact_channel_id_in_memo() {
-        mockSelfPaymentsToChannel("111" + CHANNEL_ID_2.getCompactForm() + "222");
-        assertThat(rebalanceService.getTargetCostsForChannel(CHANNEL_ID_2)).isEqualTo(FEE_FOR_TWO_REBALANCES);
-    }
-
-    @Test
-    void getTargetCostsForChannel_compact_lnd_channel_id_in_memo() {
-        mockSelfPaymentsToChannel(CHANNEL_ID_2.getCompactFormLnd());
-        assertThat(rebalanceService.getTargetCostsForChannel(CHANNEL_ID_2)).isEqualTo(FEE_FOR_TWO_REBALANCES);
-    }
-
-    @Test
-    void getTargetCostsForChannel_id_not_in_memo() {
-        mockSelfPaymentsToChannel("something");
-        assertThat(rebalanceService.getTargetCostsForChannel(CHANNEL_ID_2)).isEqualTo(FEE_FOR_TWO_REBALANCES);
-    }
-
-    @Test
-    void getTargetCostsForChannel_other_channel_id_in_memo() {
-        mockSelfPaymentsToChannel("rebalance to " + CHANNEL_ID_3);
-        assertThat(rebalanceService.getTargetCostsForChannel(CHANNEL_ID_2)).isEqualTo(FEE_FOR_TWO_REBALANCES);
-    }
-
-    @Test
-    void getTargetCostsForChannel_source_channel_id_in_memo() {
-        mockSelfPaymentsToChannel("something: " + CHANNEL_ID);
-        assertThat(rebalanceService.getTargetCostsForChannel(CHANNEL_ID_2)).isEqualTo(Coins.NONE);
+    void isRebalanceToChannel_two_different_source_channels_memo_mentions_one_of_the_last_hops() {
+        String memo = "x" + CHANNEL_ID_4.getShortChannelId();
+        SelfPayment selfPayment = new SelfPayment(mockMppWithTwoRoutes(), getSettledInvoice(memo, 0));
+        assertThat(RebalanceService.isRebalanceToChannel(selfPayment)).isTrue();
     }
 
     @Test
-    void getSupportAsSourceAmountFromChannel() {
-        when(selfPaymentsService.getSelfPaymentsFromChannel(CHANNEL_ID, DEFAULT_MAX_AGE)).thenReturn(List.of(
-                getSelfPayment("out of " + CHANNEL_ID, 0),
-                getSelfPayment(String.valueOf(CHANNEL_ID), 1),
-                getSelfPayment("rebalancing " + CHANNEL_ID_2, 2)
-        ));
-        assertThat(rebalanceService.getSupportAsSourceAmountFromChannel(CHANNEL_ID)).isEqualTo(AMOUNT_PAID);
+    void isRebalanceToChannel_short_channel_id_in_memo() {
+        SelfPayment selfPayment = getSelfPayment("foo bar " + CHANNEL_ID_2.getShortChannelId() + "!", 0);
+        assertThat(RebalanceService.isRebalanceToChannel(selfPayment)).isTrue();
     }
 
     @Test
-    void getSupportAsSourceAmountFromChannel_with_max_age() {
-        Duration maxAge = Duration.ofDays(11);
-        when(selfPaymentsService.getSelfPaymentsFromChannel(CHANNEL_ID, maxAge)).thenReturn(List.of(
-                getSelfPayment("out of " + CHANNEL_ID, 0),
-                getSelfPayment("emptying " + CHANNEL_ID, 1),
-                getSelfPayment("rebalancing " + CHANNEL_ID_2, 2)
-        ));
-        assertThat(rebalanceService.getSupportAsSourceAmountFromChannel(CHANNEL_ID, maxAge)).isEqualTo(AMOUNT_PAID);
+    void isRebalanceToChannel_compact_channel_id_in_memo() {
+        SelfPayment selfPayment = getSelfPayment("111" + CHANNEL_ID_2.getCompactForm() + "222", 0);
+        assertThat(RebalanceService.isRebalanceToChannel(selfPayment)).isTrue();
     }
 
     @Test
-    void getSupportAsSourceCostsFromChannel() {
-        Duration maxAge = Duration.ofDays(11);
-        when(selfPaymentsService.getSelfPaymentsFromChannel(CHANNEL_ID, maxAge)).thenReturn(List.of(
-                getSelfPayment(String.valueOf(CHANNEL_ID_2), 2)
-        ));
-        assertThat(rebalanceService.getSupportAsSourceCostsFromChannel(CHANNEL_ID, maxAge)).isEqualTo(PAYMENT_FEES);
+    void isRebalanceToChannel_compact_lnd_channel_id_in_memo() {
+        SelfPayment selfPayment = getSelfPayment(CHANNEL_ID_2.getCompactFormLnd(), 0);
+        assertThat(RebalanceService.isRebalanceToChannel(selfPayment)).isTrue();
     }
 
     @Test
-    void getSupportAsSourceAmountFromPeer() {
-        mockSupportAsSourceForPeer();
-        assertThat(rebalanceService.getSupportAsSourceAmountFromPeer(PUBKEY)).isEqualTo(AMOUNT_PAID);
+    void isRebalanceToChannel_id_not_in_memo() {
+        SelfPayment selfPayment = getSelfPayment("something", 0);
+        assertThat(RebalanceService.isRebalanceToChannel(selfPayment)).isTrue();
     }
 
     @Test
-    void getSupportAsSourceAmountFromPeer_with_max_age() {
-        Duration maxAge = Duration.ofDays(12);
-        when(channelService.getAllChannelsWith(PUBKEY)).thenReturn(Set.of(CLOSED_CHANNEL));
-        when(selfPaymentsService.getSelfPaymentsFromChannel(CHANNEL_ID, maxAge)).thenReturn(List.of(
-                getSelfPayment("into some other channel", 0)
-        ));
-        assertThat(rebalanceService.getSupportAsSourceAmountFromPeer(PUBKEY, maxAge)).isEqualTo(AMOUNT_PAID);
+    void isRebalanceToChannel_other_channel_id_in_memo() {
+        SelfPayment selfPayment = getSelfPayment("rebalance to " + CHANNEL_ID_3, 0);
+        assertThat(RebalanceService.isRebalanceToChannel(selfPayment)).isTrue();
     }
 
     @Test
-    void getSupportAsTargetAmountToChannel() {
-        when(selfPaymentsService.getSelfPaymentsToChannel(CHANNEL_ID_2, DEFAULT_MAX_AGE)).thenReturn(List.of(
-                getSelfPayment("<<< " + CHANNEL_ID, 0),
-                getSelfPayment("into " + CHANNEL_ID_2, 1),
-                getSelfPayment("to " + CHANNEL_ID_2, 2)
-        ));
-        assertThat(rebalanceService.getSupportAsTargetAmountToChannel(CHANNEL_ID_2)).isEqualTo(AMOUNT_PAID);
+    void isRebalanceToChannel_source_channel_id_in_memo() {
+        SelfPayment selfPayment = getSelfPayment("something: " + CHANNEL_ID, 0);
+        assertThat(RebalanceService.isRebalanceToChannel(selfPayment)).isFalse();
     }
 
     @Test
-    void getSupportAsTargetAmountToChannel_with_max_age() {
-        Duration maxAge = Duration.ofDays(13);
-        when(selfPaymentsService.getSelfPaymentsToChannel(CHANNEL_ID_2, maxAge)).thenReturn(List.of(
-                getSelfPayment("emptying " + CHANNEL_ID, 0)
-        ));
-        assertThat(rebalanceService.getSupportAsTargetAmountToChannel(CHANNEL_ID_2, maxAge)).isEqualTo(AMOUNT_PAID);
-    }
-
-    @Test
-    void getSupportAsTargetAmountToPeer() {
-        mockSupportAsTargetForPeer();
-        assertThat(rebalanceService.getSupportAsTargetAmountToPeer(PUBKEY)).isEqualTo(AMOUNT_PAID);
-    }
-
-    @Test
-    void getSupportAsTargetAmountToPeer_with_max_age() {
-        Duration maxAge = Duration.ofDays(14);
-        when(channelService.getAllChannelsWith(PUBKEY)).thenReturn(Set.of(CLOSED_CHANNEL_2));
-        when(selfPaymentsService.getSelfPaymentsToChannel(CHANNEL_ID_2, maxAge)).thenReturn(List.of(
-                getSelfPayment("from " + CHANNEL_ID, 0)
-        ));
-        assertThat(rebalanceService.getSupportAsTargetAmountToPeer(PUBKEY, maxAge)).isEqualTo(AMOUNT_PAID);
-    }
-
-    @Test
-    void getTargetCostsForChannel_source_channel_not_known() {
+    void isRebalanceToChannel_source_channel_not_known() {
         List<PaymentRoute> noRoute = List.of(new PaymentRoute(Optional.empty(), Optional.empty()));
         Payment payment = new Payment(
                 PAYMENT_INDEX, PAYMENT_HASH, PAYMENT_CREATION, PAYMENT_VALUE, PAYMENT_FEES, noRoute
         );
-        SettledInvoice settledInvoice = getSettledInvoice("something", 0);
-        when(selfPaymentsService.getSelfPaymentsToChannel(CHANNEL_ID_2, DEFAULT_MAX_AGE))
-                .thenReturn(List.of(new SelfPayment(payment, settledInvoice)));
-        assertThat(rebalanceService.getTargetCostsForChannel(CHANNEL_ID_2)).isEqualTo(PAYMENT_FEES);
+        SelfPayment selfPayment = new SelfPayment(payment, getSettledInvoice("something", 0));
+        assertThat(RebalanceService.isRebalanceToChannel(selfPayment)).isTrue();
     }
 
-    private void mockSelfPaymentsFromChannel(String memo) {
-        when(selfPaymentsService.getSelfPaymentsFromChannel(CHANNEL_ID, DEFAULT_MAX_AGE)).thenReturn(List.of(
-                getSelfPayment(memo, 0),
-                getSelfPayment(memo, 1)
-        ));
-    }
-
-    private void mockSelfPaymentsToChannel(String memo) {
-        when(selfPaymentsService.getSelfPaymentsToChannel(CHANNEL_ID_2, DEFAULT_MAX_AGE)).thenReturn(List.of(
-                getSelfPayment(memo, 0),
-                getSelfPayment(memo, 1)
-        ));
+    private void mockAggregate(ChannelId channelId, Duration maxAge) {
+        when(channelAggregateEngine.getAggregate(channelId, maxAge))
+                .thenReturn(new ChannelAggregate(FlowReport.EMPTY, FeeReport.EMPTY, REPORT));
     }
 
     private SelfPayment getSelfPayment(String memo, int offset) {
@@ -592,22 +499,22 @@ class RebalanceServiceTest {
         when(selfPaymentsService.getSelfPaymentsFromChannel(id2, DEFAULT_MAX_AGE)).thenReturn(List.of(selfPayment2));
     }
 
-    private void mockSupportAsSourceForPeer() {
+    private void mockSupportAsSourceForPeer(Duration maxAge) {
         when(channelService.getAllChannelsWith(PUBKEY)).thenReturn(Set.of(CLOSED_CHANNEL));
-        when(selfPaymentsService.getSelfPaymentsFromChannel(CHANNEL_ID, DEFAULT_MAX_AGE)).thenReturn(List.of(
-                getSelfPayment("from " + CHANNEL_ID, 0),
-                getSelfPayment("from: " + CHANNEL_ID, 1),
-                getSelfPayment("to: " + CHANNEL_ID_2, 2)
-        ));
+        RebalanceReport report = new RebalanceReport(
+                Coins.NONE, Coins.NONE, Coins.NONE, Coins.NONE, AMOUNT_PAID, Coins.NONE
+        );
+        when(channelAggregateEngine.getAggregate(CHANNEL_ID, maxAge))
+                .thenReturn(new ChannelAggregate(FlowReport.EMPTY, FeeReport.EMPTY, report));
     }
 
-    private void mockSupportAsTargetForPeer() {
+    private void mockSupportAsTargetForPeer(Duration maxAge) {
         when(channelService.getAllChannelsWith(PUBKEY)).thenReturn(Set.of(CLOSED_CHANNEL_2));
-        when(selfPaymentsService.getSelfPaymentsToChannel(CHANNEL_ID_2, DEFAULT_MAX_AGE)).thenReturn(List.of(
-                getSelfPayment("from " + CHANNEL_ID, 0),
-                getSelfPayment("to " + CHANNEL_ID_2, 1),
-                getSelfPayment("to " + CHANNEL_ID_2, 2)
-        ));
+        RebalanceReport report = new RebalanceReport(
+                Coins.NONE, Coins.NONE, Coins.NONE, Coins.NONE, Coins.NONE, AMOUNT_PAID
+        );
+        when(channelAggregateEngine.getAggregate(CHANNEL_ID_2, maxAge))
+                .thenReturn(new ChannelAggregate(FlowReport.EMPTY, FeeReport.EMPTY, report));
     }
 
     private Payment mockMppWithTwoRoutes() {
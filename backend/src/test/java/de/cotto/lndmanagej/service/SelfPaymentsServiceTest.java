@@ -1,5 +1,6 @@
 package de.cotto.lndmanagej.service;
 
+import de.cotto.lndmanagej.model.ChannelId;
 import de.cotto.lndmanagej.selfpayments.SelfPaymentsDao;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -32,6 +33,7 @@ import static org.mockito.Mockito.when;
 @ExtendWith(MockitoExtension.class)
 class SelfPaymentsServiceTest {
     private static final Duration DEFAULT_MAX_AGE = Duration.ofDays(365 * 1_000);
+    private static final ChannelId OLD_CHANNEL_ID = ChannelId.fromCompactForm("500000x1x1");
 
     @InjectMocks
     private SelfPaymentsService selfPaymentsService;
@@ -45,6 +47,9 @@ class SelfPaymentsServiceTest {
     @Mock
     private OwnNodeService ownNodeService;
 
+    @Mock
+    private HistoryService historyService;
+
     @Test
     void getSelfPaymentsFromChannel() {
         when(selfPaymentsDao.getSelfPaymentsFromChannel(CHANNEL_ID, DEFAULT_MAX_AGE)).thenReturn(List.of(SELF_PAYMENT));
@@ -84,6 +89,18 @@ class SelfPaymentsServiceTest {
         verify(selfPaymentsDao, never()).getSelfPaymentsFromChannel(any(), any());
     }
 
+    @Test
+    void getSelfPaymentsFromChannel_closed_restricts_full_history_to_max_age() {
+        when(channelService.getClosedChannel(OLD_CHANNEL_ID)).thenReturn(Optional.of(CLOSED_CHANNEL));
+        when(historyService.isCaughtUp()).thenReturn(true);
+        when(ownNodeService.getBlockHeight()).thenReturn(1_000 + CLOSED_CHANNEL.getCloseHeight());
+        when(selfPaymentsDao.getSelfPaymentsFromChannel(OLD_CHANNEL_ID, DEFAULT_MAX_AGE))
+                .thenReturn(List.of(SELF_PAYMENT));
+        assertThat(selfPaymentsService.getSelfPaymentsFromChannel(OLD_CHANNEL_ID, Duration.ofDays(10))).isEmpty();
+        assertThat(selfPaymentsService.getSelfPaymentsFromChannel(OLD_CHANNEL_ID)).containsExactly(SELF_PAYMENT);
+        verify(selfPaymentsDao).getSelfPaymentsFromChannel(OLD_CHANNEL_ID, DEFAULT_MAX_AGE);
+    }
+
     @Test
     void getSelfPaymentsFromChannel_no_duplicates() {
         when(selfPaymentsDao.getSelfPaymentsFromChannel(CHANNEL_ID, DEFAULT_MAX_AGE))
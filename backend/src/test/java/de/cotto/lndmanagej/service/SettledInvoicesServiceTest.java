@@ -71,4 +71,11 @@ class SettledInvoicesServiceTest {
         assertThat(settledInvoicesService.getAmountReceivedViaChannelWithoutSelfPayments(CHANNEL_ID, MAX_AGE))
                 .isEqualTo(oneMilliSatoshi);
     }
+
+    @Test
+    void getInvoicesReceivedViaChannelWithoutSelfPayments() {
+        when(dao.getInvoicesWithoutSelfPaymentsPaidVia(CHANNEL_ID, MAX_AGE)).thenReturn(List.of(SETTLED_INVOICE));
+        assertThat(settledInvoicesService.getInvoicesReceivedViaChannelWithoutSelfPayments(CHANNEL_ID, MAX_AGE))
+                .containsExactly(SETTLED_INVOICE);
+    }
 }
@@ -9,6 +9,7 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.stream.Stream;
 
 import static de.cotto.lndmanagej.balances.BalancesFixtures.BALANCES;
 import static de.cotto.lndmanagej.balances.BalancesFixtures.BALANCES_OLD;
@@ -20,7 +21,6 @@ import static de.cotto.lndmanagej.model.BalanceInformationFixtures.REMOTE_RESERV
 import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID;
 import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID_2;
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.assertj.core.api.Assumptions.assumeThat;
 
 @DataJpaTest
 class BalancesRepositoryIT {
@@ -64,90 +64,69 @@ class BalancesRepositoryIT {
     }
 
     @Test
-    void minimum_empty() {
-        assertThat(repository.findTopByChannelIdAndTimestampAfterOrderByLocalBalance(
-                CHANNEL_ID.getShortChannelId(),
-                14
+    void findTopByChannelIdAndTimestampLessThanEqualOrderByTimestampDesc_empty() {
+        assertThat(repository.findTopByChannelIdAndTimestampLessThanEqualOrderByTimestampDesc(
+                SHORT_ID,
+                epochSecond(BALANCES)
         )).isEmpty();
     }
 
     @Test
-    void minimum() {
-        assumeThat(localBalance(BALANCES) < localBalance(BALANCES_OLD)).isTrue();
+    void findTopByChannelIdAndTimestampLessThanEqualOrderByTimestampDesc() {
         repository.save(BalancesJpaDto.fromModel(BALANCES));
         repository.save(BalancesJpaDto.fromModel(BALANCES_OLD));
-        assertThat(repository.findTopByChannelIdAndTimestampAfterOrderByLocalBalance(
-                CHANNEL_ID.getShortChannelId(),
-                14
-        )).map(BalancesJpaDto::toModel)
-                .map(Balances::balanceInformation)
-                .map(BalanceInformation::localBalance)
-                .contains(BALANCES.balanceInformation().localBalance());
+        assertThat(repository.findTopByChannelIdAndTimestampLessThanEqualOrderByTimestampDesc(
+                SHORT_ID,
+                epochSecond(BALANCES)
+        )).map(BalancesJpaDto::toModel).contains(BALANCES);
     }
 
     @Test
-    void minimum_too_old() {
-        LocalDateTime now = TIMESTAMP;
-        Balances balancesMoreThanMinimum = createBalances(LOCAL_BALANCE.add(Coins.ofSatoshis(1)), now);
-        Balances balancesMinimumButOld = createBalances(LOCAL_BALANCE, now.minusDays(1));
-        long timestamp = balancesMinimumButOld.timestamp().toEpochSecond(ZoneOffset.UTC);
-
-        repository.save(BalancesJpaDto.fromModel(balancesMinimumButOld));
-        repository.save(BalancesJpaDto.fromModel(balancesMoreThanMinimum));
-        assertThat(repository.findTopByChannelIdAndTimestampAfterOrderByLocalBalance(SHORT_ID, timestamp))
-                .map(BalancesJpaDto::toModel)
-                .map(Balances::balanceInformation)
-                .map(BalanceInformation::localBalance)
-                .contains(balancesMoreThanMinimum.balanceInformation().localBalance());
-    }
-
-    @Test
-    void maximum_empty() {
-        assertThat(repository.findTopByChannelIdAndTimestampAfterOrderByLocalBalanceDesc(SHORT_ID, 14))
-                .isEmpty();
-    }
-
-    @Test
-    void maximum() {
-        assumeThat(localBalance(BALANCES_OLD) > localBalance(BALANCES)).isTrue();
+    void findTopByChannelIdAndTimestampLessThanEqualOrderByTimestampDesc_ignores_newer() {
         repository.save(BalancesJpaDto.fromModel(BALANCES));
         repository.save(BalancesJpaDto.fromModel(BALANCES_OLD));
-        assertThat(repository.findTopByChannelIdAndTimestampAfterOrderByLocalBalanceDesc(SHORT_ID, 14))
-                .map(BalancesJpaDto::toModel)
-                .map(Balances::balanceInformation)
-                .map(BalanceInformation::localBalance)
-                .contains(BALANCES_OLD.balanceInformation().localBalance());
+        assertThat(repository.findTopByChannelIdAndTimestampLessThanEqualOrderByTimestampDesc(
+                SHORT_ID,
+                epochSecond(BALANCES_OLD)
+        )).map(BalancesJpaDto::toModel).contains(BALANCES_OLD);
     }
 
     @Test
-    void maximum_too_old() {
-        LocalDateTime now = TIMESTAMP;
-        Balances balancesLessThanMaximum = createBalances(LOCAL_BALANCE.subtract(Coins.ofSatoshis(1)), now);
-        Balances balancesMaximumButOld = createBalances(LOCAL_BALANCE, now.minusDays(1));
-        long timestamp = balancesMaximumButOld.timestamp().toEpochSecond(ZoneOffset.UTC);
-
-        repository.save(BalancesJpaDto.fromModel(balancesMaximumButOld));
-        repository.save(BalancesJpaDto.fromModel(balancesLessThanMaximum));
-        assertThat(repository.findTopByChannelIdAndTimestampAfterOrderByLocalBalance(SHORT_ID, timestamp))
-                .map(BalancesJpaDto::toModel)
-                .map(Balances::balanceInformation)
-                .map(BalanceInformation::localBalance)
-                .contains(balancesLessThanMaximum.balanceInformation().localBalance());
+    void findByChannelIdAndTimestampGreaterThanAndTimestampLessThanOrderByTimestamp() {
+        Balances balancesNew = createBalances(LOCAL_BALANCE, TIMESTAMP.plusSeconds(1));
+        repository.save(BalancesJpaDto.fromModel(balancesNew));
+        repository.save(BalancesJpaDto.fromModel(BALANCES));
+        repository.save(BalancesJpaDto.fromModel(BALANCES_OLD));
+        assertThat(repository.findByChannelIdAndTimestampGreaterThanAndTimestampLessThanOrderByTimestamp(
+                SHORT_ID,
+                epochSecond(BALANCES_OLD),
+                epochSecond(balancesNew)
+        )).map(BalancesJpaDto::toModel).containsExactly(BALANCES);
     }
 
     @Test
-    void findByChannelIdOrderByTimestampDesc_empty() {
-        assertThat(repository.findByChannelIdOrderByTimestampDesc(SHORT_ID)).isEmpty();
+    void findByChannelIdAndTimestampGreaterThanEqualOrderByTimestamp() {
+        Balances balancesNew = createBalances(LOCAL_BALANCE, TIMESTAMP.plusSeconds(1));
+        repository.save(BalancesJpaDto.fromModel(balancesNew));
+        repository.save(BalancesJpaDto.fromModel(BALANCES));
+        repository.save(BalancesJpaDto.fromModel(BALANCES_OLD));
+        try (Stream<BalancesJpaDto> stream = repository.findByChannelIdAndTimestampGreaterThanEqualOrderByTimestamp(
+                SHORT_ID,
+                epochSecond(BALANCES)
+        )) {
+            assertThat(stream.map(BalancesJpaDto::toModel)).containsExactly(BALANCES, balancesNew);
+        }
     }
 
     @Test
-    void findByChannelIdOrderByTimestampDesc() {
-        assumeThat(localBalance(BALANCES_OLD) > localBalance(BALANCES)).isTrue();
+    void findByChannelIdAndTimestampGreaterThanEqualOrderByTimestamp_wrong_channel() {
         repository.save(BalancesJpaDto.fromModel(BALANCES));
-        repository.save(BalancesJpaDto.fromModel(BALANCES_OLD));
-        assertThat(repository.findByChannelIdOrderByTimestampDesc(SHORT_ID))
-                .map(BalancesJpaDto::toModel)
-                .containsExactly(BALANCES, BALANCES_OLD);
+        try (Stream<BalancesJpaDto> stream = repository.findByChannelIdAndTimestampGreaterThanEqualOrderByTimestamp(
+                CHANNEL_ID_2.getShortChannelId(),
+                0
+        )) {
+            assertThat(stream).isEmpty();
+        }
     }
 
     private Balances createBalances(Coins localBalance, LocalDateTime timestamp) {
@@ -156,7 +135,7 @@ class BalancesRepositoryIT {
         return new Balances(timestamp, CHANNEL_ID, balanceInformation);
     }
 
-    private long localBalance(Balances balances) {
-        return balances.balanceInformation().localBalance().milliSatoshis();
+    private long epochSecond(Balances balances) {
+        return balances.timestamp().toEpochSecond(ZoneOffset.UTC);
     }
 }
@@ -0,0 +1,40 @@
+package de.cotto.lndmanagej.balances.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID;
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID_2;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class BalancesRollupRepositoryIT {
+    private static final long SHORT_ID = CHANNEL_ID.getShortChannelId();
+    private static final long HOUR = 3_600;
+    private static final long DAY = 24 * HOUR;
+
+    @Autowired
+    private BalancesRollupRepository repository;
+
+    @Test
+    void save() {
+        repository.save(new BalancesRollupJpaDto(SHORT_ID, HOUR, 0));
+        assertThat(repository.findById(new BalancesRollupId(SHORT_ID, HOUR, 0))).isPresent();
+    }
+
+    @Test
+    void findByChannelIdAndBucketSecondsAndBucketStartGreaterThanEqualAndBucketStartLessThan() {
+        repository.save(new BalancesRollupJpaDto(SHORT_ID, HOUR, 0));
+        repository.save(new BalancesRollupJpaDto(SHORT_ID, HOUR, HOUR));
+        repository.save(new BalancesRollupJpaDto(SHORT_ID, HOUR, 2 * HOUR));
+        repository.save(new BalancesRollupJpaDto(SHORT_ID, DAY, 0));
+        repository.save(new BalancesRollupJpaDto(CHANNEL_ID_2.getShortChannelId(), HOUR, HOUR));
+        assertThat(repository.findByChannelIdAndBucketSecondsAndBucketStartGreaterThanEqualAndBucketStartLessThan(
+                SHORT_ID,
+                HOUR,
+                HOUR,
+                2 * HOUR
+        )).map(BalancesRollupJpaDto::getBucketStart).containsExactly(HOUR);
+    }
+}
@@ -11,6 +11,8 @@ public interface BalancesDao {
 
     Optional<Balances> getMostRecentBalances(ChannelId channelId);
 
+    void updateRollups(ChannelId channelId);
+
     Optional<Coins> getLocalBalanceMinimum(ChannelId channelId, int days);
 
     Optional<Coins> getLocalBalanceMaximum(ChannelId channelId, int days);
@@ -0,0 +1,73 @@
+package de.cotto.lndmanagej.balances.persistence;
+
+import de.cotto.lndmanagej.model.Coins;
+import de.cotto.lndmanagej.model.CoinsAndDuration;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Combines raw balances and rollups into the minimum, maximum and time-weighted average of the local balance.
+ */
+final class BalanceStatistics {
+    private long entries;
+    private long minimum;
+    private long maximum;
+    private long localBalanceSeconds;
+    private long coveredSeconds;
+
+    BalanceStatistics() {
+        // default constructor
+    }
+
+    void addEntry(long localBalance) {
+        if (entries == 0) {
+            minimum = localBalance;
+            maximum = localBalance;
+        } else {
+            minimum = Math.min(minimum, localBalance);
+            maximum = Math.max(maximum, localBalance);
+        }
+        entries++;
+    }
+
+    void addInterval(long localBalance, long seconds) {
+        if (seconds <= 0) {
+            return;
+        }
+        localBalanceSeconds += localBalance * seconds;
+        coveredSeconds += seconds;
+    }
+
+    void addRollup(BalancesRollupJpaDto rollup) {
+        if (rollup.getEntries() > 0) {
+            addEntry(rollup.getMinLocalBalance());
+            addEntry(rollup.getMaxLocalBalance());
+        }
+        localBalanceSeconds += rollup.getLocalBalanceSeconds();
+        coveredSeconds += rollup.getCoveredSeconds();
+    }
+
+    Optional<Coins> getMinimum() {
+        if (entries == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(Coins.ofSatoshis(minimum));
+    }
+
+    Optional<Coins> getMaximum() {
+        if (entries == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(Coins.ofSatoshis(maximum));
+    }
+
+    Optional<CoinsAndDuration> getAverage() {
+        long minutes = coveredSeconds / 60;
+        if (minutes == 0) {
+            return Optional.empty();
+        }
+        Coins average = Coins.ofSatoshis(localBalanceSeconds / coveredSeconds);
+        return Optional.of(new CoinsAndDuration(average, Duration.ofMinutes(minutes)));
+    }
+}
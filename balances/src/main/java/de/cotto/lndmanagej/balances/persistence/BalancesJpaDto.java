@@ -51,7 +51,7 @@ public class BalancesJpaDto {
                 Coins.ofSatoshis(remoteReserved)
         );
         LocalDateTime timestamp = LocalDateTime.ofEpochSecond(this.timestamp, 0, ZoneOffset.UTC);
-        return new Balances(timestamp, ChannelId.fromShortChannelId(channelId), balanceInformation);
+        return new Balances(timestamp, ChannelId.ofOwnChannel(channelId), balanceInformation);
     }
 
     @VisibleForTesting
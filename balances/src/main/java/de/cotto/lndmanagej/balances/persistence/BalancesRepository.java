@@ -2,15 +2,23 @@ package de.cotto.lndmanagej.balances.persistence;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.stream.Stream;
 
 public interface BalancesRepository extends JpaRepository<BalancesJpaDto, String> {
     Optional<BalancesJpaDto> findTopByChannelIdOrderByTimestampDesc(long channelId);
 
-    Optional<BalancesJpaDto> findTopByChannelIdAndTimestampAfterOrderByLocalBalance(long channelId, long timestamp);
+    Optional<BalancesJpaDto> findTopByChannelIdAndTimestampLessThanEqualOrderByTimestampDesc(
+            long channelId,
+            long timestamp
+    );
 
-    Optional<BalancesJpaDto> findTopByChannelIdAndTimestampAfterOrderByLocalBalanceDesc(long channelId, long timestamp);
+    List<BalancesJpaDto> findByChannelIdAndTimestampGreaterThanAndTimestampLessThanOrderByTimestamp(
+            long channelId,
+            long after,
+            long before
+    );
 
-    Stream<BalancesJpaDto> findByChannelIdOrderByTimestampDesc(long channelId);
+    Stream<BalancesJpaDto> findByChannelIdAndTimestampGreaterThanEqualOrderByTimestamp(long channelId, long timestamp);
 }
@@ -0,0 +1,44 @@
+package de.cotto.lndmanagej.balances.persistence;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Objects;
+
+@SuppressWarnings("unused")
+public final class BalancesRollupId implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 0L;
+
+    private long channelId;
+
+    private long bucketSeconds;
+
+    private long bucketStart;
+
+    public BalancesRollupId() {
+        // for JPA
+    }
+
+    public BalancesRollupId(long channelId, long bucketSeconds, long bucketStart) {
+        this.channelId = channelId;
+        this.bucketSeconds = bucketSeconds;
+        this.bucketStart = bucketStart;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (other == null || getClass() != other.getClass()) {
+            return false;
+        }
+        BalancesRollupId that = (BalancesRollupId) other;
+        return channelId == that.channelId && bucketSeconds == that.bucketSeconds && bucketStart == that.bucketStart;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(channelId, bucketSeconds, bucketStart);
+    }
+}
@@ -0,0 +1,89 @@
+package de.cotto.lndmanagej.balances.persistence;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+
+/**
+ * Aggregated local balance information for a channel and a time bucket (one hour or one day, starting at the given
+ * epoch second). The minimum and maximum are based on the balances recorded within the bucket, the time-weighted sum
+ * is based on the time spans (of balances that have been replaced by a more recent balance) within the bucket.
+ */
+@Entity
+@IdClass(BalancesRollupId.class)
+@Table(name = "balances_rollups")
+public class BalancesRollupJpaDto {
+    @Id
+    private long channelId;
+
+    @Id
+    private long bucketSeconds;
+
+    @Id
+    private long bucketStart;
+
+    private long entries;
+    private long minLocalBalance;
+    private long maxLocalBalance;
+    private long localBalanceSeconds;
+    private long coveredSeconds;
+
+    public BalancesRollupJpaDto() {
+        // for JPA
+    }
+
+    public BalancesRollupJpaDto(long channelId, long bucketSeconds, long bucketStart) {
+        this.channelId = channelId;
+        this.bucketSeconds = bucketSeconds;
+        this.bucketStart = bucketStart;
+    }
+
+    public void addEntry(long localBalance) {
+        if (entries == 0) {
+            minLocalBalance = localBalance;
+            maxLocalBalance = localBalance;
+        } else {
+            minLocalBalance = Math.min(minLocalBalance, localBalance);
+            maxLocalBalance = Math.max(maxLocalBalance, localBalance);
+        }
+        entries++;
+    }
+
+    public void addInterval(long localBalance, long seconds) {
+        localBalanceSeconds += localBalance * seconds;
+        coveredSeconds += seconds;
+    }
+
+    public long getChannelId() {
+        return channelId;
+    }
+
+    public long getBucketSeconds() {
+        return bucketSeconds;
+    }
+
+    public long getBucketStart() {
+        return bucketStart;
+    }
+
+    public long getEntries() {
+        return entries;
+    }
+
+    public long getMinLocalBalance() {
+        return minLocalBalance;
+    }
+
+    public long getMaxLocalBalance() {
+        return maxLocalBalance;
+    }
+
+    public long getLocalBalanceSeconds() {
+        return localBalanceSeconds;
+    }
+
+    public long getCoveredSeconds() {
+        return coveredSeconds;
+    }
+}
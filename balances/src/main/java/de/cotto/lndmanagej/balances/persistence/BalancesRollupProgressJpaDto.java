@@ -0,0 +1,35 @@
+package de.cotto.lndmanagej.balances.persistence;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * The timestamp of the most recent balance of a channel that is considered in the rollups. The time span starting at
+ * this timestamp is not part of the rollups, yet.
+ */
+@Entity
+@Table(name = "balances_rollups_progress")
+public class BalancesRollupProgressJpaDto {
+    @Id
+    private long channelId;
+
+    private long timestamp;
+
+    public BalancesRollupProgressJpaDto() {
+        // for JPA
+    }
+
+    public BalancesRollupProgressJpaDto(long channelId, long timestamp) {
+        this.channelId = channelId;
+        this.timestamp = timestamp;
+    }
+
+    public long getChannelId() {
+        return channelId;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+}
@@ -0,0 +1,6 @@
+package de.cotto.lndmanagej.balances.persistence;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface BalancesRollupProgressRepository extends JpaRepository<BalancesRollupProgressJpaDto, Long> {
+}
@@ -0,0 +1,14 @@
+package de.cotto.lndmanagej.balances.persistence;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface BalancesRollupRepository extends JpaRepository<BalancesRollupJpaDto, BalancesRollupId> {
+    List<BalancesRollupJpaDto> findByChannelIdAndBucketSecondsAndBucketStartGreaterThanEqualAndBucketStartLessThan(
+            long channelId,
+            long bucketSeconds,
+            long from,
+            long to
+    );
+}
@@ -0,0 +1,230 @@
+package de.cotto.lndmanagej.balances.persistence;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Maintains hourly and daily rollups of the local balance of each channel, and computes balance statistics based on
+ * these rollups.
+ * <p>
+ * A balance is only added to the rollups once a more recent balance is known (i.e. once the time span of the balance is
+ * known). The daily rollups cover every day, the hourly rollups only cover days where at least one balance was
+ * recorded. On other days the local balance did not change, so that the hourly values can be derived from the daily
+ * rollup.
+ * <p>
+ * Statistics for a time window are computed based on the raw balances for the (partial) first hour of the window, the
+ * hourly rollups for the remaining hours of the first and last day, the daily rollups for the days in between, and the
+ * raw balances that are not part of the rollups, yet (usually only the most recent balance). As such, the number of
+ * rows read does not depend on the age of the channel.
+ */
+@Component
+class BalancesRollups {
+    static final long HOUR = 60 * 60;
+    static final long DAY = 24 * HOUR;
+
+    private final BalancesRepository balancesRepository;
+    private final BalancesRollupRepository rollupRepository;
+    private final BalancesRollupProgressRepository progressRepository;
+
+    public BalancesRollups(
+            BalancesRepository balancesRepository,
+            BalancesRollupRepository rollupRepository,
+            BalancesRollupProgressRepository progressRepository
+    ) {
+        this.balancesRepository = balancesRepository;
+        this.rollupRepository = rollupRepository;
+        this.progressRepository = progressRepository;
+    }
+
+    /**
+     * Adds all balances of the given channel that were replaced by a more recent balance, and that are not part of the
+     * rollups, yet. For channels without rollups, this adds the whole history.
+     */
+    public void update(long channelId) {
+        long progress = getProgress(channelId);
+        Map<BalancesRollupId, BalancesRollupJpaDto> rollups = new LinkedHashMap<>();
+        BalancesJpaDto previous = null;
+        try (Stream<BalancesJpaDto> stream = balancesRepository
+                .findByChannelIdAndTimestampGreaterThanEqualOrderByTimestamp(channelId, progress)) {
+            Iterator<BalancesJpaDto> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                BalancesJpaDto balances = iterator.next();
+                if (previous != null) {
+                    addToRollups(previous, balances.getTimestamp(), rollups);
+                }
+                previous = balances;
+            }
+        }
+        if (previous == null || previous.getTimestamp() == progress) {
+            return;
+        }
+        rollupRepository.saveAll(rollups.values());
+        progressRepository.save(new BalancesRollupProgressJpaDto(channelId, previous.getTimestamp()));
+    }
+
+    /**
+     * Computes the statistics for the time window starting at the given epoch second (exclusive for the minimum and
+     * maximum) and ending at the given epoch second.
+     *
+     * @param includeMostRecent if false, the time span of the most recent balance is ignored (for closed channels)
+     */
+    public BalanceStatistics getStatistics(long channelId, long from, long until, boolean includeMostRecent) {
+        BalanceStatistics statistics = new BalanceStatistics();
+        long progress = getProgress(channelId);
+        long firstFullHour = Math.min(ceil(from, HOUR), until);
+        addRawBalances(statistics, channelId, from, from, Math.min(firstFullHour, progress), true);
+        addRollups(statistics, channelId, firstFullHour, until);
+        addRawBalances(statistics, channelId, from, Math.max(from, progress), until, includeMostRecent);
+        return statistics;
+    }
+
+    private long getProgress(long channelId) {
+        return progressRepository.findById(channelId)
+                .map(BalancesRollupProgressJpaDto::getTimestamp)
+                .orElse(Long.MIN_VALUE);
+    }
+
+    /**
+     * Adds the raw balances for the time span from start to end. Only balances recorded after the given epoch second
+     * are considered for the minimum and maximum.
+     *
+     * @param includeLast if false, the time span of the last balance is ignored
+     */
+    private void addRawBalances(
+            BalanceStatistics statistics,
+            long channelId,
+            long from,
+            long start,
+            long end,
+            boolean includeLast
+    ) {
+        if (start >= end) {
+            return;
+        }
+        Optional<BalancesJpaDto> active =
+                balancesRepository.findTopByChannelIdAndTimestampLessThanEqualOrderByTimestampDesc(channelId, start);
+        List<BalancesJpaDto> balances = Stream.concat(
+                active.stream(),
+                balancesRepository.findByChannelIdAndTimestampGreaterThanAndTimestampLessThanOrderByTimestamp(
+                        channelId,
+                        start,
+                        end
+                ).stream()
+        ).toList();
+        for (int i = 0; i < balances.size(); i++) {
+            BalancesJpaDto balance = balances.get(i);
+            if (balance.getTimestamp() > from) {
+                statistics.addEntry(balance.getLocalBalance());
+            }
+            boolean last = i == balances.size() - 1;
+            if (last && !includeLast) {
+                break;
+            }
+            long intervalStart = Math.max(balance.getTimestamp(), start);
+            long intervalEnd = last ? end : balances.get(i + 1).getTimestamp();
+            statistics.addInterval(balance.getLocalBalance(), intervalEnd - intervalStart);
+        }
+    }
+
+    private void addRollups(BalanceStatistics statistics, long channelId, long from, long until) {
+        if (from >= until) {
+            return;
+        }
+        long firstFullDay = ceil(from, DAY);
+        long lastDay = floor(until, DAY);
+        if (firstFullDay > lastDay) {
+            addHourlyRollups(statistics, channelId, from, until);
+            return;
+        }
+        addHourlyRollups(statistics, channelId, from, firstFullDay);
+        rollupRepository.findByChannelIdAndBucketSecondsAndBucketStartGreaterThanEqualAndBucketStartLessThan(
+                channelId,
+                DAY,
+                firstFullDay,
+                lastDay
+        ).forEach(statistics::addRollup);
+        addHourlyRollups(statistics, channelId, lastDay, until);
+    }
+
+    /**
+     * Adds the hourly rollups for the given time span, which must be within a single day.
+     */
+    private void addHourlyRollups(BalanceStatistics statistics, long channelId, long from, long until) {
+        if (from >= until) {
+            return;
+        }
+        List<BalancesRollupJpaDto> hourlyRollups =
+                rollupRepository.findByChannelIdAndBucketSecondsAndBucketStartGreaterThanEqualAndBucketStartLessThan(
+                        channelId,
+                        HOUR,
+                        from,
+                        until
+                );
+        if (!hourlyRollups.isEmpty()) {
+            hourlyRollups.forEach(statistics::addRollup);
+            return;
+        }
+        // no balance was recorded on this day, the balance did not change during the day
+        rollupRepository.findById(new BalancesRollupId(channelId, DAY, floor(from, DAY)))
+                .filter(dailyRollup -> dailyRollup.getCoveredSeconds() == DAY)
+                .ifPresent(dailyRollup -> statistics.addInterval(
+                        dailyRollup.getLocalBalanceSeconds() / DAY,
+                        until - from
+                ));
+    }
+
+    private void addToRollups(BalancesJpaDto balance, long end, Map<BalancesRollupId, BalancesRollupJpaDto> rollups) {
+        long channelId = balance.getChannelId();
+        long start = balance.getTimestamp();
+        long localBalance = balance.getLocalBalance();
+        getRollup(channelId, HOUR, floor(start, HOUR), rollups).addEntry(localBalance);
+        getRollup(channelId, DAY, floor(start, DAY), rollups).addEntry(localBalance);
+        addIntervals(channelId, DAY, start, end, localBalance, rollups);
+        long firstDay = floor(start, DAY);
+        long lastDay = floor(end, DAY);
+        addIntervals(channelId, HOUR, start, Math.min(end, firstDay + DAY), localBalance, rollups);
+        if (lastDay > firstDay) {
+            addIntervals(channelId, HOUR, lastDay, end, localBalance, rollups);
+        }
+    }
+
+    private void addIntervals(
+            long channelId,
+            long bucketSeconds,
+            long start,
+            long end,
+            long localBalance,
+            Map<BalancesRollupId, BalancesRollupJpaDto> rollups
+    ) {
+        for (long bucketStart = floor(start, bucketSeconds); bucketStart < end; bucketStart += bucketSeconds) {
+            long seconds = Math.min(end, bucketStart + bucketSeconds) - Math.max(start, bucketStart);
+            getRollup(channelId, bucketSeconds, bucketStart, rollups).addInterval(localBalance, seconds);
+        }
+    }
+
+    private BalancesRollupJpaDto getRollup(
+            long channelId,
+            long bucketSeconds,
+            long bucketStart,
+            Map<BalancesRollupId, BalancesRollupJpaDto> rollups
+    ) {
+        BalancesRollupId id = new BalancesRollupId(channelId, bucketSeconds, bucketStart);
+        return rollups.computeIfAbsent(id, key -> rollupRepository.findById(key)
+                .orElseGet(() -> new BalancesRollupJpaDto(channelId, bucketSeconds, bucketStart))
+        );
+    }
+
+    private static long floor(long epochSecond, long bucketSeconds) {
+        return Math.floorDiv(epochSecond, bucketSeconds) * bucketSeconds;
+    }
+
+    private static long ceil(long epochSecond, long bucketSeconds) {
+        return -Math.floorDiv(-epochSecond, bucketSeconds) * bucketSeconds;
+    }
+}
@@ -0,0 +1,110 @@
+package de.cotto.lndmanagej.balances.persistence;
+
+import de.cotto.lndmanagej.balances.Balances;
+import de.cotto.lndmanagej.model.BalanceInformation;
+import de.cotto.lndmanagej.model.ChannelId;
+import de.cotto.lndmanagej.model.Coins;
+import de.cotto.lndmanagej.timeseries.TimeSeriesEntry;
+import de.cotto.lndmanagej.timeseries.TimeSeriesStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Nullable;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Optionally stores the balances in an append-only time series file per channel instead of the database. This is
+ * enabled by configuring a directory using {@code lndmanagej.timeseries-directory}.
+ */
+@Component
+class BalancesTimeSeries {
+    private static final int LOCAL_BALANCE = 0;
+    private static final int LOCAL_RESERVED = 1;
+    private static final int REMOTE_BALANCE = 2;
+    private static final int REMOTE_RESERVED = 3;
+    private static final int VALUES = 4;
+
+    @Nullable
+    private final TimeSeriesStore store;
+
+    public BalancesTimeSeries(@Value("${lndmanagej.timeseries-directory:}") String directory) {
+        store = directory.isBlank() ? null : new TimeSeriesStore(Path.of(directory, "balances"), VALUES);
+    }
+
+    public boolean isEnabled() {
+        return store != null;
+    }
+
+    public void save(Balances balances) {
+        BalanceInformation balanceInformation = balances.balanceInformation();
+        getStore().append(
+                getKey(balances.channelId()),
+                balances.timestamp().toEpochSecond(ZoneOffset.UTC),
+                balanceInformation.localBalance().satoshis(),
+                balanceInformation.localReserve().satoshis(),
+                balanceInformation.remoteBalance().satoshis(),
+                balanceInformation.remoteReserve().satoshis()
+        );
+    }
+
+    public Optional<Balances> getMostRecentBalances(ChannelId channelId) {
+        return getStore().getLast(getKey(channelId)).map(entry -> toModel(channelId, entry));
+    }
+
+    /**
+     * Computes the statistics for the time window starting at the given epoch second (exclusive for the minimum and
+     * maximum) and ending at the given epoch second.
+     *
+     * @param includeMostRecent if false, the time span of the most recent balance is ignored (for closed channels)
+     */
+    public BalanceStatistics getStatistics(ChannelId channelId, long from, long until, boolean includeMostRecent) {
+        BalanceStatistics statistics = new BalanceStatistics();
+        String key = getKey(channelId);
+        List<TimeSeriesEntry> entries = Stream.concat(
+                getStore().getLastBefore(key, from + 1).stream(),
+                getStore().getEntries(key, from + 1, until).stream()
+        ).toList();
+        for (int i = 0; i < entries.size(); i++) {
+            TimeSeriesEntry entry = entries.get(i);
+            long localBalance = entry.getValue(LOCAL_BALANCE);
+            if (entry.getEpochSecond() > from) {
+                statistics.addEntry(localBalance);
+            }
+            boolean last = i == entries.size() - 1;
+            if (last && !includeMostRecent) {
+                break;
+            }
+            long intervalStart = Math.max(entry.getEpochSecond(), from);
+            long intervalEnd = last ? until : entries.get(i + 1).getEpochSecond();
+            statistics.addInterval(localBalance, intervalEnd - intervalStart);
+        }
+        return statistics;
+    }
+
+    private TimeSeriesStore getStore() {
+        if (store == null) {
+            throw new IllegalStateException("time series storage is not enabled");
+        }
+        return store;
+    }
+
+    private static String getKey(ChannelId channelId) {
+        return String.valueOf(channelId.getShortChannelId());
+    }
+
+    private static Balances toModel(ChannelId channelId, TimeSeriesEntry entry) {
+        BalanceInformation balanceInformation = new BalanceInformation(
+                Coins.ofSatoshis(entry.getValue(LOCAL_BALANCE)),
+                Coins.ofSatoshis(entry.getValue(LOCAL_RESERVED)),
+                Coins.ofSatoshis(entry.getValue(REMOTE_BALANCE)),
+                Coins.ofSatoshis(entry.getValue(REMOTE_RESERVED))
+        );
+        LocalDateTime timestamp = LocalDateTime.ofEpochSecond(entry.getEpochSecond(), 0, ZoneOffset.UTC);
+        return new Balances(timestamp, channelId, balanceInformation);
+    }
+}
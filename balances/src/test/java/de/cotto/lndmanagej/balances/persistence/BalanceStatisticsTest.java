@@ -0,0 +1,78 @@
+package de.cotto.lndmanagej.balances.persistence;
+
+import de.cotto.lndmanagej.model.Coins;
+import de.cotto.lndmanagej.model.CoinsAndDuration;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BalanceStatisticsTest {
+    private final BalanceStatistics statistics = new BalanceStatistics();
+
+    @Test
+    void empty() {
+        assertThat(statistics.getMinimum()).isEmpty();
+        assertThat(statistics.getMaximum()).isEmpty();
+        assertThat(statistics.getAverage()).isEmpty();
+    }
+
+    @Test
+    void minimum_and_maximum() {
+        statistics.addEntry(200);
+        statistics.addEntry(100);
+        statistics.addEntry(300);
+        assertThat(statistics.getMinimum()).contains(Coins.ofSatoshis(100));
+        assertThat(statistics.getMaximum()).contains(Coins.ofSatoshis(300));
+    }
+
+    @Test
+    void average_is_weighted_by_time() {
+        statistics.addInterval(100, 60);
+        statistics.addInterval(400, 120);
+        assertThat(statistics.getAverage())
+                .contains(new CoinsAndDuration(Coins.ofSatoshis(300), Duration.ofMinutes(3)));
+    }
+
+    @Test
+    void average_empty_for_less_than_one_minute() {
+        statistics.addInterval(100, 59);
+        assertThat(statistics.getAverage()).isEmpty();
+    }
+
+    @Test
+    void addInterval_ignores_empty_interval() {
+        statistics.addInterval(100, 60);
+        statistics.addInterval(1_000, 0);
+        statistics.addInterval(1_000, -10);
+        assertThat(statistics.getAverage())
+                .contains(new CoinsAndDuration(Coins.ofSatoshis(100), Duration.ofMinutes(1)));
+    }
+
+    @Test
+    void addRollup() {
+        BalancesRollupJpaDto rollup = new BalancesRollupJpaDto(CHANNEL_ID.getShortChannelId(), 3_600, 0);
+        rollup.addEntry(100);
+        rollup.addEntry(500);
+        rollup.addInterval(100, 1_800);
+        rollup.addInterval(500, 1_800);
+        statistics.addEntry(200);
+        statistics.addRollup(rollup);
+        assertThat(statistics.getMinimum()).contains(Coins.ofSatoshis(100));
+        assertThat(statistics.getMaximum()).contains(Coins.ofSatoshis(500));
+        assertThat(statistics.getAverage())
+                .contains(new CoinsAndDuration(Coins.ofSatoshis(300), Duration.ofMinutes(60)));
+    }
+
+    @Test
+    void addRollup_without_entries() {
+        BalancesRollupJpaDto rollup = new BalancesRollupJpaDto(CHANNEL_ID.getShortChannelId(), 3_600, 0);
+        rollup.addInterval(100, 3_600);
+        statistics.addRollup(rollup);
+        assertThat(statistics.getMinimum()).isEmpty();
+        assertThat(statistics.getAverage())
+                .contains(new CoinsAndDuration(Coins.ofSatoshis(100), Duration.ofMinutes(60)));
+    }
+}
@@ -1,9 +1,9 @@
 package de.cotto.lndmanagej.balances.persistence;
 
 import de.cotto.lndmanagej.balances.Balances;
-import de.cotto.lndmanagej.model.BalanceInformation;
 import de.cotto.lndmanagej.model.Coins;
 import de.cotto.lndmanagej.model.CoinsAndDuration;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -15,14 +15,10 @@ import java.time.Duration;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.Optional;
-import java.util.stream.Stream;
 
 import static de.cotto.lndmanagej.balances.BalancesFixtures.BALANCES;
 import static de.cotto.lndmanagej.balances.BalancesFixtures.TIMESTAMP;
 import static de.cotto.lndmanagej.model.BalanceInformationFixtures.BALANCE_INFORMATION;
-import static de.cotto.lndmanagej.model.BalanceInformationFixtures.LOCAL_RESERVE;
-import static de.cotto.lndmanagej.model.BalanceInformationFixtures.REMOTE_BALANCE;
-import static de.cotto.lndmanagej.model.BalanceInformationFixtures.REMOTE_RESERVE;
 import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.anyLong;
@@ -30,6 +26,7 @@ import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.longThat;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -38,9 +35,17 @@ class BalancesDaoImplTest {
     @InjectMocks
     private BalancesDaoImpl dao;
 
+    private static final int DAYS = 14;
+
     @Mock
     private BalancesRepository balancesRepository;
 
+    @Mock
+    private BalancesRollups balancesRollups;
+
+    @Mock
+    private BalancesTimeSeries balancesTimeSeries;
+
     @Test
     void saveStatistics() {
         dao.saveBalances(BALANCES);
@@ -75,133 +80,121 @@ class BalancesDaoImplTest {
         assertThat(dao.getMostRecentBalances(CHANNEL_ID)).contains(BALANCES);
     }
 
+    @Test
+    void updateRollups() {
+        dao.updateRollups(CHANNEL_ID);
+        verify(balancesRollups).update(CHANNEL_ID.getShortChannelId());
+    }
+
     @Test
     void getLocalBalanceMinimum_empty() {
-        assertThat(dao.getLocalBalanceMinimum(CHANNEL_ID, 7)).isEmpty();
+        mockStatistics(true, new BalanceStatistics());
+        assertThat(dao.getLocalBalanceMinimum(CHANNEL_ID, DAYS)).isEmpty();
     }
 
     @Test
     void getLocalBalanceMinimum() {
-        int days = 14;
-        Coins localBalance = Coins.ofSatoshis(456);
-        Balances balances = getWithLocalBalance(localBalance);
-        when(balancesRepository.findTopByChannelIdAndTimestampAfterOrderByLocalBalance(
-                eq(CHANNEL_ID.getShortChannelId()),
-                anyLong()
-        )).thenReturn(Optional.of(BalancesJpaDto.fromModel(balances)));
-        assertThat(dao.getLocalBalanceMinimum(CHANNEL_ID, days)).contains(localBalance);
-
-        long expectedTimestamp = ZonedDateTime.now(ZoneOffset.UTC).minusDays(days).toEpochSecond();
-        verify(balancesRepository).findTopByChannelIdAndTimestampAfterOrderByLocalBalance(anyLong(),
-                longThat(timestamp -> timestamp > 0.95 * expectedTimestamp && timestamp < 1.05 * expectedTimestamp)
-        );
+        mockStatistics(true, statistics());
+        assertThat(dao.getLocalBalanceMinimum(CHANNEL_ID, DAYS)).contains(Coins.ofSatoshis(100));
     }
 
     @Test
     void getLocalBalanceMaximum_empty() {
-        assertThat(dao.getLocalBalanceMaximum(CHANNEL_ID, 7)).isEmpty();
+        mockStatistics(true, new BalanceStatistics());
+        assertThat(dao.getLocalBalanceMaximum(CHANNEL_ID, DAYS)).isEmpty();
     }
 
     @Test
     void getLocalBalanceMaximum() {
-        int days = 14;
-        Coins localBalance = Coins.ofSatoshis(456);
-        Balances balances = getWithLocalBalance(localBalance);
-        when(balancesRepository.findTopByChannelIdAndTimestampAfterOrderByLocalBalanceDesc(
-                eq(CHANNEL_ID.getShortChannelId()),
-                anyLong()
-        )).thenReturn(Optional.of(BalancesJpaDto.fromModel(balances)));
-        assertThat(dao.getLocalBalanceMaximum(CHANNEL_ID, days)).contains(localBalance);
+        mockStatistics(true, statistics());
+        assertThat(dao.getLocalBalanceMaximum(CHANNEL_ID, DAYS)).contains(Coins.ofSatoshis(300));
+    }
 
-        long expectedTimestamp = ZonedDateTime.now(ZoneOffset.UTC).minusDays(days).toEpochSecond();
-        verify(balancesRepository).findTopByChannelIdAndTimestampAfterOrderByLocalBalanceDesc(anyLong(),
-                longThat(timestamp -> timestamp > 0.95 * expectedTimestamp && timestamp < 1.05 * expectedTimestamp)
-        );
+    @Test
+    void getLocalBalanceAverageOpenChannel_empty() {
+        mockStatistics(true, new BalanceStatistics());
+        assertThat(dao.getLocalBalanceAverageOpenChannel(CHANNEL_ID, DAYS)).isEmpty();
     }
 
-    @Nested
-    class GetLocalBalanceAverage {
+    @Test
+    void getLocalBalanceAverageOpenChannel() {
+        mockStatistics(true, statistics());
+        assertThat(dao.getLocalBalanceAverageOpenChannel(CHANNEL_ID, DAYS))
+                .contains(new CoinsAndDuration(Coins.ofSatoshis(200), Duration.ofMinutes(20)));
+    }
 
-        private static final int DAYS = 14;
+    @Test
+    void getLocalBalanceAverageClosedChannel() {
+        mockStatistics(false, statistics());
+        assertThat(dao.getLocalBalanceAverageClosedChannel(CHANNEL_ID, DAYS))
+                .contains(new CoinsAndDuration(Coins.ofSatoshis(200), Duration.ofMinutes(20)));
+    }
 
-        @Test
-        void empty() {
-            assertThat(dao.getLocalBalanceAverageOpenChannel(CHANNEL_ID, 1)).isEmpty();
-        }
+    @Test
+    void uses_time_window_of_given_number_of_days() {
+        long expectedUntil = ZonedDateTime.now(ZoneOffset.UTC).toEpochSecond();
+        long expectedFrom = expectedUntil - DAYS * 24 * 60 * 60;
+        mockStatistics(true, new BalanceStatistics());
+        dao.getLocalBalanceMinimum(CHANNEL_ID, DAYS);
+        verify(balancesRollups).getStatistics(
+                eq(CHANNEL_ID.getShortChannelId()),
+                longThat(from -> Math.abs(from - expectedFrom) < 60),
+                longThat(until -> Math.abs(until - expectedUntil) < 60),
+                eq(true)
+        );
+    }
 
-        @Test
-        void one_entry() {
-            Balances balances = getWithLocalBalance(Coins.ofSatoshis(100), 10);
-            CoinsAndDuration expected = new CoinsAndDuration(
-                    balances.balanceInformation().localBalance(),
-                    Duration.ofMinutes(10)
-            );
-            when(balancesRepository.findByChannelIdOrderByTimestampDesc(eq(CHANNEL_ID.getShortChannelId())))
-                    .thenReturn(Stream.of(BalancesJpaDto.fromModel(balances)));
-            assertThat(dao.getLocalBalanceAverageOpenChannel(CHANNEL_ID, DAYS)).contains(expected);
+    @Nested
+    class WithTimeSeries {
+        @BeforeEach
+        void setUp() {
+            when(balancesTimeSeries.isEnabled()).thenReturn(true);
         }
 
         @Test
-        void two_entries_same_duration() {
-            Balances balances1 = getWithLocalBalance(Coins.ofSatoshis(100), 10);
-            Balances balances2 = getWithLocalBalance(Coins.ofSatoshis(300), 20);
-            when(balancesRepository.findByChannelIdOrderByTimestampDesc(anyLong()))
-                    .thenReturn(Stream.of(BalancesJpaDto.fromModel(balances1), BalancesJpaDto.fromModel(balances2)));
-            CoinsAndDuration expected = new CoinsAndDuration(Coins.ofSatoshis(200), Duration.ofMinutes(20));
-            assertThat(dao.getLocalBalanceAverageOpenChannel(CHANNEL_ID, DAYS)).contains(expected);
+        void saveBalances() {
+            dao.saveBalances(BALANCES);
+            verify(balancesTimeSeries).save(BALANCES);
+            verifyNoInteractions(balancesRepository);
         }
 
         @Test
-        void one_old_entry() {
-            Balances balances = getWithLocalBalance(Coins.ofSatoshis(300), DAYS + 85 * 24 * 60);
-            when(balancesRepository.findByChannelIdOrderByTimestampDesc(anyLong()))
-                    .thenReturn(Stream.of(BalancesJpaDto.fromModel(balances)));
-            CoinsAndDuration expected = new CoinsAndDuration(
-                    balances.balanceInformation().localBalance(),
-                    Duration.ofMinutes(DAYS * 24 * 60)
-            );
-            assertThat(dao.getLocalBalanceAverageOpenChannel(CHANNEL_ID, DAYS)).contains(expected);
+        void getMostRecentBalances() {
+            when(balancesTimeSeries.getMostRecentBalances(CHANNEL_ID)).thenReturn(Optional.of(BALANCES));
+            assertThat(dao.getMostRecentBalances(CHANNEL_ID)).contains(BALANCES);
         }
 
         @Test
-        void two_entries_one_very_old() {
-            Balances balances1 = getWithLocalBalance(Coins.ofSatoshis(100), 7 * 24 * 60);
-            Balances balances2 = getWithLocalBalance(Coins.ofSatoshis(300), 99 * 24 * 60);
-            CoinsAndDuration expected = new CoinsAndDuration(
-                    Coins.ofSatoshis(199),
-                    Duration.ofMinutes(DAYS * 24 * 60 - 1)
-            );
-            when(balancesRepository.findByChannelIdOrderByTimestampDesc(anyLong()))
-                    .thenReturn(Stream.of(BalancesJpaDto.fromModel(balances1), BalancesJpaDto.fromModel(balances2)));
-            assertThat(dao.getLocalBalanceAverageOpenChannel(CHANNEL_ID, DAYS)).contains(expected);
+        void updateRollups() {
+            dao.updateRollups(CHANNEL_ID);
+            verifyNoInteractions(balancesRollups);
         }
 
         @Test
-        void old_entries_then_closed() {
-            Balances balances1 = getWithLocalBalance(Coins.ofSatoshis(1), 80);
-            Balances balances2 = getWithLocalBalance(Coins.ofSatoshis(1_000_000), 90);
-            Balances balances3 = getWithLocalBalance(Coins.ofSatoshis(2_000_000), 100);
-            CoinsAndDuration expected = new CoinsAndDuration(
-                    Coins.ofSatoshis(1_500_000),
-                    Duration.ofMinutes(100 - 80)
-            );
-            when(balancesRepository.findByChannelIdOrderByTimestampDesc(eq(CHANNEL_ID.getShortChannelId())))
-                    .thenReturn(Stream.of(
-                            BalancesJpaDto.fromModel(balances1),
-                            BalancesJpaDto.fromModel(balances2),
-                            BalancesJpaDto.fromModel(balances3)
-                    ));
-            assertThat(dao.getLocalBalanceAverageClosedChannel(CHANNEL_ID, DAYS)).contains(expected);
+        void getLocalBalanceAverageClosedChannel() {
+            when(balancesTimeSeries.getStatistics(eq(CHANNEL_ID), anyLong(), anyLong(), eq(false)))
+                    .thenReturn(statistics());
+            assertThat(dao.getLocalBalanceAverageClosedChannel(CHANNEL_ID, DAYS))
+                    .contains(new CoinsAndDuration(Coins.ofSatoshis(200), Duration.ofMinutes(20)));
+            verifyNoInteractions(balancesRollups);
         }
     }
 
-    private Balances getWithLocalBalance(Coins localBalance) {
-        return getWithLocalBalance(localBalance, 0);
+    private void mockStatistics(boolean includeMostRecent, BalanceStatistics statistics) {
+        when(balancesRollups.getStatistics(
+                eq(CHANNEL_ID.getShortChannelId()),
+                anyLong(),
+                anyLong(),
+                eq(includeMostRecent)
+        )).thenReturn(statistics);
     }
 
-    private Balances getWithLocalBalance(Coins localBalance, int ageInMinutes) {
-        BalanceInformation balanceInformation =
-                new BalanceInformation(localBalance, LOCAL_RESERVE, REMOTE_BALANCE, REMOTE_RESERVE);
-        return new Balances(TIMESTAMP.minusMinutes(ageInMinutes), CHANNEL_ID, balanceInformation);
+    private BalanceStatistics statistics() {
+        BalanceStatistics statistics = new BalanceStatistics();
+        statistics.addEntry(100);
+        statistics.addEntry(300);
+        statistics.addInterval(100, 600);
+        statistics.addInterval(300, 600);
+        return statistics;
     }
 }
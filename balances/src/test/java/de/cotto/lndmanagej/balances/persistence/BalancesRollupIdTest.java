@@ -0,0 +1,19 @@
+package de.cotto.lndmanagej.balances.persistence;
+
+import nl.jqno.equalsverifier.EqualsVerifier;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BalancesRollupIdTest {
+    @Test
+    void test_default_constructor() {
+        // required for JPA
+        assertThat(new BalancesRollupId()).isNotNull();
+    }
+
+    @Test
+    void testEquals() {
+        EqualsVerifier.simple().forClass(BalancesRollupId.class).usingGetClass().verify();
+    }
+}
@@ -0,0 +1,59 @@
+package de.cotto.lndmanagej.balances.persistence;
+
+import org.junit.jupiter.api.Test;
+
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BalancesRollupJpaDtoTest {
+    private static final long SHORT_ID = CHANNEL_ID.getShortChannelId();
+
+    private final BalancesRollupJpaDto rollup = new BalancesRollupJpaDto(SHORT_ID, 3_600, 7_200);
+
+    @Test
+    void test_default_constructor() {
+        // required for JPA
+        assertThat(new BalancesRollupJpaDto()).isNotNull();
+    }
+
+    @Test
+    void getChannelId() {
+        assertThat(rollup.getChannelId()).isEqualTo(SHORT_ID);
+    }
+
+    @Test
+    void getBucketSeconds() {
+        assertThat(rollup.getBucketSeconds()).isEqualTo(3_600);
+    }
+
+    @Test
+    void getBucketStart() {
+        assertThat(rollup.getBucketStart()).isEqualTo(7_200);
+    }
+
+    @Test
+    void initially_empty() {
+        assertThat(rollup.getEntries()).isZero();
+        assertThat(rollup.getLocalBalanceSeconds()).isZero();
+        assertThat(rollup.getCoveredSeconds()).isZero();
+    }
+
+    @Test
+    void addEntry() {
+        rollup.addEntry(200);
+        rollup.addEntry(100);
+        rollup.addEntry(300);
+        assertThat(rollup.getEntries()).isEqualTo(3);
+        assertThat(rollup.getMinLocalBalance()).isEqualTo(100);
+        assertThat(rollup.getMaxLocalBalance()).isEqualTo(300);
+    }
+
+    @Test
+    void addInterval() {
+        rollup.addInterval(100, 60);
+        rollup.addInterval(300, 30);
+        assertThat(rollup.getLocalBalanceSeconds()).isEqualTo(100 * 60 + 300 * 30);
+        assertThat(rollup.getCoveredSeconds()).isEqualTo(90);
+        assertThat(rollup.getEntries()).isZero();
+    }
+}
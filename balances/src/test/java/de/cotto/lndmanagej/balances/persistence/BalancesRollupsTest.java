@@ -0,0 +1,302 @@
+package de.cotto.lndmanagej.balances.persistence;
+
+import de.cotto.lndmanagej.balances.Balances;
+import de.cotto.lndmanagej.model.BalanceInformation;
+import de.cotto.lndmanagej.model.Coins;
+import de.cotto.lndmanagej.model.CoinsAndDuration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static de.cotto.lndmanagej.balances.persistence.BalancesRollups.DAY;
+import static de.cotto.lndmanagej.balances.persistence.BalancesRollups.HOUR;
+import static de.cotto.lndmanagej.model.BalanceInformationFixtures.LOCAL_RESERVE;
+import static de.cotto.lndmanagej.model.BalanceInformationFixtures.REMOTE_BALANCE;
+import static de.cotto.lndmanagej.model.BalanceInformationFixtures.REMOTE_RESERVE;
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class BalancesRollupsTest {
+    private static final long SHORT_ID = CHANNEL_ID.getShortChannelId();
+    private static final long DAY_START = 19_676 * DAY;
+    private static final long MINUTE = 60;
+
+    private BalancesRollups balancesRollups;
+
+    @Mock
+    private BalancesRepository balancesRepository;
+
+    @Mock
+    private BalancesRollupRepository rollupRepository;
+
+    @Mock
+    private BalancesRollupProgressRepository progressRepository;
+
+    private final List<BalancesJpaDto> balances = new ArrayList<>();
+    private final Map<BalancesRollupId, BalancesRollupJpaDto> rollups = new HashMap<>();
+    private final Map<Long, BalancesRollupProgressJpaDto> progress = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        balancesRollups = new BalancesRollups(balancesRepository, rollupRepository, progressRepository);
+        lenient().when(balancesRepository.findByChannelIdAndTimestampGreaterThanEqualOrderByTimestamp(
+                anyLong(),
+                anyLong()
+        )).thenAnswer(invocation -> {
+            long timestamp = invocation.getArgument(1);
+            return balances.stream().filter(balance -> balance.getTimestamp() >= timestamp);
+        });
+        lenient().when(balancesRepository.findTopByChannelIdAndTimestampLessThanEqualOrderByTimestampDesc(
+                anyLong(),
+                anyLong()
+        )).thenAnswer(invocation -> {
+            long timestamp = invocation.getArgument(1);
+            return balances.stream()
+                    .filter(balance -> balance.getTimestamp() <= timestamp)
+                    .max(Comparator.comparingLong(BalancesJpaDto::getTimestamp));
+        });
+        lenient().when(balancesRepository.findByChannelIdAndTimestampGreaterThanAndTimestampLessThanOrderByTimestamp(
+                anyLong(),
+                anyLong(),
+                anyLong()
+        )).thenAnswer(invocation -> {
+            long after = invocation.getArgument(1);
+            long before = invocation.getArgument(2);
+            return balances.stream()
+                    .filter(balance -> balance.getTimestamp() > after && balance.getTimestamp() < before)
+                    .toList();
+        });
+        lenient().when(rollupRepository.findById(any())).thenAnswer(invocation ->
+                Optional.ofNullable(rollups.get(invocation.<BalancesRollupId>getArgument(0)))
+        );
+        lenient().when(rollupRepository.saveAll(any())).thenAnswer(invocation -> {
+            List<BalancesRollupJpaDto> saved = new ArrayList<>(invocation.getArgument(0));
+            saved.forEach(rollup -> rollups.put(id(rollup), rollup));
+            return saved;
+        });
+        lenient().when(rollupRepository
+                .findByChannelIdAndBucketSecondsAndBucketStartGreaterThanEqualAndBucketStartLessThan(
+                        anyLong(),
+                        anyLong(),
+                        anyLong(),
+                        anyLong()
+                )).thenAnswer(invocation -> {
+            long bucketSeconds = invocation.getArgument(1);
+            long from = invocation.getArgument(2);
+            long to = invocation.getArgument(3);
+            return rollups.values().stream()
+                    .filter(rollup -> rollup.getBucketSeconds() == bucketSeconds)
+                    .filter(rollup -> rollup.getBucketStart() >= from && rollup.getBucketStart() < to)
+                    .toList();
+        });
+        lenient().when(progressRepository.findById(anyLong())).thenAnswer(invocation ->
+                Optional.ofNullable(progress.get(invocation.<Long>getArgument(0)))
+        );
+        lenient().when(progressRepository.save(any())).thenAnswer(invocation -> {
+            BalancesRollupProgressJpaDto saved = invocation.getArgument(0);
+            progress.put(saved.getChannelId(), saved);
+            return saved;
+        });
+    }
+
+    @Nested
+    class Update {
+        @Test
+        void no_balances() {
+            balancesRollups.update(SHORT_ID);
+            verify(rollupRepository, never()).saveAll(any());
+            verify(progressRepository, never()).save(any());
+        }
+
+        @Test
+        void single_balance_is_not_added() {
+            addBalance(DAY_START + 30 * MINUTE, 100);
+            balancesRollups.update(SHORT_ID);
+            assertThat(rollups).isEmpty();
+            assertThat(progress.get(SHORT_ID).getTimestamp()).isEqualTo(DAY_START + 30 * MINUTE);
+        }
+
+        @Test
+        void adds_replaced_balance() {
+            addBalance(DAY_START + 30 * MINUTE, 100);
+            addBalance(DAY_START + 90 * MINUTE, 300);
+            balancesRollups.update(SHORT_ID);
+
+            BalancesRollupJpaDto firstHour = rollup(HOUR, DAY_START);
+            assertThat(firstHour.getEntries()).isEqualTo(1);
+            assertThat(firstHour.getMinLocalBalance()).isEqualTo(100);
+            assertThat(firstHour.getCoveredSeconds()).isEqualTo(30 * MINUTE);
+            BalancesRollupJpaDto secondHour = rollup(HOUR, DAY_START + HOUR);
+            assertThat(secondHour.getEntries()).isZero();
+            assertThat(secondHour.getLocalBalanceSeconds()).isEqualTo(100 * 30 * MINUTE);
+            BalancesRollupJpaDto day = rollup(DAY, DAY_START);
+            assertThat(day.getEntries()).isEqualTo(1);
+            assertThat(day.getLocalBalanceSeconds()).isEqualTo(100 * HOUR);
+            assertThat(day.getCoveredSeconds()).isEqualTo(HOUR);
+            assertThat(progress.get(SHORT_ID).getTimestamp()).isEqualTo(DAY_START + 90 * MINUTE);
+        }
+
+        @Test
+        void does_not_add_balances_twice() {
+            addBalance(DAY_START + 30 * MINUTE, 100);
+            addBalance(DAY_START + 40 * MINUTE, 300);
+            balancesRollups.update(SHORT_ID);
+            balancesRollups.update(SHORT_ID);
+            addBalance(DAY_START + 50 * MINUTE, 500);
+            balancesRollups.update(SHORT_ID);
+
+            BalancesRollupJpaDto firstHour = rollup(HOUR, DAY_START);
+            assertThat(firstHour.getEntries()).isEqualTo(2);
+            assertThat(firstHour.getMinLocalBalance()).isEqualTo(100);
+            assertThat(firstHour.getMaxLocalBalance()).isEqualTo(300);
+            assertThat(firstHour.getLocalBalanceSeconds()).isEqualTo(100 * 10 * MINUTE + 300 * 10 * MINUTE);
+            assertThat(firstHour.getCoveredSeconds()).isEqualTo(20 * MINUTE);
+        }
+
+        @Test
+        void hourly_rollups_only_for_first_and_last_day() {
+            addBalance(DAY_START + 12 * HOUR, 100);
+            addBalance(DAY_START + 3 * DAY + HOUR, 200);
+            balancesRollups.update(SHORT_ID);
+
+            assertThat(rollup(DAY, DAY_START).getCoveredSeconds()).isEqualTo(12 * HOUR);
+            assertThat(rollup(DAY, DAY_START + DAY).getCoveredSeconds()).isEqualTo(DAY);
+            assertThat(rollup(DAY, DAY_START + 2 * DAY).getCoveredSeconds()).isEqualTo(DAY);
+            assertThat(rollup(DAY, DAY_START + 3 * DAY).getCoveredSeconds()).isEqualTo(HOUR);
+            assertThat(rollups.values().stream().filter(rollup -> rollup.getBucketSeconds() == HOUR))
+                    .map(BalancesRollupJpaDto::getBucketStart)
+                    .allMatch(start -> start >= DAY_START + 12 * HOUR && start < DAY_START + DAY
+                            || start == DAY_START + 3 * DAY)
+                    .hasSize(13);
+        }
+    }
+
+    @Nested
+    class GetStatistics {
+        @Test
+        void empty() {
+            BalanceStatistics statistics = balancesRollups.getStatistics(SHORT_ID, DAY_START, DAY_START + DAY, true);
+            assertThat(statistics.getMinimum()).isEmpty();
+            assertThat(statistics.getAverage()).isEmpty();
+        }
+
+        @Test
+        void without_rollups() {
+            addBalance(DAY_START + 10 * MINUTE, 100);
+            addBalance(DAY_START + 20 * MINUTE, 300);
+            BalanceStatistics statistics =
+                    balancesRollups.getStatistics(SHORT_ID, DAY_START, DAY_START + 30 * MINUTE, true);
+            assertThat(statistics.getMinimum()).contains(Coins.ofSatoshis(100));
+            assertThat(statistics.getMaximum()).contains(Coins.ofSatoshis(300));
+            assertThat(statistics.getAverage()).contains(average(200, 20));
+        }
+
+        @Test
+        void closed_channel_ignores_time_span_of_most_recent_balance() {
+            addBalance(DAY_START + 10 * MINUTE, 100);
+            addBalance(DAY_START + 20 * MINUTE, 300);
+            BalanceStatistics statistics =
+                    balancesRollups.getStatistics(SHORT_ID, DAY_START, DAY_START + 30 * MINUTE, false);
+            assertThat(statistics.getMaximum()).contains(Coins.ofSatoshis(300));
+            assertThat(statistics.getAverage()).contains(average(100, 10));
+        }
+
+        @Test
+        void minimum_and_maximum_ignore_balance_recorded_before_window() {
+            addBalance(DAY_START - HOUR, 1);
+            addBalance(DAY_START + 20 * MINUTE, 300);
+            balancesRollups.update(SHORT_ID);
+            BalanceStatistics statistics = balancesRollups.getStatistics(SHORT_ID, DAY_START, DAY_START + HOUR, true);
+            assertThat(statistics.getMinimum()).contains(Coins.ofSatoshis(300));
+            assertThat(statistics.getAverage()).contains(average((1 * 20 + 300 * 40) / 60, 60));
+        }
+
+        @Test
+        void combines_raw_balances_and_rollups() {
+            addBalance(DAY_START + 10 * MINUTE, 100);
+            addBalance(DAY_START + 2 * HOUR, 300);
+            addBalance(DAY_START + 26 * HOUR, 500);
+            balancesRollups.update(SHORT_ID);
+
+            long from = DAY_START + 30 * MINUTE;
+            long until = DAY_START + 27 * HOUR;
+            BalanceStatistics statistics = balancesRollups.getStatistics(SHORT_ID, from, until, true);
+
+            long seconds = 30 * MINUTE + HOUR + 24 * HOUR + HOUR;
+            long sum = 100 * (30 * MINUTE + HOUR) + 300 * 24 * HOUR + 500 * HOUR;
+            assertThat(statistics.getMinimum()).contains(Coins.ofSatoshis(300));
+            assertThat(statistics.getMaximum()).contains(Coins.ofSatoshis(500));
+            assertThat(statistics.getAverage()).contains(average(sum / seconds, seconds / MINUTE));
+        }
+
+        @Test
+        void same_result_with_and_without_rollups() {
+            addBalance(DAY_START - 5 * DAY + 17 * MINUTE, 100);
+            addBalance(DAY_START - 3 * DAY + 7 * HOUR + 3 * MINUTE, 700);
+            addBalance(DAY_START - 3 * DAY + 9 * HOUR + 13 * MINUTE, 200);
+            addBalance(DAY_START + 5 * MINUTE, 400);
+            long from = DAY_START - 4 * DAY + 11 * MINUTE;
+            long until = DAY_START + HOUR + 1;
+
+            BalanceStatistics raw = balancesRollups.getStatistics(SHORT_ID, from, until, true);
+            balancesRollups.update(SHORT_ID);
+            BalanceStatistics withRollups = balancesRollups.getStatistics(SHORT_ID, from, until, true);
+
+            assertThat(withRollups.getMinimum()).isEqualTo(raw.getMinimum()).contains(Coins.ofSatoshis(200));
+            assertThat(withRollups.getMaximum()).isEqualTo(raw.getMaximum()).contains(Coins.ofSatoshis(700));
+            assertThat(withRollups.getAverage()).isEqualTo(raw.getAverage()).isPresent();
+        }
+
+        @Test
+        void derives_hours_of_days_without_balance_changes_from_daily_rollup() {
+            addBalance(DAY_START - DAY, 100);
+            addBalance(DAY_START + 2 * DAY, 300);
+            balancesRollups.update(SHORT_ID);
+
+            BalanceStatistics statistics =
+                    balancesRollups.getStatistics(SHORT_ID, DAY_START + 2 * HOUR, DAY_START + 5 * HOUR, true);
+
+            assertThat(statistics.getMinimum()).isEmpty();
+            assertThat(statistics.getAverage()).contains(average(100, 3 * 60));
+        }
+    }
+
+    private void addBalance(long timestamp, long localBalance) {
+        BalanceInformation balanceInformation =
+                new BalanceInformation(Coins.ofSatoshis(localBalance), LOCAL_RESERVE, REMOTE_BALANCE, REMOTE_RESERVE);
+        LocalDateTime localDateTime = LocalDateTime.ofEpochSecond(timestamp, 0, ZoneOffset.UTC);
+        balances.add(BalancesJpaDto.fromModel(new Balances(localDateTime, CHANNEL_ID, balanceInformation)));
+        balances.sort(Comparator.comparingLong(BalancesJpaDto::getTimestamp));
+    }
+
+    private BalancesRollupJpaDto rollup(long bucketSeconds, long bucketStart) {
+        return rollups.get(new BalancesRollupId(SHORT_ID, bucketSeconds, bucketStart));
+    }
+
+    private static BalancesRollupId id(BalancesRollupJpaDto rollup) {
+        return new BalancesRollupId(rollup.getChannelId(), rollup.getBucketSeconds(), rollup.getBucketStart());
+    }
+
+    private static CoinsAndDuration average(long satoshis, long minutes) {
+        return new CoinsAndDuration(Coins.ofSatoshis(satoshis), Duration.ofMinutes(minutes));
+    }
+}
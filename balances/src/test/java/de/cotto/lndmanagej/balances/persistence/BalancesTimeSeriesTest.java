@@ -0,0 +1,110 @@
+package de.cotto.lndmanagej.balances.persistence;
+
+import de.cotto.lndmanagej.balances.Balances;
+import de.cotto.lndmanagej.model.BalanceInformation;
+import de.cotto.lndmanagej.model.Coins;
+import de.cotto.lndmanagej.model.CoinsAndDuration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static de.cotto.lndmanagej.balances.BalancesFixtures.BALANCES;
+import static de.cotto.lndmanagej.balances.BalancesFixtures.BALANCES_OLD;
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID;
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID_2;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class BalancesTimeSeriesTest {
+    private static final long HOUR = 60 * 60;
+    private static final long START = 1_700_000_000L;
+
+    @TempDir
+    private Path directory;
+
+    private BalancesTimeSeries timeSeries;
+
+    @BeforeEach
+    void setUp() {
+        timeSeries = new BalancesTimeSeries(directory.toString());
+    }
+
+    @Test
+    void disabled_without_directory() {
+        BalancesTimeSeries disabled = new BalancesTimeSeries("");
+        assertThat(disabled.isEnabled()).isFalse();
+        assertThatIllegalStateException().isThrownBy(() -> disabled.getMostRecentBalances(CHANNEL_ID));
+    }
+
+    @Test
+    void enabled_with_directory() {
+        assertThat(timeSeries.isEnabled()).isTrue();
+    }
+
+    @Test
+    void getMostRecentBalances_empty() {
+        assertThat(timeSeries.getMostRecentBalances(CHANNEL_ID)).isEmpty();
+    }
+
+    @Test
+    void getMostRecentBalances() {
+        timeSeries.save(BALANCES_OLD);
+        timeSeries.save(BALANCES);
+        assertThat(timeSeries.getMostRecentBalances(CHANNEL_ID)).contains(BALANCES);
+        assertThat(timeSeries.getMostRecentBalances(CHANNEL_ID_2)).isEmpty();
+    }
+
+    @Test
+    void getStatistics_empty() {
+        BalanceStatistics statistics = timeSeries.getStatistics(CHANNEL_ID, START, START + HOUR, true);
+        assertThat(statistics.getMinimum()).isEmpty();
+        assertThat(statistics.getAverage()).isEmpty();
+    }
+
+    @Test
+    void getStatistics() {
+        save(START - HOUR, 100);
+        save(START + HOUR, 300);
+        save(START + 2 * HOUR, 500);
+        BalanceStatistics statistics = timeSeries.getStatistics(CHANNEL_ID, START, START + 4 * HOUR, true);
+        assertThat(statistics.getMinimum()).contains(Coins.ofSatoshis(300));
+        assertThat(statistics.getMaximum()).contains(Coins.ofSatoshis(500));
+        assertThat(statistics.getAverage())
+                .contains(new CoinsAndDuration(Coins.ofSatoshis(350), Duration.ofHours(4)));
+    }
+
+    @Test
+    void getStatistics_without_most_recent() {
+        save(START, 100);
+        save(START + HOUR, 300);
+        BalanceStatistics statistics = timeSeries.getStatistics(CHANNEL_ID, START, START + 4 * HOUR, false);
+        assertThat(statistics.getAverage())
+                .contains(new CoinsAndDuration(Coins.ofSatoshis(100), Duration.ofHours(1)));
+    }
+
+    @Test
+    void getStatistics_ignores_balances_after_window() {
+        save(START, 100);
+        save(START + 2 * HOUR, 300);
+        BalanceStatistics statistics = timeSeries.getStatistics(CHANNEL_ID, START - HOUR, START + HOUR, true);
+        assertThat(statistics.getMaximum()).contains(Coins.ofSatoshis(100));
+        assertThat(statistics.getAverage())
+                .contains(new CoinsAndDuration(Coins.ofSatoshis(100), Duration.ofHours(1)));
+    }
+
+    private void save(long epochSecond, long localBalance) {
+        BalanceInformation balanceInformation = new BalanceInformation(
+                Coins.ofSatoshis(localBalance),
+                Coins.NONE,
+                Coins.ofSatoshis(1_000 - localBalance),
+                Coins.NONE
+        );
+        LocalDateTime timestamp = LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+        timeSeries.save(new Balances(timestamp, CHANNEL_ID, balanceInformation));
+    }
+}
@@ -11,4 +11,5 @@ dependencies {
     implementation("de.c-otto:java-conventions:2023.03.22")
     implementation("org.springframework.boot:spring-boot-gradle-plugin")
     implementation("com.google.protobuf:protobuf-gradle-plugin")
+    implementation("me.champeau.jmh:jmh-gradle-plugin")
 }
@@ -0,0 +1,16 @@
+plugins {
+    id("java")
+    id("me.champeau.jmh")
+}
+
+dependencies {
+    "jmhImplementation"(platform("de.c-otto.lndmanagej:platform"))
+}
+
+jmh {
+    jmhVersion.set("1.36")
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    resultFormat.set("JSON")
+}
@@ -19,8 +19,10 @@ public class CacheBuilder extends CacheBuilderBase<CacheBuilder> {
 
     @SuppressWarnings("DataFlowIssue")
     public <I, O> LoadingCache<I, O> build(CacheLoader<I, O> function) {
-        Caffeine<Object, Object> builder = Caffeine.newBuilder()
-                .expireAfterWrite(expiry);
+        Caffeine<Object, Object> builder = Caffeine.newBuilder();
+        if (this.expiry != null) {
+            builder = builder.expireAfterWrite(expiry);
+        }
         if (this.refresh != null) {
             builder = builder.refreshAfterWrite(refresh);
         }
@@ -4,6 +4,7 @@ import javax.annotation.Nullable;
 import java.time.Duration;
 
 public abstract class CacheBuilderBase<T extends CacheBuilderBase<T>> {
+    @Nullable
     protected Duration expiry;
     @Nullable
     protected Integer maximumSize;
@@ -17,7 +18,10 @@ public abstract class CacheBuilderBase<T extends CacheBuilderBase<T>> {
 
     protected abstract T getThis();
 
-    public T withExpiry(Duration expiry) {
+    /**
+     * Sets the duration after which cached values expire, or disables expiry if null.
+     */
+    public T withExpiry(@Nullable Duration expiry) {
         this.expiry = expiry;
         return getThis();
     }
@@ -28,6 +28,17 @@ class CacheBuilderTest {
         assertThat(first).isNotEqualTo(second);
     }
 
+    @Test
+    void expiryDisabled() throws InterruptedException {
+        LoadingCache<Object, Long> cache = new CacheBuilder()
+                .withExpiry(null)
+                .build(System::nanoTime);
+        Long first = cache.get("");
+        Thread.sleep(1);
+        Long second = cache.get("");
+        assertThat(first).isEqualTo(second);
+    }
+
     @Test
     void withRefresh_cached_value() throws InterruptedException {
         LoadingCache<Object, Long> cache = new CacheBuilder()
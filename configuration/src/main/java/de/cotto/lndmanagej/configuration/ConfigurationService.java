@@ -112,6 +112,10 @@ public class ConfigurationService {
                 .map(TRUE_STRING::equals);
     }
 
+    public Optional<String> getStringValue(ConfigurationSetting configurationSetting) {
+        return getStringValue(configurationSetting.getSection(), configurationSetting.getName());
+    }
+
     public Optional<Integer> getIntegerValue(ConfigurationSetting configurationSetting) {
         return getInteger(configurationSetting.getSection(), configurationSetting.getName());
     }
@@ -4,7 +4,9 @@ public enum PickhardtPaymentsConfigurationSettings implements ConfigurationSetti
     LIQUIDITY_INFORMATION_MAX_AGE("liquidity_information_max_age_in_seconds"),
     USE_MISSION_CONTROL("use_mission_control"),
     QUANTIZATION("quantization"),
+    ADAPTIVE_QUANTIZATION("adaptive_quantization"),
     PIECEWISE_LINEAR_APPROXIMATIONS("piecewise_linear_approximations"),
+    MIN_COST_FLOW_ENGINE("min_cost_flow_engine"),
     ENABLED("enabled"),
     MAX_CLTV_EXPIRY("max-cltv-expiry");
 
@@ -4,7 +4,8 @@ public enum TopUpConfigurationSettings implements ConfigurationSetting {
     THRESHOLD("threshold_sat"),
     EXPIRY("expiry_seconds"),
     SLEEP_AFTER_FAILURE_MILLISECONDS("sleep_after_failure_milliseconds"),
-    MAX_RETRIES_AFTER_FAILURE("max_retries_after_failure");
+    MAX_RETRIES_AFTER_FAILURE("max_retries_after_failure"),
+    PRECOMPUTE_ROUTES("precompute_routes");
 
     private final String name;
 
@@ -222,6 +222,19 @@ class ConfigurationServiceTest {
         }
     }
 
+    @Test
+    void getStringValue_defaults_to_empty() {
+        assertThat(configurationService.getStringValue(ONLINE_CHANGES_THRESHOLD)).isEmpty();
+    }
+
+    @Test
+    void getStringValue() {
+        ConfigurationSetting setting = ONLINE_CHANGES_THRESHOLD;
+        String name = setting.getName();
+        when(iniFileReader.getValues(WARNINGS_SECTION)).thenReturn(Map.of(name, Set.of("foo")));
+        assertThat(configurationService.getStringValue(setting)).contains("foo");
+    }
+
     @Test
     void getIntegerValue_defaults_to_empty() {
         assertThat(configurationService.getIntegerValue(ONLINE_CHANGES_THRESHOLD)).isEmpty();
@@ -2,8 +2,10 @@ package de.cotto.lndmanagej.configuration;
 
 import org.junit.jupiter.api.Test;
 
+import static de.cotto.lndmanagej.configuration.PickhardtPaymentsConfigurationSettings.ADAPTIVE_QUANTIZATION;
 import static de.cotto.lndmanagej.configuration.PickhardtPaymentsConfigurationSettings.ENABLED;
 import static de.cotto.lndmanagej.configuration.PickhardtPaymentsConfigurationSettings.MAX_CLTV_EXPIRY;
+import static de.cotto.lndmanagej.configuration.PickhardtPaymentsConfigurationSettings.MIN_COST_FLOW_ENGINE;
 import static de.cotto.lndmanagej.configuration.PickhardtPaymentsConfigurationSettings.PIECEWISE_LINEAR_APPROXIMATIONS;
 import static de.cotto.lndmanagej.configuration.PickhardtPaymentsConfigurationSettings.QUANTIZATION;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -17,6 +19,12 @@ class PickhardtPaymentsConfigurationSettingsTest {
         assertThat(QUANTIZATION.getName()).isEqualTo("quantization");
     }
 
+    @Test
+    void adaptiveQuantization() {
+        assertThat(ADAPTIVE_QUANTIZATION.getSection()).isEqualTo(SECTION_NAME);
+        assertThat(ADAPTIVE_QUANTIZATION.getName()).isEqualTo("adaptive_quantization");
+    }
+
     @Test
     void piecewiseLinearApproximations() {
         assertThat(PIECEWISE_LINEAR_APPROXIMATIONS.getSection()).isEqualTo(SECTION_NAME);
@@ -34,4 +42,10 @@ class PickhardtPaymentsConfigurationSettingsTest {
         assertThat(MAX_CLTV_EXPIRY.getSection()).isEqualTo(SECTION_NAME);
         assertThat(MAX_CLTV_EXPIRY.getName()).isEqualTo("max-cltv-expiry");
     }
+
+    @Test
+    void minCostFlowEngine() {
+        assertThat(MIN_COST_FLOW_ENGINE.getSection()).isEqualTo(SECTION_NAME);
+        assertThat(MIN_COST_FLOW_ENGINE.getName()).isEqualTo("min_cost_flow_engine");
+    }
 }
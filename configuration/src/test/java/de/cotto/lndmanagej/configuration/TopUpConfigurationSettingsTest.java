@@ -4,6 +4,7 @@ import org.junit.jupiter.api.Test;
 
 import static de.cotto.lndmanagej.configuration.TopUpConfigurationSettings.EXPIRY;
 import static de.cotto.lndmanagej.configuration.TopUpConfigurationSettings.MAX_RETRIES_AFTER_FAILURE;
+import static de.cotto.lndmanagej.configuration.TopUpConfigurationSettings.PRECOMPUTE_ROUTES;
 import static de.cotto.lndmanagej.configuration.TopUpConfigurationSettings.SLEEP_AFTER_FAILURE_MILLISECONDS;
 import static de.cotto.lndmanagej.configuration.TopUpConfigurationSettings.THRESHOLD;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -34,4 +35,10 @@ class TopUpConfigurationSettingsTest {
         assertThat(MAX_RETRIES_AFTER_FAILURE.getSection()).isEqualTo(SECTION_NAME);
         assertThat(MAX_RETRIES_AFTER_FAILURE.getName()).isEqualTo("max_retries_after_failure");
     }
+
+    @Test
+    void precomputeRoutes() {
+        assertThat(PRECOMPUTE_ROUTES.getSection()).isEqualTo(SECTION_NAME);
+        assertThat(PRECOMPUTE_ROUTES.getName()).isEqualTo("precompute_routes");
+    }
 }
@@ -1,5 +1,6 @@
 plugins {
     id("lnd-manageJ.java-library-conventions")
+    id("lnd-manageJ.benchmarks")
 }
 
 dependencies {
@@ -10,4 +11,5 @@ dependencies {
     integrationTestRuntimeOnly("com.h2database:h2")
     integrationTestImplementation("org.springframework.boot:spring-boot-starter-data-jpa")
     integrationTestImplementation(testFixtures(project(":model")))
+    jmhImplementation(testFixtures(project(":model")))
 }
@@ -0,0 +1,45 @@
+package de.cotto.lndmanagej.forwardinghistory.persistence;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+
+import static de.cotto.lndmanagej.model.ForwardingEventFixtures.FORWARDING_EVENT;
+import static de.cotto.lndmanagej.model.ForwardingEventFixtures.FORWARDING_EVENT_2;
+import static de.cotto.lndmanagej.model.ForwardingEventFixtures.FORWARDING_EVENT_3;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import({ForwardingEventsDaoImpl.class, MetricRegistry.class})
+class ForwardingEventsDaoImplIT {
+    @Autowired
+    private ForwardingEventsDaoImpl dao;
+
+    @Autowired
+    private ForwardingEventsRepository repository;
+
+    @Test
+    void save_inserts_rows() {
+        dao.save(List.of(FORWARDING_EVENT, FORWARDING_EVENT_2));
+        assertThat(repository.findAll()).map(ForwardingEventJpaDto::toModel)
+                .containsExactlyInAnyOrder(FORWARDING_EVENT, FORWARDING_EVENT_2);
+    }
+
+    @Test
+    void save_skips_already_persisted_events() {
+        dao.save(List.of(FORWARDING_EVENT, FORWARDING_EVENT_2));
+        dao.save(List.of(FORWARDING_EVENT_2, FORWARDING_EVENT_3));
+        assertThat(repository.findAll()).map(ForwardingEventJpaDto::toModel)
+                .containsExactlyInAnyOrder(FORWARDING_EVENT, FORWARDING_EVENT_2, FORWARDING_EVENT_3);
+    }
+
+    @Test
+    void getOffset_after_save() {
+        dao.save(List.of(FORWARDING_EVENT, FORWARDING_EVENT_2));
+        assertThat(dao.getOffset()).isEqualTo(FORWARDING_EVENT_2.index());
+    }
+}
@@ -0,0 +1,70 @@
+package de.cotto.lndmanagej.forwardinghistory.persistence;
+
+import de.cotto.lndmanagej.model.ChannelId;
+import de.cotto.lndmanagej.model.Coins;
+import de.cotto.lndmanagej.model.ForwardingEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converts persisted forwarding events to the model, as done when loading the forwarding history on startup. The
+ * events are spread over a realistic number of (own) channels.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ForwardingEventJpaDtoBenchmark {
+    private static final long SEED = 42;
+    private static final int NUMBER_OF_EVENTS = 100_000;
+    private static final int NUMBER_OF_CHANNELS = 200;
+    private static final long FIRST_CHANNEL = 774_909_407_114_231_809L;
+
+    private final List<ForwardingEventJpaDto> jpaDtos = new ArrayList<>(NUMBER_OF_EVENTS);
+
+    public ForwardingEventJpaDtoBenchmark() {
+        // default constructor
+    }
+
+    @Setup(Level.Trial)
+    public void createEvents() {
+        Random random = new Random(SEED);
+        LocalDateTime timestamp = LocalDateTime.of(2022, 1, 1, 0, 0);
+        for (int index = 0; index < NUMBER_OF_EVENTS; index++) {
+            long amountOut = 1_000 + random.nextInt(10_000_000);
+            ForwardingEvent forwardingEvent = new ForwardingEvent(
+                    index,
+                    Coins.ofMilliSatoshis(amountOut + random.nextInt(5_000)),
+                    Coins.ofMilliSatoshis(amountOut),
+                    getChannelId(random),
+                    getChannelId(random),
+                    timestamp.plusSeconds(index * 60L)
+            );
+            jpaDtos.add(ForwardingEventJpaDto.createFromModel(forwardingEvent));
+        }
+    }
+
+    @Benchmark
+    public List<ForwardingEvent> toModel() {
+        List<ForwardingEvent> result = new ArrayList<>(jpaDtos.size());
+        for (ForwardingEventJpaDto jpaDto : jpaDtos) {
+            result.add(jpaDto.toModel());
+        }
+        return result;
+    }
+
+    private static ChannelId getChannelId(Random random) {
+        return ChannelId.fromShortChannelId(FIRST_CHANNEL + ((long) random.nextInt(NUMBER_OF_CHANNELS) << 16));
+    }
+}
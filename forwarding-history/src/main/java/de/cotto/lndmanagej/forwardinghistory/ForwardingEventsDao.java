@@ -12,6 +12,8 @@ public interface ForwardingEventsDao {
 
     int getOffset();
 
+    List<ForwardingEvent> getEventsAfter(int index, int limit);
+
     List<ForwardingEvent> getEventsWithOutgoingChannel(ChannelId channelId, Duration maxAge);
 
     List<ForwardingEvent> getEventsWithIncomingChannel(ChannelId channelId, Duration maxAge);
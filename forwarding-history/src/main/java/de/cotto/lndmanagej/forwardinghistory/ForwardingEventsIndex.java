@@ -0,0 +1,222 @@
+package de.cotto.lndmanagej.forwardinghistory;
+
+import de.cotto.lndmanagej.model.ChannelId;
+import de.cotto.lndmanagej.model.Coins;
+import de.cotto.lndmanagej.model.ForwardingEvent;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of all forwarding events, used to compute sums over the events of a channel without loading the
+ * individual events from the database.
+ * <p>
+ * For each channel (separately for incoming and outgoing events) the timestamps are kept in a sorted array, together
+ * with arrays containing the cumulative sums of the amounts and fees. The sum over all events after some point in
+ * time is then computed using a binary search and a subtraction. The event indexes and the other channels of the
+ * events are kept as well, so that all events of a channel can be recreated without querying the database.
+ * <p>
+ * The index is filled by {@link ForwardingHistory}. Until all persisted events are added, no sums are returned.
+ */
+@Component
+public class ForwardingEventsIndex {
+    private final Map<Long, ChannelColumns> incoming = new ConcurrentHashMap<>();
+    private final Map<Long, ChannelColumns> outgoing = new ConcurrentHashMap<>();
+    private volatile boolean initialized;
+    private int lastIndex;
+
+    public ForwardingEventsIndex() {
+        // default constructor
+    }
+
+    /**
+     * Adds the given events, ordered by their index. Events with an index that is not larger than the index of a
+     * previously added event are ignored.
+     */
+    public void add(Collection<ForwardingEvent> forwardingEvents) {
+        synchronized (this) {
+            for (ForwardingEvent forwardingEvent : forwardingEvents) {
+                if (forwardingEvent.index() <= lastIndex) {
+                    continue;
+                }
+                lastIndex = forwardingEvent.index();
+                long timestamp = forwardingEvent.timestamp().toInstant(ZoneOffset.UTC).toEpochMilli();
+                long amount = forwardingEvent.amountOut().milliSatoshis();
+                long fees = forwardingEvent.fees().milliSatoshis();
+                int index = forwardingEvent.index();
+                long channelIn = forwardingEvent.channelIn().getShortChannelId();
+                long channelOut = forwardingEvent.channelOut().getShortChannelId();
+                getColumns(incoming, forwardingEvent.channelIn()).add(timestamp, amount, fees, index, channelOut);
+                getColumns(outgoing, forwardingEvent.channelOut()).add(timestamp, amount, fees, index, channelIn);
+            }
+        }
+    }
+
+    public int getLastIndex() {
+        synchronized (this) {
+            return lastIndex;
+        }
+    }
+
+    public boolean isInitialized() {
+        return initialized;
+    }
+
+    public void markAsInitialized() {
+        initialized = true;
+    }
+
+    public Optional<ForwardingSums> getSumsWithIncomingChannel(ChannelId channelId, Duration maxAge) {
+        return getSums(incoming, channelId, maxAge);
+    }
+
+    public Optional<ForwardingSums> getSumsWithOutgoingChannel(ChannelId channelId, Duration maxAge) {
+        return getSums(outgoing, channelId, maxAge);
+    }
+
+    /**
+     * Returns all events with the given incoming channel, ordered by timestamp.
+     */
+    public Optional<List<ForwardingEvent>> getEventsWithIncomingChannel(ChannelId channelId) {
+        return getEvents(incoming, channelId, true);
+    }
+
+    /**
+     * Returns all events with the given outgoing channel, ordered by timestamp.
+     */
+    public Optional<List<ForwardingEvent>> getEventsWithOutgoingChannel(ChannelId channelId) {
+        return getEvents(outgoing, channelId, false);
+    }
+
+    private Optional<List<ForwardingEvent>> getEvents(
+            Map<Long, ChannelColumns> columns,
+            ChannelId channelId,
+            boolean incomingChannel
+    ) {
+        if (!initialized) {
+            return Optional.empty();
+        }
+        ChannelColumns channelColumns = columns.get(channelId.getShortChannelId());
+        if (channelColumns == null) {
+            return Optional.of(List.of());
+        }
+        return Optional.of(channelColumns.getEvents(channelId, incomingChannel));
+    }
+
+    private Optional<ForwardingSums> getSums(Map<Long, ChannelColumns> columns, ChannelId channelId, Duration maxAge) {
+        if (!initialized) {
+            return Optional.empty();
+        }
+        ChannelColumns channelColumns = columns.get(channelId.getShortChannelId());
+        if (channelColumns == null) {
+            return Optional.of(ForwardingSums.NONE);
+        }
+        long after = Instant.now().toEpochMilli() - maxAge.getSeconds() * 1_000;
+        return Optional.of(channelColumns.getSumsAfter(after));
+    }
+
+    private static ChannelColumns getColumns(Map<Long, ChannelColumns> columns, ChannelId channelId) {
+        return columns.computeIfAbsent(channelId.getShortChannelId(), key -> new ChannelColumns());
+    }
+
+    private static final class ChannelColumns {
+        private static final int INITIAL_CAPACITY = 16;
+
+        private long[] timestamps = new long[INITIAL_CAPACITY];
+        // cumulativeAmounts[i] is the sum of the amounts of the first i events, same for the fees
+        private long[] cumulativeAmounts = new long[INITIAL_CAPACITY + 1];
+        private long[] cumulativeFees = new long[INITIAL_CAPACITY + 1];
+        private int[] indexes = new int[INITIAL_CAPACITY];
+        private long[] otherChannels = new long[INITIAL_CAPACITY];
+        private int size;
+
+        ChannelColumns() {
+            // default constructor
+        }
+
+        synchronized void add(long timestamp, long amount, long fees, int index, long otherChannel) {
+            if (size == timestamps.length) {
+                int newCapacity = 2 * timestamps.length;
+                timestamps = Arrays.copyOf(timestamps, newCapacity);
+                cumulativeAmounts = Arrays.copyOf(cumulativeAmounts, newCapacity + 1);
+                cumulativeFees = Arrays.copyOf(cumulativeFees, newCapacity + 1);
+                indexes = Arrays.copyOf(indexes, newCapacity);
+                otherChannels = Arrays.copyOf(otherChannels, newCapacity);
+            }
+            int position = size;
+            while (position > 0 && timestamps[position - 1] > timestamp) {
+                // events are (almost) always added in order, only shift if necessary
+                timestamps[position] = timestamps[position - 1];
+                indexes[position] = indexes[position - 1];
+                otherChannels[position] = otherChannels[position - 1];
+                position--;
+            }
+            timestamps[position] = timestamp;
+            indexes[position] = index;
+            otherChannels[position] = otherChannel;
+            size++;
+            long amountBefore = cumulativeAmounts[position];
+            long feesBefore = cumulativeFees[position];
+            for (int i = size; i > position + 1; i--) {
+                cumulativeAmounts[i] = cumulativeAmounts[i - 1] + amount;
+                cumulativeFees[i] = cumulativeFees[i - 1] + fees;
+            }
+            cumulativeAmounts[position + 1] = amountBefore + amount;
+            cumulativeFees[position + 1] = feesBefore + fees;
+        }
+
+        synchronized ForwardingSums getSumsAfter(long timestamp) {
+            int first = getFirstPositionAfter(timestamp);
+            return new ForwardingSums(
+                    Coins.ofMilliSatoshis(cumulativeAmounts[size] - cumulativeAmounts[first]),
+                    Coins.ofMilliSatoshis(cumulativeFees[size] - cumulativeFees[first])
+            );
+        }
+
+        synchronized List<ForwardingEvent> getEvents(ChannelId channelId, boolean incomingChannel) {
+            List<ForwardingEvent> events = new ArrayList<>(size);
+            for (int position = 0; position < size; position++) {
+                long amount = cumulativeAmounts[position + 1] - cumulativeAmounts[position];
+                long fees = cumulativeFees[position + 1] - cumulativeFees[position];
+                ChannelId otherChannel = ChannelId.ofOwnChannel(otherChannels[position]);
+                events.add(new ForwardingEvent(
+                        indexes[position],
+                        Coins.ofMilliSatoshis(amount + fees),
+                        Coins.ofMilliSatoshis(amount),
+                        incomingChannel ? channelId : otherChannel,
+                        incomingChannel ? otherChannel : channelId,
+                        toLocalDateTime(timestamps[position])
+                ));
+            }
+            return events;
+        }
+
+        private static LocalDateTime toLocalDateTime(long timestamp) {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneOffset.UTC);
+        }
+
+        private int getFirstPositionAfter(long timestamp) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (timestamps[middle] > timestamp) {
+                    high = middle;
+                } else {
+                    low = middle + 1;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -1,29 +1,75 @@
 package de.cotto.lndmanagej.forwardinghistory;
 
 import de.cotto.lndmanagej.grpc.GrpcForwardingHistory;
+import de.cotto.lndmanagej.grpc.PipelinedPages;
 import de.cotto.lndmanagej.model.ForwardingEvent;
+import de.cotto.lndmanagej.model.HistoryLoader;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
+import java.util.OptionalLong;
 import java.util.concurrent.TimeUnit;
 
 @Component
-public class ForwardingHistory {
+public class ForwardingHistory implements HistoryLoader {
+    private static final int INDEX_PAGE_SIZE = 10_000;
+
     private final GrpcForwardingHistory grpcForwardingHistory;
     private final ForwardingEventsDao dao;
+    private final ForwardingEventsIndex index;
+    private volatile boolean caughtUp;
 
-    public ForwardingHistory(GrpcForwardingHistory grpcForwardingHistory, ForwardingEventsDao dao) {
+    public ForwardingHistory(
+            GrpcForwardingHistory grpcForwardingHistory,
+            ForwardingEventsDao dao,
+            ForwardingEventsIndex index
+    ) {
         this.grpcForwardingHistory = grpcForwardingHistory;
         this.dao = dao;
+        this.index = index;
     }
 
+    /**
+     * Loads new forwarding events from lnd. The next page of events is fetched while the previous page is persisted.
+     */
     @Scheduled(fixedDelay = 10, timeUnit = TimeUnit.SECONDS)
     public void refresh() {
+        initializeIndex();
+        int limit = grpcForwardingHistory.getLimit();
+        PipelinedPages.process(
+                dao.getOffset(),
+                offset -> grpcForwardingHistory.getForwardingEventsAfter((int) offset).orElse(List.of()),
+                events -> getNextOffset(events, limit),
+                events -> {
+                    dao.save(events);
+                    index.add(events);
+                }
+        );
+        caughtUp = true;
+    }
+
+    @Override
+    public boolean isCaughtUp() {
+        return caughtUp;
+    }
+
+    private static OptionalLong getNextOffset(List<ForwardingEvent> events, int limit) {
+        if (events.size() != limit) {
+            return OptionalLong.empty();
+        }
+        return OptionalLong.of(events.get(events.size() - 1).index());
+    }
+
+    private void initializeIndex() {
+        if (index.isInitialized()) {
+            return;
+        }
         List<ForwardingEvent> events;
         do {
-            events = grpcForwardingHistory.getForwardingEventsAfter(dao.getOffset()).orElse(List.of());
-            dao.save(events);
-        } while (events.size() == grpcForwardingHistory.getLimit());
+            events = dao.getEventsAfter(index.getLastIndex(), INDEX_PAGE_SIZE);
+            index.add(events);
+        } while (events.size() == INDEX_PAGE_SIZE);
+        index.markAsInitialized();
     }
 }
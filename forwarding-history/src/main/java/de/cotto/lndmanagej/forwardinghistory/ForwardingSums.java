@@ -0,0 +1,13 @@
+package de.cotto.lndmanagej.forwardinghistory;
+
+import de.cotto.lndmanagej.model.Coins;
+
+/**
+ * Sums over forwarding events.
+ *
+ * @param amount the sum of the forwarded amounts (as sent out, i.e. without fees)
+ * @param fees the sum of the fees earned for the forwards
+ */
+public record ForwardingSums(Coins amount, Coins fees) {
+    public static final ForwardingSums NONE = new ForwardingSums(Coins.NONE, Coins.NONE);
+}
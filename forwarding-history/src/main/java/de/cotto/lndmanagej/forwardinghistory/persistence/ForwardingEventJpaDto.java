@@ -49,8 +49,8 @@ class ForwardingEventJpaDto {
                 eventIndex,
                 Coins.ofMilliSatoshis(amountIncoming),
                 Coins.ofMilliSatoshis(amountOutgoing),
-                ChannelId.fromShortChannelId(channelIncoming),
-                ChannelId.fromShortChannelId(channelOutgoing),
+                ChannelId.ofOwnChannel(channelIncoming),
+                ChannelId.ofOwnChannel(channelOutgoing),
                 LocalDateTime.ofEpochSecond(epochSecond, nanoseconds, ZoneOffset.UTC)
         );
     }
@@ -1,9 +1,14 @@
 package de.cotto.lndmanagej.forwardinghistory.persistence;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
 import de.cotto.lndmanagej.forwardinghistory.ForwardingEventsDao;
 import de.cotto.lndmanagej.model.ChannelId;
 import de.cotto.lndmanagej.model.ForwardingEvent;
 import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
@@ -14,18 +19,49 @@ import java.util.List;
 @Component
 @Transactional
 public class ForwardingEventsDaoImpl implements ForwardingEventsDao {
+    private static final String INSERT = "INSERT INTO forwarding_events (event_index, amount_incoming, "
+            + "amount_outgoing, channel_incoming, channel_outgoing, timestamp) VALUES (?, ?, ?, ?, ?, ?)";
+
     private final ForwardingEventsRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final Counter insertedEvents;
 
-    public ForwardingEventsDaoImpl(ForwardingEventsRepository repository) {
+    public ForwardingEventsDaoImpl(
+            ForwardingEventsRepository repository,
+            JdbcTemplate jdbcTemplate,
+            MetricRegistry metricRegistry,
+            @Value("${lndmanagej.bulk-insert-batch-size:1000}") int batchSize
+    ) {
         this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        insertedEvents = metricRegistry.counter(MetricRegistry.name(getClass(), "inserted"));
     }
 
+    /**
+     * Inserts the events that are not persisted, yet (i.e. with an index larger than the current offset), using JDBC
+     * batch inserts instead of merging each event individually.
+     */
     @Override
     public void save(Collection<ForwardingEvent> forwardingEvents) {
+        int offset = getOffset();
         List<ForwardingEventJpaDto> converted = forwardingEvents.stream()
+                .filter(forwardingEvent -> forwardingEvent.index() > offset)
                 .map(ForwardingEventJpaDto::createFromModel)
                 .toList();
-        repository.saveAll(converted);
+        if (converted.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT, converted, batchSize, (statement, jpaDto) -> {
+            statement.setInt(1, jpaDto.getIndex());
+            statement.setLong(2, jpaDto.getAmountIncoming());
+            statement.setLong(3, jpaDto.getAmountOutgoing());
+            statement.setLong(4, jpaDto.getChannelIncoming());
+            statement.setLong(5, jpaDto.getChannelOutgoing());
+            statement.setLong(6, jpaDto.getTimestamp());
+        });
+        insertedEvents.inc(converted.size());
     }
 
     @Override
@@ -33,6 +69,13 @@ public class ForwardingEventsDaoImpl implements ForwardingEventsDao {
         return repository.findMaxIndex().orElse(0);
     }
 
+    @Override
+    public List<ForwardingEvent> getEventsAfter(int index, int limit) {
+        return repository.findByEventIndexGreaterThanOrderByEventIndexAsc(index, PageRequest.ofSize(limit)).stream()
+                .map(ForwardingEventJpaDto::toModel)
+                .toList();
+    }
+
     @Override
     public List<ForwardingEvent> getEventsWithOutgoingChannel(ChannelId channelId, Duration maxAge) {
         return repository.findByChannelOutgoingAndTimestampGreaterThan(
@@ -1,5 +1,6 @@
 package de.cotto.lndmanagej.forwardinghistory.persistence;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
@@ -10,6 +11,8 @@ public interface ForwardingEventsRepository extends JpaRepository<ForwardingEven
     @Query("SELECT max(eventIndex) FROM ForwardingEventJpaDto")
     Optional<Integer> findMaxIndex();
 
+    List<ForwardingEventJpaDto> findByEventIndexGreaterThanOrderByEventIndexAsc(int eventIndex, Pageable pageable);
+
     List<ForwardingEventJpaDto> findByChannelIncomingAndTimestampGreaterThan(long channelId, long after);
 
     List<ForwardingEventJpaDto> findByChannelOutgoingAndTimestampGreaterThan(long channelId, long after);
@@ -0,0 +1,178 @@
+package de.cotto.lndmanagej.forwardinghistory;
+
+import de.cotto.lndmanagej.model.Coins;
+import de.cotto.lndmanagej.model.ForwardingEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID;
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID_2;
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID_3;
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID_4;
+import static de.cotto.lndmanagej.model.ForwardingEventFixtures.FORWARDING_EVENT;
+import static de.cotto.lndmanagej.model.ForwardingEventFixtures.FORWARDING_EVENT_2;
+import static de.cotto.lndmanagej.model.ForwardingEventFixtures.FORWARDING_EVENT_3;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ForwardingEventsIndexTest {
+    private static final Duration MAX_AGE = Duration.ofDays(365 * 1_000);
+
+    private final ForwardingEventsIndex index = new ForwardingEventsIndex();
+
+    @Test
+    void not_initialized() {
+        index.add(List.of(FORWARDING_EVENT));
+        assertThat(index.isInitialized()).isFalse();
+        assertThat(index.getSumsWithIncomingChannel(CHANNEL_ID, MAX_AGE)).isEmpty();
+        assertThat(index.getSumsWithOutgoingChannel(CHANNEL_ID_2, MAX_AGE)).isEmpty();
+        assertThat(index.getEventsWithIncomingChannel(CHANNEL_ID)).isEmpty();
+        assertThat(index.getEventsWithOutgoingChannel(CHANNEL_ID_2)).isEmpty();
+    }
+
+    @Test
+    void getLastIndex_initially_0() {
+        assertThat(index.getLastIndex()).isEqualTo(0);
+    }
+
+    @Test
+    void getLastIndex() {
+        index.add(List.of(FORWARDING_EVENT, FORWARDING_EVENT_2));
+        assertThat(index.getLastIndex()).isEqualTo(2);
+    }
+
+    @Nested
+    class Initialized {
+        @BeforeEach
+        void setUp() {
+            index.markAsInitialized();
+        }
+
+        @Test
+        void isInitialized() {
+            assertThat(index.isInitialized()).isTrue();
+        }
+
+        @Test
+        void unknown_channel() {
+            assertThat(index.getSumsWithIncomingChannel(CHANNEL_ID, MAX_AGE)).contains(ForwardingSums.NONE);
+        }
+
+        @Test
+        void incoming() {
+            index.add(List.of(FORWARDING_EVENT, FORWARDING_EVENT_2, FORWARDING_EVENT_3));
+            assertThat(index.getSumsWithIncomingChannel(CHANNEL_ID, MAX_AGE))
+                    .contains(sums(FORWARDING_EVENT));
+            assertThat(index.getSumsWithIncomingChannel(CHANNEL_ID_2, MAX_AGE))
+                    .contains(sums(FORWARDING_EVENT_3));
+        }
+
+        @Test
+        void outgoing() {
+            index.add(List.of(FORWARDING_EVENT, FORWARDING_EVENT_2, FORWARDING_EVENT_3));
+            assertThat(index.getSumsWithOutgoingChannel(CHANNEL_ID, MAX_AGE))
+                    .contains(sums(FORWARDING_EVENT_2));
+            assertThat(index.getSumsWithOutgoingChannel(CHANNEL_ID_4, MAX_AGE))
+                    .contains(sums(FORWARDING_EVENT_3));
+            assertThat(index.getSumsWithOutgoingChannel(CHANNEL_ID_3, MAX_AGE)).contains(ForwardingSums.NONE);
+        }
+
+        @Test
+        void events_for_unknown_channel() {
+            assertThat(index.getEventsWithIncomingChannel(CHANNEL_ID)).contains(List.of());
+        }
+
+        @Test
+        void events_incoming() {
+            index.add(List.of(FORWARDING_EVENT, FORWARDING_EVENT_2, FORWARDING_EVENT_3));
+            assertThat(index.getEventsWithIncomingChannel(CHANNEL_ID)).contains(List.of(FORWARDING_EVENT));
+            assertThat(index.getEventsWithIncomingChannel(CHANNEL_ID_2)).contains(List.of(FORWARDING_EVENT_3));
+        }
+
+        @Test
+        void events_outgoing() {
+            index.add(List.of(FORWARDING_EVENT, FORWARDING_EVENT_2, FORWARDING_EVENT_3));
+            assertThat(index.getEventsWithOutgoingChannel(CHANNEL_ID)).contains(List.of(FORWARDING_EVENT_2));
+            assertThat(index.getEventsWithOutgoingChannel(CHANNEL_ID_4)).contains(List.of(FORWARDING_EVENT_3));
+        }
+
+        @Test
+        void events_ordered_by_timestamp() {
+            ForwardingEvent event1 = event(1, 1_000, 100, 1);
+            ForwardingEvent event2 = event(2, 2_000, 200, 10);
+            ForwardingEvent event3 = event(3, 4_000, 400, 5);
+            index.add(List.of(event1, event2, event3));
+            assertThat(index.getEventsWithIncomingChannel(CHANNEL_ID)).contains(List.of(event2, event3, event1));
+        }
+
+        @Test
+        void sums_several_events() {
+            ForwardingEvent event1 = event(1, 1_000, 100, 3);
+            ForwardingEvent event2 = event(2, 2_000, 200, 2);
+            index.add(List.of(event1, event2));
+            assertThat(index.getSumsWithIncomingChannel(CHANNEL_ID, MAX_AGE))
+                    .contains(new ForwardingSums(Coins.ofMilliSatoshis(3_000), Coins.ofMilliSatoshis(300)));
+        }
+
+        @Test
+        void ignores_events_added_before() {
+            index.add(List.of(FORWARDING_EVENT));
+            index.add(List.of(FORWARDING_EVENT, FORWARDING_EVENT_2));
+            assertThat(index.getSumsWithIncomingChannel(CHANNEL_ID, MAX_AGE)).contains(sums(FORWARDING_EVENT));
+        }
+
+        @Test
+        void considers_max_age() {
+            index.add(List.of(event(1, 1_000, 100, 10), event(2, 2_000, 200, 5), event(3, 4_000, 400, 1)));
+            assertThat(index.getSumsWithIncomingChannel(CHANNEL_ID, Duration.ofDays(7)))
+                    .contains(new ForwardingSums(Coins.ofMilliSatoshis(6_000), Coins.ofMilliSatoshis(600)));
+            assertThat(index.getSumsWithIncomingChannel(CHANNEL_ID, Duration.ofDays(2)))
+                    .contains(new ForwardingSums(Coins.ofMilliSatoshis(4_000), Coins.ofMilliSatoshis(400)));
+            assertThat(index.getSumsWithIncomingChannel(CHANNEL_ID, Duration.ofHours(1))).contains(ForwardingSums.NONE);
+        }
+
+        @Test
+        void event_with_older_timestamp_added_later() {
+            index.add(List.of(event(1, 1_000, 100, 1), event(2, 2_000, 200, 10), event(3, 4_000, 400, 5)));
+            assertThat(index.getSumsWithIncomingChannel(CHANNEL_ID, Duration.ofDays(7)))
+                    .contains(new ForwardingSums(Coins.ofMilliSatoshis(5_000), Coins.ofMilliSatoshis(500)));
+            assertThat(index.getSumsWithIncomingChannel(CHANNEL_ID, MAX_AGE))
+                    .contains(new ForwardingSums(Coins.ofMilliSatoshis(7_000), Coins.ofMilliSatoshis(700)));
+        }
+
+        @Test
+        void many_events() {
+            List<ForwardingEvent> events = new ArrayList<>();
+            for (int i = 1; i <= 1_000; i++) {
+                events.add(event(i, 1_000, 1, 2_000 - i));
+            }
+            index.add(events);
+            assertThat(index.getSumsWithIncomingChannel(CHANNEL_ID, Duration.ofDays(1_500)))
+                    .contains(new ForwardingSums(Coins.ofMilliSatoshis(500_000), Coins.ofMilliSatoshis(500)));
+            assertThat(index.getSumsWithOutgoingChannel(CHANNEL_ID_2, MAX_AGE))
+                    .contains(new ForwardingSums(Coins.ofMilliSatoshis(1_000_000), Coins.ofMilliSatoshis(1_000)));
+        }
+    }
+
+    private static ForwardingSums sums(ForwardingEvent forwardingEvent) {
+        return new ForwardingSums(forwardingEvent.amountOut(), forwardingEvent.fees());
+    }
+
+    private static ForwardingEvent event(int eventIndex, long amountOut, long fees, int daysAgo) {
+        return new ForwardingEvent(
+                eventIndex,
+                Coins.ofMilliSatoshis(amountOut + fees),
+                Coins.ofMilliSatoshis(amountOut),
+                CHANNEL_ID,
+                CHANNEL_ID_2,
+                LocalDateTime.now(ZoneOffset.UTC).minusDays(daysAgo).truncatedTo(ChronoUnit.MILLIS)
+        );
+    }
+}
@@ -4,6 +4,7 @@ import de.cotto.lndmanagej.grpc.GrpcForwardingHistory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -13,12 +14,20 @@ import java.util.Optional;
 
 import static de.cotto.lndmanagej.model.ForwardingEventFixtures.FORWARDING_EVENT;
 import static de.cotto.lndmanagej.model.ForwardingEventFixtures.FORWARDING_EVENT_2;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class ForwardingHistoryTest {
     private static final int OFFSET = 1_234;
+    private static final int INDEX_PAGE_SIZE = 10_000;
 
     @InjectMocks
     private ForwardingHistory service;
@@ -29,6 +38,9 @@ class ForwardingHistoryTest {
     @Mock
     private ForwardingEventsDao dao;
 
+    @Mock
+    private ForwardingEventsIndex index;
+
     @BeforeEach
     void setUp() {
         when(dao.getOffset()).thenReturn(OFFSET);
@@ -50,14 +62,71 @@ class ForwardingHistoryTest {
         verify(dao).save(List.of(FORWARDING_EVENT, FORWARDING_EVENT_2));
     }
 
+    @Test
+    void refresh_adds_saved_events_to_index() {
+        when(grpcForwardingHistory.getForwardingEventsAfter(OFFSET)).thenReturn(
+                Optional.of(List.of(FORWARDING_EVENT, FORWARDING_EVENT_2))
+        ).thenReturn(Optional.of(List.of()));
+        service.refresh();
+        InOrder inOrder = inOrder(dao, index);
+        inOrder.verify(dao).save(List.of(FORWARDING_EVENT, FORWARDING_EVENT_2));
+        inOrder.verify(index).add(List.of(FORWARDING_EVENT, FORWARDING_EVENT_2));
+    }
+
     @Test
     void refresh_repeats_while_at_limit() {
         when(grpcForwardingHistory.getForwardingEventsAfter(OFFSET))
-                .thenReturn(Optional.of(List.of(FORWARDING_EVENT)))
-                .thenReturn(Optional.of(List.of(FORWARDING_EVENT_2)))
-                .thenReturn(Optional.of(List.of()));
+                .thenReturn(Optional.of(List.of(FORWARDING_EVENT)));
+        when(grpcForwardingHistory.getForwardingEventsAfter(FORWARDING_EVENT.index()))
+                .thenReturn(Optional.of(List.of(FORWARDING_EVENT_2)));
+        service.refresh();
+        InOrder inOrder = inOrder(dao);
+        inOrder.verify(dao).save(List.of(FORWARDING_EVENT));
+        inOrder.verify(dao).save(List.of(FORWARDING_EVENT_2));
+    }
+
+    @Test
+    void refresh_uses_offset_of_previous_page() {
+        when(grpcForwardingHistory.getForwardingEventsAfter(OFFSET))
+                .thenReturn(Optional.of(List.of(FORWARDING_EVENT_2)));
+        service.refresh();
+        verify(grpcForwardingHistory).getForwardingEventsAfter(FORWARDING_EVENT_2.index());
+        verify(dao, times(1)).getOffset();
+    }
+
+    @Test
+    void refresh_fails_if_saving_fails() {
+        when(grpcForwardingHistory.getForwardingEventsAfter(OFFSET))
+                .thenReturn(Optional.of(List.of(FORWARDING_EVENT)));
+        doThrow(IllegalStateException.class).when(dao).save(List.of(FORWARDING_EVENT));
+        assertThatIllegalStateException().isThrownBy(() -> service.refresh());
+        verify(index, never()).add(List.of(FORWARDING_EVENT));
+        assertThat(service.isCaughtUp()).isFalse();
+    }
+
+    @Test
+    void isCaughtUp_after_refresh() {
+        when(grpcForwardingHistory.getForwardingEventsAfter(OFFSET))
+                .thenReturn(Optional.of(List.of(FORWARDING_EVENT)));
+        service.refresh();
+        assertThat(service.isCaughtUp()).isTrue();
+    }
+
+    @Test
+    void refresh_initializes_index_with_persisted_events() {
+        when(dao.getEventsAfter(0, INDEX_PAGE_SIZE)).thenReturn(List.of(FORWARDING_EVENT, FORWARDING_EVENT_2));
+        service.refresh();
+        InOrder inOrder = inOrder(index, grpcForwardingHistory);
+        inOrder.verify(index).add(List.of(FORWARDING_EVENT, FORWARDING_EVENT_2));
+        inOrder.verify(index).markAsInitialized();
+        inOrder.verify(grpcForwardingHistory).getForwardingEventsAfter(OFFSET);
+    }
+
+    @Test
+    void refresh_does_not_initialize_index_twice() {
+        when(index.isInitialized()).thenReturn(true);
         service.refresh();
-        verify(dao).save(List.of(FORWARDING_EVENT));
-        verify(dao).save(List.of(FORWARDING_EVENT_2));
+        verify(dao, never()).getEventsAfter(anyInt(), anyInt());
+        verify(index, never()).markAsInitialized();
     }
-}
\ No newline at end of file
+}
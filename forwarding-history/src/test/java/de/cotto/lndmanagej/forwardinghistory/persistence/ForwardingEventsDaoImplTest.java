@@ -1,42 +1,74 @@
 package de.cotto.lndmanagej.forwardinghistory.persistence;
 
+import com.codahale.metrics.MetricRegistry;
 import de.cotto.lndmanagej.model.ForwardingEvent;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatcher;
-import org.mockito.InjectMocks;
+import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.time.Duration;
 import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID;
 import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID_2;
 import static de.cotto.lndmanagej.model.ForwardingEventFixtures.FORWARDING_EVENT;
 import static de.cotto.lndmanagej.model.ForwardingEventFixtures.FORWARDING_EVENT_2;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.longThat;
+import static org.mockito.ArgumentMatchers.startsWith;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class ForwardingEventsDaoImplTest {
     private static final Duration MAX_AGE = Duration.ofDays(365 * 1_000);
 
-    @InjectMocks
+    private static final int BATCH_SIZE = 123;
+
     private ForwardingEventsDaoImpl dao;
 
     @Mock
     private ForwardingEventsRepository repository;
 
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PreparedStatement preparedStatement;
+
+    @Captor
+    private ArgumentCaptor<ParameterizedPreparedStatementSetter<ForwardingEventJpaDto>> setterCaptor;
+
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+
+    @BeforeEach
+    void setUp() {
+        dao = new ForwardingEventsDaoImpl(repository, jdbcTemplate, metricRegistry, BATCH_SIZE);
+    }
+
     @Test
     void getOffset_initially_0() {
         when(repository.findMaxIndex()).thenReturn(Optional.empty());
@@ -53,14 +85,69 @@ class ForwardingEventsDaoImplTest {
     @Test
     void save_empty() {
         dao.save(Set.of());
-        verify(repository).saveAll(List.of());
+        verifyNoInteractions(jdbcTemplate);
     }
 
     @Test
     void save_two() {
-        dao.save(Set.of(FORWARDING_EVENT, FORWARDING_EVENT_2));
-        Set<ForwardingEvent> expected = Set.of(FORWARDING_EVENT, FORWARDING_EVENT_2);
-        verify(repository).saveAll(argThat(isSet(expected)));
+        dao.save(List.of(FORWARDING_EVENT, FORWARDING_EVENT_2));
+        verify(jdbcTemplate).batchUpdate(
+                startsWith("INSERT INTO forwarding_events"),
+                argThat(isList(List.of(FORWARDING_EVENT, FORWARDING_EVENT_2))),
+                eq(BATCH_SIZE),
+                any()
+        );
+    }
+
+    @Test
+    void save_sets_values() throws SQLException {
+        dao.save(List.of(FORWARDING_EVENT));
+        verify(jdbcTemplate).batchUpdate(anyString(), anyCollection(), anyInt(), setterCaptor.capture());
+        setterCaptor.getValue().setValues(preparedStatement, ForwardingEventJpaDto.createFromModel(FORWARDING_EVENT));
+        verify(preparedStatement).setInt(1, FORWARDING_EVENT.index());
+        verify(preparedStatement).setLong(2, FORWARDING_EVENT.amountIn().milliSatoshis());
+        verify(preparedStatement).setLong(3, FORWARDING_EVENT.amountOut().milliSatoshis());
+        verify(preparedStatement).setLong(4, FORWARDING_EVENT.channelIn().getShortChannelId());
+        verify(preparedStatement).setLong(5, FORWARDING_EVENT.channelOut().getShortChannelId());
+        verify(preparedStatement).setLong(6, FORWARDING_EVENT.timestamp().toInstant(ZoneOffset.UTC).toEpochMilli());
+    }
+
+    @Test
+    void save_skips_known_events() {
+        when(repository.findMaxIndex()).thenReturn(Optional.of(FORWARDING_EVENT.index()));
+        dao.save(List.of(FORWARDING_EVENT, FORWARDING_EVENT_2));
+        verify(jdbcTemplate).batchUpdate(
+                anyString(),
+                argThat(isList(List.of(FORWARDING_EVENT_2))),
+                anyInt(),
+                any()
+        );
+    }
+
+    @Test
+    void save_nothing_new() {
+        when(repository.findMaxIndex()).thenReturn(Optional.of(FORWARDING_EVENT_2.index()));
+        dao.save(List.of(FORWARDING_EVENT, FORWARDING_EVENT_2));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void save_counts_inserted_events() {
+        dao.save(List.of(FORWARDING_EVENT, FORWARDING_EVENT_2));
+        String name = MetricRegistry.name(ForwardingEventsDaoImpl.class, "inserted");
+        assertThat(metricRegistry.counter(name).getCount()).isEqualTo(2);
+    }
+
+    @Test
+    void getEventsAfter_empty() {
+        assertThat(dao.getEventsAfter(0, 10)).isEmpty();
+    }
+
+    @Test
+    void getEventsAfter() {
+        when(repository.findByEventIndexGreaterThanOrderByEventIndexAsc(1, PageRequest.ofSize(10)))
+                .thenReturn(List.of(ForwardingEventJpaDto.createFromModel(FORWARDING_EVENT_2)));
+        assertThat(dao.getEventsAfter(1, 10)).containsExactly(FORWARDING_EVENT_2);
     }
 
     @Test
@@ -128,10 +215,7 @@ class ForwardingEventsDaoImplTest {
     }
 
     @SuppressWarnings("PMD.LinguisticNaming")
-    private <S extends ForwardingEventJpaDto> ArgumentMatcher<Iterable<S>> isSet(Set<ForwardingEvent> expected) {
-        return iterable -> iterable instanceof List && ((List<S>) iterable).stream()
-                .map(ForwardingEventJpaDto::toModel)
-                .collect(Collectors.toSet())
-                .equals(expected);
+    private ArgumentMatcher<Collection<ForwardingEventJpaDto>> isList(List<ForwardingEvent> expected) {
+        return collection -> collection.stream().map(ForwardingEventJpaDto::toModel).toList().equals(expected);
     }
 }
\ No newline at end of file
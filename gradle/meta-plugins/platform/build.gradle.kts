@@ -23,5 +23,6 @@ dependencies {
         api("io.grpc:grpc-stub:$grpcVersion")
         api("org.springframework.boot:spring-boot-gradle-plugin:$springBootVersion")
         api("io.vavr:vavr:0.10.4")
+        api("me.champeau.jmh:jmh-gradle-plugin:0.7.1")
     }
 }
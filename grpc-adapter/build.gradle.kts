@@ -1,5 +1,6 @@
 plugins {
     id("lnd-manageJ.java-library-conventions")
+    id("lnd-manageJ.benchmarks")
 }
 
 dependencies {
@@ -7,8 +8,10 @@ dependencies {
     implementation(project(":grpc-client"))
     implementation(project(":configuration"))
     implementation(project(":model"))
+    implementation("org.eclipse.collections:eclipse-collections")
     testImplementation("org.awaitility:awaitility")
     testImplementation(testFixtures(project(":model")))
+    jmhImplementation("org.mockito:mockito-core")
 }
 
 pitest {
@@ -0,0 +1,97 @@
+package de.cotto.lndmanagej.grpc;
+
+import de.cotto.lndmanagej.model.DirectedChannelEdge;
+import lnrpc.ChannelEdge;
+import lnrpc.ChannelGraph;
+import lnrpc.RoutingPolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Converts a synthetic {@code DescribeGraph} response (15,000 nodes, 80,000 channels) to the graph model, and
+ * iterates over all edges of the resulting snapshot. The policies are drawn from a small set of common values, as
+ * most nodes use one of a few fee settings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GrpcGraphBenchmark {
+    private static final long SEED = 42;
+    private static final int NUMBER_OF_NODES = 15_000;
+    private static final int NUMBER_OF_CHANNELS = 80_000;
+    private static final long FIRST_CHANNEL = 774_909_407_114_231_809L;
+    private static final int[] FEE_RATES = {0, 1, 10, 50, 100, 200, 500, 1_000, 2_500};
+    private static final int[] TIME_LOCK_DELTAS = {40, 80, 144};
+
+    private GrpcGraph grpcGraph;
+    private Set<DirectedChannelEdge> channelEdges;
+
+    public GrpcGraphBenchmark() {
+        // default constructor
+    }
+
+    @Setup(Level.Trial)
+    public void createGraph() {
+        Random random = new Random(SEED);
+        String[] nodes = new String[NUMBER_OF_NODES];
+        for (int node = 0; node < NUMBER_OF_NODES; node++) {
+            nodes[node] = "02" + "%064x".formatted(node + 1);
+        }
+        ChannelGraph.Builder channelGraph = ChannelGraph.newBuilder();
+        for (int channel = 0; channel < NUMBER_OF_CHANNELS; channel++) {
+            int node1 = random.nextInt(NUMBER_OF_NODES);
+            int node2 = (node1 + 1 + random.nextInt(NUMBER_OF_NODES - 1)) % NUMBER_OF_NODES;
+            channelGraph.addEdges(ChannelEdge.newBuilder()
+                    .setChannelId(FIRST_CHANNEL + ((long) channel << 16))
+                    .setCapacity(100_000 + random.nextInt(50_000_000))
+                    .setNode1Pub(nodes[node1])
+                    .setNode2Pub(nodes[node2])
+                    .setNode1Policy(getPolicy(random))
+                    .setNode2Policy(getPolicy(random))
+                    .build());
+        }
+        GrpcService grpcService = mock(GrpcService.class, withSettings().stubOnly());
+        when(grpcService.describeGraph()).thenReturn(Optional.of(channelGraph.build()));
+        grpcGraph = new GrpcGraph(grpcService, new GrpcPolicy());
+        channelEdges = grpcGraph.getChannelEdges().orElseThrow();
+    }
+
+    @Benchmark
+    public Optional<GraphSnapshot> loadGraph() {
+        grpcGraph.resetCache();
+        return grpcGraph.getSnapshot();
+    }
+
+    @Benchmark
+    public long iterateEdges() {
+        long capacitySum = 0;
+        for (DirectedChannelEdge channelEdge : channelEdges) {
+            capacitySum += channelEdge.capacity().milliSatoshis() + channelEdge.source().hashCode();
+        }
+        return capacitySum;
+    }
+
+    private static RoutingPolicy getPolicy(Random random) {
+        return RoutingPolicy.newBuilder()
+                .setFeeRateMilliMsat(FEE_RATES[random.nextInt(FEE_RATES.length)])
+                .setFeeBaseMsat(random.nextBoolean() ? 0 : 1_000)
+                .setTimeLockDelta(TIME_LOCK_DELTAS[random.nextInt(TIME_LOCK_DELTAS.length)])
+                .setMaxHtlcMsat(990_000_000)
+                .build();
+    }
+}
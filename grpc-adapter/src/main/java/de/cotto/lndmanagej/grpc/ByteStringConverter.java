@@ -1,6 +1,7 @@
 package de.cotto.lndmanagej.grpc;
 
 import com.google.protobuf.ByteString;
+import de.cotto.lndmanagej.model.Pubkey;
 
 import java.util.HexFormat;
 
@@ -13,6 +14,10 @@ public final class ByteStringConverter {
         return HexFormat.of().formatHex(byteString.toByteArray());
     }
 
+    public static Pubkey toPubkey(ByteString byteString) {
+        return Pubkey.create(byteString.toByteArray());
+    }
+
     public static ByteString fromHexString(String hexString) {
         byte[] bytes = HexFormat.of().parseHex(hexString);
         return ByteString.copyFrom(bytes);
@@ -0,0 +1,104 @@
+package de.cotto.lndmanagej.grpc;
+
+import de.cotto.lndmanagej.model.ChannelId;
+import de.cotto.lndmanagej.model.Coins;
+import de.cotto.lndmanagej.model.DirectedChannelEdge;
+import de.cotto.lndmanagej.model.Policy;
+import de.cotto.lndmanagej.model.Pubkey;
+import org.eclipse.collections.impl.map.mutable.primitive.LongIntHashMap;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable set of directed channel edges backed by primitive arrays. The edges of channel {@code c} have the indexes
+ * {@code 2c} (from node 1 to node 2) and {@code 2c + 1} (from node 2 to node 1). {@link DirectedChannelEdge} instances
+ * are only created when iterating over the set, and share the interned {@link Pubkey} and {@link Policy} instances.
+ */
+final class CompactEdgeSet extends AbstractSet<DirectedChannelEdge> {
+    private final long[] channelIds;
+    private final long[] capacitiesSat;
+    private final int[] nodes;
+    private final int[] policyIndexes;
+    private final Pubkey[] pubkeys;
+    private final Policy[] policies;
+    private final LongIntHashMap channelIndexes;
+
+    CompactEdgeSet(
+            long[] channelIds,
+            long[] capacitiesSat,
+            int[] nodes,
+            int[] policyIndexes,
+            Pubkey[] pubkeys,
+            Policy[] policies
+    ) {
+        super();
+        this.channelIds = channelIds;
+        this.capacitiesSat = capacitiesSat;
+        this.nodes = nodes;
+        this.policyIndexes = policyIndexes;
+        this.pubkeys = pubkeys;
+        this.policies = policies;
+        channelIndexes = new LongIntHashMap(channelIds.length);
+        for (int channelIndex = 0; channelIndex < channelIds.length; channelIndex++) {
+            channelIndexes.put(channelIds[channelIndex], channelIndex);
+        }
+    }
+
+    @Override
+    public int size() {
+        return nodes.length;
+    }
+
+    @Override
+    public boolean contains(Object object) {
+        if (!(object instanceof DirectedChannelEdge channelEdge)) {
+            return false;
+        }
+        int channelIndex = channelIndexes.getIfAbsent(channelEdge.channelId().getShortChannelId(), -1);
+        if (channelIndex == -1) {
+            return false;
+        }
+        return getEdge(2 * channelIndex).equals(channelEdge) || getEdge(2 * channelIndex + 1).equals(channelEdge);
+    }
+
+    @Override
+    public Iterator<DirectedChannelEdge> iterator() {
+        return new Iterator<>() {
+            private int edge;
+
+            @Override
+            public boolean hasNext() {
+                return edge < nodes.length;
+            }
+
+            @Override
+            public DirectedChannelEdge next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return getEdge(edge++);
+            }
+        };
+    }
+
+    @Override
+    public Spliterator<DirectedChannelEdge> spliterator() {
+        return IntStream.range(0, nodes.length).mapToObj(this::getEdge).spliterator();
+    }
+
+    private DirectedChannelEdge getEdge(int edge) {
+        int channelIndex = edge / 2;
+        int otherEdge = edge ^ 1;
+        return new DirectedChannelEdge(
+                ChannelId.fromShortChannelId(channelIds[channelIndex]),
+                Coins.ofSatoshis(capacitiesSat[channelIndex]),
+                pubkeys[nodes[edge]],
+                pubkeys[nodes[otherEdge]],
+                policies[policyIndexes[edge]]
+        );
+    }
+}
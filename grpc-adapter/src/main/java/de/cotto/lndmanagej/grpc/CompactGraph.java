@@ -0,0 +1,204 @@
+package de.cotto.lndmanagej.grpc;
+
+import de.cotto.lndmanagej.model.Policy;
+import de.cotto.lndmanagej.model.Pubkey;
+import org.eclipse.collections.impl.map.mutable.primitive.LongObjectHashMap;
+import org.eclipse.collections.impl.map.mutable.primitive.ObjectIntHashMap;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Mutable channel graph in compact form: channels are keyed by the (primitive) short channel ID, nodes are interned
+ * and referenced by an int index into a pubkey pool, and policies are deduplicated in a flyweight table. Immutable
+ * snapshots of the graph are created using {@link #toEdgeSet()}.
+ * <p>
+ * The pools are append-only arrays, so that snapshots share them instead of copying them: a snapshot only references
+ * entries that existed when it was created, and these are never modified. Before a snapshot is created, the pools are
+ * rebuilt from the channels if more than {@value #MAXIMUM_UNUSED_PERCENT}% of the nodes or policies are no longer
+ * used. This class is not thread-safe.
+ */
+final class CompactGraph {
+    static final int MAXIMUM_UNUSED_PERCENT = 25;
+    private static final int INITIAL_POOL_SIZE = 16;
+
+    private LongObjectHashMap<Channel> channels = new LongObjectHashMap<>();
+    private ObjectIntHashMap<String> nodeIndexes = new ObjectIntHashMap<>();
+    private Pubkey[] pubkeys = new Pubkey[INITIAL_POOL_SIZE];
+    private int numberOfPubkeys;
+    private ObjectIntHashMap<Policy> policyIndexes = new ObjectIntHashMap<>();
+    private Policy[] policies = new Policy[INITIAL_POOL_SIZE];
+    private int numberOfPolicies;
+
+    CompactGraph() {
+        // default constructor
+    }
+
+    void putChannel(long channelId, long capacitySat, String node1, String node2, Policy policy1, Policy policy2) {
+        channels.put(channelId, new Channel(
+                capacitySat,
+                getNodeIndex(node1),
+                getNodeIndex(node2),
+                getPolicyIndex(policy1),
+                getPolicyIndex(policy2)
+        ));
+    }
+
+    /**
+     * Sets the policy of the channel for the direction starting at the given source node. If the channel is not
+     * known, it is added with the given policy for the other direction.
+     */
+    void updatePolicy(
+            long channelId,
+            long capacitySat,
+            String source,
+            String target,
+            Policy policy,
+            Policy policyForUnknownDirection
+    ) {
+        int sourceIndex = getNodeIndex(source);
+        int policyIndex = getPolicyIndex(policy);
+        Channel channel = channels.get(channelId);
+        if (channel == null) {
+            int targetIndex = getNodeIndex(target);
+            int otherPolicyIndex = getPolicyIndex(policyForUnknownDirection);
+            channels.put(channelId, new Channel(capacitySat, sourceIndex, targetIndex, policyIndex, otherPolicyIndex));
+        } else if (channel.node1() == sourceIndex) {
+            channels.put(channelId, new Channel(
+                    capacitySat, channel.node1(), channel.node2(), policyIndex, channel.policy2()
+            ));
+        } else {
+            channels.put(channelId, new Channel(
+                    capacitySat, channel.node1(), channel.node2(), channel.policy1(), policyIndex
+            ));
+        }
+    }
+
+    void removeChannel(long channelId) {
+        channels.remove(channelId);
+    }
+
+    CompactEdgeSet toEdgeSet() {
+        compactIfNeeded();
+        int numberOfChannels = channels.size();
+        long[] channelIds = new long[numberOfChannels];
+        long[] capacitiesSat = new long[numberOfChannels];
+        int[] nodes = new int[2 * numberOfChannels];
+        int[] policyIndexesOfEdges = new int[2 * numberOfChannels];
+        int[] index = {0};
+        channels.forEachKeyValue((channelId, channel) -> {
+            int channelIndex = index[0]++;
+            channelIds[channelIndex] = channelId;
+            capacitiesSat[channelIndex] = channel.capacitySat();
+            nodes[2 * channelIndex] = channel.node1();
+            nodes[2 * channelIndex + 1] = channel.node2();
+            policyIndexesOfEdges[2 * channelIndex] = channel.policy1();
+            policyIndexesOfEdges[2 * channelIndex + 1] = channel.policy2();
+        });
+        return new CompactEdgeSet(
+                channelIds,
+                capacitiesSat,
+                nodes,
+                policyIndexesOfEdges,
+                pubkeys,
+                policies
+        );
+    }
+
+    int getNumberOfPubkeys() {
+        return numberOfPubkeys;
+    }
+
+    int getNumberOfPolicies() {
+        return numberOfPolicies;
+    }
+
+    private void compactIfNeeded() {
+        BitSet usedNodes = new BitSet(numberOfPubkeys);
+        BitSet usedPolicies = new BitSet(numberOfPolicies);
+        channels.forEachValue(channel -> {
+            usedNodes.set(channel.node1());
+            usedNodes.set(channel.node2());
+            usedPolicies.set(channel.policy1());
+            usedPolicies.set(channel.policy2());
+        });
+        if (isMostlyUsed(usedNodes, numberOfPubkeys) && isMostlyUsed(usedPolicies, numberOfPolicies)) {
+            return;
+        }
+        int[] newNodeIndexes = new int[numberOfPubkeys];
+        Pubkey[] newPubkeys = new Pubkey[Math.max(INITIAL_POOL_SIZE, usedNodes.cardinality())];
+        numberOfPubkeys = compact(usedNodes, pubkeys, newPubkeys, newNodeIndexes);
+        pubkeys = newPubkeys;
+        nodeIndexes = remap(nodeIndexes, usedNodes, newNodeIndexes);
+
+        int[] newPolicyIndexes = new int[numberOfPolicies];
+        Policy[] newPolicies = new Policy[Math.max(INITIAL_POOL_SIZE, usedPolicies.cardinality())];
+        numberOfPolicies = compact(usedPolicies, policies, newPolicies, newPolicyIndexes);
+        policies = newPolicies;
+        policyIndexes = remap(policyIndexes, usedPolicies, newPolicyIndexes);
+
+        LongObjectHashMap<Channel> newChannels = new LongObjectHashMap<>(channels.size());
+        channels.forEachKeyValue((channelId, channel) -> newChannels.put(channelId, new Channel(
+                channel.capacitySat(),
+                newNodeIndexes[channel.node1()],
+                newNodeIndexes[channel.node2()],
+                newPolicyIndexes[channel.policy1()],
+                newPolicyIndexes[channel.policy2()]
+        )));
+        channels = newChannels;
+    }
+
+    private static boolean isMostlyUsed(BitSet used, int poolSize) {
+        int unused = poolSize - used.cardinality();
+        return unused * 100L <= (long) poolSize * MAXIMUM_UNUSED_PERCENT;
+    }
+
+    private static <T> int compact(BitSet used, T[] pool, T[] newPool, int[] newIndexes) {
+        int newIndex = 0;
+        for (int index = used.nextSetBit(0); index >= 0; index = used.nextSetBit(index + 1)) {
+            newPool[newIndex] = pool[index];
+            newIndexes[index] = newIndex;
+            newIndex++;
+        }
+        return newIndex;
+    }
+
+    private static <T> ObjectIntHashMap<T> remap(ObjectIntHashMap<T> indexes, BitSet used, int[] newIndexes) {
+        ObjectIntHashMap<T> result = new ObjectIntHashMap<>(used.cardinality());
+        indexes.forEachKeyValue((key, index) -> {
+            if (used.get(index)) {
+                result.put(key, newIndexes[index]);
+            }
+        });
+        return result;
+    }
+
+    private int getNodeIndex(String pubkey) {
+        int nodeIndex = nodeIndexes.getIfAbsent(pubkey, -1);
+        if (nodeIndex == -1) {
+            if (numberOfPubkeys == pubkeys.length) {
+                pubkeys = Arrays.copyOf(pubkeys, 2 * numberOfPubkeys);
+            }
+            nodeIndex = numberOfPubkeys++;
+            pubkeys[nodeIndex] = Pubkey.create(pubkey);
+            nodeIndexes.put(pubkey, nodeIndex);
+        }
+        return nodeIndex;
+    }
+
+    private int getPolicyIndex(Policy policy) {
+        int policyIndex = policyIndexes.getIfAbsent(policy, -1);
+        if (policyIndex == -1) {
+            if (numberOfPolicies == policies.length) {
+                policies = Arrays.copyOf(policies, 2 * numberOfPolicies);
+            }
+            policyIndex = numberOfPolicies++;
+            policies[policyIndex] = policy;
+            policyIndexes.put(policy, policyIndex);
+        }
+        return policyIndex;
+    }
+
+    private record Channel(long capacitySat, int node1, int node2, int policy1, int policy2) {
+    }
+}
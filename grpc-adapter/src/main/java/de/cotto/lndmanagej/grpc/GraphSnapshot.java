@@ -0,0 +1,12 @@
+package de.cotto.lndmanagej.grpc;
+
+import de.cotto.lndmanagej.model.DirectedChannelEdge;
+
+import java.util.Set;
+
+/**
+ * An immutable view of the channel graph. The version is increased whenever a new snapshot is published, so that
+ * consumers can cheaply detect whether derived data needs to be recomputed.
+ */
+public record GraphSnapshot(long version, Set<DirectedChannelEdge> channelEdges) {
+}
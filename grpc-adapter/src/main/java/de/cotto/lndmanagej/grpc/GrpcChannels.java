@@ -119,7 +119,7 @@ public class GrpcChannels extends GrpcChannelsBase {
         );
         return new LocalOpenChannel(
                 new ChannelCoreInformation(
-                        ChannelId.fromShortChannelId(lndChannel.getChanId()),
+                        ChannelId.ofOwnChannel(lndChannel.getChanId()),
                         ChannelPoint.create(lndChannel.getChannelPoint()),
                         Coins.ofSatoshis(lndChannel.getCapacity())
                 ), ownPubkey,
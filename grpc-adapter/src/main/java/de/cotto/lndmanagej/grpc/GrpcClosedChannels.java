@@ -152,6 +152,6 @@ public class GrpcClosedChannels extends GrpcChannelsBase {
         if (chanId == 0) {
             return resolveChannelId(channelPoint);
         }
-        return Optional.of(ChannelId.fromShortChannelId(chanId));
+        return Optional.of(ChannelId.ofOwnChannel(chanId));
     }
 }
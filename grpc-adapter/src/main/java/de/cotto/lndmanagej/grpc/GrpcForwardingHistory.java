@@ -4,6 +4,7 @@ import de.cotto.lndmanagej.model.ChannelId;
 import de.cotto.lndmanagej.model.Coins;
 import de.cotto.lndmanagej.model.ForwardingEvent;
 import lnrpc.ForwardingHistoryResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.time.Instant;
@@ -15,16 +16,16 @@ import java.util.Optional;
 
 @Component
 public class GrpcForwardingHistory {
-    private static final int LIMIT = 1_000;
-
     private final GrpcService grpcService;
+    private final int limit;
 
-    public GrpcForwardingHistory(GrpcService grpcService) {
+    public GrpcForwardingHistory(GrpcService grpcService, @Value("${lndmanagej.grpc-page-size:5000}") int limit) {
         this.grpcService = grpcService;
+        this.limit = limit;
     }
 
     public Optional<List<ForwardingEvent>> getForwardingEventsAfter(int offset) {
-        ForwardingHistoryResponse response = grpcService.getForwardingHistory(offset, LIMIT).orElse(null);
+        ForwardingHistoryResponse response = grpcService.getForwardingHistory(offset, limit).orElse(null);
         if (response == null) {
             return Optional.empty();
         }
@@ -40,7 +41,7 @@ public class GrpcForwardingHistory {
     }
 
     public int getLimit() {
-        return LIMIT;
+        return limit;
     }
 
     private ForwardingEvent toForwardingEvent(lnrpc.ForwardingEvent lndForwardingEvent, int index) {
@@ -49,8 +50,8 @@ public class GrpcForwardingHistory {
                 index,
                 Coins.ofMilliSatoshis(lndForwardingEvent.getAmtInMsat()),
                 Coins.ofMilliSatoshis(lndForwardingEvent.getAmtOutMsat()),
-                ChannelId.fromShortChannelId(lndForwardingEvent.getChanIdIn()),
-                ChannelId.fromShortChannelId(lndForwardingEvent.getChanIdOut()),
+                ChannelId.ofOwnChannel(lndForwardingEvent.getChanIdIn()),
+                ChannelId.ofOwnChannel(lndForwardingEvent.getChanIdOut()),
                 LocalDateTime.ofInstant(timestamp, ZoneOffset.UTC)
         );
     }
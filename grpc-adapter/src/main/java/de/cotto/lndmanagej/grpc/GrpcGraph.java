@@ -1,75 +1,180 @@
 package de.cotto.lndmanagej.grpc;
 
-import com.github.benmanes.caffeine.cache.LoadingCache;
-import de.cotto.lndmanagej.caching.CacheBuilder;
-import de.cotto.lndmanagej.model.ChannelId;
 import de.cotto.lndmanagej.model.Coins;
 import de.cotto.lndmanagej.model.DirectedChannelEdge;
 import de.cotto.lndmanagej.model.Policy;
-import de.cotto.lndmanagej.model.Pubkey;
+import io.grpc.StatusRuntimeException;
 import lnrpc.ChannelEdge;
+import lnrpc.ChannelEdgeUpdate;
 import lnrpc.ChannelGraph;
+import lnrpc.ClosedChannelUpdate;
+import lnrpc.GraphTopologyUpdate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.Nullable;
 import java.time.Duration;
-import java.util.LinkedHashSet;
+import java.util.Iterator;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Provides the channel graph. The graph is loaded once using {@code DescribeGraph} and then kept up to date by applying
+ * the updates sent via {@code SubscribeChannelGraph}. Readers get an immutable {@link GraphSnapshot}, which is
+ * replaced by a new snapshot (with a higher version) at most every {@link #SNAPSHOT_INTERVAL} if updates were applied.
+ * The graph is held in the compact form of {@link CompactGraph}, the edges of a snapshot are a view on primitive
+ * arrays.
+ */
 @Component
 public class GrpcGraph {
     private static final Policy DEFAULT_DISABLED_POLICY = new Policy(0, Coins.NONE, false, 0, Coins.NONE);
+    private static final Duration SNAPSHOT_INTERVAL = Duration.ofSeconds(10);
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
     private final GrpcService grpcService;
-    private final LoadingCache<Object, Optional<Set<DirectedChannelEdge>>> channelEdgeCache;
     private final GrpcPolicy grpcPolicy;
+    private final Object seedLock = new Object();
+    private CompactGraph graph = new CompactGraph();
+    private boolean seeded;
+    private boolean requested;
+    private boolean changed;
+    private boolean publishImmediately;
+    private long version;
+    private long publishedAtNanos;
+    @Nullable
+    private GraphSnapshot snapshot;
 
     public GrpcGraph(GrpcService grpcService, GrpcPolicy grpcPolicy) {
         this.grpcService = grpcService;
         this.grpcPolicy = grpcPolicy;
-        channelEdgeCache = new CacheBuilder()
-                .withExpiry(Duration.ofMinutes(2))
-                .withRefresh(Duration.ofMinutes(1))
-                .withSoftValues(true)
-                .build(this::getChannelEdgesWithoutCache);
     }
 
     public Optional<Set<DirectedChannelEdge>> getChannelEdges() {
-        return channelEdgeCache.get("");
+        return getSnapshot().map(GraphSnapshot::channelEdges);
+    }
+
+    public Optional<GraphSnapshot> getSnapshot() {
+        if (!isSeeded() && !seed(false)) {
+            return Optional.empty();
+        }
+        synchronized (this) {
+            requested = true;
+            if (shouldPublish()) {
+                publish();
+            }
+            return Optional.ofNullable(snapshot);
+        }
     }
 
     public void resetCache() {
-        channelEdgeCache.invalidateAll();
+        synchronized (this) {
+            seeded = false;
+        }
     }
 
-    private Optional<Set<DirectedChannelEdge>> getChannelEdgesWithoutCache() {
-        ChannelGraph channelGraph = grpcService.describeGraph().orElse(null);
-        if (channelGraph == null) {
-            return Optional.empty();
+    @Scheduled(fixedDelay = 10, timeUnit = TimeUnit.SECONDS)
+    public void applyUpdates() {
+        if (!isRequested()) {
+            return;
+        }
+        Iterator<GraphTopologyUpdate> updates = grpcService.subscribeChannelGraph().orElse(null);
+        if (updates == null) {
+            return;
+        }
+        // updates sent before the subscription was created are not included, so (re-)load the graph afterwards
+        if (!seed(true)) {
+            return;
+        }
+        try {
+            while (updates.hasNext()) {
+                apply(updates.next());
+            }
+        } catch (StatusRuntimeException exception) {
+            logger.warn("Channel graph subscription failed: {}", exception.getMessage());
+        }
+    }
+
+    private synchronized boolean isSeeded() {
+        return seeded;
+    }
+
+    private synchronized boolean isRequested() {
+        return requested;
+    }
+
+    private boolean seed(boolean force) {
+        synchronized (seedLock) {
+            if (!force && isSeeded()) {
+                return true;
+            }
+            ChannelGraph channelGraph = grpcService.describeGraph().orElse(null);
+            if (channelGraph == null) {
+                return false;
+            }
+            CompactGraph newGraph = new CompactGraph();
+            for (ChannelEdge channelEdge : channelGraph.getEdgesList()) {
+                newGraph.putChannel(
+                        channelEdge.getChannelId(),
+                        channelEdge.getCapacity(),
+                        channelEdge.getNode1Pub(),
+                        channelEdge.getNode2Pub(),
+                        getNode1Policy(channelEdge),
+                        getNode2Policy(channelEdge)
+                );
+            }
+            synchronized (this) {
+                graph = newGraph;
+                seeded = true;
+                changed = true;
+                publishImmediately = true;
+            }
+            return true;
+        }
+    }
+
+    private synchronized void apply(GraphTopologyUpdate update) {
+        for (ChannelEdgeUpdate channelEdgeUpdate : update.getChannelUpdatesList()) {
+            apply(channelEdgeUpdate);
         }
-        Set<DirectedChannelEdge> channelEdges = new LinkedHashSet<>();
-        for (ChannelEdge channelEdge : channelGraph.getEdgesList()) {
-            ChannelId channelId = ChannelId.fromShortChannelId(channelEdge.getChannelId());
-            Coins capacity = Coins.ofSatoshis(channelEdge.getCapacity());
-            Pubkey node1Pubkey = Pubkey.create(channelEdge.getNode1Pub());
-            Pubkey node2Pubkey = Pubkey.create(channelEdge.getNode2Pub());
-            DirectedChannelEdge directedChannelEdge1 = new DirectedChannelEdge(
-                    channelId,
-                    capacity,
-                    node1Pubkey,
-                    node2Pubkey,
-                    getNode1Policy(channelEdge)
-            );
-            DirectedChannelEdge directedChannelEdge2 = new DirectedChannelEdge(
-                    channelId,
-                    capacity,
-                    node2Pubkey,
-                    node1Pubkey,
-                    getNode2Policy(channelEdge)
-            );
-            channelEdges.add(directedChannelEdge1);
-            channelEdges.add(directedChannelEdge2);
+        for (ClosedChannelUpdate closedChannelUpdate : update.getClosedChansList()) {
+            graph.removeChannel(closedChannelUpdate.getChanId());
         }
-        return Optional.of(channelEdges);
+        // node updates (alias, addresses, features) are not part of the graph model
+        changed = true;
+    }
+
+    private void apply(ChannelEdgeUpdate channelEdgeUpdate) {
+        Policy policy = channelEdgeUpdate.hasRoutingPolicy()
+                ? grpcPolicy.toPolicy(channelEdgeUpdate.getRoutingPolicy())
+                : DEFAULT_DISABLED_POLICY;
+        graph.updatePolicy(
+                channelEdgeUpdate.getChanId(),
+                channelEdgeUpdate.getCapacity(),
+                channelEdgeUpdate.getAdvertisingNode(),
+                channelEdgeUpdate.getConnectingNode(),
+                policy,
+                DEFAULT_DISABLED_POLICY
+        );
+    }
+
+    private boolean shouldPublish() {
+        if (!changed) {
+            return false;
+        }
+        return snapshot == null
+                || publishImmediately
+                || System.nanoTime() - publishedAtNanos >= SNAPSHOT_INTERVAL.toNanos();
+    }
+
+    private void publish() {
+        version++;
+        snapshot = new GraphSnapshot(version, graph.toEdgeSet());
+        publishedAtNanos = System.nanoTime();
+        changed = false;
+        publishImmediately = false;
     }
 
     private Policy getNode1Policy(ChannelEdge channelEdge) {
@@ -118,7 +118,7 @@ public class GrpcInvoices {
         return lndInvoice.getHtlcsList().stream()
                 .filter(invoiceHTLC -> invoiceHTLC.getState().equals(InvoiceHTLCState.SETTLED))
                 .collect(toMap(
-                        invoiceHTLC -> ChannelId.fromShortChannelId(invoiceHTLC.getChanId()),
+                        invoiceHTLC -> ChannelId.ofOwnChannel(invoiceHTLC.getChanId()),
                         invoiceHTLC -> Coins.ofMilliSatoshis(invoiceHTLC.getAmtMsat()),
                         Coins::add
                 ));
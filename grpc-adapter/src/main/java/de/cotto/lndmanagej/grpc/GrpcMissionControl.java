@@ -11,7 +11,7 @@ import java.util.LinkedHashSet;
 import java.util.Optional;
 import java.util.Set;
 
-import static de.cotto.lndmanagej.grpc.ByteStringConverter.toHexString;
+import static de.cotto.lndmanagej.grpc.ByteStringConverter.toPubkey;
 
 @Component
 public class GrpcMissionControl {
@@ -29,8 +29,8 @@ public class GrpcMissionControl {
         }
         Set<MissionControlEntry> result = new LinkedHashSet<>();
         for (RouterOuterClass.PairHistory pairHistory : missionControlResponse.getPairsList()) {
-            Pubkey source = Pubkey.create(toHexString(pairHistory.getNodeFrom()));
-            Pubkey target = Pubkey.create(toHexString(pairHistory.getNodeTo()));
+            Pubkey source = toPubkey(pairHistory.getNodeFrom());
+            Pubkey target = toPubkey(pairHistory.getNodeTo());
             RouterOuterClass.PairData history = pairHistory.getHistory();
             getFailure(source, target, history).ifPresent(result::add);
             getSuccess(source, target, history).ifPresent(result::add);
@@ -14,6 +14,7 @@ import lnrpc.Hop;
 import lnrpc.ListPaymentsResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.math.BigInteger;
@@ -32,17 +33,17 @@ import static lnrpc.Payment.PaymentStatus.SUCCEEDED;
 
 @Component
 public class GrpcPayments {
-    private static final int LIMIT = 1_000;
-
     private final GrpcService grpcService;
+    private final int limit;
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
-    public GrpcPayments(GrpcService grpcService) {
+    public GrpcPayments(GrpcService grpcService, @Value("${lndmanagej.grpc-page-size:5000}") int limit) {
         this.grpcService = grpcService;
+        this.limit = limit;
     }
 
     public int getLimit() {
-        return LIMIT;
+        return limit;
     }
 
     public Optional<List<Payment>> getCompletePaymentsAfter(long offset) {
@@ -77,7 +78,7 @@ public class GrpcPayments {
     }
 
     private Optional<Stream<Optional<Payment>>> getPaymentOptionals(long offset, boolean includeIncomplete) {
-        ListPaymentsResponse list = grpcService.getPayments(offset, LIMIT, includeIncomplete).orElse(null);
+        ListPaymentsResponse list = grpcService.getPayments(offset, limit, includeIncomplete).orElse(null);
         if (list == null) {
             return Optional.empty();
         }
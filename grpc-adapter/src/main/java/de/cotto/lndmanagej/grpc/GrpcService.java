@@ -22,6 +22,8 @@ import lnrpc.ForwardingHistoryRequest;
 import lnrpc.ForwardingHistoryResponse;
 import lnrpc.GetInfoResponse;
 import lnrpc.GetTransactionsRequest;
+import lnrpc.GraphTopologySubscription;
+import lnrpc.GraphTopologyUpdate;
 import lnrpc.Invoice;
 import lnrpc.InvoiceSubscription;
 import lnrpc.LightningGrpc;
@@ -204,6 +206,10 @@ public class GrpcService extends GrpcBase {
         return get(() -> lightningStub.describeGraph(request));
     }
 
+    public Optional<Iterator<GraphTopologyUpdate>> subscribeChannelGraph() {
+        return get(() -> lightningStub.subscribeChannelGraph(GraphTopologySubscription.getDefaultInstance()));
+    }
+
     @Timed
     public Optional<PayReq> decodePaymentRequest(String paymentRequest) {
         return get(() -> lightningStub.decodePayReq(PayReqString.newBuilder().setPayReq(paymentRequest).build()));
@@ -0,0 +1,119 @@
+package de.cotto.lndmanagej.grpc;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+
+/**
+ * Fetches pages (for example from lnd) in a background thread while the previously fetched pages are processed (for
+ * example persisted) by the calling thread.
+ * <p>
+ * The offset for the next page is computed from the previously fetched page, so that the fetching thread does not need
+ * to wait until the page is processed. At most {@value #QUEUE_CAPACITY} fetched pages wait to be processed. Pages are
+ * processed in the order they were fetched. Exceptions thrown while fetching or processing a page are rethrown to the
+ * caller once all pages fetched before are processed. If processing fails, the fetching thread stops.
+ */
+public final class PipelinedPages {
+    private static final int QUEUE_CAPACITY = 2;
+    private static final long OFFER_TIMEOUT_MILLISECONDS = 100;
+    private static final ExecutorService EXECUTOR_SERVICE = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "pipelined-pages");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private PipelinedPages() {
+        // utility class
+    }
+
+    /**
+     * Fetches and processes pages, starting with the given offset.
+     *
+     * @param offset the offset used to fetch the first page
+     * @param fetchPage fetches the page for the given offset
+     * @param getNextOffset returns the offset for the page following the given page, or an empty optional if no
+     *                      further page should be fetched
+     * @param processPage processes the given page, invoked by the calling thread for each page (including empty pages)
+     */
+    public static <T> void process(
+            long offset,
+            LongFunction<List<T>> fetchPage,
+            Function<List<T>, OptionalLong> getNextOffset,
+            Consumer<List<T>> processPage
+    ) {
+        BlockingQueue<Optional<List<T>>> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        AtomicBoolean consumerDone = new AtomicBoolean();
+        Future<?> producer = EXECUTOR_SERVICE.submit(() -> {
+            produce(offset, fetchPage, getNextOffset, queue, consumerDone);
+            return null;
+        });
+        try {
+            Optional<List<T>> page = queue.take();
+            while (page.isPresent()) {
+                processPage.accept(page.get());
+                page = queue.take();
+            }
+            producer.get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException exception) {
+            Throwable cause = exception.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            consumerDone.set(true);
+            queue.clear();
+            producer.cancel(true);
+        }
+    }
+
+    private static <T> void produce(
+            long offset,
+            LongFunction<List<T>> fetchPage,
+            Function<List<T>, OptionalLong> getNextOffset,
+            BlockingQueue<Optional<List<T>>> queue,
+            AtomicBoolean consumerDone
+    ) throws InterruptedException {
+        try {
+            OptionalLong nextOffset = OptionalLong.of(offset);
+            while (nextOffset.isPresent()) {
+                List<T> page = fetchPage.apply(nextOffset.getAsLong());
+                if (!put(queue, Optional.of(page), consumerDone)) {
+                    return;
+                }
+                nextOffset = getNextOffset.apply(page);
+            }
+        } finally {
+            // marks the end, also if fetching failed
+            put(queue, Optional.empty(), consumerDone);
+        }
+    }
+
+    /**
+     * Waits until the element is added to the queue, unless the consumer stopped taking elements from the queue.
+     *
+     * @return false if the consumer is done and the element was not added
+     */
+    private static <E> boolean put(BlockingQueue<E> queue, E element, AtomicBoolean consumerDone)
+            throws InterruptedException {
+        while (!consumerDone.get()) {
+            if (queue.offer(element, OFFER_TIMEOUT_MILLISECONDS, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,9 +1,11 @@
 package de.cotto.lndmanagej.grpc.middleware;
 
+import com.codahale.metrics.MetricRegistry;
 import de.cotto.lndmanagej.configuration.ConfigurationService;
 import de.cotto.lndmanagej.configuration.PickhardtPaymentsConfigurationSettings;
 import de.cotto.lndmanagej.grpc.GrpcService;
 import io.grpc.stub.StreamObserver;
+import jakarta.annotation.PreDestroy;
 import lnrpc.RPCMiddlewareResponse;
 import org.springframework.stereotype.Component;
 
@@ -15,21 +17,29 @@ public class GrpcMiddlewareService implements ObserverIsDoneListener {
     private final Collection<RequestListener<?>> requestListeners;
     private final Collection<ResponseListener<?>> responseListeners;
     private final ConfigurationService configurationService;
+    private final MiddlewareExecutor middlewareExecutor;
     private boolean connected;
 
     public GrpcMiddlewareService(
             GrpcService grpcService,
             Collection<RequestListener<?>> requestListeners,
             Collection<ResponseListener<?>> responseListeners,
-            ConfigurationService configurationService
+            ConfigurationService configurationService,
+            MetricRegistry metricRegistry
     ) {
         this.grpcService = grpcService;
         this.requestListeners = requestListeners;
         this.responseListeners = responseListeners;
         this.configurationService = configurationService;
+        middlewareExecutor = new MiddlewareExecutor(metricRegistry);
         registerMiddleware();
     }
 
+    @PreDestroy
+    public void shutdown() {
+        middlewareExecutor.shutdown();
+    }
+
     public boolean isConnected() {
         return connected;
     }
@@ -46,7 +56,8 @@ public class GrpcMiddlewareService implements ObserverIsDoneListener {
             return;
         }
         connected = true;
-        RequestAndResponseStreamObserver requestAndResponseStreamObserver = new RequestAndResponseStreamObserver();
+        RequestAndResponseStreamObserver requestAndResponseStreamObserver =
+                new RequestAndResponseStreamObserver(middlewareExecutor);
         StreamObserver<RPCMiddlewareResponse> responseObserver =
                 grpcService.registerMiddleware(requestAndResponseStreamObserver);
         requestAndResponseStreamObserver.initialize(responseObserver, this);
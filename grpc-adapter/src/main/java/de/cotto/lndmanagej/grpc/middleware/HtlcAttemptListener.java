@@ -4,18 +4,18 @@ import lnrpc.HTLCAttempt;
 import org.springframework.stereotype.Component;
 
 @Component
-public class HtlcAttemptListener extends AbstractResponseListener<HTLCAttempt> {
+public class HtlcAttemptListener extends AbstractResponseListener<ParsedHtlcAttempt> {
 
     private final PaymentListenerUpdater paymentListenerUpdater;
 
     public HtlcAttemptListener(PaymentListenerUpdater paymentListenerUpdater) {
-        super(HTLCAttempt.getDescriptor().getFullName(), HTLCAttempt::parseFrom);
+        super(HTLCAttempt.getDescriptor().getFullName(), PaymentAttemptParser::parseHtlcAttempt);
         this.paymentListenerUpdater = paymentListenerUpdater;
     }
 
     @Override
-    public void acceptResponse(HTLCAttempt response, long requestId) {
-        paymentListenerUpdater.forResponse(response.getPreimage(), response.getRoute(), response.getFailure());
+    public void acceptResponse(ParsedHtlcAttempt response, long requestId) {
+        paymentListenerUpdater.forResponse(response.result(), response.hops());
     }
 
 }
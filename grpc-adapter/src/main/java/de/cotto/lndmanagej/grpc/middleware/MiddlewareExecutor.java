@@ -0,0 +1,119 @@
+package de.cotto.lndmanagej.grpc.middleware;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the work for middleware messages on a fixed number of single-threaded stripes. All messages with the same
+ * request ID are handled by the same stripe, so that a request is handled before its response.
+ * If {@value #QUEUE_CAPACITY_PER_STRIPE} messages are queued for a stripe, the work for a request is dropped (lnd is
+ * not affected, as each message is acknowledged before the work is submitted), and the work for the responses to this
+ * request is dropped as well. The work for a response to an accepted request is never dropped, so that listeners can
+ * clean up any state kept for the request.
+ * <p>
+ * The number of queued messages, the time from submission until the work is done, and the number of dropped messages
+ * are reported as metrics.
+ */
+class MiddlewareExecutor {
+    private static final int STRIPES = 4;
+    private static final int QUEUE_CAPACITY_PER_STRIPE = 1_000;
+    private static final int MAXIMUM_DROPPED_REQUEST_IDS = 10_000;
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final List<ThreadPoolExecutor> stripes = new ArrayList<>();
+    private final Timer latency;
+    private final Counter dropped;
+    private final Map<Long, Boolean> droppedRequestIds = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+            return size() > MAXIMUM_DROPPED_REQUEST_IDS;
+        }
+    };
+
+    MiddlewareExecutor(MetricRegistry metricRegistry) {
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            String threadName = "middleware-" + stripe;
+            stripes.add(new ThreadPoolExecutor(
+                    1,
+                    1,
+                    0,
+                    TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, threadName);
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+            ));
+        }
+        latency = metricRegistry.timer(MetricRegistry.name(getClass(), "latency"));
+        dropped = metricRegistry.counter(MetricRegistry.name(getClass(), "dropped"));
+        metricRegistry.gauge(MetricRegistry.name(getClass(), "queued"), () -> (Gauge<Integer>) this::getQueued);
+    }
+
+    public void executeRequest(long requestId, Runnable work) {
+        ThreadPoolExecutor stripe = getStripe(requestId);
+        if (stripe.getQueue().size() >= QUEUE_CAPACITY_PER_STRIPE) {
+            synchronized (droppedRequestIds) {
+                droppedRequestIds.put(requestId, true);
+            }
+            dropped.inc();
+            return;
+        }
+        execute(stripe, work);
+    }
+
+    public void executeResponse(long requestId, Runnable work) {
+        synchronized (droppedRequestIds) {
+            if (droppedRequestIds.containsKey(requestId)) {
+                dropped.inc();
+                return;
+            }
+        }
+        execute(getStripe(requestId), work);
+    }
+
+    public int getQueued() {
+        return stripes.stream().mapToInt(stripe -> stripe.getQueue().size()).sum();
+    }
+
+    public void shutdown() {
+        stripes.forEach(ThreadPoolExecutor::shutdownNow);
+    }
+
+    private void execute(ThreadPoolExecutor stripe, Runnable work) {
+        Timer.Context context = latency.time();
+        try {
+            stripe.execute(() -> run(work, context));
+        } catch (RejectedExecutionException exception) {
+            logger.debug("Middleware executor was shut down");
+        }
+    }
+
+    private ThreadPoolExecutor getStripe(long requestId) {
+        return stripes.get(Math.floorMod(Long.hashCode(requestId), STRIPES));
+    }
+
+    private void run(Runnable work, Timer.Context context) {
+        try {
+            work.run();
+        } catch (RuntimeException exception) {
+            logger.warn("Unable to handle middleware message", exception);
+        } finally {
+            context.stop();
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package de.cotto.lndmanagej.grpc.middleware;
+
+import de.cotto.lndmanagej.model.PaymentAttemptHop;
+
+import java.util.List;
+
+public record ParsedHtlcAttempt(List<PaymentAttemptHop> hops, PaymentAttemptResult result) {
+}
@@ -0,0 +1,191 @@
+package de.cotto.lndmanagej.grpc.middleware;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.WireFormat;
+import de.cotto.lndmanagej.model.ChannelId;
+import de.cotto.lndmanagej.model.Coins;
+import de.cotto.lndmanagej.model.PaymentAttemptHop;
+import de.cotto.lndmanagej.model.Pubkey;
+import lnrpc.Failure;
+import lnrpc.HTLCAttempt;
+import lnrpc.Hop;
+import lnrpc.Route;
+import routerrpc.RouterOuterClass.SendToRouteRequest;
+import routerrpc.RouterOuterClass.SendToRouteResponse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads the few fields needed by {@link PaymentListenerUpdater} directly from the serialized middleware messages,
+ * instead of parsing the complete messages (including TLV payloads, MPP/AMP records, channel updates, ...) into the
+ * generated protobuf classes. All other fields are skipped.
+ */
+public final class PaymentAttemptParser {
+    private static final int LENGTH_DELIMITED = WireFormat.WIRETYPE_LENGTH_DELIMITED;
+    private static final int VARINT = WireFormat.WIRETYPE_VARINT;
+
+    private static final int HTLC_ATTEMPT_ROUTE = tag(HTLCAttempt.ROUTE_FIELD_NUMBER, LENGTH_DELIMITED);
+    private static final int HTLC_ATTEMPT_FAILURE = tag(HTLCAttempt.FAILURE_FIELD_NUMBER, LENGTH_DELIMITED);
+    private static final int HTLC_ATTEMPT_PREIMAGE = tag(HTLCAttempt.PREIMAGE_FIELD_NUMBER, LENGTH_DELIMITED);
+    private static final int REQUEST_ROUTE = tag(SendToRouteRequest.ROUTE_FIELD_NUMBER, LENGTH_DELIMITED);
+    private static final int RESPONSE_PREIMAGE = tag(SendToRouteResponse.PREIMAGE_FIELD_NUMBER, LENGTH_DELIMITED);
+    private static final int RESPONSE_FAILURE = tag(SendToRouteResponse.FAILURE_FIELD_NUMBER, LENGTH_DELIMITED);
+    private static final int ROUTE_HOPS = tag(Route.HOPS_FIELD_NUMBER, LENGTH_DELIMITED);
+    private static final int HOP_CHAN_ID = tag(Hop.CHAN_ID_FIELD_NUMBER, VARINT);
+    private static final int HOP_AMOUNT = tag(Hop.AMT_TO_FORWARD_MSAT_FIELD_NUMBER, VARINT);
+    private static final int HOP_PUBKEY = tag(Hop.PUB_KEY_FIELD_NUMBER, LENGTH_DELIMITED);
+    private static final int FAILURE_CODE = tag(Failure.CODE_FIELD_NUMBER, VARINT);
+    private static final int FAILURE_SOURCE_INDEX = tag(Failure.FAILURE_SOURCE_INDEX_FIELD_NUMBER, VARINT);
+
+    private PaymentAttemptParser() {
+        // do not instantiate me
+    }
+
+    public static ParsedHtlcAttempt parseHtlcAttempt(ByteString message) throws InvalidProtocolBufferException {
+        return parse(message, input -> {
+            List<PaymentAttemptHop> hops = List.of();
+            ByteString preimage = ByteString.EMPTY;
+            PaymentAttemptResult failure = PaymentAttemptResult.UNKNOWN;
+            while (true) {
+                int tag = input.readTag();
+                if (tag == HTLC_ATTEMPT_ROUTE) {
+                    hops = readMessage(input, PaymentAttemptParser::readRoute);
+                } else if (tag == HTLC_ATTEMPT_FAILURE) {
+                    failure = readMessage(input, PaymentAttemptParser::readFailure);
+                } else if (tag == HTLC_ATTEMPT_PREIMAGE) {
+                    preimage = input.readBytes();
+                } else if (isEnd(input, tag)) {
+                    return new ParsedHtlcAttempt(hops, withPreimage(failure, preimage));
+                }
+            }
+        });
+    }
+
+    public static List<PaymentAttemptHop> parseSendToRouteRequest(ByteString message)
+            throws InvalidProtocolBufferException {
+        return parse(message, input -> {
+            List<PaymentAttemptHop> hops = List.of();
+            while (true) {
+                int tag = input.readTag();
+                if (tag == REQUEST_ROUTE) {
+                    hops = readMessage(input, PaymentAttemptParser::readRoute);
+                } else if (isEnd(input, tag)) {
+                    return hops;
+                }
+            }
+        });
+    }
+
+    public static PaymentAttemptResult parseSendToRouteResponse(ByteString message)
+            throws InvalidProtocolBufferException {
+        return parse(message, input -> {
+            ByteString preimage = ByteString.EMPTY;
+            PaymentAttemptResult failure = PaymentAttemptResult.UNKNOWN;
+            while (true) {
+                int tag = input.readTag();
+                if (tag == RESPONSE_PREIMAGE) {
+                    preimage = input.readBytes();
+                } else if (tag == RESPONSE_FAILURE) {
+                    failure = readMessage(input, PaymentAttemptParser::readFailure);
+                } else if (isEnd(input, tag)) {
+                    return withPreimage(failure, preimage);
+                }
+            }
+        });
+    }
+
+    private static List<PaymentAttemptHop> readRoute(CodedInputStream input) throws IOException {
+        List<PaymentAttemptHop> hops = new ArrayList<>();
+        while (true) {
+            int tag = input.readTag();
+            if (tag == ROUTE_HOPS) {
+                hops.add(readMessage(input, PaymentAttemptParser::readHop));
+            } else if (isEnd(input, tag)) {
+                return hops;
+            }
+        }
+    }
+
+    private static PaymentAttemptHop readHop(CodedInputStream input) throws IOException {
+        long chanId = 0;
+        long amountMilliSat = 0;
+        String pubkey = "";
+        while (true) {
+            int tag = input.readTag();
+            if (tag == HOP_CHAN_ID) {
+                chanId = input.readUInt64();
+            } else if (tag == HOP_AMOUNT) {
+                amountMilliSat = input.readInt64();
+            } else if (tag == HOP_PUBKEY) {
+                pubkey = input.readStringRequireUtf8();
+            } else if (isEnd(input, tag)) {
+                break;
+            }
+        }
+        return new PaymentAttemptHop(
+                chanId > 0 ? Optional.of(ChannelId.fromShortChannelId(chanId)) : Optional.empty(),
+                Coins.ofMilliSatoshis(amountMilliSat),
+                // interned, so that the same pubkey seen in many attempts is only parsed once
+                pubkey.isBlank() ? Optional.empty() : Optional.of(Pubkey.create(pubkey))
+        );
+    }
+
+    private static PaymentAttemptResult readFailure(CodedInputStream input) throws IOException {
+        int code = 0;
+        int failureSourceIndex = 0;
+        while (true) {
+            int tag = input.readTag();
+            if (tag == FAILURE_CODE) {
+                code = input.readEnum();
+            } else if (tag == FAILURE_SOURCE_INDEX) {
+                failureSourceIndex = input.readUInt32();
+            } else if (isEnd(input, tag)) {
+                return new PaymentAttemptResult(ByteString.EMPTY, code, failureSourceIndex);
+            }
+        }
+    }
+
+    private static PaymentAttemptResult withPreimage(PaymentAttemptResult failure, ByteString preimage) {
+        return new PaymentAttemptResult(preimage, failure.failureCode(), failure.failureSourceIndex());
+    }
+
+    /**
+     * Skips the field with the given tag, or returns true if the end of the (embedded) message was reached.
+     */
+    private static boolean isEnd(CodedInputStream input, int tag) throws IOException {
+        return tag == 0 || !input.skipField(tag);
+    }
+
+    private static <T> T readMessage(CodedInputStream input, Reader<T> reader) throws IOException {
+        int oldLimit = input.pushLimit(input.readRawVarint32());
+        T result = reader.read(input);
+        input.popLimit(oldLimit);
+        return result;
+    }
+
+    private static <T> T parse(ByteString message, Reader<T> reader) throws InvalidProtocolBufferException {
+        CodedInputStream input = message.newCodedInput();
+        input.enableAliasing(true);
+        try {
+            return reader.read(input);
+        } catch (InvalidProtocolBufferException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new InvalidProtocolBufferException(e);
+        }
+    }
+
+    private static int tag(int fieldNumber, int wireType) {
+        return fieldNumber << 3 | wireType;
+    }
+
+    @FunctionalInterface
+    private interface Reader<T> {
+        T read(CodedInputStream input) throws IOException;
+    }
+}
@@ -0,0 +1,15 @@
+package de.cotto.lndmanagej.grpc.middleware;
+
+import com.google.protobuf.ByteString;
+
+/**
+ * The outcome of a payment attempt: either a (non-empty) preimage, or the failure code (as sent by lnd) and the index
+ * of the hop reporting the failure.
+ */
+public record PaymentAttemptResult(ByteString preimage, int failureCode, int failureSourceIndex) {
+    public static final PaymentAttemptResult UNKNOWN = new PaymentAttemptResult(ByteString.EMPTY, 0, 0);
+
+    public boolean isSuccess() {
+        return !preimage.isEmpty();
+    }
+}
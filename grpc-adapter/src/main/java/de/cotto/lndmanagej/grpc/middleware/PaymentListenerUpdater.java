@@ -1,20 +1,12 @@
 package de.cotto.lndmanagej.grpc.middleware;
 
-import com.google.protobuf.ByteString;
-import de.cotto.lndmanagej.model.ChannelId;
-import de.cotto.lndmanagej.model.Coins;
 import de.cotto.lndmanagej.model.FailureCode;
 import de.cotto.lndmanagej.model.HexString;
 import de.cotto.lndmanagej.model.PaymentAttemptHop;
 import de.cotto.lndmanagej.model.PaymentListener;
-import de.cotto.lndmanagej.model.Pubkey;
-import lnrpc.Failure;
-import lnrpc.Hop;
-import lnrpc.Route;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
-import java.util.Optional;
 
 @Component
 public class PaymentListenerUpdater {
@@ -24,48 +16,20 @@ public class PaymentListenerUpdater {
         this.paymentListeners = paymentListeners;
     }
 
-    public void forNewPaymentAttempt(Route route) {
-        List<PaymentAttemptHop> hops = toPaymentAttemptHops(route);
+    public void forNewPaymentAttempt(List<PaymentAttemptHop> hops) {
         paymentListeners.forEach(paymentListener -> paymentListener.forNewPaymentAttempt(hops));
     }
 
-    public void forResponse(ByteString preimage, Route route, Failure failure) {
-        List<PaymentAttemptHop> paymentAttemptHops = toPaymentAttemptHops(route);
-        if (preimage.isEmpty()) {
-            FailureCode failureCode = FailureCode.getFor(failure.getCodeValue());
-            int failureSourceIndex = failure.getFailureSourceIndex();
-            paymentListeners.forEach(
-                    paymentListener -> paymentListener.failure(paymentAttemptHops, failureCode, failureSourceIndex)
-            );
+    public void forResponse(PaymentAttemptResult result, List<PaymentAttemptHop> paymentAttemptHops) {
+        if (result.isSuccess()) {
+            HexString preimage = new HexString(result.preimage().toByteArray());
+            paymentListeners.forEach(listener -> listener.success(preimage, paymentAttemptHops));
         } else {
+            FailureCode failureCode = FailureCode.getFor(result.failureCode());
+            int failureSourceIndex = result.failureSourceIndex();
             paymentListeners.forEach(
-                    listener -> listener.success(new HexString(preimage.toByteArray()), paymentAttemptHops)
+                    paymentListener -> paymentListener.failure(paymentAttemptHops, failureCode, failureSourceIndex)
             );
         }
     }
-
-    private List<PaymentAttemptHop> toPaymentAttemptHops(Route route) {
-        return route.getHopsList().stream().map(this::toPaymentAttemptHop).toList();
-    }
-
-    private PaymentAttemptHop toPaymentAttemptHop(Hop hop) {
-        Optional<Pubkey> optionalPubkey;
-        if (hop.getPubKey().isBlank()) {
-            optionalPubkey = Optional.empty();
-        } else {
-            optionalPubkey = Optional.of(Pubkey.create(hop.getPubKey()));
-        }
-        Optional<ChannelId> optionalChannelId;
-        long chanId = hop.getChanId();
-        if (chanId > 0) {
-            optionalChannelId = Optional.of(ChannelId.fromShortChannelId(chanId));
-        } else {
-            optionalChannelId = Optional.empty();
-        }
-        return new PaymentAttemptHop(
-                optionalChannelId,
-                Coins.ofMilliSatoshis(hop.getAmtToForwardMsat()),
-                optionalPubkey
-        );
-    }
 }
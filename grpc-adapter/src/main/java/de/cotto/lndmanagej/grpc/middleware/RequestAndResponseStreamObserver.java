@@ -11,8 +11,6 @@ import lnrpc.RPCMiddlewareResponse;
 
 import javax.annotation.CheckForNull;
 import java.util.Objects;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 class RequestAndResponseStreamObserver implements StreamObserver<RPCMiddlewareRequest> {
     private static final String MIDDLEWARE_NAME = "lnd-manageJ";
@@ -31,11 +29,11 @@ class RequestAndResponseStreamObserver implements StreamObserver<RPCMiddlewareRe
     private ObserverIsDoneListener observerIsDoneListener;
     private final Multimap<String, RequestListener<?>> requestListeners = ArrayListMultimap.create();
     private final Multimap<String, ResponseListener<?>> responseListeners = ArrayListMultimap.create();
-    private final ExecutorService executorService = Executors.newCachedThreadPool();
+    private final MiddlewareExecutor middlewareExecutor;
     private boolean isDone;
 
-    public RequestAndResponseStreamObserver() {
-        // default constructor
+    public RequestAndResponseStreamObserver(MiddlewareExecutor middlewareExecutor) {
+        this.middlewareExecutor = middlewareExecutor;
     }
 
     public void initialize(
@@ -54,13 +52,14 @@ class RequestAndResponseStreamObserver implements StreamObserver<RPCMiddlewareRe
     }
 
     @Override
-    @SuppressWarnings("FutureReturnValueIgnored")
     public void onNext(RPCMiddlewareRequest value) {
         respondWithDoNotReplace(value.getMsgId());
-        executorService.submit(() -> {
-            handleRequest(value);
-            handleResponse(value);
-        });
+        long requestId = value.getRequestId();
+        if (value.hasResponse()) {
+            middlewareExecutor.executeResponse(requestId, () -> handleResponse(value));
+        } else if (value.hasRequest()) {
+            middlewareExecutor.executeRequest(requestId, () -> handleRequest(value));
+        }
     }
 
     @Override
@@ -78,9 +77,6 @@ class RequestAndResponseStreamObserver implements StreamObserver<RPCMiddlewareRe
     }
 
     private void handleRequest(RPCMiddlewareRequest value) {
-        if (!value.hasRequest()) {
-            return;
-        }
         RPCMessage request = value.getRequest();
         String typeName = request.getTypeName();
         long requestId = value.getRequestId();
@@ -89,9 +85,6 @@ class RequestAndResponseStreamObserver implements StreamObserver<RPCMiddlewareRe
     }
 
     private void handleResponse(RPCMiddlewareRequest value) {
-        if (!value.hasResponse()) {
-            return;
-        }
         RPCMessage response = value.getResponse();
         String typeName = response.getTypeName();
         long requestId = value.getRequestId();
@@ -1,40 +1,41 @@
 package de.cotto.lndmanagej.grpc.middleware;
 
+import de.cotto.lndmanagej.model.PaymentAttemptHop;
 import org.springframework.stereotype.Component;
-import routerrpc.RouterOuterClass;
 import routerrpc.RouterOuterClass.SendToRouteRequest;
 import routerrpc.RouterOuterClass.SendToRouteResponse;
 
-import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
-public class SendToRouteListener extends RequestResponseListener<SendToRouteRequest, SendToRouteResponse> {
-    private final Map<Long, SendToRouteRequest> requests = new LinkedHashMap<>();
+public class SendToRouteListener extends RequestResponseListener<List<PaymentAttemptHop>, PaymentAttemptResult> {
+    private final Map<Long, List<PaymentAttemptHop>> requests = new ConcurrentHashMap<>();
     private final PaymentListenerUpdater paymentListenerUpdater;
 
     public SendToRouteListener(PaymentListenerUpdater paymentListenerUpdater) {
         super(
                 SendToRouteRequest.getDescriptor().getFullName(),
-                SendToRouteRequest::parseFrom,
+                PaymentAttemptParser::parseSendToRouteRequest,
                 SendToRouteResponse.getDescriptor().getFullName(),
-                SendToRouteResponse::parseFrom
+                PaymentAttemptParser::parseSendToRouteResponse
         );
         this.paymentListenerUpdater = paymentListenerUpdater;
     }
 
     @Override
-    public void acceptRequest(SendToRouteRequest request, long requestId) {
-        paymentListenerUpdater.forNewPaymentAttempt(request.getRoute());
-        requests.put(requestId, request);
+    public void acceptRequest(List<PaymentAttemptHop> hops, long requestId) {
+        paymentListenerUpdater.forNewPaymentAttempt(hops);
+        requests.put(requestId, hops);
     }
 
     @Override
-    public void acceptResponse(SendToRouteResponse response, long requestId) {
-        RouterOuterClass.SendToRouteRequest request = requests.remove(requestId);
-        if (request == null) {
+    public void acceptResponse(PaymentAttemptResult response, long requestId) {
+        List<PaymentAttemptHop> hops = requests.remove(requestId);
+        if (hops == null) {
             return;
         }
-        paymentListenerUpdater.forResponse(response.getPreimage(), request.getRoute(), response.getFailure());
+        paymentListenerUpdater.forResponse(response, hops);
     }
 }
@@ -3,6 +3,7 @@ package de.cotto.lndmanagej.grpc;
 import com.google.protobuf.ByteString;
 import org.junit.jupiter.api.Test;
 
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY;
 import static org.assertj.core.api.Assertions.assertThat;
 
 class ByteStringConverterTest {
@@ -29,4 +30,10 @@ class ByteStringConverterTest {
         ByteString byteString = ByteString.copyFrom(new byte[]{0, (byte) 0xFF, 0, (byte) 0xFF, 0, (byte) 0xFF});
         assertThat(ByteStringConverter.fromHexString("00Ff00FF00ff")).isEqualTo(byteString);
     }
-}
\ No newline at end of file
+
+    @Test
+    void toPubkey() {
+        ByteString byteString = ByteStringConverter.fromHexString(PUBKEY.toString());
+        assertThat(ByteStringConverter.toPubkey(byteString)).isEqualTo(PUBKEY);
+    }
+}
@@ -0,0 +1,95 @@
+package de.cotto.lndmanagej.grpc;
+
+import de.cotto.lndmanagej.model.Coins;
+import de.cotto.lndmanagej.model.DirectedChannelEdge;
+import de.cotto.lndmanagej.model.Policy;
+import de.cotto.lndmanagej.model.Pubkey;
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static de.cotto.lndmanagej.model.ChannelFixtures.CAPACITY;
+import static de.cotto.lndmanagej.model.ChannelFixtures.CAPACITY_2;
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID;
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID_2;
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID_3;
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY;
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_2;
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_3;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class CompactEdgeSetTest {
+    private static final Policy POLICY = new Policy(100, Coins.NONE, true, 40, Coins.ofSatoshis(10_000));
+    private static final DirectedChannelEdge EDGE_1 =
+            new DirectedChannelEdge(CHANNEL_ID, CAPACITY, PUBKEY, PUBKEY_2, POLICY);
+    private static final DirectedChannelEdge EDGE_2 =
+            new DirectedChannelEdge(CHANNEL_ID, CAPACITY, PUBKEY_2, PUBKEY, Policy.UNKNOWN);
+    private static final DirectedChannelEdge EDGE_3 =
+            new DirectedChannelEdge(CHANNEL_ID_2, CAPACITY_2, PUBKEY_2, PUBKEY_3, Policy.UNKNOWN);
+    private static final DirectedChannelEdge EDGE_4 =
+            new DirectedChannelEdge(CHANNEL_ID_2, CAPACITY_2, PUBKEY_3, PUBKEY_2, POLICY);
+
+    private final CompactEdgeSet edgeSet = new CompactEdgeSet(
+            new long[]{CHANNEL_ID.getShortChannelId(), CHANNEL_ID_2.getShortChannelId()},
+            new long[]{CAPACITY.satoshis(), CAPACITY_2.satoshis()},
+            new int[]{0, 1, 1, 2},
+            new int[]{0, 1, 1, 0},
+            new Pubkey[]{PUBKEY, PUBKEY_2, PUBKEY_3},
+            new Policy[]{POLICY, Policy.UNKNOWN}
+    );
+
+    @Test
+    void size() {
+        assertThat(edgeSet).hasSize(4);
+    }
+
+    @Test
+    void iterator() {
+        assertThat(edgeSet).containsExactly(EDGE_1, EDGE_2, EDGE_3, EDGE_4);
+    }
+
+    @Test
+    void iterator_no_more_elements() {
+        Iterator<DirectedChannelEdge> iterator = edgeSet.iterator();
+        for (int i = 0; i < 4; i++) {
+            iterator.next();
+        }
+        assertThat(iterator.hasNext()).isFalse();
+        assertThatExceptionOfType(NoSuchElementException.class).isThrownBy(iterator::next);
+    }
+
+    @Test
+    void parallelStream() {
+        assertThat(edgeSet.parallelStream().toList()).containsExactly(EDGE_1, EDGE_2, EDGE_3, EDGE_4);
+    }
+
+    @Test
+    void contains() {
+        assertThat(edgeSet).contains(EDGE_1, EDGE_2, EDGE_3, EDGE_4);
+    }
+
+    @Test
+    void contains_different_policy() {
+        assertThat(edgeSet.contains(new DirectedChannelEdge(CHANNEL_ID, CAPACITY, PUBKEY, PUBKEY_2, Policy.UNKNOWN)))
+                .isFalse();
+    }
+
+    @Test
+    void contains_unknown_channel() {
+        assertThat(edgeSet.contains(new DirectedChannelEdge(CHANNEL_ID_3, CAPACITY, PUBKEY, PUBKEY_2, POLICY)))
+                .isFalse();
+    }
+
+    @Test
+    void contains_other_type() {
+        assertThat(edgeSet.contains(CHANNEL_ID)).isFalse();
+    }
+
+    @Test
+    void equals_other_set() {
+        assertThat(edgeSet).isEqualTo(Set.of(EDGE_1, EDGE_2, EDGE_3, EDGE_4));
+    }
+}
@@ -0,0 +1,217 @@
+package de.cotto.lndmanagej.grpc;
+
+import de.cotto.lndmanagej.model.Coins;
+import de.cotto.lndmanagej.model.DirectedChannelEdge;
+import de.cotto.lndmanagej.model.Policy;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static de.cotto.lndmanagej.model.ChannelFixtures.CAPACITY;
+import static de.cotto.lndmanagej.model.ChannelFixtures.CAPACITY_2;
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID;
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID_2;
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY;
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_2;
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_3;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompactGraphTest {
+    private static final Policy POLICY_1 = new Policy(100, Coins.NONE, true, 40, Coins.ofSatoshis(10_000));
+    private static final Policy POLICY_2 = new Policy(200, Coins.ofMilliSatoshis(1), true, 144, Coins.NONE);
+
+    private final CompactGraph compactGraph = new CompactGraph();
+
+    @Test
+    void empty() {
+        assertThat(compactGraph.toEdgeSet()).isEmpty();
+    }
+
+    @Test
+    void putChannel_adds_both_directions() {
+        putChannel();
+        assertThat(compactGraph.toEdgeSet()).containsExactlyInAnyOrder(
+                new DirectedChannelEdge(CHANNEL_ID, CAPACITY, PUBKEY, PUBKEY_2, POLICY_1),
+                new DirectedChannelEdge(CHANNEL_ID, CAPACITY, PUBKEY_2, PUBKEY, POLICY_2)
+        );
+    }
+
+    @Test
+    void putChannel_replaces_existing_channel() {
+        putChannel();
+        compactGraph.putChannel(
+                CHANNEL_ID.getShortChannelId(),
+                CAPACITY_2.satoshis(),
+                PUBKEY.toString(),
+                PUBKEY_2.toString(),
+                POLICY_2,
+                POLICY_2
+        );
+        assertThat(compactGraph.toEdgeSet()).containsExactlyInAnyOrder(
+                new DirectedChannelEdge(CHANNEL_ID, CAPACITY_2, PUBKEY, PUBKEY_2, POLICY_2),
+                new DirectedChannelEdge(CHANNEL_ID, CAPACITY_2, PUBKEY_2, PUBKEY, POLICY_2)
+        );
+    }
+
+    @Test
+    void updatePolicy_node1() {
+        putChannel();
+        updatePolicy(CHANNEL_ID.getShortChannelId(), PUBKEY.toString(), PUBKEY_2.toString());
+        assertThat(compactGraph.toEdgeSet()).containsExactlyInAnyOrder(
+                new DirectedChannelEdge(CHANNEL_ID, CAPACITY, PUBKEY, PUBKEY_2, Policy.UNKNOWN),
+                new DirectedChannelEdge(CHANNEL_ID, CAPACITY, PUBKEY_2, PUBKEY, POLICY_2)
+        );
+    }
+
+    @Test
+    void updatePolicy_node2() {
+        putChannel();
+        updatePolicy(CHANNEL_ID.getShortChannelId(), PUBKEY_2.toString(), PUBKEY.toString());
+        assertThat(compactGraph.toEdgeSet()).containsExactlyInAnyOrder(
+                new DirectedChannelEdge(CHANNEL_ID, CAPACITY, PUBKEY, PUBKEY_2, POLICY_1),
+                new DirectedChannelEdge(CHANNEL_ID, CAPACITY, PUBKEY_2, PUBKEY, Policy.UNKNOWN)
+        );
+    }
+
+    @Test
+    void updatePolicy_unknown_channel() {
+        compactGraph.updatePolicy(
+                CHANNEL_ID_2.getShortChannelId(),
+                CAPACITY_2.satoshis(),
+                PUBKEY_3.toString(),
+                PUBKEY.toString(),
+                POLICY_1,
+                Policy.UNKNOWN
+        );
+        assertThat(compactGraph.toEdgeSet()).containsExactlyInAnyOrder(
+                new DirectedChannelEdge(CHANNEL_ID_2, CAPACITY_2, PUBKEY_3, PUBKEY, POLICY_1),
+                new DirectedChannelEdge(CHANNEL_ID_2, CAPACITY_2, PUBKEY, PUBKEY_3, Policy.UNKNOWN)
+        );
+    }
+
+    @Test
+    void removeChannel() {
+        putChannel();
+        compactGraph.removeChannel(CHANNEL_ID.getShortChannelId());
+        assertThat(compactGraph.toEdgeSet()).isEmpty();
+    }
+
+    @Test
+    void removeChannel_unknown() {
+        putChannel();
+        compactGraph.removeChannel(CHANNEL_ID_2.getShortChannelId());
+        assertThat(compactGraph.toEdgeSet()).hasSize(2);
+    }
+
+    @Test
+    void interns_pubkeys_and_policies() {
+        putChannel();
+        compactGraph.putChannel(
+                CHANNEL_ID_2.getShortChannelId(),
+                CAPACITY_2.satoshis(),
+                PUBKEY.toString(),
+                PUBKEY_3.toString(),
+                new Policy(100, Coins.NONE, true, 40, Coins.ofSatoshis(10_000)),
+                POLICY_2
+        );
+        List<DirectedChannelEdge> edgesFromPubkey = compactGraph.toEdgeSet().stream()
+                .filter(edge -> edge.source().equals(PUBKEY))
+                .toList();
+        assertThat(edgesFromPubkey).hasSize(2);
+        DirectedChannelEdge first = edgesFromPubkey.get(0);
+        DirectedChannelEdge second = edgesFromPubkey.get(1);
+        assertThat(first.source()).isSameAs(second.source());
+        assertThat(first.policy()).isSameAs(second.policy());
+    }
+
+    @Test
+    void snapshot_is_not_affected_by_later_changes() {
+        putChannel();
+        Set<DirectedChannelEdge> snapshot = compactGraph.toEdgeSet();
+        compactGraph.removeChannel(CHANNEL_ID.getShortChannelId());
+        assertThat(snapshot).hasSize(2);
+    }
+
+    @Test
+    void drops_unused_pubkeys_and_policies() {
+        putChannel();
+        compactGraph.putChannel(
+                CHANNEL_ID_2.getShortChannelId(),
+                CAPACITY_2.satoshis(),
+                PUBKEY.toString(),
+                PUBKEY_3.toString(),
+                Policy.UNKNOWN,
+                Policy.UNKNOWN
+        );
+        compactGraph.removeChannel(CHANNEL_ID.getShortChannelId());
+        assertThat(compactGraph.toEdgeSet()).containsExactlyInAnyOrder(
+                new DirectedChannelEdge(CHANNEL_ID_2, CAPACITY_2, PUBKEY, PUBKEY_3, Policy.UNKNOWN),
+                new DirectedChannelEdge(CHANNEL_ID_2, CAPACITY_2, PUBKEY_3, PUBKEY, Policy.UNKNOWN)
+        );
+        assertThat(compactGraph.getNumberOfPubkeys()).isEqualTo(2);
+        assertThat(compactGraph.getNumberOfPolicies()).isEqualTo(1);
+    }
+
+    @Test
+    void keeps_pools_if_mostly_used() {
+        for (int i = 1; i <= 4; i++) {
+            String node1 = PUBKEY.toString();
+            compactGraph.putChannel(i, CAPACITY.satoshis(), node1, PUBKEY_2.toString(), policy(i), POLICY_1);
+        }
+        compactGraph.removeChannel(1);
+        compactGraph.toEdgeSet();
+        assertThat(compactGraph.getNumberOfPolicies()).isEqualTo(5);
+    }
+
+    @Test
+    void adds_channels_after_dropping_unused_entries() {
+        putChannel();
+        compactGraph.removeChannel(CHANNEL_ID.getShortChannelId());
+        compactGraph.toEdgeSet();
+        putChannel();
+        assertThat(compactGraph.toEdgeSet()).containsExactlyInAnyOrder(
+                new DirectedChannelEdge(CHANNEL_ID, CAPACITY, PUBKEY, PUBKEY_2, POLICY_1),
+                new DirectedChannelEdge(CHANNEL_ID, CAPACITY, PUBKEY_2, PUBKEY, POLICY_2)
+        );
+    }
+
+    @Test
+    void snapshot_is_not_affected_by_dropping_unused_entries() {
+        putChannel();
+        compactGraph.putChannel(
+                CHANNEL_ID_2.getShortChannelId(),
+                CAPACITY_2.satoshis(),
+                PUBKEY_2.toString(),
+                PUBKEY_3.toString(),
+                Policy.UNKNOWN,
+                Policy.UNKNOWN
+        );
+        Set<DirectedChannelEdge> snapshot = compactGraph.toEdgeSet();
+        compactGraph.removeChannel(CHANNEL_ID.getShortChannelId());
+        compactGraph.toEdgeSet();
+        assertThat(snapshot).contains(
+                new DirectedChannelEdge(CHANNEL_ID, CAPACITY, PUBKEY, PUBKEY_2, POLICY_1),
+                new DirectedChannelEdge(CHANNEL_ID_2, CAPACITY_2, PUBKEY_2, PUBKEY_3, Policy.UNKNOWN)
+        );
+    }
+
+    private static Policy policy(int feeRate) {
+        return new Policy(feeRate, Coins.NONE, true, 40, Coins.NONE);
+    }
+
+    private void putChannel() {
+        compactGraph.putChannel(
+                CHANNEL_ID.getShortChannelId(),
+                CAPACITY.satoshis(),
+                PUBKEY.toString(),
+                PUBKEY_2.toString(),
+                POLICY_1,
+                POLICY_2
+        );
+    }
+
+    private void updatePolicy(long channelId, String source, String target) {
+        compactGraph.updatePolicy(channelId, CAPACITY.satoshis(), source, target, Policy.UNKNOWN, POLICY_1);
+    }
+}
@@ -2,9 +2,9 @@ package de.cotto.lndmanagej.grpc;
 
 import de.cotto.lndmanagej.model.ForwardingEvent;
 import lnrpc.ForwardingHistoryResponse;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -25,12 +25,16 @@ class GrpcForwardingHistoryTest {
     private static final int OFFSET = 123;
     private static final int LIMIT = 1_000;
 
-    @InjectMocks
     private GrpcForwardingHistory grpcForwardingHistory;
 
     @Mock
     private GrpcService grpcService;
 
+    @BeforeEach
+    void setUp() {
+        grpcForwardingHistory = new GrpcForwardingHistory(grpcService, LIMIT);
+    }
+
     @Test
     void empty_optional() {
         when(grpcService.getForwardingHistory(anyInt(), anyInt())).thenReturn(Optional.empty());
@@ -3,16 +3,25 @@ package de.cotto.lndmanagej.grpc;
 import de.cotto.lndmanagej.model.Coins;
 import de.cotto.lndmanagej.model.DirectedChannelEdge;
 import de.cotto.lndmanagej.model.Policy;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
 import lnrpc.ChannelEdge;
+import lnrpc.ChannelEdgeUpdate;
 import lnrpc.ChannelGraph;
+import lnrpc.ClosedChannelUpdate;
+import lnrpc.GraphTopologyUpdate;
 import lnrpc.RoutingPolicy;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.Set;
 
@@ -25,8 +34,10 @@ import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_2;
 import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_3;
 import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_4;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -154,6 +165,152 @@ class GrpcGraphTest {
         verify(grpcService, times(2)).describeGraph();
     }
 
+    @Test
+    void getSnapshot_same_instance_without_changes() {
+        when(grpcService.describeGraph()).thenReturn(Optional.of(ChannelGraph.getDefaultInstance()));
+        GraphSnapshot snapshot = grpcGraph.getSnapshot().orElseThrow();
+        assertThat(grpcGraph.getSnapshot()).containsSame(snapshot);
+        assertThat(snapshot.version()).isEqualTo(1);
+    }
+
+    @Nested
+    class ApplyUpdates {
+        private final ChannelEdge edge = ChannelEdge.newBuilder()
+                .setChannelId(CHANNEL_ID.getShortChannelId())
+                .setCapacity(CAPACITY.satoshis())
+                .setNode1Pub(PUBKEY.toString())
+                .setNode2Pub(PUBKEY_2.toString())
+                .setNode1Policy(policy(1, 0, false, 40))
+                .setNode2Policy(policy(2, 0, false, 40))
+                .build();
+
+        @BeforeEach
+        void setUp() {
+            lenient().when(grpcService.describeGraph())
+                    .thenReturn(Optional.of(ChannelGraph.newBuilder().addEdges(edge).build()));
+        }
+
+        @Test
+        void does_not_subscribe_if_graph_was_never_requested() {
+            grpcGraph.applyUpdates();
+            verify(grpcService, never()).subscribeChannelGraph();
+        }
+
+        @Test
+        void subscription_failed() {
+            grpcGraph.getChannelEdges();
+            when(grpcService.subscribeChannelGraph()).thenReturn(Optional.empty());
+            grpcGraph.applyUpdates();
+            verify(grpcService, times(1)).describeGraph();
+        }
+
+        @Test
+        void reloads_graph_after_subscribing() {
+            grpcGraph.getChannelEdges();
+            subscribe(List.of());
+            grpcGraph.applyUpdates();
+            verify(grpcService, times(2)).describeGraph();
+        }
+
+        @Test
+        void updated_policy() {
+            grpcGraph.getChannelEdges();
+            ChannelEdgeUpdate channelEdgeUpdate = ChannelEdgeUpdate.newBuilder()
+                    .setChanId(CHANNEL_ID.getShortChannelId())
+                    .setCapacity(CAPACITY.satoshis())
+                    .setAdvertisingNode(PUBKEY_2.toString())
+                    .setConnectingNode(PUBKEY.toString())
+                    .setRoutingPolicy(policy(200, 1, true, 144))
+                    .build();
+            subscribe(List.of(GraphTopologyUpdate.newBuilder().addChannelUpdates(channelEdgeUpdate).build()));
+            grpcGraph.applyUpdates();
+            assertThat(grpcGraph.getChannelEdges().orElseThrow()).containsExactlyInAnyOrder(
+                    new DirectedChannelEdge(
+                            CHANNEL_ID, CAPACITY, PUBKEY, PUBKEY_2, new Policy(1, Coins.NONE, true, 40, MAX_HTLC)
+                    ),
+                    new DirectedChannelEdge(
+                            CHANNEL_ID,
+                            CAPACITY,
+                            PUBKEY_2,
+                            PUBKEY,
+                            new Policy(200, Coins.ofMilliSatoshis(1), false, 144, MAX_HTLC)
+                    )
+            );
+        }
+
+        @Test
+        void new_channel() {
+            grpcGraph.getChannelEdges();
+            ChannelEdgeUpdate channelEdgeUpdate = ChannelEdgeUpdate.newBuilder()
+                    .setChanId(CHANNEL_ID_2.getShortChannelId())
+                    .setCapacity(CAPACITY_2.satoshis())
+                    .setAdvertisingNode(PUBKEY_3.toString())
+                    .setConnectingNode(PUBKEY_4.toString())
+                    .setRoutingPolicy(policy(300, 0, false, 40))
+                    .build();
+            subscribe(List.of(GraphTopologyUpdate.newBuilder().addChannelUpdates(channelEdgeUpdate).build()));
+            grpcGraph.applyUpdates();
+            assertThat(grpcGraph.getChannelEdges().orElseThrow()).hasSize(4).contains(
+                    new DirectedChannelEdge(
+                            CHANNEL_ID_2,
+                            CAPACITY_2,
+                            PUBKEY_3,
+                            PUBKEY_4,
+                            new Policy(300, Coins.NONE, true, 40, MAX_HTLC)
+                    ),
+                    new DirectedChannelEdge(
+                            CHANNEL_ID_2,
+                            CAPACITY_2,
+                            PUBKEY_4,
+                            PUBKEY_3,
+                            new Policy(0, Coins.NONE, false, 0, Coins.NONE)
+                    )
+            );
+        }
+
+        @Test
+        void closed_channel() {
+            grpcGraph.getChannelEdges();
+            ClosedChannelUpdate closedChannelUpdate = ClosedChannelUpdate.newBuilder()
+                    .setChanId(CHANNEL_ID.getShortChannelId())
+                    .build();
+            subscribe(List.of(GraphTopologyUpdate.newBuilder().addClosedChans(closedChannelUpdate).build()));
+            grpcGraph.applyUpdates();
+            assertThat(grpcGraph.getChannelEdges()).contains(Set.of());
+        }
+
+        @Test
+        void increases_version() {
+            long version = grpcGraph.getSnapshot().orElseThrow().version();
+            subscribe(List.of(GraphTopologyUpdate.getDefaultInstance()));
+            grpcGraph.applyUpdates();
+            assertThat(grpcGraph.getSnapshot().orElseThrow().version()).isGreaterThan(version);
+        }
+
+        @Test
+        void subscription_ends_with_exception() {
+            grpcGraph.getChannelEdges();
+            Iterator<GraphTopologyUpdate> iterator = new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    throw new StatusRuntimeException(Status.UNAVAILABLE);
+                }
+
+                @Override
+                public GraphTopologyUpdate next() {
+                    throw new NoSuchElementException();
+                }
+            };
+            when(grpcService.subscribeChannelGraph()).thenReturn(Optional.of(iterator));
+            assertThatCode(grpcGraph::applyUpdates).doesNotThrowAnyException();
+            assertThat(grpcGraph.getChannelEdges().orElseThrow()).hasSize(2);
+        }
+
+        private void subscribe(List<GraphTopologyUpdate> updates) {
+            when(grpcService.subscribeChannelGraph()).thenReturn(Optional.of(updates.iterator()));
+        }
+    }
+
     private RoutingPolicy policy(int feeRate, int baseFee, boolean disabled, int timeLockDelta) {
         return RoutingPolicy.newBuilder()
                 .setFeeRateMilliMsat(feeRate)
@@ -17,10 +17,10 @@ import lnrpc.ListPaymentsResponse;
 import lnrpc.PayReq;
 import lnrpc.Payment.PaymentStatus;
 import lnrpc.Route;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -60,12 +60,16 @@ class GrpcPaymentsTest {
     private static final int LIMIT = 1_000;
     private static final String PAYMENT_REQUEST = "abc";
 
-    @InjectMocks
     private GrpcPayments grpcPayments;
 
     @Mock
     private GrpcService grpcService;
 
+    @BeforeEach
+    void setUp() {
+        grpcPayments = new GrpcPayments(grpcService, LIMIT);
+    }
+
     @Nested
     class GetCompletePaymentsAfter {
         @Test
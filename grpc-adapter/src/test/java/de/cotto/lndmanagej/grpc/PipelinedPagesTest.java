@@ -0,0 +1,151 @@
+package de.cotto.lndmanagej.grpc;
+
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class PipelinedPagesTest {
+    private static final int PAGE_SIZE = 3;
+    private static final long LAST_OFFSET = 10;
+
+    private final List<Long> fetchedOffsets = new ArrayList<>();
+    private final List<List<Long>> processedPages = new ArrayList<>();
+
+    @Test
+    void single_page() {
+        PipelinedPages.process(LAST_OFFSET, this::fetch, PipelinedPagesTest::getNextOffset, processedPages::add);
+        assertThat(processedPages).containsExactly(List.of());
+        assertThat(fetchedOffsets).containsExactly(LAST_OFFSET);
+    }
+
+    @Test
+    void fetches_pages_using_offset_of_previous_page() {
+        PipelinedPages.process(0, this::fetch, PipelinedPagesTest::getNextOffset, processedPages::add);
+        assertThat(fetchedOffsets).containsExactly(0L, 3L, 6L, 9L);
+    }
+
+    @Test
+    void processes_pages_in_order() {
+        PipelinedPages.process(2, this::fetch, PipelinedPagesTest::getNextOffset, processedPages::add);
+        assertThat(processedPages).containsExactly(
+                List.of(3L, 4L, 5L),
+                List.of(6L, 7L, 8L),
+                List.of(9L, 10L)
+        );
+    }
+
+    @Test
+    void fetches_next_page_while_processing() throws InterruptedException {
+        CountDownLatch secondPageFetched = new CountDownLatch(1);
+        AtomicInteger fetchedPages = new AtomicInteger();
+        List<Boolean> fetchedWhileProcessing = new ArrayList<>();
+        PipelinedPages.process(
+                0,
+                offset -> {
+                    if (fetchedPages.incrementAndGet() == 2) {
+                        secondPageFetched.countDown();
+                    }
+                    return fetch(offset);
+                },
+                PipelinedPagesTest::getNextOffset,
+                page -> {
+                    if (processedPages.isEmpty()) {
+                        fetchedWhileProcessing.add(await(secondPageFetched));
+                    }
+                    processedPages.add(page);
+                }
+        );
+        assertThat(fetchedWhileProcessing).containsExactly(true);
+    }
+
+    @Test
+    void rethrows_exception_thrown_while_fetching() {
+        assertThatIllegalStateException().isThrownBy(() -> PipelinedPages.process(
+                0,
+                offset -> {
+                    if (offset > 0) {
+                        throw new IllegalStateException();
+                    }
+                    return fetch(offset);
+                },
+                PipelinedPagesTest::getNextOffset,
+                processedPages::add
+        ));
+        assertThat(processedPages).containsExactly(List.of(1L, 2L, 3L));
+    }
+
+    @Test
+    void rethrows_exception_thrown_while_processing() {
+        assertThatIllegalStateException().isThrownBy(() -> PipelinedPages.process(
+                0,
+                this::fetch,
+                PipelinedPagesTest::getNextOffset,
+                page -> {
+                    throw new IllegalStateException();
+                }
+        ));
+    }
+
+    @Test
+    void stops_fetching_after_exception_thrown_while_processing() {
+        AtomicReference<Thread> producerThread = new AtomicReference<>();
+        assertThatIllegalStateException().isThrownBy(() -> PipelinedPages.process(
+                0,
+                offset -> {
+                    producerThread.set(Thread.currentThread());
+                    return List.of(offset + 1, offset + 2, offset + 3);
+                },
+                PipelinedPagesTest::getNextOffset,
+                page -> {
+                    Awaitility.await().until(() -> producerThread.get().getState() == Thread.State.WAITING
+                            || producerThread.get().getState() == Thread.State.TIMED_WAITING);
+                    throw new IllegalStateException();
+                }
+        ));
+        Awaitility.await().atMost(Duration.ofSeconds(5)).until(() -> isNotProducing(producerThread.get()));
+    }
+
+    private static boolean isNotProducing(Thread thread) {
+        return Arrays.stream(thread.getStackTrace())
+                .noneMatch(element -> element.getClassName().startsWith(PipelinedPages.class.getName()));
+    }
+
+    private List<Long> fetch(long offset) {
+        synchronized (fetchedOffsets) {
+            fetchedOffsets.add(offset);
+        }
+        List<Long> page = new ArrayList<>();
+        for (long index = offset + 1; index <= Math.min(offset + PAGE_SIZE, LAST_OFFSET); index++) {
+            page.add(index);
+        }
+        return page;
+    }
+
+    private static OptionalLong getNextOffset(List<Long> page) {
+        if (page.size() < PAGE_SIZE) {
+            return OptionalLong.empty();
+        }
+        return OptionalLong.of(page.get(page.size() - 1));
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
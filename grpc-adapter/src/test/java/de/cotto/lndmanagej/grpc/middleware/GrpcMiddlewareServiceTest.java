@@ -1,5 +1,6 @@
 package de.cotto.lndmanagej.grpc.middleware;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.protobuf.ByteString;
 import de.cotto.lndmanagej.configuration.ConfigurationService;
 import de.cotto.lndmanagej.configuration.PickhardtPaymentsConfigurationSettings;
@@ -76,7 +77,13 @@ class GrpcMiddlewareServiceTest {
     void does_not_register_if_disabled_in_configuration() {
         when(configurationService.getBooleanValue(PickhardtPaymentsConfigurationSettings.ENABLED))
                 .thenReturn(Optional.of(false));
-        grpcMiddlewareService = new GrpcMiddlewareService(grpcService, Set.of(), Set.of(), configurationService);
+        grpcMiddlewareService = new GrpcMiddlewareService(
+                grpcService,
+                Set.of(),
+                Set.of(),
+                configurationService,
+                new MetricRegistry()
+        );
         verify(grpcService, never()).registerMiddleware(any());
     }
 
@@ -84,7 +91,13 @@ class GrpcMiddlewareServiceTest {
     void does_not_register_if_not_configured() {
         when(configurationService.getBooleanValue(PickhardtPaymentsConfigurationSettings.ENABLED))
                 .thenReturn(Optional.empty());
-        grpcMiddlewareService = new GrpcMiddlewareService(grpcService, Set.of(), Set.of(), configurationService);
+        grpcMiddlewareService = new GrpcMiddlewareService(
+                grpcService,
+                Set.of(),
+                Set.of(),
+                configurationService,
+                new MetricRegistry()
+        );
         verify(grpcService, never()).registerMiddleware(any());
     }
 
@@ -139,7 +152,8 @@ class GrpcMiddlewareServiceTest {
                 grpcService,
                 Set.of(requestListener),
                 Set.of(responseListener),
-                configurationService
+                configurationService,
+                new MetricRegistry()
         );
         return captor.getValue();
     }
@@ -2,7 +2,9 @@ package de.cotto.lndmanagej.grpc.middleware;
 
 import com.google.protobuf.ByteString;
 import de.cotto.lndmanagej.model.ChannelId;
+import de.cotto.lndmanagej.model.Coins;
 import de.cotto.lndmanagej.model.HexString;
+import de.cotto.lndmanagej.model.PaymentAttemptHop;
 import de.cotto.lndmanagej.model.Pubkey;
 import lnrpc.Failure;
 import lnrpc.HTLCAttempt;
@@ -14,23 +16,28 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.List;
+import java.util.Optional;
+
 import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID;
 import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID_2;
 import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY;
 import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_2;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
 @ExtendWith(MockitoExtension.class)
 class HtlcAttemptListenerTest {
     // CPD-OFF
     private static final int REQUEST_ID = 1;
-    private static final HexString NO_PREIMAGE = new HexString("");
-    private static final ByteString NO_PREIMAGE_BYTESTRING = ByteString.copyFrom(NO_PREIMAGE.getByteArray());
     private static final HexString PREIMAGE = new HexString("FF00AB");
     private static final ByteString PREIMAGE_BYTESTRING = ByteString.copyFrom(PREIMAGE.getByteArray());
-    private static final Failure NO_FAILURE = Failure.getDefaultInstance();
+    private static final List<PaymentAttemptHop> HOPS = List.of(
+            new PaymentAttemptHop(Optional.of(CHANNEL_ID), Coins.ofSatoshis(123), Optional.of(PUBKEY)),
+            new PaymentAttemptHop(Optional.of(CHANNEL_ID_2), Coins.ofSatoshis(456), Optional.of(PUBKEY_2))
+    );
     // CPD-ON
 
     @Mock
@@ -46,19 +53,17 @@ class HtlcAttemptListenerTest {
 
     @Test
     void passes_success_to_payment_listener_updater() {
-        Route route = getRoute();
         HTLCAttempt response = HTLCAttempt.newBuilder()
                 .setPreimage(PREIMAGE_BYTESTRING)
-                .setRoute(route)
+                .setRoute(getRoute())
                 .build();
-        htlcAttemptListener.acceptResponse(response, REQUEST_ID);
-        verify(paymentListenerUpdater).forResponse(PREIMAGE_BYTESTRING, route, NO_FAILURE);
+        htlcAttemptListener.acceptResponse(response.toByteString(), REQUEST_ID);
+        verify(paymentListenerUpdater).forResponse(new PaymentAttemptResult(PREIMAGE_BYTESTRING, 0, 0), HOPS);
         verifyNoMoreInteractions(paymentListenerUpdater);
     }
 
     @Test
     void notifies_listener_for_failure() {
-        Route route = getRoute();
         Failure failure = Failure.newBuilder()
                 .setCode(Failure.FailureCode.TEMPORARY_CHANNEL_FAILURE)
                 .setFailureSourceIndex(3)
@@ -66,13 +71,21 @@ class HtlcAttemptListenerTest {
 
         HTLCAttempt response = HTLCAttempt.newBuilder()
                 .setFailure(failure)
-                .setRoute(route)
+                .setRoute(getRoute())
                 .build();
-        htlcAttemptListener.acceptResponse(response, REQUEST_ID);
-        verify(paymentListenerUpdater).forResponse(NO_PREIMAGE_BYTESTRING, route, failure);
+        htlcAttemptListener.acceptResponse(response.toByteString(), REQUEST_ID);
+        PaymentAttemptResult expectedResult =
+                new PaymentAttemptResult(ByteString.EMPTY, Failure.FailureCode.TEMPORARY_CHANNEL_FAILURE_VALUE, 3);
+        verify(paymentListenerUpdater).forResponse(expectedResult, HOPS);
         verifyNoMoreInteractions(paymentListenerUpdater);
     }
 
+    @Test
+    void ignores_invalid_message() {
+        htlcAttemptListener.acceptResponse(ByteString.copyFrom(new byte[]{0x12, 0x05, 0x01}), REQUEST_ID);
+        verifyNoInteractions(paymentListenerUpdater);
+    }
+
     private Route getRoute() {
         return Route.newBuilder()
                 .addHops(hop(CHANNEL_ID, 123_000, PUBKEY))
@@ -0,0 +1,147 @@
+package de.cotto.lndmanagej.grpc.middleware;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class MiddlewareExecutorTest {
+    private static final long REQUEST_ID = 123;
+    // handled by the same stripe as REQUEST_ID
+    private static final long OTHER_REQUEST_ID = REQUEST_ID + 4;
+    private static final int QUEUE_CAPACITY = 1_000;
+
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+    private final MiddlewareExecutor middlewareExecutor = new MiddlewareExecutor(metricRegistry);
+
+    @AfterEach
+    void tearDown() {
+        middlewareExecutor.shutdown();
+    }
+
+    @Test
+    void executes_work() {
+        AtomicBoolean executed = new AtomicBoolean();
+        middlewareExecutor.executeRequest(REQUEST_ID, () -> executed.set(true));
+        await().atMost(1, TimeUnit.SECONDS).untilTrue(executed);
+    }
+
+    @Test
+    void executes_work_for_same_request_id_in_order() {
+        List<Integer> executed = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            int value = i;
+            middlewareExecutor.executeRequest(REQUEST_ID, () -> executed.add(value));
+        }
+        await().atMost(1, TimeUnit.SECONDS).until(() -> executed.size() == 100);
+        assertThat(executed).isSorted();
+    }
+
+    @Test
+    void continues_after_failing_work() {
+        AtomicBoolean executed = new AtomicBoolean();
+        middlewareExecutor.executeRequest(REQUEST_ID, () -> {
+            throw new IllegalStateException();
+        });
+        middlewareExecutor.executeRequest(REQUEST_ID, () -> executed.set(true));
+        await().atMost(1, TimeUnit.SECONDS).untilTrue(executed);
+    }
+
+    @Test
+    void reports_latency() {
+        middlewareExecutor.executeRequest(REQUEST_ID, () -> {
+        });
+        String name = MetricRegistry.name(MiddlewareExecutor.class, "latency");
+        await().atMost(1, TimeUnit.SECONDS).until(() -> metricRegistry.timer(name).getCount() == 1);
+    }
+
+    @Test
+    void executes_response_after_request() {
+        List<String> executed = new CopyOnWriteArrayList<>();
+        middlewareExecutor.executeRequest(REQUEST_ID, () -> executed.add("request"));
+        middlewareExecutor.executeResponse(REQUEST_ID, () -> executed.add("response"));
+        await().atMost(1, TimeUnit.SECONDS).until(() -> executed.size() == 2);
+        assertThat(executed).containsExactly("request", "response");
+    }
+
+    @Test
+    void drops_request_if_queue_is_full() throws InterruptedException {
+        CountDownLatch release = fillQueue();
+        AtomicBoolean executed = new AtomicBoolean();
+        middlewareExecutor.executeRequest(OTHER_REQUEST_ID, () -> executed.set(true));
+        assertThat(middlewareExecutor.getQueued()).isEqualTo(QUEUE_CAPACITY);
+        assertThat(getDropped()).isEqualTo(1);
+        release.countDown();
+        await().during(100, TimeUnit.MILLISECONDS).atMost(1, TimeUnit.SECONDS).untilFalse(executed);
+    }
+
+    @Test
+    void does_not_drop_response_if_queue_is_full() throws InterruptedException {
+        CountDownLatch release = fillQueue();
+        AtomicBoolean executed = new AtomicBoolean();
+        middlewareExecutor.executeResponse(REQUEST_ID, () -> executed.set(true));
+        assertThat(middlewareExecutor.getQueued()).isEqualTo(QUEUE_CAPACITY + 1);
+        assertThat(getDropped()).isZero();
+        release.countDown();
+        await().atMost(1, TimeUnit.SECONDS).untilTrue(executed);
+    }
+
+    @Test
+    void drops_response_for_dropped_request() throws InterruptedException {
+        CountDownLatch release = fillQueue();
+        middlewareExecutor.executeRequest(OTHER_REQUEST_ID, () -> {
+        });
+        release.countDown();
+        await().atMost(1, TimeUnit.SECONDS).until(() -> middlewareExecutor.getQueued() == 0);
+        AtomicBoolean executed = new AtomicBoolean();
+        middlewareExecutor.executeResponse(OTHER_REQUEST_ID, () -> executed.set(true));
+        assertThat(getDropped()).isEqualTo(2);
+        await().during(100, TimeUnit.MILLISECONDS).atMost(1, TimeUnit.SECONDS).untilFalse(executed);
+    }
+
+    @Test
+    void reports_queued_messages_as_gauge() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        middlewareExecutor.executeRequest(REQUEST_ID, () -> block(blocked, release));
+        blocked.await();
+        middlewareExecutor.executeRequest(REQUEST_ID, () -> {
+        });
+        String name = MetricRegistry.name(MiddlewareExecutor.class, "queued");
+        assertThat(metricRegistry.getGauges().get(name).getValue()).isEqualTo(1);
+        release.countDown();
+    }
+
+    private CountDownLatch fillQueue() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        middlewareExecutor.executeRequest(REQUEST_ID, () -> block(blocked, release));
+        blocked.await();
+        for (int i = 0; i < QUEUE_CAPACITY; i++) {
+            middlewareExecutor.executeRequest(REQUEST_ID, () -> {
+            });
+        }
+        return release;
+    }
+
+    private long getDropped() {
+        return metricRegistry.counter(MetricRegistry.name(MiddlewareExecutor.class, "dropped")).getCount();
+    }
+
+    private static void block(CountDownLatch blocked, CountDownLatch release) {
+        blocked.countDown();
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package de.cotto.lndmanagej.grpc.middleware;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import de.cotto.lndmanagej.model.ChannelId;
+import de.cotto.lndmanagej.model.Coins;
+import de.cotto.lndmanagej.model.HexString;
+import de.cotto.lndmanagej.model.PaymentAttemptHop;
+import de.cotto.lndmanagej.model.Pubkey;
+import lnrpc.ChannelUpdate;
+import lnrpc.Failure;
+import lnrpc.HTLCAttempt;
+import lnrpc.Hop;
+import lnrpc.MPPRecord;
+import lnrpc.Route;
+import org.junit.jupiter.api.Test;
+import routerrpc.RouterOuterClass.SendToRouteRequest;
+import routerrpc.RouterOuterClass.SendToRouteResponse;
+
+import java.util.List;
+import java.util.Optional;
+
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID;
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID_2;
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY;
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_2;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class PaymentAttemptParserTest {
+    private static final HexString PREIMAGE = new HexString("FF00AB");
+    private static final ByteString PREIMAGE_BYTESTRING = ByteString.copyFrom(PREIMAGE.getByteArray());
+    private static final Failure FAILURE = Failure.newBuilder()
+            .setCode(Failure.FailureCode.TEMPORARY_CHANNEL_FAILURE)
+            .setFailureSourceIndex(3)
+            .setChannelUpdate(ChannelUpdate.newBuilder().setChanId(123).setFeeRate(456).build())
+            .setHtlcMsat(789)
+            .setHeight(800_000)
+            .build();
+    private static final int TEMPORARY_CHANNEL_FAILURE = Failure.FailureCode.TEMPORARY_CHANNEL_FAILURE_VALUE;
+
+    @Test
+    void htlcAttempt_empty() throws InvalidProtocolBufferException {
+        assertThat(PaymentAttemptParser.parseHtlcAttempt(ByteString.EMPTY))
+                .isEqualTo(new ParsedHtlcAttempt(List.of(), PaymentAttemptResult.UNKNOWN));
+    }
+
+    @Test
+    void htlcAttempt_success() throws InvalidProtocolBufferException {
+        HTLCAttempt htlcAttempt = HTLCAttempt.newBuilder()
+                .setAttemptId(1)
+                .setStatus(HTLCAttempt.HTLCStatus.SUCCEEDED)
+                .setRoute(getRoute())
+                .setAttemptTimeNs(2)
+                .setResolveTimeNs(3)
+                .setPreimage(PREIMAGE_BYTESTRING)
+                .build();
+        ParsedHtlcAttempt parsed = PaymentAttemptParser.parseHtlcAttempt(htlcAttempt.toByteString());
+        assertThat(parsed.hops()).isEqualTo(getPaymentHops());
+        assertThat(parsed.result()).isEqualTo(new PaymentAttemptResult(PREIMAGE_BYTESTRING, 0, 0));
+        assertThat(parsed.result().isSuccess()).isTrue();
+    }
+
+    @Test
+    void htlcAttempt_failure() throws InvalidProtocolBufferException {
+        HTLCAttempt htlcAttempt = HTLCAttempt.newBuilder()
+                .setStatus(HTLCAttempt.HTLCStatus.FAILED)
+                .setRoute(getRoute())
+                .setFailure(FAILURE)
+                .build();
+        ParsedHtlcAttempt parsed = PaymentAttemptParser.parseHtlcAttempt(htlcAttempt.toByteString());
+        assertThat(parsed.hops()).isEqualTo(getPaymentHops());
+        assertThat(parsed.result()).isEqualTo(new PaymentAttemptResult(ByteString.EMPTY, TEMPORARY_CHANNEL_FAILURE, 3));
+        assertThat(parsed.result().isSuccess()).isFalse();
+    }
+
+    @Test
+    void htlcAttempt_invalid() {
+        ByteString truncated = HTLCAttempt.newBuilder().setRoute(getRoute()).build().toByteString().substring(0, 10);
+        assertThatExceptionOfType(InvalidProtocolBufferException.class)
+                .isThrownBy(() -> PaymentAttemptParser.parseHtlcAttempt(truncated));
+    }
+
+    @Test
+    void sendToRouteRequest() throws InvalidProtocolBufferException {
+        SendToRouteRequest request = SendToRouteRequest.newBuilder()
+                .setPaymentHash(PREIMAGE_BYTESTRING)
+                .setRoute(getRoute())
+                .setSkipTempErr(true)
+                .build();
+        assertThat(PaymentAttemptParser.parseSendToRouteRequest(request.toByteString()))
+                .isEqualTo(getPaymentHops());
+    }
+
+    @Test
+    void sendToRouteRequest_without_route() throws InvalidProtocolBufferException {
+        SendToRouteRequest request = SendToRouteRequest.newBuilder().setPaymentHash(PREIMAGE_BYTESTRING).build();
+        assertThat(PaymentAttemptParser.parseSendToRouteRequest(request.toByteString())).isEmpty();
+    }
+
+    @Test
+    void sendToRouteResponse_success() throws InvalidProtocolBufferException {
+        SendToRouteResponse response = SendToRouteResponse.newBuilder().setPreimage(PREIMAGE_BYTESTRING).build();
+        assertThat(PaymentAttemptParser.parseSendToRouteResponse(response.toByteString()))
+                .isEqualTo(new PaymentAttemptResult(PREIMAGE_BYTESTRING, 0, 0));
+    }
+
+    @Test
+    void sendToRouteResponse_failure() throws InvalidProtocolBufferException {
+        SendToRouteResponse response = SendToRouteResponse.newBuilder().setFailure(FAILURE).build();
+        assertThat(PaymentAttemptParser.parseSendToRouteResponse(response.toByteString()))
+                .isEqualTo(new PaymentAttemptResult(ByteString.EMPTY, TEMPORARY_CHANNEL_FAILURE, 3));
+    }
+
+    @Test
+    void skips_other_route_and_hop_fields() throws InvalidProtocolBufferException {
+        Hop hop = hop(CHANNEL_ID, 123_000, PUBKEY).toBuilder()
+                .setChanCapacity(1_000_000)
+                .setFeeMsat(1_000)
+                .setExpiry(800_040)
+                .setTlvPayload(true)
+                .setMppRecord(MPPRecord.newBuilder().setTotalAmtMsat(5_000).setPaymentAddr(PREIMAGE_BYTESTRING))
+                .putCustomRecords(5_482_373_484L, PREIMAGE_BYTESTRING)
+                .build();
+        Route route = Route.newBuilder()
+                .setTotalTimeLock(800_100)
+                .setTotalFeesMsat(1_000)
+                .addHops(hop)
+                .setTotalAmtMsat(124_000)
+                .build();
+        HTLCAttempt htlcAttempt = HTLCAttempt.newBuilder().setRoute(route).build();
+        assertThat(PaymentAttemptParser.parseHtlcAttempt(htlcAttempt.toByteString()).hops()).containsExactly(
+                new PaymentAttemptHop(Optional.of(CHANNEL_ID), Coins.ofSatoshis(123), Optional.of(PUBKEY))
+        );
+    }
+
+    @Test
+    void hop_without_pubkey() throws InvalidProtocolBufferException {
+        Route route = Route.newBuilder().addHops(hop(CHANNEL_ID_2, 456_000)).build();
+        assertThat(parseHops(route)).containsExactly(
+                new PaymentAttemptHop(Optional.of(CHANNEL_ID_2), Coins.ofSatoshis(456), Optional.empty())
+        );
+    }
+
+    @Test
+    void hop_without_channel_id_and_pubkey() throws InvalidProtocolBufferException {
+        Route route = Route.newBuilder().addHops(hop(100)).build();
+        assertThat(parseHops(route)).containsExactly(
+                new PaymentAttemptHop(Optional.empty(), Coins.ofMilliSatoshis(100), Optional.empty())
+        );
+    }
+
+    @Test
+    void hop_without_channel_id() throws InvalidProtocolBufferException {
+        Route route = Route.newBuilder().addHops(hop(123_000, PUBKEY)).build();
+        assertThat(parseHops(route)).containsExactly(
+                new PaymentAttemptHop(Optional.empty(), Coins.ofSatoshis(123), Optional.of(PUBKEY))
+        );
+    }
+
+    @Test
+    void reuses_pubkey_instances() throws InvalidProtocolBufferException {
+        Pubkey first = parseHops(getRoute()).get(0).targetPubkey().orElseThrow();
+        Pubkey second = parseHops(getRoute()).get(0).targetPubkey().orElseThrow();
+        assertThat(second).isSameAs(first);
+    }
+
+    private List<PaymentAttemptHop> parseHops(Route route) throws InvalidProtocolBufferException {
+        HTLCAttempt htlcAttempt = HTLCAttempt.newBuilder().setRoute(route).build();
+        return PaymentAttemptParser.parseHtlcAttempt(htlcAttempt.toByteString()).hops();
+    }
+
+    private Route getRoute() {
+        return Route.newBuilder()
+                .addHops(hop(CHANNEL_ID, 123_000, PUBKEY))
+                .addHops(hop(CHANNEL_ID_2, 456_000, PUBKEY_2))
+                .build();
+    }
+
+    private List<PaymentAttemptHop> getPaymentHops() {
+        return List.of(
+                new PaymentAttemptHop(Optional.of(CHANNEL_ID), Coins.ofSatoshis(123), Optional.of(PUBKEY)),
+                new PaymentAttemptHop(Optional.of(CHANNEL_ID_2), Coins.ofSatoshis(456), Optional.of(PUBKEY_2))
+        );
+    }
+
+    private Hop hop(ChannelId channelId, int value, Pubkey pubkey) {
+        return Hop.newBuilder()
+                .setChanId(channelId.getShortChannelId())
+                .setAmtToForwardMsat(value)
+                .setPubKey(pubkey.toString())
+                .build();
+    }
+
+    @SuppressWarnings("SameParameterValue")
+    private Hop hop(ChannelId channelId, int value) {
+        return Hop.newBuilder()
+                .setChanId(channelId.getShortChannelId())
+                .setAmtToForwardMsat(value)
+                .build();
+    }
+
+    @SuppressWarnings("SameParameterValue")
+    private Hop hop(int value) {
+        return Hop.newBuilder()
+                .setAmtToForwardMsat(value)
+                .build();
+    }
+
+    @SuppressWarnings("SameParameterValue")
+    private Hop hop(int value, Pubkey pubkey) {
+        return Hop.newBuilder()
+                .setAmtToForwardMsat(value)
+                .setPubKey(pubkey.toString())
+                .build();
+    }
+}
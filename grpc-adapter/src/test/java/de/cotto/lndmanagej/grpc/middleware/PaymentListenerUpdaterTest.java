@@ -1,16 +1,12 @@
 package de.cotto.lndmanagej.grpc.middleware;
 
 import com.google.protobuf.ByteString;
-import de.cotto.lndmanagej.model.ChannelId;
 import de.cotto.lndmanagej.model.Coins;
 import de.cotto.lndmanagej.model.FailureCode;
 import de.cotto.lndmanagej.model.HexString;
 import de.cotto.lndmanagej.model.PaymentAttemptHop;
 import de.cotto.lndmanagej.model.PaymentListener;
-import de.cotto.lndmanagej.model.Pubkey;
 import lnrpc.Failure;
-import lnrpc.Hop;
-import lnrpc.Route;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -29,11 +25,12 @@ import static org.mockito.Mockito.verifyNoMoreInteractions;
 
 @ExtendWith(MockitoExtension.class)
 class PaymentListenerUpdaterTest {
-    private static final HexString NO_PREIMAGE = new HexString("");
     private static final HexString PREIMAGE = new HexString("FF00AB");
-    private static final ByteString NO_PREIMAGE_BYTESTRING = ByteString.copyFrom(NO_PREIMAGE.getByteArray());
     private static final ByteString PREIMAGE_BYTESTRING = ByteString.copyFrom(PREIMAGE.getByteArray());
-    private static final Failure NO_FAILURE = Failure.getDefaultInstance();
+    private static final List<PaymentAttemptHop> HOPS = List.of(
+            new PaymentAttemptHop(Optional.of(CHANNEL_ID), Coins.ofSatoshis(123), Optional.of(PUBKEY)),
+            new PaymentAttemptHop(Optional.of(CHANNEL_ID_2), Coins.ofSatoshis(456), Optional.of(PUBKEY_2))
+    );
 
     private PaymentListenerUpdater paymentListenerUpdater;
 
@@ -47,107 +44,33 @@ class PaymentListenerUpdaterTest {
 
     @Test
     void notifies_listener_for_new_payment_attempt() {
-        paymentListenerUpdater.forNewPaymentAttempt(getRoute());
-        verify(paymentListener).forNewPaymentAttempt(getPaymentHops());
+        paymentListenerUpdater.forNewPaymentAttempt(HOPS);
+        verify(paymentListener).forNewPaymentAttempt(HOPS);
         verifyNoMoreInteractions(paymentListener);
     }
 
     @Test
     void notifies_listener_for_success() {
-        paymentListenerUpdater.forResponse(PREIMAGE_BYTESTRING, getRoute(), NO_FAILURE);
+        paymentListenerUpdater.forResponse(new PaymentAttemptResult(PREIMAGE_BYTESTRING, 0, 0), HOPS);
 
-        verify(paymentListener).success(PREIMAGE, getPaymentHops());
+        verify(paymentListener).success(PREIMAGE, HOPS);
         verifyNoMoreInteractions(paymentListener);
     }
 
     @Test
-    void hop_without_pubkey() {
-        Route route = Route.newBuilder().addHops(hop(CHANNEL_ID_2, 456_000)).build();
-        paymentListenerUpdater.forResponse(PREIMAGE_BYTESTRING, route, NO_FAILURE);
-        List<PaymentAttemptHop> paymentAttemptHops = List.of(
-                new PaymentAttemptHop(Optional.of(CHANNEL_ID_2), Coins.ofSatoshis(456), Optional.empty())
-        );
-        verify(paymentListener).success(PREIMAGE, paymentAttemptHops);
-        verifyNoMoreInteractions(paymentListener);
-    }
-
-    @Test
-    void hop_without_channel_id_and_pubkey() {
-        Route route = Route.newBuilder().addHops(hop(100)).build();
-        paymentListenerUpdater.forResponse(PREIMAGE_BYTESTRING, route, NO_FAILURE);
-        List<PaymentAttemptHop> paymentAttemptHops = List.of(
-                new PaymentAttemptHop(Optional.empty(), Coins.ofMilliSatoshis(100), Optional.empty())
-        );
-        verify(paymentListener).success(PREIMAGE, paymentAttemptHops);
-        verifyNoMoreInteractions(paymentListener);
-    }
+    void notifiesListenerForFailure() {
+        int failureCode = Failure.FailureCode.TEMPORARY_CHANNEL_FAILURE_VALUE;
+        paymentListenerUpdater.forResponse(new PaymentAttemptResult(ByteString.EMPTY, failureCode, 3), HOPS);
 
-    @Test
-    void hop_without_channel_id() {
-        Route route = Route.newBuilder().addHops(hop(123_000, PUBKEY)).build();
-        paymentListenerUpdater.forResponse(PREIMAGE_BYTESTRING, route, NO_FAILURE);
-        List<PaymentAttemptHop> paymentAttemptHops = List.of(
-                new PaymentAttemptHop(Optional.empty(), Coins.ofSatoshis(123), Optional.of(PUBKEY))
-        );
-        verify(paymentListener).success(PREIMAGE, paymentAttemptHops);
+        verify(paymentListener).failure(HOPS, FailureCode.TEMPORARY_CHANNEL_FAILURE, 3);
         verifyNoMoreInteractions(paymentListener);
     }
 
     @Test
-    void notifiesListenerForFailure() {
-        Failure failure = Failure.newBuilder()
-                .setCode(Failure.FailureCode.TEMPORARY_CHANNEL_FAILURE)
-                .setFailureSourceIndex(3)
-                .build();
-        paymentListenerUpdater.forResponse(NO_PREIMAGE_BYTESTRING, getRoute(), failure);
+    void notifiesListenerForFailure_unknown() {
+        paymentListenerUpdater.forResponse(PaymentAttemptResult.UNKNOWN, HOPS);
 
-        List<PaymentAttemptHop> paymentAttemptHops = getPaymentHops();
-        verify(paymentListener).failure(paymentAttemptHops, FailureCode.TEMPORARY_CHANNEL_FAILURE, 3);
+        verify(paymentListener).failure(HOPS, FailureCode.UNKNOWN_FAILURE, 0);
         verifyNoMoreInteractions(paymentListener);
     }
-
-    private Route getRoute() {
-        return Route.newBuilder()
-                .addHops(hop(CHANNEL_ID, 123_000, PUBKEY))
-                .addHops(hop(CHANNEL_ID_2, 456_000, PUBKEY_2))
-                .build();
-    }
-
-    private List<PaymentAttemptHop> getPaymentHops() {
-        return List.of(
-                new PaymentAttemptHop(Optional.of(CHANNEL_ID), Coins.ofSatoshis(123), Optional.of(PUBKEY)),
-                new PaymentAttemptHop(Optional.of(CHANNEL_ID_2), Coins.ofSatoshis(456), Optional.of(PUBKEY_2))
-        );
-    }
-
-    private Hop hop(ChannelId channelId, int value, Pubkey pubkey) {
-        return Hop.newBuilder()
-                .setChanId(channelId.getShortChannelId())
-                .setAmtToForwardMsat(value)
-                .setPubKey(pubkey.toString())
-                .build();
-    }
-
-    @SuppressWarnings("SameParameterValue")
-    private Hop hop(ChannelId channelId, int value) {
-        return Hop.newBuilder()
-                .setChanId(channelId.getShortChannelId())
-                .setAmtToForwardMsat(value)
-                .build();
-    }
-
-    @SuppressWarnings("SameParameterValue")
-    private Hop hop(int value) {
-        return Hop.newBuilder()
-                .setAmtToForwardMsat(value)
-                .build();
-    }
-
-    @SuppressWarnings("SameParameterValue")
-    private Hop hop(int value, Pubkey pubkey) {
-        return Hop.newBuilder()
-                .setAmtToForwardMsat(value)
-                .setPubKey(pubkey.toString())
-                .build();
-    }
 }
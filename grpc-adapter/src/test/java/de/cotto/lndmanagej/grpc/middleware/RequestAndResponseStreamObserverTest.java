@@ -1,15 +1,17 @@
 package de.cotto.lndmanagej.grpc.middleware;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.protobuf.ByteString;
 import lnrpc.InterceptFeedback;
 import lnrpc.RPCMessage;
 import lnrpc.RPCMiddlewareRequest;
 import lnrpc.RPCMiddlewareResponse;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -20,6 +22,7 @@ import static org.awaitility.Awaitility.await;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -31,7 +34,8 @@ class RequestAndResponseStreamObserverTest {
     private static final String RESPONSE_LISTENER_TYPE = "response-listener-type";
     private static final int MESSAGE_ID = 123;
 
-    @InjectMocks
+    private final MiddlewareExecutor middlewareExecutor = new MiddlewareExecutor(new MetricRegistry());
+
     private RequestAndResponseStreamObserver observer;
 
     @Mock
@@ -50,14 +54,20 @@ class RequestAndResponseStreamObserverTest {
     void setUp() {
         lenient().when(requestListener.getRequestType()).thenReturn(REQUEST_LISTENER_TYPE);
         lenient().when(responseListener.getResponseType()).thenReturn(RESPONSE_LISTENER_TYPE);
+        observer = new RequestAndResponseStreamObserver(middlewareExecutor);
         observer.initialize(responseObserver, observerIsDoneListener);
     }
 
+    @AfterEach
+    void tearDown() {
+        middlewareExecutor.shutdown();
+    }
+
     @Nested
     class ErrorBeforeInitialization {
         @BeforeEach
         void setUp() {
-            observer = new RequestAndResponseStreamObserver();
+            observer = new RequestAndResponseStreamObserver(middlewareExecutor);
             observer.onError(new NullPointerException());
         }
 
@@ -137,6 +147,20 @@ class RequestAndResponseStreamObserverTest {
             );
         }
 
+        @Test
+        void forwards_request_before_response_for_same_id() {
+            observer.addRequestListener(requestListener);
+            observer.addResponseListener(responseListener);
+            observer.onNext(createRequestMessage(REQUEST_LISTENER_TYPE, MESSAGE_ID, "request"));
+            observer.onNext(createResponseMessage(RESPONSE_LISTENER_TYPE, MESSAGE_ID, "response"));
+            await().atMost(1, TimeUnit.SECONDS).untilAsserted(
+                    () -> verify(responseListener).acceptResponse(any(ByteString.class), anyLong())
+            );
+            InOrder inOrder = inOrder(requestListener, responseListener);
+            inOrder.verify(requestListener).acceptRequest(ByteString.copyFromUtf8("request"), MESSAGE_ID);
+            inOrder.verify(responseListener).acceptResponse(ByteString.copyFromUtf8("response"), MESSAGE_ID);
+        }
+
         @Test
         void acknowledges_message() {
             observer.addResponseListener(responseListener);
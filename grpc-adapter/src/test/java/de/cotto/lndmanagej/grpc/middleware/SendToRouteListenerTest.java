@@ -2,7 +2,9 @@ package de.cotto.lndmanagej.grpc.middleware;
 
 import com.google.protobuf.ByteString;
 import de.cotto.lndmanagej.model.ChannelId;
+import de.cotto.lndmanagej.model.Coins;
 import de.cotto.lndmanagej.model.HexString;
+import de.cotto.lndmanagej.model.PaymentAttemptHop;
 import de.cotto.lndmanagej.model.Pubkey;
 import lnrpc.Failure;
 import lnrpc.Hop;
@@ -12,9 +14,12 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import routerrpc.RouterOuterClass;
+import routerrpc.RouterOuterClass.SendToRouteRequest;
 import routerrpc.RouterOuterClass.SendToRouteResponse;
 
+import java.util.List;
+import java.util.Optional;
+
 import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID;
 import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID_2;
 import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY;
@@ -26,11 +31,12 @@ import static org.mockito.Mockito.verifyNoInteractions;
 @ExtendWith(MockitoExtension.class)
 class SendToRouteListenerTest {
     private static final int REQUEST_ID = 1;
-    private static final HexString NO_PREIMAGE = new HexString("");
-    private static final ByteString NO_PREIMAGE_BYTESTRING = ByteString.copyFrom(NO_PREIMAGE.getByteArray());
     private static final HexString PREIMAGE = new HexString("FF00AB");
     private static final ByteString PREIMAGE_BYTESTRING = ByteString.copyFrom(PREIMAGE.getByteArray());
-    private static final Failure NO_FAILURE = Failure.getDefaultInstance();
+    private static final List<PaymentAttemptHop> HOPS = List.of(
+            new PaymentAttemptHop(Optional.of(CHANNEL_ID), Coins.ofSatoshis(123), Optional.of(PUBKEY)),
+            new PaymentAttemptHop(Optional.of(CHANNEL_ID_2), Coins.ofSatoshis(456), Optional.of(PUBKEY_2))
+    );
 
     @Mock
     private PaymentListenerUpdater paymentListenerUpdater;
@@ -50,49 +56,48 @@ class SendToRouteListenerTest {
 
     @Test
     void notifies_for_request_before_response_arrives() {
-        Route route = getRoute();
-        acceptRequestWithRoute(route);
-        verify(paymentListenerUpdater).forNewPaymentAttempt(route);
+        acceptRequest();
+        verify(paymentListenerUpdater).forNewPaymentAttempt(HOPS);
     }
 
     @Test
     void responseWithoutRequest() {
-        sendToRouteListener.acceptResponse(SendToRouteResponse.newBuilder().build(), REQUEST_ID);
+        sendToRouteListener.acceptResponse(SendToRouteResponse.newBuilder().build().toByteString(), REQUEST_ID);
         verifyNoInteractions(paymentListenerUpdater);
     }
 
     @Test
     void passes_success_to_payment_listener_updater() {
-        Route route = getRoute();
-        acceptRequestWithRoute(route);
+        acceptRequest();
         SendToRouteResponse response = SendToRouteResponse.newBuilder()
                 .setPreimage(PREIMAGE_BYTESTRING)
                 .build();
-        sendToRouteListener.acceptResponse(response, REQUEST_ID);
-        verify(paymentListenerUpdater).forResponse(PREIMAGE_BYTESTRING, route, NO_FAILURE);
+        sendToRouteListener.acceptResponse(response.toByteString(), REQUEST_ID);
+        verify(paymentListenerUpdater).forResponse(new PaymentAttemptResult(PREIMAGE_BYTESTRING, 0, 0), HOPS);
     }
 
     @Test
     void notifiesListenerForFailure() {
-        Route route = getRoute();
         Failure failure = Failure.newBuilder()
                 .setCode(Failure.FailureCode.TEMPORARY_CHANNEL_FAILURE)
                 .setFailureSourceIndex(3)
                 .build();
-        acceptRequestWithRoute(route);
+        acceptRequest();
 
         SendToRouteResponse response = SendToRouteResponse.newBuilder()
                 .setFailure(failure)
                 .build();
-        sendToRouteListener.acceptResponse(response, REQUEST_ID);
-        verify(paymentListenerUpdater).forResponse(NO_PREIMAGE_BYTESTRING, route, failure);
+        sendToRouteListener.acceptResponse(response.toByteString(), REQUEST_ID);
+        PaymentAttemptResult expectedResult =
+                new PaymentAttemptResult(ByteString.EMPTY, Failure.FailureCode.TEMPORARY_CHANNEL_FAILURE_VALUE, 3);
+        verify(paymentListenerUpdater).forResponse(expectedResult, HOPS);
     }
 
-    private void acceptRequestWithRoute(Route route) {
-        RouterOuterClass.SendToRouteRequest request = RouterOuterClass.SendToRouteRequest.newBuilder()
-                .setRoute(route)
+    private void acceptRequest() {
+        SendToRouteRequest request = SendToRouteRequest.newBuilder()
+                .setRoute(getRoute())
                 .build();
-        sendToRouteListener.acceptRequest(request, REQUEST_ID);
+        sendToRouteListener.acceptRequest(request.toByteString(), REQUEST_ID);
     }
 
     private Route getRoute() {
@@ -0,0 +1,83 @@
+package de.cotto.lndmanagej.invoices.persistence;
+
+import com.codahale.metrics.MetricRegistry;
+import de.cotto.lndmanagej.model.ChannelId;
+import de.cotto.lndmanagej.model.Coins;
+import de.cotto.lndmanagej.model.SettledInvoice;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID;
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID_2;
+import static de.cotto.lndmanagej.model.SettledInvoiceFixtures.SETTLED_INVOICE;
+import static de.cotto.lndmanagej.model.SettledInvoiceFixtures.SETTLED_INVOICE_2;
+import static de.cotto.lndmanagej.model.SettledInvoiceFixtures.SETTLED_INVOICE_KEYSEND;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import({SettledInvoicesDaoImpl.class, MetricRegistry.class})
+class SettledInvoicesDaoImplIT {
+    private static final long ID_OF_SETTLED_INDEX_ENTITY = 0L;
+
+    @Autowired
+    private SettledInvoicesDaoImpl dao;
+
+    @Autowired
+    private SettledInvoicesRepository repository;
+
+    @Autowired
+    private SettledInvoicesIndexRepository settledInvoicesIndexRepository;
+
+    @Test
+    void save_inserts_rows() {
+        dao.save(List.of(SETTLED_INVOICE, SETTLED_INVOICE_2));
+        assertThat(repository.findAll()).map(SettledInvoiceJpaDto::toModel)
+                .containsExactlyInAnyOrder(SETTLED_INVOICE, SETTLED_INVOICE_2);
+    }
+
+    @Test
+    void save_inserts_keysend_message() {
+        dao.save(List.of(SETTLED_INVOICE_KEYSEND));
+        assertThat(repository.findAll()).map(SettledInvoiceJpaDto::toModel).containsExactly(SETTLED_INVOICE_KEYSEND);
+    }
+
+    @Test
+    void save_inserts_received_via_for_several_channels() {
+        Map<ChannelId, Coins> receivedVia =
+                Map.of(CHANNEL_ID, Coins.ofSatoshis(100), CHANNEL_ID_2, Coins.ofSatoshis(50));
+        SettledInvoice invoice = new SettledInvoice(
+                SETTLED_INVOICE.addIndex(),
+                SETTLED_INVOICE.settleIndex(),
+                SETTLED_INVOICE.settleDate(),
+                SETTLED_INVOICE.hash(),
+                SETTLED_INVOICE.amountPaid(),
+                SETTLED_INVOICE.memo(),
+                Optional.empty(),
+                receivedVia
+        );
+        dao.save(List.of(invoice));
+        assertThat(repository.findAll()).map(SettledInvoiceJpaDto::toModel).containsExactly(invoice);
+    }
+
+    @Test
+    void save_skips_already_persisted_invoices() {
+        dao.save(List.of(SETTLED_INVOICE_2));
+        dao.save(List.of(SETTLED_INVOICE_2, SETTLED_INVOICE));
+        assertThat(repository.findAll()).map(SettledInvoiceJpaDto::toModel)
+                .containsExactlyInAnyOrder(SETTLED_INVOICE, SETTLED_INVOICE_2);
+    }
+
+    @Test
+    void save_persists_settle_index_offset() {
+        dao.save(List.of(SETTLED_INVOICE, SETTLED_INVOICE_2));
+        assertThat(settledInvoicesIndexRepository.findByEntityId(ID_OF_SETTLED_INDEX_ENTITY)
+                .map(SettledInvoicesIndexJpaDto::getAllSettledIndexOffset)
+        ).contains(SETTLED_INVOICE_2.settleIndex());
+    }
+}
@@ -31,36 +31,14 @@ class SettledInvoicesRepositoryIT {
     private PaymentsRepository paymentsRepository;
 
     @Test
-    void getMaxSettledIndexWithoutGaps_no_invoice() {
-        assertThat(repository.getMaxSettledIndexWithoutGaps(0)).isEqualTo(0);
+    void getSettleIndexesAfter_no_invoice() {
+        assertThat(repository.getSettleIndexesAfter(0)).isEmpty();
     }
 
     @Test
-    void getMaxSettledIndexWithoutGaps_with_gaps_in_addIndex() {
-        repository.save(invoice(1, 1));
-        repository.save(invoice(2, 2));
-        repository.save(invoice(5, 3));
-        repository.save(invoice(6, 5));
-        repository.save(invoice(7, 4));
-        assertThat(repository.getMaxSettledIndexWithoutGaps(0)).isEqualTo(5);
-    }
-
-    @Test
-    void getMaxSettleIndexWithoutGaps_gap_in_settleIndex() {
-        saveWithGapAfterSettleIndexThree();
-        assertThat(repository.getMaxSettledIndexWithoutGaps(0)).isEqualTo(3L);
-    }
-
-    @Test
-    void getMaxSettleIndexWithoutGaps_gap_in_settleIndex_smaller_known_index() {
-        saveWithGapAfterSettleIndexThree();
-        assertThat(repository.getMaxSettledIndexWithoutGaps(1)).isEqualTo(3L);
-    }
-
-    @Test
-    void getMaxSettleIndexWithoutGaps_gap_in_settleIndex_at_known_index() {
+    void getSettleIndexesAfter() {
         saveWithGapAfterSettleIndexThree();
-        assertThat(repository.getMaxSettledIndexWithoutGaps(3)).isEqualTo(3L);
+        assertThat(repository.getSettleIndexesAfter(2)).containsExactlyInAnyOrder(3L, 5L, 6L);
     }
 
     @Test
@@ -1,6 +1,7 @@
 package de.cotto.lndmanagej.invoices;
 
 import de.cotto.lndmanagej.grpc.GrpcInvoices;
+import de.cotto.lndmanagej.model.HistoryLoader;
 import de.cotto.lndmanagej.model.SettledInvoice;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
@@ -9,13 +10,20 @@ import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 @Component
-public class SettledInvoices {
+public class SettledInvoices implements HistoryLoader {
     private final GrpcInvoices grpcInvoices;
     private final SettledInvoicesDao dao;
+    private final List<SettledInvoicesListener> listeners;
+    private volatile boolean caughtUp;
 
-    public SettledInvoices(GrpcInvoices grpcInvoices, SettledInvoicesDao dao) {
+    public SettledInvoices(
+            GrpcInvoices grpcInvoices,
+            SettledInvoicesDao dao,
+            List<SettledInvoicesListener> listeners
+    ) {
         this.grpcInvoices = grpcInvoices;
         this.dao = dao;
+        this.listeners = listeners;
     }
 
     @Scheduled(fixedDelay = 10, timeUnit = TimeUnit.SECONDS)
@@ -29,10 +37,26 @@ public class SettledInvoices {
             }
             validInvoices = settledInvoices.stream().filter(SettledInvoice::isValid).toList();
             dao.save(validInvoices);
+            notifyListeners(validInvoices);
         } while (settledInvoices.size() == grpcInvoices.getLimit() && !validInvoices.isEmpty());
+        caughtUp = true;
 
         grpcInvoices.getNewSettledInvoicesAfter(dao.getSettleIndexOffset())
                 .filter(SettledInvoice::isValid)
-                .forEach(dao::save);
+                .forEach(settledInvoice -> {
+                    dao.save(settledInvoice);
+                    notifyListeners(List.of(settledInvoice));
+                });
+    }
+
+    @Override
+    public boolean isCaughtUp() {
+        return caughtUp;
+    }
+
+    private void notifyListeners(List<SettledInvoice> settledInvoices) {
+        if (!settledInvoices.isEmpty()) {
+            listeners.forEach(listener -> listener.addedSettledInvoices(settledInvoices));
+        }
     }
 }
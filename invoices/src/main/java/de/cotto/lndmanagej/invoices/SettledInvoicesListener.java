@@ -0,0 +1,12 @@
+package de.cotto.lndmanagej.invoices;
+
+import de.cotto.lndmanagej.model.SettledInvoice;
+
+import java.util.Collection;
+
+public interface SettledInvoicesListener {
+    /**
+     * Invoked after the given settled invoices were persisted.
+     */
+    void addedSettledInvoices(Collection<SettledInvoice> settledInvoices);
+}
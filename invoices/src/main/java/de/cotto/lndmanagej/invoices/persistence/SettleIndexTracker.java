@@ -0,0 +1,52 @@
+package de.cotto.lndmanagej.invoices.persistence;
+
+import java.util.BitSet;
+import java.util.Collection;
+
+/**
+ * Keeps track of the largest settle index for which all invoices with a smaller or equal settle index are known
+ * (settle indexes start at 1 and do not have gaps in lnd).
+ * <p>
+ * Settle indexes above this watermark are kept in a bit set, so that adding a settle index takes constant amortized
+ * time, even if the invoices are not added in the order of their settle index.
+ */
+final class SettleIndexTracker {
+    private static final int COMPACTION_THRESHOLD = 64 * 1_024;
+
+    // bit i is set if settle index base + 1 + i is known
+    private BitSet known = new BitSet();
+    private long base;
+    private long watermark;
+
+    SettleIndexTracker(long watermark, Collection<Long> knownSettleIndexesAfterWatermark) {
+        this.watermark = watermark;
+        base = watermark;
+        knownSettleIndexesAfterWatermark.forEach(this::add);
+    }
+
+    synchronized long getWatermark() {
+        return watermark;
+    }
+
+    synchronized void add(long settleIndex) {
+        if (settleIndex <= watermark) {
+            return;
+        }
+        known.set(toBit(settleIndex));
+        int firstUnknownBit = known.nextClearBit(toBit(watermark + 1));
+        watermark = base + firstUnknownBit;
+        if (watermark - base >= COMPACTION_THRESHOLD) {
+            compact();
+        }
+    }
+
+    private void compact() {
+        int from = toBit(watermark + 1);
+        known = known.get(from, Math.max(from, known.length()));
+        base = watermark;
+    }
+
+    private int toBit(long settleIndex) {
+        return Math.toIntExact(settleIndex - base - 1);
+    }
+}
@@ -94,7 +94,7 @@ public class SettledInvoiceJpaDto {
 
     private Map<ChannelId, Coins> getReceivedVia() {
         return Objects.requireNonNull(receivedVia).stream().collect(toMap(
-                entry -> ChannelId.fromShortChannelId(entry.getChannelId()),
+                entry -> ChannelId.ofOwnChannel(entry.getChannelId()),
                 entry -> Coins.ofMilliSatoshis(entry.getAmount())
         ));
     }
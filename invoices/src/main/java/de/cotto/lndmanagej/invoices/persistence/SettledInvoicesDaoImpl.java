@@ -1,11 +1,18 @@
 package de.cotto.lndmanagej.invoices.persistence;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
 import de.cotto.lndmanagej.invoices.SettledInvoicesDao;
 import de.cotto.lndmanagej.model.ChannelId;
 import de.cotto.lndmanagej.model.SettledInvoice;
 import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import javax.annotation.Nullable;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Collection;
@@ -15,31 +22,54 @@ import java.util.List;
 @Transactional
 public class SettledInvoicesDaoImpl implements SettledInvoicesDao {
     private static final int ID_OF_SETTLED_INDEX_ENTITY = 0;
+    private static final String INSERT_INVOICE = "INSERT INTO settled_invoices (add_index, settle_index, "
+            + "settle_date, hash, amount_paid, memo, keysend_message) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_RECEIVED_VIA = "INSERT INTO settled_invoice_received_via "
+            + "(settled_invoice_jpa_dto_add_index, channel_id, amount) VALUES (?, ?, ?)";
 
     private final SettledInvoicesRepository repository;
     private final SettledInvoicesIndexRepository settledInvoicesIndexRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final Counter insertedInvoices;
+    @Nullable
+    private SettleIndexTracker settleIndexTracker;
+    private long persistedSettleIndexOffset;
 
     public SettledInvoicesDaoImpl(
             SettledInvoicesRepository repository,
-            SettledInvoicesIndexRepository settledInvoicesIndexRepository
+            SettledInvoicesIndexRepository settledInvoicesIndexRepository,
+            JdbcTemplate jdbcTemplate,
+            MetricRegistry metricRegistry,
+            @Value("${lndmanagej.bulk-insert-batch-size:1000}") int batchSize
     ) {
         this.repository = repository;
         this.settledInvoicesIndexRepository = settledInvoicesIndexRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        insertedInvoices = metricRegistry.counter(MetricRegistry.name(getClass(), "inserted"));
     }
 
+    /**
+     * Inserts the invoices that are not persisted, yet (i.e. with an add index larger than the current offset), using
+     * JDBC batch inserts instead of merging each invoice individually.
+     */
     @Override
     public void save(Collection<SettledInvoice> settledInvoices) {
-        List<SettledInvoiceJpaDto> converted = settledInvoices.stream()
-                .map(SettledInvoiceJpaDto::createFromModel)
+        long offset = getAddIndexOffset();
+        List<SettledInvoice> newInvoices = settledInvoices.stream()
+                .filter(settledInvoice -> settledInvoice.addIndex() > offset)
                 .toList();
-        repository.saveAll(converted);
-        updateSettleIndexOffset();
+        if (!newInvoices.isEmpty()) {
+            insert(newInvoices);
+        }
+        updateSettleIndexOffset(settledInvoices);
     }
 
     @Override
     public void save(SettledInvoice settledInvoice) {
         repository.save(SettledInvoiceJpaDto.createFromModel(settledInvoice));
-        updateSettleIndexOffset();
+        updateSettleIndexOffset(List.of(settledInvoice));
     }
 
     @Override
@@ -49,7 +79,7 @@ public class SettledInvoicesDaoImpl implements SettledInvoicesDao {
 
     @Override
     public long getSettleIndexOffset() {
-        return repository.getMaxSettledIndexWithoutGaps(getKnownSettledIndex());
+        return getSettleIndexTracker().getWatermark();
     }
 
     @Override
@@ -60,22 +90,93 @@ public class SettledInvoicesDaoImpl implements SettledInvoicesDao {
                 ).stream().map(SettledInvoiceJpaDto::toModel).toList();
     }
 
-    private long getKnownSettledIndex() {
-        return settledInvoicesIndexRepository.findByEntityId(ID_OF_SETTLED_INDEX_ENTITY)
-                .map(SettledInvoicesIndexJpaDto::getAllSettledIndexOffset)
-                .orElse(0L);
+    private void insert(List<SettledInvoice> settledInvoices) {
+        List<SettledInvoiceJpaDto> converted = settledInvoices.stream()
+                .map(SettledInvoiceJpaDto::createFromModel)
+                .toList();
+        jdbcTemplate.batchUpdate(INSERT_INVOICE, converted, batchSize, (statement, jpaDto) -> {
+            statement.setLong(1, jpaDto.getAddIndex());
+            statement.setLong(2, jpaDto.getSettleIndex());
+            statement.setLong(3, jpaDto.getSettleDate());
+            statement.setString(4, jpaDto.getHash());
+            statement.setLong(5, jpaDto.getAmountPaid());
+            statement.setString(6, jpaDto.getMemo());
+            statement.setString(7, jpaDto.getKeysendMessage());
+        });
+        List<ReceivedVia> receivedVia = settledInvoices.stream()
+                .flatMap(settledInvoice -> settledInvoice.receivedVia().entrySet().stream()
+                        .map(entry -> new ReceivedVia(
+                                settledInvoice.addIndex(),
+                                entry.getKey().getShortChannelId(),
+                                entry.getValue().milliSatoshis()
+                        ))
+                ).toList();
+        jdbcTemplate.batchUpdate(INSERT_RECEIVED_VIA, receivedVia, batchSize, (statement, entry) -> {
+            statement.setLong(1, entry.addIndex());
+            statement.setLong(2, entry.channelId());
+            statement.setLong(3, entry.amount());
+        });
+        insertedInvoices.inc(settledInvoices.size());
+    }
+
+    /**
+     * Initially, the tracker is created based on the persisted offset and the settle indexes of all persisted invoices
+     * above this offset (these are only invoices with an unknown invoice below their settle index).
+     */
+    private synchronized SettleIndexTracker getSettleIndexTracker() {
+        if (settleIndexTracker == null) {
+            persistedSettleIndexOffset = settledInvoicesIndexRepository.findByEntityId(ID_OF_SETTLED_INDEX_ENTITY)
+                    .map(SettledInvoicesIndexJpaDto::getAllSettledIndexOffset)
+                    .orElse(0L);
+            List<Long> knownSettleIndexes = repository.getSettleIndexesAfter(persistedSettleIndexOffset);
+            settleIndexTracker = new SettleIndexTracker(persistedSettleIndexOffset, knownSettleIndexes);
+        }
+        return settleIndexTracker;
     }
 
-    private void updateSettleIndexOffset() {
+    private synchronized void updateSettleIndexOffset(Collection<SettledInvoice> settledInvoices) {
+        SettleIndexTracker tracker = getSettleIndexTracker();
+        resetSettleIndexTrackerOnRollback();
+        settledInvoices.forEach(settledInvoice -> tracker.add(settledInvoice.settleIndex()));
+        long newIndex = tracker.getWatermark();
+        if (newIndex == persistedSettleIndexOffset) {
+            return;
+        }
         SettledInvoicesIndexJpaDto entity = settledInvoicesIndexRepository
                 .findByEntityId(ID_OF_SETTLED_INDEX_ENTITY)
                 .orElseGet(SettledInvoicesIndexJpaDto::new);
-        long newIndex = repository.getMaxSettledIndexWithoutGaps(entity.getAllSettledIndexOffset());
         entity.setAllSettledIndexOffset(newIndex);
         settledInvoicesIndexRepository.save(entity);
+        persistedSettleIndexOffset = newIndex;
+    }
+
+    /**
+     * The tracker is updated before the transaction is committed. If the transaction is rolled back, the tracker (and
+     * the persisted offset) would contain settle indexes of invoices that are not persisted. In this case the tracker
+     * is rebuilt based on the database contents once it is needed again.
+     */
+    private void resetSettleIndexTrackerOnRollback() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    resetSettleIndexTracker();
+                }
+            }
+        });
+    }
+
+    private synchronized void resetSettleIndexTracker() {
+        settleIndexTracker = null;
     }
 
     private long getAfterEpochSeconds(Duration maxAge) {
         return Instant.now().toEpochMilli() / 1_000 - maxAge.getSeconds();
     }
+
+    private record ReceivedVia(long addIndex, long channelId, long amount) {
+    }
 }
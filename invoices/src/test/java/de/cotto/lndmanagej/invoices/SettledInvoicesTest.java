@@ -7,7 +7,6 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Timeout;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InOrder;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -17,6 +16,7 @@ import java.util.stream.Stream;
 
 import static de.cotto.lndmanagej.model.SettledInvoiceFixtures.SETTLED_INVOICE;
 import static de.cotto.lndmanagej.model.SettledInvoiceFixtures.SETTLED_INVOICE_2;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.lenient;
@@ -30,7 +30,6 @@ class SettledInvoicesTest {
     private static final long ADD_INDEX_OFFSET = 1_234;
     private static final long SETTLE_INDEX_OFFSET = 999;
 
-    @InjectMocks
     private SettledInvoices settledInvoices;
 
     @Mock
@@ -39,8 +38,12 @@ class SettledInvoicesTest {
     @Mock
     private SettledInvoicesDao dao;
 
+    @Mock
+    private SettledInvoicesListener listener;
+
     @BeforeEach
     void setUp() {
+        settledInvoices = new SettledInvoices(grpcInvoices, dao, List.of(listener));
         when(dao.getAddIndexOffset()).thenReturn(ADD_INDEX_OFFSET);
         lenient().when(dao.getSettleIndexOffset()).thenReturn(SETTLE_INDEX_OFFSET);
         lenient().when(grpcInvoices.getLimit()).thenReturn(1);
@@ -77,6 +80,19 @@ class SettledInvoicesTest {
         verify(grpcInvoices, never()).getNewSettledInvoicesAfter(SETTLE_INDEX_OFFSET);
     }
 
+    @Test
+    void isCaughtUp_after_bulk_get() {
+        mockEmptyGetReply();
+        settledInvoices.refresh();
+        assertThat(settledInvoices.isCaughtUp()).isTrue();
+    }
+
+    @Test
+    void isCaughtUp_false_after_failed_bulk_get() {
+        settledInvoices.refresh();
+        assertThat(settledInvoices.isCaughtUp()).isFalse();
+    }
+
     @Test
     void refresh_ignores_invalid_invoices_in_bulk_get() {
         when(grpcInvoices.getSettledInvoicesAfter(ADD_INDEX_OFFSET)).thenReturn(
@@ -124,6 +140,35 @@ class SettledInvoicesTest {
         verify(dao, times(2)).save(any(SettledInvoice.class));
     }
 
+    @Test
+    void refresh_notifies_listener_after_saving_invoices() {
+        when(grpcInvoices.getSettledInvoicesAfter(ADD_INDEX_OFFSET)).thenReturn(
+                Optional.of(List.of(SETTLED_INVOICE, SETTLED_INVOICE_2))
+        ).thenReturn(Optional.of(List.of()));
+        settledInvoices.refresh();
+        InOrder inOrder = inOrder(dao, listener);
+        inOrder.verify(dao).save(List.of(SETTLED_INVOICE, SETTLED_INVOICE_2));
+        inOrder.verify(listener).addedSettledInvoices(List.of(SETTLED_INVOICE, SETTLED_INVOICE_2));
+    }
+
+    @Test
+    void refresh_does_not_notify_listener_without_invoices() {
+        mockEmptyGetReply();
+        settledInvoices.refresh();
+        verify(listener, never()).addedSettledInvoices(any());
+    }
+
+    @Test
+    void refresh_notifies_listener_for_invoices_from_subscription() {
+        mockEmptyGetReply();
+        when(grpcInvoices.getNewSettledInvoicesAfter(SETTLE_INDEX_OFFSET))
+                .thenReturn(Stream.of(SETTLED_INVOICE));
+        settledInvoices.refresh();
+        InOrder inOrder = inOrder(dao, listener);
+        inOrder.verify(dao).save(SETTLED_INVOICE);
+        inOrder.verify(listener).addedSettledInvoices(List.of(SETTLED_INVOICE));
+    }
+
     private void mockEmptyGetReply() {
         when(grpcInvoices.getSettledInvoicesAfter(ADD_INDEX_OFFSET))
                 .thenReturn(Optional.of(List.of()))
@@ -0,0 +1,86 @@
+package de.cotto.lndmanagej.invoices.persistence;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SettleIndexTrackerTest {
+    @Test
+    void initial_watermark() {
+        assertThat(new SettleIndexTracker(123, List.of()).getWatermark()).isEqualTo(123);
+    }
+
+    @Test
+    void initial_watermark_with_known_settle_indexes() {
+        SettleIndexTracker tracker = new SettleIndexTracker(10, List.of(12L, 11L, 14L));
+        assertThat(tracker.getWatermark()).isEqualTo(12);
+    }
+
+    @Test
+    void add_next_settle_index() {
+        SettleIndexTracker tracker = new SettleIndexTracker(0, List.of());
+        tracker.add(1);
+        assertThat(tracker.getWatermark()).isEqualTo(1);
+    }
+
+    @Test
+    void add_with_gap() {
+        SettleIndexTracker tracker = new SettleIndexTracker(0, List.of());
+        tracker.add(2);
+        tracker.add(3);
+        assertThat(tracker.getWatermark()).isEqualTo(0);
+    }
+
+    @Test
+    void closing_gap_advances_watermark() {
+        SettleIndexTracker tracker = new SettleIndexTracker(0, List.of());
+        tracker.add(2);
+        tracker.add(3);
+        tracker.add(5);
+        tracker.add(1);
+        assertThat(tracker.getWatermark()).isEqualTo(3);
+    }
+
+    @Test
+    void ignores_settle_index_at_or_below_watermark() {
+        SettleIndexTracker tracker = new SettleIndexTracker(5, List.of());
+        tracker.add(5);
+        tracker.add(3);
+        assertThat(tracker.getWatermark()).isEqualTo(5);
+    }
+
+    @Test
+    void ignores_duplicates() {
+        SettleIndexTracker tracker = new SettleIndexTracker(0, List.of());
+        tracker.add(2);
+        tracker.add(2);
+        assertThat(tracker.getWatermark()).isEqualTo(0);
+    }
+
+    @Test
+    void many_settle_indexes_with_compaction() {
+        SettleIndexTracker tracker = new SettleIndexTracker(0, List.of());
+        for (long settleIndex = 1; settleIndex <= 200_000; settleIndex++) {
+            tracker.add(settleIndex);
+        }
+        tracker.add(200_002);
+        assertThat(tracker.getWatermark()).isEqualTo(200_000);
+        tracker.add(200_001);
+        assertThat(tracker.getWatermark()).isEqualTo(200_002);
+    }
+
+    @Test
+    void many_settle_indexes_in_reverse_order() {
+        SettleIndexTracker tracker = new SettleIndexTracker(0, List.of());
+        for (long settleIndex = 100_000; settleIndex >= 2; settleIndex--) {
+            tracker.add(settleIndex);
+        }
+        assertThat(tracker.getWatermark()).isEqualTo(0);
+        tracker.add(1);
+        assertThat(tracker.getWatermark()).isEqualTo(100_000);
+        tracker.add(100_001);
+        assertThat(tracker.getWatermark()).isEqualTo(100_001);
+    }
+}
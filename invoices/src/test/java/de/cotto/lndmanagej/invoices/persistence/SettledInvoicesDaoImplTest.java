@@ -1,36 +1,52 @@
 package de.cotto.lndmanagej.invoices.persistence;
 
+import com.codahale.metrics.MetricRegistry;
 import de.cotto.lndmanagej.model.SettledInvoice;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatcher;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID;
 import static de.cotto.lndmanagej.model.SettledInvoiceFixtures.SETTLED_INVOICE;
 import static de.cotto.lndmanagej.model.SettledInvoiceFixtures.SETTLED_INVOICE_2;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.longThat;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class SettledInvoicesDaoImplTest {
     private static final Duration MAX_AGE = Duration.ofDays(10 * 365);
 
-    @InjectMocks
+    private static final int BATCH_SIZE = 123;
+
     private SettledInvoicesDaoImpl dao;
 
     @Mock
@@ -39,32 +55,48 @@ class SettledInvoicesDaoImplTest {
     @Mock
     private SettledInvoicesIndexRepository indexRepository;
 
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PreparedStatement preparedStatement;
+
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+
+    @BeforeEach
+    void setUp() {
+        dao = new SettledInvoicesDaoImpl(repository, indexRepository, jdbcTemplate, metricRegistry, BATCH_SIZE);
+    }
+
     @Test
     void getSettleIndexOffset_initially_0() {
         mockKnownIndex(0L);
-        when(repository.getMaxSettledIndexWithoutGaps(0)).thenReturn(0L);
         assertThat(dao.getSettleIndexOffset()).isEqualTo(0);
     }
 
     @Test
     void getSettleIndexOffset_initially_0_when_no_index_is_known() {
-        when(repository.getMaxSettledIndexWithoutGaps(0)).thenReturn(0L);
         assertThat(dao.getSettleIndexOffset()).isEqualTo(0);
     }
 
     @Test
-    void getSettleIndexOffset() {
-        long expectedOffset = 123;
-        when(repository.getMaxSettledIndexWithoutGaps(anyLong())).thenReturn(expectedOffset);
-        assertThat(dao.getSettleIndexOffset()).isEqualTo(expectedOffset);
+    void getSettleIndexOffset_uses_known_offset() {
+        mockKnownIndex(123);
+        assertThat(dao.getSettleIndexOffset()).isEqualTo(123);
     }
 
     @Test
-    void getSettleIndexOffset_uses_known_offset() {
+    void getSettleIndexOffset_considers_persisted_invoices_after_known_offset() {
         mockKnownIndex(100);
-        long expectedOffset = 123;
-        when(repository.getMaxSettledIndexWithoutGaps(100)).thenReturn(expectedOffset);
-        assertThat(dao.getSettleIndexOffset()).isEqualTo(expectedOffset);
+        when(repository.getSettleIndexesAfter(100)).thenReturn(List.of(103L, 101L, 102L, 105L));
+        assertThat(dao.getSettleIndexOffset()).isEqualTo(103);
+    }
+
+    @Test
+    void getSettleIndexOffset_queries_persisted_invoices_only_once() {
+        dao.getSettleIndexOffset();
+        dao.getSettleIndexOffset();
+        verify(repository, times(1)).getSettleIndexesAfter(anyLong());
     }
 
     @Test
@@ -89,30 +121,134 @@ class SettledInvoicesDaoImplTest {
     @Test
     void save_single_updates_index_of_known_settled_invoices() {
         mockKnownIndex(100L);
-        when(repository.getMaxSettledIndexWithoutGaps(100)).thenReturn(123L);
-        dao.save(SETTLED_INVOICE);
-        verify(indexRepository).save(argThat(dto -> dto.getAllSettledIndexOffset() == 123));
+        when(repository.getSettleIndexesAfter(100)).thenReturn(List.of(101L, 103L));
+        dao.save(invoiceWithSettleIndex(102));
+        verify(indexRepository).save(argThat(dto -> dto.getAllSettledIndexOffset() == 103));
+        assertThat(dao.getSettleIndexOffset()).isEqualTo(103);
+    }
+
+    @Test
+    void save_single_rebuilds_index_after_rollback() {
+        mockKnownIndex(100L);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            dao.save(invoiceWithSettleIndex(101));
+            assertThat(dao.getSettleIndexOffset()).isEqualTo(101);
+            completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertThat(dao.getSettleIndexOffset()).isEqualTo(100);
+        verify(repository, times(2)).getSettleIndexesAfter(100);
+    }
+
+    @Test
+    void save_single_keeps_index_after_commit() {
+        mockKnownIndex(100L);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            dao.save(invoiceWithSettleIndex(101));
+            completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertThat(dao.getSettleIndexOffset()).isEqualTo(101);
+        verify(repository, times(1)).getSettleIndexesAfter(anyLong());
+    }
+
+    @Test
+    void save_single_keeps_index_if_there_is_a_gap() {
+        mockKnownIndex(100L);
+        dao.save(invoiceWithSettleIndex(102));
+        verify(indexRepository, never()).save(any());
+        assertThat(dao.getSettleIndexOffset()).isEqualTo(100);
     }
 
     @Test
     void save_empty() {
         dao.save(Set.of());
-        verify(repository).saveAll(List.of());
+        verifyNoInteractions(jdbcTemplate);
     }
 
     @Test
     void save_two() {
-        dao.save(Set.of(SETTLED_INVOICE, SETTLED_INVOICE_2));
-        Set<SettledInvoice> expected = Set.of(SETTLED_INVOICE, SETTLED_INVOICE_2);
-        verify(repository).saveAll(argThat(isSet(expected)));
+        dao.save(List.of(SETTLED_INVOICE, SETTLED_INVOICE_2));
+        verify(jdbcTemplate).batchUpdate(
+                startsWith("INSERT INTO settled_invoices"),
+                argThat(isList(List.of(SETTLED_INVOICE, SETTLED_INVOICE_2))),
+                eq(BATCH_SIZE),
+                any()
+        );
+    }
+
+    @Test
+    void save_sets_values() throws SQLException {
+        dao.save(List.of(SETTLED_INVOICE));
+        ArgumentCaptor<ParameterizedPreparedStatementSetter<SettledInvoiceJpaDto>> captor = setterCaptor();
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO settled_invoices"), anyCollection(), anyInt(),
+                captor.capture());
+        captor.getValue().setValues(preparedStatement, SettledInvoiceJpaDto.createFromModel(SETTLED_INVOICE));
+        verify(preparedStatement).setLong(1, SETTLED_INVOICE.addIndex());
+        verify(preparedStatement).setLong(2, SETTLED_INVOICE.settleIndex());
+        verify(preparedStatement).setLong(3, SETTLED_INVOICE.settleDate().toEpochSecond());
+        verify(preparedStatement).setString(4, SETTLED_INVOICE.hash());
+        verify(preparedStatement).setLong(5, SETTLED_INVOICE.amountPaid().milliSatoshis());
+        verify(preparedStatement).setString(6, SETTLED_INVOICE.memo());
+        verify(preparedStatement).setString(7, null);
+    }
+
+    @Test
+    void save_inserts_received_via() throws SQLException {
+        dao.save(List.of(SETTLED_INVOICE));
+        ArgumentCaptor<Collection<Object>> rowsCaptor = rowsCaptor();
+        ArgumentCaptor<ParameterizedPreparedStatementSetter<Object>> captor = setterCaptor();
+        verify(jdbcTemplate).batchUpdate(
+                startsWith("INSERT INTO settled_invoice_received_via"),
+                rowsCaptor.capture(),
+                eq(BATCH_SIZE),
+                captor.capture()
+        );
+        assertThat(rowsCaptor.getValue()).hasSize(1);
+        captor.getValue().setValues(preparedStatement, rowsCaptor.getValue().iterator().next());
+        verify(preparedStatement).setLong(1, SETTLED_INVOICE.addIndex());
+        verify(preparedStatement).setLong(2, CHANNEL_ID.getShortChannelId());
+        verify(preparedStatement).setLong(3, CHANNEL_ID.getShortChannelId());
+    }
+
+    @Test
+    void save_skips_known_invoices() {
+        when(repository.getMaxAddIndex()).thenReturn(SETTLED_INVOICE_2.addIndex());
+        dao.save(List.of(SETTLED_INVOICE, SETTLED_INVOICE_2));
+        verify(jdbcTemplate).batchUpdate(
+                startsWith("INSERT INTO settled_invoices"),
+                argThat(isList(List.of(SETTLED_INVOICE))),
+                anyInt(),
+                any()
+        );
+    }
+
+    @Test
+    void save_counts_inserted_invoices() {
+        dao.save(List.of(SETTLED_INVOICE, SETTLED_INVOICE_2));
+        String name = MetricRegistry.name(SettledInvoicesDaoImpl.class, "inserted");
+        assertThat(metricRegistry.counter(name).getCount()).isEqualTo(2);
     }
 
     @Test
     void save_two_updates_index_of_known_settled_invoices() {
         mockKnownIndex(100L);
-        when(repository.getMaxSettledIndexWithoutGaps(100)).thenReturn(123L);
-        dao.save(Set.of(SETTLED_INVOICE, SETTLED_INVOICE_2));
-        verify(indexRepository).save(argThat(dto -> dto.getAllSettledIndexOffset() == 123));
+        dao.save(List.of(invoiceWithSettleIndex(102), invoiceWithSettleIndex(101)));
+        verify(indexRepository).save(argThat(dto -> dto.getAllSettledIndexOffset() == 102));
+    }
+
+    @Test
+    void save_updates_index_only_if_changed() {
+        dao.save(invoiceWithSettleIndex(1));
+        dao.save(invoiceWithSettleIndex(3));
+        dao.save(invoiceWithSettleIndex(2));
+        verify(indexRepository).save(argThat(dto -> dto.getAllSettledIndexOffset() == 1));
+        verify(indexRepository).save(argThat(dto -> dto.getAllSettledIndexOffset() == 3));
+        verify(indexRepository, times(2)).save(any());
     }
 
     @Test
@@ -140,16 +276,44 @@ class SettledInvoicesDaoImplTest {
     }
 
     @SuppressWarnings("PMD.LinguisticNaming")
-    private <S extends SettledInvoiceJpaDto> ArgumentMatcher<Iterable<S>> isSet(Set<SettledInvoice> expected) {
-        return iterable -> iterable instanceof List && ((List<S>) iterable).stream()
-                .map(SettledInvoiceJpaDto::toModel)
-                .collect(Collectors.toSet())
-                .equals(expected);
+    private ArgumentMatcher<Collection<SettledInvoiceJpaDto>> isList(List<SettledInvoice> expected) {
+        return collection -> collection.stream().map(SettledInvoiceJpaDto::getAddIndex).toList()
+                .equals(expected.stream().map(SettledInvoice::addIndex).toList());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ArgumentCaptor<ParameterizedPreparedStatementSetter<T>> setterCaptor() {
+        return ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<Collection<Object>> rowsCaptor() {
+        return ArgumentCaptor.forClass(Collection.class);
+    }
+
+    private static SettledInvoice invoiceWithSettleIndex(long settleIndex) {
+        return new SettledInvoice(
+                SETTLED_INVOICE.addIndex(),
+                settleIndex,
+                SETTLED_INVOICE.settleDate(),
+                SETTLED_INVOICE.hash(),
+                SETTLED_INVOICE.amountPaid(),
+                SETTLED_INVOICE.memo(),
+                SETTLED_INVOICE.keysendMessage(),
+                SETTLED_INVOICE.receivedVia()
+        );
+    }
+
+    private void completeTransaction(int status) {
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(status));
     }
 
     private void mockKnownIndex(long index) {
-        SettledInvoicesIndexJpaDto indexJpaDto = new SettledInvoicesIndexJpaDto();
-        indexJpaDto.setAllSettledIndexOffset(index);
-        when(indexRepository.findByEntityId(0)).thenReturn(Optional.of(indexJpaDto));
+        when(indexRepository.findByEntityId(0)).thenAnswer(invocation -> {
+            SettledInvoicesIndexJpaDto indexJpaDto = new SettledInvoicesIndexJpaDto();
+            indexJpaDto.setAllSettledIndexOffset(index);
+            return Optional.of(indexJpaDto);
+        });
     }
 }
@@ -3,6 +3,7 @@ plugins {
 }
 
 dependencies {
+    implementation(project(":caching"))
     testImplementation("org.awaitility:awaitility")
 }
 
@@ -2,26 +2,54 @@ package de.cotto.lndmanagej.model;
 
 import javax.annotation.Nonnull;
 import java.math.BigInteger;
-import java.util.Objects;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * A short channel ID. The 64 bits are stored in a {@code long}, which is interpreted as an unsigned value.
+ */
 public final class ChannelId implements Comparable<ChannelId> {
     private static final int EXPECTED_NUMBER_OF_SEGMENTS = 3;
+    private static final int MAXIMUM_NUMBER_OF_CACHED_INSTANCES = 10_000;
+    private static final Map<Long, ChannelId> CACHED_INSTANCES = new ConcurrentHashMap<>();
 
-    private final BigInteger shortChannelId;
+    private final long shortChannelId;
 
-    private ChannelId(BigInteger shortChannelId) {
+    private ChannelId(long shortChannelId) {
         this.shortChannelId = shortChannelId;
     }
 
     public static ChannelId fromShortChannelId(long shortChannelId) {
-        return fromShortChannelId(BigInteger.valueOf(shortChannelId));
+        if (shortChannelId <= 0) {
+            throw new IllegalArgumentException("Illegal channel ID " + shortChannelId);
+        }
+        return new ChannelId(shortChannelId);
     }
 
     public static ChannelId fromShortChannelId(BigInteger shortChannelId) {
         if (shortChannelId.signum() <= 0 || shortChannelId.bitLength() > 64) {
             throw new IllegalArgumentException("Illegal channel ID " + shortChannelId);
         }
-        return new ChannelId(shortChannelId);
+        return new ChannelId(shortChannelId.longValue());
+    }
+
+    /**
+     * Returns a shared instance for the given short channel ID. This is meant for the (few) channels of our own
+     * node, which are referenced by many forwarding events, payments, and HTLCs.
+     */
+    public static ChannelId ofOwnChannel(long shortChannelId) {
+        ChannelId channelId = CACHED_INSTANCES.get(shortChannelId);
+        if (channelId != null) {
+            return channelId;
+        }
+        channelId = fromShortChannelId(shortChannelId);
+        if (CACHED_INSTANCES.size() < MAXIMUM_NUMBER_OF_CACHED_INSTANCES) {
+            ChannelId existing = CACHED_INSTANCES.putIfAbsent(shortChannelId, channelId);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        return channelId;
     }
 
     @SuppressWarnings("StringSplitter")
@@ -38,19 +66,19 @@ public final class ChannelId implements Comparable<ChannelId> {
     }
 
     public String getCompactForm() {
-        return getCompactFormWithDelimiter("x");
+        return getCompactFormWithDelimiter('x');
     }
 
     public String getCompactFormLnd() {
-        return getCompactFormWithDelimiter(":");
+        return getCompactFormWithDelimiter(':');
     }
 
     public long getShortChannelId() {
-        return shortChannelId.longValue();
+        return shortChannelId;
     }
 
     public int getBlockHeight() {
-        return (int) shortChannelId.shiftRight(40).longValue();
+        return (int) (shortChannelId >>> 40);
     }
 
     @Override
@@ -62,12 +90,12 @@ public final class ChannelId implements Comparable<ChannelId> {
             return false;
         }
         ChannelId channelId = (ChannelId) other;
-        return Objects.equals(shortChannelId, channelId.shortChannelId);
+        return shortChannelId == channelId.shortChannelId;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(shortChannelId);
+        return Long.hashCode(shortChannelId);
     }
 
     @Override
@@ -77,13 +105,12 @@ public final class ChannelId implements Comparable<ChannelId> {
 
     @Override
     public int compareTo(@Nonnull ChannelId other) {
-        return shortChannelId.compareTo(other.shortChannelId);
+        return Long.compareUnsigned(shortChannelId, other.shortChannelId);
     }
 
-    private String getCompactFormWithDelimiter(String delimiter) {
-        long block = getBlockHeight();
-        BigInteger transaction = shortChannelId.shiftRight(16).and(BigInteger.valueOf(16_777_215));
-        BigInteger output = shortChannelId.and(BigInteger.valueOf(65_535));
-        return block + delimiter + transaction + delimiter + output;
+    private String getCompactFormWithDelimiter(char delimiter) {
+        long transaction = (shortChannelId >>> 16) & 16_777_215;
+        long output = shortChannelId & 65_535;
+        return String.valueOf(getBlockHeight()) + delimiter + transaction + delimiter + output;
     }
 }
@@ -0,0 +1,58 @@
+package de.cotto.lndmanagej.model;
+
+import java.util.Arrays;
+
+/**
+ * The absolute flow (sent and received) for each of the last days, where day 0 covers the last 24 hours, day 1 the
+ * 24 hours before that, and so on.
+ */
+public final class DailyFlowHistogram {
+    private final long[] milliSatoshisPerDay;
+
+    public DailyFlowHistogram(long... milliSatoshisPerDay) {
+        this.milliSatoshisPerDay = milliSatoshisPerDay.clone();
+    }
+
+    public int days() {
+        return milliSatoshisPerDay.length;
+    }
+
+    public Coins getFlow(int day) {
+        return Coins.ofMilliSatoshis(milliSatoshisPerDay[day]);
+    }
+
+    /**
+     * Returns the number of (most recent) days without any flow. If there is no flow at all, this is the number of
+     * days covered by the histogram.
+     */
+    public int getDaysWithoutFlow() {
+        for (int day = 0; day < milliSatoshisPerDay.length; day++) {
+            if (milliSatoshisPerDay[day] > 0) {
+                return day;
+            }
+        }
+        return milliSatoshisPerDay.length;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (other == null || getClass() != other.getClass()) {
+            return false;
+        }
+        DailyFlowHistogram that = (DailyFlowHistogram) other;
+        return Arrays.equals(milliSatoshisPerDay, that.milliSatoshisPerDay);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(milliSatoshisPerDay);
+    }
+
+    @Override
+    public String toString() {
+        return "DailyFlowHistogram{milliSatoshisPerDay=" + Arrays.toString(milliSatoshisPerDay) + "}";
+    }
+}
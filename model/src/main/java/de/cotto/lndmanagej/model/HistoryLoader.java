@@ -0,0 +1,9 @@
+package de.cotto.lndmanagej.model;
+
+public interface HistoryLoader {
+    /**
+     * Returns true once all historic data available in lnd has been imported, i.e. data for past events does not
+     * change anymore.
+     */
+    boolean isCaughtUp();
+}
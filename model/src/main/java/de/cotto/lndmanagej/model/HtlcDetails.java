@@ -40,13 +40,13 @@ public record HtlcDetails(
 
         @CanIgnoreReturnValue
         public Builder withIncomingChannelId(long incomingChannelId) {
-            this.incomingChannelId = ChannelId.fromShortChannelId(incomingChannelId);
+            this.incomingChannelId = ChannelId.ofOwnChannel(incomingChannelId);
             return this;
         }
 
         @CanIgnoreReturnValue
         public Builder withOutgoingChannelId(long outgoingChannelId) {
-            this.outgoingChannelId = ChannelId.fromShortChannelId(outgoingChannelId);
+            this.outgoingChannelId = ChannelId.ofOwnChannel(outgoingChannelId);
             return this;
         }
 
@@ -64,14 +64,28 @@ public class LiquidityBounds {
     }
 
     public Coins getLowerBound() {
-        return Coins.NONE.maximum(lowerBound.subtract(inFlight));
+        return Coins.ofMilliSatoshis(getLowerBoundMilliSat());
+    }
+
+    public long getLowerBoundMilliSat() {
+        return Math.max(0, lowerBound.milliSatoshis() - inFlight.milliSatoshis());
     }
 
     public Optional<Coins> getUpperBound() {
         if (upperBound == null) {
             return Optional.empty();
         }
-        return Optional.of(upperBound.subtract(inFlight).maximum(Coins.NONE));
+        return Optional.of(Coins.ofMilliSatoshis(getUpperBoundMilliSat()));
+    }
+
+    /**
+     * Returns the upper bound in milli-satoshis, or {@link Long#MAX_VALUE} if no upper bound is known.
+     */
+    public long getUpperBoundMilliSat() {
+        if (upperBound == null) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, upperBound.milliSatoshis() - inFlight.milliSatoshis());
     }
 
     private Optional<LiquidityBounds> create(
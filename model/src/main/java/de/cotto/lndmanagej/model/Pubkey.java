@@ -1,19 +1,37 @@
 package de.cotto.lndmanagej.model;
 
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import de.cotto.lndmanagej.caching.CacheBuilder;
+
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.HexFormat;
 import java.util.Locale;
 
+/**
+ * A node's public key. Instances created via {@link #create(String)} and {@link #create(byte[])} are interned, so
+ * that the same node does not need to be parsed and stored over and over again. Rarely used instances are evicted
+ * once the maximum number of interned instances is reached.
+ */
 public final class Pubkey implements Comparable<Pubkey> {
     private static final int EXPECTED_NUMBER_OF_BYTES = 33;
+    private static final int MAXIMUM_NUMBER_OF_INTERNED_INSTANCES = 100_000;
+    private static final LoadingCache<ByteBuffer, Pubkey> INTERNED_BY_BYTES = new CacheBuilder()
+            .withExpiry(null)
+            .withMaximumSize(MAXIMUM_NUMBER_OF_INTERNED_INSTANCES)
+            .build(Pubkey::fromOwnedBytes);
+    private static final LoadingCache<String, Pubkey> INTERNED_BY_STRING = new CacheBuilder()
+            .withExpiry(null)
+            .withMaximumSize(MAXIMUM_NUMBER_OF_INTERNED_INSTANCES)
+            .build(Pubkey::fromLowercaseString);
 
     private final String string;
     private final byte[] byteArray;
     private final int hash;
 
-    private Pubkey(String string) {
+    private Pubkey(String string, byte[] byteArray) {
         this.string = string;
-        byteArray = HexFormat.of().parseHex(string);
+        this.byteArray = byteArray;
         hash = Arrays.hashCode(byteArray);
         if (byteArray.length != EXPECTED_NUMBER_OF_BYTES) {
             throw new IllegalArgumentException();
@@ -21,7 +39,27 @@ public final class Pubkey implements Comparable<Pubkey> {
     }
 
     public static Pubkey create(String string) {
-        return new Pubkey(string.toLowerCase(Locale.US));
+        return INTERNED_BY_STRING.get(string.toLowerCase(Locale.US));
+    }
+
+    /**
+     * Creates the pubkey from its 33 bytes (e.g. as sent via gRPC), without the detour via a hex string.
+     */
+    public static Pubkey create(byte[] bytes) {
+        Pubkey pubkey = INTERNED_BY_BYTES.getIfPresent(ByteBuffer.wrap(bytes));
+        if (pubkey != null) {
+            return pubkey;
+        }
+        return INTERNED_BY_BYTES.get(ByteBuffer.wrap(bytes.clone()));
+    }
+
+    private static Pubkey fromLowercaseString(String lowercase) {
+        return INTERNED_BY_BYTES.get(ByteBuffer.wrap(HexFormat.of().parseHex(lowercase)));
+    }
+
+    private static Pubkey fromOwnedBytes(ByteBuffer bytes) {
+        byte[] byteArray = bytes.array();
+        return new Pubkey(HexFormat.of().formatHex(byteArray), byteArray);
     }
 
     @Override
@@ -141,6 +141,35 @@ class ChannelIdTest {
         }
     }
 
+    @Nested
+    @SuppressWarnings("ClassCanBeStatic")
+    class OfOwnChannel {
+        @Test
+        void zero() {
+            assertThatIllegalArgumentException().isThrownBy(
+                    () -> ChannelId.ofOwnChannel(0)
+            ).withMessageStartingWith(ILLEGAL_CHANNEL_ID);
+        }
+
+        @Test
+        void equal_to_channel_id_created_from_short_channel_id() {
+            assertThat(ChannelId.ofOwnChannel(CHANNEL_ID.getShortChannelId())).isEqualTo(CHANNEL_ID);
+        }
+
+        @Test
+        void returns_cached_instance() {
+            long shortChannelId = 774_909_407_114_231_809L;
+            assertThat(ChannelId.ofOwnChannel(shortChannelId)).isSameAs(ChannelId.ofOwnChannel(shortChannelId));
+        }
+    }
+
+    @Test
+    void testComparable_more_than_63_bit_is_larger() {
+        ChannelId channelId1 = ChannelId.fromShortChannelId(new BigInteger("18401111111111112558"));
+        ChannelId channelId2 = ChannelId.fromShortChannelId(774_909_407_114_231_931L);
+        assertThat(channelId1.compareTo(channelId2)).isGreaterThan(0);
+    }
+
     @Test
     void testComparable_smaller() {
         ChannelId channelId1 = ChannelId.fromShortChannelId(774_909_407_114_231_931L);
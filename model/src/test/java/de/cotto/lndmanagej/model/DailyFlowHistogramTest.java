@@ -0,0 +1,56 @@
+package de.cotto.lndmanagej.model;
+
+import nl.jqno.equalsverifier.EqualsVerifier;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DailyFlowHistogramTest {
+    @Test
+    void days() {
+        assertThat(new DailyFlowHistogram(0, 0, 1).days()).isEqualTo(3);
+    }
+
+    @Test
+    void getFlow() {
+        assertThat(new DailyFlowHistogram(0, 123).getFlow(1)).isEqualTo(Coins.ofMilliSatoshis(123));
+    }
+
+    @Test
+    void getDaysWithoutFlow_flow_today() {
+        assertThat(new DailyFlowHistogram(1, 0, 2).getDaysWithoutFlow()).isEqualTo(0);
+    }
+
+    @Test
+    void getDaysWithoutFlow() {
+        assertThat(new DailyFlowHistogram(0, 0, 2, 0, 3).getDaysWithoutFlow()).isEqualTo(2);
+    }
+
+    @Test
+    void getDaysWithoutFlow_no_flow() {
+        assertThat(new DailyFlowHistogram(0, 0, 0).getDaysWithoutFlow()).isEqualTo(3);
+    }
+
+    @Test
+    void getDaysWithoutFlow_empty() {
+        assertThat(new DailyFlowHistogram().getDaysWithoutFlow()).isEqualTo(0);
+    }
+
+    @Test
+    void copies_values() {
+        long[] milliSatoshisPerDay = {1, 2};
+        DailyFlowHistogram histogram = new DailyFlowHistogram(milliSatoshisPerDay);
+        milliSatoshisPerDay[0] = 5;
+        assertThat(histogram.getFlow(0)).isEqualTo(Coins.ofMilliSatoshis(1));
+    }
+
+    @Test
+    void testToString() {
+        assertThat(new DailyFlowHistogram(1, 2)).hasToString("DailyFlowHistogram{milliSatoshisPerDay=[1, 2]}");
+    }
+
+    @Test
+    void testEquals() {
+        EqualsVerifier.forClass(DailyFlowHistogram.class).usingGetClass().verify();
+    }
+}
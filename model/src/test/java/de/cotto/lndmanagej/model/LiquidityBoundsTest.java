@@ -56,6 +56,24 @@ class LiquidityBoundsTest {
         void upper_bound() {
             assertThat(NO_INFORMATION.getUpperBound()).isEmpty();
         }
+
+        @Test
+        void lower_bound_milli_sat() {
+            assertThat(NO_INFORMATION.getLowerBoundMilliSat()).isZero();
+        }
+
+        @Test
+        void upper_bound_milli_sat() {
+            assertThat(NO_INFORMATION.getUpperBoundMilliSat()).isEqualTo(Long.MAX_VALUE);
+        }
+    }
+
+    @Test
+    void bounds_milli_sat_consider_in_flight_amount() {
+        LiquidityBounds liquidityBounds =
+                new LiquidityBounds(Coins.ofSatoshis(10), Coins.ofSatoshis(100), Coins.ofSatoshis(20));
+        assertThat(liquidityBounds.getLowerBoundMilliSat()).isZero();
+        assertThat(liquidityBounds.getUpperBoundMilliSat()).isEqualTo(80_000);
     }
 
     @Nested
@@ -2,6 +2,8 @@ package de.cotto.lndmanagej.model;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.HexFormat;
+
 import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
@@ -118,4 +120,54 @@ class PubkeyTest {
         assertThat(Pubkey.create("127abc123abc123abc123abc123123abc123abc123abc123abc123abc123abc121").hashCode())
                 .isNotEqualTo(PUBKEY.hashCode());
     }
+
+    @Test
+    void create_from_bytes() {
+        byte[] bytes = HexFormat.of().parseHex(VALID_PUBKEY_STRING);
+        assertThat(Pubkey.create(bytes)).isEqualTo(PUBKEY).hasToString(VALID_PUBKEY_STRING);
+    }
+
+    @Test
+    void create_from_bytes_wrong_length() {
+        assertThatIllegalArgumentException().isThrownBy(
+                () -> Pubkey.create(new byte[]{1, 2, 3})
+        );
+    }
+
+    @Test
+    void create_from_bytes_is_not_affected_by_changes_to_array() {
+        byte[] bytes = HexFormat.of().parseHex("037abc123abc123abc123abc123123abc123abc123abc123abc123abc123abc121");
+        Pubkey pubkey = Pubkey.create(bytes);
+        bytes[0] = 2;
+        assertThat(pubkey).hasToString("037abc123abc123abc123abc123123abc123abc123abc123abc123abc123abc121");
+    }
+
+    @Test
+    void create_returns_interned_instance() {
+        assertThat(Pubkey.create(VALID_PUBKEY_STRING)).isSameAs(PUBKEY);
+    }
+
+    @Test
+    void create_from_uppercase_returns_interned_instance() {
+        assertThat(Pubkey.create("027ABC123ABC123ABC123ABC123123ABC123ABC123ABC123ABC123ABC123ABC121"))
+                .isSameAs(PUBKEY);
+    }
+
+    @Test
+    void create_from_mixed_case_returns_interned_instance() {
+        assertThat(Pubkey.create("027aBc123AbC123abc123ABC123123abc123abc123abc123abc123abc123abc121"))
+                .isSameAs(PUBKEY);
+    }
+
+    @Test
+    void create_from_string_returns_instance_interned_from_bytes() {
+        String string = "037abc123abc123abc123abc123123abc123abc123abc123abc123abc123abc999";
+        Pubkey fromBytes = Pubkey.create(HexFormat.of().parseHex(string));
+        assertThat(Pubkey.create(string)).isSameAs(fromBytes);
+    }
+
+    @Test
+    void create_from_bytes_returns_interned_instance() {
+        assertThat(Pubkey.create(HexFormat.of().parseHex(VALID_PUBKEY_STRING))).isSameAs(PUBKEY);
+    }
 }
@@ -4,6 +4,7 @@ plugins {
 
 dependencies {
     implementation(project(":model"))
+    implementation(project(":timeseries"))
     implementation("org.springframework.boot:spring-boot-starter-data-jpa")
     testFixturesApi(testFixtures(project(":model")))
     integrationTestRuntimeOnly("com.h2database:h2")
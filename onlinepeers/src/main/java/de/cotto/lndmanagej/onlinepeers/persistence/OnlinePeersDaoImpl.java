@@ -17,24 +17,36 @@ import java.util.Optional;
 @Transactional
 class OnlinePeersDaoImpl implements OnlinePeersDao {
     private final OnlinePeersRepository repository;
+    private final OnlinePeersTimeSeries onlinePeersTimeSeries;
 
-    public OnlinePeersDaoImpl(OnlinePeersRepository repository) {
+    public OnlinePeersDaoImpl(OnlinePeersRepository repository, OnlinePeersTimeSeries onlinePeersTimeSeries) {
         this.repository = repository;
+        this.onlinePeersTimeSeries = onlinePeersTimeSeries;
     }
 
     @Override
     public void saveOnlineStatus(Pubkey pubkey, boolean online, ZonedDateTime timestamp) {
+        if (onlinePeersTimeSeries.isEnabled()) {
+            onlinePeersTimeSeries.save(pubkey, online, timestamp);
+            return;
+        }
         repository.save(new OnlinePeerJpaDto(pubkey, online, timestamp));
     }
 
     @Override
     public Optional<OnlineStatus> getMostRecentOnlineStatus(Pubkey pubkey) {
+        if (onlinePeersTimeSeries.isEnabled()) {
+            return onlinePeersTimeSeries.getMostRecentOnlineStatus(pubkey);
+        }
         return repository.findTopByPubkeyOrderByTimestampDesc(pubkey.toString()).map(OnlinePeerJpaDto::toModel);
     }
 
     @Override
     public List<OnlineStatus> getAllForPeerUpToAgeInDays(Pubkey pubkey, int maximumAgeInDays) {
         ZonedDateTime threshold = ZonedDateTime.now(ZoneOffset.UTC).minusDays(maximumAgeInDays);
+        if (onlinePeersTimeSeries.isEnabled()) {
+            return onlinePeersTimeSeries.getAllSince(pubkey, threshold);
+        }
         List<OnlineStatus> result = new ArrayList<>();
         Iterator<OnlineStatus> iterator = repository.findByPubkeyOrderByTimestampDesc(pubkey.toString())
                 .map(OnlinePeerJpaDto::toModel)
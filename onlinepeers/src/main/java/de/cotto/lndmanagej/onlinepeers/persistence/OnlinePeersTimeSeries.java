@@ -0,0 +1,75 @@
+package de.cotto.lndmanagej.onlinepeers.persistence;
+
+import de.cotto.lndmanagej.model.OnlineStatus;
+import de.cotto.lndmanagej.model.Pubkey;
+import de.cotto.lndmanagej.timeseries.TimeSeriesEntry;
+import de.cotto.lndmanagej.timeseries.TimeSeriesStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Nullable;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Optionally stores the online status of peers in an append-only time series file per peer instead of the database.
+ * This is enabled by configuring a directory using {@code lndmanagej.timeseries-directory}.
+ */
+@Component
+class OnlinePeersTimeSeries {
+    private static final long ONLINE = 1;
+    private static final long OFFLINE = 0;
+
+    @Nullable
+    private final TimeSeriesStore store;
+
+    public OnlinePeersTimeSeries(@Value("${lndmanagej.timeseries-directory:}") String directory) {
+        store = directory.isBlank() ? null : new TimeSeriesStore(Path.of(directory, "online-peers"), 1);
+    }
+
+    public boolean isEnabled() {
+        return store != null;
+    }
+
+    public void save(Pubkey pubkey, boolean online, ZonedDateTime timestamp) {
+        getStore().append(pubkey.toString(), timestamp.toEpochSecond(), online ? ONLINE : OFFLINE);
+    }
+
+    public Optional<OnlineStatus> getMostRecentOnlineStatus(Pubkey pubkey) {
+        return getStore().getLast(pubkey.toString()).map(OnlinePeersTimeSeries::toModel);
+    }
+
+    /**
+     * Returns all online status changes since the given timestamp, and the most recent change before (if any),
+     * starting with the most recent one.
+     */
+    public List<OnlineStatus> getAllSince(Pubkey pubkey, ZonedDateTime threshold) {
+        String key = pubkey.toString();
+        long thresholdEpochSecond = threshold.toEpochSecond();
+        List<OnlineStatus> result = new ArrayList<>();
+        getStore().getLastBefore(key, thresholdEpochSecond).map(OnlinePeersTimeSeries::toModel).ifPresent(result::add);
+        getStore().getEntries(key, thresholdEpochSecond, Long.MAX_VALUE).stream()
+                .map(OnlinePeersTimeSeries::toModel)
+                .forEach(result::add);
+        Collections.reverse(result);
+        return result;
+    }
+
+    private TimeSeriesStore getStore() {
+        if (store == null) {
+            throw new IllegalStateException("time series storage is not enabled");
+        }
+        return store;
+    }
+
+    private static OnlineStatus toModel(TimeSeriesEntry entry) {
+        ZonedDateTime since = Instant.ofEpochSecond(entry.getEpochSecond()).atZone(ZoneOffset.UTC);
+        return new OnlineStatus(entry.getValue(0) == ONLINE, since);
+    }
+}
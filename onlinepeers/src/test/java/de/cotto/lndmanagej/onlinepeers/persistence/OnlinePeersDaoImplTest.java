@@ -2,15 +2,19 @@ package de.cotto.lndmanagej.onlinepeers.persistence;
 
 import de.cotto.lndmanagej.model.OnlineStatus;
 import de.cotto.lndmanagej.model.Pubkey;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Stream;
@@ -19,7 +23,9 @@ import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY;
 import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_2;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,6 +39,9 @@ class OnlinePeersDaoImplTest {
     @Mock
     private OnlinePeersRepository repository;
 
+    @Mock
+    private OnlinePeersTimeSeries onlinePeersTimeSeries;
+
     @Test
     void saveOnlineStatus_online() {
         dao.saveOnlineStatus(PUBKEY, true, NOW);
@@ -86,6 +95,40 @@ class OnlinePeersDaoImplTest {
         assertThat(dao.getAllForPeerUpToAgeInDays(PUBKEY, DAY_THRESHOLD)).hasSize(2);
     }
 
+    @Nested
+    class WithTimeSeries {
+        private static final OnlineStatus ONLINE_STATUS = new OnlineStatus(true, NOW);
+
+        @BeforeEach
+        void setUp() {
+            when(onlinePeersTimeSeries.isEnabled()).thenReturn(true);
+        }
+
+        @Test
+        void saveOnlineStatus() {
+            dao.saveOnlineStatus(PUBKEY, true, NOW);
+            verify(onlinePeersTimeSeries).save(PUBKEY, true, NOW);
+            verifyNoInteractions(repository);
+        }
+
+        @Test
+        void getMostRecentOnlineStatus() {
+            when(onlinePeersTimeSeries.getMostRecentOnlineStatus(PUBKEY)).thenReturn(Optional.of(ONLINE_STATUS));
+            assertThat(dao.getMostRecentOnlineStatus(PUBKEY)).contains(ONLINE_STATUS);
+        }
+
+        @Test
+        void getAllForPeerUpToAgeInDays() {
+            ZonedDateTime expectedThreshold = ZonedDateTime.now(ZoneOffset.UTC).minusDays(DAY_THRESHOLD);
+            when(onlinePeersTimeSeries.getAllSince(
+                    eq(PUBKEY),
+                    argThat(threshold -> Math.abs(Duration.between(threshold, expectedThreshold).toSeconds()) < 60)
+            )).thenReturn(List.of(ONLINE_STATUS));
+            assertThat(dao.getAllForPeerUpToAgeInDays(PUBKEY, DAY_THRESHOLD)).containsExactly(ONLINE_STATUS);
+            verifyNoInteractions(repository);
+        }
+    }
+
     private void verifySave(Pubkey pubkey, boolean expected) {
         verify(repository).save(argThat(privateChannelJpaDto -> privateChannelJpaDto.isOnline() == expected));
         verify(repository).save(argThat(dto -> pubkey.equals(Pubkey.create(Objects.requireNonNull(dto.getPubkey())))));
@@ -0,0 +1,83 @@
+package de.cotto.lndmanagej.onlinepeers.persistence;
+
+import de.cotto.lndmanagej.model.OnlineStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY;
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_2;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class OnlinePeersTimeSeriesTest {
+    private static final ZonedDateTime NOW = ZonedDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.SECONDS);
+
+    @TempDir
+    private Path directory;
+
+    private OnlinePeersTimeSeries timeSeries;
+
+    @BeforeEach
+    void setUp() {
+        timeSeries = new OnlinePeersTimeSeries(directory.toString());
+    }
+
+    @Test
+    void disabled_without_directory() {
+        OnlinePeersTimeSeries disabled = new OnlinePeersTimeSeries(" ");
+        assertThat(disabled.isEnabled()).isFalse();
+        assertThatIllegalStateException().isThrownBy(() -> disabled.getMostRecentOnlineStatus(PUBKEY));
+    }
+
+    @Test
+    void enabled_with_directory() {
+        assertThat(timeSeries.isEnabled()).isTrue();
+    }
+
+    @Test
+    void getMostRecentOnlineStatus_empty() {
+        assertThat(timeSeries.getMostRecentOnlineStatus(PUBKEY)).isEmpty();
+    }
+
+    @Test
+    void getMostRecentOnlineStatus() {
+        timeSeries.save(PUBKEY, false, NOW.minusHours(1));
+        timeSeries.save(PUBKEY, true, NOW);
+        assertThat(timeSeries.getMostRecentOnlineStatus(PUBKEY)).contains(new OnlineStatus(true, NOW));
+        assertThat(timeSeries.getMostRecentOnlineStatus(PUBKEY_2)).isEmpty();
+    }
+
+    @Test
+    void getAllSince() {
+        timeSeries.save(PUBKEY, true, NOW.minusDays(30));
+        timeSeries.save(PUBKEY, false, NOW.minusDays(20));
+        timeSeries.save(PUBKEY, true, NOW.minusDays(5));
+        timeSeries.save(PUBKEY, false, NOW.minusDays(1));
+        assertThat(timeSeries.getAllSince(PUBKEY, NOW.minusDays(10))).containsExactly(
+                new OnlineStatus(false, NOW.minusDays(1)),
+                new OnlineStatus(true, NOW.minusDays(5)),
+                new OnlineStatus(false, NOW.minusDays(20))
+        );
+    }
+
+    @Test
+    void getAllSince_includes_entry_at_threshold() {
+        timeSeries.save(PUBKEY, true, NOW.minusDays(30));
+        timeSeries.save(PUBKEY, false, NOW.minusDays(10));
+        assertThat(timeSeries.getAllSince(PUBKEY, NOW.minusDays(10))).containsExactly(
+                new OnlineStatus(false, NOW.minusDays(10)),
+                new OnlineStatus(true, NOW.minusDays(30))
+        );
+    }
+
+    @Test
+    void getAllSince_empty() {
+        assertThat(timeSeries.getAllSince(PUBKEY, NOW)).isEmpty();
+    }
+}
@@ -6,6 +6,8 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 
+import java.util.List;
+
 import static de.cotto.lndmanagej.model.PaymentFixtures.PAYMENT;
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -30,6 +32,13 @@ class PaymentsRepositoryIT {
         assertThat(repository.getMaxIndex()).isEqualTo(3L);
     }
 
+    @Test
+    void getKnownPaymentIndexes() {
+        repository.save(payment(1));
+        repository.save(payment(3));
+        assertThat(repository.getKnownPaymentIndexes(List.of(1L, 2L, 3L))).containsExactlyInAnyOrder(1L, 3L);
+    }
+
     @Test
     void no_stale_route_data_when_adding_already_existing_payment() {
         PaymentJpaDto payment = payment(1);
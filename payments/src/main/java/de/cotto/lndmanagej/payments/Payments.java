@@ -1,6 +1,8 @@
 package de.cotto.lndmanagej.payments;
 
 import de.cotto.lndmanagej.grpc.GrpcPayments;
+import de.cotto.lndmanagej.grpc.PipelinedPages;
+import de.cotto.lndmanagej.model.HistoryLoader;
 import de.cotto.lndmanagej.model.Payment;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
@@ -11,14 +13,18 @@ import java.util.OptionalLong;
 import java.util.concurrent.TimeUnit;
 
 @Component
-public class Payments {
+public class Payments implements HistoryLoader {
     private final GrpcPayments grpcPayments;
     private final PaymentsDao dao;
+    private final List<SettledPaymentsListener> listeners;
     private static final Object SAVE_PAYMENTS_LOCK = new Object();
+    private volatile boolean newPaymentsLoaded;
+    private volatile boolean caughtUp;
 
-    public Payments(GrpcPayments grpcPayments, PaymentsDao dao) {
+    public Payments(GrpcPayments grpcPayments, PaymentsDao dao, List<SettledPaymentsListener> listeners) {
         this.grpcPayments = grpcPayments;
         this.dao = dao;
+        this.listeners = listeners;
     }
 
     @Scheduled(fixedDelay = 10, timeUnit = TimeUnit.SECONDS)
@@ -27,29 +33,64 @@ public class Payments {
         do {
             synchronized (SAVE_PAYMENTS_LOCK) {
                 payments = grpcPayments.getCompletePaymentsAfter(dao.getIndexOffset()).orElse(List.of());
-                dao.save(payments);
+                save(payments);
             }
         } while (payments.size() == grpcPayments.getLimit());
+        newPaymentsLoaded = true;
     }
 
+    /**
+     * Loads all settled payments that are older than the most recent known payment. The next page of payments is
+     * fetched while the previous page is persisted, the offsets are tracked in memory.
+     */
     @Scheduled(fixedDelay = 10, timeUnit = TimeUnit.SECONDS)
     public void loadOldSettledPayments() {
-        List<Optional<Payment>> paymentOptionals;
-        OptionalLong maxIndex;
-        do {
-            synchronized (SAVE_PAYMENTS_LOCK) {
-                long offsetSettledPayments = dao.getAllSettledIndexOffset();
-                long offsetKnownPayments = dao.getIndexOffset();
-                if (offsetKnownPayments == offsetSettledPayments) {
-                    return;
+        boolean newPaymentsLoadedBefore = newPaymentsLoaded;
+        long offsetSettledPayments = dao.getAllSettledIndexOffset();
+        long offsetKnownPayments = dao.getIndexOffset();
+        if (offsetKnownPayments == offsetSettledPayments) {
+            caughtUp = newPaymentsLoadedBefore;
+            return;
+        }
+        int limit = grpcPayments.getLimit();
+        PipelinedPages.process(
+                offsetSettledPayments,
+                offset -> grpcPayments.getCompleteAndPendingPaymentsAfter(offset).orElse(List.of()),
+                paymentOptionals -> getNextOffset(paymentOptionals, limit, offsetKnownPayments),
+                paymentOptionals -> {
+                    synchronized (SAVE_PAYMENTS_LOCK) {
+                        save(paymentOptionals.stream().flatMap(Optional::stream).toList());
+                        getMaxIndexAllSettled(paymentOptionals).ifPresent(dao::setAllSettledIndexOffset);
+                    }
                 }
-                paymentOptionals =
-                        grpcPayments.getCompleteAndPendingPaymentsAfter(offsetSettledPayments).orElse(List.of());
-                maxIndex = getMaxIndexAllSettled(paymentOptionals);
-                dao.save(paymentOptionals.stream().flatMap(Optional::stream).toList());
-                maxIndex.ifPresent(dao::setAllSettledIndexOffset);
-            }
-        } while (paymentOptionals.size() == grpcPayments.getLimit() && maxIndex.isPresent());
+        );
+    }
+
+    @Override
+    public boolean isCaughtUp() {
+        return caughtUp;
+    }
+
+    private void save(List<Payment> payments) {
+        dao.save(payments);
+        if (!payments.isEmpty()) {
+            listeners.forEach(listener -> listener.addedSettledPayments(payments));
+        }
+    }
+
+    private static OptionalLong getNextOffset(
+            List<Optional<Payment>> paymentOptionals,
+            int limit,
+            long offsetKnownPayments
+    ) {
+        if (paymentOptionals.size() != limit) {
+            return OptionalLong.empty();
+        }
+        OptionalLong maxIndex = getMaxIndexAllSettled(paymentOptionals);
+        if (maxIndex.isEmpty() || maxIndex.getAsLong() >= offsetKnownPayments) {
+            return OptionalLong.empty();
+        }
+        return maxIndex;
     }
 
     private static OptionalLong getMaxIndexAllSettled(List<Optional<Payment>> paymentOptionals) {
@@ -0,0 +1,12 @@
+package de.cotto.lndmanagej.payments;
+
+import de.cotto.lndmanagej.model.Payment;
+
+import java.util.Collection;
+
+public interface SettledPaymentsListener {
+    /**
+     * Invoked after the given settled payments were persisted.
+     */
+    void addedSettledPayments(Collection<Payment> payments);
+}
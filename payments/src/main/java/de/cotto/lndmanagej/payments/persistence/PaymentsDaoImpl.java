@@ -1,12 +1,18 @@
 package de.cotto.lndmanagej.payments.persistence;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
 import de.cotto.lndmanagej.model.Payment;
 import de.cotto.lndmanagej.payments.PaymentsDao;
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Component
 @Transactional
@@ -15,18 +21,54 @@ public class PaymentsDaoImpl implements PaymentsDao {
 
     private final PaymentsRepository repository;
     private final SettledPaymentIndexRepository settledPaymentIndexRepository;
+    private final EntityManager entityManager;
+    private final int batchSize;
+    private final Counter insertedPayments;
 
-    public PaymentsDaoImpl(PaymentsRepository repository, SettledPaymentIndexRepository settledPaymentIndexRepository) {
+    public PaymentsDaoImpl(
+            PaymentsRepository repository,
+            SettledPaymentIndexRepository settledPaymentIndexRepository,
+            EntityManager entityManager,
+            MetricRegistry metricRegistry,
+            @Value("${lndmanagej.bulk-insert-batch-size:1000}") int batchSize
+    ) {
         this.repository = repository;
         this.settledPaymentIndexRepository = settledPaymentIndexRepository;
+        this.entityManager = entityManager;
+        this.batchSize = batchSize;
+        insertedPayments = metricRegistry.counter(MetricRegistry.name(getClass(), "inserted"));
     }
 
+    /**
+     * Persists new payments and merges payments that are already known (settled payments may be saved again with
+     * updated routes). Instead of selecting each payment individually, the known payments are determined using a
+     * single query. The persistence context is flushed and cleared after each batch, so that Hibernate sends the
+     * inserts using JDBC batches (see {@code hibernate.jdbc.batch_size}).
+     */
     @Override
     public void save(Collection<Payment> payments) {
-        List<PaymentJpaDto> converted = payments.stream()
-                .map(PaymentJpaDto::createFromModel)
-                .toList();
-        repository.saveAll(converted);
+        if (payments.isEmpty()) {
+            return;
+        }
+        List<Long> paymentIndexes = payments.stream().map(Payment::index).toList();
+        Set<Long> knownPaymentIndexes = new HashSet<>(repository.getKnownPaymentIndexes(paymentIndexes));
+        int count = 0;
+        for (Payment payment : payments) {
+            PaymentJpaDto jpaDto = PaymentJpaDto.createFromModel(payment);
+            if (knownPaymentIndexes.contains(payment.index())) {
+                entityManager.merge(jpaDto);
+            } else {
+                entityManager.persist(jpaDto);
+            }
+            count++;
+            if (count % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        insertedPayments.inc(payments.size() - knownPaymentIndexes.size());
     }
 
     @Override
@@ -3,7 +3,13 @@ package de.cotto.lndmanagej.payments.persistence;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface PaymentsRepository extends JpaRepository<PaymentJpaDto, Long> {
     @Query("SELECT coalesce(max(paymentIndex), 0) FROM PaymentJpaDto")
     long getMaxIndex();
+
+    @Query("SELECT p.paymentIndex FROM PaymentJpaDto p WHERE p.paymentIndex IN ?1")
+    List<Long> getKnownPaymentIndexes(Collection<Long> paymentIndexes);
 }
@@ -6,7 +6,6 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InOrder;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -16,6 +15,7 @@ import java.util.Optional;
 import static de.cotto.lndmanagej.model.PaymentFixtures.PAYMENT;
 import static de.cotto.lndmanagej.model.PaymentFixtures.PAYMENT_2;
 import static de.cotto.lndmanagej.model.PaymentFixtures.PAYMENT_3;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.inOrder;
@@ -30,7 +30,6 @@ class PaymentsTest {
     private static final long INDEX_OFFSET = 1_234;
     private static final long ALL_SETTLED_INDEX_OFFSET = 500;
 
-    @InjectMocks
     private Payments payments;
 
     @Mock
@@ -39,8 +38,12 @@ class PaymentsTest {
     @Mock
     private PaymentsDao dao;
 
+    @Mock
+    private SettledPaymentsListener listener;
+
     @BeforeEach
     void setUp() {
+        payments = new Payments(grpcPayments, dao, List.of(listener));
         lenient().when(dao.getIndexOffset()).thenReturn(INDEX_OFFSET);
         lenient().when(dao.getAllSettledIndexOffset()).thenReturn(ALL_SETTLED_INDEX_OFFSET);
         lenient().when(grpcPayments.getLimit()).thenReturn(1);
@@ -63,6 +66,23 @@ class PaymentsTest {
             verify(dao).save(List.of(PAYMENT, PAYMENT_2));
         }
 
+        @Test
+        void notifies_listener_after_saving() {
+            when(grpcPayments.getCompletePaymentsAfter(INDEX_OFFSET)).thenReturn(
+                    Optional.of(List.of(PAYMENT, PAYMENT_2))
+            ).thenReturn(Optional.of(List.of()));
+            payments.loadNewSettledPayments();
+            InOrder inOrder = inOrder(dao, listener);
+            inOrder.verify(dao).save(List.of(PAYMENT, PAYMENT_2));
+            inOrder.verify(listener).addedSettledPayments(List.of(PAYMENT, PAYMENT_2));
+        }
+
+        @Test
+        void does_not_notify_listener_without_payments() {
+            payments.loadNewSettledPayments();
+            verify(listener, never()).addedSettledPayments(anyList());
+        }
+
         @Test
         void repeats_while_at_limit() {
             when(grpcPayments.getCompletePaymentsAfter(INDEX_OFFSET))
@@ -99,6 +119,15 @@ class PaymentsTest {
             verify(dao).save(List.of(PAYMENT, PAYMENT_3));
         }
 
+        @Test
+        void notifies_listener_about_settled_payments() {
+            when(grpcPayments.getCompleteAndPendingPaymentsAfter(ALL_SETTLED_INDEX_OFFSET)).thenReturn(
+                    Optional.of(List.of(Optional.of(PAYMENT), Optional.empty(), Optional.of(PAYMENT_3)))
+            ).thenReturn(Optional.of(List.of()));
+            payments.loadOldSettledPayments();
+            verify(listener).addedSettledPayments(List.of(PAYMENT, PAYMENT_3));
+        }
+
         @Test
         void advances_index_after_saving_if_all_payments_are_settled() {
             InOrder inOrder = inOrder(dao);
@@ -142,12 +171,33 @@ class PaymentsTest {
         @Test
         void repeats_while_at_limit() {
             when(grpcPayments.getCompleteAndPendingPaymentsAfter(ALL_SETTLED_INDEX_OFFSET))
-                    .thenReturn(Optional.of(List.of(Optional.of(PAYMENT))))
-                    .thenReturn(Optional.of(List.of(Optional.of(PAYMENT_2))))
-                    .thenReturn(Optional.of(List.of()));
+                    .thenReturn(Optional.of(List.of(Optional.of(PAYMENT))));
+            when(grpcPayments.getCompleteAndPendingPaymentsAfter(PAYMENT.index()))
+                    .thenReturn(Optional.of(List.of(Optional.of(PAYMENT_2))));
             payments.loadOldSettledPayments();
-            verify(dao).save(List.of(PAYMENT));
-            verify(dao).save(List.of(PAYMENT_2));
+            InOrder inOrder = inOrder(dao);
+            inOrder.verify(dao).save(List.of(PAYMENT));
+            inOrder.verify(dao).setAllSettledIndexOffset(PAYMENT.index());
+            inOrder.verify(dao).save(List.of(PAYMENT_2));
+            inOrder.verify(dao).setAllSettledIndexOffset(PAYMENT_2.index());
+        }
+
+        @Test
+        void does_not_query_offsets_for_each_page() {
+            when(grpcPayments.getCompleteAndPendingPaymentsAfter(ALL_SETTLED_INDEX_OFFSET))
+                    .thenReturn(Optional.of(List.of(Optional.of(PAYMENT))));
+            payments.loadOldSettledPayments();
+            verify(dao, times(1)).getIndexOffset();
+            verify(dao, times(1)).getAllSettledIndexOffset();
+        }
+
+        @Test
+        void does_not_repeat_once_known_payments_are_reached() {
+            when(dao.getIndexOffset()).thenReturn(PAYMENT_2.index());
+            when(grpcPayments.getCompleteAndPendingPaymentsAfter(ALL_SETTLED_INDEX_OFFSET))
+                    .thenReturn(Optional.of(List.of(Optional.of(PAYMENT_2))));
+            payments.loadOldSettledPayments();
+            verify(grpcPayments, times(1)).getCompleteAndPendingPaymentsAfter(anyLong());
         }
 
         @Test
@@ -158,4 +208,40 @@ class PaymentsTest {
             verify(dao, times(1)).save(anyList());
         }
     }
+
+    @Nested
+    class IsCaughtUp {
+        @Test
+        void initially_false() {
+            assertThat(payments.isCaughtUp()).isFalse();
+        }
+
+        @Test
+        void false_if_only_new_payments_are_loaded() {
+            payments.loadNewSettledPayments();
+            assertThat(payments.isCaughtUp()).isFalse();
+        }
+
+        @Test
+        void false_if_old_payments_are_still_loading() {
+            payments.loadNewSettledPayments();
+            payments.loadOldSettledPayments();
+            assertThat(payments.isCaughtUp()).isFalse();
+        }
+
+        @Test
+        void false_if_new_payments_are_not_loaded_yet() {
+            when(dao.getAllSettledIndexOffset()).thenReturn(INDEX_OFFSET);
+            payments.loadOldSettledPayments();
+            assertThat(payments.isCaughtUp()).isFalse();
+        }
+
+        @Test
+        void true_once_old_payments_are_loaded_after_new_payments() {
+            when(dao.getAllSettledIndexOffset()).thenReturn(INDEX_OFFSET);
+            payments.loadNewSettledPayments();
+            payments.loadOldSettledPayments();
+            assertThat(payments.isCaughtUp()).isTrue();
+        }
+    }
 }
@@ -1,31 +1,41 @@
 package de.cotto.lndmanagej.payments.persistence;
 
+import com.codahale.metrics.MetricRegistry;
 import de.cotto.lndmanagej.model.Payment;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentMatcher;
-import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static de.cotto.lndmanagej.model.PaymentFixtures.PAYMENT;
 import static de.cotto.lndmanagej.model.PaymentFixtures.PAYMENT_2;
 import static de.cotto.lndmanagej.model.PaymentFixtures.PAYMENT_INDEX;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class PaymentsDaoImplTest {
-    @InjectMocks
+    private static final int BATCH_SIZE = 123;
+
     private PaymentsDaoImpl dao;
 
     @Mock
@@ -34,6 +44,16 @@ class PaymentsDaoImplTest {
     @Mock
     private SettledPaymentIndexRepository settledPaymentIndexRepository;
 
+    @Mock
+    private EntityManager entityManager;
+
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+
+    @BeforeEach
+    void setUp() {
+        dao = new PaymentsDaoImpl(repository, settledPaymentIndexRepository, entityManager, metricRegistry, BATCH_SIZE);
+    }
+
     @Nested
     class Payments {
         @Test
@@ -57,22 +77,65 @@ class PaymentsDaoImplTest {
         @Test
         void save_empty() {
             dao.save(Set.of());
-            verify(repository).saveAll(List.of());
+            verifyNoInteractions(repository, entityManager);
+        }
+
+        @Test
+        void save_two_new_payments() {
+            when(repository.getKnownPaymentIndexes(anyCollection())).thenReturn(List.of());
+            dao.save(List.of(PAYMENT, PAYMENT_2));
+            verify(entityManager).persist(argThat(isPayment(PAYMENT)));
+            verify(entityManager).persist(argThat(isPayment(PAYMENT_2)));
+            verify(entityManager, never()).merge(any());
+        }
+
+        @Test
+        void save_merges_known_payment() {
+            when(repository.getKnownPaymentIndexes(List.of(PAYMENT.index(), PAYMENT_2.index())))
+                    .thenReturn(List.of(PAYMENT_2.index()));
+            dao.save(List.of(PAYMENT, PAYMENT_2));
+            verify(entityManager).persist(argThat(isPayment(PAYMENT)));
+            verify(entityManager).merge(argThat(isPayment(PAYMENT_2)));
+        }
+
+        @Test
+        void save_flushes_and_clears() {
+            when(repository.getKnownPaymentIndexes(anyCollection())).thenReturn(List.of());
+            dao.save(List.of(PAYMENT, PAYMENT_2));
+            InOrder inOrder = inOrder(entityManager);
+            inOrder.verify(entityManager, times(2)).persist(any());
+            inOrder.verify(entityManager).flush();
+            inOrder.verify(entityManager).clear();
         }
 
         @Test
-        void save_two() {
-            dao.save(Set.of(PAYMENT, PAYMENT_2));
-            Set<Payment> expected = Set.of(PAYMENT, PAYMENT_2);
-            verify(repository).saveAll(argThat(isSet(expected)));
-        }
-
-        @SuppressWarnings("PMD.LinguisticNaming")
-        private <S extends PaymentJpaDto> ArgumentMatcher<Iterable<S>> isSet(Set<Payment> expected) {
-            return iterable -> iterable instanceof List && ((List<S>) iterable).stream()
-                    .map(PaymentJpaDto::toModel)
-                    .collect(Collectors.toSet())
-                    .equals(expected);
+        void save_flushes_after_each_batch() {
+            when(repository.getKnownPaymentIndexes(anyCollection())).thenReturn(List.of());
+            List<Payment> payments = IntStream.rangeClosed(1, 2 * BATCH_SIZE + 1)
+                    .mapToObj(index -> new Payment(
+                            index,
+                            PAYMENT.paymentHash(),
+                            PAYMENT.creationDateTime(),
+                            PAYMENT.value(),
+                            PAYMENT.fees(),
+                            PAYMENT.routes()
+                    ))
+                    .toList();
+            dao.save(payments);
+            verify(entityManager, times(3)).flush();
+            verify(entityManager, times(3)).clear();
+        }
+
+        @Test
+        void save_counts_inserted_payments() {
+            when(repository.getKnownPaymentIndexes(anyCollection())).thenReturn(List.of(PAYMENT.index()));
+            dao.save(List.of(PAYMENT, PAYMENT_2));
+            String name = MetricRegistry.name(PaymentsDaoImpl.class, "inserted");
+            assertThat(metricRegistry.counter(name).getCount()).isEqualTo(1);
+        }
+
+        private ArgumentMatcher<PaymentJpaDto> isPayment(Payment expected) {
+            return jpaDto -> jpaDto != null && jpaDto.toModel().equals(expected);
         }
     }
 
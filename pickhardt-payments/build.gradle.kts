@@ -1,5 +1,6 @@
 plugins {
     id("lnd-manageJ.java-library-conventions")
+    id("lnd-manageJ.benchmarks")
 }
 
 dependencies {
@@ -16,6 +17,8 @@ dependencies {
     integrationTestImplementation(project(":grpc-adapter"))
     integrationTestImplementation(testFixtures(project(":model")))
     testFixturesImplementation(testFixtures(project(":model")))
+    jmhImplementation(testFixtures(project(":model")))
+    jmhImplementation("org.mockito:mockito-core")
 }
 
 var deleteCrashLogs = tasks.register<Delete>("deleteCrashLogs") {
@@ -0,0 +1,79 @@
+package de.cotto.lndmanagej.pickhardtpayments;
+
+import de.cotto.lndmanagej.model.Coins;
+import de.cotto.lndmanagej.pickhardtpayments.model.EdgesWithLiquidityInformation;
+import de.cotto.lndmanagej.pickhardtpayments.model.Flows;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a single solve with the configured quantization to the coarse-to-fine solve used with adaptive
+ * quantization (see {@link FlowComputation}). Both include setting up the arcs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AdaptiveQuantizationBenchmark {
+    private static final int PIECEWISE_LINEAR_APPROXIMATIONS = 5;
+    private static final int FEE_RATE_WEIGHT = 0;
+
+    @Param({"1000", "10000"})
+    public int quantization;
+
+    @Param({"1000000", "5000000"})
+    public long amountSat;
+
+    @Param({"or-tools", "successive-shortest-path"})
+    public String engine;
+
+    private MinCostFlowEngineType engineType;
+    private int coarseQuantization;
+
+    public AdaptiveQuantizationBenchmark() {
+        // default constructor
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        engineType = MinCostFlowEngineType.fromConfigurationValue(engine).orElseThrow();
+        long unitsForCoarseSolve = FlowComputation.COARSE_QUANTIZATION_UNITS;
+        coarseQuantization = (int) Math.max(quantization, (amountSat + unitsForCoarseSolve - 1) / unitsForCoarseSolve);
+    }
+
+    @Benchmark
+    public Flows singleSolve(LightningGraphState graph) {
+        return solve(graph, graph.edges, quantization);
+    }
+
+    @Benchmark
+    public Flows coarseToFineSolve(LightningGraphState graph) {
+        Flows coarseFlows = solve(graph, graph.edges, coarseQuantization);
+        EdgesWithLiquidityInformation corridor = new FlowCorridor(coarseFlows).restrict(graph.edges);
+        return solve(graph, corridor, quantization);
+    }
+
+    private Flows solve(LightningGraphState graph, EdgesWithLiquidityInformation edges, int quantizationForSolve) {
+        Coins amount = Coins.ofSatoshis(amountSat);
+        return new MinCostFlowSolver(
+                engineType.createEngine(),
+                edges,
+                Map.of(graph.source, amount),
+                Map.of(graph.target, amount),
+                quantizationForSolve,
+                PIECEWISE_LINEAR_APPROXIMATIONS,
+                FEE_RATE_WEIGHT,
+                graph.source,
+                true
+        ).solve();
+    }
+}
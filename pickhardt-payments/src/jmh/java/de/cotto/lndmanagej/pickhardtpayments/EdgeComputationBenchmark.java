@@ -0,0 +1,79 @@
+package de.cotto.lndmanagej.pickhardtpayments;
+
+import de.cotto.lndmanagej.configuration.ConfigurationService;
+import de.cotto.lndmanagej.grpc.GraphSnapshot;
+import de.cotto.lndmanagej.grpc.GrpcGetInfo;
+import de.cotto.lndmanagej.grpc.GrpcGraph;
+import de.cotto.lndmanagej.grpc.middleware.GrpcMiddlewareService;
+import de.cotto.lndmanagej.pickhardtpayments.model.EdgesWithLiquidityInformation;
+import de.cotto.lndmanagej.service.BalanceService;
+import de.cotto.lndmanagej.service.ChannelService;
+import de.cotto.lndmanagej.service.LiquidityBoundsService;
+import de.cotto.lndmanagej.service.MissionControlService;
+import de.cotto.lndmanagej.service.RouteHintService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static de.cotto.lndmanagej.pickhardtpayments.model.PaymentOptions.DEFAULT_PAYMENT_OPTIONS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Computes the edges (with liquidity information) for the synthetic graph. The services providing information about
+ * our own channels and mission control data are stubs, so that the benchmark mostly measures the edge computation
+ * itself and the lookups in {@link LiquidityBoundsService}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class EdgeComputationBenchmark {
+    private static final int MAXIMUM_TIME_LOCK_DELTA = 2016;
+
+    private EdgeComputation edgeComputation;
+
+    public EdgeComputationBenchmark() {
+        // default constructor
+    }
+
+    @Setup(Level.Trial)
+    public void createEdgeComputation(LightningGraphState graph) {
+        GrpcGraph grpcGraph = stub(GrpcGraph.class);
+        when(grpcGraph.getSnapshot()).thenReturn(Optional.of(new GraphSnapshot(1, graph.channelEdges)));
+        GrpcGetInfo grpcGetInfo = stub(GrpcGetInfo.class);
+        when(grpcGetInfo.getPubkey()).thenReturn(graph.source);
+        GrpcMiddlewareService grpcMiddlewareService = stub(GrpcMiddlewareService.class);
+        when(grpcMiddlewareService.isConnected()).thenReturn(true);
+        LiquidityBoundsService liquidityBoundsService = new LiquidityBoundsService(
+                stub(MissionControlService.class),
+                stub(ConfigurationService.class)
+        );
+        edgeComputation = new EdgeComputation(
+                grpcGraph,
+                grpcGetInfo,
+                stub(ChannelService.class),
+                stub(BalanceService.class),
+                liquidityBoundsService,
+                new RouteHintService(),
+                grpcMiddlewareService
+        );
+    }
+
+    @Benchmark
+    public EdgesWithLiquidityInformation getEdges() {
+        return edgeComputation.getEdges(DEFAULT_PAYMENT_OPTIONS, MAXIMUM_TIME_LOCK_DELTA);
+    }
+
+    private static <T> T stub(Class<T> type) {
+        return mock(type, withSettings().stubOnly());
+    }
+}
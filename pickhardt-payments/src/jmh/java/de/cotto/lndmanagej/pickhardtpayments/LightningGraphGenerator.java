@@ -0,0 +1,113 @@
+package de.cotto.lndmanagej.pickhardtpayments;
+
+import de.cotto.lndmanagej.model.ChannelId;
+import de.cotto.lndmanagej.model.Coins;
+import de.cotto.lndmanagej.model.DirectedChannelEdge;
+import de.cotto.lndmanagej.model.Policy;
+import de.cotto.lndmanagej.model.Pubkey;
+import org.eclipse.collections.impl.set.mutable.primitive.IntHashSet;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Creates a synthetic channel graph resembling the Lightning Network: channels are added by preferential attachment
+ * (Barabási–Albert), so that the node degrees follow a power law. Capacities are log-uniformly distributed, fee
+ * rates follow a log-normal distribution. The graph only depends on the given seed.
+ */
+final class LightningGraphGenerator {
+    static final int NUMBER_OF_NODES = 15_000;
+    static final int NUMBER_OF_CHANNELS = 80_000;
+
+    private static final long MINIMUM_CAPACITY_SAT = 100_000;
+    private static final long MAXIMUM_CAPACITY_SAT = 50_000_000;
+    private static final long MAXIMUM_FEE_RATE = 5_000;
+    private static final int[] TIME_LOCK_DELTAS = {40, 80, 144};
+    private static final double UNIFORM_PEER_PROBABILITY = 0.1;
+    private static final double DISABLED_PROBABILITY = 0.03;
+    private static final int FIRST_BLOCK = 600_000;
+    private static final int CHANNELS_PER_BLOCK = 1_000;
+
+    private final Random random;
+    private final List<Pubkey> nodes;
+    private final Set<DirectedChannelEdge> channelEdges = new LinkedHashSet<>();
+    private final int[] channelEndpoints;
+    private int numberOfChannelEndpoints;
+    private int numberOfChannels;
+
+    LightningGraphGenerator(int numberOfNodes, int numberOfChannels, long seed) {
+        random = new Random(seed);
+        nodes = new ArrayList<>(numberOfNodes);
+        for (int node = 0; node < numberOfNodes; node++) {
+            nodes.add(Pubkey.create("02" + "%064x".formatted(node + 1)));
+        }
+        channelEndpoints = new int[2 * numberOfChannels];
+        for (int node = 1; node < numberOfNodes; node++) {
+            long channelsUntilNode = (long) numberOfChannels * node / (numberOfNodes - 1);
+            long channelsBeforeNode = (long) numberOfChannels * (node - 1) / (numberOfNodes - 1);
+            addChannels(node, (int) Math.min(node, channelsUntilNode - channelsBeforeNode));
+        }
+    }
+
+    /**
+     * Returns both directions of all channels.
+     */
+    Set<DirectedChannelEdge> getChannelEdges() {
+        return channelEdges;
+    }
+
+    /**
+     * Returns the pubkey of the node with the given index. Nodes with a lower index tend to have more channels.
+     */
+    Pubkey getNode(int index) {
+        return nodes.get(index);
+    }
+
+    private void addChannels(int node, int channelsForNode) {
+        IntHashSet peers = new IntHashSet();
+        while (peers.size() < channelsForNode) {
+            int peer = choosePeer(node);
+            if (peers.add(peer)) {
+                addChannel(node, peer);
+            }
+        }
+    }
+
+    private int choosePeer(int node) {
+        if (numberOfChannelEndpoints == 0 || random.nextDouble() < UNIFORM_PEER_PROBABILITY) {
+            return random.nextInt(node);
+        }
+        return channelEndpoints[random.nextInt(numberOfChannelEndpoints)];
+    }
+
+    private void addChannel(int node, int peer) {
+        int block = FIRST_BLOCK + numberOfChannels / CHANNELS_PER_BLOCK;
+        int transaction = numberOfChannels % CHANNELS_PER_BLOCK;
+        ChannelId channelId = ChannelId.fromCompactForm(block + "x" + transaction + "x1");
+        numberOfChannels++;
+        Coins capacity = Coins.ofSatoshis(getCapacitySat());
+        Pubkey nodePubkey = nodes.get(node);
+        Pubkey peerPubkey = nodes.get(peer);
+        channelEdges.add(new DirectedChannelEdge(channelId, capacity, nodePubkey, peerPubkey, getPolicy(capacity)));
+        channelEdges.add(new DirectedChannelEdge(channelId, capacity, peerPubkey, nodePubkey, getPolicy(capacity)));
+        channelEndpoints[numberOfChannelEndpoints++] = node;
+        channelEndpoints[numberOfChannelEndpoints++] = peer;
+    }
+
+    private long getCapacitySat() {
+        double minimum = Math.log(MINIMUM_CAPACITY_SAT);
+        double maximum = Math.log(MAXIMUM_CAPACITY_SAT);
+        return (long) Math.exp(minimum + random.nextDouble() * (maximum - minimum));
+    }
+
+    private Policy getPolicy(Coins capacity) {
+        long feeRate = Math.min(MAXIMUM_FEE_RATE, (long) Math.exp(4 + 1.5 * random.nextGaussian()));
+        Coins baseFee = random.nextBoolean() ? Coins.NONE : Coins.ofMilliSatoshis(1_000);
+        boolean enabled = random.nextDouble() >= DISABLED_PROBABILITY;
+        int timeLockDelta = TIME_LOCK_DELTAS[random.nextInt(TIME_LOCK_DELTAS.length)];
+        return new Policy(feeRate, baseFee, enabled, timeLockDelta, capacity);
+    }
+}
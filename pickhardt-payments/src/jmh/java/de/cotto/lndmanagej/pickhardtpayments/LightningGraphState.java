@@ -0,0 +1,61 @@
+package de.cotto.lndmanagej.pickhardtpayments;
+
+import de.cotto.lndmanagej.model.Coins;
+import de.cotto.lndmanagej.model.DirectedChannelEdge;
+import de.cotto.lndmanagej.model.Edge;
+import de.cotto.lndmanagej.model.EdgeWithLiquidityInformation;
+import de.cotto.lndmanagej.model.Pubkey;
+import de.cotto.lndmanagej.pickhardtpayments.model.EdgesWithLiquidityInformation;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Set;
+
+/**
+ * Synthetic graph shared by all benchmarks. The source is a well-connected node, the target is one of the nodes
+ * with few channels.
+ */
+@State(Scope.Benchmark)
+public class LightningGraphState {
+    private static final long SEED = 42;
+    private static final int SOURCE_INDEX = 100;
+
+    Set<DirectedChannelEdge> channelEdges;
+    EdgesWithLiquidityInformation edges;
+    Pubkey source;
+    Pubkey target;
+
+    public LightningGraphState() {
+        // default constructor
+    }
+
+    @Setup(Level.Trial)
+    public void createGraph() {
+        LightningGraphGenerator generator = new LightningGraphGenerator(
+                LightningGraphGenerator.NUMBER_OF_NODES,
+                LightningGraphGenerator.NUMBER_OF_CHANNELS,
+                SEED
+        );
+        channelEdges = generator.getChannelEdges();
+        edges = new EdgesWithLiquidityInformation(channelEdges.stream()
+                .filter(channelEdge -> channelEdge.policy().enabled())
+                .map(LightningGraphState::toEdgeWithLiquidityInformation)
+                .toList());
+        source = generator.getNode(SOURCE_INDEX);
+        target = generator.getNode(LightningGraphGenerator.NUMBER_OF_NODES - 1);
+    }
+
+    private static EdgeWithLiquidityInformation toEdgeWithLiquidityInformation(DirectedChannelEdge channelEdge) {
+        Coins capacity = channelEdge.capacity();
+        Edge edge = new Edge(
+                channelEdge.channelId(),
+                channelEdge.source(),
+                channelEdge.target(),
+                capacity,
+                channelEdge.policy()
+        );
+        return EdgeWithLiquidityInformation.forUpperBound(edge, capacity);
+    }
+}
@@ -0,0 +1,91 @@
+package de.cotto.lndmanagej.pickhardtpayments;
+
+import de.cotto.lndmanagej.configuration.ConfigurationService;
+import de.cotto.lndmanagej.configuration.IniFileReader;
+import de.cotto.lndmanagej.model.Coins;
+import de.cotto.lndmanagej.model.Edge;
+import de.cotto.lndmanagej.model.EdgeWithLiquidityInformation;
+import de.cotto.lndmanagej.service.LiquidityBoundsService;
+import de.cotto.lndmanagej.service.MissionControlService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Looks up the liquidity bounds for all edges of the synthetic graph, as done by {@link EdgeComputation}. Every tenth
+ * edge has known bounds. The {@code concurrent} group additionally runs threads marking amounts as in-flight (and
+ * available again), similar to payments being sent while routes are computed. The configuration is empty (real
+ * instance instead of a mock, so that the lookups are not dominated by the mocking framework).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LiquidityBoundsBenchmark {
+    private static final int EDGES_WITH_INFORMATION_RATIO = 10;
+    private static final Coins IN_FLIGHT = Coins.ofSatoshis(1_000);
+
+    private LiquidityBoundsService liquidityBoundsService;
+    private List<Edge> edges;
+
+    public LiquidityBoundsBenchmark() {
+        // default constructor
+    }
+
+    @Setup(Level.Trial)
+    public void createLiquidityBounds(LightningGraphState graph) {
+        liquidityBoundsService = new LiquidityBoundsService(
+                mock(MissionControlService.class, withSettings().stubOnly()),
+                new ConfigurationService(new IniFileReader(""))
+        );
+        edges = graph.edges.edges().stream().map(EdgeWithLiquidityInformation::edge).toList();
+        for (int i = 0; i < edges.size(); i += EDGES_WITH_INFORMATION_RATIO) {
+            Edge edge = edges.get(i);
+            Coins capacity = edge.capacity();
+            liquidityBoundsService.markAsAvailable(edge.startNode(), edge.endNode(), Coins.ofSatoshis(1_000));
+            liquidityBoundsService.markAsUnavailable(edge.startNode(), edge.endNode(), capacity);
+        }
+    }
+
+    @Benchmark
+    public void lookup(Blackhole blackhole) {
+        lookupAllEdges(blackhole);
+    }
+
+    @Benchmark
+    @Group("concurrent")
+    @GroupThreads(3)
+    public void concurrentLookup(Blackhole blackhole) {
+        lookupAllEdges(blackhole);
+    }
+
+    @Benchmark
+    @Group("concurrent")
+    @GroupThreads(1)
+    public void concurrentUpdate() {
+        Edge edge = edges.get(ThreadLocalRandom.current().nextInt(edges.size()));
+        liquidityBoundsService.markAsInFlight(edge.startNode(), edge.endNode(), IN_FLIGHT);
+        liquidityBoundsService.markAsInFlight(edge.startNode(), edge.endNode(), IN_FLIGHT.negate());
+    }
+
+    private void lookupAllEdges(Blackhole blackhole) {
+        for (Edge edge : edges) {
+            blackhole.consume(liquidityBoundsService.getAssumedLiquidityLowerBound(edge));
+            blackhole.consume(liquidityBoundsService.getAssumedLiquidityUpperBound(edge));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package de.cotto.lndmanagej.pickhardtpayments;
+
+import de.cotto.lndmanagej.model.Edge;
+import de.cotto.lndmanagej.model.Pubkey;
+import de.cotto.lndmanagej.pickhardtpayments.model.IntegerMapping;
+import org.eclipse.collections.impl.map.mutable.primitive.IntObjectHashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MinCostFlowBenchmark {
+    private static final int FEE_RATE_WEIGHT = 0;
+
+    @Param({"1000", "10000"})
+    public int quantization;
+
+    @Param({"1", "5"})
+    public int piecewiseLinearApproximations;
+
+    @Param({"or-tools", "successive-shortest-path"})
+    public String engine;
+
+    private MinCostFlowEngineType engineType;
+
+    public MinCostFlowBenchmark() {
+        // default constructor
+    }
+
+    @Setup(Level.Trial)
+    public void selectEngine() {
+        engineType = MinCostFlowEngineType.fromConfigurationValue(engine).orElseThrow();
+    }
+
+    @Benchmark
+    public Object addArcs(LightningGraphState graph) {
+        MinCostFlowEngine minCostFlowEngine = engineType.createEngine();
+        ArcInitializer arcInitializer = new ArcInitializer(
+                minCostFlowEngine,
+                new IntegerMapping<Pubkey>(),
+                new IntObjectHashMap<Edge>(),
+                quantization,
+                piecewiseLinearApproximations,
+                FEE_RATE_WEIGHT,
+                graph.source,
+                true
+        );
+        arcInitializer.addArcs(graph.edges);
+        return minCostFlowEngine;
+    }
+}
@@ -0,0 +1,68 @@
+package de.cotto.lndmanagej.pickhardtpayments;
+
+import de.cotto.lndmanagej.model.Coins;
+import de.cotto.lndmanagej.pickhardtpayments.model.Flows;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MinCostFlowSolveBenchmark {
+    private static final int FEE_RATE_WEIGHT = 0;
+
+    @Param({"1000", "10000"})
+    public int quantization;
+
+    @Param({"1", "5"})
+    public int piecewiseLinearApproximations;
+
+    @Param({"100000", "1000000", "5000000"})
+    public long amountSat;
+
+    @Param({"or-tools", "successive-shortest-path"})
+    public String engine;
+
+    private MinCostFlowEngineType engineType;
+    private MinCostFlowSolver minCostFlowSolver;
+
+    public MinCostFlowSolveBenchmark() {
+        // default constructor
+    }
+
+    @Setup(Level.Trial)
+    public void selectEngine() {
+        engineType = MinCostFlowEngineType.fromConfigurationValue(engine).orElseThrow();
+    }
+
+    @Setup(Level.Invocation)
+    public void createSolver(LightningGraphState graph) {
+        Coins amount = Coins.ofSatoshis(amountSat);
+        minCostFlowSolver = new MinCostFlowSolver(
+                engineType.createEngine(),
+                graph.edges,
+                Map.of(graph.source, amount),
+                Map.of(graph.target, amount),
+                quantization,
+                piecewiseLinearApproximations,
+                FEE_RATE_WEIGHT,
+                graph.source,
+                true
+        );
+    }
+
+    @Benchmark
+    public Flows solve() {
+        return minCostFlowSolver.solve();
+    }
+}
@@ -0,0 +1,75 @@
+package de.cotto.lndmanagej.pickhardtpayments;
+
+import de.cotto.lndmanagej.model.BasicRoute;
+import de.cotto.lndmanagej.model.Coins;
+import de.cotto.lndmanagej.model.Route;
+import de.cotto.lndmanagej.pickhardtpayments.model.BasicRoutes;
+import de.cotto.lndmanagej.pickhardtpayments.model.Flows;
+import de.cotto.lndmanagej.pickhardtpayments.model.Routes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RoutesBenchmark {
+    private static final int FEE_RATE_WEIGHT = 0;
+
+    @Param({"1000", "10000"})
+    public int quantization;
+
+    @Param({"1", "5"})
+    public int piecewiseLinearApproximations;
+
+    @Param({"100000", "1000000", "5000000"})
+    public long amountSat;
+
+    private Coins amount;
+    private Flows flows;
+    private List<Route> routes;
+
+    public RoutesBenchmark() {
+        // default constructor
+    }
+
+    @Setup(Level.Trial)
+    public void computeFlows(LightningGraphState graph) {
+        amount = Coins.ofSatoshis(amountSat);
+        flows = new MinCostFlowSolver(
+                new SuccessiveShortestPathMinCostFlowEngine(),
+                graph.edges,
+                Map.of(graph.source, amount),
+                Map.of(graph.target, amount),
+                quantization,
+                piecewiseLinearApproximations,
+                FEE_RATE_WEIGHT,
+                graph.source,
+                true
+        ).solve();
+        if (flows.isEmpty()) {
+            throw new IllegalStateException("No flows found for " + amount);
+        }
+        routes = BasicRoutes.fromFlows(graph.source, graph.target, flows).stream().map(Route::new).toList();
+    }
+
+    @Benchmark
+    public List<BasicRoute> fromFlows(LightningGraphState graph) {
+        return BasicRoutes.fromFlows(graph.source, graph.target, flows);
+    }
+
+    @Benchmark
+    public List<Route> getFixedWithTotalAmount() {
+        return Routes.getFixedWithTotalAmount(routes, amount);
+    }
+}
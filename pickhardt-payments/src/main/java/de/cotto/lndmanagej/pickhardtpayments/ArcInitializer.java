@@ -1,6 +1,5 @@
 package de.cotto.lndmanagej.pickhardtpayments;
 
-import com.google.ortools.graph.MinCostFlow;
 import de.cotto.lndmanagej.model.Coins;
 import de.cotto.lndmanagej.model.Edge;
 import de.cotto.lndmanagej.model.EdgeWithLiquidityInformation;
@@ -15,7 +14,7 @@ class ArcInitializer {
     // 50 BTC
     private static final Coins ASSUMED_MAXIMUM = Coins.ofSatoshis(5_000_000_000L);
 
-    private final MinCostFlow minCostFlow;
+    private final MinCostFlowEngine minCostFlowEngine;
     private final IntegerMapping<Pubkey> pubkeyToIntegerMapping;
     private final IntObjectHashMap<Edge> edgeMapping;
     private final long quantization;
@@ -26,7 +25,7 @@ class ArcInitializer {
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
     public ArcInitializer(
-            MinCostFlow minCostFlow,
+            MinCostFlowEngine minCostFlowEngine,
             IntegerMapping<Pubkey> integerMapping,
             IntObjectHashMap<Edge> edgeMapping,
             long quantization,
@@ -35,7 +34,7 @@ class ArcInitializer {
             Pubkey ownPubkey,
             boolean ignoreFeesForOwnChannels
     ) {
-        this.minCostFlow = minCostFlow;
+        this.minCostFlowEngine = minCostFlowEngine;
         this.pubkeyToIntegerMapping = integerMapping;
         this.edgeMapping = edgeMapping;
         this.quantization = quantization;
@@ -46,13 +45,25 @@ class ArcInitializer {
     }
 
     public void addArcs(EdgesWithLiquidityInformation edgesWithLiquidityInformation) {
-        Coins maximumCapacity = edgesWithLiquidityInformation.maximumCapacity().maximum(ASSUMED_MAXIMUM);
+        Coins maximumCapacity = getMaximumCapacity(edgesWithLiquidityInformation);
         for (EdgeWithLiquidityInformation edgeWithLiquidityInformation : edgesWithLiquidityInformation.edges()) {
             addArcs(edgeWithLiquidityInformation, maximumCapacity);
         }
     }
 
-    private void addArcs(EdgeWithLiquidityInformation edgeWithLiquidityInformation, Coins maximumCapacity) {
+    public static Coins getMaximumCapacity(EdgesWithLiquidityInformation edgesWithLiquidityInformation) {
+        return edgesWithLiquidityInformation.maximumCapacity().maximum(ASSUMED_MAXIMUM);
+    }
+
+    /**
+     * Returns true if at least one arc with a positive capacity is added for an edge with the given upper bound.
+     */
+    public static boolean hasCapacity(long upperBoundMilliSat, long quantization) {
+        // one unit is kept as reserve, see below
+        return upperBoundMilliSat / 1_000 / quantization > 1;
+    }
+
+    public void addArcs(EdgeWithLiquidityInformation edgeWithLiquidityInformation, Coins maximumCapacity) {
         Edge edge = edgeWithLiquidityInformation.edge();
         int startNode = pubkeyToIntegerMapping.getMappedInteger(edge.startNode());
         int endNode = pubkeyToIntegerMapping.getMappedInteger(edge.endNode());
@@ -78,7 +89,7 @@ class ArcInitializer {
         for (int i = 1; i <= remainingPieces; i++) {
             long cost = i * unitCost + feeRateSummand;
             logger.debug("{} - {}: {} (cost {})", edge.startNode(), edge.endNode(), capacityPiece, cost);
-            int arcIndex = minCostFlow.addArcWithCapacityAndUnitCost(
+            int arcIndex = minCostFlowEngine.addArcWithCapacityAndUnitCost(
                     startNode,
                     endNode,
                     capacityPiece,
@@ -93,7 +104,12 @@ class ArcInitializer {
             return piecewiseLinearApproximations;
         }
         long feeRateCost = feeRateWeight * getFeeRate(edge);
-        int arcIndex = minCostFlow.addArcWithCapacityAndUnitCost(startNode, endNode, quantizedLowerBound, feeRateCost);
+        int arcIndex = minCostFlowEngine.addArcWithCapacityAndUnitCost(
+                startNode,
+                endNode,
+                quantizedLowerBound,
+                feeRateCost
+        );
         logger.debug("{} - {}: {} (cost {})", edge.startNode(), edge.endNode(), quantizedLowerBound, feeRateCost);
         edgeMapping.put(arcIndex, edge);
         return piecewiseLinearApproximations - 1;
@@ -0,0 +1,75 @@
+package de.cotto.lndmanagej.pickhardtpayments;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of {@code int} values with {@code long} keys. Keys of values already in the heap cannot be
+ * decreased, instead the value is pushed again ("lazy deletion"), and outdated entries are skipped by the caller.
+ */
+class BinaryHeap {
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    public BinaryHeap(int initialCapacity) {
+        keys = new long[initialCapacity];
+        values = new int[initialCapacity];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long peekKey() {
+        return keys[0];
+    }
+
+    public void push(long key, int value) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, 2 * size);
+            values = Arrays.copyOf(values, 2 * size);
+        }
+        int index = size++;
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (keys[parent] <= key) {
+                break;
+            }
+            keys[index] = keys[parent];
+            values[index] = values[parent];
+            index = parent;
+        }
+        keys[index] = key;
+        values[index] = value;
+    }
+
+    public int pop() {
+        int result = values[0];
+        size--;
+        long key = keys[size];
+        int value = values[size];
+        int index = 0;
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && keys[child + 1] < keys[child]) {
+                child++;
+            }
+            if (key <= keys[child]) {
+                break;
+            }
+            keys[index] = keys[child];
+            values[index] = values[child];
+            index = child;
+        }
+        keys[index] = key;
+        values[index] = value;
+        return result;
+    }
+}
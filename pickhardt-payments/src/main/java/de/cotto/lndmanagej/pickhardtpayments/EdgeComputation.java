@@ -1,6 +1,6 @@
 package de.cotto.lndmanagej.pickhardtpayments;
 
-import com.google.common.collect.Sets;
+import de.cotto.lndmanagej.grpc.GraphSnapshot;
 import de.cotto.lndmanagej.grpc.GrpcGetInfo;
 import de.cotto.lndmanagej.grpc.GrpcGraph;
 import de.cotto.lndmanagej.grpc.middleware.GrpcMiddlewareService;
@@ -12,17 +12,22 @@ import de.cotto.lndmanagej.model.EdgeWithLiquidityInformation;
 import de.cotto.lndmanagej.model.LocalOpenChannel;
 import de.cotto.lndmanagej.model.Policy;
 import de.cotto.lndmanagej.model.Pubkey;
+import de.cotto.lndmanagej.pickhardtpayments.model.CompressedEdgeList;
+import de.cotto.lndmanagej.pickhardtpayments.model.CompressedGraph;
 import de.cotto.lndmanagej.pickhardtpayments.model.EdgesWithLiquidityInformation;
 import de.cotto.lndmanagej.pickhardtpayments.model.PaymentOptions;
 import de.cotto.lndmanagej.service.BalanceService;
 import de.cotto.lndmanagej.service.ChannelService;
 import de.cotto.lndmanagej.service.LiquidityBoundsService;
 import de.cotto.lndmanagej.service.RouteHintService;
+import org.eclipse.collections.impl.set.mutable.primitive.IntHashSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
-import java.util.LinkedHashSet;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
@@ -39,6 +44,9 @@ public class EdgeComputation {
     private final LiquidityBoundsService liquidityBoundsService;
     private final RouteHintService routeHintService;
     private final GrpcMiddlewareService grpcMiddlewareService;
+    private long compressedGraphVersion;
+    @Nullable
+    private CompressedGraph compressedGraph;
 
     public EdgeComputation(
             GrpcGraph grpcGraph,
@@ -63,32 +71,71 @@ public class EdgeComputation {
             logger.error("Middleware needs to be connected, see requirements section in PickhardtPayments.md");
             return EdgesWithLiquidityInformation.EMPTY;
         }
-        Set<DirectedChannelEdge> channelEdges = grpcGraph.getChannelEdges().orElse(null);
-        if (channelEdges == null) {
+        CompressedGraph graph = getCompressedGraph().orElse(null);
+        if (graph == null) {
             logger.error("Unable to get graph");
             return EdgesWithLiquidityInformation.EMPTY;
         }
-        Set<EdgeWithLiquidityInformation> edgesWithLiquidityInformation = new LinkedHashSet<>();
         Pubkey ownPubkey = grpcGetInfo.getPubkey();
+        int ownNode = graph.getNodeIndex(ownPubkey);
         Set<DirectedChannelEdge> edgesFromPaymentHints = routeHintService.getEdgesFromPaymentHints();
-        for (DirectedChannelEdge channelEdge : Sets.union(channelEdges, edgesFromPaymentHints)) {
+        IntHashSet graphEdgesFromPaymentHints = new IntHashSet();
+        List<EdgeWithLiquidityInformation> additionalEdges = new ArrayList<>();
+        long maximumCapacity = 0;
+        for (DirectedChannelEdge channelEdge : edgesFromPaymentHints) {
+            int graphEdge = graph.getEdgeIndex(channelEdge);
+            if (graphEdge != CompressedGraph.UNKNOWN) {
+                graphEdgesFromPaymentHints.add(graphEdge);
+            }
             if (shouldIgnore(channelEdge, paymentOptions, ownPubkey, maximumTimeLockDeltaPerEdge)) {
                 continue;
             }
-            ChannelId channelId = channelEdge.channelId();
-            Pubkey pubkey1 = channelEdge.source();
-            Pubkey pubkey2 = channelEdge.target();
-            Edge edge = new Edge(channelId, pubkey1, pubkey2, channelEdge.capacity(), channelEdge.policy());
-            if (edgesFromPaymentHints.contains(channelEdge)) {
-                edgesWithLiquidityInformation.add(
-                        EdgeWithLiquidityInformation.forLowerAndUpperBound(edge, edge.capacity(), edge.capacity())
-                );
+            Edge edge = new Edge(
+                    channelEdge.channelId(),
+                    channelEdge.source(),
+                    channelEdge.target(),
+                    channelEdge.capacity(),
+                    channelEdge.policy()
+            );
+            additionalEdges.add(
+                    EdgeWithLiquidityInformation.forLowerAndUpperBound(edge, edge.capacity(), edge.capacity())
+            );
+            maximumCapacity = Math.max(maximumCapacity, edge.capacity().milliSatoshis());
+        }
+
+        int numberOfEdges = graph.numberOfEdges();
+        int[] graphEdges = new int[numberOfEdges];
+        long[] lowerBounds = new long[numberOfEdges];
+        long[] upperBounds = new long[numberOfEdges];
+        int numberOfGraphEdges = 0;
+        for (int graphEdge = 0; graphEdge < numberOfEdges; graphEdge++) {
+            if (graphEdgesFromPaymentHints.contains(graphEdge)
+                    || shouldIgnore(graph, graphEdge, paymentOptions, ownNode, maximumTimeLockDeltaPerEdge)) {
+                continue;
+            }
+            graphEdges[numberOfGraphEdges] = graphEdge;
+            if (graph.sourceNode(graphEdge) == ownNode || graph.targetNode(graphEdge) == ownNode) {
+                EdgeWithLiquidityInformation liquidity =
+                        getEdgeWithLiquidityInformation(graph.getEdge(graphEdge), ownPubkey);
+                lowerBounds[numberOfGraphEdges] = liquidity.availableLiquidityLowerBound().milliSatoshis();
+                upperBounds[numberOfGraphEdges] = liquidity.availableLiquidityUpperBound().milliSatoshis();
             } else {
-                edgesWithLiquidityInformation.add(getEdgeWithLiquidityInformation(edge, ownPubkey));
+                long lowerBound = getAvailableLiquidityLowerBoundMilliSat(graph, graphEdge);
+                lowerBounds[numberOfGraphEdges] = lowerBound;
+                upperBounds[numberOfGraphEdges] = getAvailableLiquidityUpperBoundMilliSat(graph, graphEdge, lowerBound);
             }
+            numberOfGraphEdges++;
+            maximumCapacity = Math.max(maximumCapacity, graph.capacityMilliSat(graphEdge));
         }
-        logger.debug("Edges with liquidity information: {}", edgesWithLiquidityInformation);
-        return new EdgesWithLiquidityInformation(edgesWithLiquidityInformation);
+        CompressedEdgeList edges = new CompressedEdgeList(
+                graph,
+                graphEdges,
+                lowerBounds,
+                upperBounds,
+                numberOfGraphEdges,
+                additionalEdges
+        );
+        return new EdgesWithLiquidityInformation(edges, Coins.ofMilliSatoshis(maximumCapacity));
     }
 
     public EdgeWithLiquidityInformation getEdgeWithLiquidityInformation(Edge edge) {
@@ -106,6 +153,22 @@ public class EdgeComputation {
         return EdgeWithLiquidityInformation.forLowerAndUpperBound(edge, lowerBound, upperBound);
     }
 
+    private Optional<CompressedGraph> getCompressedGraph() {
+        GraphSnapshot snapshot = grpcGraph.getSnapshot().orElse(null);
+        if (snapshot == null) {
+            return Optional.empty();
+        }
+        synchronized (this) {
+            CompressedGraph graph = compressedGraph;
+            if (graph == null || snapshot.version() != compressedGraphVersion) {
+                graph = CompressedGraph.create(snapshot.channelEdges());
+                compressedGraph = graph;
+                compressedGraphVersion = snapshot.version();
+            }
+            return Optional.of(graph);
+        }
+    }
+
     private boolean shouldIgnore(
             DirectedChannelEdge channelEdge,
             PaymentOptions paymentOptions,
@@ -113,21 +176,55 @@ public class EdgeComputation {
             int maximumTimeLockDeltaPerEdge
     ) {
         Policy policy = channelEdge.policy();
-        if (policy.disabled()) {
+        return shouldIgnore(
+                policy.enabled(),
+                policy.timeLockDelta(),
+                policy.feeRate(),
+                pubkey.equals(channelEdge.target()),
+                paymentOptions,
+                maximumTimeLockDeltaPerEdge
+        );
+    }
+
+    private boolean shouldIgnore(
+            CompressedGraph graph,
+            int graphEdge,
+            PaymentOptions paymentOptions,
+            int ownNode,
+            int maximumTimeLockDeltaPerEdge
+    ) {
+        return shouldIgnore(
+                graph.isEnabled(graphEdge),
+                graph.timeLockDelta(graphEdge),
+                graph.feeRate(graphEdge),
+                graph.targetNode(graphEdge) == ownNode,
+                paymentOptions,
+                maximumTimeLockDeltaPerEdge
+        );
+    }
+
+    private boolean shouldIgnore(
+            boolean enabled,
+            int timeLockDelta,
+            long feeRate,
+            boolean incomingEdge,
+            PaymentOptions paymentOptions,
+            int maximumTimeLockDeltaPerEdge
+    ) {
+        if (!enabled) {
             return true;
         }
-        if (policy.timeLockDelta() > maximumTimeLockDeltaPerEdge) {
+        if (timeLockDelta > maximumTimeLockDeltaPerEdge) {
             return true;
         }
         Long feeRateLimit = paymentOptions.feeRateLimit().orElse(null);
         if (feeRateLimit == null) {
             return false;
         }
-        long feeRate = policy.feeRate();
         if (feeRate >= feeRateLimit) {
             return true;
         }
-        if (isIncomingEdge(channelEdge, pubkey)) {
+        if (incomingEdge) {
             return false;
         }
         Long feeRateLimitFirstHops = paymentOptions.feeRateLimitExceptIncomingHops().orElse(null);
@@ -137,10 +234,6 @@ public class EdgeComputation {
         return feeRate >= feeRateLimitFirstHops;
     }
 
-    private boolean isIncomingEdge(DirectedChannelEdge channelEdge, Pubkey ownPubkey) {
-        return ownPubkey.equals(channelEdge.target());
-    }
-
     private Optional<Coins> getKnownLiquidity(Edge edge, Pubkey ownPubKey) {
         Pubkey source = edge.startNode();
         ChannelId channelId = edge.channelId();
@@ -182,6 +275,23 @@ public class EdgeComputation {
         return edge.capacity().minimum(upperBound).maximum(lowerBound);
     }
 
+    private long getAvailableLiquidityLowerBoundMilliSat(CompressedGraph graph, int graphEdge) {
+        return liquidityBoundsService.getAssumedLiquidityLowerBoundMilliSat(
+                graph.getPubkey(graph.sourceNode(graphEdge)),
+                graph.getPubkey(graph.targetNode(graphEdge)),
+                graph.maxHtlcMilliSat(graphEdge)
+        );
+    }
+
+    private long getAvailableLiquidityUpperBoundMilliSat(CompressedGraph graph, int graphEdge, long lowerBound) {
+        long upperBound = liquidityBoundsService.getAssumedLiquidityUpperBoundMilliSat(
+                graph.getPubkey(graph.sourceNode(graphEdge)),
+                graph.getPubkey(graph.targetNode(graphEdge)),
+                graph.maxHtlcMilliSat(graphEdge)
+        );
+        return Math.max(Math.min(graph.capacityMilliSat(graphEdge), upperBound), lowerBound);
+    }
+
     private boolean noMiddlewareSupport() {
         return !grpcMiddlewareService.isConnected();
     }
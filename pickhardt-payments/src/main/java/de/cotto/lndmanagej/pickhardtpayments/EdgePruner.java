@@ -0,0 +1,268 @@
+package de.cotto.lndmanagej.pickhardtpayments;
+
+import de.cotto.lndmanagej.model.Edge;
+import de.cotto.lndmanagej.model.EdgeWithLiquidityInformation;
+import de.cotto.lndmanagej.model.Pubkey;
+import de.cotto.lndmanagej.pickhardtpayments.model.CompressedEdgeList;
+import de.cotto.lndmanagej.pickhardtpayments.model.CompressedGraph;
+import de.cotto.lndmanagej.pickhardtpayments.model.EdgesWithLiquidityInformation;
+import de.cotto.lndmanagej.pickhardtpayments.model.PaymentOptions;
+import org.eclipse.collections.impl.map.mutable.primitive.ObjectIntHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntToLongFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Removes edges that cannot be part of any route from source to target before the min cost flow problem is set up.
+ * An edge is kept only if it can be reached from the source and the target can be reached from it (using edges with
+ * capacity), and if the shortest route through the edge respects the maximum number of hops, the time lock budget
+ * computed by {@link CltvService}, and (if given) the fee rate limit.
+ * <p>
+ * The lower bounds for these criteria are computed by bounded searches starting at the source (forward) and at the
+ * target (backward), which run in parallel. As all costs are non-negative, an edge that is not part of any path from
+ * source to target could only carry flow in cycles, so that removing it does not change the optimal solution. Edges
+ * removed because of the other criteria could only be used in routes that are rejected by
+ * {@link MultiPathPaymentSplitter} or by lnd.
+ */
+class EdgePruner {
+    // lnd rejects routes with more hops (ErrMaxRouteHopsExceeded)
+    static final int MAXIMUM_NUMBER_OF_HOPS = 27;
+    private static final long UNREACHABLE = Long.MAX_VALUE / 4;
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final Pubkey source;
+    private final Pubkey target;
+    private final long quantization;
+    private final int maximumTimeLockDelta;
+    private final long maximumFeeRate;
+    private final boolean feeRateLimited;
+    private final boolean firstHopFeesCounted;
+
+    public EdgePruner(
+            Pubkey source,
+            Pubkey target,
+            long quantization,
+            int maximumTimeLockDelta,
+            PaymentOptions paymentOptions
+    ) {
+        this.source = source;
+        this.target = target;
+        this.quantization = quantization;
+        this.maximumTimeLockDelta = maximumTimeLockDelta;
+        Long feeRateLimit = paymentOptions.feeRateLimit().orElse(null);
+        feeRateLimited = feeRateLimit != null;
+        maximumFeeRate = feeRateLimit == null ? UNREACHABLE : feeRateLimit + getFeeRateRoundingAllowance();
+        firstHopFeesCounted = !paymentOptions.ignoreFeesForOwnChannels();
+    }
+
+    public EdgesWithLiquidityInformation prune(EdgesWithLiquidityInformation edgesWithLiquidityInformation) {
+        List<EdgeWithLiquidityInformation> edges = edgesWithLiquidityInformation.edges();
+        if (edges.isEmpty()) {
+            return edgesWithLiquidityInformation;
+        }
+        Network network = new Network(edges);
+        boolean[] relevant = getRelevantEdges(network);
+        int numberOfRelevantEdges = 0;
+        for (boolean isRelevant : relevant) {
+            if (isRelevant) {
+                numberOfRelevantEdges++;
+            }
+        }
+        logger.debug("Keeping {} of {} edges for flow computation", numberOfRelevantEdges, edges.size());
+        if (numberOfRelevantEdges == edges.size()) {
+            return edgesWithLiquidityInformation;
+        }
+        return edgesWithLiquidityInformation.filter(index -> relevant[index]);
+    }
+
+    private boolean[] getRelevantEdges(Network network) {
+        IntToLongFunction hops = edge -> 1;
+        IntToLongFunction timeLockDelta = edge -> network.isFirstHop(edge) ? 0 : network.timeLockDeltas[edge];
+        IntToLongFunction feeRate = edge ->
+                network.isFirstHop(edge) && !firstHopFeesCounted ? 0 : network.feeRates[edge];
+        List<ForkJoinTask<long[]>> searches = new ArrayList<>(List.of(
+                ForkJoinTask.adapt(() -> network.getDistances(true, hops, MAXIMUM_NUMBER_OF_HOPS)),
+                ForkJoinTask.adapt(() -> network.getDistances(false, hops, MAXIMUM_NUMBER_OF_HOPS)),
+                ForkJoinTask.adapt(() -> network.getDistances(true, timeLockDelta, maximumTimeLockDelta)),
+                ForkJoinTask.adapt(() -> network.getDistances(false, timeLockDelta, maximumTimeLockDelta))
+        ));
+        if (feeRateLimited) {
+            searches.add(ForkJoinTask.adapt(() -> network.getDistances(true, feeRate, maximumFeeRate)));
+            searches.add(ForkJoinTask.adapt(() -> network.getDistances(false, feeRate, maximumFeeRate)));
+        }
+        ForkJoinTask.invokeAll(searches);
+        Criterion hopsCriterion =
+                new Criterion(searches.get(0).join(), searches.get(1).join(), hops, MAXIMUM_NUMBER_OF_HOPS);
+        Criterion timeLockCriterion =
+                new Criterion(searches.get(2).join(), searches.get(3).join(), timeLockDelta, maximumTimeLockDelta);
+        Criterion feeRateCriterion = feeRateLimited
+                ? new Criterion(searches.get(4).join(), searches.get(5).join(), feeRate, maximumFeeRate)
+                : null;
+
+        boolean[] relevant = new boolean[network.numberOfEdges];
+        IntStream.range(0, network.numberOfEdges).parallel().forEach(edge ->
+                relevant[edge] = network.hasCapacity[edge]
+                        && hopsCriterion.isSatisfied(network, edge)
+                        && timeLockCriterion.isSatisfied(network, edge)
+                        && (feeRateCriterion == null || feeRateCriterion.isSatisfied(network, edge))
+        );
+        return relevant;
+    }
+
+    private long getFeeRateRoundingAllowance() {
+        // fees are rounded down to full milli-satoshis for each hop, and each route has at least one quantization unit
+        long allowancePerHop = (1_000_000 + quantization * 1_000 - 1) / (quantization * 1_000);
+        return MAXIMUM_NUMBER_OF_HOPS * allowancePerHop + 1;
+    }
+
+    private record Criterion(
+            long[] fromSource,
+            long[] toTarget,
+            IntToLongFunction edgeWeight,
+            long maximum
+    ) {
+        public boolean isSatisfied(Network network, int edge) {
+            long fromSourceToTail = fromSource[network.tails[edge]];
+            long fromHeadToTarget = toTarget[network.heads[edge]];
+            return fromSourceToTail + edgeWeight.applyAsLong(edge) + fromHeadToTarget <= maximum;
+        }
+    }
+
+    @SuppressWarnings("PMD.TooManyFields")
+    private final class Network {
+        private final int numberOfEdges;
+        private final int[] tails;
+        private final int[] heads;
+        private final long[] timeLockDeltas;
+        private final long[] feeRates;
+        private final boolean[] hasCapacity;
+        private final int sourceNode;
+        private final int targetNode;
+        private final int numberOfNodes;
+        private final int[] firstOutgoingEdge;
+        private final int[] outgoingEdges;
+        private final int[] firstIncomingEdge;
+        private final int[] incomingEdges;
+        @Nullable
+        private final CompressedGraph graph;
+        private final ObjectIntHashMap<Pubkey> additionalNodes = new ObjectIntHashMap<>();
+        private int nextNode;
+
+        private Network(List<EdgeWithLiquidityInformation> edges) {
+            CompressedEdgeList compressedEdgeList = edges instanceof CompressedEdgeList list ? list : null;
+            graph = compressedEdgeList == null ? null : compressedEdgeList.getGraph();
+            nextNode = graph == null ? 0 : graph.numberOfNodes();
+            numberOfEdges = edges.size();
+            tails = new int[numberOfEdges];
+            heads = new int[numberOfEdges];
+            timeLockDeltas = new long[numberOfEdges];
+            feeRates = new long[numberOfEdges];
+            hasCapacity = new boolean[numberOfEdges];
+            int numberOfGraphEdges = 0;
+            if (compressedEdgeList != null && graph != null) {
+                numberOfGraphEdges = compressedEdgeList.getNumberOfGraphEdges();
+                for (int index = 0; index < numberOfGraphEdges; index++) {
+                    int graphEdge = compressedEdgeList.getGraphEdge(index);
+                    tails[index] = graph.sourceNode(graphEdge);
+                    heads[index] = graph.targetNode(graphEdge);
+                    timeLockDeltas[index] = graph.timeLockDelta(graphEdge);
+                    feeRates[index] = graph.feeRate(graphEdge);
+                    long upperBound = compressedEdgeList.getUpperBoundMilliSat(index);
+                    hasCapacity[index] = ArcInitializer.hasCapacity(upperBound, quantization);
+                }
+            }
+            for (int index = numberOfGraphEdges; index < numberOfEdges; index++) {
+                EdgeWithLiquidityInformation edgeWithLiquidityInformation = edges.get(index);
+                Edge edge = edgeWithLiquidityInformation.edge();
+                tails[index] = getNode(edge.startNode());
+                heads[index] = getNode(edge.endNode());
+                timeLockDeltas[index] = edge.policy().timeLockDelta();
+                feeRates[index] = edge.policy().feeRate();
+                long upperBound = edgeWithLiquidityInformation.availableLiquidityUpperBound().milliSatoshis();
+                hasCapacity[index] = ArcInitializer.hasCapacity(upperBound, quantization);
+            }
+            sourceNode = getNode(source);
+            targetNode = getNode(target);
+            numberOfNodes = nextNode;
+            firstOutgoingEdge = new int[numberOfNodes + 1];
+            outgoingEdges = new int[numberOfEdges];
+            firstIncomingEdge = new int[numberOfNodes + 1];
+            incomingEdges = new int[numberOfEdges];
+            sortByNode(tails, firstOutgoingEdge, outgoingEdges);
+            sortByNode(heads, firstIncomingEdge, incomingEdges);
+        }
+
+        public boolean isFirstHop(int edge) {
+            return tails[edge] == sourceNode;
+        }
+
+        /**
+         * Computes the minimal distance from the source (forward) or to the target (backward) for every node, only
+         * following edges with capacity. Nodes with a distance exceeding the given maximum are not explored further,
+         * and their distance is reported as unreachable.
+         */
+        public long[] getDistances(boolean forward, IntToLongFunction edgeWeight, long maximum) {
+            long[] distances = new long[numberOfNodes];
+            Arrays.fill(distances, UNREACHABLE);
+            boolean[] settled = new boolean[numberOfNodes];
+            int[] firstEdge = forward ? firstOutgoingEdge : firstIncomingEdge;
+            int[] sortedEdges = forward ? outgoingEdges : incomingEdges;
+            int[] otherEnd = forward ? heads : tails;
+            int start = forward ? sourceNode : targetNode;
+            BinaryHeap heap = new BinaryHeap(numberOfNodes + 1);
+            distances[start] = 0;
+            heap.push(0, start);
+            while (!heap.isEmpty()) {
+                long distance = heap.peekKey();
+                int node = heap.pop();
+                if (settled[node] || distance > distances[node]) {
+                    continue;
+                }
+                settled[node] = true;
+                for (int index = firstEdge[node]; index < firstEdge[node + 1]; index++) {
+                    int edge = sortedEdges[index];
+                    if (!hasCapacity[edge]) {
+                        continue;
+                    }
+                    int other = otherEnd[edge];
+                    long otherDistance = distance + edgeWeight.applyAsLong(edge);
+                    if (otherDistance <= maximum && otherDistance < distances[other]) {
+                        distances[other] = otherDistance;
+                        heap.push(otherDistance, other);
+                    }
+                }
+            }
+            return distances;
+        }
+
+        private int getNode(Pubkey pubkey) {
+            if (graph != null) {
+                int node = graph.getNodeIndex(pubkey);
+                if (node != CompressedGraph.UNKNOWN) {
+                    return node;
+                }
+            }
+            return additionalNodes.getIfAbsentPut(pubkey, () -> nextNode++);
+        }
+
+        private void sortByNode(int[] nodes, int[] firstEdgeOfNode, int[] sortedEdges) {
+            for (int node : nodes) {
+                firstEdgeOfNode[node + 1]++;
+            }
+            for (int node = 0; node < numberOfNodes; node++) {
+                firstEdgeOfNode[node + 1] += firstEdgeOfNode[node];
+            }
+            int[] nextPosition = Arrays.copyOf(firstEdgeOfNode, numberOfNodes);
+            for (int edge = 0; edge < nodes.length; edge++) {
+                sortedEdges[nextPosition[nodes[edge]]++] = edge;
+            }
+        }
+    }
+}
@@ -1,16 +1,25 @@
 package de.cotto.lndmanagej.pickhardtpayments;
 
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import de.cotto.lndmanagej.caching.CacheBuilder;
 import de.cotto.lndmanagej.configuration.ConfigurationService;
 import de.cotto.lndmanagej.grpc.GrpcGetInfo;
 import de.cotto.lndmanagej.model.Coins;
+import de.cotto.lndmanagej.model.Edge;
+import de.cotto.lndmanagej.model.EdgeWithLiquidityInformation;
 import de.cotto.lndmanagej.model.Pubkey;
 import de.cotto.lndmanagej.pickhardtpayments.model.EdgesWithLiquidityInformation;
 import de.cotto.lndmanagej.pickhardtpayments.model.Flows;
 import de.cotto.lndmanagej.pickhardtpayments.model.PaymentOptions;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
+import static de.cotto.lndmanagej.configuration.PickhardtPaymentsConfigurationSettings.ADAPTIVE_QUANTIZATION;
+import static de.cotto.lndmanagej.configuration.PickhardtPaymentsConfigurationSettings.MIN_COST_FLOW_ENGINE;
 import static de.cotto.lndmanagej.configuration.PickhardtPaymentsConfigurationSettings.PIECEWISE_LINEAR_APPROXIMATIONS;
 import static de.cotto.lndmanagej.configuration.PickhardtPaymentsConfigurationSettings.QUANTIZATION;
 import static de.cotto.lndmanagej.pickhardtpayments.model.PaymentOptions.DEFAULT_PAYMENT_OPTIONS;
@@ -20,10 +29,19 @@ public class FlowComputation {
     @SuppressWarnings("PMD.LongVariable")
     private static final int DEFAULT_PIECEWISE_LINEAR_APPROXIMATIONS = 5;
     private static final int DEFAULT_QUANTIZATION = 10_000;
+    private static final MinCostFlowEngineType DEFAULT_MIN_COST_FLOW_ENGINE = MinCostFlowEngineType.OR_TOOLS;
+    private static final Duration SESSION_EXPIRY = Duration.ofMinutes(10);
+    private static final int MAXIMUM_NUMBER_OF_SESSIONS = 5;
+    static final int COARSE_QUANTIZATION_UNITS = 100;
 
     private final EdgeComputation edgeComputation;
     private final GrpcGetInfo grpcGetInfo;
     private final ConfigurationService configurationService;
+    private final LoadingCache<SessionKey, MinCostFlowSession> sessions = new CacheBuilder()
+            .withExpiry(SESSION_EXPIRY)
+            .withMaximumSize(MAXIMUM_NUMBER_OF_SESSIONS)
+            .withSoftValues(true)
+            .build(sessionKey -> new MinCostFlowSession(sessionKey.source(), sessionKey.target()));
 
     public FlowComputation(
             EdgeComputation edgeComputation,
@@ -43,26 +61,157 @@ public class FlowComputation {
             int maximumTimeLockDeltaPerEdge
     ) {
         int quantization = getQuantization(amount);
-        int piecewiseLinearApproximations = configurationService.getIntegerValue(PIECEWISE_LINEAR_APPROXIMATIONS)
-                .orElse(DEFAULT_PIECEWISE_LINEAR_APPROXIMATIONS);
-        EdgesWithLiquidityInformation edges = edgeComputation.getEdges(paymentOptions, maximumTimeLockDeltaPerEdge);
+        EdgePruner edgePruner =
+                new EdgePruner(source, target, quantization, maximumTimeLockDeltaPerEdge, paymentOptions);
+        EdgesWithLiquidityInformation edges =
+                edgePruner.prune(edgeComputation.getEdges(paymentOptions, maximumTimeLockDeltaPerEdge));
+        Problem problem = new Problem(source, target, amount, paymentOptions, maximumTimeLockDeltaPerEdge);
+        int coarseQuantization = getCoarseQuantization(amount, quantization);
+        if (coarseQuantization > quantization) {
+            Flows coarseFlows = solveWithoutSession(problem, edges, coarseQuantization);
+            if (!coarseFlows.isEmpty()) {
+                EdgesWithLiquidityInformation corridor = new FlowCorridor(coarseFlows).restrict(edges);
+                Flows fineFlows = solve(problem, corridor, quantization);
+                if (!fineFlows.isEmpty()) {
+                    return fineFlows;
+                }
+            }
+        }
+        return solve(problem, edges, quantization);
+    }
+
+    private Flows solve(Problem problem, EdgesWithLiquidityInformation edges, int quantization) {
+        if (getMinCostFlowEngineType().supportsWarmStart() && MinCostFlowSession.supports(edges)) {
+            SessionKey sessionKey = new SessionKey(
+                    problem.source(),
+                    problem.target(),
+                    problem.paymentOptions(),
+                    problem.maximumTimeLockDeltaPerEdge()
+            );
+            return sessions.get(sessionKey).solve(
+                    edges,
+                    problem.amount(),
+                    quantization,
+                    getPiecewiseLinearApproximations(),
+                    getFeeRateWeight(problem.paymentOptions()),
+                    grpcGetInfo.getPubkey(),
+                    problem.paymentOptions().ignoreFeesForOwnChannels()
+            );
+        }
+        return solveWithoutSession(problem, edges, quantization);
+    }
+
+    private Flows solveWithoutSession(Problem problem, EdgesWithLiquidityInformation edges, int quantization) {
         MinCostFlowSolver minCostFlowSolver = new MinCostFlowSolver(
+                getMinCostFlowEngineType().createEngine(),
                 edges,
-                Map.of(source, amount),
-                Map.of(target, amount),
+                Map.of(problem.source(), problem.amount()),
+                Map.of(problem.target(), problem.amount()),
                 quantization,
-                piecewiseLinearApproximations,
-                paymentOptions.feeRateWeight().orElse(DEFAULT_PAYMENT_OPTIONS.feeRateWeight().orElseThrow()),
+                getPiecewiseLinearApproximations(),
+                getFeeRateWeight(problem.paymentOptions()),
+                grpcGetInfo.getPubkey(),
+                problem.paymentOptions().ignoreFeesForOwnChannels()
+        );
+        return minCostFlowSolver.solve();
+    }
+
+    /**
+     * Computes flows from the source to several peers of the source at once, for payments that continue from each peer
+     * back to the source (for example top-up payments). All payments share the liquidity of the network, so that
+     * the resulting flows do not use the same liquidity for more than one payment. Direct channels between the source
+     * and the peers are not used, and the amount for each peer is rounded down to a multiple of the quantization.
+     *
+     * @param source the node starting (and ending) all payments
+     * @param amounts the amount to send for each peer
+     * @param paymentOptions payment options that apply to all payments
+     * @param maximumTimeLockDeltaPerEdge the maximum time lock delta for any edge
+     * @return the flows for all payments, or empty flows if no solution was found
+     */
+    public Flows getOptimalFlowsViaPeers(
+            Pubkey source,
+            Map<Pubkey, Coins> amounts,
+            PaymentOptions paymentOptions,
+            int maximumTimeLockDeltaPerEdge
+    ) {
+        Coins smallestAmount = amounts.values().stream().reduce(Coins::minimum).orElse(Coins.NONE);
+        if (!smallestAmount.isPositive()) {
+            return new Flows();
+        }
+        int quantization = getQuantization(smallestAmount);
+        Map<Pubkey, Coins> sinks = new LinkedHashMap<>();
+        amounts.forEach((peer, amount) ->
+                sinks.put(peer, Coins.ofSatoshis(amount.satoshis() / quantization * quantization))
+        );
+        Coins totalAmount = sinks.values().stream().reduce(Coins.NONE, Coins::add);
+        EdgesWithLiquidityInformation allEdges = edgeComputation.getEdges(paymentOptions, maximumTimeLockDeltaPerEdge);
+        List<EdgeWithLiquidityInformation> edgeList = allEdges.edges();
+        EdgesWithLiquidityInformation edges = allEdges.filter(index -> {
+            Edge edge = edgeList.get(index).edge();
+            return !edge.startNode().equals(source) || !amounts.containsKey(edge.endNode());
+        });
+        MinCostFlowSolver minCostFlowSolver = new MinCostFlowSolver(
+                getMinCostFlowEngineType().createEngine(),
+                edges,
+                Map.of(source, totalAmount),
+                sinks,
+                quantization,
+                getPiecewiseLinearApproximations(),
+                getFeeRateWeight(paymentOptions),
                 grpcGetInfo.getPubkey(),
                 paymentOptions.ignoreFeesForOwnChannels()
         );
         return minCostFlowSolver.solve();
     }
 
+    private static int getFeeRateWeight(PaymentOptions paymentOptions) {
+        return paymentOptions.feeRateWeight().orElse(DEFAULT_PAYMENT_OPTIONS.feeRateWeight().orElseThrow());
+    }
+
+    private int getPiecewiseLinearApproximations() {
+        return configurationService.getIntegerValue(PIECEWISE_LINEAR_APPROXIMATIONS)
+                .orElse(DEFAULT_PIECEWISE_LINEAR_APPROXIMATIONS);
+    }
+
+    private MinCostFlowEngineType getMinCostFlowEngineType() {
+        return configurationService.getStringValue(MIN_COST_FLOW_ENGINE)
+                .flatMap(MinCostFlowEngineType::fromConfigurationValue)
+                .orElse(DEFAULT_MIN_COST_FLOW_ENGINE);
+    }
+
     private int getQuantization(Coins amount) {
         int quantization = configurationService.getIntegerValue(QUANTIZATION)
                 .orElse(DEFAULT_QUANTIZATION);
         return (int) Math.min(amount.satoshis(), quantization);
     }
 
+    /**
+     * With adaptive quantization, large amounts are first solved with a quantization resulting in at most
+     * {@link #COARSE_QUANTIZATION_UNITS} units. The resulting flows define the corridor for the solve with the
+     * configured quantization.
+     */
+    private int getCoarseQuantization(Coins amount, int quantization) {
+        if (!configurationService.getBooleanValue(ADAPTIVE_QUANTIZATION).orElse(false)) {
+            return quantization;
+        }
+        long coarseQuantization = (amount.satoshis() + COARSE_QUANTIZATION_UNITS - 1) / COARSE_QUANTIZATION_UNITS;
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(quantization, coarseQuantization));
+    }
+
+    private record Problem(
+            Pubkey source,
+            Pubkey target,
+            Coins amount,
+            PaymentOptions paymentOptions,
+            int maximumTimeLockDeltaPerEdge
+    ) {
+    }
+
+    private record SessionKey(
+            Pubkey source,
+            Pubkey target,
+            PaymentOptions paymentOptions,
+            int maximumTimeLockDeltaPerEdge
+    ) {
+    }
 }
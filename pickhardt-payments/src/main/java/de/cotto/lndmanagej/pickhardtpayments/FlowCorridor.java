@@ -0,0 +1,62 @@
+package de.cotto.lndmanagej.pickhardtpayments;
+
+import de.cotto.lndmanagej.model.Edge;
+import de.cotto.lndmanagej.model.EdgeWithLiquidityInformation;
+import de.cotto.lndmanagej.model.Pubkey;
+import de.cotto.lndmanagej.pickhardtpayments.model.CompressedEdgeList;
+import de.cotto.lndmanagej.pickhardtpayments.model.CompressedGraph;
+import de.cotto.lndmanagej.pickhardtpayments.model.EdgesWithLiquidityInformation;
+import de.cotto.lndmanagej.pickhardtpayments.model.Flow;
+import de.cotto.lndmanagej.pickhardtpayments.model.Flows;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The nodes used by the flows of a (coarse) solution. Restricting the edges to this corridor keeps all edges between
+ * these nodes, including unused parallel channels and shortcuts, so that a finer solve can shift the flow between
+ * them.
+ */
+final class FlowCorridor {
+    private final Set<Pubkey> nodes = new HashSet<>();
+
+    FlowCorridor(Flows flows) {
+        for (Flow flow : flows.getAll()) {
+            nodes.add(flow.edge().startNode());
+            nodes.add(flow.edge().endNode());
+        }
+    }
+
+    public EdgesWithLiquidityInformation restrict(EdgesWithLiquidityInformation edgesWithLiquidityInformation) {
+        List<EdgeWithLiquidityInformation> edges = edgesWithLiquidityInformation.edges();
+        if (edges instanceof CompressedEdgeList compressedEdgeList) {
+            CompressedGraph graph = compressedEdgeList.getGraph();
+            boolean[] inCorridor = getNodesInCorridor(graph);
+            int numberOfGraphEdges = compressedEdgeList.getNumberOfGraphEdges();
+            return edgesWithLiquidityInformation.filter(index -> {
+                if (index >= numberOfGraphEdges) {
+                    return contains(edges.get(index).edge());
+                }
+                int graphEdge = compressedEdgeList.getGraphEdge(index);
+                return inCorridor[graph.sourceNode(graphEdge)] && inCorridor[graph.targetNode(graphEdge)];
+            });
+        }
+        return edgesWithLiquidityInformation.filter(index -> contains(edges.get(index).edge()));
+    }
+
+    private boolean[] getNodesInCorridor(CompressedGraph graph) {
+        boolean[] inCorridor = new boolean[graph.numberOfNodes()];
+        for (Pubkey node : nodes) {
+            int nodeIndex = graph.getNodeIndex(node);
+            if (nodeIndex != CompressedGraph.UNKNOWN) {
+                inCorridor[nodeIndex] = true;
+            }
+        }
+        return inCorridor;
+    }
+
+    private boolean contains(Edge edge) {
+        return nodes.contains(edge.startNode()) && nodes.contains(edge.endNode());
+    }
+}
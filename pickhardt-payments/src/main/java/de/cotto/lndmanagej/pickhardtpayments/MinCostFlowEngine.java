@@ -0,0 +1,17 @@
+package de.cotto.lndmanagej.pickhardtpayments;
+
+interface MinCostFlowEngine {
+    int addArcWithCapacityAndUnitCost(int tail, int head, long capacity, long unitCost);
+
+    void setNodeSupply(int node, long supply);
+
+    boolean solve();
+
+    int getNumArcs();
+
+    long getFlow(int arc);
+
+    long getCapacity(int arc);
+
+    long getUnitCost(int arc);
+}
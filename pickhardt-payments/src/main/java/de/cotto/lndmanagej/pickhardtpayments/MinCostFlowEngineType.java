@@ -0,0 +1,48 @@
+package de.cotto.lndmanagej.pickhardtpayments;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+
+enum MinCostFlowEngineType {
+    OR_TOOLS("or-tools"),
+    SUCCESSIVE_SHORTEST_PATH("successive-shortest-path");
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MinCostFlowEngineType.class);
+
+    private final String configurationValue;
+
+    MinCostFlowEngineType(String configurationValue) {
+        this.configurationValue = configurationValue;
+    }
+
+    public static Optional<MinCostFlowEngineType> fromConfigurationValue(String value) {
+        String normalizedValue = value.trim().toLowerCase(Locale.US);
+        return Arrays.stream(values())
+                .filter(type -> type.configurationValue.equals(normalizedValue))
+                .findFirst();
+    }
+
+    /**
+     * Returns true if the created engine keeps its solution between solves, so that a repeated solve with slightly
+     * changed arcs can continue from the previous flow (see {@link MinCostFlowSession}).
+     */
+    public boolean supportsWarmStart() {
+        return this == SUCCESSIVE_SHORTEST_PATH || !OrToolsMinCostFlowEngine.isAvailable();
+    }
+
+    public MinCostFlowEngine createEngine() {
+        if (this == SUCCESSIVE_SHORTEST_PATH) {
+            return new SuccessiveShortestPathMinCostFlowEngine();
+        }
+        if (OrToolsMinCostFlowEngine.isAvailable()) {
+            return new OrToolsMinCostFlowEngine();
+        }
+        LOGGER.warn("Unable to initialize OR library, see https://github.com/C-Otto/lnd-manageJ/issues/13. " +
+                "Using pure Java min cost flow solver instead.");
+        return new SuccessiveShortestPathMinCostFlowEngine();
+    }
+}
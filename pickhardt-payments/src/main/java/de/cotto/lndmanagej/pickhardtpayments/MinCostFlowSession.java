@@ -0,0 +1,179 @@
+package de.cotto.lndmanagej.pickhardtpayments;
+
+import de.cotto.lndmanagej.model.Coins;
+import de.cotto.lndmanagej.model.Edge;
+import de.cotto.lndmanagej.model.EdgeWithLiquidityInformation;
+import de.cotto.lndmanagej.model.Pubkey;
+import de.cotto.lndmanagej.pickhardtpayments.model.CompressedEdgeList;
+import de.cotto.lndmanagej.pickhardtpayments.model.CompressedGraph;
+import de.cotto.lndmanagej.pickhardtpayments.model.EdgesWithLiquidityInformation;
+import de.cotto.lndmanagej.pickhardtpayments.model.Flows;
+import de.cotto.lndmanagej.pickhardtpayments.model.IntegerMapping;
+import org.eclipse.collections.impl.map.mutable.primitive.IntObjectHashMap;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * Min cost flow problem for a single payment (from source to target) that is solved repeatedly, for example once per
+ * iteration of the {@link PaymentLoop}. Instead of creating all arcs for every solve, only the arcs of graph edges
+ * with changed liquidity bounds are replaced (the old arcs are disabled by setting their capacity to zero), and the
+ * {@link SuccessiveShortestPathMinCostFlowEngine} continues from the flow and node potentials of the previous solve.
+ * If the graph or any solver parameter changes, or if too many arcs were replaced, the problem is set up from scratch.
+ */
+@SuppressWarnings("PMD.TooManyFields")
+class MinCostFlowSession {
+    private static final int MAXIMUM_ARC_GROWTH_FACTOR = 2;
+
+    private final Pubkey source;
+    private final Pubkey target;
+    @Nullable
+    private Setup setup;
+    private SuccessiveShortestPathMinCostFlowEngine minCostFlowEngine = new SuccessiveShortestPathMinCostFlowEngine();
+    private IntegerMapping<Pubkey> integerMapping = new IntegerMapping<>();
+    private IntObjectHashMap<Edge> edgeMapping = new IntObjectHashMap<>();
+    @Nullable
+    private ArcInitializer arcInitializer;
+    private int[] firstArcOfGraphEdge = new int[0];
+    private int[] endArcOfGraphEdge = new int[0];
+    private long[] lowerBoundsMilliSat = new long[0];
+    private long[] upperBoundsMilliSat = new long[0];
+    private int[] lastUsedInSolve = new int[0];
+    private int numberOfSolves;
+    private int numberOfInitialArcs;
+
+    public MinCostFlowSession(Pubkey source, Pubkey target) {
+        this.source = source;
+        this.target = target;
+    }
+
+    public static boolean supports(EdgesWithLiquidityInformation edgesWithLiquidityInformation) {
+        return edgesWithLiquidityInformation.edges() instanceof CompressedEdgeList;
+    }
+
+    @SuppressWarnings("PMD.ExcessiveParameterList")
+    public synchronized Flows solve(
+            EdgesWithLiquidityInformation edgesWithLiquidityInformation,
+            Coins amount,
+            long quantization,
+            int piecewiseLinearApproximations,
+            int feeRateWeight,
+            Pubkey ownPubkey,
+            boolean ignoreFeesForOwnChannels
+    ) {
+        if (!supports(edgesWithLiquidityInformation)) {
+            throw new IllegalArgumentException("Edges need to be based on a compressed graph");
+        }
+        CompressedEdgeList edges = (CompressedEdgeList) edgesWithLiquidityInformation.edges();
+        Setup newSetup = new Setup(
+                edges.getGraph(),
+                edges.getAdditionalEdges(),
+                ArcInitializer.getMaximumCapacity(edgesWithLiquidityInformation),
+                quantization,
+                piecewiseLinearApproximations,
+                feeRateWeight,
+                ownPubkey,
+                ignoreFeesForOwnChannels
+        );
+        if (!newSetup.equals(setup) || tooManyReplacedArcs()) {
+            initialize(newSetup);
+        }
+        updateArcsForGraphEdges(newSetup, edges);
+        long supply = amount.satoshis() / quantization;
+        minCostFlowEngine.setNodeSupply(integerMapping.getMappedInteger(source), supply);
+        minCostFlowEngine.setNodeSupply(integerMapping.getMappedInteger(target), -supply);
+        if (!minCostFlowEngine.solve()) {
+            return new Flows();
+        }
+        return MinCostFlowSolver.getFlows(minCostFlowEngine, edgeMapping, quantization);
+    }
+
+    private void initialize(Setup newSetup) {
+        setup = newSetup;
+        minCostFlowEngine = new SuccessiveShortestPathMinCostFlowEngine();
+        integerMapping = new IntegerMapping<>();
+        edgeMapping = new IntObjectHashMap<>();
+        arcInitializer = new ArcInitializer(
+                minCostFlowEngine,
+                integerMapping,
+                edgeMapping,
+                newSetup.quantization(),
+                newSetup.piecewiseLinearApproximations(),
+                newSetup.feeRateWeight(),
+                newSetup.ownPubkey(),
+                newSetup.ignoreFeesForOwnChannels()
+        );
+        int numberOfGraphEdges = newSetup.graph().numberOfEdges();
+        firstArcOfGraphEdge = new int[numberOfGraphEdges];
+        endArcOfGraphEdge = new int[numberOfGraphEdges];
+        lowerBoundsMilliSat = new long[numberOfGraphEdges];
+        upperBoundsMilliSat = new long[numberOfGraphEdges];
+        lastUsedInSolve = new int[numberOfGraphEdges];
+        numberOfSolves = 0;
+        for (EdgeWithLiquidityInformation additionalEdge : newSetup.additionalEdges()) {
+            arcInitializer.addArcs(additionalEdge, newSetup.maximumCapacity());
+        }
+    }
+
+    private void updateArcsForGraphEdges(Setup currentSetup, CompressedEdgeList edges) {
+        int previousSolve = numberOfSolves++;
+        for (int index = 0; index < edges.getNumberOfGraphEdges(); index++) {
+            int graphEdge = edges.getGraphEdge(index);
+            long lowerBound = edges.getLowerBoundMilliSat(index);
+            long upperBound = edges.getUpperBoundMilliSat(index);
+            boolean hasArcs = previousSolve > 0 && lastUsedInSolve[graphEdge] == previousSolve;
+            lastUsedInSolve[graphEdge] = numberOfSolves;
+            if (hasArcs
+                    && lowerBoundsMilliSat[graphEdge] == lowerBound
+                    && upperBoundsMilliSat[graphEdge] == upperBound) {
+                continue;
+            }
+            if (hasArcs) {
+                disableArcs(graphEdge);
+            }
+            lowerBoundsMilliSat[graphEdge] = lowerBound;
+            upperBoundsMilliSat[graphEdge] = upperBound;
+            firstArcOfGraphEdge[graphEdge] = minCostFlowEngine.getNumArcs();
+            getArcInitializer().addArcs(edges.get(index), currentSetup.maximumCapacity());
+            endArcOfGraphEdge[graphEdge] = minCostFlowEngine.getNumArcs();
+        }
+        if (previousSolve == 0) {
+            numberOfInitialArcs = minCostFlowEngine.getNumArcs();
+            return;
+        }
+        for (int graphEdge = 0; graphEdge < lastUsedInSolve.length; graphEdge++) {
+            if (lastUsedInSolve[graphEdge] == previousSolve) {
+                disableArcs(graphEdge);
+            }
+        }
+    }
+
+    private boolean tooManyReplacedArcs() {
+        return minCostFlowEngine.getNumArcs() > MAXIMUM_ARC_GROWTH_FACTOR * numberOfInitialArcs;
+    }
+
+    private void disableArcs(int graphEdge) {
+        for (int arc = firstArcOfGraphEdge[graphEdge]; arc < endArcOfGraphEdge[graphEdge]; arc++) {
+            minCostFlowEngine.setArcCapacity(arc, 0);
+        }
+    }
+
+    private ArcInitializer getArcInitializer() {
+        if (arcInitializer == null) {
+            throw new IllegalStateException("Session is not initialized");
+        }
+        return arcInitializer;
+    }
+
+    private record Setup(
+            CompressedGraph graph,
+            List<EdgeWithLiquidityInformation> additionalEdges,
+            Coins maximumCapacity,
+            long quantization,
+            int piecewiseLinearApproximations,
+            int feeRateWeight,
+            Pubkey ownPubkey,
+            boolean ignoreFeesForOwnChannels
+    ) {
+    }
+}
@@ -1,8 +1,5 @@
 package de.cotto.lndmanagej.pickhardtpayments;
 
-import com.google.ortools.Loader;
-import com.google.ortools.graph.MinCostFlow;
-import com.google.ortools.graph.MinCostFlowBase;
 import de.cotto.lndmanagej.model.Coins;
 import de.cotto.lndmanagej.model.Edge;
 import de.cotto.lndmanagej.model.Pubkey;
@@ -14,35 +11,19 @@ import org.eclipse.collections.impl.map.mutable.primitive.IntObjectHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.annotation.Nullable;
 import java.util.Map;
 import java.util.Objects;
 
-import static com.google.ortools.graph.MinCostFlowBase.Status.OPTIMAL;
-
-@SuppressWarnings({"PMD.AvoidCatchingNPE", "PMD.AvoidCatchingGenericException"})
 class MinCostFlowSolver {
-    private final Logger logger = LoggerFactory.getLogger(getClass());
-    @Nullable
-    private final MinCostFlow minCostFlow;
+    private static final Logger LOGGER = LoggerFactory.getLogger(MinCostFlowSolver.class);
+    private final MinCostFlowEngine minCostFlowEngine;
     private final IntegerMapping<Pubkey> integerMapping = new IntegerMapping<>();
     private final IntObjectHashMap<Edge> edgeMapping;
-    private static final boolean UNABLE_TO_LOAD_LIBRARY;
 
     private final long quantization;
 
-    static {
-        boolean loaded;
-        try {
-            Loader.loadNativeLibraries();
-            loaded = true;
-        } catch (NullPointerException nullPointerException) {
-            loaded = false;
-        }
-        UNABLE_TO_LOAD_LIBRARY = !loaded;
-    }
-
     public MinCostFlowSolver(
+            MinCostFlowEngine minCostFlowEngine,
             EdgesWithLiquidityInformation edgesWithLiquidityInformation,
             Map<Pubkey, Coins> sources,
             Map<Pubkey, Coins> sinks,
@@ -52,17 +33,12 @@ class MinCostFlowSolver {
             Pubkey ownPubkey,
             boolean ignoreFeesForOwnChannels
     ) {
+        this.minCostFlowEngine = minCostFlowEngine;
         this.quantization = quantization;
         int initialMapCapacity = edgesWithLiquidityInformation.edges().size() * (piecewiseLinearApproximations - 1);
         edgeMapping = new IntObjectHashMap<>(initialMapCapacity);
-        if (UNABLE_TO_LOAD_LIBRARY) {
-            logger.error("Unable to initialize OR library, see https://github.com/C-Otto/lnd-manageJ/issues/13");
-            minCostFlow = null;
-            return;
-        }
-        minCostFlow = new MinCostFlow();
         ArcInitializer arcInitializer = new ArcInitializer(
-                minCostFlow,
+                minCostFlowEngine,
                 integerMapping,
                 edgeMapping,
                 quantization,
@@ -76,17 +52,16 @@ class MinCostFlowSolver {
     }
 
     public Flows solve() {
-        if (minCostFlow == null) {
-            return new Flows();
-        }
-        MinCostFlowBase.Status status = minCostFlow.solve();
-        if (status != OPTIMAL) {
-            logger.warn("Solving the min cost flow problem failed. Solver status: {}", status);
+        if (!minCostFlowEngine.solve()) {
             return new Flows();
         }
+        return getFlows(minCostFlowEngine, edgeMapping, quantization);
+    }
+
+    static Flows getFlows(MinCostFlowEngine minCostFlowEngine, IntObjectHashMap<Edge> edgeMapping, long quantization) {
         Flows flows = new Flows();
-        for (int i = 0; i < minCostFlow.getNumArcs(); i++) {
-            long flowAmount = minCostFlow.getFlow(i);
+        for (int i = 0; i < minCostFlowEngine.getNumArcs(); i++) {
+            long flowAmount = minCostFlowEngine.getFlow(i);
             if (flowAmount == 0) {
                 continue;
             }
@@ -95,7 +70,7 @@ class MinCostFlowSolver {
             flows.add(flow);
         }
         if (flows.isEmpty()) {
-            logger.warn("Solver returned result with no flows: {}", flows);
+            LOGGER.warn("Solver returned result with no flows: {}", flows);
         }
         return flows;
     }
@@ -111,12 +86,12 @@ class MinCostFlowSolver {
         for (Map.Entry<Pubkey, Coins> entry : sources.entrySet()) {
             Pubkey node = entry.getKey();
             long supply = entry.getValue().satoshis() / quantization;
-            Objects.requireNonNull(minCostFlow).setNodeSupply(integerMapping.getMappedInteger(node), supply);
+            minCostFlowEngine.setNodeSupply(integerMapping.getMappedInteger(node), supply);
         }
         for (Map.Entry<Pubkey, Coins> entry : sinks.entrySet()) {
             Pubkey node = entry.getKey();
             long supply = -entry.getValue().satoshis() / quantization;
-            Objects.requireNonNull(minCostFlow).setNodeSupply(integerMapping.getMappedInteger(node), supply);
+            minCostFlowEngine.setNodeSupply(integerMapping.getMappedInteger(node), supply);
         }
     }
 }
@@ -2,6 +2,7 @@ package de.cotto.lndmanagej.pickhardtpayments;
 
 import de.cotto.lndmanagej.grpc.GrpcPayments;
 import de.cotto.lndmanagej.model.DecodedPaymentRequest;
+import de.cotto.lndmanagej.pickhardtpayments.model.MultiPathPayment;
 import de.cotto.lndmanagej.pickhardtpayments.model.PaymentOptions;
 import de.cotto.lndmanagej.pickhardtpayments.model.PaymentStatus;
 import de.cotto.lndmanagej.service.RouteHintService;
@@ -34,12 +35,30 @@ public class MultiPathPaymentSender {
     public PaymentStatus payPaymentRequest(
             DecodedPaymentRequest decodedPaymentRequest,
             PaymentOptions paymentOptions
+    ) {
+        PaymentStatus paymentStatus = createPaymentStatus(decodedPaymentRequest, paymentOptions);
+        paymentLoop.start(decodedPaymentRequest, paymentOptions, paymentStatus);
+        return paymentStatus;
+    }
+
+    public PaymentStatus payPaymentRequest(
+            DecodedPaymentRequest decodedPaymentRequest,
+            PaymentOptions paymentOptions,
+            MultiPathPayment precomputedMultiPathPayment
+    ) {
+        PaymentStatus paymentStatus = createPaymentStatus(decodedPaymentRequest, paymentOptions);
+        paymentLoop.start(decodedPaymentRequest, paymentOptions, paymentStatus, precomputedMultiPathPayment);
+        return paymentStatus;
+    }
+
+    private PaymentStatus createPaymentStatus(
+            DecodedPaymentRequest decodedPaymentRequest,
+            PaymentOptions paymentOptions
     ) {
         routeHintService.addDecodedPaymentRequest(decodedPaymentRequest);
 
         PaymentStatus paymentStatus = new PaymentStatus(decodedPaymentRequest.paymentHash());
         paymentStatus.info("Payment Options: " + paymentOptions);
-        paymentLoop.start(decodedPaymentRequest, paymentOptions, paymentStatus);
         return paymentStatus;
     }
 }
@@ -16,6 +16,7 @@ import de.cotto.lndmanagej.pickhardtpayments.model.BasicRoutes;
 import de.cotto.lndmanagej.pickhardtpayments.model.Flows;
 import de.cotto.lndmanagej.pickhardtpayments.model.MultiPathPayment;
 import de.cotto.lndmanagej.pickhardtpayments.model.PaymentOptions;
+import de.cotto.lndmanagej.pickhardtpayments.model.PaymentViaPeer;
 import de.cotto.lndmanagej.pickhardtpayments.model.Routes;
 import de.cotto.lndmanagej.service.ChannelService;
 import de.cotto.lndmanagej.service.PolicyService;
@@ -24,8 +25,14 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static de.cotto.lndmanagej.configuration.PickhardtPaymentsConfigurationSettings.MAX_CLTV_EXPIRY;
@@ -41,6 +48,7 @@ public class MultiPathPaymentSplitter {
     private final ConfigurationService configurationService;
     private final Logger logger = LoggerFactory.getLogger(getClass());
     private final CltvService cltvService;
+    private final RouteCandidateCache routeCandidateCache;
 
     public MultiPathPaymentSplitter(
             GrpcGetInfo grpcGetInfo,
@@ -49,7 +57,8 @@ public class MultiPathPaymentSplitter {
             ChannelService channelService,
             PolicyService policyService,
             ConfigurationService configurationService,
-            CltvService cltvService
+            CltvService cltvService,
+            RouteCandidateCache routeCandidateCache
     ) {
         this.flowComputation = flowComputation;
         this.grpcGetInfo = grpcGetInfo;
@@ -58,6 +67,7 @@ public class MultiPathPaymentSplitter {
         this.policyService = policyService;
         this.configurationService = configurationService;
         this.cltvService = cltvService;
+        this.routeCandidateCache = routeCandidateCache;
     }
 
     public MultiPathPayment getMultiPathPaymentTo(
@@ -84,17 +94,95 @@ public class MultiPathPaymentSplitter {
                 paymentOptions.peer(),
                 target
         );
-        Flows flows = flowComputation.getOptimalFlows(
-                source,
-                intermediateTarget,
-                amount,
-                paymentOptions,
+        List<BasicRoute> basicRoutes =
+                getBasicRoutes(source, intermediateTarget, amount, paymentOptions, maximumDeltaForEdges);
+        if (basicRoutes.isEmpty()) {
+            return MultiPathPayment.FAILURE;
+        }
+        return getMultiPathPayment(basicRoutes, target, amount, paymentOptions, finalCltvDelta);
+    }
+
+    /**
+     * Computes multi path payments for several payments from our own node back to our own node via different peers,
+     * using a single flow computation. The flow computation uses the highest fee rate limits of all payments, the
+     * resulting routes are checked against the limits of the individual payment.
+     *
+     * @return the multi path payment for each peer, which is a failure if no suitable routes were found for the peer
+     */
+    public Map<Pubkey, MultiPathPayment> getMultiPathPaymentsViaPeers(
+            Collection<PaymentViaPeer> payments,
+            int finalCltvDelta
+    ) {
+        Map<Pubkey, MultiPathPayment> result = new LinkedHashMap<>();
+        if (payments.isEmpty()) {
+            return result;
+        }
+        Pubkey ownPubkey = grpcGetInfo.getPubkey();
+        int maximumDeltaForEdges = payments.stream()
+                .mapToInt(payment -> cltvService.getMaximumDeltaForEdges(
+                        getMaximumCltvExpiry(),
+                        finalCltvDelta,
+                        Optional.of(payment.peer()),
+                        ownPubkey
+                ))
+                .min()
+                .orElseThrow();
+        Map<Pubkey, Coins> amounts = new LinkedHashMap<>();
+        payments.forEach(payment -> amounts.put(payment.peer(), payment.amount()));
+        Flows flows = flowComputation.getOptimalFlowsViaPeers(
+                ownPubkey,
+                amounts,
+                getCombinedPaymentOptions(payments),
                 maximumDeltaForEdges
         );
+        Map<Pubkey, List<BasicRoute>> basicRoutes = BasicRoutes.fromFlows(ownPubkey, amounts.keySet(), flows);
+        for (PaymentViaPeer payment : payments) {
+            List<BasicRoute> basicRoutesForPeer = basicRoutes.getOrDefault(payment.peer(), List.of());
+            if (basicRoutesForPeer.isEmpty()) {
+                result.put(payment.peer(), MultiPathPayment.FAILURE);
+                continue;
+            }
+            MultiPathPayment multiPathPayment = getMultiPathPayment(
+                    basicRoutesForPeer,
+                    ownPubkey,
+                    payment.amount(),
+                    payment.paymentOptions(),
+                    finalCltvDelta
+            );
+            result.put(payment.peer(), multiPathPayment);
+        }
+        return result;
+    }
+
+    private List<BasicRoute> getBasicRoutes(
+            Pubkey source,
+            Pubkey target,
+            Coins amount,
+            PaymentOptions paymentOptions,
+            int maximumDeltaForEdges
+    ) {
+        if (paymentOptions.peer().isPresent()) {
+            List<BasicRoute> precomputed = routeCandidateCache
+                    .getBasicRoutes(source, target, amount, paymentOptions, maximumDeltaForEdges)
+                    .orElse(null);
+            if (precomputed != null) {
+                return precomputed;
+            }
+        }
+        Flows flows = flowComputation.getOptimalFlows(source, target, amount, paymentOptions, maximumDeltaForEdges);
         if (flows.isEmpty()) {
-            return MultiPathPayment.FAILURE;
+            return List.of();
         }
-        List<BasicRoute> basicRoutes = BasicRoutes.fromFlows(source, intermediateTarget, flows);
+        return BasicRoutes.fromFlows(source, target, flows);
+    }
+
+    private MultiPathPayment getMultiPathPayment(
+            List<BasicRoute> basicRoutes,
+            Pubkey target,
+            Coins amount,
+            PaymentOptions paymentOptions,
+            int finalCltvDelta
+    ) {
         List<BasicRoute> extendedBasicRoutes = extendBasicRoutes(basicRoutes, paymentOptions, target);
         if (extendedBasicRoutes.isEmpty()) {
             return MultiPathPayment.failure("Unable to extend channel back to own node");
@@ -111,6 +199,27 @@ public class MultiPathPaymentSplitter {
         return new MultiPathPayment(fixedRoutes);
     }
 
+    private static PaymentOptions getCombinedPaymentOptions(Collection<PaymentViaPeer> payments) {
+        List<PaymentOptions> paymentOptions = payments.stream().map(PaymentViaPeer::paymentOptions).toList();
+        return new PaymentOptions(
+                getMaximum(paymentOptions, PaymentOptions::feeRateWeight),
+                getMaximum(paymentOptions, PaymentOptions::feeRateLimit),
+                getMaximum(paymentOptions, PaymentOptions::feeRateLimitExceptIncomingHops),
+                paymentOptions.stream().allMatch(PaymentOptions::ignoreFeesForOwnChannels),
+                Optional.empty()
+        );
+    }
+
+    private static <T extends Comparable<T>> Optional<T> getMaximum(
+            List<PaymentOptions> paymentOptions,
+            Function<PaymentOptions, Optional<T>> getter
+    ) {
+        if (paymentOptions.stream().map(getter).anyMatch(Optional::isEmpty)) {
+            return Optional.empty();
+        }
+        return paymentOptions.stream().map(getter).flatMap(Optional::stream).max(Comparator.naturalOrder());
+    }
+
     private List<BasicRoute> extendBasicRoutes(
             List<BasicRoute> basicRoutes,
             PaymentOptions paymentOptions,
@@ -0,0 +1,79 @@
+package de.cotto.lndmanagej.pickhardtpayments;
+
+import com.google.ortools.Loader;
+import com.google.ortools.graph.MinCostFlow;
+import com.google.ortools.graph.MinCostFlowBase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.google.ortools.graph.MinCostFlowBase.Status.OPTIMAL;
+
+@SuppressWarnings({"PMD.AvoidCatchingNPE", "PMD.AvoidCatchingGenericException"})
+class OrToolsMinCostFlowEngine implements MinCostFlowEngine {
+    private static final boolean UNABLE_TO_LOAD_LIBRARY;
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final MinCostFlow minCostFlow;
+
+    static {
+        boolean loaded;
+        try {
+            Loader.loadNativeLibraries();
+            loaded = true;
+        } catch (NullPointerException | UnsatisfiedLinkError exception) {
+            loaded = false;
+        }
+        UNABLE_TO_LOAD_LIBRARY = !loaded;
+    }
+
+    public OrToolsMinCostFlowEngine() {
+        if (UNABLE_TO_LOAD_LIBRARY) {
+            throw new IllegalStateException("Unable to load OR-Tools native library");
+        }
+        minCostFlow = new MinCostFlow();
+    }
+
+    public static boolean isAvailable() {
+        return !UNABLE_TO_LOAD_LIBRARY;
+    }
+
+    @Override
+    public int addArcWithCapacityAndUnitCost(int tail, int head, long capacity, long unitCost) {
+        return minCostFlow.addArcWithCapacityAndUnitCost(tail, head, capacity, unitCost);
+    }
+
+    @Override
+    public void setNodeSupply(int node, long supply) {
+        minCostFlow.setNodeSupply(node, supply);
+    }
+
+    @Override
+    public boolean solve() {
+        MinCostFlowBase.Status status = minCostFlow.solve();
+        if (status != OPTIMAL) {
+            logger.warn("Solving the min cost flow problem failed. Solver status: {}", status);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int getNumArcs() {
+        return minCostFlow.getNumArcs();
+    }
+
+    @Override
+    public long getFlow(int arc) {
+        return minCostFlow.getFlow(arc);
+    }
+
+    @Override
+    public long getCapacity(int arc) {
+        return minCostFlow.getCapacity(arc);
+    }
+
+    @Override
+    public long getUnitCost(int arc) {
+        return minCostFlow.getUnitCost(arc);
+    }
+}
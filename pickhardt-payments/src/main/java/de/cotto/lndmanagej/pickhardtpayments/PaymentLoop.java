@@ -62,7 +62,21 @@ public class PaymentLoop {
             PaymentOptions paymentOptions,
             PaymentStatus paymentStatus
     ) {
-        new Instance(decodedPaymentRequest, paymentOptions, paymentStatus).start();
+        start(decodedPaymentRequest, paymentOptions, paymentStatus, MultiPathPayment.FAILURE);
+    }
+
+    /**
+     * Starts the payment loop, using the given multi path payment (if it is not a failure and covers the full amount)
+     * instead of computing one in the first iteration.
+     */
+    @Async
+    public void start(
+            DecodedPaymentRequest decodedPaymentRequest,
+            PaymentOptions paymentOptions,
+            PaymentStatus paymentStatus,
+            MultiPathPayment precomputedMultiPathPayment
+    ) {
+        new Instance(decodedPaymentRequest, paymentOptions, paymentStatus, precomputedMultiPathPayment).start();
         Pubkey ownPubkey = grpcGetInfo.getPubkey();
         if (paymentStatus.isFailure() && decodedPaymentRequest.destination().equals(ownPubkey)) {
             grpcInvoices.cancelPaymentRequest(decodedPaymentRequest);
@@ -81,15 +95,18 @@ public class PaymentLoop {
         private final Coins totalAmountToSend;
         private final int finalCltvDelta;
         private Coins inFlight = Coins.NONE;
+        private MultiPathPayment precomputedMultiPathPayment;
 
         public Instance(
                 DecodedPaymentRequest decodedPaymentRequest,
                 PaymentOptions paymentOptions,
-                PaymentStatus paymentStatus
+                PaymentStatus paymentStatus,
+                MultiPathPayment precomputedMultiPathPayment
         ) {
             this.decodedPaymentRequest = decodedPaymentRequest;
             this.paymentOptions = paymentOptions;
             this.paymentStatus = paymentStatus;
+            this.precomputedMultiPathPayment = precomputedMultiPathPayment;
             paymentHash = decodedPaymentRequest.paymentHash();
             destination = decodedPaymentRequest.destination();
             totalAmountToSend = decodedPaymentRequest.amount();
@@ -107,12 +124,7 @@ public class PaymentLoop {
                     return;
                 }
                 addLoopIterationInfo(loopIterationCounter, residualAmount);
-                MultiPathPayment multiPathPayment = multiPathPaymentSplitter.getMultiPathPaymentTo(
-                        destination,
-                        residualAmount,
-                        paymentOptions,
-                        finalCltvDelta
-                );
+                MultiPathPayment multiPathPayment = getMultiPathPayment(residualAmount);
                 if (multiPathPayment.isFailure()) {
                     failureCounter++;
                     logFailureInformation(residualAmount, multiPathPayment);
@@ -134,6 +146,20 @@ public class PaymentLoop {
             }
         }
 
+        private MultiPathPayment getMultiPathPayment(Coins residualAmount) {
+            MultiPathPayment precomputed = precomputedMultiPathPayment;
+            precomputedMultiPathPayment = MultiPathPayment.FAILURE;
+            if (!precomputed.isFailure() && precomputed.amount().equals(residualAmount)) {
+                return precomputed;
+            }
+            return multiPathPaymentSplitter.getMultiPathPaymentTo(
+                    destination,
+                    residualAmount,
+                    paymentOptions,
+                    finalCltvDelta
+            );
+        }
+
         private void logFailureInformation(Coins residualAmount, MultiPathPayment multiPathPayment) {
             String information = multiPathPayment.information();
             if (Strings.isNotEmpty(information)) {
@@ -0,0 +1,226 @@
+package de.cotto.lndmanagej.pickhardtpayments;
+
+import de.cotto.lndmanagej.configuration.ConfigurationService;
+import de.cotto.lndmanagej.grpc.GraphSnapshot;
+import de.cotto.lndmanagej.grpc.GrpcGraph;
+import de.cotto.lndmanagej.model.BasicRoute;
+import de.cotto.lndmanagej.model.Coins;
+import de.cotto.lndmanagej.model.DirectedChannelEdge;
+import de.cotto.lndmanagej.model.Edge;
+import de.cotto.lndmanagej.model.EdgeWithLiquidityInformation;
+import de.cotto.lndmanagej.model.Pubkey;
+import de.cotto.lndmanagej.pickhardtpayments.model.BasicRoutes;
+import de.cotto.lndmanagej.pickhardtpayments.model.Flows;
+import de.cotto.lndmanagej.pickhardtpayments.model.PaymentOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static de.cotto.lndmanagej.configuration.TopUpConfigurationSettings.PRECOMPUTE_ROUTES;
+
+/**
+ * Keeps precomputed routes for payments that are requested repeatedly (for example top-ups for the same peers).
+ * <p>
+ * Amounts are rounded up to buckets, so that similar amounts share the same candidate. A request for an unknown
+ * bucket is remembered, the routes for it are then computed in the background. The routes of a candidate are scaled
+ * down to the requested amount. A candidate is only used if all of its edges are still part of the channel graph and
+ * the liquidity information for its edges did not change since the candidate was computed. The edges only need to be
+ * looked up in the channel graph if the version of the graph snapshot changed.
+ */
+@Component
+public class RouteCandidateCache {
+    private static final int AMOUNT_BUCKET_SIGNIFICANT_BITS = 3;
+    private static final Duration MAXIMUM_CANDIDATE_AGE = Duration.ofMinutes(10);
+    private static final Duration MAXIMUM_REQUEST_AGE = Duration.ofHours(1);
+    private static final int REFRESH_SECONDS = 30;
+    private static final long UNKNOWN_GRAPH_VERSION = -1;
+
+    private final FlowComputation flowComputation;
+    private final EdgeComputation edgeComputation;
+    private final GrpcGraph grpcGraph;
+    private final ConfigurationService configurationService;
+    private final Map<CandidateKey, Instant> lastRequests = new ConcurrentHashMap<>();
+    private final Map<CandidateKey, Candidate> candidates = new ConcurrentHashMap<>();
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    public RouteCandidateCache(
+            FlowComputation flowComputation,
+            EdgeComputation edgeComputation,
+            GrpcGraph grpcGraph,
+            ConfigurationService configurationService
+    ) {
+        this.flowComputation = flowComputation;
+        this.edgeComputation = edgeComputation;
+        this.grpcGraph = grpcGraph;
+        this.configurationService = configurationService;
+    }
+
+    /**
+     * Returns the precomputed routes for the given payment, if a valid candidate exists. Otherwise, the request is
+     * remembered so that a candidate is computed in the background.
+     *
+     * @return the routes with a total amount of (about) the given amount, or an empty optional
+     */
+    public Optional<List<BasicRoute>> getBasicRoutes(
+            Pubkey source,
+            Pubkey target,
+            Coins amount,
+            PaymentOptions paymentOptions,
+            int maximumTimeLockDeltaPerEdge
+    ) {
+        if (isDisabled()) {
+            return Optional.empty();
+        }
+        CandidateKey key = new CandidateKey(
+                source,
+                target,
+                getAmountBucket(amount),
+                paymentOptions,
+                maximumTimeLockDeltaPerEdge
+        );
+        lastRequests.put(key, Instant.now());
+        Candidate candidate = candidates.get(key);
+        if (candidate == null || !isValid(candidate)) {
+            return Optional.empty();
+        }
+        return Optional.of(candidate.getBasicRoutes(amount));
+    }
+
+    @Scheduled(fixedDelay = REFRESH_SECONDS, timeUnit = TimeUnit.SECONDS)
+    public void refresh() {
+        if (isDisabled()) {
+            lastRequests.clear();
+            candidates.clear();
+            return;
+        }
+        Instant oldestRequest = Instant.now().minus(MAXIMUM_REQUEST_AGE);
+        lastRequests.values().removeIf(lastRequest -> lastRequest.isBefore(oldestRequest));
+        candidates.keySet().retainAll(lastRequests.keySet());
+        for (CandidateKey key : Set.copyOf(lastRequests.keySet())) {
+            Candidate candidate = candidates.get(key);
+            if (candidate != null && isValid(candidate)) {
+                continue;
+            }
+            candidates.remove(key);
+            computeCandidate(key).ifPresent(newCandidate -> candidates.put(key, newCandidate));
+        }
+    }
+
+    /**
+     * Rounds up the amount (in satoshis) so that only the three most significant bits may be set, i.e. the bucket is
+     * at most 25% larger than the amount.
+     */
+    static Coins getAmountBucket(Coins amount) {
+        long satoshis = Math.max(1, (amount.milliSatoshis() + 999) / 1_000);
+        int shift = Math.max(0, Long.SIZE - Long.numberOfLeadingZeros(satoshis) - AMOUNT_BUCKET_SIGNIFICANT_BITS);
+        long step = 1L << shift;
+        return Coins.ofSatoshis((satoshis + step - 1) / step * step);
+    }
+
+    private Optional<Candidate> computeCandidate(CandidateKey key) {
+        long graphVersion = grpcGraph.getSnapshot().map(GraphSnapshot::version).orElse(UNKNOWN_GRAPH_VERSION);
+        Flows flows = flowComputation.getOptimalFlows(
+                key.source(),
+                key.target(),
+                key.amount(),
+                key.paymentOptions(),
+                key.maximumTimeLockDeltaPerEdge()
+        );
+        if (flows.isEmpty()) {
+            logger.debug("Unable to compute route candidates for {}", key);
+            return Optional.empty();
+        }
+        List<BasicRoute> basicRoutes = BasicRoutes.fromFlows(key.source(), key.target(), flows);
+        Map<Edge, EdgeWithLiquidityInformation> liquidity = new LinkedHashMap<>();
+        for (BasicRoute basicRoute : basicRoutes) {
+            for (Edge edge : basicRoute.edges()) {
+                liquidity.computeIfAbsent(edge, edgeComputation::getEdgeWithLiquidityInformation);
+            }
+        }
+        return Optional.of(new Candidate(basicRoutes, key.amount(), liquidity, graphVersion, Instant.now()));
+    }
+
+    private boolean isValid(Candidate candidate) {
+        if (candidate.created().isBefore(Instant.now().minus(MAXIMUM_CANDIDATE_AGE))) {
+            return false;
+        }
+        GraphSnapshot snapshot = grpcGraph.getSnapshot().orElse(null);
+        if (snapshot == null) {
+            return false;
+        }
+        boolean graphChanged = snapshot.version() != candidate.graphVersion();
+        Set<DirectedChannelEdge> channelEdges = snapshot.channelEdges();
+        for (Map.Entry<Edge, EdgeWithLiquidityInformation> entry : candidate.liquidity().entrySet()) {
+            Edge edge = entry.getKey();
+            if (graphChanged && !channelEdges.contains(toChannelEdge(edge))) {
+                return false;
+            }
+            if (!entry.getValue().equals(edgeComputation.getEdgeWithLiquidityInformation(edge))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static DirectedChannelEdge toChannelEdge(Edge edge) {
+        return new DirectedChannelEdge(
+                edge.channelId(),
+                edge.capacity(),
+                edge.startNode(),
+                edge.endNode(),
+                edge.policy()
+        );
+    }
+
+    private boolean isDisabled() {
+        return !configurationService.getBooleanValue(PRECOMPUTE_ROUTES).orElse(false);
+    }
+
+    private record CandidateKey(
+            Pubkey source,
+            Pubkey target,
+            Coins amount,
+            PaymentOptions paymentOptions,
+            int maximumTimeLockDeltaPerEdge
+    ) {
+    }
+
+    private record Candidate(
+            List<BasicRoute> basicRoutes,
+            Coins amount,
+            Map<Edge, EdgeWithLiquidityInformation> liquidity,
+            long graphVersion,
+            Instant created
+    ) {
+        /**
+         * Scales the amount of each route to the given (lower) amount. Remaining rounding differences need to be
+         * fixed by the caller, see {@link de.cotto.lndmanagej.pickhardtpayments.model.Routes}.
+         */
+        public List<BasicRoute> getBasicRoutes(Coins requestedAmount) {
+            if (requestedAmount.equals(amount)) {
+                return basicRoutes;
+            }
+            double factor = (double) requestedAmount.milliSatoshis() / amount.milliSatoshis();
+            List<BasicRoute> result = new ArrayList<>();
+            for (BasicRoute basicRoute : basicRoutes) {
+                long milliSatoshis = (long) (basicRoute.amount().milliSatoshis() * factor);
+                if (milliSatoshis > 0) {
+                    result.add(new BasicRoute(basicRoute.edges(), Coins.ofMilliSatoshis(milliSatoshis)));
+                }
+            }
+            return result;
+        }
+    }
+}
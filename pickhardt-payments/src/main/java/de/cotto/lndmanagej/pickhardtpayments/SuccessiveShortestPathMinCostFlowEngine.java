@@ -0,0 +1,279 @@
+package de.cotto.lndmanagej.pickhardtpayments;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+
+/**
+ * Pure Java min cost flow solver based on successive shortest paths.
+ * Shortest paths are computed using Dijkstra's algorithm (with a binary heap) on the reduced costs given by node
+ * potentials, which requires all unit costs to be non-negative. The residual graph is stored in primitive arrays,
+ * where arc {@code 2i} is the i-th added arc and arc {@code 2i + 1} is the corresponding reverse arc.
+ * <p>
+ * The flow and the node potentials of the previous solve are kept, so that after changing supplies, arc capacities
+ * or adding arcs the next solve continues from the previous solution (warm start). Before solving, flows exceeding
+ * the (possibly reduced) capacity are clipped and arcs violating the optimality condition for the kept potentials are
+ * saturated or emptied. The resulting excess is then routed as usual. Without a previous solve this is identical to
+ * starting with zero flow.
+ */
+@SuppressWarnings("PMD.TooManyFields")
+class SuccessiveShortestPathMinCostFlowEngine implements MinCostFlowEngine {
+    private static final int INITIAL_NODE_CAPACITY = 1_024;
+    private static final int INITIAL_ARC_CAPACITY = 4_096;
+    private static final int NONE = -1;
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private int numberOfNodes;
+    private int numberOfArcs;
+    private int[] firstArc = new int[INITIAL_NODE_CAPACITY];
+    private long[] supply = new long[INITIAL_NODE_CAPACITY];
+    private long[] capacity = new long[INITIAL_ARC_CAPACITY];
+    private int[] head = new int[2 * INITIAL_ARC_CAPACITY];
+    private int[] next = new int[2 * INITIAL_ARC_CAPACITY];
+    private long[] cost = new long[2 * INITIAL_ARC_CAPACITY];
+    private long[] residualCapacity = new long[2 * INITIAL_ARC_CAPACITY];
+
+    private long[] excess = new long[0];
+    private long[] potential = new long[0];
+    private long[] distance = new long[0];
+    private int[] predecessorArc = new int[0];
+    private int[] reachedInRound = new int[0];
+    private int[] settledInRound = new int[0];
+    private int[] settledNodes = new int[0];
+    private int numberOfSettledNodes;
+    private int round;
+    private final BinaryHeap heap = new BinaryHeap(INITIAL_NODE_CAPACITY);
+
+    public SuccessiveShortestPathMinCostFlowEngine() {
+        Arrays.fill(firstArc, NONE);
+    }
+
+    @Override
+    public int addArcWithCapacityAndUnitCost(int tail, int head, long capacity, long unitCost) {
+        if (unitCost < 0) {
+            throw new IllegalArgumentException("Unit cost must not be negative, got " + unitCost);
+        }
+        ensureNodeCapacity(Math.max(tail, head) + 1);
+        ensureArcCapacity(numberOfArcs + 1);
+        int arc = numberOfArcs++;
+        this.capacity[arc] = capacity;
+        residualCapacity[2 * arc] = capacity;
+        residualCapacity[2 * arc + 1] = 0;
+        addResidualArc(2 * arc, tail, head, unitCost);
+        addResidualArc(2 * arc + 1, head, tail, -unitCost);
+        return arc;
+    }
+
+    public void setArcCapacity(int arc, long capacity) {
+        this.capacity[arc] = capacity;
+    }
+
+    @Override
+    public void setNodeSupply(int node, long supply) {
+        ensureNodeCapacity(node + 1);
+        this.supply[node] = supply;
+    }
+
+    @Override
+    public boolean solve() {
+        long totalSupply = 0;
+        for (int node = 0; node < numberOfNodes; node++) {
+            totalSupply += supply[node];
+        }
+        if (totalSupply != 0) {
+            logger.warn("Solving the min cost flow problem failed, supply is unbalanced: {}", totalSupply);
+            return false;
+        }
+        initialize();
+        int[] sources = getSources();
+        long remainingSupply = Arrays.stream(sources).mapToLong(source -> excess[source]).sum();
+        while (remainingSupply > 0) {
+            int sink = computeShortestPathToSink(sources);
+            if (sink == NONE) {
+                logger.warn("Solving the min cost flow problem failed, unable to route {} units", remainingSupply);
+                return false;
+            }
+            remainingSupply -= augment(sink);
+        }
+        return true;
+    }
+
+    @Override
+    public int getNumArcs() {
+        return numberOfArcs;
+    }
+
+    @Override
+    public long getFlow(int arc) {
+        return residualCapacity[2 * arc + 1];
+    }
+
+    @Override
+    public long getCapacity(int arc) {
+        return capacity[arc];
+    }
+
+    @Override
+    public long getUnitCost(int arc) {
+        return cost[2 * arc];
+    }
+
+    private void addResidualArc(int residualArc, int tail, int head, long unitCost) {
+        this.head[residualArc] = head;
+        this.cost[residualArc] = unitCost;
+        this.next[residualArc] = firstArc[tail];
+        firstArc[tail] = residualArc;
+    }
+
+    private void initialize() {
+        if (potential.length < numberOfNodes) {
+            potential = Arrays.copyOf(potential, numberOfNodes);
+            distance = new long[numberOfNodes];
+            predecessorArc = new int[numberOfNodes];
+            reachedInRound = Arrays.copyOf(reachedInRound, numberOfNodes);
+            settledInRound = Arrays.copyOf(settledInRound, numberOfNodes);
+            settledNodes = new int[numberOfNodes];
+        }
+        excess = Arrays.copyOf(supply, numberOfNodes);
+        for (int arc = 0; arc < numberOfArcs; arc++) {
+            int forwardArc = 2 * arc;
+            int tail = head[forwardArc + 1];
+            int arcHead = head[forwardArc];
+            long reducedCost = cost[forwardArc] + potential[tail] - potential[arcHead];
+            long flow;
+            if (reducedCost < 0) {
+                flow = capacity[arc];
+            } else if (reducedCost > 0) {
+                flow = 0;
+            } else {
+                flow = Math.min(residualCapacity[forwardArc + 1], capacity[arc]);
+            }
+            residualCapacity[forwardArc] = capacity[arc] - flow;
+            residualCapacity[forwardArc + 1] = flow;
+            excess[tail] -= flow;
+            excess[arcHead] += flow;
+        }
+    }
+
+    private int[] getSources() {
+        int[] sources = new int[numberOfNodes];
+        int numberOfSources = 0;
+        for (int node = 0; node < numberOfNodes; node++) {
+            if (excess[node] > 0) {
+                sources[numberOfSources++] = node;
+            }
+        }
+        return Arrays.copyOf(sources, numberOfSources);
+    }
+
+    /**
+     * Runs Dijkstra's algorithm starting at all nodes with remaining excess, stopping at the first node with a
+     * remaining deficit. Afterwards the potentials of all settled nodes are updated so that the reduced costs of all
+     * arcs in the residual graph stay non-negative.
+     *
+     * @return the reached node with a deficit, or {@link #NONE} if no such node can be reached
+     */
+    private int computeShortestPathToSink(int... sources) {
+        round++;
+        numberOfSettledNodes = 0;
+        heap.clear();
+        for (int source : sources) {
+            if (excess[source] > 0) {
+                reach(source, 0, NONE);
+            }
+        }
+        while (!heap.isEmpty()) {
+            long nodeDistance = heap.peekKey();
+            int node = heap.pop();
+            if (settledInRound[node] == round || nodeDistance > distance[node]) {
+                continue;
+            }
+            settledInRound[node] = round;
+            settledNodes[numberOfSettledNodes++] = node;
+            if (excess[node] < 0) {
+                updatePotentials(nodeDistance);
+                return node;
+            }
+            relaxOutgoingArcs(node, nodeDistance);
+        }
+        return NONE;
+    }
+
+    private void relaxOutgoingArcs(int node, long nodeDistance) {
+        long nodePotential = potential[node];
+        for (int arc = firstArc[node]; arc != NONE; arc = next[arc]) {
+            if (residualCapacity[arc] == 0) {
+                continue;
+            }
+            int target = head[arc];
+            if (settledInRound[target] == round) {
+                continue;
+            }
+            long targetDistance = nodeDistance + cost[arc] + nodePotential - potential[target];
+            if (reachedInRound[target] != round || targetDistance < distance[target]) {
+                reach(target, targetDistance, arc);
+            }
+        }
+    }
+
+    private void reach(int node, long nodeDistance, int arc) {
+        reachedInRound[node] = round;
+        distance[node] = nodeDistance;
+        predecessorArc[node] = arc;
+        heap.push(nodeDistance, node);
+    }
+
+    private void updatePotentials(long sinkDistance) {
+        // nodes not settled implicitly get sinkDistance added, which is equivalent to shifting all other potentials
+        for (int i = 0; i < numberOfSettledNodes; i++) {
+            int node = settledNodes[i];
+            potential[node] += distance[node] - sinkDistance;
+        }
+    }
+
+    private long augment(int sink) {
+        long amount = -excess[sink];
+        int node = sink;
+        while (predecessorArc[node] != NONE) {
+            int arc = predecessorArc[node];
+            amount = Math.min(amount, residualCapacity[arc]);
+            node = head[arc ^ 1];
+        }
+        int source = node;
+        amount = Math.min(amount, excess[source]);
+        node = sink;
+        while (predecessorArc[node] != NONE) {
+            int arc = predecessorArc[node];
+            residualCapacity[arc] -= amount;
+            residualCapacity[arc ^ 1] += amount;
+            node = head[arc ^ 1];
+        }
+        excess[source] -= amount;
+        excess[sink] += amount;
+        return amount;
+    }
+
+    private void ensureNodeCapacity(int requiredNodes) {
+        if (requiredNodes > firstArc.length) {
+            int newLength = Math.max(requiredNodes, 2 * firstArc.length);
+            int oldLength = firstArc.length;
+            firstArc = Arrays.copyOf(firstArc, newLength);
+            Arrays.fill(firstArc, oldLength, newLength, NONE);
+            supply = Arrays.copyOf(supply, newLength);
+        }
+        numberOfNodes = Math.max(numberOfNodes, requiredNodes);
+    }
+
+    private void ensureArcCapacity(int requiredArcs) {
+        if (requiredArcs > capacity.length) {
+            int newLength = Math.max(requiredArcs, 2 * capacity.length);
+            capacity = Arrays.copyOf(capacity, newLength);
+            head = Arrays.copyOf(head, 2 * newLength);
+            next = Arrays.copyOf(next, 2 * newLength);
+            cost = Arrays.copyOf(cost, 2 * newLength);
+            residualCapacity = Arrays.copyOf(residualCapacity, 2 * newLength);
+        }
+    }
+}
@@ -6,8 +6,10 @@ import de.cotto.lndmanagej.model.ChannelId;
 import de.cotto.lndmanagej.model.Coins;
 import de.cotto.lndmanagej.model.DecodedPaymentRequest;
 import de.cotto.lndmanagej.model.Pubkey;
+import de.cotto.lndmanagej.pickhardtpayments.model.MultiPathPayment;
 import de.cotto.lndmanagej.pickhardtpayments.model.PaymentOptions;
 import de.cotto.lndmanagej.pickhardtpayments.model.PaymentStatus;
+import de.cotto.lndmanagej.pickhardtpayments.model.PaymentViaPeer;
 import de.cotto.lndmanagej.service.BalanceService;
 import de.cotto.lndmanagej.service.ChannelService;
 import de.cotto.lndmanagej.service.NodeService;
@@ -15,10 +17,14 @@ import de.cotto.lndmanagej.service.PolicyService;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static de.cotto.lndmanagej.configuration.TopUpConfigurationSettings.EXPIRY;
 import static de.cotto.lndmanagej.configuration.TopUpConfigurationSettings.THRESHOLD;
+import static de.cotto.lndmanagej.pickhardtpayments.model.PaymentOptions.DEFAULT_PAYMENT_OPTIONS;
 
 @Component
 public class TopUpService {
@@ -32,6 +38,7 @@ public class TopUpService {
     private final ChannelService channelService;
     private final MultiPathPaymentSender multiPathPaymentSender;
     private final PolicyService policyService;
+    private final MultiPathPaymentSplitter multiPathPaymentSplitter;
 
     public TopUpService(
             BalanceService balanceService,
@@ -40,7 +47,8 @@ public class TopUpService {
             ConfigurationService configurationService,
             ChannelService channelService,
             MultiPathPaymentSender multiPathPaymentSender,
-            PolicyService policyService
+            PolicyService policyService,
+            MultiPathPaymentSplitter multiPathPaymentSplitter
     ) {
         this.balanceService = balanceService;
         this.grpcInvoices = grpcInvoices;
@@ -49,12 +57,72 @@ public class TopUpService {
         this.channelService = channelService;
         this.multiPathPaymentSender = multiPathPaymentSender;
         this.policyService = policyService;
+        this.multiPathPaymentSplitter = multiPathPaymentSplitter;
     }
 
     public PaymentStatus topUp(Pubkey pubkey, Coins amount, PaymentOptions paymentOptionsFromRequest) {
+        TopUp topUp = prepare(pubkey, amount, paymentOptionsFromRequest);
+        if (topUp.isFailure()) {
+            return PaymentStatus.createFailure(topUp.failureReason());
+        }
+        DecodedPaymentRequest paymentRequest = getPaymentRequest(pubkey, topUp.amount()).orElse(null);
+        if (paymentRequest == null) {
+            return getPaymentRequestFailure(pubkey);
+        }
+        return multiPathPaymentSender.payPaymentRequest(paymentRequest, topUp.paymentOptions());
+    }
+
+    /**
+     * Tops up the channels with several peers. The routes for the first attempt of all payments are computed at once,
+     * the payments are then sent concurrently.
+     *
+     * @param amounts the desired local balance for each peer
+     * @param paymentOptionsFromRequest payment options used for all payments
+     * @return the status for each payment
+     */
+    public Map<Pubkey, PaymentStatus> topUp(Map<Pubkey, Coins> amounts, PaymentOptions paymentOptionsFromRequest) {
+        Map<Pubkey, PaymentStatus> result = new LinkedHashMap<>();
+        Map<Pubkey, TopUp> topUps = new LinkedHashMap<>();
+        Map<Pubkey, DecodedPaymentRequest> paymentRequests = new LinkedHashMap<>();
+        amounts.forEach((pubkey, amount) -> {
+            TopUp topUp = prepare(pubkey, amount, paymentOptionsFromRequest);
+            if (topUp.isFailure()) {
+                result.put(pubkey, PaymentStatus.createFailure(topUp.failureReason()));
+                return;
+            }
+            DecodedPaymentRequest paymentRequest = getPaymentRequest(pubkey, topUp.amount()).orElse(null);
+            if (paymentRequest == null) {
+                result.put(pubkey, getPaymentRequestFailure(pubkey));
+                return;
+            }
+            topUps.put(pubkey, topUp);
+            paymentRequests.put(pubkey, paymentRequest);
+        });
+        int finalCltvDelta = paymentRequests.values().stream()
+                .mapToInt(DecodedPaymentRequest::cltvExpiry)
+                .max()
+                .orElse(0);
+        List<PaymentViaPeer> payments = topUps.values().stream()
+                .map(topUp -> new PaymentViaPeer(topUp.amount(), topUp.paymentOptions()))
+                .toList();
+        Map<Pubkey, MultiPathPayment> multiPathPayments =
+                multiPathPaymentSplitter.getMultiPathPaymentsViaPeers(payments, finalCltvDelta);
+        topUps.forEach((pubkey, topUp) -> {
+            MultiPathPayment multiPathPayment = multiPathPayments.getOrDefault(pubkey, MultiPathPayment.FAILURE);
+            PaymentStatus paymentStatus = multiPathPaymentSender.payPaymentRequest(
+                    paymentRequests.get(pubkey),
+                    topUp.paymentOptions(),
+                    multiPathPayment
+            );
+            result.put(pubkey, paymentStatus);
+        });
+        return result;
+    }
+
+    private TopUp prepare(Pubkey pubkey, Coins amount, PaymentOptions paymentOptionsFromRequest) {
         if (noChannelWith(pubkey)) {
             String alias = nodeService.getAlias(pubkey);
-            return PaymentStatus.createFailure("No channel with %s (%s)".formatted(pubkey, alias));
+            return TopUp.failure("No channel with %s (%s)".formatted(pubkey, alias));
         }
 
         Coins localBalance = balanceService.getAvailableLocalBalanceForPeer(pubkey);
@@ -62,34 +130,29 @@ public class TopUpService {
         Coins threshold = getThreshold();
         if (topUpAmount.compareTo(threshold) < 0) {
             String reason = "Amount %s below threshold %s (balance %s)".formatted(topUpAmount, threshold, localBalance);
-            return PaymentStatus.createFailure(reason);
+            return TopUp.failure(reason);
         }
 
         Coins remoteBalance = balanceService.getAvailableRemoteBalanceForPeer(pubkey);
         if (topUpAmount.compareTo(remoteBalance) > 0) {
             String reason = "Amount %s above remote balance %s".formatted(topUpAmount, remoteBalance);
-            return PaymentStatus.createFailure(reason);
+            return TopUp.failure(reason);
         }
 
-        return sendPayment(pubkey, topUpAmount, paymentOptionsFromRequest);
-    }
-
-    private PaymentStatus sendPayment(Pubkey pubkey, Coins topUpAmount, PaymentOptions paymentOptionsFromRequest) {
         long ourFeeRate = policyService.getMinimumFeeRateTo(pubkey).orElse(0L);
         long peerFeeRate = policyService.getMinimumFeeRateFrom(pubkey).orElse(0L);
         if (peerFeeRate >= ourFeeRate) {
             String failureReason = "Peer charges too much: %s >= %s (%s, %s)"
                     .formatted(peerFeeRate, ourFeeRate, pubkey, nodeService.getAlias(pubkey));
-            return PaymentStatus.createFailure(failureReason);
-        }
-
-        DecodedPaymentRequest paymentRequest = getPaymentRequest(pubkey, topUpAmount).orElse(null);
-        if (paymentRequest == null) {
-            String alias = nodeService.getAlias(pubkey);
-            return PaymentStatus.createFailure("Unable to create payment request (%s, %s)".formatted(pubkey, alias));
+            return TopUp.failure(failureReason);
         }
         PaymentOptions paymentOptions = getPaymentOptions(pubkey, ourFeeRate, peerFeeRate, paymentOptionsFromRequest);
-        return multiPathPaymentSender.payPaymentRequest(paymentRequest, paymentOptions);
+        return new TopUp(topUpAmount, paymentOptions, "");
+    }
+
+    private PaymentStatus getPaymentRequestFailure(Pubkey pubkey) {
+        String alias = nodeService.getAlias(pubkey);
+        return PaymentStatus.createFailure("Unable to create payment request (%s, %s)".formatted(pubkey, alias));
     }
 
     private Coins getThreshold() {
@@ -130,4 +193,14 @@ public class TopUpService {
                 Optional.of(pubkey)
         );
     }
+
+    private record TopUp(Coins amount, PaymentOptions paymentOptions, String failureReason) {
+        public static TopUp failure(String failureReason) {
+            return new TopUp(Coins.NONE, DEFAULT_PAYMENT_OPTIONS, failureReason);
+        }
+
+        public boolean isFailure() {
+            return !failureReason.isEmpty();
+        }
+    }
 }
@@ -1,12 +1,12 @@
 package de.cotto.lndmanagej.pickhardtpayments.model;
 
 import de.cotto.lndmanagej.model.BasicRoute;
-import de.cotto.lndmanagej.model.Coins;
-import de.cotto.lndmanagej.model.Edge;
 import de.cotto.lndmanagej.model.Pubkey;
 
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public final class BasicRoutes {
     private BasicRoutes() {
@@ -14,17 +14,18 @@ public final class BasicRoutes {
     }
 
     public static List<BasicRoute> fromFlows(Pubkey source, Pubkey target, Flows flows) {
-        Flows flowsCopy = flows.getCopy();
-        List<BasicRoute> result = new ArrayList<>();
-        List<Edge> path = flowsCopy.getShortestPath(source, target);
-        while (!path.isEmpty()) {
-            Coins minimum = path.stream().map(flowsCopy::getFlow).reduce(Coins::minimum).orElseThrow();
-            for (Edge edge : path) {
-                flowsCopy.add(edge, minimum.negate());
-            }
-            BasicRoute basicRoute = new BasicRoute(path, minimum);
-            result.add(basicRoute);
-            path = flowsCopy.getShortestPath(source, target);
+        return new FlowDecomposition(source, flows).getRoutes(target, false);
+    }
+
+    /**
+     * Decomposes flows from a single source to several targets. For each target only the net flow into the target is
+     * used, flow passing through a target is part of the routes to other targets.
+     */
+    public static Map<Pubkey, List<BasicRoute>> fromFlows(Pubkey source, Collection<Pubkey> targets, Flows flows) {
+        FlowDecomposition flowDecomposition = new FlowDecomposition(source, flows);
+        Map<Pubkey, List<BasicRoute>> result = new LinkedHashMap<>();
+        for (Pubkey target : targets) {
+            result.put(target, flowDecomposition.getRoutes(target, true));
         }
         return result;
     }
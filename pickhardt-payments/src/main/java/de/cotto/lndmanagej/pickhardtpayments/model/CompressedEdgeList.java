@@ -0,0 +1,119 @@
+package de.cotto.lndmanagej.pickhardtpayments.model;
+
+import de.cotto.lndmanagej.model.Coins;
+import de.cotto.lndmanagej.model.EdgeWithLiquidityInformation;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.IntPredicate;
+
+/**
+ * List view of selected edges of a {@link CompressedGraph}, with liquidity bounds overlaid as separate arrays
+ * (in milli-satoshis, indexed by list position). Additional edges that are not part of the graph (for example from
+ * payment hints) are appended to the end of the list.
+ * The {@link EdgeWithLiquidityInformation} instances are only created when accessing an element.
+ */
+public final class CompressedEdgeList extends AbstractList<EdgeWithLiquidityInformation> implements RandomAccess {
+    private final CompressedGraph graph;
+    private final int[] graphEdges;
+    private final long[] lowerBoundsMilliSat;
+    private final long[] upperBoundsMilliSat;
+    private final int numberOfGraphEdges;
+    private final List<EdgeWithLiquidityInformation> additionalEdges;
+
+    public CompressedEdgeList(
+            CompressedGraph graph,
+            int[] graphEdges,
+            long[] lowerBoundsMilliSat,
+            long[] upperBoundsMilliSat,
+            int numberOfGraphEdges,
+            List<EdgeWithLiquidityInformation> additionalEdges
+    ) {
+        super();
+        this.graph = graph;
+        this.graphEdges = graphEdges;
+        this.lowerBoundsMilliSat = lowerBoundsMilliSat;
+        this.upperBoundsMilliSat = upperBoundsMilliSat;
+        this.numberOfGraphEdges = numberOfGraphEdges;
+        this.additionalEdges = additionalEdges;
+    }
+
+    @Override
+    public EdgeWithLiquidityInformation get(int index) {
+        if (index >= numberOfGraphEdges) {
+            return additionalEdges.get(index - numberOfGraphEdges);
+        }
+        if (index < 0) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return EdgeWithLiquidityInformation.forLowerAndUpperBound(
+                graph.getEdge(graphEdges[index]),
+                Coins.ofMilliSatoshis(lowerBoundsMilliSat[index]),
+                Coins.ofMilliSatoshis(upperBoundsMilliSat[index])
+        );
+    }
+
+    @Override
+    public int size() {
+        return numberOfGraphEdges + additionalEdges.size();
+    }
+
+    public CompressedGraph getGraph() {
+        return graph;
+    }
+
+    public int getNumberOfGraphEdges() {
+        return numberOfGraphEdges;
+    }
+
+    public int getGraphEdge(int index) {
+        return graphEdges[index];
+    }
+
+    public long getLowerBoundMilliSat(int index) {
+        return lowerBoundsMilliSat[index];
+    }
+
+    public long getUpperBoundMilliSat(int index) {
+        return upperBoundsMilliSat[index];
+    }
+
+    public List<EdgeWithLiquidityInformation> getAdditionalEdges() {
+        return additionalEdges;
+    }
+
+    /**
+     * Returns a list containing only the edges for which the given predicate (called with the list index) is true.
+     */
+    public CompressedEdgeList filter(IntPredicate keepIndex) {
+        int[] keptGraphEdges = new int[numberOfGraphEdges];
+        long[] keptLowerBounds = new long[numberOfGraphEdges];
+        long[] keptUpperBounds = new long[numberOfGraphEdges];
+        int numberOfKeptGraphEdges = 0;
+        for (int index = 0; index < numberOfGraphEdges; index++) {
+            if (!keepIndex.test(index)) {
+                continue;
+            }
+            keptGraphEdges[numberOfKeptGraphEdges] = graphEdges[index];
+            keptLowerBounds[numberOfKeptGraphEdges] = lowerBoundsMilliSat[index];
+            keptUpperBounds[numberOfKeptGraphEdges] = upperBoundsMilliSat[index];
+            numberOfKeptGraphEdges++;
+        }
+        List<EdgeWithLiquidityInformation> keptAdditionalEdges = new ArrayList<>();
+        for (int index = 0; index < additionalEdges.size(); index++) {
+            if (keepIndex.test(numberOfGraphEdges + index)) {
+                keptAdditionalEdges.add(additionalEdges.get(index));
+            }
+        }
+        return new CompressedEdgeList(
+                graph,
+                keptGraphEdges,
+                keptLowerBounds,
+                keptUpperBounds,
+                numberOfKeptGraphEdges,
+                keptAdditionalEdges
+        );
+    }
+}
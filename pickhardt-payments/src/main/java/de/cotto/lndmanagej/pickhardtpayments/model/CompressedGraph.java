@@ -0,0 +1,185 @@
+package de.cotto.lndmanagej.pickhardtpayments.model;
+
+import de.cotto.lndmanagej.model.ChannelId;
+import de.cotto.lndmanagej.model.Coins;
+import de.cotto.lndmanagej.model.DirectedChannelEdge;
+import de.cotto.lndmanagej.model.Edge;
+import de.cotto.lndmanagej.model.Policy;
+import de.cotto.lndmanagej.model.Pubkey;
+import org.eclipse.collections.impl.map.mutable.primitive.ObjectIntHashMap;
+
+import java.util.Collection;
+
+/**
+ * Immutable graph in compressed sparse row form: nodes are identified by indexes {@code 0..numberOfNodes-1},
+ * the outgoing edges of node {@code n} have the indexes {@code firstEdge(n)..firstEdge(n + 1) - 1}.
+ * The edge attributes needed for edge computation are stored in parallel primitive arrays, so that iterating over
+ * all edges does not need to touch (or create) any objects. {@link Edge} instances are only created on request.
+ */
+public final class CompressedGraph {
+    public static final int UNKNOWN = -1;
+
+    private final Pubkey[] pubkeys;
+    private final ObjectIntHashMap<Pubkey> nodeIndexes;
+    private final int[] firstEdgeOfNode;
+    private final long[] channelIds;
+    private final int[] sourceNodes;
+    private final int[] targetNodes;
+    private final long[] capacitiesMilliSat;
+    private final long[] feeRates;
+    private final long[] baseFeesMilliSat;
+    private final int[] timeLockDeltas;
+    private final long[] maxHtlcsMilliSat;
+    private final boolean[] enabled;
+
+    private CompressedGraph(Collection<DirectedChannelEdge> channelEdges) {
+        int numberOfEdges = channelEdges.size();
+        nodeIndexes = new ObjectIntHashMap<>();
+        int[] unsortedSourceNodes = new int[numberOfEdges];
+        int[] unsortedTargetNodes = new int[numberOfEdges];
+        int index = 0;
+        for (DirectedChannelEdge channelEdge : channelEdges) {
+            unsortedSourceNodes[index] = nodeIndexes.getIfAbsentPut(channelEdge.source(), nodeIndexes.size());
+            unsortedTargetNodes[index] = nodeIndexes.getIfAbsentPut(channelEdge.target(), nodeIndexes.size());
+            index++;
+        }
+        int numberOfNodes = nodeIndexes.size();
+        pubkeys = new Pubkey[numberOfNodes];
+        nodeIndexes.forEachKeyValue((pubkey, nodeIndex) -> pubkeys[nodeIndex] = pubkey);
+
+        firstEdgeOfNode = new int[numberOfNodes + 1];
+        for (int sourceNode : unsortedSourceNodes) {
+            firstEdgeOfNode[sourceNode + 1]++;
+        }
+        for (int node = 0; node < numberOfNodes; node++) {
+            firstEdgeOfNode[node + 1] += firstEdgeOfNode[node];
+        }
+        int[] nextPosition = new int[numberOfNodes];
+        System.arraycopy(firstEdgeOfNode, 0, nextPosition, 0, numberOfNodes);
+
+        channelIds = new long[numberOfEdges];
+        sourceNodes = new int[numberOfEdges];
+        targetNodes = new int[numberOfEdges];
+        capacitiesMilliSat = new long[numberOfEdges];
+        feeRates = new long[numberOfEdges];
+        baseFeesMilliSat = new long[numberOfEdges];
+        timeLockDeltas = new int[numberOfEdges];
+        maxHtlcsMilliSat = new long[numberOfEdges];
+        enabled = new boolean[numberOfEdges];
+        index = 0;
+        for (DirectedChannelEdge channelEdge : channelEdges) {
+            int sourceNode = unsortedSourceNodes[index];
+            int edgeIndex = nextPosition[sourceNode]++;
+            Policy policy = channelEdge.policy();
+            channelIds[edgeIndex] = channelEdge.channelId().getShortChannelId();
+            sourceNodes[edgeIndex] = sourceNode;
+            targetNodes[edgeIndex] = unsortedTargetNodes[index];
+            capacitiesMilliSat[edgeIndex] = channelEdge.capacity().milliSatoshis();
+            feeRates[edgeIndex] = policy.feeRate();
+            baseFeesMilliSat[edgeIndex] = policy.baseFee().milliSatoshis();
+            timeLockDeltas[edgeIndex] = policy.timeLockDelta();
+            maxHtlcsMilliSat[edgeIndex] = policy.maxHtlc().milliSatoshis();
+            enabled[edgeIndex] = policy.enabled();
+            index++;
+        }
+    }
+
+    public static CompressedGraph create(Collection<DirectedChannelEdge> channelEdges) {
+        return new CompressedGraph(channelEdges);
+    }
+
+    public int numberOfNodes() {
+        return pubkeys.length;
+    }
+
+    public int numberOfEdges() {
+        return sourceNodes.length;
+    }
+
+    public int getNodeIndex(Pubkey pubkey) {
+        return nodeIndexes.getIfAbsent(pubkey, UNKNOWN);
+    }
+
+    public Pubkey getPubkey(int node) {
+        return pubkeys[node];
+    }
+
+    public int getEdgeIndex(DirectedChannelEdge channelEdge) {
+        int sourceNode = getNodeIndex(channelEdge.source());
+        int targetNode = getNodeIndex(channelEdge.target());
+        if (sourceNode == UNKNOWN || targetNode == UNKNOWN) {
+            return UNKNOWN;
+        }
+        Policy policy = channelEdge.policy();
+        for (int edge = firstEdge(sourceNode); edge < lastEdgeExclusive(sourceNode); edge++) {
+            if (channelIds[edge] == channelEdge.channelId().getShortChannelId()
+                    && targetNodes[edge] == targetNode
+                    && capacitiesMilliSat[edge] == channelEdge.capacity().milliSatoshis()
+                    && feeRates[edge] == policy.feeRate()
+                    && baseFeesMilliSat[edge] == policy.baseFee().milliSatoshis()
+                    && enabled[edge] == policy.enabled()
+                    && timeLockDeltas[edge] == policy.timeLockDelta()
+                    && maxHtlcsMilliSat[edge] == policy.maxHtlc().milliSatoshis()) {
+                return edge;
+            }
+        }
+        return UNKNOWN;
+    }
+
+    public int firstEdge(int node) {
+        return firstEdgeOfNode[node];
+    }
+
+    public int lastEdgeExclusive(int node) {
+        return firstEdgeOfNode[node + 1];
+    }
+
+    public int sourceNode(int edge) {
+        return sourceNodes[edge];
+    }
+
+    public int targetNode(int edge) {
+        return targetNodes[edge];
+    }
+
+    public long capacityMilliSat(int edge) {
+        return capacitiesMilliSat[edge];
+    }
+
+    public long feeRate(int edge) {
+        return feeRates[edge];
+    }
+
+    public long baseFeeMilliSat(int edge) {
+        return baseFeesMilliSat[edge];
+    }
+
+    public int timeLockDelta(int edge) {
+        return timeLockDeltas[edge];
+    }
+
+    public long maxHtlcMilliSat(int edge) {
+        return maxHtlcsMilliSat[edge];
+    }
+
+    public boolean isEnabled(int edge) {
+        return enabled[edge];
+    }
+
+    public Edge getEdge(int edge) {
+        Policy policy = new Policy(
+                feeRates[edge],
+                Coins.ofMilliSatoshis(baseFeesMilliSat[edge]),
+                enabled[edge],
+                timeLockDeltas[edge],
+                Coins.ofMilliSatoshis(maxHtlcsMilliSat[edge])
+        );
+        return new Edge(
+                ChannelId.fromShortChannelId(channelIds[edge]),
+                pubkeys[sourceNodes[edge]],
+                pubkeys[targetNodes[edge]],
+                Coins.ofMilliSatoshis(capacitiesMilliSat[edge]),
+                policy
+        );
+    }
+}
@@ -7,6 +7,8 @@ import de.cotto.lndmanagej.model.EdgeWithLiquidityInformation;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
 
 public record EdgesWithLiquidityInformation(List<EdgeWithLiquidityInformation> edges, Coins maximumCapacity) {
     public static final EdgesWithLiquidityInformation EMPTY = new EdgesWithLiquidityInformation(List.of());
@@ -19,6 +21,21 @@ public record EdgesWithLiquidityInformation(List<EdgeWithLiquidityInformation> e
         this(Arrays.stream(edges).toList());
     }
 
+    /**
+     * Returns the edges for which the given predicate (called with the list index) is true. The maximum capacity is
+     * not changed.
+     */
+    public EdgesWithLiquidityInformation filter(IntPredicate keepIndex) {
+        if (edges instanceof CompressedEdgeList compressedEdgeList) {
+            return new EdgesWithLiquidityInformation(compressedEdgeList.filter(keepIndex), maximumCapacity);
+        }
+        List<EdgeWithLiquidityInformation> keptEdges = IntStream.range(0, edges.size())
+                .filter(keepIndex)
+                .mapToObj(edges::get)
+                .toList();
+        return new EdgesWithLiquidityInformation(keptEdges, maximumCapacity);
+    }
+
     private static Coins getMaximumCapacity(Collection<EdgeWithLiquidityInformation> edges) {
         return edges.stream()
                 .map(EdgeWithLiquidityInformation::edge)
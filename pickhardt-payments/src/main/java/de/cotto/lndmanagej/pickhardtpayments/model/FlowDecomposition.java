@@ -0,0 +1,187 @@
+package de.cotto.lndmanagej.pickhardtpayments.model;
+
+import de.cotto.lndmanagej.model.BasicRoute;
+import de.cotto.lndmanagej.model.Coins;
+import de.cotto.lndmanagej.model.Edge;
+import de.cotto.lndmanagej.model.Pubkey;
+import org.eclipse.collections.impl.map.mutable.primitive.ObjectIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Decomposes flows into routes from source to target, shortest (fewest hops) routes first.
+ * <p>
+ * The flows are copied into primitive arrays (nodes and edges are identified by indexes, outgoing edges of a node are
+ * stored contiguously in insertion order). Similar to Dinic's algorithm, each phase computes the distances from the
+ * source using breadth-first search, and then extracts all routes of this length using depth-first search along edges
+ * leading to the next level. For each node the position of the next edge to consider is kept for the whole phase, so
+ * that every edge is skipped at most once per phase. As the distance to the target grows in every phase, there are
+ * usually only a few phases, and each phase takes linear time (plus the length of the extracted routes).
+ * <p>
+ * If the flows end at several targets, routes for one target after the other can be extracted from the same instance.
+ * The amount for each target is limited to the net flow into this target, so that flow passing through the target
+ * remains available for the following targets.
+ */
+final class FlowDecomposition {
+    private static final int NONE = -1;
+
+    private final ObjectIntHashMap<Pubkey> nodeIndexes = new ObjectIntHashMap<>();
+    private final Edge[] edges;
+    private final int[] heads;
+    private final long[] remainingMilliSat;
+    private final int[] firstEdgeOfNode;
+    private final int[] level;
+    private final int[] nextEdge;
+    private final int[] path;
+    private final long[] netInflowMilliSat;
+    private final int source;
+    private int target;
+    private long remainingAmountMilliSat;
+
+    FlowDecomposition(Pubkey source, Flows flows) {
+        List<Flow> positiveFlows = flows.getAll().stream().filter(flow -> flow.amount().isPositive()).toList();
+        this.source = getNodeIndex(source);
+        int numberOfEdges = positiveFlows.size();
+        int[] tails = new int[numberOfEdges];
+        for (int index = 0; index < numberOfEdges; index++) {
+            Edge edge = positiveFlows.get(index).edge();
+            tails[index] = getNodeIndex(edge.startNode());
+            getNodeIndex(edge.endNode());
+        }
+        int numberOfNodes = nodeIndexes.size();
+        firstEdgeOfNode = new int[numberOfNodes + 1];
+        for (int tail : tails) {
+            firstEdgeOfNode[tail + 1]++;
+        }
+        for (int node = 0; node < numberOfNodes; node++) {
+            firstEdgeOfNode[node + 1] += firstEdgeOfNode[node];
+        }
+        int[] nextPosition = Arrays.copyOf(firstEdgeOfNode, numberOfNodes);
+        edges = new Edge[numberOfEdges];
+        heads = new int[numberOfEdges];
+        remainingMilliSat = new long[numberOfEdges];
+        netInflowMilliSat = new long[numberOfNodes];
+        for (int index = 0; index < numberOfEdges; index++) {
+            Flow flow = positiveFlows.get(index);
+            int position = nextPosition[tails[index]]++;
+            long amountMilliSat = flow.amount().milliSatoshis();
+            edges[position] = flow.edge();
+            heads[position] = nodeIndexes.get(flow.edge().endNode());
+            remainingMilliSat[position] = amountMilliSat;
+            netInflowMilliSat[heads[position]] += amountMilliSat;
+            netInflowMilliSat[tails[index]] -= amountMilliSat;
+        }
+        level = new int[numberOfNodes];
+        nextEdge = new int[numberOfNodes];
+        path = new int[numberOfNodes];
+    }
+
+    /**
+     * Extracts all routes to the given target.
+     *
+     * @param targetPubkey the end node of the routes
+     * @param limitToNetInflow if true, only extract routes for the net flow into the target
+     * @return the routes in order of increasing length, an empty list if the target is not reachable
+     */
+    List<BasicRoute> getRoutes(Pubkey targetPubkey, boolean limitToNetInflow) {
+        List<BasicRoute> routes = new ArrayList<>();
+        target = nodeIndexes.getIfAbsent(targetPubkey, NONE);
+        if (target == NONE || target == source) {
+            return routes;
+        }
+        remainingAmountMilliSat = limitToNetInflow ? netInflowMilliSat[target] : Long.MAX_VALUE;
+        while (remainingAmountMilliSat > 0 && computeLevels()) {
+            System.arraycopy(firstEdgeOfNode, 0, nextEdge, 0, nextEdge.length);
+            addRoutesOfCurrentLevel(routes);
+        }
+        return routes;
+    }
+
+    private int getNodeIndex(Pubkey pubkey) {
+        return nodeIndexes.getIfAbsentPut(pubkey, nodeIndexes.size());
+    }
+
+    private boolean computeLevels() {
+        Arrays.fill(level, NONE);
+        int[] queue = path;
+        int queueStart = 0;
+        int queueEnd = 0;
+        level[source] = 0;
+        queue[queueEnd++] = source;
+        while (queueStart < queueEnd) {
+            int node = queue[queueStart++];
+            if (node == target) {
+                return true;
+            }
+            for (int edge = firstEdgeOfNode[node]; edge < firstEdgeOfNode[node + 1]; edge++) {
+                int head = heads[edge];
+                if (remainingMilliSat[edge] > 0 && level[head] == NONE) {
+                    level[head] = level[node] + 1;
+                    queue[queueEnd++] = head;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void addRoutesOfCurrentLevel(List<BasicRoute> routes) {
+        int pathLength = 0;
+        int node = source;
+        while (true) {
+            if (node == target) {
+                routes.add(extractRoute(pathLength));
+                if (remainingAmountMilliSat == 0) {
+                    return;
+                }
+                pathLength = 0;
+                node = source;
+                continue;
+            }
+            int edge = getNextEdge(node);
+            if (edge != NONE) {
+                path[pathLength++] = edge;
+                node = heads[edge];
+                continue;
+            }
+            if (pathLength == 0) {
+                return;
+            }
+            // dead end: do not consider the edge leading here again in this phase
+            int previousEdge = path[--pathLength];
+            node = pathLength == 0 ? source : heads[path[pathLength - 1]];
+            nextEdge[node] = previousEdge + 1;
+        }
+    }
+
+    private int getNextEdge(int node) {
+        int targetLevel = level[target];
+        for (int edge = nextEdge[node]; edge < firstEdgeOfNode[node + 1]; edge++) {
+            int head = heads[edge];
+            boolean leadsToTarget = head == target || level[head] < targetLevel;
+            if (remainingMilliSat[edge] > 0 && level[head] == level[node] + 1 && leadsToTarget) {
+                nextEdge[node] = edge;
+                return edge;
+            }
+        }
+        nextEdge[node] = firstEdgeOfNode[node + 1];
+        return NONE;
+    }
+
+    private BasicRoute extractRoute(int pathLength) {
+        long amountMilliSat = remainingAmountMilliSat;
+        for (int i = 0; i < pathLength; i++) {
+            amountMilliSat = Math.min(amountMilliSat, remainingMilliSat[path[i]]);
+        }
+        List<Edge> routeEdges = new ArrayList<>(pathLength);
+        for (int i = 0; i < pathLength; i++) {
+            remainingMilliSat[path[i]] -= amountMilliSat;
+            routeEdges.add(edges[path[i]]);
+        }
+        remainingAmountMilliSat -= amountMilliSat;
+        netInflowMilliSat[target] -= amountMilliSat;
+        netInflowMilliSat[source] += amountMilliSat;
+        return new BasicRoute(routeEdges, Coins.ofMilliSatoshis(amountMilliSat));
+    }
+}
@@ -4,19 +4,14 @@ import de.cotto.lndmanagej.model.Coins;
 import de.cotto.lndmanagej.model.Edge;
 import de.cotto.lndmanagej.model.Pubkey;
 
-import java.util.ArrayDeque;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Queue;
 import java.util.Set;
 
-import static java.util.Objects.requireNonNull;
-
 public class Flows {
     private final Map<Pubkey, Map<Edge, Flow>> map;
 
@@ -73,40 +68,8 @@ public class Flows {
         return new LinkedHashSet<>(map.getOrDefault(pubkey, Map.of()).values());
     }
 
-    public List<Edge> getShortestPath(Pubkey source, Pubkey target) {
-        Set<Pubkey> seen = new LinkedHashSet<>();
-        seen.add(source);
-
-        Map<Pubkey, List<Edge>> routes = new LinkedHashMap<>();
-        routes.put(source, List.of());
-
-        Queue<Pubkey> todo = new ArrayDeque<>();
-        todo.add(source);
-
-        while (!todo.isEmpty()) {
-            Pubkey pubkey = todo.remove();
-            if (pubkey.equals(target)) {
-                return requireNonNull(routes.get(pubkey));
-            }
-            List<Edge> route = routes.get(pubkey);
-            for (Flow flow : getFlowsFrom(pubkey)) {
-                Edge edge = flow.edge();
-                Pubkey successor = edge.endNode();
-                if (seen.add(successor)) {
-                    List<Edge> newRoute = new ArrayList<>(route);
-                    newRoute.add(edge);
-                    routes.put(successor, newRoute);
-                    todo.add(successor);
-                }
-            }
-        }
-        return List.of();
-    }
-
-    public Flows getCopy() {
-        Flows copy = new Flows();
-        map.values().stream().flatMap(m -> m.values().stream()).forEach(copy::add);
-        return copy;
+    public List<Flow> getAll() {
+        return map.values().stream().flatMap(m -> m.values().stream()).toList();
     }
 
     @Override
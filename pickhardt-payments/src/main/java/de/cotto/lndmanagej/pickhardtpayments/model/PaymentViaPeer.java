@@ -0,0 +1,19 @@
+package de.cotto.lndmanagej.pickhardtpayments.model;
+
+import de.cotto.lndmanagej.model.Coins;
+import de.cotto.lndmanagej.model.Pubkey;
+
+/**
+ * A payment from our own node back to our own node, with the last hop from the given peer.
+ */
+public record PaymentViaPeer(Coins amount, PaymentOptions paymentOptions) {
+    public PaymentViaPeer {
+        if (paymentOptions.peer().isEmpty()) {
+            throw new IllegalArgumentException("Payment options need to include the peer");
+        }
+    }
+
+    public Pubkey peer() {
+        return paymentOptions.peer().orElseThrow();
+    }
+}
@@ -1,7 +1,5 @@
 package de.cotto.lndmanagej.pickhardtpayments;
 
-import com.google.ortools.Loader;
-import com.google.ortools.graph.MinCostFlow;
 import de.cotto.lndmanagej.model.Coins;
 import de.cotto.lndmanagej.model.Edge;
 import de.cotto.lndmanagej.model.EdgeWithLiquidityInformation;
@@ -30,15 +28,11 @@ class ArcInitializerTest {
     private static final int PIECEWISE_LINEAR_APPROXIMATIONS = 1;
     private static final int FEE_RATE_WEIGHT = 0;
 
-    static {
-        Loader.loadNativeLibraries();
-    }
-
-    private final MinCostFlow minCostFlow = new MinCostFlow();
+    private final MinCostFlowEngine minCostFlowEngine = new SuccessiveShortestPathMinCostFlowEngine();
     private final IntegerMapping<Pubkey> integerMapping = new IntegerMapping<>();
     private final IntObjectHashMap<Edge> edgeMapping = new IntObjectHashMap<>();
     private final ArcInitializer arcInitializer = new ArcInitializer(
-            minCostFlow,
+            minCostFlowEngine,
             integerMapping,
             edgeMapping,
             QUANTIZATION,
@@ -51,13 +45,13 @@ class ArcInitializerTest {
     @Test
     void no_edge() {
         arcInitializer.addArcs(EdgesWithLiquidityInformation.EMPTY);
-        assertThat(minCostFlow.getNumArcs()).isZero();
+        assertThat(minCostFlowEngine.getNumArcs()).isZero();
     }
 
     @Test
     void ignores_edge_with_zero_capacity() {
         arcInitializer.addArcs(new EdgesWithLiquidityInformation(edge(EDGE, Coins.NONE)));
-        assertThat(minCostFlow.getNumArcs()).isZero();
+        assertThat(minCostFlowEngine.getNumArcs()).isZero();
     }
 
     @Test
@@ -68,7 +62,7 @@ class ArcInitializerTest {
                 edge(EDGE, Coins.ofSatoshis(quantization));
         arcInitializer.addArcs(new EdgesWithLiquidityInformation(edgeWithLiquidityInformation));
         // upper bound is reduced by one unit
-        assertThat(minCostFlow.getNumArcs()).isZero();
+        assertThat(minCostFlowEngine.getNumArcs()).isZero();
     }
 
     @Test
@@ -80,7 +74,7 @@ class ArcInitializerTest {
                 edge(EDGE, Coins.ofSatoshis(capacity));
         arcInitializer.addArcs(new EdgesWithLiquidityInformation(edgeWithLiquidityInformation));
         // upper bound is reduced by one unit, and remainder is rounded down
-        assertThat(minCostFlow.getNumArcs()).isZero();
+        assertThat(minCostFlowEngine.getNumArcs()).isZero();
     }
 
     @Test
@@ -88,7 +82,7 @@ class ArcInitializerTest {
         int quantization = 5_000;
         int capacity = 15_000;
         ArcInitializer arcInitializer = new ArcInitializer(
-                minCostFlow,
+                minCostFlowEngine,
                 integerMapping,
                 edgeMapping,
                 quantization,
@@ -100,10 +94,10 @@ class ArcInitializerTest {
         EdgeWithLiquidityInformation edgeWithLiquidityInformation =
                 edge(EDGE, Coins.ofSatoshis(capacity));
         arcInitializer.addArcs(new EdgesWithLiquidityInformation(edgeWithLiquidityInformation));
-        assertThat(minCostFlow.getNumArcs()).isEqualTo(2);
+        assertThat(minCostFlowEngine.getNumArcs()).isEqualTo(2);
         SoftAssertions softly = new SoftAssertions();
-        softly.assertThat(minCostFlow.getCapacity(0)).isEqualTo(1);
-        softly.assertThat(minCostFlow.getCapacity(1)).isEqualTo(1);
+        softly.assertThat(minCostFlowEngine.getCapacity(0)).isEqualTo(1);
+        softly.assertThat(minCostFlowEngine.getCapacity(1)).isEqualTo(1);
         softly.assertAll();
     }
 
@@ -111,7 +105,7 @@ class ArcInitializerTest {
     void edge_with_low_capacity() {
         long quantization = 10_000;
         ArcInitializer arcInitializer = new ArcInitializer(
-                minCostFlow,
+                minCostFlowEngine,
                 integerMapping,
                 edgeMapping,
                 quantization,
@@ -123,11 +117,11 @@ class ArcInitializerTest {
         EdgeWithLiquidityInformation edgeWithLiquidityInformation =
                 edge(EDGE, Coins.ofSatoshis(40_000));
         arcInitializer.addArcs(new EdgesWithLiquidityInformation(edgeWithLiquidityInformation));
-        assertThat(minCostFlow.getNumArcs()).isEqualTo(3);
+        assertThat(minCostFlowEngine.getNumArcs()).isEqualTo(3);
         SoftAssertions softly = new SoftAssertions();
-        softly.assertThat(minCostFlow.getCapacity(0)).isEqualTo(1);
-        softly.assertThat(minCostFlow.getCapacity(1)).isEqualTo(1);
-        softly.assertThat(minCostFlow.getCapacity(2)).isEqualTo(1);
+        softly.assertThat(minCostFlowEngine.getCapacity(0)).isEqualTo(1);
+        softly.assertThat(minCostFlowEngine.getCapacity(1)).isEqualTo(1);
+        softly.assertThat(minCostFlowEngine.getCapacity(2)).isEqualTo(1);
         softly.assertAll();
     }
 
@@ -150,17 +144,17 @@ class ArcInitializerTest {
         @Test
         void added_as_arc_without_cost() {
             arcInitializer.addArcs(new EdgesWithLiquidityInformation(edgeWithLiquidityInformation));
-            assertThat(minCostFlow.getNumArcs()).isEqualTo(1);
+            assertThat(minCostFlowEngine.getNumArcs()).isEqualTo(1);
             SoftAssertions softly = new SoftAssertions();
-            softly.assertThat(minCostFlow.getUnitCost(0)).isEqualTo(0);
-            softly.assertThat(minCostFlow.getCapacity(0)).isEqualTo(24);
+            softly.assertThat(minCostFlowEngine.getUnitCost(0)).isEqualTo(0);
+            softly.assertThat(minCostFlowEngine.getCapacity(0)).isEqualTo(24);
             softly.assertAll();
         }
 
         @Test
         void adds_uncertain_liquidity_as_second_arc() {
             ArcInitializer arcInitializer = new ArcInitializer(
-                    minCostFlow,
+                    minCostFlowEngine,
                     integerMapping,
                     edgeMapping,
                     QUANTIZATION,
@@ -170,14 +164,14 @@ class ArcInitializerTest {
                     true
             );
             arcInitializer.addArcs(new EdgesWithLiquidityInformation(edgeWithLiquidityInformation));
-            assertThat(minCostFlow.getUnitCost(1)).isEqualTo(10 * 5_000_000_000L / (100 - 25));
-            assertThat(minCostFlow.getCapacity(1)).isEqualTo(75);
+            assertThat(minCostFlowEngine.getUnitCost(1)).isEqualTo(10 * 5_000_000_000L / (100 - 25));
+            assertThat(minCostFlowEngine.getCapacity(1)).isEqualTo(75);
         }
 
         @Test
         void splits_uncertain_liquidity_as_additional_arcs() {
             ArcInitializer arcInitializer = new ArcInitializer(
-                    minCostFlow,
+                    minCostFlowEngine,
                     integerMapping,
                     edgeMapping,
                     QUANTIZATION,
@@ -187,13 +181,13 @@ class ArcInitializerTest {
                     true
             );
             arcInitializer.addArcs(new EdgesWithLiquidityInformation(edgeWithLiquidityInformation));
-            assertThat(minCostFlow.getNumArcs()).isEqualTo(5);
+            assertThat(minCostFlowEngine.getNumArcs()).isEqualTo(5);
         }
 
         @Test
         void known_amount_matches_quantization() {
             ArcInitializer arcInitializer = new ArcInitializer(
-                    minCostFlow,
+                    minCostFlowEngine,
                     integerMapping,
                     edgeMapping,
                     edgeWithLiquidityInformation.availableLiquidityLowerBound().satoshis(),
@@ -204,7 +198,7 @@ class ArcInitializerTest {
             );
             arcInitializer.addArcs(new EdgesWithLiquidityInformation(edgeWithLiquidityInformation));
             // lower bound is reduced by one unit, so there is no edge with unit cost 0
-            assertThat(minCostFlow.getUnitCost(0)).isPositive();
+            assertThat(minCostFlowEngine.getUnitCost(0)).isPositive();
         }
 
         @Test
@@ -214,7 +208,7 @@ class ArcInitializerTest {
             EdgeWithLiquidityInformation edge =
                     EdgeWithLiquidityInformation.forKnownLiquidity(EDGE, Coins.ofSatoshis(lowerBound));
             ArcInitializer arcInitializer = new ArcInitializer(
-                    minCostFlow,
+                    minCostFlowEngine,
                     integerMapping,
                     edgeMapping,
                     quantization,
@@ -224,7 +218,7 @@ class ArcInitializerTest {
                     true
             );
             arcInitializer.addArcs(new EdgesWithLiquidityInformation(edge));
-            assertThat(minCostFlow.getNumArcs()).isZero();
+            assertThat(minCostFlowEngine.getNumArcs()).isZero();
         }
 
         @Test
@@ -234,7 +228,7 @@ class ArcInitializerTest {
             EdgeWithLiquidityInformation edge =
                     EdgeWithLiquidityInformation.forKnownLiquidity(EDGE, Coins.ofSatoshis(lowerBound));
             ArcInitializer arcInitializer = new ArcInitializer(
-                    minCostFlow,
+                    minCostFlowEngine,
                     integerMapping,
                     edgeMapping,
                     quantization,
@@ -245,9 +239,9 @@ class ArcInitializerTest {
             );
             arcInitializer.addArcs(new EdgesWithLiquidityInformation(edge));
             SoftAssertions softly = new SoftAssertions();
-            softly.assertThat(minCostFlow.getNumArcs()).isOne();
-            softly.assertThat(minCostFlow.getUnitCost(0)).isEqualTo(0);
-            softly.assertThat(minCostFlow.getCapacity(0)).isEqualTo(1);
+            softly.assertThat(minCostFlowEngine.getNumArcs()).isOne();
+            softly.assertThat(minCostFlowEngine.getUnitCost(0)).isEqualTo(0);
+            softly.assertThat(minCostFlowEngine.getCapacity(0)).isEqualTo(1);
             softly.assertAll();
         }
 
@@ -255,13 +249,13 @@ class ArcInitializerTest {
         void known_amount_reduced_and_rounded_due_to_quantization() {
             ArcInitializer arcInitializer = getArcInitializerWithQuantization(10);
             arcInitializer.addArcs(new EdgesWithLiquidityInformation(edgeWithLiquidityInformation));
-            assertThat(minCostFlow.getCapacity(0)).isEqualTo(1);
+            assertThat(minCostFlowEngine.getCapacity(0)).isEqualTo(1);
         }
 
         @Test
         void splits_remaining_liquidity_after_rounding_known_liquidity() {
             ArcInitializer arcInitializer = new ArcInitializer(
-                    minCostFlow,
+                    minCostFlowEngine,
                     integerMapping,
                     edgeMapping,
                     10,
@@ -275,13 +269,13 @@ class ArcInitializerTest {
             // upper bound 100, reduced by one quantization unit: 90
             // one arc for the adjusted lower bound: 15 / 10 = 1
             // second arc for remaining liquidity: 90 / 10 - 1 = 8
-            assertThat(minCostFlow.getCapacity(1)).isEqualTo(8);
+            assertThat(minCostFlowEngine.getCapacity(1)).isEqualTo(8);
         }
 
         @Test
         void adds_arcs_for_unknown_capacity_even_if_amount_is_small() {
             ArcInitializer arcInitializer = new ArcInitializer(
-                    minCostFlow,
+                    minCostFlowEngine,
                     integerMapping,
                     edgeMapping,
                     12,
@@ -296,14 +290,14 @@ class ArcInitializerTest {
             // one arc for the known liquidity, capacity: 13 / 12 = 1
             // remaining capacity: 88 / 12 - 1 = 6
             // four additional arcs with capacity 1, unused capacity: 6 - 4*1 = 2
-            assertThat(minCostFlow.getNumArcs()).isEqualTo(5);
+            assertThat(minCostFlowEngine.getNumArcs()).isEqualTo(5);
             SoftAssertions softly = new SoftAssertions();
-            softly.assertThat(minCostFlow.getCapacity(0)).isEqualTo(1);
-            softly.assertThat(minCostFlow.getUnitCost(0)).isZero();
-            softly.assertThat(minCostFlow.getCapacity(1)).isEqualTo(1);
-            softly.assertThat(minCostFlow.getCapacity(2)).isEqualTo(1);
-            softly.assertThat(minCostFlow.getCapacity(3)).isEqualTo(1);
-            softly.assertThat(minCostFlow.getCapacity(4)).isEqualTo(1);
+            softly.assertThat(minCostFlowEngine.getCapacity(0)).isEqualTo(1);
+            softly.assertThat(minCostFlowEngine.getUnitCost(0)).isZero();
+            softly.assertThat(minCostFlowEngine.getCapacity(1)).isEqualTo(1);
+            softly.assertThat(minCostFlowEngine.getCapacity(2)).isEqualTo(1);
+            softly.assertThat(minCostFlowEngine.getCapacity(3)).isEqualTo(1);
+            softly.assertThat(minCostFlowEngine.getCapacity(4)).isEqualTo(1);
             softly.assertAll();
         }
 
@@ -312,7 +306,7 @@ class ArcInitializerTest {
             int feeRateWeight = 1;
             ArcInitializer arcInitializer = getArcInitializer(QUANTIZATION, feeRateWeight);
             arcInitializer.addArcs(new EdgesWithLiquidityInformation(edgeWithLiquidityInformation));
-            assertThat(minCostFlow.getUnitCost(0)).isEqualTo(200);
+            assertThat(minCostFlowEngine.getUnitCost(0)).isEqualTo(200);
         }
 
         @Test
@@ -325,7 +319,7 @@ class ArcInitializerTest {
             addEdgeWithBaseFee(baseFee, quantization, arcInitializer);
 
             long expectedFeeRate = (long) Math.ceil(200 + 10);
-            assertThat(minCostFlow.getUnitCost(0)).isEqualTo(expectedFeeRate);
+            assertThat(minCostFlowEngine.getUnitCost(0)).isEqualTo(expectedFeeRate);
         }
 
         @Test
@@ -338,7 +332,7 @@ class ArcInitializerTest {
             addEdgeWithBaseFee(baseFee, quantization, arcInitializer);
 
             long expectedFeeRate = (long) Math.ceil(200 + 12);
-            assertThat(minCostFlow.getUnitCost(0)).isEqualTo(expectedFeeRate);
+            assertThat(minCostFlowEngine.getUnitCost(0)).isEqualTo(expectedFeeRate);
         }
 
         private void addEdgeWithBaseFee(Coins baseFee, int quantization, ArcInitializer arcInitializer) {
@@ -352,7 +346,7 @@ class ArcInitializerTest {
 
         private ArcInitializer getArcInitializer(int quantization, int feeRateWeight) {
             return new ArcInitializer(
-                    minCostFlow,
+                    minCostFlowEngine,
                     integerMapping,
                     edgeMapping,
                     quantization,
@@ -368,7 +362,7 @@ class ArcInitializerTest {
     void adds_edge_to_edgeMapping() {
         int piecesPerChannel = 2;
         ArcInitializer arcInitializer = new ArcInitializer(
-                minCostFlow,
+                minCostFlowEngine,
                 integerMapping,
                 edgeMapping,
                 QUANTIZATION,
@@ -392,7 +386,7 @@ class ArcInitializerTest {
         EdgeWithLiquidityInformation edgeWithLiquidityInformation =
                 edge(EDGE, Coins.ofSatoshis(quantization - 1));
         arcInitializer.addArcs(new EdgesWithLiquidityInformation(edgeWithLiquidityInformation));
-        assertThat(minCostFlow.getNumArcs()).isZero();
+        assertThat(minCostFlowEngine.getNumArcs()).isZero();
     }
 
     @Test
@@ -400,7 +394,7 @@ class ArcInitializerTest {
         int quantization = 100;
         ArcInitializer arcInitializer = getArcInitializerWithQuantization(quantization);
         arcInitializer.addArcs(new EdgesWithLiquidityInformation(edge(EDGE, Coins.ofSatoshis(20_223))));
-        assertThat(minCostFlow.getCapacity(0)).isEqualTo(201);
+        assertThat(minCostFlowEngine.getCapacity(0)).isEqualTo(201);
     }
 
     @Test
@@ -411,26 +405,26 @@ class ArcInitializerTest {
                 edge(EDGE, Coins.ofSatoshis(20_223)),
                 edge(EDGE_3_4, Coins.ofSatoshis(1_000_000))
         ));
-        assertThat(minCostFlow.getUnitCost(0)).isEqualTo(10 * 50_000_000L / 201);
+        assertThat(minCostFlowEngine.getUnitCost(0)).isEqualTo(10 * 50_000_000L / 201);
     }
 
     @Test
     void ignores_edge_with_capacity_matching_quantization() {
         arcInitializer.addArcs(new EdgesWithLiquidityInformation(edge(EDGE, Coins.ofSatoshis(1))));
-        assertThat(minCostFlow.getNumArcs()).isZero();
+        assertThat(minCostFlowEngine.getNumArcs()).isZero();
     }
 
     @Test
     void one_edge() {
         arcInitializer.addArcs(new EdgesWithLiquidityInformation(edge(EDGE, Coins.ofSatoshis(2))));
-        assertThat(minCostFlow.getNumArcs()).isOne();
+        assertThat(minCostFlowEngine.getNumArcs()).isOne();
     }
 
     @Test
     void edges_with_piecewise_linear_approximation() {
         int piecewiseLinearApproximations = 5;
         ArcInitializer arcInitializer = new ArcInitializer(
-                minCostFlow,
+                minCostFlowEngine,
                 integerMapping,
                 edgeMapping,
                 QUANTIZATION,
@@ -443,18 +437,18 @@ class ArcInitializerTest {
                 edge(EDGE, Coins.ofSatoshis(10_001)),
                 edge(EDGE_2_3, Coins.ofSatoshis(30_001))
         ));
-        assertThat(minCostFlow.getNumArcs()).isEqualTo(10);
+        assertThat(minCostFlowEngine.getNumArcs()).isEqualTo(10);
         SoftAssertions softly = new SoftAssertions();
-        softly.assertThat(minCostFlow.getUnitCost(0)).isEqualTo(5_000_000L);
-        softly.assertThat(minCostFlow.getCapacity(0)).isEqualTo(2_000);
-        softly.assertThat(minCostFlow.getUnitCost(1)).isEqualTo(10_000_000L);
-        softly.assertThat(minCostFlow.getCapacity(1)).isEqualTo(2_000);
-        softly.assertThat(minCostFlow.getUnitCost(2)).isEqualTo(15_000_000L);
-        softly.assertThat(minCostFlow.getCapacity(2)).isEqualTo(2_000);
-        softly.assertThat(minCostFlow.getUnitCost(3)).isEqualTo(20_000_000L);
-        softly.assertThat(minCostFlow.getCapacity(3)).isEqualTo(2_000);
-        softly.assertThat(minCostFlow.getUnitCost(4)).isEqualTo(25_000_000L);
-        softly.assertThat(minCostFlow.getCapacity(4)).isEqualTo(2_000);
+        softly.assertThat(minCostFlowEngine.getUnitCost(0)).isEqualTo(5_000_000L);
+        softly.assertThat(minCostFlowEngine.getCapacity(0)).isEqualTo(2_000);
+        softly.assertThat(minCostFlowEngine.getUnitCost(1)).isEqualTo(10_000_000L);
+        softly.assertThat(minCostFlowEngine.getCapacity(1)).isEqualTo(2_000);
+        softly.assertThat(minCostFlowEngine.getUnitCost(2)).isEqualTo(15_000_000L);
+        softly.assertThat(minCostFlowEngine.getCapacity(2)).isEqualTo(2_000);
+        softly.assertThat(minCostFlowEngine.getUnitCost(3)).isEqualTo(20_000_000L);
+        softly.assertThat(minCostFlowEngine.getCapacity(3)).isEqualTo(2_000);
+        softly.assertThat(minCostFlowEngine.getUnitCost(4)).isEqualTo(25_000_000L);
+        softly.assertThat(minCostFlowEngine.getCapacity(4)).isEqualTo(2_000);
         softly.assertAll();
     }
 
@@ -463,14 +457,14 @@ class ArcInitializerTest {
         EdgeWithLiquidityInformation edge1 = edge(EDGE, Coins.ofSatoshis(2));
         EdgeWithLiquidityInformation edge2 = edge(EDGE_1_3, Coins.ofSatoshis(3));
         arcInitializer.addArcs(new EdgesWithLiquidityInformation(edge1, edge2));
-        assertThat(minCostFlow.getNumArcs()).isEqualTo(2);
+        assertThat(minCostFlowEngine.getNumArcs()).isEqualTo(2);
     }
 
     @Test
     void parallel_edges_are_not_combined() {
         EdgeWithLiquidityInformation edge = edge(EDGE, Coins.ofSatoshis(2));
         arcInitializer.addArcs(new EdgesWithLiquidityInformation(edge, edge));
-        assertThat(minCostFlow.getNumArcs()).isEqualTo(2);
+        assertThat(minCostFlowEngine.getNumArcs()).isEqualTo(2);
     }
 
     @Test
@@ -478,8 +472,8 @@ class ArcInitializerTest {
         EdgeWithLiquidityInformation edge1 = edge(EDGE, Coins.ofSatoshis(3_000_000));
         EdgeWithLiquidityInformation edge2 = edge(EDGE_1_3, Coins.ofSatoshis(21_000_000_000L));
         arcInitializer.addArcs(new EdgesWithLiquidityInformation(edge1, edge2));
-        assertThat(minCostFlow.getUnitCost(0)).isEqualTo(10 * 21_000 / 3);
-        assertThat(minCostFlow.getUnitCost(1)).isEqualTo(10);
+        assertThat(minCostFlowEngine.getUnitCost(0)).isEqualTo(10 * 21_000 / 3);
+        assertThat(minCostFlowEngine.getUnitCost(1)).isEqualTo(10);
     }
 
     @Test
@@ -490,8 +484,8 @@ class ArcInitializerTest {
                 Coins.ofSatoshis(9_000_000)
         );
         arcInitializer.addArcs(new EdgesWithLiquidityInformation(edge1, edge2));
-        assertThat(minCostFlow.getUnitCost(0)).isEqualTo(10 * 6_000 / 3);
-        assertThat(minCostFlow.getUnitCost(1)).isEqualTo(10 * 6_000 / 9);
+        assertThat(minCostFlowEngine.getUnitCost(0)).isEqualTo(10 * 6_000 / 3);
+        assertThat(minCostFlowEngine.getUnitCost(1)).isEqualTo(10 * 6_000 / 9);
     }
 
     @Test
@@ -499,7 +493,7 @@ class ArcInitializerTest {
         EdgeWithLiquidityInformation edge1 = edge(EDGE, Coins.ofSatoshis(3_000_000));
         EdgeWithLiquidityInformation edge2 = edge(EDGE_1_3, Coins.ofSatoshis(10_000_000_000L));
         arcInitializer.addArcs(new EdgesWithLiquidityInformation(edge1, edge2));
-        assertThat(minCostFlow.getUnitCost(0)).isEqualTo(10 * 10_000 / 3);
+        assertThat(minCostFlowEngine.getUnitCost(0)).isEqualTo(10 * 10_000 / 3);
     }
 
     @Test
@@ -507,7 +501,7 @@ class ArcInitializerTest {
         EdgeWithLiquidityInformation edge1 = edge(EDGE, Coins.ofSatoshis(2_000_000_000));
         EdgeWithLiquidityInformation edge2 = edge(EDGE_1_3, Coins.ofSatoshis(4_999_999_999L));
         arcInitializer.addArcs(new EdgesWithLiquidityInformation(edge1, edge2));
-        assertThat(minCostFlow.getUnitCost(0)).isEqualTo(10 * 5_000_000_000L / 2_000_000_000);
+        assertThat(minCostFlowEngine.getUnitCost(0)).isEqualTo(10 * 5_000_000_000L / 2_000_000_000);
     }
 
     @Test
@@ -515,7 +509,7 @@ class ArcInitializerTest {
         EdgeWithLiquidityInformation edge1 = edge(EDGE, Coins.ofSatoshis(2_000_000_000));
         EdgeWithLiquidityInformation edge2 = edge(EDGE_1_3, Coins.ofSatoshis(5_000_000_001L));
         arcInitializer.addArcs(new EdgesWithLiquidityInformation(edge1, edge2));
-        assertThat(minCostFlow.getUnitCost(0)).isEqualTo(10 * 5_000_000_001L / 2_000_000_000);
+        assertThat(minCostFlowEngine.getUnitCost(0)).isEqualTo(10 * 5_000_000_001L / 2_000_000_000);
     }
 
     @Test
@@ -524,27 +518,27 @@ class ArcInitializerTest {
         EdgeWithLiquidityInformation edge2 = edge(EDGE_1_3, Coins.ofSatoshis(6_000_000_000L));
         EdgeWithLiquidityInformation edge3 = edge(EDGE_1_3, Coins.ofSatoshis(7_000_000_000L));
         arcInitializer.addArcs(new EdgesWithLiquidityInformation(edge1, edge2, edge3));
-        assertThat(minCostFlow.getUnitCost(0)).isEqualTo(10 * 7_000 / 2);
+        assertThat(minCostFlowEngine.getUnitCost(0)).isEqualTo(10 * 7_000 / 2);
     }
 
     @Test
     void computes_unit_cost_with_fee_rate_weight() {
         EdgeWithLiquidityInformation edge1 = setupWithTwoEdges(2_000_000, 4_000_000);
-        assertThat(minCostFlow.getUnitCost(0)).isEqualTo(10 * 5_000 / 2 + edge1.edge().policy().feeRate());
+        assertThat(minCostFlowEngine.getUnitCost(0)).isEqualTo(10 * 5_000 / 2 + edge1.edge().policy().feeRate());
     }
 
     @Test
     void unit_cost_with_fee_rate_weight_is_not_affected_by_size_of_largest_channel_below_assumed_maximum() {
         // same as above, but with larger second channel
         EdgeWithLiquidityInformation edge1 = setupWithTwoEdges(3_000_000, 5_000_000);
-        assertThat(minCostFlow.getUnitCost(0)).isEqualTo(10 * 5_000 / 3 + edge1.edge().policy().feeRate());
+        assertThat(minCostFlowEngine.getUnitCost(0)).isEqualTo(10 * 5_000 / 3 + edge1.edge().policy().feeRate());
     }
 
     @Test
     void unit_cost_with_fee_rate_weight_is_affected_by_size_of_largest_channel_above_assumed_maximum() {
         // same as above, but with much larger second channel
         EdgeWithLiquidityInformation edge1 = setupWithTwoEdges(4_000_000, 7_000_000_000L);
-        assertThat(minCostFlow.getUnitCost(0)).isEqualTo(10 * 7_000 / 4 + edge1.edge().policy().feeRate());
+        assertThat(minCostFlowEngine.getUnitCost(0)).isEqualTo(10 * 7_000 / 4 + edge1.edge().policy().feeRate());
     }
 
     @Test
@@ -552,7 +546,7 @@ class ArcInitializerTest {
         // same as above, but with much larger second channel
         int feeRateWeight = 1;
         ArcInitializer arcInitializer = new ArcInitializer(
-                minCostFlow,
+                minCostFlowEngine,
                 integerMapping,
                 edgeMapping,
                 QUANTIZATION,
@@ -563,7 +557,7 @@ class ArcInitializerTest {
         );
         EdgeWithLiquidityInformation edge = edge(EDGE, Coins.ofSatoshis(4_000_000));
         arcInitializer.addArcs(new EdgesWithLiquidityInformation(edge));
-        assertThat(minCostFlow.getUnitCost(0)).isEqualTo(10 * 5_000 / 4);
+        assertThat(minCostFlowEngine.getUnitCost(0)).isEqualTo(10 * 5_000 / 4);
     }
 
     @Test
@@ -571,7 +565,7 @@ class ArcInitializerTest {
         ArcInitializer arcInitializer = getArcInitializerConsideringFeesForLocalChannel();
         EdgeWithLiquidityInformation edge = edge(EDGE, Coins.ofSatoshis(6_000_000));
         arcInitializer.addArcs(new EdgesWithLiquidityInformation(edge));
-        assertThat(minCostFlow.getUnitCost(0)).isEqualTo(10 * 5_000 / 6 + 200);
+        assertThat(minCostFlowEngine.getUnitCost(0)).isEqualTo(10 * 5_000 / 6 + 200);
     }
 
     @Test
@@ -579,7 +573,7 @@ class ArcInitializerTest {
         // same as above, but with much larger second channel
         int feeRateWeight = 1;
         ArcInitializer arcInitializer = new ArcInitializer(
-                minCostFlow,
+                minCostFlowEngine,
                 integerMapping,
                 edgeMapping,
                 QUANTIZATION,
@@ -593,7 +587,7 @@ class ArcInitializerTest {
         EdgeWithLiquidityInformation edge =
                 EdgeWithLiquidityInformation.forKnownLiquidity(edgeWithCapacity, Coins.ofSatoshis(2_000_000));
         arcInitializer.addArcs(new EdgesWithLiquidityInformation(edge));
-        assertThat(minCostFlow.getUnitCost(0)).isEqualTo(0);
+        assertThat(minCostFlowEngine.getUnitCost(0)).isEqualTo(0);
     }
 
     @Test
@@ -604,12 +598,12 @@ class ArcInitializerTest {
         EdgeWithLiquidityInformation edge =
                 EdgeWithLiquidityInformation.forKnownLiquidity(edgeWithCapacity, Coins.ofSatoshis(2_000_000));
         arcInitializer.addArcs(new EdgesWithLiquidityInformation(edge));
-        assertThat(minCostFlow.getUnitCost(0)).isEqualTo(200);
+        assertThat(minCostFlowEngine.getUnitCost(0)).isEqualTo(200);
     }
 
     private ArcInitializer getArcInitializerConsideringFeesForLocalChannel() {
         return new ArcInitializer(
-                minCostFlow,
+                minCostFlowEngine,
                 integerMapping,
                 edgeMapping,
                 QUANTIZATION,
@@ -623,7 +617,7 @@ class ArcInitializerTest {
     private EdgeWithLiquidityInformation setupWithTwoEdges(long capacitySmaller, long capacityLarger) {
         int feeRateWeight = 1;
         ArcInitializer arcInitializer = new ArcInitializer(
-                minCostFlow,
+                minCostFlowEngine,
                 integerMapping,
                 edgeMapping,
                 QUANTIZATION,
@@ -645,7 +639,7 @@ class ArcInitializerTest {
 
     private ArcInitializer getArcInitializerWithQuantization(int quantization) {
         return new ArcInitializer(
-                minCostFlow,
+                minCostFlowEngine,
                 integerMapping,
                 edgeMapping,
                 quantization,
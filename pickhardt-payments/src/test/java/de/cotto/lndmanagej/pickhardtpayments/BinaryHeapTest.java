@@ -0,0 +1,52 @@
+package de.cotto.lndmanagej.pickhardtpayments;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BinaryHeapTest {
+    private final BinaryHeap heap = new BinaryHeap(1);
+
+    @Test
+    void empty() {
+        assertThat(heap.isEmpty()).isTrue();
+    }
+
+    @Test
+    void not_empty() {
+        heap.push(1, 2);
+        assertThat(heap.isEmpty()).isFalse();
+    }
+
+    @Test
+    void clear() {
+        heap.push(1, 2);
+        heap.clear();
+        assertThat(heap.isEmpty()).isTrue();
+    }
+
+    @Test
+    void pops_values_ordered_by_key() {
+        heap.push(5, 50);
+        heap.push(1, 10);
+        heap.push(3, 30);
+        heap.push(2, 20);
+        heap.push(4, 40);
+        assertThat(heap.peekKey()).isEqualTo(1);
+        assertThat(heap.pop()).isEqualTo(10);
+        assertThat(heap.pop()).isEqualTo(20);
+        assertThat(heap.pop()).isEqualTo(30);
+        assertThat(heap.pop()).isEqualTo(40);
+        assertThat(heap.pop()).isEqualTo(50);
+        assertThat(heap.isEmpty()).isTrue();
+    }
+
+    @Test
+    void same_value_with_different_keys() {
+        heap.push(7, 1);
+        heap.push(3, 1);
+        assertThat(heap.peekKey()).isEqualTo(3);
+        assertThat(heap.pop()).isEqualTo(1);
+        assertThat(heap.peekKey()).isEqualTo(7);
+    }
+}
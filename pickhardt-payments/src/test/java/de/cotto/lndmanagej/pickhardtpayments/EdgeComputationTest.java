@@ -1,5 +1,6 @@
 package de.cotto.lndmanagej.pickhardtpayments;
 
+import de.cotto.lndmanagej.grpc.GraphSnapshot;
 import de.cotto.lndmanagej.grpc.GrpcGetInfo;
 import de.cotto.lndmanagej.grpc.GrpcGraph;
 import de.cotto.lndmanagej.grpc.middleware.GrpcMiddlewareService;
@@ -48,6 +49,7 @@ import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_4;
 import static de.cotto.lndmanagej.pickhardtpayments.model.PaymentOptions.DEFAULT_PAYMENT_OPTIONS;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -89,6 +91,8 @@ class EdgeComputationTest {
         lenient().when(grpcGetInfo.getPubkey()).thenReturn(PUBKEY_4);
         lenient().when(nodeService.getNode(any())).thenReturn(NODE_PEER);
         lenient().when(liquidityBoundsService.getAssumedLiquidityLowerBound(any())).thenReturn(Coins.NONE);
+        lenient().when(liquidityBoundsService.getAssumedLiquidityUpperBoundMilliSat(any(), any(), anyLong()))
+                .thenReturn(Long.MAX_VALUE);
         lenient().when(grpcMiddlewareService.isConnected()).thenReturn(true);
     }
 
@@ -106,7 +110,7 @@ class EdgeComputationTest {
     @Test
     void does_not_add_edge_for_disabled_channel() {
         DirectedChannelEdge edge = new DirectedChannelEdge(CHANNEL_ID, CAPACITY, PUBKEY, PUBKEY_2, POLICY_DISABLED);
-        when(grpcGraph.getChannelEdges()).thenReturn(Optional.of(Set.of(edge)));
+        mockGraph(edge);
         assertThat(edgeComputation.getEdges(DEFAULT_PAYMENT_OPTIONS, MAX_TIME_LOCK_DELTA).edges()).isEmpty();
     }
 
@@ -116,7 +120,7 @@ class EdgeComputationTest {
         int maximumTimeLockDelta = edgeDelta - 1;
         Policy policy = new Policy(0, Coins.NONE, true, edgeDelta, Coins.ofSatoshis(10_000));
         DirectedChannelEdge edge = new DirectedChannelEdge(CHANNEL_ID, CAPACITY, PUBKEY, PUBKEY_2, policy);
-        when(grpcGraph.getChannelEdges()).thenReturn(Optional.of(Set.of(edge)));
+        mockGraph(edge);
         assertThat(edgeComputation.getEdges(DEFAULT_PAYMENT_OPTIONS, maximumTimeLockDelta).edges()).isEmpty();
     }
 
@@ -134,7 +138,7 @@ class EdgeComputationTest {
                 new DirectedChannelEdge(CHANNEL_ID_2, CAPACITY, PUBKEY, PUBKEY_2, policyAtLimit);
         DirectedChannelEdge edgeOk =
                 new DirectedChannelEdge(CHANNEL_ID_3, CAPACITY, PUBKEY, PUBKEY_2, policyOk);
-        when(grpcGraph.getChannelEdges()).thenReturn(Optional.of(Set.of(edgeExpensive, edgeAtLimit, edgeOk)));
+        mockGraph(edgeExpensive, edgeAtLimit, edgeOk);
         assertThat(
                 edgeComputation.getEdges(paymentOptions, MAX_TIME_LOCK_DELTA).edges().stream()
                         .map(EdgeWithLiquidityInformation::channelId)
@@ -159,7 +163,7 @@ class EdgeComputationTest {
                 new DirectedChannelEdge(CHANNEL_ID_2, CAPACITY, ownPubkey, PUBKEY_2, firstHopPolicyExpensive);
         DirectedChannelEdge firstHopOk =
                 new DirectedChannelEdge(CHANNEL_ID_3, CAPACITY, ownPubkey, PUBKEY_2, firstHopPolicyOk);
-        when(grpcGraph.getChannelEdges()).thenReturn(Optional.of(Set.of(lastHop, firstHopExpensive, firstHopOk)));
+        mockGraph(lastHop, firstHopExpensive, firstHopOk);
         assertThat(
                 edgeComputation.getEdges(paymentOptions, MAX_TIME_LOCK_DELTA).edges().stream()
                         .map(EdgeWithLiquidityInformation::channelId)
@@ -176,7 +180,7 @@ class EdgeComputationTest {
         Policy firstHopPolicyExpensive = policy(100);
         DirectedChannelEdge firstHopExpensiveButOk =
                 new DirectedChannelEdge(CHANNEL_ID_2, CAPACITY, ownPubkey, PUBKEY_2, firstHopPolicyExpensive);
-        when(grpcGraph.getChannelEdges()).thenReturn(Optional.of(Set.of(firstHopExpensiveButOk)));
+        mockGraph(firstHopExpensiveButOk);
         assertThat(
                 edgeComputation.getEdges(paymentOptions, MAX_TIME_LOCK_DELTA).edges().stream()
                         .map(EdgeWithLiquidityInformation::channelId)
@@ -187,7 +191,7 @@ class EdgeComputationTest {
     void adds_edge_for_channel_with_base_fee() {
         DirectedChannelEdge edge =
                 new DirectedChannelEdge(CHANNEL_ID, CAPACITY, PUBKEY, PUBKEY_2, POLICY_WITH_BASE_FEE);
-        when(grpcGraph.getChannelEdges()).thenReturn(Optional.of(Set.of(edge)));
+        mockGraph(edge);
         assertThat(edgeComputation.getEdges(DEFAULT_PAYMENT_OPTIONS, MAX_TIME_LOCK_DELTA).edges()).isNotEmpty();
     }
 
@@ -223,7 +227,7 @@ class EdgeComputationTest {
 
     @Test
     void adds_edge_from_route_hint_service() {
-        when(grpcGraph.getChannelEdges()).thenReturn(Optional.of(Set.of()));
+        mockGraph();
         Coins fiftyCoins = Coins.ofSatoshis(5_000_000_000L);
         Policy policy = new Policy(200, Coins.NONE, true, 40, fiftyCoins);
         Edge edge = new Edge(CHANNEL_ID, PUBKEY, PUBKEY_2, fiftyCoins, policy);
@@ -240,6 +244,44 @@ class EdgeComputationTest {
                 .contains(EdgeWithLiquidityInformation.forKnownLiquidity(edge, fiftyCoins));
     }
 
+    @Test
+    void uses_liquidity_information_for_edge_both_in_graph_and_in_route_hints() {
+        DirectedChannelEdge channelEdge = new DirectedChannelEdge(CHANNEL_ID, CAPACITY, PUBKEY, PUBKEY_2, POLICY_1);
+        mockGraph(channelEdge);
+        when(routeHintService.getEdgesFromPaymentHints()).thenReturn(Set.of(channelEdge));
+        assertThat(edgeComputation.getEdges(DEFAULT_PAYMENT_OPTIONS, MAX_TIME_LOCK_DELTA).edges())
+                .containsExactly(EdgeWithLiquidityInformation.forKnownLiquidity(EDGE, EDGE.capacity()));
+    }
+
+    @Test
+    void reuses_graph_until_refreshed() {
+        mockEdge();
+        edgeComputation.getEdges(DEFAULT_PAYMENT_OPTIONS, MAX_TIME_LOCK_DELTA);
+        DirectedChannelEdge edge = new DirectedChannelEdge(CHANNEL_ID_2, CAPACITY, PUBKEY, PUBKEY_2, POLICY_1);
+        mockGraph(2, edge);
+        assertThat(edgeComputation.getEdges(DEFAULT_PAYMENT_OPTIONS, MAX_TIME_LOCK_DELTA).edges().stream()
+                .map(EdgeWithLiquidityInformation::channelId)
+        ).containsExactly(CHANNEL_ID_2);
+    }
+
+    @Test
+    void reuses_graph_for_same_snapshot_version() {
+        mockEdge();
+        edgeComputation.getEdges(DEFAULT_PAYMENT_OPTIONS, MAX_TIME_LOCK_DELTA);
+        DirectedChannelEdge edge = new DirectedChannelEdge(CHANNEL_ID_2, CAPACITY, PUBKEY, PUBKEY_2, POLICY_1);
+        mockGraph(edge);
+        assertThat(edgeComputation.getEdges(DEFAULT_PAYMENT_OPTIONS, MAX_TIME_LOCK_DELTA).edges().stream()
+                .map(EdgeWithLiquidityInformation::channelId)
+        ).containsExactly(CHANNEL_ID);
+    }
+
+    @Test
+    void maximum_capacity() {
+        mockEdge();
+        assertThat(edgeComputation.getEdges(DEFAULT_PAYMENT_OPTIONS, MAX_TIME_LOCK_DELTA).maximumCapacity())
+                .isEqualTo(CAPACITY);
+    }
+
     @Test
     void local_channel_not_found_as_end_node() {
         mockEdge();
@@ -298,11 +340,38 @@ class EdgeComputationTest {
     void adds_upper_bound_from_liquidity_bounds_service() {
         mockEdge();
         Coins upperBound = Coins.ofSatoshis(100);
-        mockUpperBound(upperBound);
+        when(liquidityBoundsService.getAssumedLiquidityUpperBoundMilliSat(
+                PUBKEY, PUBKEY_2, POLICY_1.maxHtlc().milliSatoshis()
+        )).thenReturn(upperBound.milliSatoshis());
         assertThat(edgeComputation.getEdges(DEFAULT_PAYMENT_OPTIONS, MAX_TIME_LOCK_DELTA).edges())
                 .contains(EdgeWithLiquidityInformation.forUpperBound(EDGE, upperBound));
     }
 
+    @Test
+    void adds_lower_bound_from_liquidity_bounds_service() {
+        mockEdge();
+        Coins lowerBound = Coins.ofSatoshis(100);
+        when(liquidityBoundsService.getAssumedLiquidityLowerBoundMilliSat(
+                PUBKEY, PUBKEY_2, POLICY_1.maxHtlc().milliSatoshis()
+        )).thenReturn(lowerBound.milliSatoshis());
+        assertThat(edgeComputation.getEdges(DEFAULT_PAYMENT_OPTIONS, MAX_TIME_LOCK_DELTA).edges())
+                .contains(EdgeWithLiquidityInformation.forLowerBound(EDGE, lowerBound));
+    }
+
+    @Test
+    void upper_bound_from_liquidity_bounds_service_is_not_below_lower_bound() {
+        mockEdge();
+        Coins lowerBound = Coins.ofSatoshis(100);
+        when(liquidityBoundsService.getAssumedLiquidityLowerBoundMilliSat(
+                PUBKEY, PUBKEY_2, POLICY_1.maxHtlc().milliSatoshis()
+        )).thenReturn(lowerBound.milliSatoshis());
+        when(liquidityBoundsService.getAssumedLiquidityUpperBoundMilliSat(
+                PUBKEY, PUBKEY_2, POLICY_1.maxHtlc().milliSatoshis()
+        )).thenReturn(50_000L);
+        assertThat(edgeComputation.getEdges(DEFAULT_PAYMENT_OPTIONS, MAX_TIME_LOCK_DELTA).edges())
+                .contains(EdgeWithLiquidityInformation.forLowerAndUpperBound(EDGE, lowerBound, lowerBound));
+    }
+
     @Test
     void default_if_no_liquidity_information_is_known() {
         mockEdge();
@@ -405,7 +474,15 @@ class EdgeComputationTest {
 
     private void mockEdge() {
         DirectedChannelEdge edge = new DirectedChannelEdge(CHANNEL_ID, CAPACITY, PUBKEY, PUBKEY_2, POLICY_1);
-        when(grpcGraph.getChannelEdges()).thenReturn(Optional.of(Set.of(edge)));
+        mockGraph(edge);
+    }
+
+    private void mockGraph(DirectedChannelEdge... edges) {
+        mockGraph(1, edges);
+    }
+
+    private void mockGraph(long version, DirectedChannelEdge... edges) {
+        when(grpcGraph.getSnapshot()).thenReturn(Optional.of(new GraphSnapshot(version, Set.of(edges))));
     }
 
     private static Policy policy(int feeRate) {
@@ -0,0 +1,255 @@
+package de.cotto.lndmanagej.pickhardtpayments;
+
+import de.cotto.lndmanagej.model.ChannelId;
+import de.cotto.lndmanagej.model.Coins;
+import de.cotto.lndmanagej.model.DirectedChannelEdge;
+import de.cotto.lndmanagej.model.Edge;
+import de.cotto.lndmanagej.model.EdgeWithLiquidityInformation;
+import de.cotto.lndmanagej.model.Policy;
+import de.cotto.lndmanagej.model.Pubkey;
+import de.cotto.lndmanagej.pickhardtpayments.model.CompressedEdgeList;
+import de.cotto.lndmanagej.pickhardtpayments.model.CompressedGraph;
+import de.cotto.lndmanagej.pickhardtpayments.model.EdgesWithLiquidityInformation;
+import de.cotto.lndmanagej.pickhardtpayments.model.PaymentOptions;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID;
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID_2;
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID_3;
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY;
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_2;
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_3;
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_4;
+import static de.cotto.lndmanagej.pickhardtpayments.model.PaymentOptions.DEFAULT_PAYMENT_OPTIONS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EdgePrunerTest {
+    private static final Coins CAPACITY = Coins.ofSatoshis(1_000_000);
+    private static final int QUANTIZATION = 1;
+    private static final int MAXIMUM_TIME_LOCK_DELTA = 2016;
+
+    private final EdgePruner edgePruner =
+            new EdgePruner(PUBKEY, PUBKEY_4, QUANTIZATION, MAXIMUM_TIME_LOCK_DELTA, DEFAULT_PAYMENT_OPTIONS);
+
+    @Test
+    void empty() {
+        EdgesWithLiquidityInformation edges = EdgesWithLiquidityInformation.EMPTY;
+        assertThat(edgePruner.prune(edges)).isSameAs(edges);
+    }
+
+    @Test
+    void keeps_all_edges_on_paths_from_source_to_target() {
+        EdgesWithLiquidityInformation edges = new EdgesWithLiquidityInformation(
+                edge(CHANNEL_ID, PUBKEY, PUBKEY_2),
+                edge(CHANNEL_ID_2, PUBKEY_2, PUBKEY_4),
+                edge(CHANNEL_ID_3, PUBKEY, PUBKEY_4)
+        );
+        assertThat(edgePruner.prune(edges)).isSameAs(edges);
+    }
+
+    @Test
+    void removes_edge_not_reachable_from_source() {
+        EdgeWithLiquidityInformation direct = edge(CHANNEL_ID, PUBKEY, PUBKEY_4);
+        EdgeWithLiquidityInformation unreachable = edge(CHANNEL_ID_2, PUBKEY_3, PUBKEY_4);
+        EdgesWithLiquidityInformation edges = new EdgesWithLiquidityInformation(direct, unreachable);
+        assertThat(edgePruner.prune(edges).edges()).containsExactly(direct);
+    }
+
+    @Test
+    void removes_edge_not_leading_to_target() {
+        EdgeWithLiquidityInformation direct = edge(CHANNEL_ID, PUBKEY, PUBKEY_4);
+        EdgeWithLiquidityInformation deadEnd = edge(CHANNEL_ID_2, PUBKEY, PUBKEY_3);
+        EdgesWithLiquidityInformation edges = new EdgesWithLiquidityInformation(direct, deadEnd);
+        assertThat(edgePruner.prune(edges).edges()).containsExactly(direct);
+    }
+
+    @Test
+    void removes_edges_behind_edge_without_capacity() {
+        EdgeWithLiquidityInformation direct = edge(CHANNEL_ID, PUBKEY, PUBKEY_4);
+        EdgeWithLiquidityInformation firstHop = EdgeWithLiquidityInformation.forKnownLiquidity(
+                new Edge(CHANNEL_ID_2, PUBKEY, PUBKEY_2, CAPACITY, policy(0, 40)),
+                Coins.ofSatoshis(1)
+        );
+        EdgeWithLiquidityInformation secondHop = edge(CHANNEL_ID_3, PUBKEY_2, PUBKEY_4);
+        EdgesWithLiquidityInformation edges = new EdgesWithLiquidityInformation(direct, firstHop, secondHop);
+        assertThat(edgePruner.prune(edges).edges()).containsExactly(direct);
+    }
+
+    @Test
+    void keeps_maximum_capacity() {
+        EdgesWithLiquidityInformation edges = new EdgesWithLiquidityInformation(
+                edge(CHANNEL_ID, PUBKEY, PUBKEY_4),
+                edge(CHANNEL_ID_2, PUBKEY_3, PUBKEY_4)
+        );
+        assertThat(edgePruner.prune(edges).maximumCapacity()).isEqualTo(edges.maximumCapacity());
+    }
+
+    @Test
+    void removes_routes_with_too_many_hops() {
+        List<Pubkey> nodes = new ArrayList<>();
+        nodes.add(PUBKEY);
+        IntStream.range(0, EdgePruner.MAXIMUM_NUMBER_OF_HOPS).mapToObj(EdgePrunerTest::pubkey).forEach(nodes::add);
+        List<EdgeWithLiquidityInformation> longRoute = new ArrayList<>();
+        for (int i = 0; i < nodes.size() - 1; i++) {
+            longRoute.add(edge(ChannelId.fromShortChannelId(1_000 + i), nodes.get(i), nodes.get(i + 1)));
+        }
+        Pubkey lastNode = nodes.get(nodes.size() - 1);
+
+        EdgePruner maximumHops = new EdgePruner(PUBKEY, lastNode, QUANTIZATION, 20_000, DEFAULT_PAYMENT_OPTIONS);
+        assertThat(maximumHops.prune(new EdgesWithLiquidityInformation(longRoute)).edges()).hasSize(27);
+
+        longRoute.add(edge(CHANNEL_ID, lastNode, PUBKEY_4));
+        EdgePruner tooManyHops = new EdgePruner(PUBKEY, PUBKEY_4, QUANTIZATION, 20_000, DEFAULT_PAYMENT_OPTIONS);
+        assertThat(tooManyHops.prune(new EdgesWithLiquidityInformation(longRoute)).edges()).isEmpty();
+    }
+
+    @Nested
+    class TimeLock {
+        private final EdgeWithLiquidityInformation firstHop =
+                edge(CHANNEL_ID, PUBKEY, PUBKEY_2, policy(0, 1_000));
+        private final EdgeWithLiquidityInformation secondHop =
+                edge(CHANNEL_ID_2, PUBKEY_2, PUBKEY_3, policy(0, 40));
+        private final EdgeWithLiquidityInformation thirdHop =
+                edge(CHANNEL_ID_3, PUBKEY_3, PUBKEY_4, policy(0, 60));
+        private final EdgesWithLiquidityInformation edges =
+                new EdgesWithLiquidityInformation(firstHop, secondHop, thirdHop);
+
+        @Test
+        void ignores_time_lock_delta_of_first_hop() {
+            EdgePruner pruner = new EdgePruner(PUBKEY, PUBKEY_4, QUANTIZATION, 100, DEFAULT_PAYMENT_OPTIONS);
+            assertThat(pruner.prune(edges)).isSameAs(edges);
+        }
+
+        @Test
+        void removes_routes_exceeding_time_lock_budget() {
+            EdgePruner pruner = new EdgePruner(PUBKEY, PUBKEY_4, QUANTIZATION, 99, DEFAULT_PAYMENT_OPTIONS);
+            assertThat(pruner.prune(edges).edges()).isEmpty();
+        }
+    }
+
+    @Nested
+    class FeeRate {
+        private static final int LARGE_QUANTIZATION = 10_000;
+        private final EdgeWithLiquidityInformation firstHop =
+                edge(CHANNEL_ID, PUBKEY, PUBKEY_2, policy(1_000, 40));
+        private final EdgeWithLiquidityInformation secondHop =
+                edge(CHANNEL_ID_2, PUBKEY_2, PUBKEY_3, policy(200, 40));
+        private final EdgeWithLiquidityInformation thirdHop =
+                edge(CHANNEL_ID_3, PUBKEY_3, PUBKEY_4, policy(250, 40));
+        private final EdgesWithLiquidityInformation edges =
+                new EdgesWithLiquidityInformation(firstHop, secondHop, thirdHop);
+
+        @Test
+        void ignores_fee_rate_without_limit() {
+            assertThat(getPruner(DEFAULT_PAYMENT_OPTIONS).prune(edges)).isSameAs(edges);
+        }
+
+        @Test
+        void keeps_routes_within_fee_rate_limit() {
+            assertThat(getPruner(PaymentOptions.forFeeRateLimit(450)).prune(edges)).isSameAs(edges);
+        }
+
+        @Test
+        void keeps_routes_within_rounding_allowance() {
+            assertThat(getPruner(PaymentOptions.forFeeRateLimit(450 - 28)).prune(edges)).isSameAs(edges);
+        }
+
+        @Test
+        void removes_routes_exceeding_fee_rate_limit() {
+            assertThat(getPruner(PaymentOptions.forFeeRateLimit(450 - 29)).prune(edges).edges()).isEmpty();
+        }
+
+        @Test
+        void considers_first_hop_if_fees_for_own_channels_are_not_ignored() {
+            PaymentOptions paymentOptions = new PaymentOptions(
+                    DEFAULT_PAYMENT_OPTIONS.feeRateWeight(),
+                    Optional.of(1_000L),
+                    Optional.empty(),
+                    false,
+                    Optional.empty()
+            );
+            assertThat(getPruner(paymentOptions).prune(edges).edges()).isEmpty();
+        }
+
+        private EdgePruner getPruner(PaymentOptions paymentOptions) {
+            return new EdgePruner(PUBKEY, PUBKEY_4, LARGE_QUANTIZATION, MAXIMUM_TIME_LOCK_DELTA, paymentOptions);
+        }
+    }
+
+    @Nested
+    class Compressed {
+        private final CompressedGraph graph = CompressedGraph.create(List.of(
+                new DirectedChannelEdge(CHANNEL_ID, CAPACITY, PUBKEY, PUBKEY_4, policy(0, 40)),
+                new DirectedChannelEdge(CHANNEL_ID_2, CAPACITY, PUBKEY_2, PUBKEY_3, policy(0, 40))
+        ));
+        private final EdgeWithLiquidityInformation additionalEdge = edge(CHANNEL_ID_3, PUBKEY, PUBKEY_3);
+        private final EdgeWithLiquidityInformation additionalEdgeToTarget =
+                edge(ChannelId.fromShortChannelId(1_234), PUBKEY_3, PUBKEY_4);
+
+        @Test
+        void keeps_graph_edges_with_bounds() {
+            CompressedEdgeList edgeList = new CompressedEdgeList(
+                    graph,
+                    new int[]{1, 0},
+                    new long[]{0, 5_000_000},
+                    new long[]{1_000_000, 6_000_000},
+                    2,
+                    List.of()
+            );
+            EdgesWithLiquidityInformation pruned =
+                    edgePruner.prune(new EdgesWithLiquidityInformation(edgeList, CAPACITY));
+            CompressedEdgeList prunedList = (CompressedEdgeList) pruned.edges();
+            assertThat(prunedList.getGraph()).isSameAs(graph);
+            assertThat(prunedList.getNumberOfGraphEdges()).isEqualTo(1);
+            assertThat(prunedList.getGraphEdge(0)).isEqualTo(0);
+            assertThat(prunedList.getLowerBoundMilliSat(0)).isEqualTo(5_000_000);
+            assertThat(prunedList.getUpperBoundMilliSat(0)).isEqualTo(6_000_000);
+            assertThat(prunedList.getAdditionalEdges()).isEmpty();
+        }
+
+        @Test
+        void keeps_additional_edges_on_path() {
+            CompressedEdgeList edgeList = new CompressedEdgeList(
+                    graph,
+                    new int[]{0, 1},
+                    new long[]{0, 0},
+                    new long[]{1_000_000, 1_000_000},
+                    2,
+                    List.of(additionalEdge, additionalEdgeToTarget)
+            );
+            EdgesWithLiquidityInformation pruned =
+                    edgePruner.prune(new EdgesWithLiquidityInformation(edgeList, CAPACITY));
+            CompressedEdgeList prunedList = (CompressedEdgeList) pruned.edges();
+            assertThat(prunedList.getNumberOfGraphEdges()).isEqualTo(1);
+            assertThat(prunedList.getAdditionalEdges()).containsExactly(additionalEdge, additionalEdgeToTarget);
+        }
+    }
+
+    private static Pubkey pubkey(int index) {
+        return Pubkey.create("02" + "%064x".formatted(index + 1));
+    }
+
+    private static EdgeWithLiquidityInformation edge(ChannelId channelId, Pubkey source, Pubkey target) {
+        return edge(channelId, source, target, policy(0, 40));
+    }
+
+    private static EdgeWithLiquidityInformation edge(
+            ChannelId channelId,
+            Pubkey source,
+            Pubkey target,
+            Policy policy
+    ) {
+        Edge edge = new Edge(channelId, source, target, CAPACITY, policy);
+        return EdgeWithLiquidityInformation.forUpperBound(edge, CAPACITY);
+    }
+
+    private static Policy policy(long feeRate, int timeLockDelta) {
+        return new Policy(feeRate, Coins.NONE, true, timeLockDelta, CAPACITY);
+    }
+}
@@ -3,8 +3,12 @@ package de.cotto.lndmanagej.pickhardtpayments;
 import de.cotto.lndmanagej.configuration.ConfigurationService;
 import de.cotto.lndmanagej.grpc.GrpcGetInfo;
 import de.cotto.lndmanagej.model.Coins;
+import de.cotto.lndmanagej.model.DirectedChannelEdge;
 import de.cotto.lndmanagej.model.Edge;
 import de.cotto.lndmanagej.model.EdgeWithLiquidityInformation;
+import de.cotto.lndmanagej.model.Pubkey;
+import de.cotto.lndmanagej.pickhardtpayments.model.CompressedEdgeList;
+import de.cotto.lndmanagej.pickhardtpayments.model.CompressedGraph;
 import de.cotto.lndmanagej.pickhardtpayments.model.EdgesWithLiquidityInformation;
 import de.cotto.lndmanagej.pickhardtpayments.model.Flow;
 import de.cotto.lndmanagej.pickhardtpayments.model.Flows;
@@ -15,14 +19,21 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import static de.cotto.lndmanagej.configuration.PickhardtPaymentsConfigurationSettings.ADAPTIVE_QUANTIZATION;
+import static de.cotto.lndmanagej.configuration.PickhardtPaymentsConfigurationSettings.MIN_COST_FLOW_ENGINE;
 import static de.cotto.lndmanagej.configuration.PickhardtPaymentsConfigurationSettings.PIECEWISE_LINEAR_APPROXIMATIONS;
 import static de.cotto.lndmanagej.configuration.PickhardtPaymentsConfigurationSettings.QUANTIZATION;
 import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID;
 import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID_2;
 import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID_3;
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID_4;
 import static de.cotto.lndmanagej.model.EdgeFixtures.EDGE;
+import static de.cotto.lndmanagej.model.EdgeFixtures.EDGE_1_3;
 import static de.cotto.lndmanagej.model.PolicyFixtures.POLICY_1;
 import static de.cotto.lndmanagej.model.PolicyFixtures.POLICY_2;
 import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY;
@@ -33,6 +44,7 @@ import static de.cotto.lndmanagej.pickhardtpayments.model.PaymentOptions.DEFAULT
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -54,8 +66,9 @@ class FlowComputationTest {
 
     @BeforeEach
     void setUp() {
-        when(configurationService.getIntegerValue(QUANTIZATION)).thenReturn(Optional.of(1));
-        when(configurationService.getIntegerValue(PIECEWISE_LINEAR_APPROXIMATIONS)).thenReturn(Optional.of(1));
+        lenient().when(configurationService.getIntegerValue(QUANTIZATION)).thenReturn(Optional.of(1));
+        lenient().when(configurationService.getIntegerValue(PIECEWISE_LINEAR_APPROXIMATIONS))
+                .thenReturn(Optional.of(1));
         flowComputation = new FlowComputation(edgeComputation, grpcGetInfo, configurationService);
         lenient().when(grpcGetInfo.getPubkey()).thenReturn(PUBKEY);
     }
@@ -108,6 +121,74 @@ class FlowComputationTest {
         )).isEqualTo(new Flows(expectedFlow));
     }
 
+    @Test
+    void solve_with_successive_shortest_path_engine() {
+        when(configurationService.getStringValue(MIN_COST_FLOW_ENGINE))
+                .thenReturn(Optional.of("successive-shortest-path"));
+        Coins amount = Coins.ofSatoshis(1);
+        EdgeWithLiquidityInformation edge = EdgeWithLiquidityInformation.forUpperBound(EDGE, EDGE.capacity());
+        when(edgeComputation.getEdges(DEFAULT_PAYMENT_OPTIONS, MAX_TIME_LOCK_DELTA))
+                .thenReturn(new EdgesWithLiquidityInformation(edge));
+        assertThat(flowComputation.getOptimalFlows(
+                PUBKEY,
+                PUBKEY_2,
+                amount,
+                DEFAULT_PAYMENT_OPTIONS,
+                MAX_TIME_LOCK_DELTA
+        )).isEqualTo(new Flows(new Flow(EDGE, amount)));
+    }
+
+    @Test
+    void solve_repeatedly_with_successive_shortest_path_engine() {
+        when(configurationService.getStringValue(MIN_COST_FLOW_ENGINE))
+                .thenReturn(Optional.of("successive-shortest-path"));
+        CompressedGraph graph = CompressedGraph.create(List.of(
+                new DirectedChannelEdge(CHANNEL_ID, LARGE, PUBKEY, PUBKEY_2, POLICY_1),
+                new DirectedChannelEdge(CHANNEL_ID_2, LARGE, PUBKEY, PUBKEY_2, POLICY_2)
+        ));
+        Coins amount = Coins.ofSatoshis(100);
+        when(edgeComputation.getEdges(DEFAULT_PAYMENT_OPTIONS, MAX_TIME_LOCK_DELTA)).thenReturn(
+                getEdges(graph, 1_000_000, 0),
+                getEdges(graph, 41_000, 61_000)
+        );
+        assertThat(flowComputation.getOptimalFlows(
+                PUBKEY,
+                PUBKEY_2,
+                amount,
+                DEFAULT_PAYMENT_OPTIONS,
+                MAX_TIME_LOCK_DELTA
+        )).isEqualTo(new Flows(new Flow(graph.getEdge(0), amount)));
+        assertThat(flowComputation.getOptimalFlows(
+                PUBKEY,
+                PUBKEY_2,
+                amount,
+                DEFAULT_PAYMENT_OPTIONS,
+                MAX_TIME_LOCK_DELTA
+        )).isEqualTo(new Flows(
+                new Flow(graph.getEdge(0), Coins.ofSatoshis(40)),
+                new Flow(graph.getEdge(1), Coins.ofSatoshis(60))
+        ));
+    }
+
+    @Test
+    void solve_ignores_route_exceeding_time_lock_budget() {
+        int maximumTimeLockDelta = 100;
+        Edge edge1 = new Edge(CHANNEL_ID, PUBKEY, PUBKEY_2, LARGE, POLICY_1);
+        Edge edge2 = new Edge(CHANNEL_ID_2, PUBKEY_2, PUBKEY_3, LARGE, POLICY_2);
+        when(edgeComputation.getEdges(DEFAULT_PAYMENT_OPTIONS, maximumTimeLockDelta))
+                .thenReturn(new EdgesWithLiquidityInformation(
+                        EdgeWithLiquidityInformation.forUpperBound(edge1, LARGE),
+                        EdgeWithLiquidityInformation.forUpperBound(edge2, LARGE)
+                ));
+        assertThat(flowComputation.getOptimalFlows(
+                PUBKEY,
+                PUBKEY_3,
+                Coins.ofSatoshis(100),
+                DEFAULT_PAYMENT_OPTIONS,
+                maximumTimeLockDelta
+        )).isEqualTo(new Flows());
+    }
+
     @Test
     void solve_amount_below_quantization() {
         when(configurationService.getIntegerValue(QUANTIZATION)).thenReturn(Optional.of(10));
@@ -124,6 +205,47 @@ class FlowComputationTest {
         )).isEqualTo(new Flows(new Flow(EDGE, amount)));
     }
 
+    @Test
+    void adaptive_quantization_uses_configured_quantization_for_result() {
+        when(configurationService.getBooleanValue(ADAPTIVE_QUANTIZATION)).thenReturn(Optional.of(true));
+        Coins amount = Coins.ofSatoshis(1_005);
+        Edge edgeToTarget = new Edge(CHANNEL_ID_2, PUBKEY_3, PUBKEY_2, LARGE, POLICY_1);
+        when(edgeComputation.getEdges(DEFAULT_PAYMENT_OPTIONS, MAX_TIME_LOCK_DELTA)).thenReturn(
+                new EdgesWithLiquidityInformation(
+                        EdgeWithLiquidityInformation.forUpperBound(EDGE, LARGE),
+                        EdgeWithLiquidityInformation.forUpperBound(EDGE_1_3, LARGE),
+                        EdgeWithLiquidityInformation.forUpperBound(edgeToTarget, LARGE)
+                )
+        );
+        Flows flows = flowComputation.getOptimalFlows(
+                PUBKEY,
+                PUBKEY_2,
+                amount,
+                DEFAULT_PAYMENT_OPTIONS,
+                MAX_TIME_LOCK_DELTA
+        );
+        assertThat(flows.getFlow(EDGE).add(flows.getFlow(edgeToTarget))).isEqualTo(amount);
+    }
+
+    @Test
+    void adaptive_quantization_falls_back_to_full_solve_if_coarse_solve_fails() {
+        when(configurationService.getBooleanValue(ADAPTIVE_QUANTIZATION)).thenReturn(Optional.of(true));
+        Coins amount = Coins.ofSatoshis(1_000);
+        // with the coarse quantization of 10 sat only 99 units (990 sat) can be sent
+        when(edgeComputation.getEdges(DEFAULT_PAYMENT_OPTIONS, MAX_TIME_LOCK_DELTA)).thenReturn(
+                new EdgesWithLiquidityInformation(
+                        EdgeWithLiquidityInformation.forKnownLiquidity(EDGE, Coins.ofSatoshis(1_005))
+                )
+        );
+        assertThat(flowComputation.getOptimalFlows(
+                PUBKEY,
+                PUBKEY_2,
+                amount,
+                DEFAULT_PAYMENT_OPTIONS,
+                MAX_TIME_LOCK_DELTA
+        )).isEqualTo(new Flows(new Flow(EDGE, amount)));
+    }
+
     @Test
     void solve_avoids_sending_from_depleted_local_channel() {
         Edge edge1 = new Edge(CHANNEL_ID, PUBKEY, PUBKEY_2, LARGE, POLICY_1);
@@ -192,4 +314,92 @@ class FlowComputationTest {
         )).isEqualTo(new Flows(expectedFlow1, expectedFlow2));
     }
 
+    @Test
+    void getOptimalFlowsViaPeers_no_amounts() {
+        Flows flows = flowComputation.getOptimalFlowsViaPeers(PUBKEY, Map.of(), DEFAULT_PAYMENT_OPTIONS, 123);
+        assertThat(flows).isEqualTo(new Flows());
+        verifyNoInteractions(edgeComputation);
+    }
+
+    @Test
+    void getOptimalFlowsViaPeers() {
+        Edge edgeToPeer = new Edge(CHANNEL_ID_2, PUBKEY, PUBKEY_3, LARGE, POLICY_1);
+        Edge edgeToTarget1 = new Edge(CHANNEL_ID_3, PUBKEY_3, PUBKEY_2, LARGE, POLICY_1);
+        Edge edgeToTarget2 = new Edge(CHANNEL_ID_4, PUBKEY_3, PUBKEY_4, LARGE, POLICY_1);
+        when(edgeComputation.getEdges(DEFAULT_PAYMENT_OPTIONS, MAX_TIME_LOCK_DELTA)).thenReturn(
+                new EdgesWithLiquidityInformation(
+                        EdgeWithLiquidityInformation.forKnownLiquidity(EDGE, LARGE),
+                        EdgeWithLiquidityInformation.forKnownLiquidity(edgeToPeer, LARGE),
+                        EdgeWithLiquidityInformation.forKnownLiquidity(edgeToTarget1, LARGE),
+                        EdgeWithLiquidityInformation.forKnownLiquidity(edgeToTarget2, LARGE)
+                )
+        );
+        Map<Pubkey, Coins> amounts = new LinkedHashMap<>();
+        amounts.put(PUBKEY_2, Coins.ofSatoshis(10));
+        amounts.put(PUBKEY_4, Coins.ofSatoshis(20));
+
+        Flows flows = flowComputation.getOptimalFlowsViaPeers(
+                PUBKEY,
+                amounts,
+                DEFAULT_PAYMENT_OPTIONS,
+                MAX_TIME_LOCK_DELTA
+        );
+        assertThat(flows).isEqualTo(new Flows(
+                new Flow(edgeToPeer, Coins.ofSatoshis(30)),
+                new Flow(edgeToTarget1, Coins.ofSatoshis(10)),
+                new Flow(edgeToTarget2, Coins.ofSatoshis(20))
+        ));
+    }
+
+    @Test
+    void getOptimalFlowsViaPeers_rounds_amounts_to_quantization() {
+        when(configurationService.getIntegerValue(QUANTIZATION)).thenReturn(Optional.of(10));
+        Edge edgeToPeer = new Edge(CHANNEL_ID, PUBKEY, PUBKEY_2, LARGE, POLICY_1);
+        Edge edgeToTarget1 = new Edge(CHANNEL_ID_2, PUBKEY_2, PUBKEY_3, LARGE, POLICY_1);
+        Edge edgeToTarget2 = new Edge(CHANNEL_ID_3, PUBKEY_2, PUBKEY_4, LARGE, POLICY_1);
+        when(edgeComputation.getEdges(DEFAULT_PAYMENT_OPTIONS, MAX_TIME_LOCK_DELTA)).thenReturn(
+                new EdgesWithLiquidityInformation(
+                        EdgeWithLiquidityInformation.forKnownLiquidity(edgeToPeer, LARGE),
+                        EdgeWithLiquidityInformation.forKnownLiquidity(edgeToTarget1, LARGE),
+                        EdgeWithLiquidityInformation.forKnownLiquidity(edgeToTarget2, LARGE)
+                )
+        );
+        Map<Pubkey, Coins> amounts = Map.of(PUBKEY_3, Coins.ofSatoshis(15), PUBKEY_4, Coins.ofSatoshis(29));
+
+        assertThat(flowComputation.getOptimalFlowsViaPeers(
+                PUBKEY,
+                amounts,
+                DEFAULT_PAYMENT_OPTIONS,
+                MAX_TIME_LOCK_DELTA
+        )).isEqualTo(new Flows(
+                new Flow(edgeToPeer, Coins.ofSatoshis(30)),
+                new Flow(edgeToTarget1, Coins.ofSatoshis(10)),
+                new Flow(edgeToTarget2, Coins.ofSatoshis(20))
+        ));
+    }
+
+    @Test
+    void getOptimalFlowsViaPeers_does_not_use_direct_channel_to_peer() {
+        when(edgeComputation.getEdges(DEFAULT_PAYMENT_OPTIONS, MAX_TIME_LOCK_DELTA)).thenReturn(
+                new EdgesWithLiquidityInformation(EdgeWithLiquidityInformation.forKnownLiquidity(EDGE, LARGE))
+        );
+        assertThat(flowComputation.getOptimalFlowsViaPeers(
+                PUBKEY,
+                Map.of(PUBKEY_2, Coins.ofSatoshis(10)),
+                DEFAULT_PAYMENT_OPTIONS,
+                MAX_TIME_LOCK_DELTA
+        )).isEqualTo(new Flows());
+    }
+
+    private EdgesWithLiquidityInformation getEdges(CompressedGraph graph, long... knownLiquiditiesMilliSat) {
+        CompressedEdgeList edgeList = new CompressedEdgeList(
+                graph,
+                new int[]{0, 1},
+                knownLiquiditiesMilliSat,
+                knownLiquiditiesMilliSat,
+                knownLiquiditiesMilliSat.length,
+                List.of()
+        );
+        return new EdgesWithLiquidityInformation(edgeList, LARGE);
+    }
 }
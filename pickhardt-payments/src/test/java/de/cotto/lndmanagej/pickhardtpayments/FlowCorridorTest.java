@@ -0,0 +1,77 @@
+package de.cotto.lndmanagej.pickhardtpayments;
+
+import de.cotto.lndmanagej.model.DirectedChannelEdge;
+import de.cotto.lndmanagej.model.Edge;
+import de.cotto.lndmanagej.model.EdgeWithLiquidityInformation;
+import de.cotto.lndmanagej.pickhardtpayments.model.CompressedEdgeList;
+import de.cotto.lndmanagej.pickhardtpayments.model.CompressedGraph;
+import de.cotto.lndmanagej.pickhardtpayments.model.EdgesWithLiquidityInformation;
+import de.cotto.lndmanagej.pickhardtpayments.model.Flow;
+import de.cotto.lndmanagej.pickhardtpayments.model.Flows;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static de.cotto.lndmanagej.model.ChannelFixtures.CAPACITY;
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID;
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID_2;
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID_3;
+import static de.cotto.lndmanagej.model.EdgeFixtures.EDGE;
+import static de.cotto.lndmanagej.model.EdgeFixtures.EDGE_1_3;
+import static de.cotto.lndmanagej.model.EdgeFixtures.EDGE_2_3;
+import static de.cotto.lndmanagej.model.EdgeFixtures.EDGE_3_4;
+import static de.cotto.lndmanagej.model.PolicyFixtures.POLICY_1;
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY;
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_2;
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_3;
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_4;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FlowCorridorTest {
+    private final FlowCorridor flowCorridor =
+            new FlowCorridor(new Flows(new Flow(EDGE_1_3, CAPACITY), new Flow(EDGE_2_3, CAPACITY)));
+
+    @Test
+    void empty_flows() {
+        EdgesWithLiquidityInformation edges = new EdgesWithLiquidityInformation(noInformationFor(EDGE_1_3));
+        assertThat(new FlowCorridor(new Flows()).restrict(edges).edges()).isEmpty();
+    }
+
+    @Test
+    void keeps_edges_between_nodes_used_by_flows() {
+        EdgesWithLiquidityInformation edges = new EdgesWithLiquidityInformation(
+                noInformationFor(EDGE),
+                noInformationFor(EDGE_1_3),
+                noInformationFor(EDGE_3_4)
+        );
+        assertThat(flowCorridor.restrict(edges).edges())
+                .containsExactly(noInformationFor(EDGE), noInformationFor(EDGE_1_3));
+    }
+
+    @Test
+    void compressed() {
+        CompressedGraph graph = CompressedGraph.create(List.of(
+                new DirectedChannelEdge(CHANNEL_ID, CAPACITY, PUBKEY, PUBKEY_2, POLICY_1),
+                new DirectedChannelEdge(CHANNEL_ID_2, CAPACITY, PUBKEY, PUBKEY_4, POLICY_1),
+                new DirectedChannelEdge(CHANNEL_ID_3, CAPACITY, PUBKEY_2, PUBKEY_3, POLICY_1)
+        ));
+        long capacityMilliSat = CAPACITY.milliSatoshis();
+        CompressedEdgeList edgeList = new CompressedEdgeList(
+                graph,
+                new int[]{0, 1, 2},
+                new long[]{0, 0, 0},
+                new long[]{capacityMilliSat, capacityMilliSat, capacityMilliSat},
+                3,
+                List.of(noInformationFor(EDGE_3_4), noInformationFor(EDGE_1_3))
+        );
+        EdgesWithLiquidityInformation edges = new EdgesWithLiquidityInformation(edgeList, CAPACITY);
+
+        List<EdgeWithLiquidityInformation> restricted = flowCorridor.restrict(edges).edges();
+
+        assertThat(restricted).containsExactly(edgeList.get(0), edgeList.get(2), noInformationFor(EDGE_1_3));
+    }
+
+    private EdgeWithLiquidityInformation noInformationFor(Edge edge) {
+        return EdgeWithLiquidityInformation.forUpperBound(edge, edge.capacity());
+    }
+}
@@ -0,0 +1,36 @@
+package de.cotto.lndmanagej.pickhardtpayments;
+
+import org.junit.jupiter.api.Test;
+
+import static de.cotto.lndmanagej.pickhardtpayments.MinCostFlowEngineType.OR_TOOLS;
+import static de.cotto.lndmanagej.pickhardtpayments.MinCostFlowEngineType.SUCCESSIVE_SHORTEST_PATH;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MinCostFlowEngineTypeTest {
+    @Test
+    void fromConfigurationValue_or_tools() {
+        assertThat(MinCostFlowEngineType.fromConfigurationValue("or-tools")).contains(OR_TOOLS);
+    }
+
+    @Test
+    void fromConfigurationValue_successive_shortest_path() {
+        assertThat(MinCostFlowEngineType.fromConfigurationValue(" Successive-Shortest-Path"))
+                .contains(SUCCESSIVE_SHORTEST_PATH);
+    }
+
+    @Test
+    void fromConfigurationValue_unknown() {
+        assertThat(MinCostFlowEngineType.fromConfigurationValue("foo")).isEmpty();
+    }
+
+    @Test
+    void createEngine_or_tools() {
+        assertThat(OR_TOOLS.createEngine()).isInstanceOf(OrToolsMinCostFlowEngine.class);
+    }
+
+    @Test
+    void createEngine_successive_shortest_path() {
+        assertThat(SUCCESSIVE_SHORTEST_PATH.createEngine())
+                .isInstanceOf(SuccessiveShortestPathMinCostFlowEngine.class);
+    }
+}
@@ -0,0 +1,204 @@
+package de.cotto.lndmanagej.pickhardtpayments;
+
+import de.cotto.lndmanagej.model.Coins;
+import de.cotto.lndmanagej.model.DirectedChannelEdge;
+import de.cotto.lndmanagej.model.Edge;
+import de.cotto.lndmanagej.model.EdgeWithLiquidityInformation;
+import de.cotto.lndmanagej.pickhardtpayments.model.CompressedEdgeList;
+import de.cotto.lndmanagej.pickhardtpayments.model.CompressedGraph;
+import de.cotto.lndmanagej.pickhardtpayments.model.EdgesWithLiquidityInformation;
+import de.cotto.lndmanagej.pickhardtpayments.model.Flow;
+import de.cotto.lndmanagej.pickhardtpayments.model.Flows;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static de.cotto.lndmanagej.model.ChannelFixtures.CAPACITY;
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID;
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID_2;
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID_3;
+import static de.cotto.lndmanagej.model.EdgeFixtures.EDGE;
+import static de.cotto.lndmanagej.model.PolicyFixtures.POLICY_1;
+import static de.cotto.lndmanagej.model.PolicyFixtures.POLICY_2;
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY;
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_2;
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_3;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class MinCostFlowSessionTest {
+    private static final int QUANTIZATION = 1;
+    private static final int PIECEWISE_LINEAR_APPROXIMATIONS = 5;
+    private static final int FEE_RATE_WEIGHT = 1;
+    private static final Coins AMOUNT = Coins.ofSatoshis(100);
+
+    private final CompressedGraph graph = CompressedGraph.create(List.of(
+            new DirectedChannelEdge(CHANNEL_ID, CAPACITY, PUBKEY, PUBKEY_2, POLICY_2),
+            new DirectedChannelEdge(CHANNEL_ID_2, CAPACITY, PUBKEY, PUBKEY_3, POLICY_1),
+            new DirectedChannelEdge(CHANNEL_ID_3, CAPACITY, PUBKEY_3, PUBKEY_2, POLICY_1)
+    ));
+    private final Edge directEdge = graph.getEdge(0);
+    private final Edge firstHop = graph.getEdge(1);
+    private final Edge secondHop = graph.getEdge(2);
+    private final MinCostFlowSession session = new MinCostFlowSession(PUBKEY, PUBKEY_2);
+
+    @Test
+    void supports_compressed_edge_list() {
+        assertThat(MinCostFlowSession.supports(edges(1_000, 1_000, 1_000))).isTrue();
+    }
+
+    @Test
+    void does_not_support_other_edges() {
+        EdgeWithLiquidityInformation edge = EdgeWithLiquidityInformation.forUpperBound(EDGE, EDGE.capacity());
+        assertThat(MinCostFlowSession.supports(new EdgesWithLiquidityInformation(edge))).isFalse();
+    }
+
+    @Test
+    void solve_with_unsupported_edges() {
+        EdgeWithLiquidityInformation edge = EdgeWithLiquidityInformation.forUpperBound(EDGE, EDGE.capacity());
+        assertThatIllegalArgumentException().isThrownBy(
+                () -> solve(new EdgesWithLiquidityInformation(edge), AMOUNT)
+        );
+    }
+
+    @Test
+    void solve() {
+        assertThat(solve(edges(1_000, 1_000, 1_000), AMOUNT)).isEqualTo(new Flows(new Flow(directEdge, AMOUNT)));
+    }
+
+    @Test
+    void solve_again_with_reduced_liquidity() {
+        solve(edges(1_000, 1_000, 1_000), AMOUNT);
+        EdgesWithLiquidityInformation edges = edges(51, 1_000, 1_000);
+        Flows flows = solve(edges, AMOUNT);
+        assertThat(flows).isEqualTo(new Flows(
+                new Flow(directEdge, Coins.ofSatoshis(50)),
+                new Flow(firstHop, Coins.ofSatoshis(50)),
+                new Flow(secondHop, Coins.ofSatoshis(50))
+        ));
+        assertThat(flows).isEqualTo(solveWithoutSession(edges, AMOUNT));
+    }
+
+    @Test
+    void solve_again_with_increased_liquidity() {
+        solve(edges(51, 1_000, 1_000), AMOUNT);
+        assertThat(solve(edges(1_000, 1_000, 1_000), AMOUNT)).isEqualTo(new Flows(new Flow(directEdge, AMOUNT)));
+    }
+
+    @Test
+    void solve_again_with_different_amount() {
+        solve(edges(1_000, 1_000, 1_000), AMOUNT);
+        Coins amount = Coins.ofSatoshis(20);
+        assertThat(solve(edges(1_000, 1_000, 1_000), amount)).isEqualTo(new Flows(new Flow(directEdge, amount)));
+    }
+
+    @Test
+    void solve_again_without_edge() {
+        solve(edges(1_000, 1_000, 1_000), AMOUNT);
+        CompressedEdgeList edgeList = new CompressedEdgeList(
+                graph,
+                new int[]{1, 2},
+                new long[]{1_000_000, 1_000_000},
+                new long[]{1_000_000, 1_000_000},
+                2,
+                List.of()
+        );
+        assertThat(solve(new EdgesWithLiquidityInformation(edgeList, CAPACITY), AMOUNT)).isEqualTo(new Flows(
+                new Flow(firstHop, AMOUNT),
+                new Flow(secondHop, AMOUNT)
+        ));
+    }
+
+    @Test
+    void solve_again_with_different_quantization() {
+        solve(edges(1_000, 1_000, 1_000), AMOUNT);
+        Flows flows = session.solve(
+                edges(1_000, 1_000, 1_000),
+                AMOUNT,
+                10,
+                PIECEWISE_LINEAR_APPROXIMATIONS,
+                FEE_RATE_WEIGHT,
+                PUBKEY,
+                false
+        );
+        assertThat(flows).isEqualTo(new Flows(new Flow(directEdge, AMOUNT)));
+    }
+
+    @Test
+    void same_flows_as_without_session() {
+        long[][] liquidities = {
+                {1_000, 1_000, 1_000},
+                {60, 1_000, 1_000},
+                {60, 30, 1_000},
+                {1_000, 30, 10},
+                {0, 1_000, 1_000},
+                {1_000, 1_000, 1_000},
+        };
+        for (long[] liquidity : liquidities) {
+            EdgesWithLiquidityInformation edges = edges(liquidity[0], liquidity[1], liquidity[2]);
+            assertThat(solve(edges, AMOUNT)).isEqualTo(solveWithoutSession(edges, AMOUNT));
+        }
+    }
+
+    @Test
+    void solve_with_uncertain_liquidity() {
+        EdgesWithLiquidityInformation edges = new EdgesWithLiquidityInformation(new CompressedEdgeList(
+                graph,
+                new int[]{0, 1, 2},
+                new long[]{10_000, 0, 0},
+                new long[]{200_000, 1_000_000, 1_000_000},
+                3,
+                List.of()
+        ), CAPACITY);
+        solve(edges(1_000, 1_000, 1_000), AMOUNT);
+        assertThat(solve(edges, AMOUNT)).isEqualTo(solveWithoutSession(edges, AMOUNT));
+    }
+
+    @Test
+    void solve_not_possible() {
+        assertThat(solve(edges(10, 10, 10), AMOUNT)).isEqualTo(new Flows());
+    }
+
+    private Flows solve(EdgesWithLiquidityInformation edges, Coins amount) {
+        return session.solve(
+                edges,
+                amount,
+                QUANTIZATION,
+                PIECEWISE_LINEAR_APPROXIMATIONS,
+                FEE_RATE_WEIGHT,
+                PUBKEY,
+                false
+        );
+    }
+
+    private Flows solveWithoutSession(EdgesWithLiquidityInformation edges, Coins amount) {
+        return new MinCostFlowSolver(
+                new SuccessiveShortestPathMinCostFlowEngine(),
+                edges,
+                Map.of(PUBKEY, amount),
+                Map.of(PUBKEY_2, amount),
+                QUANTIZATION,
+                PIECEWISE_LINEAR_APPROXIMATIONS,
+                FEE_RATE_WEIGHT,
+                PUBKEY,
+                false
+        ).solve();
+    }
+
+    private EdgesWithLiquidityInformation edges(long... knownLiquiditiesSat) {
+        long[] bounds = new long[knownLiquiditiesSat.length];
+        for (int i = 0; i < knownLiquiditiesSat.length; i++) {
+            bounds[i] = knownLiquiditiesSat[i] * 1_000;
+        }
+        CompressedEdgeList edgeList = new CompressedEdgeList(
+                graph,
+                new int[]{0, 1, 2},
+                bounds,
+                bounds,
+                bounds.length,
+                List.of()
+        );
+        return new EdgesWithLiquidityInformation(edgeList, CAPACITY);
+    }
+}
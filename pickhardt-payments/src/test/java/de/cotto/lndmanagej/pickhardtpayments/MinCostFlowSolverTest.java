@@ -6,7 +6,8 @@ import de.cotto.lndmanagej.model.Pubkey;
 import de.cotto.lndmanagej.pickhardtpayments.model.EdgesWithLiquidityInformation;
 import de.cotto.lndmanagej.pickhardtpayments.model.Flow;
 import de.cotto.lndmanagej.pickhardtpayments.model.Flows;
-import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 
 import java.util.Map;
 
@@ -37,13 +38,15 @@ class MinCostFlowSolverTest {
     private static final Flow FLOW_2_3 = new Flow(EDGE_2_3, ONE_SAT);
     private static final Flow FLOW_3_4 = new Flow(EDGE_3_4, ONE_SAT);
 
-    @Test
-    void no_edge() {
+    @ParameterizedTest
+    @EnumSource(MinCostFlowEngineType.class)
+    void no_edge(MinCostFlowEngineType engineType) {
         EdgesWithLiquidityInformation edgesWithLiquidityInformation = EdgesWithLiquidityInformation.EMPTY;
         Map<Pubkey, Coins> sources = Map.of(PUBKEY, ONE_SAT);
         Map<Pubkey, Coins> sinks = Map.of(PUBKEY_2, ONE_SAT);
         assertThatCode(
                 () -> new MinCostFlowSolver(
+                        engineType.createEngine(),
                         edgesWithLiquidityInformation,
                         sources,
                         sinks,
@@ -56,14 +59,16 @@ class MinCostFlowSolverTest {
         ).doesNotThrowAnyException();
     }
 
-    @Test
-    void no_sink_and_no_source() {
+    @ParameterizedTest
+    @EnumSource(MinCostFlowEngineType.class)
+    void no_sink_and_no_source(MinCostFlowEngineType engineType) {
         EdgesWithLiquidityInformation edgesWithLiquidityInformation =
                 new EdgesWithLiquidityInformation(EdgeWithLiquidityInformation.forUpperBound(EDGE, ONE_SAT));
         Map<Pubkey, Coins> sources = Map.of();
         Map<Pubkey, Coins> sinks = Map.of();
         assertThatCode(
                 () -> new MinCostFlowSolver(
+                        engineType.createEngine(),
                         edgesWithLiquidityInformation,
                         sources,
                         sinks,
@@ -76,8 +81,9 @@ class MinCostFlowSolverTest {
         ).doesNotThrowAnyException();
     }
 
-    @Test
-    void no_source() {
+    @ParameterizedTest
+    @EnumSource(MinCostFlowEngineType.class)
+    void no_source(MinCostFlowEngineType engineType) {
         EdgesWithLiquidityInformation edgesWithLiquidityInformation = new EdgesWithLiquidityInformation(
                 EdgeWithLiquidityInformation.forUpperBound(EDGE_2_3, ONE_SAT)
         );
@@ -85,6 +91,7 @@ class MinCostFlowSolverTest {
         Map<Pubkey, Coins> sinks = Map.of(PUBKEY_3, ONE_SAT);
         assertThatIllegalArgumentException().isThrownBy(
                 () -> new MinCostFlowSolver(
+                        engineType.createEngine(),
                         edgesWithLiquidityInformation,
                         sources,
                         sinks,
@@ -97,8 +104,9 @@ class MinCostFlowSolverTest {
         );
     }
 
-    @Test
-    void no_sink() {
+    @ParameterizedTest
+    @EnumSource(MinCostFlowEngineType.class)
+    void no_sink(MinCostFlowEngineType engineType) {
         EdgesWithLiquidityInformation edgesWithLiquidityInformation = new EdgesWithLiquidityInformation(
                 EdgeWithLiquidityInformation.forUpperBound(EDGE_2_3, ONE_SAT)
         );
@@ -106,6 +114,7 @@ class MinCostFlowSolverTest {
         Map<Pubkey, Coins> sinks = Map.of();
         assertThatIllegalArgumentException().isThrownBy(
                 () -> new MinCostFlowSolver(
+                        engineType.createEngine(),
                         edgesWithLiquidityInformation,
                         sources,
                         sinks,
@@ -118,14 +127,16 @@ class MinCostFlowSolverTest {
         );
     }
 
-    @Test
-    void sink_amount_does_not_match_source_amount() {
+    @ParameterizedTest
+    @EnumSource(MinCostFlowEngineType.class)
+    void sink_amount_does_not_match_source_amount(MinCostFlowEngineType engineType) {
         EdgesWithLiquidityInformation edgesWithLiquidityInformation =
                 new EdgesWithLiquidityInformation(EdgeWithLiquidityInformation.forUpperBound(EDGE, ONE_SAT));
         Map<Pubkey, Coins> sources = Map.of(PUBKEY, ONE_SAT);
         Map<Pubkey, Coins> sinks = Map.of(PUBKEY_2, TWO_SATS);
         assertThatIllegalArgumentException().isThrownBy(
                 () -> new MinCostFlowSolver(
+                        engineType.createEngine(),
                         edgesWithLiquidityInformation,
                         sources,
                         sinks,
@@ -138,33 +149,36 @@ class MinCostFlowSolverTest {
         );
     }
 
-    @Test
-    void solve_simple() {
+    @ParameterizedTest
+    @EnumSource(MinCostFlowEngineType.class)
+    void solve_simple(MinCostFlowEngineType engineType) {
         Coins amount = Coins.ofSatoshis(PIECEWISE_LINEAR_APPROXIMATIONS);
         EdgesWithLiquidityInformation edgesWithLiquidityInformation = new EdgesWithLiquidityInformation(
                 EdgeWithLiquidityInformation.forUpperBound(EDGE_2_3, amount.add(Coins.ofSatoshis(QUANTIZATION)))
         );
 
-        Flows flows = solve(edgesWithLiquidityInformation, PUBKEY_2, PUBKEY_3, amount);
+        Flows flows = solve(engineType, edgesWithLiquidityInformation, PUBKEY_2, PUBKEY_3, amount);
 
         assertThat(flows).isEqualTo(new Flows(FLOW_2_3));
     }
 
-    @Test
-    void solve_no_solution_due_to_gap() {
+    @ParameterizedTest
+    @EnumSource(MinCostFlowEngineType.class)
+    void solve_no_solution_due_to_gap(MinCostFlowEngineType engineType) {
         Coins amount = Coins.ofSatoshis(PIECEWISE_LINEAR_APPROXIMATIONS);
         EdgesWithLiquidityInformation edgesWithLiquidityInformation = new EdgesWithLiquidityInformation(
                 EdgeWithLiquidityInformation.forUpperBound(EDGE, amount),
                 EdgeWithLiquidityInformation.forUpperBound(EDGE_3_4, amount)
         );
 
-        Flows flows = solve(edgesWithLiquidityInformation, PUBKEY, PUBKEY_4, amount);
+        Flows flows = solve(engineType, edgesWithLiquidityInformation, PUBKEY, PUBKEY_4, amount);
 
         assertThat(flows).isEqualTo(new Flows());
     }
 
-    @Test
-    void solve_with_quantization() {
+    @ParameterizedTest
+    @EnumSource(MinCostFlowEngineType.class)
+    void solve_with_quantization(MinCostFlowEngineType engineType) {
         int quantization = 10_000;
         Coins amount = Coins.ofSatoshis(100_000);
         Coins upperBound = amount.add(Coins.ofSatoshis(quantization));
@@ -174,6 +188,7 @@ class MinCostFlowSolverTest {
         Map<Pubkey, Coins> sources = Map.of(PUBKEY_2, amount);
         Map<Pubkey, Coins> sinks = Map.of(PUBKEY_3, amount);
         Flows flows = new MinCostFlowSolver(
+                engineType.createEngine(),
                 edgesWithLiquidityInformation,
                 sources,
                 sinks,
@@ -187,8 +202,9 @@ class MinCostFlowSolverTest {
         assertThat(flows).isEqualTo(new Flows(new Flow(EDGE_2_3, amount)));
     }
 
-    @Test
-    void solve_with_quantization_but_requested_amount_not_divisible() {
+    @ParameterizedTest
+    @EnumSource(MinCostFlowEngineType.class)
+    void solve_with_quantization_but_requested_amount_not_divisible(MinCostFlowEngineType engineType) {
         int quantization = 10_000;
         Coins amount = Coins.ofSatoshis(123_456);
         EdgesWithLiquidityInformation edgesWithLiquidityInformation = new EdgesWithLiquidityInformation(
@@ -198,6 +214,7 @@ class MinCostFlowSolverTest {
         Map<Pubkey, Coins> sources = Map.of(PUBKEY_3, amount);
         Map<Pubkey, Coins> sinks = Map.of(PUBKEY_4, amount);
         Flows flows = new MinCostFlowSolver(
+                engineType.createEngine(),
                 edgesWithLiquidityInformation,
                 sources,
                 sinks,
@@ -211,8 +228,9 @@ class MinCostFlowSolverTest {
         assertThat(flows).isEqualTo(new Flows(new Flow(EDGE_3_4, Coins.ofSatoshis(120_000))));
     }
 
-    @Test
-    void quantization_larger_than_smallest_channel() {
+    @ParameterizedTest
+    @EnumSource(MinCostFlowEngineType.class)
+    void quantization_larger_than_smallest_channel(MinCostFlowEngineType engineType) {
         int quantization = 10_000;
         EdgesWithLiquidityInformation edgesWithLiquidityInformation = new EdgesWithLiquidityInformation(
                 EdgeWithLiquidityInformation.forUpperBound(EDGE_2_3, ONE_SAT)
@@ -221,6 +239,7 @@ class MinCostFlowSolverTest {
         Map<Pubkey, Coins> sources = Map.of(PUBKEY_2, ONE_SAT);
         Map<Pubkey, Coins> sinks = Map.of(PUBKEY_3, ONE_SAT);
         Flows flows = new MinCostFlowSolver(
+                engineType.createEngine(),
                 edgesWithLiquidityInformation,
                 sources,
                 sinks,
@@ -234,8 +253,9 @@ class MinCostFlowSolverTest {
         assertThat(flows).isEqualTo(new Flows());
     }
 
-    @Test
-    void solve_two_sources_two_sinks() {
+    @ParameterizedTest
+    @EnumSource(MinCostFlowEngineType.class)
+    void solve_two_sources_two_sinks(MinCostFlowEngineType engineType) {
         Coins amount = Coins.ofSatoshis(PIECEWISE_LINEAR_APPROXIMATIONS);
         EdgesWithLiquidityInformation edgesWithLiquidityInformation = new EdgesWithLiquidityInformation(
                 EdgeWithLiquidityInformation.forUpperBound(EDGE, amount.add(Coins.ofSatoshis(QUANTIZATION))),
@@ -244,6 +264,7 @@ class MinCostFlowSolverTest {
         Map<Pubkey, Coins> sources = Map.of(PUBKEY, amount, PUBKEY_3, amount);
         Map<Pubkey, Coins> sinks = Map.of(PUBKEY_2, amount, PUBKEY_4, amount);
         MinCostFlowSolver minCostFlowSolver = new MinCostFlowSolver(
+                engineType.createEngine(),
                 edgesWithLiquidityInformation,
                 sources,
                 sinks,
@@ -257,8 +278,9 @@ class MinCostFlowSolverTest {
         assertThat(minCostFlowSolver.solve()).isEqualTo(new Flows(FLOW_1_2, FLOW_3_4));
     }
 
-    @Test
-    void solve_one_source_two_sinks() {
+    @ParameterizedTest
+    @EnumSource(MinCostFlowEngineType.class)
+    void solve_one_source_two_sinks(MinCostFlowEngineType engineType) {
         EdgesWithLiquidityInformation edgesWithLiquidityInformation = new EdgesWithLiquidityInformation(
                 EdgeWithLiquidityInformation.forUpperBound(EDGE, ONE_SAT.add(Coins.ofSatoshis(QUANTIZATION))),
                 EdgeWithLiquidityInformation.forUpperBound(EDGE_1_3, ONE_SAT.add(Coins.ofSatoshis(QUANTIZATION)))
@@ -266,6 +288,7 @@ class MinCostFlowSolverTest {
         Map<Pubkey, Coins> sources = Map.of(PUBKEY, TWO_SATS);
         Map<Pubkey, Coins> sinks = Map.of(PUBKEY_2, ONE_SAT, PUBKEY_3, ONE_SAT);
         MinCostFlowSolver minCostFlowSolver = new MinCostFlowSolver(
+                engineType.createEngine(),
                 edgesWithLiquidityInformation,
                 sources,
                 sinks,
@@ -279,32 +302,35 @@ class MinCostFlowSolverTest {
         assertThat(minCostFlowSolver.solve()).isEqualTo(new Flows(FLOW_1_2, FLOW_1_3));
     }
 
-    @Test
-    void solve_long_path() {
+    @ParameterizedTest
+    @EnumSource(MinCostFlowEngineType.class)
+    void solve_long_path(MinCostFlowEngineType engineType) {
         EdgesWithLiquidityInformation edgesWithLiquidityInformation = new EdgesWithLiquidityInformation(
                 EdgeWithLiquidityInformation.forUpperBound(EDGE, ONE_SAT.add(Coins.ofSatoshis(QUANTIZATION))),
                 EdgeWithLiquidityInformation.forUpperBound(EDGE_2_3, MANY_SATS.add(Coins.ofSatoshis(QUANTIZATION))),
                 EdgeWithLiquidityInformation.forUpperBound(EDGE_3_4, ONE_SAT.add(Coins.ofSatoshis(QUANTIZATION)))
         );
-        Flows flows = solve(edgesWithLiquidityInformation, PUBKEY, PUBKEY_4, ONE_SAT);
+        Flows flows = solve(engineType, edgesWithLiquidityInformation, PUBKEY, PUBKEY_4, ONE_SAT);
 
         assertThat(flows).isEqualTo(new Flows(FLOW_1_2, FLOW_2_3, FLOW_3_4));
     }
 
-    @Test
-    void solve_long_path_with_cycle() {
+    @ParameterizedTest
+    @EnumSource(MinCostFlowEngineType.class)
+    void solve_long_path_with_cycle(MinCostFlowEngineType engineType) {
         EdgesWithLiquidityInformation edgesWithLiquidityInformation = new EdgesWithLiquidityInformation(
                 EdgeWithLiquidityInformation.forUpperBound(EDGE, TWO_SATS),
                 EdgeWithLiquidityInformation.forUpperBound(EDGE_2_3, MANY_SATS),
                 EdgeWithLiquidityInformation.forUpperBound(EDGE_3_2, MANY_SATS),
                 EdgeWithLiquidityInformation.forUpperBound(EDGE_3_4, TWO_SATS)
         );
-        Flows flows = solve(edgesWithLiquidityInformation, PUBKEY, PUBKEY_4, ONE_SAT);
+        Flows flows = solve(engineType, edgesWithLiquidityInformation, PUBKEY, PUBKEY_4, ONE_SAT);
 
         assertThat(flows).isEqualTo(new Flows(FLOW_1_2, FLOW_2_3, FLOW_3_4));
     }
 
     private Flows solve(
+            MinCostFlowEngineType engineType,
             EdgesWithLiquidityInformation edgesWithLiquidityInformation,
             Pubkey source,
             Pubkey target,
@@ -313,6 +339,7 @@ class MinCostFlowSolverTest {
         Map<Pubkey, Coins> sources = Map.of(source, amount);
         Map<Pubkey, Coins> sinks = Map.of(target, amount);
         return new MinCostFlowSolver(
+                engineType.createEngine(),
                 edgesWithLiquidityInformation,
                 sources,
                 sinks,
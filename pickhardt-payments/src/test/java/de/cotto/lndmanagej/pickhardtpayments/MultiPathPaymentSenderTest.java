@@ -15,6 +15,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.util.Optional;
 
 import static de.cotto.lndmanagej.model.DecodedPaymentRequestFixtures.DECODED_PAYMENT_REQUEST;
+import static de.cotto.lndmanagej.pickhardtpayments.model.MultiPathPaymentFixtures.MULTI_PATH_PAYMENT;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
@@ -87,6 +88,20 @@ class MultiPathPaymentSenderTest {
                 .contains("Payment Options: " + paymentOptions);
     }
 
+    @Test
+    void starts_payment_loop_with_precomputed_multi_path_payment() {
+        PaymentOptions paymentOptions = feeRateWeight(123);
+        PaymentStatus paymentStatus = multiPathPaymentSender.payPaymentRequest(
+                DECODED_PAYMENT_REQUEST,
+                paymentOptions,
+                MULTI_PATH_PAYMENT
+        );
+        verify(routeHintService).addDecodedPaymentRequest(DECODED_PAYMENT_REQUEST);
+        verify(paymentLoop).start(DECODED_PAYMENT_REQUEST, paymentOptions, paymentStatus, MULTI_PATH_PAYMENT);
+        assertThat(paymentStatus.getMessages().stream().map(InstantWithString::string))
+                .contains("Payment Options: " + paymentOptions);
+    }
+
     private PaymentOptions feeRateWeight(int feeRateWeight) {
         return PaymentOptions.forFeeRateWeight(feeRateWeight);
     }
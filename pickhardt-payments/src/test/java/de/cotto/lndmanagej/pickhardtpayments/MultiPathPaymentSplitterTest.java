@@ -2,6 +2,7 @@ package de.cotto.lndmanagej.pickhardtpayments;
 
 import de.cotto.lndmanagej.configuration.ConfigurationService;
 import de.cotto.lndmanagej.grpc.GrpcGetInfo;
+import de.cotto.lndmanagej.model.BasicRoute;
 import de.cotto.lndmanagej.model.Coins;
 import de.cotto.lndmanagej.model.Edge;
 import de.cotto.lndmanagej.model.EdgeWithLiquidityInformation;
@@ -12,6 +13,7 @@ import de.cotto.lndmanagej.pickhardtpayments.model.Flow;
 import de.cotto.lndmanagej.pickhardtpayments.model.Flows;
 import de.cotto.lndmanagej.pickhardtpayments.model.MultiPathPayment;
 import de.cotto.lndmanagej.pickhardtpayments.model.PaymentOptions;
+import de.cotto.lndmanagej.pickhardtpayments.model.PaymentViaPeer;
 import de.cotto.lndmanagej.service.ChannelService;
 import de.cotto.lndmanagej.service.PolicyService;
 import org.junit.jupiter.api.BeforeEach;
@@ -23,6 +25,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -41,12 +44,15 @@ import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_4;
 import static de.cotto.lndmanagej.pickhardtpayments.model.FlowFixtures.FLOW;
 import static de.cotto.lndmanagej.pickhardtpayments.model.PaymentOptions.DEFAULT_PAYMENT_OPTIONS;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
 import static org.assertj.core.api.Assumptions.assumeThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -79,9 +85,13 @@ class MultiPathPaymentSplitterTest {
     @Mock
     private CltvService cltvService;
 
+    @Mock
+    private RouteCandidateCache routeCandidateCache;
+
     @BeforeEach
     void setUp() {
-        when(flowComputation.getOptimalFlows(any(), any(), any(), any(), anyInt())).thenReturn(new Flows());
+        lenient().when(flowComputation.getOptimalFlows(any(), any(), any(), any(), anyInt()))
+                .thenReturn(new Flows());
         lenient().when(edgeComputation.getEdgeWithLiquidityInformation(EDGE)).thenReturn(noInformationFor(EDGE));
         lenient().when(cltvService.getMaximumDeltaForEdges(anyInt(), anyInt(), any(), any()))
                 .thenReturn(DEFAULT_MAX_CLTV_EXPIRY);
@@ -133,6 +143,83 @@ class MultiPathPaymentSplitterTest {
         }
     }
 
+    @Nested
+    class GetMultiPathPaymentsViaPeers {
+        private final PaymentOptions paymentOptions = PaymentOptions.forTopUp(500, 123, PUBKEY_2);
+        private final PaymentOptions paymentOptions2 = PaymentOptions.forTopUp(300, 0, PUBKEY_3);
+
+        @BeforeEach
+        void setUp() {
+            lenient().when(flowComputation.getOptimalFlowsViaPeers(any(), any(), any(), anyInt()))
+                    .thenReturn(new Flows());
+        }
+
+        @Test
+        void no_payments() {
+            assertThat(multiPathPaymentSplitter.getMultiPathPaymentsViaPeers(List.of(), FINAL_CLTV_DELTA)).isEmpty();
+            verifyNoInteractions(flowComputation);
+        }
+
+        @Test
+        void uses_combined_payment_options() {
+            when(grpcGetInfo.getPubkey()).thenReturn(PUBKEY);
+            List<PaymentViaPeer> payments = List.of(
+                    new PaymentViaPeer(AMOUNT, paymentOptions),
+                    new PaymentViaPeer(AMOUNT, paymentOptions2)
+            );
+            PaymentOptions expectedPaymentOptions = new PaymentOptions(
+                    Optional.of(5),
+                    Optional.of(500L),
+                    Optional.of(377L),
+                    false,
+                    Optional.empty()
+            );
+            multiPathPaymentSplitter.getMultiPathPaymentsViaPeers(payments, FINAL_CLTV_DELTA);
+            verify(flowComputation).getOptimalFlowsViaPeers(
+                    PUBKEY,
+                    Map.of(PUBKEY_2, AMOUNT, PUBKEY_3, AMOUNT),
+                    expectedPaymentOptions,
+                    DEFAULT_MAX_CLTV_EXPIRY
+            );
+        }
+
+        @Test
+        void uses_smallest_maximum_delta_per_edge() {
+            when(grpcGetInfo.getPubkey()).thenReturn(PUBKEY);
+            when(cltvService.getMaximumDeltaForEdges(anyInt(), anyInt(), eq(Optional.of(PUBKEY_3)), any()))
+                    .thenReturn(100);
+            List<PaymentViaPeer> payments = List.of(
+                    new PaymentViaPeer(AMOUNT, paymentOptions),
+                    new PaymentViaPeer(AMOUNT, paymentOptions2)
+            );
+            multiPathPaymentSplitter.getMultiPathPaymentsViaPeers(payments, FINAL_CLTV_DELTA);
+            verify(flowComputation).getOptimalFlowsViaPeers(any(), any(), any(), eq(100));
+        }
+
+        @Test
+        void failure_for_peer_without_routes() {
+            when(grpcGetInfo.getPubkey()).thenReturn(PUBKEY);
+            List<PaymentViaPeer> payments = List.of(new PaymentViaPeer(AMOUNT, paymentOptions));
+            assertThat(multiPathPaymentSplitter.getMultiPathPaymentsViaPeers(payments, FINAL_CLTV_DELTA))
+                    .containsExactly(entry(PUBKEY_2, MultiPathPayment.FAILURE));
+        }
+
+        @Test
+        void adds_hop_back_to_own_node() {
+            when(grpcGetInfo.getPubkey()).thenReturn(PUBKEY);
+            Edge extensionEdge = mockExtensionEdge(PUBKEY, 0);
+            when(flowComputation.getOptimalFlowsViaPeers(any(), any(), any(), anyInt())).thenReturn(new Flows(FLOW));
+            List<PaymentViaPeer> payments = List.of(new PaymentViaPeer(AMOUNT, paymentOptions));
+
+            MultiPathPayment multiPathPayment =
+                    multiPathPaymentSplitter.getMultiPathPaymentsViaPeers(payments, FINAL_CLTV_DELTA).get(PUBKEY_2);
+
+            assertThat(multiPathPayment.isFailure()).isFalse();
+            assertThat(multiPathPayment.amount()).isEqualTo(AMOUNT);
+            assertThat(multiPathPayment.routes().iterator().next().getEdges()).contains(extensionEdge);
+        }
+    }
+
     @Nested
     class GetMultiPathPayment {
 
@@ -519,6 +606,36 @@ class MultiPathPaymentSplitterTest {
             assertThat(multiPathPayment.isFailure()).isTrue();
         }
 
+        @Test
+        void uses_precomputed_routes_for_top_up() {
+            Edge extensionEdge = mockExtensionEdge(PUBKEY_3, 0);
+            PaymentOptions paymentOptions = PaymentOptions.forTopUp(500, 123, PUBKEY_2);
+            BasicRoute basicRoute = new BasicRoute(List.of(FLOW.edge()), AMOUNT);
+            when(routeCandidateCache.getBasicRoutes(PUBKEY, PUBKEY_2, AMOUNT, paymentOptions, DEFAULT_MAX_CLTV_EXPIRY))
+                    .thenReturn(Optional.of(List.of(basicRoute)));
+            MultiPathPayment multiPathPayment = multiPathPaymentSplitter.getMultiPathPayment(
+                    PUBKEY,
+                    PUBKEY_3,
+                    AMOUNT,
+                    paymentOptions,
+                    FINAL_CLTV_DELTA
+            );
+            assertThat(multiPathPayment.routes().iterator().next().getEdges()).contains(FLOW.edge(), extensionEdge);
+            verify(flowComputation, never()).getOptimalFlows(any(), any(), any(), any(), anyInt());
+        }
+
+        @Test
+        void does_not_use_precomputed_routes_without_peer() {
+            multiPathPaymentSplitter.getMultiPathPayment(
+                    PUBKEY,
+                    PUBKEY_2,
+                    AMOUNT,
+                    DEFAULT_PAYMENT_OPTIONS,
+                    FINAL_CLTV_DELTA
+            );
+            verifyNoInteractions(routeCandidateCache);
+        }
+
         private MultiPathPayment attemptTopUpPayment() {
             PaymentOptions paymentOptions = PaymentOptions.forTopUp(500, 123, PUBKEY_2);
             when(flowComputation.getOptimalFlows(
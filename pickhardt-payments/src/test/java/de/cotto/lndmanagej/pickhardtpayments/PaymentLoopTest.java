@@ -22,6 +22,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -29,6 +30,7 @@ import static de.cotto.lndmanagej.configuration.TopUpConfigurationSettings.MAX_R
 import static de.cotto.lndmanagej.configuration.TopUpConfigurationSettings.SLEEP_AFTER_FAILURE_MILLISECONDS;
 import static de.cotto.lndmanagej.model.DecodedPaymentRequestFixtures.DECODED_PAYMENT_REQUEST;
 import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_4;
+import static de.cotto.lndmanagej.model.RouteFixtures.ROUTE;
 import static de.cotto.lndmanagej.pickhardtpayments.model.MultiPathPaymentFixtures.MULTI_PATH_PAYMENT;
 import static de.cotto.lndmanagej.pickhardtpayments.model.MultiPathPaymentFixtures.MULTI_PATH_PAYMENT_2;
 import static java.util.Objects.requireNonNull;
@@ -350,6 +352,38 @@ class PaymentLoopTest {
         assertThat(paymentStatus.isFailure()).isTrue();
     }
 
+    @Test
+    void uses_precomputed_multi_path_payment_in_first_attempt() {
+        Route route = ROUTE.getForAmount(DECODED_PAYMENT_REQUEST.amount());
+        MultiPathPayment precomputed = new MultiPathPayment(List.of(route));
+        when(multiPathPaymentObserver.isSettled(PAYMENT_HASH)).thenReturn(false).thenReturn(true);
+        when(multiPathPaymentObserver.getInFlight(PAYMENT_HASH))
+                .thenReturn(Coins.NONE)
+                .thenReturn(DECODED_PAYMENT_REQUEST.amount());
+
+        paymentLoop.start(DECODED_PAYMENT_REQUEST, PAYMENT_OPTIONS, paymentStatus, precomputed);
+
+        verify(grpcSendToRoute).sendToRoute(eq(route), eq(DECODED_PAYMENT_REQUEST), any());
+        verifyNoInteractions(multiPathPaymentSplitter);
+        assertThat(paymentStatus.isSuccess()).isTrue();
+    }
+
+    @Test
+    void ignores_precomputed_multi_path_payment_for_different_amount() {
+        mockSuccessOnFirstAttempt();
+        paymentLoop.start(DECODED_PAYMENT_REQUEST, PAYMENT_OPTIONS, paymentStatus, MULTI_PATH_PAYMENT_2);
+        verify(multiPathPaymentSplitter).getMultiPathPaymentTo(any(), any(), any(), anyInt());
+        verify(grpcSendToRoute, never()).sendToRoute(eq(MULTI_PATH_PAYMENT_2.routes().get(0)), any(), any());
+    }
+
+    @Test
+    void computes_multi_path_payment_if_precomputed_is_failure() {
+        mockSuccessOnFirstAttempt();
+        paymentLoop.start(DECODED_PAYMENT_REQUEST, PAYMENT_OPTIONS, paymentStatus, MultiPathPayment.FAILURE);
+        verify(multiPathPaymentSplitter).getMultiPathPaymentTo(any(), any(), any(), anyInt());
+        assertThat(paymentStatus.isSuccess()).isTrue();
+    }
+
     // CPD-OFF
     private void mockSuccessOnFirstAttempt() {
         when(multiPathPaymentSplitter.getMultiPathPaymentTo(any(), any(), any(), anyInt()))
@@ -0,0 +1,216 @@
+package de.cotto.lndmanagej.pickhardtpayments;
+
+import de.cotto.lndmanagej.configuration.ConfigurationService;
+import de.cotto.lndmanagej.grpc.GraphSnapshot;
+import de.cotto.lndmanagej.grpc.GrpcGraph;
+import de.cotto.lndmanagej.model.BasicRoute;
+import de.cotto.lndmanagej.model.Coins;
+import de.cotto.lndmanagej.model.DirectedChannelEdge;
+import de.cotto.lndmanagej.model.EdgeWithLiquidityInformation;
+import de.cotto.lndmanagej.pickhardtpayments.model.Flow;
+import de.cotto.lndmanagej.pickhardtpayments.model.Flows;
+import de.cotto.lndmanagej.pickhardtpayments.model.PaymentOptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static de.cotto.lndmanagej.configuration.TopUpConfigurationSettings.PRECOMPUTE_ROUTES;
+import static de.cotto.lndmanagej.model.EdgeFixtures.EDGE;
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY;
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_2;
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_3;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RouteCandidateCacheTest {
+    private static final Coins AMOUNT = Coins.ofSatoshis(1_000);
+    private static final Coins AMOUNT_BUCKET = Coins.ofSatoshis(1_024);
+    private static final PaymentOptions PAYMENT_OPTIONS = PaymentOptions.forTopUp(500, 123, PUBKEY_2);
+    private static final int MAXIMUM_DELTA = 123;
+    private static final EdgeWithLiquidityInformation LIQUIDITY =
+            EdgeWithLiquidityInformation.forUpperBound(EDGE, Coins.ofSatoshis(5_000));
+    private static final DirectedChannelEdge CHANNEL_EDGE = new DirectedChannelEdge(
+            EDGE.channelId(),
+            EDGE.capacity(),
+            EDGE.startNode(),
+            EDGE.endNode(),
+            EDGE.policy()
+    );
+
+    @InjectMocks
+    private RouteCandidateCache routeCandidateCache;
+
+    @Mock
+    private FlowComputation flowComputation;
+
+    @Mock
+    private EdgeComputation edgeComputation;
+
+    @Mock
+    private GrpcGraph grpcGraph;
+
+    @Mock
+    private ConfigurationService configurationService;
+
+    @Test
+    void getAmountBucket() {
+        assertThat(RouteCandidateCache.getAmountBucket(Coins.ofSatoshis(7))).isEqualTo(Coins.ofSatoshis(7));
+        assertThat(RouteCandidateCache.getAmountBucket(Coins.ofSatoshis(9))).isEqualTo(Coins.ofSatoshis(10));
+        assertThat(RouteCandidateCache.getAmountBucket(AMOUNT)).isEqualTo(AMOUNT_BUCKET);
+        assertThat(RouteCandidateCache.getAmountBucket(Coins.ofSatoshis(1_000_000)))
+                .isEqualTo(Coins.ofSatoshis(1_048_576));
+    }
+
+    @Test
+    void getAmountBucket_rounds_up_to_satoshis() {
+        assertThat(RouteCandidateCache.getAmountBucket(Coins.ofMilliSatoshis(1_500))).isEqualTo(Coins.ofSatoshis(2));
+    }
+
+    @Test
+    void disabled_by_default() {
+        assertThat(getBasicRoutes(AMOUNT)).isEmpty();
+        routeCandidateCache.refresh();
+        verifyNoInteractions(flowComputation);
+    }
+
+    @Nested
+    class Enabled {
+        @BeforeEach
+        void setUp() {
+            when(configurationService.getBooleanValue(PRECOMPUTE_ROUTES)).thenReturn(Optional.of(true));
+            Flows flows = new Flows(new Flow(EDGE, AMOUNT_BUCKET));
+            lenient().when(flowComputation.getOptimalFlows(
+                    PUBKEY,
+                    PUBKEY_2,
+                    AMOUNT_BUCKET,
+                    PAYMENT_OPTIONS,
+                    MAXIMUM_DELTA
+            )).thenReturn(flows);
+            lenient().when(edgeComputation.getEdgeWithLiquidityInformation(EDGE)).thenReturn(LIQUIDITY);
+            lenient().when(grpcGraph.getSnapshot()).thenReturn(Optional.of(new GraphSnapshot(1, Set.of(CHANNEL_EDGE))));
+        }
+
+        @Test
+        void empty_before_refresh() {
+            assertThat(getBasicRoutes(AMOUNT)).isEmpty();
+            verifyNoInteractions(flowComputation);
+        }
+
+        @Test
+        void refresh_does_nothing_without_requests() {
+            routeCandidateCache.refresh();
+            verifyNoInteractions(flowComputation);
+        }
+
+        @Test
+        void refresh_computes_candidate_for_amount_bucket() {
+            getBasicRoutes(AMOUNT);
+            routeCandidateCache.refresh();
+            assertThat(getBasicRoutes(AMOUNT_BUCKET)).contains(List.of(new BasicRoute(List.of(EDGE), AMOUNT_BUCKET)));
+        }
+
+        @Test
+        void scales_routes_to_requested_amount() {
+            getBasicRoutes(AMOUNT);
+            routeCandidateCache.refresh();
+            assertThat(getBasicRoutes(AMOUNT)).contains(List.of(new BasicRoute(List.of(EDGE), AMOUNT)));
+        }
+
+        @Test
+        void refresh_keeps_valid_candidate() {
+            getBasicRoutes(AMOUNT);
+            routeCandidateCache.refresh();
+            routeCandidateCache.refresh();
+            verify(flowComputation).getOptimalFlows(any(), any(), any(), any(), anyInt());
+        }
+
+        @Test
+        void no_candidate_if_flow_computation_fails() {
+            when(flowComputation.getOptimalFlows(PUBKEY, PUBKEY_2, AMOUNT_BUCKET, PAYMENT_OPTIONS, MAXIMUM_DELTA))
+                    .thenReturn(new Flows());
+            getBasicRoutes(AMOUNT);
+            routeCandidateCache.refresh();
+            assertThat(getBasicRoutes(AMOUNT)).isEmpty();
+        }
+
+        @Test
+        void invalid_if_liquidity_information_changed() {
+            getBasicRoutes(AMOUNT);
+            routeCandidateCache.refresh();
+            when(edgeComputation.getEdgeWithLiquidityInformation(EDGE))
+                    .thenReturn(EdgeWithLiquidityInformation.forUpperBound(EDGE, Coins.ofSatoshis(4_000)));
+            assertThat(getBasicRoutes(AMOUNT)).isEmpty();
+        }
+
+        @Test
+        void invalid_if_edge_is_not_part_of_graph() {
+            getBasicRoutes(AMOUNT);
+            routeCandidateCache.refresh();
+            when(grpcGraph.getSnapshot()).thenReturn(Optional.of(new GraphSnapshot(2, Set.of())));
+            assertThat(getBasicRoutes(AMOUNT)).isEmpty();
+        }
+
+        @Test
+        void does_not_look_up_edges_if_graph_version_is_unchanged() {
+            getBasicRoutes(AMOUNT);
+            routeCandidateCache.refresh();
+            when(grpcGraph.getSnapshot()).thenReturn(Optional.of(new GraphSnapshot(1, Set.of())));
+            assertThat(getBasicRoutes(AMOUNT)).isPresent();
+        }
+
+        @Test
+        void invalid_without_graph() {
+            getBasicRoutes(AMOUNT);
+            routeCandidateCache.refresh();
+            when(grpcGraph.getSnapshot()).thenReturn(Optional.empty());
+            assertThat(getBasicRoutes(AMOUNT)).isEmpty();
+        }
+
+        @Test
+        void refresh_recomputes_invalid_candidate() {
+            getBasicRoutes(AMOUNT);
+            routeCandidateCache.refresh();
+            EdgeWithLiquidityInformation changed =
+                    EdgeWithLiquidityInformation.forUpperBound(EDGE, Coins.ofSatoshis(1));
+            when(edgeComputation.getEdgeWithLiquidityInformation(EDGE)).thenReturn(changed);
+            routeCandidateCache.refresh();
+            assertThat(getBasicRoutes(AMOUNT)).isPresent();
+        }
+
+        @Test
+        void different_peer_uses_different_candidate() {
+            getBasicRoutes(AMOUNT);
+            routeCandidateCache.refresh();
+            assertThat(routeCandidateCache.getBasicRoutes(PUBKEY, PUBKEY_3, AMOUNT, PAYMENT_OPTIONS, MAXIMUM_DELTA))
+                    .isEmpty();
+        }
+
+        @Test
+        void disabling_removes_candidates() {
+            getBasicRoutes(AMOUNT);
+            routeCandidateCache.refresh();
+            when(configurationService.getBooleanValue(PRECOMPUTE_ROUTES)).thenReturn(Optional.of(false));
+            routeCandidateCache.refresh();
+            when(configurationService.getBooleanValue(PRECOMPUTE_ROUTES)).thenReturn(Optional.of(true));
+            assertThat(getBasicRoutes(AMOUNT)).isEmpty();
+        }
+    }
+
+    private Optional<List<BasicRoute>> getBasicRoutes(Coins amount) {
+        return routeCandidateCache.getBasicRoutes(PUBKEY, PUBKEY_2, amount, PAYMENT_OPTIONS, MAXIMUM_DELTA);
+    }
+}
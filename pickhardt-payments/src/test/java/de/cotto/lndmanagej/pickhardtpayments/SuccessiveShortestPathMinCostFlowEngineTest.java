@@ -0,0 +1,270 @@
+package de.cotto.lndmanagej.pickhardtpayments;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class SuccessiveShortestPathMinCostFlowEngineTest {
+    private final SuccessiveShortestPathMinCostFlowEngine engine = new SuccessiveShortestPathMinCostFlowEngine();
+
+    @Test
+    void empty() {
+        assertThat(engine.solve()).isTrue();
+        assertThat(engine.getNumArcs()).isZero();
+    }
+
+    @Test
+    void addArc_returns_index() {
+        assertThat(engine.addArcWithCapacityAndUnitCost(0, 1, 10, 2)).isEqualTo(0);
+        assertThat(engine.addArcWithCapacityAndUnitCost(1, 2, 20, 3)).isEqualTo(1);
+        assertThat(engine.getNumArcs()).isEqualTo(2);
+        assertThat(engine.getCapacity(1)).isEqualTo(20);
+        assertThat(engine.getUnitCost(1)).isEqualTo(3);
+    }
+
+    @Test
+    void addArc_negative_cost() {
+        assertThatIllegalArgumentException().isThrownBy(() -> engine.addArcWithCapacityAndUnitCost(0, 1, 10, -1));
+    }
+
+    @Test
+    void unbalanced_supply() {
+        engine.addArcWithCapacityAndUnitCost(0, 1, 10, 1);
+        engine.setNodeSupply(0, 2);
+        engine.setNodeSupply(1, -1);
+        assertThat(engine.solve()).isFalse();
+    }
+
+    @Test
+    void infeasible() {
+        engine.addArcWithCapacityAndUnitCost(0, 1, 1, 1);
+        engine.setNodeSupply(0, 2);
+        engine.setNodeSupply(1, -2);
+        assertThat(engine.solve()).isFalse();
+    }
+
+    @Test
+    void single_arc() {
+        engine.addArcWithCapacityAndUnitCost(0, 1, 10, 1);
+        engine.setNodeSupply(0, 7);
+        engine.setNodeSupply(1, -7);
+        assertThat(engine.solve()).isTrue();
+        assertThat(engine.getFlow(0)).isEqualTo(7);
+    }
+
+    @Test
+    void prefers_cheaper_path_until_saturated() {
+        int cheap = engine.addArcWithCapacityAndUnitCost(0, 1, 3, 1);
+        int expensive = engine.addArcWithCapacityAndUnitCost(0, 1, 10, 5);
+        engine.setNodeSupply(0, 5);
+        engine.setNodeSupply(1, -5);
+        assertThat(engine.solve()).isTrue();
+        assertThat(engine.getFlow(cheap)).isEqualTo(3);
+        assertThat(engine.getFlow(expensive)).isEqualTo(2);
+    }
+
+    @Test
+    void reroutes_flow_using_reverse_arc() {
+        // the first shortest path 0 -> 1 -> 2 -> 3 is partially undone when sending the second unit
+        int arc01 = engine.addArcWithCapacityAndUnitCost(0, 1, 1, 1);
+        int arc02 = engine.addArcWithCapacityAndUnitCost(0, 2, 1, 5);
+        int arc12 = engine.addArcWithCapacityAndUnitCost(1, 2, 1, 1);
+        int arc13 = engine.addArcWithCapacityAndUnitCost(1, 3, 1, 5);
+        int arc23 = engine.addArcWithCapacityAndUnitCost(2, 3, 1, 1);
+        engine.setNodeSupply(0, 2);
+        engine.setNodeSupply(3, -2);
+        assertThat(engine.solve()).isTrue();
+        assertThat(engine.getFlow(arc01)).isEqualTo(1);
+        assertThat(engine.getFlow(arc02)).isEqualTo(1);
+        assertThat(engine.getFlow(arc12)).isEqualTo(0);
+        assertThat(engine.getFlow(arc13)).isEqualTo(1);
+        assertThat(engine.getFlow(arc23)).isEqualTo(1);
+    }
+
+    @Test
+    void two_sources_two_sinks() {
+        int arc02 = engine.addArcWithCapacityAndUnitCost(0, 2, 5, 1);
+        int arc13 = engine.addArcWithCapacityAndUnitCost(1, 3, 5, 1);
+        int arc03 = engine.addArcWithCapacityAndUnitCost(0, 3, 5, 10);
+        engine.setNodeSupply(0, 2);
+        engine.setNodeSupply(1, 3);
+        engine.setNodeSupply(2, -2);
+        engine.setNodeSupply(3, -3);
+        assertThat(engine.solve()).isTrue();
+        assertThat(engine.getFlow(arc02)).isEqualTo(2);
+        assertThat(engine.getFlow(arc13)).isEqualTo(3);
+        assertThat(engine.getFlow(arc03)).isEqualTo(0);
+    }
+
+    @Test
+    void solve_twice() {
+        engine.addArcWithCapacityAndUnitCost(0, 1, 10, 1);
+        engine.setNodeSupply(0, 7);
+        engine.setNodeSupply(1, -7);
+        engine.solve();
+        engine.setNodeSupply(0, 3);
+        engine.setNodeSupply(1, -3);
+        assertThat(engine.solve()).isTrue();
+        assertThat(engine.getFlow(0)).isEqualTo(3);
+    }
+
+    @Test
+    void setArcCapacity() {
+        int arc = engine.addArcWithCapacityAndUnitCost(0, 1, 10, 1);
+        engine.setArcCapacity(arc, 5);
+        assertThat(engine.getCapacity(arc)).isEqualTo(5);
+    }
+
+    @Test
+    void warm_start_after_capacity_reduction() {
+        int cheap = engine.addArcWithCapacityAndUnitCost(0, 1, 10, 1);
+        int expensive = engine.addArcWithCapacityAndUnitCost(0, 1, 10, 5);
+        engine.setNodeSupply(0, 7);
+        engine.setNodeSupply(1, -7);
+        engine.solve();
+        engine.setArcCapacity(cheap, 4);
+        assertThat(engine.solve()).isTrue();
+        assertThat(engine.getFlow(cheap)).isEqualTo(4);
+        assertThat(engine.getFlow(expensive)).isEqualTo(3);
+    }
+
+    @Test
+    void warm_start_after_capacity_increase() {
+        int cheap = engine.addArcWithCapacityAndUnitCost(0, 1, 4, 1);
+        int expensive = engine.addArcWithCapacityAndUnitCost(0, 1, 10, 5);
+        engine.setNodeSupply(0, 7);
+        engine.setNodeSupply(1, -7);
+        engine.solve();
+        engine.setArcCapacity(cheap, 10);
+        assertThat(engine.solve()).isTrue();
+        assertThat(engine.getFlow(cheap)).isEqualTo(7);
+        assertThat(engine.getFlow(expensive)).isEqualTo(0);
+    }
+
+    @Test
+    void warm_start_after_adding_cheaper_arc() {
+        int expensive = engine.addArcWithCapacityAndUnitCost(0, 1, 10, 5);
+        engine.setNodeSupply(0, 7);
+        engine.setNodeSupply(1, -7);
+        engine.solve();
+        int arc02 = engine.addArcWithCapacityAndUnitCost(0, 2, 10, 1);
+        int arc21 = engine.addArcWithCapacityAndUnitCost(2, 1, 5, 1);
+        assertThat(engine.solve()).isTrue();
+        assertThat(engine.getFlow(expensive)).isEqualTo(2);
+        assertThat(engine.getFlow(arc02)).isEqualTo(5);
+        assertThat(engine.getFlow(arc21)).isEqualTo(5);
+    }
+
+    @Test
+    void warm_start_after_failed_solve() {
+        int arc = engine.addArcWithCapacityAndUnitCost(0, 1, 1, 1);
+        engine.setNodeSupply(0, 2);
+        engine.setNodeSupply(1, -2);
+        engine.solve();
+        engine.setArcCapacity(arc, 2);
+        assertThat(engine.solve()).isTrue();
+        assertThat(engine.getFlow(arc)).isEqualTo(2);
+    }
+
+    @Test
+    void many_nodes_and_arcs() {
+        int nodes = 5_000;
+        for (int node = 0; node < nodes - 1; node++) {
+            engine.addArcWithCapacityAndUnitCost(node, node + 1, 2, 1);
+            engine.addArcWithCapacityAndUnitCost(node, node + 1, 2, 3);
+        }
+        engine.setNodeSupply(0, 3);
+        engine.setNodeSupply(nodes - 1, -3);
+        assertThat(engine.solve()).isTrue();
+        assertThat(getTotalCost(engine)).isEqualTo((nodes - 1) * (2 * 1 + 3));
+    }
+
+    @Test
+    void same_cost_as_or_tools() {
+        Random random = new Random(42);
+        for (int instance = 0; instance < 50; instance++) {
+            MinCostFlowEngine engine = new SuccessiveShortestPathMinCostFlowEngine();
+            MinCostFlowEngine reference = new OrToolsMinCostFlowEngine();
+            int nodes = 2 + random.nextInt(30);
+            int arcs = random.nextInt(nodes * 6);
+            for (int arc = 0; arc < arcs; arc++) {
+                int tail = random.nextInt(nodes);
+                int head = random.nextInt(nodes);
+                long capacity = random.nextInt(20);
+                long unitCost = random.nextInt(1_000);
+                engine.addArcWithCapacityAndUnitCost(tail, head, capacity, unitCost);
+                reference.addArcWithCapacityAndUnitCost(tail, head, capacity, unitCost);
+            }
+            long supply = 1 + random.nextInt(25);
+            int source = random.nextInt(nodes);
+            int sink = (source + 1 + random.nextInt(nodes - 1)) % nodes;
+            engine.setNodeSupply(source, supply);
+            engine.setNodeSupply(sink, -supply);
+            reference.setNodeSupply(source, supply);
+            reference.setNodeSupply(sink, -supply);
+
+            boolean solved = reference.solve();
+            assertThat(engine.solve()).isEqualTo(solved);
+            if (solved) {
+                assertThat(getTotalCost(engine)).isEqualTo(getTotalCost(reference));
+            }
+        }
+    }
+
+    @Test
+    void warm_start_same_cost_as_cold_start() {
+        Random random = new Random(23);
+        for (int instance = 0; instance < 20; instance++) {
+            SuccessiveShortestPathMinCostFlowEngine engine = new SuccessiveShortestPathMinCostFlowEngine();
+            int nodes = 2 + random.nextInt(30);
+            int arcs = 1 + random.nextInt(nodes * 6);
+            int[] tails = new int[arcs];
+            int[] heads = new int[arcs];
+            long[] capacities = new long[arcs];
+            long[] unitCosts = new long[arcs];
+            for (int arc = 0; arc < arcs; arc++) {
+                tails[arc] = random.nextInt(nodes);
+                heads[arc] = random.nextInt(nodes);
+                capacities[arc] = random.nextInt(20);
+                unitCosts[arc] = random.nextInt(1_000);
+                engine.addArcWithCapacityAndUnitCost(tails[arc], heads[arc], capacities[arc], unitCosts[arc]);
+            }
+            int source = random.nextInt(nodes);
+            int sink = (source + 1 + random.nextInt(nodes - 1)) % nodes;
+            for (int iteration = 0; iteration < 10; iteration++) {
+                for (int change = 0; change < 3; change++) {
+                    int arc = random.nextInt(arcs);
+                    capacities[arc] = random.nextInt(20);
+                    engine.setArcCapacity(arc, capacities[arc]);
+                }
+                long supply = 1 + random.nextInt(25);
+                engine.setNodeSupply(source, supply);
+                engine.setNodeSupply(sink, -supply);
+
+                MinCostFlowEngine reference = new SuccessiveShortestPathMinCostFlowEngine();
+                for (int arc = 0; arc < arcs; arc++) {
+                    reference.addArcWithCapacityAndUnitCost(tails[arc], heads[arc], capacities[arc], unitCosts[arc]);
+                }
+                reference.setNodeSupply(source, supply);
+                reference.setNodeSupply(sink, -supply);
+
+                boolean solved = reference.solve();
+                assertThat(engine.solve()).isEqualTo(solved);
+                if (solved) {
+                    assertThat(getTotalCost(engine)).isEqualTo(getTotalCost(reference));
+                }
+            }
+        }
+    }
+
+    private long getTotalCost(MinCostFlowEngine engine) {
+        long totalCost = 0;
+        for (int arc = 0; arc < engine.getNumArcs(); arc++) {
+            totalCost += engine.getFlow(arc) * engine.getUnitCost(arc);
+        }
+        return totalCost;
+    }
+}
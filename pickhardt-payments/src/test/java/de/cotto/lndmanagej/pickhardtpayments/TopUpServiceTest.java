@@ -4,9 +4,11 @@ import de.cotto.lndmanagej.configuration.ConfigurationService;
 import de.cotto.lndmanagej.grpc.GrpcInvoices;
 import de.cotto.lndmanagej.model.Coins;
 import de.cotto.lndmanagej.model.HexString;
+import de.cotto.lndmanagej.model.Pubkey;
 import de.cotto.lndmanagej.pickhardtpayments.model.PaymentOptions;
 import de.cotto.lndmanagej.pickhardtpayments.model.PaymentStatus;
 import de.cotto.lndmanagej.pickhardtpayments.model.PaymentStatus.InstantWithString;
+import de.cotto.lndmanagej.pickhardtpayments.model.PaymentViaPeer;
 import de.cotto.lndmanagej.service.BalanceService;
 import de.cotto.lndmanagej.service.ChannelService;
 import de.cotto.lndmanagej.service.NodeService;
@@ -19,6 +21,9 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -28,9 +33,13 @@ import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID;
 import static de.cotto.lndmanagej.model.DecodedPaymentRequestFixtures.DECODED_PAYMENT_REQUEST;
 import static de.cotto.lndmanagej.model.LocalOpenChannelFixtures.LOCAL_OPEN_CHANNEL;
 import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY;
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_2;
+import static de.cotto.lndmanagej.pickhardtpayments.model.MultiPathPaymentFixtures.MULTI_PATH_PAYMENT;
 import static de.cotto.lndmanagej.pickhardtpayments.model.PaymentOptions.DEFAULT_PAYMENT_OPTIONS;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.verify;
@@ -70,6 +79,9 @@ class TopUpServiceTest {
     @Mock
     private PolicyService policyService;
 
+    @Mock
+    private MultiPathPaymentSplitter multiPathPaymentSplitter;
+
     @BeforeEach
     void setUp() {
         lenient().when(nodeService.getAlias(PUBKEY)).thenReturn("alias");
@@ -330,6 +342,57 @@ class TopUpServiceTest {
         assertFailure("Amount 10,000.000 below threshold 10,001.000 (balance 113,000.000)");
     }
 
+    @Test
+    void batch_top_up() {
+        when(balanceService.getAvailableLocalBalanceForPeer(PUBKEY)).thenReturn(Coins.NONE);
+        PaymentOptions paymentOptions = PaymentOptions.forTopUp(OUR_FEE_RATE, PEER_FEE_RATE, PUBKEY);
+        List<PaymentViaPeer> expectedPayments = List.of(new PaymentViaPeer(AMOUNT, paymentOptions));
+        when(multiPathPaymentSplitter.getMultiPathPaymentsViaPeers(
+                expectedPayments,
+                DECODED_PAYMENT_REQUEST.cltvExpiry()
+        )).thenReturn(Map.of(PUBKEY, MULTI_PATH_PAYMENT));
+        when(multiPathPaymentSender.payPaymentRequest(DECODED_PAYMENT_REQUEST, paymentOptions, MULTI_PATH_PAYMENT))
+                .thenReturn(new PaymentStatus(new HexString("AA00")));
+
+        Map<Pubkey, PaymentStatus> paymentStatuses = topUpService.topUp(Map.of(PUBKEY, AMOUNT), paymentOptions);
+
+        assertThat(paymentStatuses).containsOnlyKeys(PUBKEY);
+        assertThat(paymentStatuses.get(PUBKEY).isPending()).isTrue();
+        verify(grpcInvoices).createPaymentRequest(AMOUNT, DESCRIPTION, DEFAULT_EXPIRY);
+    }
+
+    @Test
+    void batch_top_up_failure_for_one_peer() {
+        when(balanceService.getAvailableLocalBalanceForPeer(PUBKEY)).thenReturn(Coins.NONE);
+        when(channelService.getOpenChannelsWith(PUBKEY_2)).thenReturn(Set.of());
+        when(nodeService.getAlias(PUBKEY_2)).thenReturn("alias2");
+        Map<Pubkey, Coins> amounts = new LinkedHashMap<>();
+        amounts.put(PUBKEY_2, AMOUNT);
+        amounts.put(PUBKEY, AMOUNT);
+
+        Map<Pubkey, PaymentStatus> paymentStatuses = topUpService.topUp(amounts, DEFAULT_PAYMENT_OPTIONS);
+
+        assertThat(paymentStatuses).containsOnlyKeys(PUBKEY, PUBKEY_2);
+        assertThat(paymentStatuses.get(PUBKEY_2).isFailure()).isTrue();
+        assertThat(paymentStatuses.get(PUBKEY_2).getMessages().stream().map(InstantWithString::string))
+                .containsExactly("No channel with " + PUBKEY_2 + " (alias2)");
+        verify(multiPathPaymentSplitter).getMultiPathPaymentsViaPeers(
+                argThat(payments -> payments.stream().map(PaymentViaPeer::peer).toList().equals(List.of(PUBKEY))),
+                anyInt()
+        );
+    }
+
+    @Test
+    void batch_top_up_without_valid_peer() {
+        when(channelService.getOpenChannelsWith(PUBKEY)).thenReturn(Set.of());
+
+        Map<Pubkey, PaymentStatus> paymentStatuses =
+                topUpService.topUp(Map.of(PUBKEY, AMOUNT), DEFAULT_PAYMENT_OPTIONS);
+
+        assertThat(paymentStatuses.get(PUBKEY).isFailure()).isTrue();
+        verifyNoInteractions(multiPathPaymentSender);
+    }
+
     private void assertTopUp(Coins expectedTopUpAmount, Duration expiry) {
         PaymentOptions paymentOptions = PaymentOptions.forTopUp(OUR_FEE_RATE, PEER_FEE_RATE, PUBKEY);
         PaymentOptions emptyPaymentOptions = new PaymentOptions(
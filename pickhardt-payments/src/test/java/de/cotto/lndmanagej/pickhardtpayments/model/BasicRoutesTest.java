@@ -4,21 +4,28 @@ import de.cotto.lndmanagej.model.BasicRoute;
 import de.cotto.lndmanagej.model.ChannelId;
 import de.cotto.lndmanagej.model.Coins;
 import de.cotto.lndmanagej.model.Edge;
+import de.cotto.lndmanagej.model.Pubkey;
 import org.junit.jupiter.api.Test;
 
+import java.util.Comparator;
 import java.util.List;
+import java.util.Random;
 
 import static de.cotto.lndmanagej.model.ChannelFixtures.CAPACITY;
 import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID;
 import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID_2;
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID_3;
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID_4;
 import static de.cotto.lndmanagej.model.EdgeFixtures.EDGE;
 import static de.cotto.lndmanagej.model.PolicyFixtures.POLICY_1;
 import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY;
 import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_2;
 import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_3;
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_4;
 import static de.cotto.lndmanagej.pickhardtpayments.model.FlowFixtures.FLOW;
 import static de.cotto.lndmanagej.pickhardtpayments.model.FlowsFixtures.FLOWS;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
 
 class BasicRoutesTest {
     private final Flows flows = new Flows();
@@ -77,6 +84,127 @@ class BasicRoutesTest {
         );
     }
 
+    @Test
+    void fromFlows_shortest_route_first() {
+        Edge edge1 = new Edge(CHANNEL_ID, PUBKEY, PUBKEY_2, CAPACITY, POLICY_1);
+        Edge edge2 = new Edge(CHANNEL_ID_2, PUBKEY_2, PUBKEY_4, CAPACITY, POLICY_1);
+        Edge edge3 = new Edge(CHANNEL_ID_3, PUBKEY_4, PUBKEY_3, CAPACITY, POLICY_1);
+        Edge direct = new Edge(CHANNEL_ID_4, PUBKEY, PUBKEY_3, CAPACITY, POLICY_1);
+        flows.add(edge1, Coins.ofSatoshis(10));
+        flows.add(edge2, Coins.ofSatoshis(10));
+        flows.add(edge3, Coins.ofSatoshis(10));
+        flows.add(direct, Coins.ofSatoshis(5));
+        assertThat(BasicRoutes.fromFlows(PUBKEY, PUBKEY_3, flows)).containsExactly(
+                new BasicRoute(List.of(direct), Coins.ofSatoshis(5)),
+                new BasicRoute(List.of(edge1, edge2, edge3), Coins.ofSatoshis(10))
+        );
+    }
+
+    @Test
+    void fromFlows_route_with_shortcut() {
+        Edge edge1 = new Edge(CHANNEL_ID, PUBKEY, PUBKEY_2, CAPACITY, POLICY_1);
+        Edge edge2 = new Edge(CHANNEL_ID_2, PUBKEY_2, PUBKEY_4, CAPACITY, POLICY_1);
+        Edge edge3 = new Edge(CHANNEL_ID_3, PUBKEY_4, PUBKEY_3, CAPACITY, POLICY_1);
+        Edge shortcut = new Edge(CHANNEL_ID_4, PUBKEY_2, PUBKEY_3, CAPACITY, POLICY_1);
+        flows.add(edge1, Coins.ofSatoshis(10));
+        flows.add(edge2, Coins.ofSatoshis(7));
+        flows.add(edge3, Coins.ofSatoshis(7));
+        flows.add(shortcut, Coins.ofSatoshis(3));
+        assertThat(BasicRoutes.fromFlows(PUBKEY, PUBKEY_3, flows)).containsExactly(
+                new BasicRoute(List.of(edge1, shortcut), Coins.ofSatoshis(3)),
+                new BasicRoute(List.of(edge1, edge2, edge3), Coins.ofSatoshis(7))
+        );
+    }
+
+    @Test
+    void fromFlows_ignores_cycle() {
+        Edge edge1 = new Edge(CHANNEL_ID, PUBKEY, PUBKEY_2, CAPACITY, POLICY_1);
+        Edge edge2 = new Edge(CHANNEL_ID_2, PUBKEY_2, PUBKEY_3, CAPACITY, POLICY_1);
+        Edge cycle1 = new Edge(CHANNEL_ID_3, PUBKEY_2, PUBKEY_4, CAPACITY, POLICY_1);
+        Edge cycle2 = new Edge(CHANNEL_ID_4, PUBKEY_4, PUBKEY_2, CAPACITY, POLICY_1);
+        flows.add(edge1, Coins.ofSatoshis(10));
+        flows.add(cycle1, Coins.ofSatoshis(4));
+        flows.add(cycle2, Coins.ofSatoshis(4));
+        flows.add(edge2, Coins.ofSatoshis(10));
+        assertThat(BasicRoutes.fromFlows(PUBKEY, PUBKEY_3, flows)).containsExactly(
+                new BasicRoute(List.of(edge1, edge2), Coins.ofSatoshis(10))
+        );
+    }
+
+    @Test
+    void fromFlows_milli_satoshis() {
+        flows.add(EDGE, Coins.ofMilliSatoshis(1_234));
+        assertThat(BasicRoutes.fromFlows(PUBKEY, PUBKEY_2, flows))
+                .containsExactly(new BasicRoute(List.of(EDGE), Coins.ofMilliSatoshis(1_234)));
+    }
+
+    @Test
+    void fromFlows_dead_end() {
+        Edge edge1 = new Edge(CHANNEL_ID, PUBKEY, PUBKEY_2, CAPACITY, POLICY_1);
+        Edge deadEnd = new Edge(CHANNEL_ID_2, PUBKEY_2, PUBKEY_4, CAPACITY, POLICY_1);
+        Edge edge2 = new Edge(CHANNEL_ID_3, PUBKEY_2, PUBKEY_3, CAPACITY, POLICY_1);
+        flows.add(edge1, Coins.ofSatoshis(10));
+        flows.add(deadEnd, Coins.ofSatoshis(5));
+        flows.add(edge2, Coins.ofSatoshis(5));
+        assertThat(BasicRoutes.fromFlows(PUBKEY, PUBKEY_3, flows)).containsExactly(
+                new BasicRoute(List.of(edge1, edge2), Coins.ofSatoshis(5))
+        );
+    }
+
+    @Test
+    void fromFlows_routes_add_up_to_flows() {
+        Random random = new Random(1);
+        List<Pubkey> nodes = List.of(PUBKEY, PUBKEY_2, PUBKEY_3, PUBKEY_4);
+        Flows layeredFlows = new Flows();
+        for (int route = 0; route < 50; route++) {
+            Pubkey current = PUBKEY;
+            int hops = 1 + random.nextInt(3);
+            Coins amount = Coins.ofSatoshis(1 + random.nextInt(1_000));
+            for (int hop = 1; hop <= hops; hop++) {
+                Pubkey next = hop == hops ? PUBKEY_4 : nodes.get(hop);
+                ChannelId channel = ChannelId.fromShortChannelId(1 + random.nextInt(3));
+                layeredFlows.add(new Edge(channel, current, next, CAPACITY, POLICY_1), amount);
+                current = next;
+            }
+        }
+        List<BasicRoute> basicRoutes = BasicRoutes.fromFlows(PUBKEY, PUBKEY_4, layeredFlows);
+
+        Flows combined = new Flows();
+        basicRoutes.forEach(basicRoute -> basicRoute.edges().forEach(edge -> combined.add(edge, basicRoute.amount())));
+        assertThat(combined).isEqualTo(layeredFlows);
+        assertThat(basicRoutes).isSortedAccordingTo(Comparator.comparing(basicRoute -> basicRoute.edges().size()));
+    }
+
+    @Test
+    void fromFlows_several_targets() {
+        Edge edge1 = createEdgeWithChannelId(CHANNEL_ID);
+        Edge edge2 = new Edge(CHANNEL_ID_2, PUBKEY, PUBKEY_3, CAPACITY, POLICY_1);
+        flows.add(edge1, Coins.ofSatoshis(10));
+        flows.add(edge2, Coins.ofSatoshis(20));
+        assertThat(BasicRoutes.fromFlows(PUBKEY, List.of(PUBKEY_2, PUBKEY_3), flows)).containsExactly(
+                entry(PUBKEY_2, List.of(new BasicRoute(List.of(edge1), Coins.ofSatoshis(10)))),
+                entry(PUBKEY_3, List.of(new BasicRoute(List.of(edge2), Coins.ofSatoshis(20))))
+        );
+    }
+
+    @Test
+    void fromFlows_several_targets_flow_through_target() {
+        Edge edge1 = createEdgeWithChannelId(CHANNEL_ID);
+        Edge edge2 = new Edge(CHANNEL_ID_2, PUBKEY_2, PUBKEY_3, CAPACITY, POLICY_1);
+        flows.add(edge1, Coins.ofSatoshis(30));
+        flows.add(edge2, Coins.ofSatoshis(20));
+        assertThat(BasicRoutes.fromFlows(PUBKEY, List.of(PUBKEY_2, PUBKEY_3), flows)).containsExactly(
+                entry(PUBKEY_2, List.of(new BasicRoute(List.of(edge1), Coins.ofSatoshis(10)))),
+                entry(PUBKEY_3, List.of(new BasicRoute(List.of(edge1, edge2), Coins.ofSatoshis(20))))
+        );
+    }
+
+    @Test
+    void fromFlows_several_targets_unknown_target() {
+        assertThat(BasicRoutes.fromFlows(PUBKEY, List.of(PUBKEY_4), new Flows(FLOW)))
+                .containsExactly(entry(PUBKEY_4, List.of()));
+    }
+
     private Edge createEdgeWithChannelId(ChannelId channelId) {
         return new Edge(channelId, PUBKEY, PUBKEY_2, CAPACITY, POLICY_1);
     }
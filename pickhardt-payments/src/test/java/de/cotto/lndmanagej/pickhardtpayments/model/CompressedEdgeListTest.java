@@ -0,0 +1,100 @@
+package de.cotto.lndmanagej.pickhardtpayments.model;
+
+import de.cotto.lndmanagej.model.Coins;
+import de.cotto.lndmanagej.model.DirectedChannelEdge;
+import de.cotto.lndmanagej.model.EdgeWithLiquidityInformation;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static de.cotto.lndmanagej.model.ChannelFixtures.CAPACITY;
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID;
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID_2;
+import static de.cotto.lndmanagej.model.EdgeFixtures.EDGE_3_4;
+import static de.cotto.lndmanagej.model.PolicyFixtures.POLICY_1;
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY;
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_2;
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_3;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class CompressedEdgeListTest {
+    private static final EdgeWithLiquidityInformation ADDITIONAL_EDGE =
+            EdgeWithLiquidityInformation.forKnownLiquidity(EDGE_3_4, EDGE_3_4.capacity());
+
+    private final CompressedGraph graph = CompressedGraph.create(List.of(
+            new DirectedChannelEdge(CHANNEL_ID, CAPACITY, PUBKEY, PUBKEY_2, POLICY_1),
+            new DirectedChannelEdge(CHANNEL_ID_2, CAPACITY, PUBKEY, PUBKEY_3, POLICY_1)
+    ));
+    private final CompressedEdgeList edgeList = new CompressedEdgeList(
+            graph,
+            new int[]{1, 0},
+            new long[]{1_000, 0},
+            new long[]{5_000, 2_000},
+            1,
+            List.of(ADDITIONAL_EDGE)
+    );
+
+    @Test
+    void size() {
+        assertThat(edgeList).hasSize(2);
+    }
+
+    @Test
+    void get_graph_edge_with_overlaid_bounds() {
+        assertThat(edgeList.get(0)).isEqualTo(EdgeWithLiquidityInformation.forLowerAndUpperBound(
+                graph.getEdge(1),
+                Coins.ofMilliSatoshis(1_000),
+                Coins.ofMilliSatoshis(5_000)
+        ));
+    }
+
+    @Test
+    void get_additional_edge() {
+        assertThat(edgeList.get(1)).isEqualTo(ADDITIONAL_EDGE);
+    }
+
+    @Test
+    void getAdditionalEdges() {
+        assertThat(edgeList.getAdditionalEdges()).containsExactly(ADDITIONAL_EDGE);
+    }
+
+    @Test
+    void filter_graph_edge() {
+        CompressedEdgeList filtered = edgeList.filter(index -> index != 0);
+        assertThat(filtered.getNumberOfGraphEdges()).isZero();
+        assertThat(filtered).containsExactly(ADDITIONAL_EDGE);
+    }
+
+    @Test
+    void filter_additional_edge() {
+        CompressedEdgeList filtered = edgeList.filter(index -> index != 1);
+        assertThat(filtered).containsExactly(edgeList.get(0));
+        assertThat(filtered.getGraphEdge(0)).isEqualTo(1);
+        assertThat(filtered.getAdditionalEdges()).isEmpty();
+    }
+
+    @Test
+    void filter_keeps_everything() {
+        assertThat(edgeList.filter(index -> true)).isEqualTo(edgeList);
+    }
+
+    @Test
+    void get_negative_index() {
+        assertThatExceptionOfType(IndexOutOfBoundsException.class).isThrownBy(() -> edgeList.get(-1));
+    }
+
+    @Test
+    void get_index_too_large() {
+        assertThatExceptionOfType(IndexOutOfBoundsException.class).isThrownBy(() -> edgeList.get(2));
+    }
+
+    @Test
+    void primitive_accessors() {
+        assertThat(edgeList.getGraph()).isSameAs(graph);
+        assertThat(edgeList.getNumberOfGraphEdges()).isOne();
+        assertThat(edgeList.getGraphEdge(0)).isOne();
+        assertThat(edgeList.getLowerBoundMilliSat(0)).isEqualTo(1_000);
+        assertThat(edgeList.getUpperBoundMilliSat(0)).isEqualTo(5_000);
+    }
+}
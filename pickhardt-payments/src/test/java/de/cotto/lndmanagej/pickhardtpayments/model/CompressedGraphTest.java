@@ -0,0 +1,113 @@
+package de.cotto.lndmanagej.pickhardtpayments.model;
+
+import de.cotto.lndmanagej.model.Coins;
+import de.cotto.lndmanagej.model.DirectedChannelEdge;
+import de.cotto.lndmanagej.model.Edge;
+import de.cotto.lndmanagej.model.Policy;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static de.cotto.lndmanagej.model.ChannelFixtures.CAPACITY;
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID;
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID_2;
+import static de.cotto.lndmanagej.model.PolicyFixtures.POLICY_1;
+import static de.cotto.lndmanagej.model.PolicyFixtures.POLICY_2;
+import static de.cotto.lndmanagej.model.PolicyFixtures.POLICY_DISABLED;
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY;
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_2;
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_3;
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_4;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompressedGraphTest {
+    private static final Policy POLICY = new Policy(123, Coins.ofMilliSatoshis(456), true, 40, Coins.ofSatoshis(789));
+    private static final DirectedChannelEdge EDGE_1_2 =
+            new DirectedChannelEdge(CHANNEL_ID, CAPACITY, PUBKEY, PUBKEY_2, POLICY);
+    private static final DirectedChannelEdge EDGE_2_1 =
+            new DirectedChannelEdge(CHANNEL_ID, CAPACITY, PUBKEY_2, PUBKEY, POLICY_DISABLED);
+    private static final DirectedChannelEdge EDGE_1_3 =
+            new DirectedChannelEdge(CHANNEL_ID_2, CAPACITY, PUBKEY, PUBKEY_3, POLICY_1);
+
+    private final CompressedGraph graph = CompressedGraph.create(List.of(EDGE_1_2, EDGE_2_1, EDGE_1_3));
+
+    @Test
+    void empty() {
+        CompressedGraph emptyGraph = CompressedGraph.create(List.of());
+        assertThat(emptyGraph.numberOfNodes()).isZero();
+        assertThat(emptyGraph.numberOfEdges()).isZero();
+        assertThat(emptyGraph.getNodeIndex(PUBKEY)).isEqualTo(CompressedGraph.UNKNOWN);
+    }
+
+    @Test
+    void numberOfNodes() {
+        assertThat(graph.numberOfNodes()).isEqualTo(3);
+    }
+
+    @Test
+    void numberOfEdges() {
+        assertThat(graph.numberOfEdges()).isEqualTo(3);
+    }
+
+    @Test
+    void nodeIndexes() {
+        assertThat(graph.getNodeIndex(PUBKEY)).isZero();
+        assertThat(graph.getNodeIndex(PUBKEY_2)).isOne();
+        assertThat(graph.getNodeIndex(PUBKEY_3)).isEqualTo(2);
+        assertThat(graph.getPubkey(1)).isEqualTo(PUBKEY_2);
+    }
+
+    @Test
+    void outgoing_edges_are_stored_consecutively() {
+        int node = graph.getNodeIndex(PUBKEY);
+        assertThat(graph.firstEdge(node)).isZero();
+        assertThat(graph.lastEdgeExclusive(node)).isEqualTo(2);
+        assertThat(graph.getEdge(0).endNode()).isEqualTo(PUBKEY_2);
+        assertThat(graph.getEdge(1).endNode()).isEqualTo(PUBKEY_3);
+        assertThat(graph.firstEdge(graph.getNodeIndex(PUBKEY_2))).isEqualTo(2);
+        assertThat(graph.firstEdge(graph.getNodeIndex(PUBKEY_3)))
+                .isEqualTo(graph.lastEdgeExclusive(graph.getNodeIndex(PUBKEY_3)));
+    }
+
+    @Test
+    void edge_attributes() {
+        int edge = graph.getEdgeIndex(EDGE_1_2);
+        assertThat(graph.sourceNode(edge)).isEqualTo(graph.getNodeIndex(PUBKEY));
+        assertThat(graph.targetNode(edge)).isEqualTo(graph.getNodeIndex(PUBKEY_2));
+        assertThat(graph.capacityMilliSat(edge)).isEqualTo(CAPACITY.milliSatoshis());
+        assertThat(graph.feeRate(edge)).isEqualTo(123);
+        assertThat(graph.baseFeeMilliSat(edge)).isEqualTo(456);
+        assertThat(graph.timeLockDelta(edge)).isEqualTo(40);
+        assertThat(graph.maxHtlcMilliSat(edge)).isEqualTo(789_000);
+        assertThat(graph.isEnabled(edge)).isTrue();
+    }
+
+    @Test
+    void disabled() {
+        assertThat(graph.isEnabled(graph.getEdgeIndex(EDGE_2_1))).isFalse();
+    }
+
+    @Test
+    void getEdge() {
+        assertThat(graph.getEdge(graph.getEdgeIndex(EDGE_1_3)))
+                .isEqualTo(new Edge(CHANNEL_ID_2, PUBKEY, PUBKEY_3, CAPACITY, POLICY_1));
+    }
+
+    @Test
+    void getEdgeIndex_unknown() {
+        DirectedChannelEdge unknown = new DirectedChannelEdge(CHANNEL_ID_2, CAPACITY, PUBKEY_3, PUBKEY, POLICY_1);
+        assertThat(graph.getEdgeIndex(unknown)).isEqualTo(CompressedGraph.UNKNOWN);
+    }
+
+    @Test
+    void getEdgeIndex_different_policy() {
+        DirectedChannelEdge changed = new DirectedChannelEdge(CHANNEL_ID_2, CAPACITY, PUBKEY, PUBKEY_3, POLICY_2);
+        assertThat(graph.getEdgeIndex(changed)).isEqualTo(CompressedGraph.UNKNOWN);
+    }
+
+    @Test
+    void getEdgeIndex_unknown_node() {
+        DirectedChannelEdge unknown = new DirectedChannelEdge(CHANNEL_ID_2, CAPACITY, PUBKEY_4, PUBKEY, POLICY_1);
+        assertThat(graph.getEdgeIndex(unknown)).isEqualTo(CompressedGraph.UNKNOWN);
+    }
+}
@@ -1,11 +1,21 @@
 package de.cotto.lndmanagej.pickhardtpayments.model;
 
 import de.cotto.lndmanagej.model.Coins;
+import de.cotto.lndmanagej.model.DirectedChannelEdge;
 import de.cotto.lndmanagej.model.EdgeWithLiquidityInformation;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
+import static de.cotto.lndmanagej.model.ChannelFixtures.CAPACITY;
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID;
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID_2;
 import static de.cotto.lndmanagej.model.EdgeFixtures.EDGE;
 import static de.cotto.lndmanagej.model.EdgeFixtures.EDGE_1_3;
+import static de.cotto.lndmanagej.model.PolicyFixtures.POLICY_1;
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY;
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_2;
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_3;
 import static org.assertj.core.api.Assertions.assertThat;
 
 class EdgesWithLiquidityInformationTest {
@@ -26,6 +36,37 @@ class EdgesWithLiquidityInformationTest {
         assertThat(EdgesWithLiquidityInformation.EMPTY.maximumCapacity()).isEqualTo(Coins.NONE);
     }
 
+    @Test
+    void filter() {
+        EdgeWithLiquidityInformation edge1 = EdgeWithLiquidityInformation.forKnownLiquidity(EDGE, Coins.ofSatoshis(1));
+        EdgeWithLiquidityInformation edge2 = EdgeWithLiquidityInformation.forLowerBound(EDGE_1_3, Coins.ofSatoshis(10));
+        EdgesWithLiquidityInformation edges = new EdgesWithLiquidityInformation(edge1, edge2);
+        assertThat(edges.filter(index -> index == 1))
+                .isEqualTo(new EdgesWithLiquidityInformation(List.of(edge2), edges.maximumCapacity()));
+    }
+
+    @Test
+    void filter_compressed() {
+        CompressedGraph graph = CompressedGraph.create(List.of(
+                new DirectedChannelEdge(CHANNEL_ID, CAPACITY, PUBKEY, PUBKEY_2, POLICY_1),
+                new DirectedChannelEdge(CHANNEL_ID_2, CAPACITY, PUBKEY, PUBKEY_3, POLICY_1)
+        ));
+        CompressedEdgeList edgeList = new CompressedEdgeList(
+                graph,
+                new int[]{0, 1},
+                new long[]{0, 0},
+                new long[]{1_000, 2_000},
+                2,
+                List.of()
+        );
+        Coins maximumCapacity = Coins.ofSatoshis(123);
+        EdgesWithLiquidityInformation edges = new EdgesWithLiquidityInformation(edgeList, maximumCapacity);
+
+        EdgesWithLiquidityInformation filtered = edges.filter(index -> index == 1);
+        assertThat(filtered.edges()).isInstanceOf(CompressedEdgeList.class).containsExactly(edgeList.get(1));
+        assertThat(filtered.maximumCapacity()).isEqualTo(maximumCapacity);
+    }
+
     @Test
     void maximumCapacity() {
         Coins largerCapacity = Coins.ofSatoshis(100);
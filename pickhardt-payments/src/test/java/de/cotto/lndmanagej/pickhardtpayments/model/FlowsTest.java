@@ -1,25 +1,16 @@
 package de.cotto.lndmanagej.pickhardtpayments.model;
 
 import de.cotto.lndmanagej.model.Coins;
-import de.cotto.lndmanagej.model.Edge;
 import nl.jqno.equalsverifier.EqualsVerifier;
 import org.junit.jupiter.api.Test;
 
-import static de.cotto.lndmanagej.model.ChannelFixtures.CAPACITY;
-import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID;
-import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID_2;
-import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID_3;
-import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID_4;
-import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID_5;
 import static de.cotto.lndmanagej.model.EdgeFixtures.EDGE;
 import static de.cotto.lndmanagej.model.EdgeFixtures.EDGE_1_3;
 import static de.cotto.lndmanagej.model.EdgeFixtures.EDGE_2_3;
 import static de.cotto.lndmanagej.model.EdgeFixtures.EDGE_3_4;
-import static de.cotto.lndmanagej.model.PolicyFixtures.POLICY_1;
 import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY;
 import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_2;
 import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_3;
-import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_4;
 import static de.cotto.lndmanagej.pickhardtpayments.model.FlowFixtures.FLOW;
 import static de.cotto.lndmanagej.pickhardtpayments.model.FlowFixtures.FLOW_2;
 import static de.cotto.lndmanagej.pickhardtpayments.model.FlowFixtures.FLOW_3;
@@ -66,6 +57,16 @@ class FlowsTest {
         assertThat(flows.getFlowsFrom(FLOW.edge().startNode())).containsExactly(FLOW);
     }
 
+    @Test
+    void getAll() {
+        assertThat(FLOWS.getAll()).containsExactly(FLOW, FLOW_2, FLOW_3);
+    }
+
+    @Test
+    void getAll_empty() {
+        assertThat(new Flows().getAll()).isEmpty();
+    }
+
     @Test
     void constructor_combines_flows_along_same_channel() {
         Flows flows = new Flows(FLOW, FLOW);
@@ -96,64 +97,6 @@ class FlowsTest {
         assertThat(flows.getFlow(EDGE)).isEqualTo(FLOW.amount());
     }
 
-    @Test
-    void getCopy() {
-        Flows original = new Flows(FLOW);
-        Flows copy = original.getCopy();
-        assertThat(copy.getFlow(FLOW.edge())).isEqualTo(FLOW.amount());
-    }
-
-    @Test
-    void getCopy_changing_copy_does_not_change_original() {
-        Flows original = new Flows(FLOW);
-        Flows copy = original.getCopy();
-        copy.add(FLOW_3);
-        assertThat(copy.getFlow(FLOW_3.edge())).isEqualTo(FLOW_3.amount());
-        assertThat(original.getFlow(FLOW_3.edge())).isEqualTo(Coins.NONE);
-    }
-
-    @Test
-    void getCopy_changing_original_does_not_change_copy() {
-        Flows original = new Flows(FLOW);
-        Flows copy = original.getCopy();
-        original.add(FLOW_2);
-        assertThat(original.getFlow(FLOW_2.edge())).isEqualTo(FLOW_2.amount());
-        assertThat(copy.getFlow(FLOW_2.edge())).isEqualTo(Coins.NONE);
-    }
-
-    @Test
-    void getShortestPath_already_there() {
-        assertThat(FLOWS.getShortestPath(PUBKEY, PUBKEY)).isEmpty();
-    }
-
-    @Test
-    void getShortestPath_unreachable() {
-        assertThat(FLOWS.getShortestPath(PUBKEY_4, PUBKEY)).isEmpty();
-    }
-
-    @Test
-    void getShortestPath_simple() {
-        assertThat(FLOWS.getShortestPath(PUBKEY, PUBKEY_4)).containsExactly(EDGE, EDGE_2_3, EDGE_3_4);
-    }
-
-    @Test
-    void getShortestPath_complex() {
-        Coins coins = Coins.ofSatoshis(1);
-        Edge edge1to2 = new Edge(CHANNEL_ID, PUBKEY, PUBKEY_2, CAPACITY, POLICY_1);
-        Edge edge2to3 = new Edge(CHANNEL_ID_2, PUBKEY_2, PUBKEY_3, CAPACITY, POLICY_1);
-        Edge edge2to1 = new Edge(CHANNEL_ID_3, PUBKEY_2, PUBKEY, CAPACITY, POLICY_1);
-        Edge edge1to3 = new Edge(CHANNEL_ID_4, PUBKEY, PUBKEY_3, CAPACITY, POLICY_1);
-        Edge edge3to4 = new Edge(CHANNEL_ID_5, PUBKEY_3, PUBKEY_4, CAPACITY, POLICY_1);
-        Flows flows = new Flows(
-                new Flow(edge1to2, coins),
-                new Flow(edge2to3, coins),
-                new Flow(edge2to1, coins),
-                new Flow(edge1to3, coins),
-                new Flow(edge3to4, coins)
-        );
-        assertThat(flows.getShortestPath(PUBKEY, PUBKEY_4)).containsExactly(edge1to3, edge3to4);
-    }
-
     @Test
     void testEquals() {
         // https://github.com/jqno/equalsverifier/issues/613
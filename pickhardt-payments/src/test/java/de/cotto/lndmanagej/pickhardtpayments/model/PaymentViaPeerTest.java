@@ -0,0 +1,35 @@
+package de.cotto.lndmanagej.pickhardtpayments.model;
+
+import de.cotto.lndmanagej.model.Coins;
+import org.junit.jupiter.api.Test;
+
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY;
+import static de.cotto.lndmanagej.pickhardtpayments.model.PaymentOptions.DEFAULT_PAYMENT_OPTIONS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class PaymentViaPeerTest {
+    private static final PaymentOptions PAYMENT_OPTIONS = PaymentOptions.forTopUp(100, 50, PUBKEY);
+
+    @Test
+    void peer() {
+        assertThat(new PaymentViaPeer(Coins.ofSatoshis(1), PAYMENT_OPTIONS).peer()).isEqualTo(PUBKEY);
+    }
+
+    @Test
+    void amount() {
+        assertThat(new PaymentViaPeer(Coins.ofSatoshis(1), PAYMENT_OPTIONS).amount()).isEqualTo(Coins.ofSatoshis(1));
+    }
+
+    @Test
+    void paymentOptions() {
+        assertThat(new PaymentViaPeer(Coins.ofSatoshis(1), PAYMENT_OPTIONS).paymentOptions())
+                .isEqualTo(PAYMENT_OPTIONS);
+    }
+
+    @Test
+    void payment_options_without_peer() {
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> new PaymentViaPeer(Coins.ofSatoshis(1), DEFAULT_PAYMENT_OPTIONS));
+    }
+}
@@ -2,6 +2,7 @@ package de.cotto.lndmanagej.selfpayments.persistence;
 
 import de.cotto.lndmanagej.invoices.persistence.SettledInvoiceJpaDto;
 import de.cotto.lndmanagej.invoices.persistence.SettledInvoicesRepository;
+import de.cotto.lndmanagej.model.Payment;
 import de.cotto.lndmanagej.payments.persistence.PaymentJpaDto;
 import de.cotto.lndmanagej.payments.persistence.PaymentsRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -9,14 +10,19 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 
-import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID;
-import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID_2;
-import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID_3;
-import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID_4;
+import java.util.List;
+
+import static de.cotto.lndmanagej.model.PaymentFixtures.ONE_ROUTE_4_TO_2;
 import static de.cotto.lndmanagej.model.PaymentFixtures.PAYMENT;
 import static de.cotto.lndmanagej.model.PaymentFixtures.PAYMENT_2;
 import static de.cotto.lndmanagej.model.PaymentFixtures.PAYMENT_3;
 import static de.cotto.lndmanagej.model.PaymentFixtures.PAYMENT_4;
+import static de.cotto.lndmanagej.model.PaymentFixtures.PAYMENT_CREATION;
+import static de.cotto.lndmanagej.model.PaymentFixtures.PAYMENT_FEES;
+import static de.cotto.lndmanagej.model.PaymentFixtures.PAYMENT_HASH_2;
+import static de.cotto.lndmanagej.model.PaymentFixtures.PAYMENT_HASH_4;
+import static de.cotto.lndmanagej.model.PaymentFixtures.PAYMENT_INDEX_4;
+import static de.cotto.lndmanagej.model.PaymentFixtures.PAYMENT_VALUE;
 import static de.cotto.lndmanagej.model.SelfPaymentFixtures.SELF_PAYMENT;
 import static de.cotto.lndmanagej.model.SelfPaymentFixtures.SELF_PAYMENT_2;
 import static de.cotto.lndmanagej.model.SelfPaymentFixtures.SELF_PAYMENT_3;
@@ -51,52 +57,30 @@ class SelfPaymentsRepositoryIT {
     }
 
     @Test
-    void getSelfPaymentsToChannel() {
-        assertThat(repository.getSelfPaymentsToChannel(CHANNEL_ID_2.getShortChannelId(), 0))
-                .map(SelfPaymentJpaDto::toModel)
-                .containsExactly(SELF_PAYMENT, SELF_PAYMENT_4);
-    }
-
-    @Test
-    void getSelfPaymentsToChannel_with_max_age() {
-        long minimumSettleDate = SETTLED_INVOICE_3.settleDate().toEpochSecond();
-        assertThat(repository.getSelfPaymentsToChannel(CHANNEL_ID_2.getShortChannelId(), minimumSettleDate))
-                .map(SelfPaymentJpaDto::toModel)
-                .containsExactly(SELF_PAYMENT_4);
-    }
-
-    @Test
-    void getSelfPaymentsToChannel_mpp_with_two_target_channels() {
-        assertThat(repository.getSelfPaymentsToChannel(CHANNEL_ID.getShortChannelId(), 0))
+    void getAllSelfPayments() {
+        assertThat(repository.getAllSelfPayments())
                 .map(SelfPaymentJpaDto::toModel)
-                .contains(SELF_PAYMENT_4);
-        assertThat(repository.getSelfPaymentsToChannel(CHANNEL_ID_2.getShortChannelId(), 0))
-                .map(SelfPaymentJpaDto::toModel)
-                .contains(SELF_PAYMENT_4);
+                .containsExactlyInAnyOrder(SELF_PAYMENT, SELF_PAYMENT_2, SELF_PAYMENT_3, SELF_PAYMENT_4);
     }
 
     @Test
-    void getSelfPaymentsFromChannel() {
-        assertThat(repository.getSelfPaymentsFromChannel(CHANNEL_ID_4.getShortChannelId(), 0))
-            .map(SelfPaymentJpaDto::toModel)
-            .containsExactlyInAnyOrder(SELF_PAYMENT, SELF_PAYMENT_2, SELF_PAYMENT_3, SELF_PAYMENT_4);
+    void getAllSelfPayments_ignores_payment_without_settled_invoice() {
+        Payment payment = new Payment(
+                PAYMENT_INDEX_4 + 1, "abc", PAYMENT_CREATION, PAYMENT_VALUE, PAYMENT_FEES, ONE_ROUTE_4_TO_2
+        );
+        paymentsRepository.save(PaymentJpaDto.createFromModel(payment));
+        assertThat(repository.getAllSelfPayments()).hasSize(4);
     }
 
     @Test
-    void getSelfPaymentsFromChannel_with_max_age() {
-        long minimumSettleDate = SELF_PAYMENT_3.settleDate().toEpochSecond();
-        assertThat(repository.getSelfPaymentsFromChannel(CHANNEL_ID_4.getShortChannelId(), minimumSettleDate))
+    void getSelfPaymentsWithHashIn() {
+        assertThat(repository.getSelfPaymentsWithHashIn(List.of(PAYMENT_HASH_2, PAYMENT_HASH_4)))
                 .map(SelfPaymentJpaDto::toModel)
-                .containsExactlyInAnyOrder(SELF_PAYMENT_3, SELF_PAYMENT_4);
+                .containsExactlyInAnyOrder(SELF_PAYMENT_2, SELF_PAYMENT_4);
     }
 
     @Test
-    void getSelfPaymentsFromChannel_mpp_with_two_source_channels() {
-        assertThat(repository.getSelfPaymentsFromChannel(CHANNEL_ID_4.getShortChannelId(), 0))
-                .map(SelfPaymentJpaDto::toModel)
-                .contains(SELF_PAYMENT_4);
-        assertThat(repository.getSelfPaymentsFromChannel(CHANNEL_ID_3.getShortChannelId(), 0))
-                .map(SelfPaymentJpaDto::toModel)
-                .contains(SELF_PAYMENT_4);
+    void getSelfPaymentsWithHashIn_unknown_hash() {
+        assertThat(repository.getSelfPaymentsWithHashIn(List.of("abc"))).isEmpty();
     }
 }
@@ -33,4 +33,7 @@ public record SelfPaymentJpaDto(
         );
     }
 
+    public String hash() {
+        return payment.getHash();
+    }
 }
@@ -1,20 +1,37 @@
 package de.cotto.lndmanagej.selfpayments.persistence;
 
+import com.google.common.collect.Lists;
+import de.cotto.lndmanagej.invoices.SettledInvoicesListener;
 import de.cotto.lndmanagej.model.ChannelId;
+import de.cotto.lndmanagej.model.Payment;
 import de.cotto.lndmanagej.model.SelfPayment;
+import de.cotto.lndmanagej.model.SettledInvoice;
+import de.cotto.lndmanagej.payments.SettledPaymentsListener;
 import de.cotto.lndmanagej.selfpayments.SelfPaymentsDao;
 import jakarta.transaction.Transactional;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.Nullable;
 import java.time.Duration;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.List;
 
+/**
+ * Self-payments are served from an in-memory index. The index is initialized with a single query on first use, and
+ * afterwards extended whenever payments or settled invoices are persisted. As both listeners are invoked after the
+ * corresponding data was persisted, the lookup for whichever of payment and invoice is persisted last finds the other.
+ */
 @Component
 @Transactional
-public class SelfPaymentsDaoImpl implements SelfPaymentsDao {
+public class SelfPaymentsDaoImpl implements SelfPaymentsDao, SettledPaymentsListener, SettledInvoicesListener {
+    private static final int HASHES_PER_QUERY = 1_000;
+
     private final SelfPaymentsRepository repository;
+    private final Object indexLock = new Object();
+    @Nullable
+    private SelfPaymentsIndex index;
 
     public SelfPaymentsDaoImpl(SelfPaymentsRepository repository) {
         this.repository = repository;
@@ -22,18 +39,50 @@ public class SelfPaymentsDaoImpl implements SelfPaymentsDao {
 
     @Override
     public List<SelfPayment> getSelfPaymentsToChannel(ChannelId channelId, Duration maxAge) {
-        long minimumEpochSecond = getMinimumEpochSecond(maxAge);
-        return toModel(repository.getSelfPaymentsToChannel(channelId.getShortChannelId(), minimumEpochSecond));
+        return getIndex().getSelfPaymentsToChannel(channelId, getMinimumEpochSecond(maxAge));
     }
 
     @Override
     public List<SelfPayment> getSelfPaymentsFromChannel(ChannelId channelId, Duration maxAge) {
-        long minimumEpochSecond = getMinimumEpochSecond(maxAge);
-        return toModel(repository.getSelfPaymentsFromChannel(channelId.getShortChannelId(), minimumEpochSecond));
+        return getIndex().getSelfPaymentsFromChannel(channelId, getMinimumEpochSecond(maxAge));
+    }
+
+    @Override
+    public void addedSettledPayments(Collection<Payment> payments) {
+        addSelfPaymentsWithHashes(payments.stream().map(Payment::paymentHash).toList());
+    }
+
+    @Override
+    public void addedSettledInvoices(Collection<SettledInvoice> settledInvoices) {
+        addSelfPaymentsWithHashes(settledInvoices.stream().map(SettledInvoice::hash).toList());
+    }
+
+    private void addSelfPaymentsWithHashes(List<String> hashes) {
+        synchronized (indexLock) {
+            if (index == null) {
+                // not initialized, yet: the initialization includes all persisted self-payments
+                return;
+            }
+            for (List<String> hashesForQuery : Lists.partition(hashes, HASHES_PER_QUERY)) {
+                addAll(index, repository.getSelfPaymentsWithHashIn(hashesForQuery));
+            }
+        }
+    }
+
+    private SelfPaymentsIndex getIndex() {
+        synchronized (indexLock) {
+            SelfPaymentsIndex result = index;
+            if (result == null) {
+                result = new SelfPaymentsIndex();
+                addAll(result, repository.getAllSelfPayments());
+                index = result;
+            }
+            return result;
+        }
     }
 
-    private List<SelfPayment> toModel(List<SelfPaymentJpaDto> selfPayments) {
-        return selfPayments.stream().map(SelfPaymentJpaDto::toModel).distinct().toList();
+    private static void addAll(SelfPaymentsIndex index, List<SelfPaymentJpaDto> selfPayments) {
+        selfPayments.forEach(selfPayment -> index.add(selfPayment.hash(), selfPayment.toModel()));
     }
 
     private long getMinimumEpochSecond(Duration maxAge) {
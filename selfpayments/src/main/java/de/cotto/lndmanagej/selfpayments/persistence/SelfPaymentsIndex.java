@@ -0,0 +1,91 @@
+package de.cotto.lndmanagej.selfpayments.persistence;
+
+import de.cotto.lndmanagej.model.ChannelId;
+import de.cotto.lndmanagej.model.SelfPayment;
+import de.cotto.lndmanagej.model.SelfPaymentRoute;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Keeps all self-payments in memory, indexed by the channels used for the first hop (source) and the last hop
+ * (target) of their routes. For each channel the self-payments are sorted by settle date, so that the self-payments
+ * settled after a given date can be found using a binary search.
+ */
+final class SelfPaymentsIndex {
+    private final Set<String> knownHashes = new HashSet<>();
+    private final Map<ChannelId, List<SelfPayment>> bySourceChannel = new HashMap<>();
+    private final Map<ChannelId, List<SelfPayment>> byTargetChannel = new HashMap<>();
+
+    SelfPaymentsIndex() {
+        // default constructor
+    }
+
+    /**
+     * Adds the given self-payment, unless a self-payment with the same payment hash is already known.
+     */
+    synchronized void add(String hash, SelfPayment selfPayment) {
+        if (!knownHashes.add(hash)) {
+            return;
+        }
+        add(bySourceChannel, selfPayment, SelfPaymentRoute::channelIdOut);
+        add(byTargetChannel, selfPayment, SelfPaymentRoute::channelIdIn);
+    }
+
+    synchronized List<SelfPayment> getSelfPaymentsFromChannel(ChannelId channelId, long minimumEpochSecond) {
+        return get(bySourceChannel, channelId, minimumEpochSecond);
+    }
+
+    synchronized List<SelfPayment> getSelfPaymentsToChannel(ChannelId channelId, long minimumEpochSecond) {
+        return get(byTargetChannel, channelId, minimumEpochSecond);
+    }
+
+    private static void add(
+            Map<ChannelId, List<SelfPayment>> index,
+            SelfPayment selfPayment,
+            Function<SelfPaymentRoute, ChannelId> channelFunction
+    ) {
+        long epochSecond = getEpochSecond(selfPayment);
+        selfPayment.routes().stream()
+                .map(channelFunction)
+                .distinct()
+                .map(channelId -> index.computeIfAbsent(channelId, key -> new ArrayList<>()))
+                .forEach(selfPayments -> selfPayments.add(
+                        getFirstIndexAfter(selfPayments, epochSecond),
+                        selfPayment
+                ));
+    }
+
+    private static List<SelfPayment> get(
+            Map<ChannelId, List<SelfPayment>> index,
+            ChannelId channelId,
+            long minimumEpochSecond
+    ) {
+        List<SelfPayment> selfPayments = index.getOrDefault(channelId, List.of());
+        int fromIndex = getFirstIndexAfter(selfPayments, minimumEpochSecond - 1);
+        return List.copyOf(selfPayments.subList(fromIndex, selfPayments.size()));
+    }
+
+    private static int getFirstIndexAfter(List<SelfPayment> selfPayments, long epochSecond) {
+        int low = 0;
+        int high = selfPayments.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (getEpochSecond(selfPayments.get(middle)) <= epochSecond) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static long getEpochSecond(SelfPayment selfPayment) {
+        return selfPayment.settleDate().toEpochSecond();
+    }
+}
@@ -6,30 +6,20 @@ import jakarta.persistence.Table;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface SelfPaymentsRepository extends JpaRepository<SelfPaymentsRepository.DummyEntity, Long> {
     @Query("SELECT NEW de.cotto.lndmanagej.selfpayments.persistence.SelfPaymentJpaDto(i, p) " +
             "FROM PaymentJpaDto p " +
-            "JOIN SettledInvoiceJpaDto i ON p.hash = i.hash " +
-            "JOIN p.routes route " +
-            "JOIN route.hops hop " +
-            "WHERE hop.first = false " +
-            "AND hop.channelId = ?1 " +
-            "AND i.settleDate >= ?2 " +
-            "ORDER BY i.settleDate ASC")
-    List<SelfPaymentJpaDto> getSelfPaymentsToChannel(long channelId, long minimumSettleDate);
+            "JOIN SettledInvoiceJpaDto i ON p.hash = i.hash")
+    List<SelfPaymentJpaDto> getAllSelfPayments();
 
     @Query("SELECT NEW de.cotto.lndmanagej.selfpayments.persistence.SelfPaymentJpaDto(i, p) " +
             "FROM PaymentJpaDto p " +
             "JOIN SettledInvoiceJpaDto i ON p.hash = i.hash " +
-            "JOIN p.routes route " +
-            "JOIN route.hops hop " +
-            "WHERE hop.first = true " +
-            "AND hop.channelId = ?1 " +
-            "AND i.settleDate >= ?2 " +
-            "ORDER BY i.settleDate ASC")
-    List<SelfPaymentJpaDto> getSelfPaymentsFromChannel(long channelId, long minimumSettleDate);
+            "WHERE p.hash IN ?1")
+    List<SelfPaymentJpaDto> getSelfPaymentsWithHashIn(Collection<String> hashes);
 
     @Entity
     @Table(name = "dummy")
@@ -61,6 +61,11 @@ class SelfPaymentJpaDtoTest {
         assertThat(selfPaymentJpaDto.toModel().routes()).isEmpty();
     }
 
+    @Test
+    void hash() {
+        assertThat(selfPaymentJpaDto.hash()).isEqualTo(PAYMENT_HASH_4);
+    }
+
     @Test
     void invoice() {
         assertThat(selfPaymentJpaDto.invoice()).usingRecursiveComparison()
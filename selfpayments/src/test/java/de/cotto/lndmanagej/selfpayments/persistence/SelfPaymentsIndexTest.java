@@ -0,0 +1,106 @@
+package de.cotto.lndmanagej.selfpayments.persistence;
+
+import org.junit.jupiter.api.Test;
+
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID;
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID_2;
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID_3;
+import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID_4;
+import static de.cotto.lndmanagej.model.PaymentFixtures.PAYMENT_HASH;
+import static de.cotto.lndmanagej.model.PaymentFixtures.PAYMENT_HASH_2;
+import static de.cotto.lndmanagej.model.PaymentFixtures.PAYMENT_HASH_3;
+import static de.cotto.lndmanagej.model.PaymentFixtures.PAYMENT_HASH_4;
+import static de.cotto.lndmanagej.model.SelfPaymentFixtures.SELF_PAYMENT;
+import static de.cotto.lndmanagej.model.SelfPaymentFixtures.SELF_PAYMENT_2;
+import static de.cotto.lndmanagej.model.SelfPaymentFixtures.SELF_PAYMENT_3;
+import static de.cotto.lndmanagej.model.SelfPaymentFixtures.SELF_PAYMENT_4;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SelfPaymentsIndexTest {
+    private final SelfPaymentsIndex index = new SelfPaymentsIndex();
+
+    @Test
+    void empty() {
+        assertThat(index.getSelfPaymentsFromChannel(CHANNEL_ID, 0)).isEmpty();
+        assertThat(index.getSelfPaymentsToChannel(CHANNEL_ID, 0)).isEmpty();
+    }
+
+    @Test
+    void getSelfPaymentsToChannel() {
+        addAll();
+        assertThat(index.getSelfPaymentsToChannel(CHANNEL_ID_2, 0)).containsExactly(SELF_PAYMENT, SELF_PAYMENT_4);
+    }
+
+    @Test
+    void getSelfPaymentsToChannel_with_minimum_settle_date() {
+        addAll();
+        long minimumEpochSecond = SELF_PAYMENT_3.settleDate().toEpochSecond();
+        assertThat(index.getSelfPaymentsToChannel(CHANNEL_ID_2, minimumEpochSecond)).containsExactly(SELF_PAYMENT_4);
+    }
+
+    @Test
+    void getSelfPaymentsToChannel_includes_self_payment_settled_at_minimum_settle_date() {
+        addAll();
+        long minimumEpochSecond = SELF_PAYMENT_4.settleDate().toEpochSecond();
+        assertThat(index.getSelfPaymentsToChannel(CHANNEL_ID_2, minimumEpochSecond)).containsExactly(SELF_PAYMENT_4);
+    }
+
+    @Test
+    void getSelfPaymentsToChannel_mpp_with_two_target_channels() {
+        addAll();
+        assertThat(index.getSelfPaymentsToChannel(CHANNEL_ID, 0)).contains(SELF_PAYMENT_4);
+        assertThat(index.getSelfPaymentsToChannel(CHANNEL_ID_2, 0)).contains(SELF_PAYMENT_4);
+    }
+
+    @Test
+    void getSelfPaymentsFromChannel() {
+        addAll();
+        assertThat(index.getSelfPaymentsFromChannel(CHANNEL_ID_4, 0))
+                .containsExactly(SELF_PAYMENT, SELF_PAYMENT_2, SELF_PAYMENT_3, SELF_PAYMENT_4);
+    }
+
+    @Test
+    void getSelfPaymentsFromChannel_with_minimum_settle_date() {
+        addAll();
+        long minimumEpochSecond = SELF_PAYMENT_3.settleDate().toEpochSecond();
+        assertThat(index.getSelfPaymentsFromChannel(CHANNEL_ID_4, minimumEpochSecond))
+                .containsExactly(SELF_PAYMENT_3, SELF_PAYMENT_4);
+    }
+
+    @Test
+    void getSelfPaymentsFromChannel_mpp_with_two_source_channels() {
+        addAll();
+        assertThat(index.getSelfPaymentsFromChannel(CHANNEL_ID_4, 0)).contains(SELF_PAYMENT_4);
+        assertThat(index.getSelfPaymentsFromChannel(CHANNEL_ID_3, 0)).contains(SELF_PAYMENT_4);
+    }
+
+    @Test
+    void sorted_by_settle_date_independent_of_insertion_order() {
+        index.add(PAYMENT_HASH_4, SELF_PAYMENT_4);
+        index.add(PAYMENT_HASH_2, SELF_PAYMENT_2);
+        index.add(PAYMENT_HASH, SELF_PAYMENT);
+        index.add(PAYMENT_HASH_3, SELF_PAYMENT_3);
+        assertThat(index.getSelfPaymentsFromChannel(CHANNEL_ID_4, 0))
+                .containsExactly(SELF_PAYMENT, SELF_PAYMENT_2, SELF_PAYMENT_3, SELF_PAYMENT_4);
+    }
+
+    @Test
+    void ignores_known_hash() {
+        index.add(PAYMENT_HASH, SELF_PAYMENT);
+        index.add(PAYMENT_HASH, SELF_PAYMENT);
+        assertThat(index.getSelfPaymentsFromChannel(CHANNEL_ID_4, 0)).containsExactly(SELF_PAYMENT);
+    }
+
+    @Test
+    void returns_self_payment_once_for_several_routes_via_channel() {
+        index.add(PAYMENT_HASH_2, SELF_PAYMENT_2);
+        assertThat(index.getSelfPaymentsToChannel(CHANNEL_ID, 0)).containsExactly(SELF_PAYMENT_2);
+    }
+
+    private void addAll() {
+        index.add(PAYMENT_HASH, SELF_PAYMENT);
+        index.add(PAYMENT_HASH_2, SELF_PAYMENT_2);
+        index.add(PAYMENT_HASH_3, SELF_PAYMENT_3);
+        index.add(PAYMENT_HASH_4, SELF_PAYMENT_4);
+    }
+}
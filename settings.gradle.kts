@@ -12,6 +12,7 @@ include("pickhardt-payments")
 include("privatechannels")
 include("selfpayments")
 include("statistics")
+include("timeseries")
 include("transactions")
 include("web")
 include("ui")
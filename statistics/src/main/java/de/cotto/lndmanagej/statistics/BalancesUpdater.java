@@ -17,6 +17,7 @@ import java.util.concurrent.TimeUnit;
 public class BalancesUpdater {
     private final ChannelService channelService;
     private final BalancesDao balancesDao;
+    private boolean rollupsInitialized;
 
     public BalancesUpdater(ChannelService channelService, BalancesDao balancesDao) {
         this.channelService = channelService;
@@ -27,6 +28,19 @@ public class BalancesUpdater {
     public void storeBalances() {
         LocalDateTime timestamp = LocalDateTime.now(ZoneOffset.UTC);
         channelService.getOpenChannels().forEach(channel -> storeUpdatedBalance(channel, timestamp));
+        if (!rollupsInitialized) {
+            initializeRollups();
+        }
+    }
+
+    /**
+     * Adds the balances recorded before the rollups were introduced (or while lnd-manageJ was not running), also for
+     * channels that were closed in the meantime. Afterwards, the rollups are updated whenever new balances are stored.
+     */
+    private void initializeRollups() {
+        channelService.getOpenChannels().forEach(channel -> balancesDao.updateRollups(channel.getId()));
+        channelService.getClosedChannels().forEach(channel -> balancesDao.updateRollups(channel.getId()));
+        rollupsInitialized = true;
     }
 
     private void storeUpdatedBalance(LocalOpenChannel channel, LocalDateTime timestamp) {
@@ -36,5 +50,8 @@ public class BalancesUpdater {
             return;
         }
         balancesDao.saveBalances(new Balances(timestamp, channel.getId(), balanceInformation));
+        if (rollupsInitialized) {
+            balancesDao.updateRollups(channel.getId());
+        }
     }
 }
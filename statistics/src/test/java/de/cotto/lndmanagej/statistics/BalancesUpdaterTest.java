@@ -18,6 +18,7 @@ import java.util.Optional;
 import java.util.Set;
 
 import static de.cotto.lndmanagej.model.BalanceInformationFixtures.BALANCE_INFORMATION_2;
+import static de.cotto.lndmanagej.model.CoopClosedChannelFixtures.CLOSED_CHANNEL_2;
 import static de.cotto.lndmanagej.model.LocalOpenChannelFixtures.LOCAL_OPEN_CHANNEL;
 import static de.cotto.lndmanagej.model.LocalOpenChannelFixtures.LOCAL_OPEN_CHANNEL_MORE_BALANCE_2;
 import static org.mockito.ArgumentMatchers.any;
@@ -73,6 +74,42 @@ class BalancesUpdaterTest {
         verify(dao, never()).saveBalances(any());
     }
 
+    @Test
+    void storeBalances_initializes_rollups_for_all_channels() {
+        when(channelService.getOpenChannels()).thenReturn(Set.of(LOCAL_OPEN_CHANNEL));
+        when(channelService.getClosedChannels()).thenReturn(Set.of(CLOSED_CHANNEL_2));
+        balancesUpdater.storeBalances();
+        verify(dao).updateRollups(LOCAL_OPEN_CHANNEL.getId());
+        verify(dao).updateRollups(CLOSED_CHANNEL_2.getId());
+    }
+
+    @Test
+    void storeBalances_updates_rollups_after_persisting_changed_data() {
+        when(channelService.getOpenChannels()).thenReturn(Set.of(LOCAL_OPEN_CHANNEL));
+        balancesUpdater.storeBalances();
+        ChannelId channelId = LOCAL_OPEN_CHANNEL.getId();
+        Balances balances = new Balances(LOCAL_DATE_TIME, channelId, BALANCE_INFORMATION_2);
+        when(dao.getMostRecentBalances(channelId)).thenReturn(Optional.of(balances));
+
+        balancesUpdater.storeBalances();
+
+        verify(dao, times(2)).updateRollups(channelId);
+        verify(channelService).getClosedChannels();
+    }
+
+    @Test
+    void storeBalances_does_not_update_rollups_for_unchanged_data() {
+        when(channelService.getOpenChannels()).thenReturn(Set.of(LOCAL_OPEN_CHANNEL));
+        balancesUpdater.storeBalances();
+        ChannelId channelId = LOCAL_OPEN_CHANNEL.getId();
+        Balances balances = new Balances(LOCAL_DATE_TIME, channelId, LOCAL_OPEN_CHANNEL.getBalanceInformation());
+        when(dao.getMostRecentBalances(channelId)).thenReturn(Optional.of(balances));
+
+        balancesUpdater.storeBalances();
+
+        verify(dao, times(1)).updateRollups(channelId);
+    }
+
     private ArgumentMatcher<Balances> withChannelId(LocalOpenChannel channel) {
         return statistics -> statistics.channelId().equals(channel.getId());
     }
@@ -0,0 +1,3 @@
+plugins {
+    id("lnd-manageJ.java-library-conventions")
+}
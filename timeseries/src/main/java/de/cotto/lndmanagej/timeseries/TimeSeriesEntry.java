@@ -0,0 +1,43 @@
+package de.cotto.lndmanagej.timeseries;
+
+import java.util.Arrays;
+
+public final class TimeSeriesEntry {
+    private final long epochSecond;
+    private final long[] values;
+
+    public TimeSeriesEntry(long epochSecond, long... values) {
+        this.epochSecond = epochSecond;
+        this.values = values.clone();
+    }
+
+    public long getEpochSecond() {
+        return epochSecond;
+    }
+
+    public long getValue(int index) {
+        return values[index];
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (other == null || getClass() != other.getClass()) {
+            return false;
+        }
+        TimeSeriesEntry that = (TimeSeriesEntry) other;
+        return epochSecond == that.epochSecond && Arrays.equals(values, that.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(epochSecond) + Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        return "TimeSeriesEntry{epochSecond=" + epochSecond + ", values=" + Arrays.toString(values) + "}";
+    }
+}
@@ -0,0 +1,183 @@
+package de.cotto.lndmanagej.timeseries;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A single append-only time series file. The header contains a magic number, the number of values per entry, and the
+ * timestamp (epoch second) of the first entry. Each entry consists of the timestamp relative to the first entry (as
+ * int) followed by the values (as long), so that all entries have the same width and can be located using a binary
+ * search. Reads are served from a read-only memory mapping of the file, which is renewed once entries are appended.
+ * <p>
+ * An incomplete entry at the end of the file (e.g. after a crash while appending) is ignored and overwritten by the
+ * next append.
+ */
+final class TimeSeriesFile {
+    static final int HEADER_SIZE = 16;
+    private static final int MAGIC = 0x4C4D5453;
+
+    private final Path path;
+    private final int valuesPerEntry;
+    private final int entrySize;
+    private long baseEpochSecond;
+    private int entries;
+    @Nullable
+    private MappedByteBuffer mapping;
+    private int mappedEntries;
+
+    TimeSeriesFile(Path path, int valuesPerEntry) throws IOException {
+        this.path = path;
+        this.valuesPerEntry = valuesPerEntry;
+        entrySize = Integer.BYTES + valuesPerEntry * Long.BYTES;
+        if (Files.exists(path)) {
+            readHeader();
+        }
+    }
+
+    synchronized void append(long epochSecond, long... values) throws IOException {
+        if (values.length != valuesPerEntry) {
+            throw new IllegalArgumentException("expected " + valuesPerEntry + " values, got " + values.length);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            if (entries == 0) {
+                baseEpochSecond = epochSecond;
+                writeHeader(channel);
+            }
+            // keep the entries sorted, even if the clock goes backwards
+            long timestamp = Math.max(epochSecond, entries == 0 ? epochSecond : getEpochSecond(entries - 1));
+            ByteBuffer buffer = ByteBuffer.allocate(entrySize);
+            buffer.putInt(Math.toIntExact(timestamp - baseEpochSecond));
+            for (long value : values) {
+                buffer.putLong(value);
+            }
+            buffer.flip();
+            long position = HEADER_SIZE + (long) entries * entrySize;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        }
+        entries++;
+    }
+
+    synchronized int size() {
+        return entries;
+    }
+
+    synchronized Optional<TimeSeriesEntry> getLast() throws IOException {
+        if (entries == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(getEntry(entries - 1));
+    }
+
+    /**
+     * Returns the most recent entry with a timestamp strictly before the given epoch second.
+     */
+    synchronized Optional<TimeSeriesEntry> getLastBefore(long epochSecond) throws IOException {
+        int index = getFirstIndexAtOrAfter(epochSecond) - 1;
+        if (index < 0) {
+            return Optional.empty();
+        }
+        return Optional.of(getEntry(index));
+    }
+
+    /**
+     * Returns all entries with a timestamp in the given range, sorted by timestamp.
+     */
+    synchronized List<TimeSeriesEntry> getEntries(long fromInclusive, long untilExclusive) throws IOException {
+        int fromIndex = getFirstIndexAtOrAfter(fromInclusive);
+        int untilIndex = getFirstIndexAtOrAfter(untilExclusive);
+        List<TimeSeriesEntry> result = new ArrayList<>(Math.max(0, untilIndex - fromIndex));
+        for (int index = fromIndex; index < untilIndex; index++) {
+            result.add(getEntry(index));
+        }
+        return result;
+    }
+
+    private int getFirstIndexAtOrAfter(long epochSecond) throws IOException {
+        int low = 0;
+        int high = entries;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (getEpochSecond(middle) < epochSecond) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private TimeSeriesEntry getEntry(int index) throws IOException {
+        ByteBuffer buffer = getMapping();
+        int offset = getOffset(index) + Integer.BYTES;
+        long[] values = new long[valuesPerEntry];
+        for (int i = 0; i < valuesPerEntry; i++) {
+            values[i] = buffer.getLong(offset + i * Long.BYTES);
+        }
+        return new TimeSeriesEntry(getEpochSecond(index), values);
+    }
+
+    private long getEpochSecond(int index) throws IOException {
+        return baseEpochSecond + getMapping().getInt(getOffset(index));
+    }
+
+    private int getOffset(int index) {
+        return HEADER_SIZE + index * entrySize;
+    }
+
+    private MappedByteBuffer getMapping() throws IOException {
+        MappedByteBuffer result = mapping;
+        if (result == null || mappedEntries < entries) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                result = channel.map(FileChannel.MapMode.READ_ONLY, 0, getOffset(entries));
+            }
+            mapping = result;
+            mappedEntries = entries;
+        }
+        return result;
+    }
+
+    private void readHeader() throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE) {
+                return;
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining()) {
+                channel.read(header, header.position());
+            }
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a time series file: " + path);
+            }
+            int valuesInFile = header.getInt();
+            if (valuesInFile != valuesPerEntry) {
+                throw new IOException("Expected " + valuesPerEntry + " values per entry, found " + valuesInFile);
+            }
+            baseEpochSecond = header.getLong();
+            entries = Math.toIntExact((fileSize - HEADER_SIZE) / entrySize);
+        }
+    }
+
+    private void writeHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC);
+        header.putInt(valuesPerEntry);
+        header.putLong(baseEpochSecond);
+        header.flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+    }
+}
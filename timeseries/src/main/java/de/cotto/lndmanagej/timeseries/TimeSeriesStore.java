@@ -0,0 +1,90 @@
+package de.cotto.lndmanagej.timeseries;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Stores time series with a fixed number of (long) values per entry, using one append-only file per key in the given
+ * directory. Entries must be appended in chronological order, and reads for a time range use a binary search on the
+ * memory-mapped file, so that the cost of a read does not depend on the length of the history.
+ */
+public class TimeSeriesStore {
+    private static final Pattern KEY_PATTERN = Pattern.compile("[0-9A-Za-z_-]+");
+    private static final String SUFFIX = ".ts";
+
+    private final Path directory;
+    private final int valuesPerEntry;
+    private final Map<String, TimeSeriesFile> files = new ConcurrentHashMap<>();
+
+    public TimeSeriesStore(Path directory, int valuesPerEntry) {
+        this.directory = directory;
+        this.valuesPerEntry = valuesPerEntry;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Appends an entry for the given key. If the given timestamp is before the timestamp of the most recent entry,
+     * the timestamp of the most recent entry is used instead.
+     */
+    public void append(String key, long epochSecond, long... values) {
+        try {
+            getFile(key).append(epochSecond, values);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public Optional<TimeSeriesEntry> getLast(String key) {
+        try {
+            return getFile(key).getLast();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the most recent entry for the given key with a timestamp strictly before the given epoch second.
+     */
+    public Optional<TimeSeriesEntry> getLastBefore(String key, long epochSecond) {
+        try {
+            return getFile(key).getLastBefore(epochSecond);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the entries for the given key with a timestamp in the given range, sorted by timestamp.
+     */
+    public List<TimeSeriesEntry> getEntries(String key, long fromInclusive, long untilExclusive) {
+        try {
+            return getFile(key).getEntries(fromInclusive, untilExclusive);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private TimeSeriesFile getFile(String key) {
+        if (!KEY_PATTERN.matcher(key).matches()) {
+            throw new IllegalArgumentException("Invalid key: " + key);
+        }
+        return files.computeIfAbsent(key, k -> {
+            try {
+                return new TimeSeriesFile(directory.resolve(k + SUFFIX), valuesPerEntry);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,38 @@
+package de.cotto.lndmanagej.timeseries;
+
+import nl.jqno.equalsverifier.EqualsVerifier;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimeSeriesEntryTest {
+    private static final TimeSeriesEntry ENTRY = new TimeSeriesEntry(123L, 1L, 2L);
+
+    @Test
+    void getEpochSecond() {
+        assertThat(ENTRY.getEpochSecond()).isEqualTo(123L);
+    }
+
+    @Test
+    void getValue() {
+        assertThat(ENTRY.getValue(1)).isEqualTo(2L);
+    }
+
+    @Test
+    void values_are_copied() {
+        long[] values = {1L};
+        TimeSeriesEntry entry = new TimeSeriesEntry(1L, values);
+        values[0] = 2L;
+        assertThat(entry.getValue(0)).isEqualTo(1L);
+    }
+
+    @Test
+    void testToString() {
+        assertThat(ENTRY).hasToString("TimeSeriesEntry{epochSecond=123, values=[1, 2]}");
+    }
+
+    @Test
+    void testEquals() {
+        EqualsVerifier.forClass(TimeSeriesEntry.class).usingGetClass().verify();
+    }
+}
@@ -0,0 +1,142 @@
+package de.cotto.lndmanagej.timeseries;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class TimeSeriesFileTest {
+    @TempDir
+    private Path directory;
+
+    @Test
+    void empty() throws IOException {
+        TimeSeriesFile file = new TimeSeriesFile(directory.resolve("x"), 2);
+        assertThat(file.size()).isZero();
+        assertThat(file.getLast()).isEmpty();
+        assertThat(file.getLastBefore(Long.MAX_VALUE)).isEmpty();
+        assertThat(file.getEntries(Long.MIN_VALUE, Long.MAX_VALUE)).isEmpty();
+    }
+
+    @Test
+    void does_not_create_file_for_read() throws IOException {
+        Path path = directory.resolve("x");
+        new TimeSeriesFile(path, 2).getLast();
+        assertThat(path).doesNotExist();
+    }
+
+    @Test
+    void append_and_getLast() throws IOException {
+        TimeSeriesFile file = new TimeSeriesFile(directory.resolve("x"), 2);
+        file.append(1_000, 1, 2);
+        file.append(1_100, 3, 4);
+        assertThat(file.size()).isEqualTo(2);
+        assertThat(file.getLast()).contains(new TimeSeriesEntry(1_100, 3, 4));
+    }
+
+    @Test
+    void uses_fixed_width_entries() throws IOException {
+        Path path = directory.resolve("x");
+        TimeSeriesFile file = new TimeSeriesFile(path, 2);
+        file.append(1_000, 1, 2);
+        file.append(1_100, 3, 4);
+        assertThat(Files.size(path)).isEqualTo(TimeSeriesFile.HEADER_SIZE + 2 * (4 + 2 * 8));
+    }
+
+    @Test
+    void append_wrong_number_of_values() throws IOException {
+        TimeSeriesFile file = new TimeSeriesFile(directory.resolve("x"), 2);
+        assertThatIllegalArgumentException().isThrownBy(() -> file.append(1_000, 1));
+    }
+
+    @Test
+    void append_keeps_order_if_clock_goes_backwards() throws IOException {
+        TimeSeriesFile file = new TimeSeriesFile(directory.resolve("x"), 1);
+        file.append(1_000, 1);
+        file.append(900, 2);
+        assertThat(file.getLast()).contains(new TimeSeriesEntry(1_000, 2));
+    }
+
+    @Test
+    void getLastBefore() throws IOException {
+        TimeSeriesFile file = createWithThreeEntries();
+        assertThat(file.getLastBefore(1_000)).isEmpty();
+        assertThat(file.getLastBefore(1_001)).contains(new TimeSeriesEntry(1_000, 1));
+        assertThat(file.getLastBefore(2_000)).contains(new TimeSeriesEntry(1_000, 1));
+        assertThat(file.getLastBefore(2_001)).contains(new TimeSeriesEntry(2_000, 2));
+        assertThat(file.getLastBefore(5_000)).contains(new TimeSeriesEntry(3_000, 3));
+    }
+
+    @Test
+    void getEntries() throws IOException {
+        TimeSeriesFile file = createWithThreeEntries();
+        assertThat(file.getEntries(1_000, 3_000))
+                .containsExactly(new TimeSeriesEntry(1_000, 1), new TimeSeriesEntry(2_000, 2));
+        assertThat(file.getEntries(1_001, 3_001))
+                .containsExactly(new TimeSeriesEntry(2_000, 2), new TimeSeriesEntry(3_000, 3));
+        assertThat(file.getEntries(3_001, 4_000)).isEmpty();
+    }
+
+    @Test
+    void reads_entries_appended_after_previous_read() throws IOException {
+        TimeSeriesFile file = createWithThreeEntries();
+        assertThat(file.getEntries(0, 10_000)).hasSize(3);
+        file.append(4_000, 4);
+        assertThat(file.getEntries(0, 10_000)).hasSize(4);
+    }
+
+    @Test
+    void reopen() throws IOException {
+        createWithThreeEntries();
+        TimeSeriesFile file = new TimeSeriesFile(directory.resolve("x"), 1);
+        assertThat(file.size()).isEqualTo(3);
+        assertThat(file.getEntries(0, 10_000)).containsExactly(
+                new TimeSeriesEntry(1_000, 1),
+                new TimeSeriesEntry(2_000, 2),
+                new TimeSeriesEntry(3_000, 3)
+        );
+    }
+
+    @Test
+    void reopen_ignores_incomplete_entry() throws IOException {
+        createWithThreeEntries();
+        Path path = directory.resolve("x");
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(path) - 1);
+        }
+        TimeSeriesFile file = new TimeSeriesFile(path, 1);
+        assertThat(file.size()).isEqualTo(2);
+        file.append(4_000, 4);
+        assertThat(new TimeSeriesFile(path, 1).getLast()).contains(new TimeSeriesEntry(4_000, 4));
+    }
+
+    @Test
+    void reopen_with_different_number_of_values() throws IOException {
+        createWithThreeEntries();
+        assertThatExceptionOfType(IOException.class)
+                .isThrownBy(() -> new TimeSeriesFile(directory.resolve("x"), 2));
+    }
+
+    @Test
+    void open_other_file() throws IOException {
+        Path path = directory.resolve("x");
+        Files.writeString(path, "this is not a time series file");
+        assertThatExceptionOfType(IOException.class).isThrownBy(() -> new TimeSeriesFile(path, 1));
+    }
+
+    private TimeSeriesFile createWithThreeEntries() throws IOException {
+        TimeSeriesFile file = new TimeSeriesFile(directory.resolve("x"), 1);
+        file.append(1_000, 1);
+        file.append(2_000, 2);
+        file.append(3_000, 3);
+        return file;
+    }
+}
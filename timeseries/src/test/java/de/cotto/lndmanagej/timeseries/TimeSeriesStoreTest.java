@@ -0,0 +1,76 @@
+package de.cotto.lndmanagej.timeseries;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class TimeSeriesStoreTest {
+    private static final String KEY = "123";
+    private static final String KEY_2 = "abc";
+
+    @TempDir
+    private Path directory;
+
+    private TimeSeriesStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new TimeSeriesStore(directory.resolve("sub"), 1);
+    }
+
+    @Test
+    void creates_directory() {
+        assertThat(directory.resolve("sub")).isDirectory();
+    }
+
+    @Test
+    void getLast_empty() {
+        assertThat(store.getLast(KEY)).isEmpty();
+    }
+
+    @Test
+    void getLast() {
+        store.append(KEY, 1_000, 1);
+        store.append(KEY, 2_000, 2);
+        assertThat(store.getLast(KEY)).contains(new TimeSeriesEntry(2_000, 2));
+    }
+
+    @Test
+    void getLastBefore() {
+        store.append(KEY, 1_000, 1);
+        store.append(KEY, 2_000, 2);
+        assertThat(store.getLastBefore(KEY, 2_000)).contains(new TimeSeriesEntry(1_000, 1));
+    }
+
+    @Test
+    void getEntries() {
+        store.append(KEY, 1_000, 1);
+        store.append(KEY, 2_000, 2);
+        assertThat(store.getEntries(KEY, 1_500, 2_500)).containsExactly(new TimeSeriesEntry(2_000, 2));
+    }
+
+    @Test
+    void keys_are_independent() {
+        store.append(KEY, 1_000, 1);
+        store.append(KEY_2, 2_000, 2);
+        assertThat(store.getEntries(KEY, 0, 10_000)).containsExactly(new TimeSeriesEntry(1_000, 1));
+        assertThat(store.getEntries(KEY_2, 0, 10_000)).containsExactly(new TimeSeriesEntry(2_000, 2));
+    }
+
+    @Test
+    void persists_entries() {
+        store.append(KEY, 1_000, 1);
+        TimeSeriesStore otherStore = new TimeSeriesStore(directory.resolve("sub"), 1);
+        assertThat(otherStore.getLast(KEY)).contains(new TimeSeriesEntry(1_000, 1));
+    }
+
+    @Test
+    void invalid_key() {
+        assertThatIllegalArgumentException().isThrownBy(() -> store.getLast("../x"));
+    }
+}
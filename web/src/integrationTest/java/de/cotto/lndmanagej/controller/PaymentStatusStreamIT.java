@@ -1,6 +1,7 @@
 package de.cotto.lndmanagej.controller;
 
 import de.cotto.lndmanagej.model.HexString;
+import de.cotto.lndmanagej.model.Pubkey;
 import de.cotto.lndmanagej.pickhardtpayments.model.PaymentStatus;
 import org.junit.jupiter.api.Test;
 import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
@@ -8,9 +9,13 @@ import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBo
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY;
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_2;
 import static org.assertj.core.api.Assertions.assertThat;
 
 class PaymentStatusStreamIT {
@@ -39,6 +44,32 @@ class PaymentStatusStreamIT {
                 .matches(line1 + NEWLINE + line2 + NEWLINE + line3 + NEWLINE);
     }
 
+    @Test
+    void convertsAllToJsonDelimitedByNewlines() throws IOException {
+        PaymentStatus paymentStatus1 = new PaymentStatus(new HexString("1234567890AABBCC"));
+        PaymentStatus paymentStatus2 = PaymentStatus.createFailure("nope");
+        executor.execute(() -> {
+            sleep();
+            paymentStatus1.info("info1");
+            sleep();
+            paymentStatus1.settled();
+        });
+        Map<Pubkey, PaymentStatus> paymentStatuses = new LinkedHashMap<>();
+        paymentStatuses.put(PUBKEY, paymentStatus1);
+        paymentStatuses.put(PUBKEY_2, paymentStatus2);
+        StreamingResponseBody streamingResponseBody = paymentStatusStream.getForAll(paymentStatuses);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        streamingResponseBody.writeTo(outputStream);
+        String peer1 = ",\"peer\":\"" + PUBKEY + "\"";
+        String peer2 = ",\"peer\":\"" + PUBKEY_2 + "\"";
+        String line1 = "\\{\"timestamp\":\".*\"" + peer1 + ",\"message\":\"Initializing payment 1234567890aabbcc\"}";
+        String line2 = "\\{\"timestamp\":\".*\"" + peer2 + ",\"message\":\"nope\"}";
+        String line3 = "\\{\"timestamp\":\".*\"" + peer1 + ",\"message\":\"info1\"}";
+        String line4 = "\\{\"timestamp\":\".*\"" + peer1 + ",\"message\":\"Settled\"}";
+        assertThat(outputStream.toString(StandardCharsets.UTF_8))
+                .matches(line1 + NEWLINE + line2 + NEWLINE + line3 + NEWLINE + line4 + NEWLINE);
+    }
+
     private void sleep() {
         try {
             Thread.sleep(110);
@@ -18,6 +18,7 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.Map;
 import java.util.Optional;
 
 import static de.cotto.lndmanagej.model.ChannelIdFixtures.CHANNEL_ID;
@@ -199,4 +200,18 @@ class PaymentsControllerIT {
         mockMvc.perform(post(url).contentType(APPLICATION_JSON).content(DTO_AS_STRING)).andExpect(status().isOk());
         verify(topUpService).topUp(PUBKEY, Coins.ofSatoshis(123), PAYMENT_OPTIONS);
     }
+
+    @Test
+    void topUpBatch() throws Exception {
+        when(topUpService.topUp(any(), any())).thenReturn(Map.of(PUBKEY, new PaymentStatus(HexString.EMPTY)));
+        String content = "{" +
+                "  \"feeRateWeight\": 123," +
+                "  \"feeRateLimit\": 999," +
+                "  \"ignoreFeesForOwnChannels\": false," +
+                "  \"amounts\": {\"" + PUBKEY + "\": 123}" +
+                "}";
+        String url = "%s/top-up/batch".formatted(PREFIX);
+        mockMvc.perform(post(url).contentType(APPLICATION_JSON).content(content)).andExpect(status().isOk());
+        verify(topUpService).topUp(Map.of(PUBKEY, Coins.ofSatoshis(123)), PAYMENT_OPTIONS);
+    }
 }
@@ -1,6 +1,7 @@
 package de.cotto.lndmanagej.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import de.cotto.lndmanagej.model.Pubkey;
 import de.cotto.lndmanagej.pickhardtpayments.model.PaymentStatus;
 import de.cotto.lndmanagej.pickhardtpayments.model.PaymentStatus.InstantWithString;
 import org.springframework.stereotype.Component;
@@ -8,7 +9,9 @@ import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBo
 
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Component
 public class PaymentStatusStream {
@@ -40,6 +43,45 @@ public class PaymentStatusStream {
         };
     }
 
+    public StreamingResponseBody getForAll(Map<Pubkey, PaymentStatus> paymentStatuses) {
+        return response -> {
+            Map<Pubkey, Integer> seenMessages = new LinkedHashMap<>();
+            boolean done;
+            do {
+                done = true;
+                for (Map.Entry<Pubkey, PaymentStatus> entry : paymentStatuses.entrySet()) {
+                    Pubkey peer = entry.getKey();
+                    PaymentStatus paymentStatus = entry.getValue();
+                    List<InstantWithString> messages = new ArrayList<>(paymentStatus.getMessages());
+                    int oldMessages = seenMessages.getOrDefault(peer, 0);
+                    seenMessages.put(peer, messages.size());
+                    for (int i = oldMessages; i < messages.size(); i++) {
+                        InstantWithString instantWithString = messages.get(i);
+                        Object messageToWrite = new PeerMessage(
+                                instantWithString.instant().toString(),
+                                peer.toString(),
+                                instantWithString.string()
+                        );
+                        String json = objectMapper.writeValueAsString(messageToWrite);
+                        response.write(json.getBytes(StandardCharsets.UTF_8));
+                        response.write('\n');
+                    }
+                    response.flush();
+                    done &= !paymentStatus.isPending();
+                }
+                if (!done) {
+                    sleep();
+                }
+            } while (!done || hasNewMessages(paymentStatuses, seenMessages));
+        };
+    }
+
+    private boolean hasNewMessages(Map<Pubkey, PaymentStatus> paymentStatuses, Map<Pubkey, Integer> seenMessages) {
+        return paymentStatuses.entrySet().stream().anyMatch(
+                entry -> entry.getValue().getMessages().size() > seenMessages.getOrDefault(entry.getKey(), 0)
+        );
+    }
+
     private boolean notDone(PaymentStatus paymentStatus, int seenMessages) {
         sleep();
         return paymentStatus.getMessages().size() > seenMessages || paymentStatus.isPending();
@@ -56,4 +98,8 @@ public class PaymentStatusStream {
     @SuppressWarnings("UnusedVariable")
     private record Message(String timestamp, String message) {
     }
+
+    @SuppressWarnings("UnusedVariable")
+    private record PeerMessage(String timestamp, String peer, String message) {
+    }
 }
@@ -3,6 +3,7 @@ package de.cotto.lndmanagej.controller;
 import com.codahale.metrics.annotation.Timed;
 import de.cotto.lndmanagej.controller.dto.MultiPathPaymentDto;
 import de.cotto.lndmanagej.controller.dto.PaymentOptionsDto;
+import de.cotto.lndmanagej.controller.dto.TopUpBatchDto;
 import de.cotto.lndmanagej.model.Coins;
 import de.cotto.lndmanagej.model.Pubkey;
 import de.cotto.lndmanagej.pickhardtpayments.MultiPathPaymentSender;
@@ -21,6 +22,8 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.Map;
+
 import static org.springframework.http.MediaType.APPLICATION_NDJSON;
 
 @RestController
@@ -132,8 +135,19 @@ public class PaymentsController {
         return toStream(paymentStatus);
     }
 
+    @Timed
+    @PostMapping("/top-up/batch")
+    public ResponseEntity<StreamingResponseBody> topUpBatch(@RequestBody TopUpBatchDto topUpBatchDto) {
+        Map<Pubkey, PaymentStatus> paymentStatuses =
+                topUpService.topUp(topUpBatchDto.amountsToModel(), topUpBatchDto.toModel());
+        return toStream(paymentStatusStream.getForAll(paymentStatuses));
+    }
+
     private ResponseEntity<StreamingResponseBody> toStream(PaymentStatus paymentStatus) {
-        StreamingResponseBody streamingResponseBody = paymentStatusStream.getFor(paymentStatus);
+        return toStream(paymentStatusStream.getFor(paymentStatus));
+    }
+
+    private ResponseEntity<StreamingResponseBody> toStream(StreamingResponseBody streamingResponseBody) {
         return ResponseEntity.ok()
                 .contentType(APPLICATION_NDJSON)
                 .body(streamingResponseBody);
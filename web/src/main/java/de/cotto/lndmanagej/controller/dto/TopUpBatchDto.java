@@ -0,0 +1,25 @@
+package de.cotto.lndmanagej.controller.dto;
+
+import de.cotto.lndmanagej.model.Coins;
+import de.cotto.lndmanagej.model.Pubkey;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class TopUpBatchDto extends PaymentOptionsDto {
+    private Map<String, Long> amounts = Map.of();
+
+    public TopUpBatchDto() {
+        super();
+    }
+
+    public Map<Pubkey, Coins> amountsToModel() {
+        Map<Pubkey, Coins> result = new LinkedHashMap<>();
+        amounts.forEach((pubkey, amount) -> result.put(Pubkey.create(pubkey), Coins.ofSatoshis(amount)));
+        return result;
+    }
+
+    public void setAmounts(Map<String, Long> amounts) {
+        this.amounts = amounts;
+    }
+}
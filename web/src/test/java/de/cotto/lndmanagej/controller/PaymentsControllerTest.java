@@ -2,8 +2,10 @@ package de.cotto.lndmanagej.controller;
 
 import de.cotto.lndmanagej.controller.dto.MultiPathPaymentDto;
 import de.cotto.lndmanagej.controller.dto.PaymentOptionsDto;
+import de.cotto.lndmanagej.controller.dto.TopUpBatchDto;
 import de.cotto.lndmanagej.model.Coins;
 import de.cotto.lndmanagej.model.HexString;
+import de.cotto.lndmanagej.model.Pubkey;
 import de.cotto.lndmanagej.pickhardtpayments.MultiPathPaymentSender;
 import de.cotto.lndmanagej.pickhardtpayments.MultiPathPaymentSplitter;
 import de.cotto.lndmanagej.pickhardtpayments.TopUpService;
@@ -19,6 +21,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Map;
 import java.util.Optional;
 
 import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY;
@@ -168,6 +171,21 @@ class PaymentsControllerTest {
         verify(topUpService).topUp(PUBKEY, Coins.ofSatoshis(123), PAYMENT_OPTIONS);
     }
 
+    @Test
+    void topUpBatch() {
+        TopUpBatchDto topUpBatchDto = new TopUpBatchDto();
+        topUpBatchDto.setFeeRateWeight(PAYMENT_OPTIONS.feeRateWeight().orElse(null));
+        topUpBatchDto.setFeeRateLimit(PAYMENT_OPTIONS.feeRateLimit().orElse(null));
+        topUpBatchDto.setIgnoreFeesForOwnChannels(PAYMENT_OPTIONS.ignoreFeesForOwnChannels());
+        topUpBatchDto.setAmounts(Map.of(PUBKEY.toString(), 123L));
+        Map<Pubkey, PaymentStatus> paymentStatuses = Map.of(PUBKEY, paymentStatus);
+        when(topUpService.topUp(Map.of(PUBKEY, Coins.ofSatoshis(123)), PAYMENT_OPTIONS)).thenReturn(paymentStatuses);
+        when(paymentStatusStream.getForAll(paymentStatuses))
+                .thenReturn(outputStream -> outputStream.write(STREAM_RESPONSE.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(controller.topUpBatch(topUpBatchDto).getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
     @Test
     void resetCache() {
         controller.resetGraph();
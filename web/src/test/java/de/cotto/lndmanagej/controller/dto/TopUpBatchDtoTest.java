@@ -0,0 +1,33 @@
+package de.cotto.lndmanagej.controller.dto;
+
+import de.cotto.lndmanagej.model.Coins;
+import de.cotto.lndmanagej.pickhardtpayments.model.PaymentOptions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY;
+import static de.cotto.lndmanagej.model.PubkeyFixtures.PUBKEY_2;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TopUpBatchDtoTest {
+    @Test
+    void amountsToModel_empty() {
+        assertThat(new TopUpBatchDto().amountsToModel()).isEmpty();
+    }
+
+    @Test
+    void amountsToModel() {
+        TopUpBatchDto dto = new TopUpBatchDto();
+        dto.setAmounts(Map.of(PUBKEY.toString(), 123L, PUBKEY_2.toString(), 456L));
+        assertThat(dto.amountsToModel())
+                .isEqualTo(Map.of(PUBKEY, Coins.ofSatoshis(123), PUBKEY_2, Coins.ofSatoshis(456)));
+    }
+
+    @Test
+    void toModel() {
+        TopUpBatchDto dto = new TopUpBatchDto();
+        dto.setFeeRateWeight(123);
+        assertThat(dto.toModel()).isEqualTo(PaymentOptions.forFeeRateWeight(123));
+    }
+}